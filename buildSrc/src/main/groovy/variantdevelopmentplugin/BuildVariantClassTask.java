@@ -20,6 +20,12 @@ public class BuildVariantClassTask extends DefaultTask {
         sourceCode += "import org.jetbrains.annotations.Nullable;\n";
         sourceCode += "import ru.vladislav117.variant.error.*;\n";
         sourceCode += "\n";
+        sourceCode += "import java.io.InputStream;\n";
+        sourceCode += "import java.io.OutputStream;\n";
+        sourceCode += "import java.math.BigDecimal;\n";
+        sourceCode += "import java.math.BigInteger;\n";
+        sourceCode += "import java.nio.channels.ReadableByteChannel;\n";
+        sourceCode += "import java.nio.channels.WritableByteChannel;\n";
         sourceCode += "import java.util.*;\n";
         sourceCode += "import java.util.function.BiConsumer;\n";
         sourceCode += "import java.util.function.Consumer;\n";
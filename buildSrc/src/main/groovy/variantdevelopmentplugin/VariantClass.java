@@ -34,6 +34,7 @@ public class VariantClass extends Class {
         static String IF_CHILD_WITH_NAME_DOES_NOT_EXISTS_THROW_ERROR_DESCRIPTION = "Если в таблице нет объекта с указанным именем, будет вызвано исключение.";
         static String IF_CHILD_WITH_NAME_DOES_NOT_EXISTS_RETURN_NULL_DESCRIPTION = "Если в таблице нет объекта с указанным именем, будет возвращено null.";
         static String IF_CHILD_WITH_NAME_DOES_NOT_EXISTS_RETURN_DEFAULT_DESCRIPTION = "Если в таблице нет объекта с указанным именем, будет возвращено значение по умолчанию.";
+        static String IF_CHILD_IS_THIS_THROW_ERROR_DESCRIPTION = "Если дочерний объект совпадает с этим объектом, будет вызвано исключение.";
         static String SET_VALUE_ERROR_DESCRIPTION = "Если тип устанавливаемого значения не поддерживается, будет вызвано исключение.";
         static String CONVERT_VALUE_THROW_ERROR_DESCRIPTION = "Если значение не может быть преобразовано к указанному типу, будет вызвано исключение.";
         static String CONVERT_VALUE_RETURN_NULL_DESCRIPTION = "Если значение не может быть преобразовано к указанному типу, будет возвращено null.";
@@ -49,6 +50,9 @@ public class VariantClass extends Class {
         static StatementBasedCode.SimpleIfStatement IF_CHILD_WITH_NAME_DOES_NOT_EXISTS_THROW_ERROR = new StatementBasedCode.SimpleIfStatement("!((Map<?, ?>) object).containsKey(childName)", "throw new VariantChildNameError(childName)");
         static StatementBasedCode.SimpleIfStatement IF_CHILD_WITH_NAME_DOES_NOT_EXISTS_RETURN_NULL = new StatementBasedCode.SimpleIfStatement("!((Map<?, ?>) object).containsKey(childName)", "return null");
         static StatementBasedCode.SimpleIfStatement IF_CHILD_WITH_NAME_DOES_NOT_EXISTS_RETURN_DEFAULT = new StatementBasedCode.SimpleIfStatement("!((Map<?, ?>) object).containsKey(childName)", "return defaultValue");
+        static StatementBasedCode.SimpleIfStatement IF_CHILD_IS_THIS_THROW_ERROR = new StatementBasedCode.SimpleIfStatement("child == this", "throw new VariantAttachError()");
+        static StatementBasedCode.SimpleIfStatement IF_RELEASED_THROW_ERROR = new StatementBasedCode.SimpleIfStatement("VariantArena.DEBUG && object == VariantArena.RELEASED", "throw new VariantArenaError()");
+        static StatementBasedCode.Statement ADOPT_ARENA_CHILD = new StatementBasedCode.Statement("child = VariantArena.adopt(this, child)");
         static StatementBasedCode.Statement RETURN_THIS = new StatementBasedCode.Statement("return this");
 
         static StatementBasedCode.SimpleIfStatement CONVERT_VALUE_THROW_ERROR(VariantDataType dataType) {
@@ -77,6 +81,9 @@ public class VariantClass extends Class {
         static Argument OBJECT_VALUE = new Argument("Object", "value") {{
             setDescription("Значение объекта");
         }};
+        static Argument VARIANT_CHILD = new Argument("Variant", "child") {{
+            setDescription("Дочерний объект");
+        }};
     }
 
     public static final class Returns {
@@ -112,6 +119,14 @@ public class VariantClass extends Class {
                 add(Documentation.IF_INDEX_OUT_OF_BOUNDS_RETURN_DEFAULT_DESCRIPTION);
             }});
         }};
+        static ComplexStatement IF_CHILD_IS_THIS_THROW_ERROR = new ComplexStatement(Statements.IF_CHILD_IS_THIS_THROW_ERROR) {{
+            setDocumentationLines(new ArrayList<String>() {{
+                add(Documentation.IF_CHILD_IS_THIS_THROW_ERROR_DESCRIPTION);
+            }});
+            setThrowsDescriptions(new ArrayList<AbstractMap.SimpleEntry<String, String>>() {{
+                add(new AbstractMap.SimpleEntry<>("VariantAttachError", Documentation.IF_CHILD_IS_THIS_THROW_ERROR_DESCRIPTION));
+            }});
+        }};
         static ComplexStatement IF_NOT_MAP_THROW_ERROR = new ComplexStatement(Statements.IF_NOT_MAP_THROW_ERROR) {{
             setDocumentationLines(new ArrayList<String>() {{
                 add(Documentation.IF_NOT_MAP_THROW_DESCRIPTION);
@@ -173,14 +188,22 @@ public class VariantClass extends Class {
         protected String klass;
         protected String isCode;
         protected String asCode;
+        protected String setCode;
+        protected String listAddCode;
+        protected String listGetCode;
         protected String defaultCode;
+        protected String primitiveIsCode = null;
+        protected String primitiveAsCode = null;
 
-        public VariantDataType(String name, String primitive, String klass, String isCode, String asCode, String defaultCode) {
+        public VariantDataType(String name, String primitive, String klass, String isCode, String asCode, String setCode, String listAddCode, String listGetCode, String defaultCode) {
             this.name = name;
             this.primitive = primitive;
             this.klass = klass;
             this.isCode = isCode;
             this.asCode = asCode;
+            this.setCode = setCode;
+            this.listAddCode = listAddCode;
+            this.listGetCode = listGetCode;
             this.defaultCode = defaultCode;
         }
 
@@ -204,9 +227,35 @@ public class VariantClass extends Class {
             return asCode;
         }
 
+        public String getSetCode() {
+            return setCode;
+        }
+
+        public String getListAddCode() {
+            return listAddCode;
+        }
+
+        public String getListGetCode() {
+            return listGetCode;
+        }
+
         public String getDefaultCode() {
             return defaultCode;
         }
+
+        public VariantDataType setPrimitiveListCode(String primitiveIsCode, String primitiveAsCode) {
+            this.primitiveIsCode = primitiveIsCode;
+            this.primitiveAsCode = primitiveAsCode;
+            return this;
+        }
+
+        public String getPrimitiveIsCode() {
+            return primitiveIsCode;
+        }
+
+        public String getPrimitiveAsCode() {
+            return primitiveAsCode;
+        }
     }
 
     public VariantClass() {
@@ -233,6 +282,21 @@ public class VariantClass extends Class {
         addField(new Field("Object", "object") {{
             setInitializer("null");
         }});
+        addField(new Field("VariantNumberPrecision", "precision") {{
+            setInitializer("VariantNumberPrecision.LONG");
+        }});
+        addField(new Field("long", "longNumber") {{
+            setInitializer("0");
+        }});
+        addField(new Field("double", "doubleNumber") {{
+            setInitializer("0");
+        }});
+        addField(new Field("Variant", "parent") {{
+            setInitializer("null");
+        }});
+        addField(new Field("byte[]", "cachedJson") {{
+            setInitializer("null");
+        }});
     }
 
     protected void createMethods() {
@@ -269,33 +333,208 @@ public class VariantClass extends Class {
                 addIf("json.isJsonPrimitive()", new StatementBasedCode() {{
                     addStatement("JsonPrimitive primitive = json.getAsJsonPrimitive()");
                     addSimpleIf("primitive.isBoolean()", "return new Variant(primitive.getAsBoolean())");
-                    addSimpleIf("primitive.isNumber()", "return new Variant(primitive.getAsNumber().doubleValue())");
+                    addSimpleIf("primitive.isNumber()", "return VariantDecimal.setNumber(new Variant(null), primitive.getAsNumber())");
                     addSimpleIf("primitive.isString()", "return new Variant(primitive.getAsString())");
                 }});
                 addIf("json.isJsonArray()", new StatementBasedCode() {{
                     addStatement("JsonArray array = json.getAsJsonArray()");
-                    addStatement("ArrayList<Variant> list = new ArrayList<>()");
+                    addStatement("VariantList list = new VariantList(array.size())");
                     addFor("JsonElement entry : array", new StatementBasedCode() {{
-                        addStatement("list.add(fromJson(entry))");
+                        addStatement("list.addOwned(fromJsonChild(entry))");
                     }});
-                    addStatement("return new Variant(list)");
+                    addStatement("return adoptList(list)");
                 }});
                 addIf("json.isJsonObject()", new StatementBasedCode() {{
                     addStatement("JsonObject object = json.getAsJsonObject()");
-                    addStatement("HashMap<String, Variant> map = new HashMap<>()");
+                    addStatement("VariantMap map = new VariantMap(object.size())");
                     addFor("Map.Entry<String, JsonElement> entry : object.entrySet()", new StatementBasedCode() {{
-                        addStatement("map.put(entry.getKey(), fromJson(entry.getValue()))");
+                        addStatement("map.put(entry.getKey(), fromJsonChild(entry.getValue()))");
                     }});
-                    addStatement("return new Variant(map)");
+                    addStatement("return adoptMap(map)");
                 }});
                 addStatement("return new Variant(null)");
             }});
         }});
 
+        addMethod(new Method("fromJsonChild") {{
+            setAccessModifier(AccessModifier.PROTECTED);
+            setDocumentation(new MethodDocumentation() {{
+                addLine("Создание дочернего объекта из json-элемента.");
+                addLine("Для null, логических значений и пустой строки возвращаются общие экземпляры.");
+                addSeeLink("CanonicalVariant");
+            }});
+            setStatic(true);
+            setReturn(new Return("Variant") {{
+                setDescription("Дочерний объект из json-элемента");
+            }});
+            addArgument(new Argument("JsonElement", "json") {{
+                setDescription("Json-элемент");
+            }});
+            setCode(new StatementBasedCode() {{
+                addSimpleIf("json.isJsonNull()", "return CanonicalVariant.ofNull()");
+                addIf("json.isJsonPrimitive()", new StatementBasedCode() {{
+                    addStatement("JsonPrimitive primitive = json.getAsJsonPrimitive()");
+                    addSimpleIf("primitive.isBoolean()", "return CanonicalVariant.ofBoolean(primitive.getAsBoolean())");
+                    addSimpleIf("primitive.isString()", "return CanonicalVariant.of(primitive.getAsString())");
+                }});
+                addStatement("return fromJson(json)");
+            }});
+        }});
+
+        addMethod(new Method("adoptList") {{
+            setAccessModifier(AccessModifier.PROTECTED);
+            setDocumentation(new MethodDocumentation() {{
+                addLine("Создание списка, который использует переданный список дочерних объектов без копирования.");
+                addLine("После вызова список принадлежит созданному объекту и не должен изменяться снаружи.");
+            }});
+            setStatic(true);
+            setReturn(new Return("Variant") {{
+                setDescription("Список.");
+            }});
+            addArgument(new Argument("VariantList", "list") {{
+                setDescription("Список дочерних объектов");
+            }});
+            setCode(new StatementBasedCode() {{
+                addStatement("Variant variant = VariantArena.allocate()");
+                addStatement("variant.type = VariantType.LIST");
+                addStatement("variant.object = list");
+                addStatement("return variant");
+            }});
+        }});
+
+        addMethod(new Method("adoptMap") {{
+            setAccessModifier(AccessModifier.PROTECTED);
+            setDocumentation(new MethodDocumentation() {{
+                addLine("Создание таблицы, которая использует переданную таблицу дочерних объектов без копирования.");
+                addLine("После вызова таблица принадлежит созданному объекту и не должна изменяться снаружи.");
+            }});
+            setStatic(true);
+            setReturn(new Return("Variant") {{
+                setDescription("Таблица.");
+            }});
+            addArgument(new Argument("Map<String, Variant>", "map") {{
+                setDescription("Таблица дочерних объектов");
+            }});
+            setCode(new StatementBasedCode() {{
+                addStatement("Variant variant = VariantArena.allocate()");
+                addStatement("variant.type = VariantType.MAP");
+                addStatement("variant.object = map");
+                addStatement("return variant");
+            }});
+        }});
+
         addMethod(new Method("fromJsonString") {{
             setDocumentation(new MethodDocumentation() {{
                 addLine("Создание объекта из json-строки.");
-                addSeeLink("Variant#fromJson(JsonElement)");
+                addSeeLink("VariantJsonParser");
+            }});
+            setStatic(true);
+            setReturn(new Return("Variant") {{
+                setDescription("Объект из json-строки");
+            }});
+            addArgument(new Argument("String", "json") {{
+                setDescription("Json-строка");
+            }});
+            setCode(new StatementBasedCode() {{
+                addStatement("return VariantJsonParser.parse(json)");
+            }});
+        }});
+
+        addMethod(new Method("fromJsonBytes") {{
+            setDocumentation(new MethodDocumentation() {{
+                addLine("Создание объекта из json в кодировке UTF-8.");
+                addSeeLink("VariantJsonParser");
+            }});
+            setStatic(true);
+            setReturn(new Return("Variant") {{
+                setDescription("Объект из json");
+            }});
+            addArgument(new Argument("byte[]", "json") {{
+                setDescription("Json в кодировке UTF-8");
+            }});
+            setCode(new StatementBasedCode() {{
+                addStatement("return VariantJsonParser.parse(json)");
+            }});
+        }});
+
+        addMethod(new Method("fromJsonStream") {{
+            setDocumentation(new MethodDocumentation() {{
+                addLine("Создание объекта из потока с json в кодировке UTF-8.");
+                addLine("Поток читается до конца, но не закрывается.");
+                addSeeLink("VariantJsonParser");
+            }});
+            setStatic(true);
+            setReturn(new Return("Variant") {{
+                setDescription("Объект из json");
+            }});
+            addArgument(new Argument("InputStream", "stream") {{
+                setDescription("Поток с json в кодировке UTF-8");
+            }});
+            setCode(new StatementBasedCode() {{
+                addStatement("return VariantJsonParser.parse(stream)");
+            }});
+        }});
+
+        addMethod(new Method("fromJsonChannel") {{
+            setDocumentation(new MethodDocumentation() {{
+                addLine("Создание объекта из канала с json в кодировке UTF-8.");
+                addLine("Канал читается до конца, но не закрывается.");
+                addSeeLink("VariantJsonParser");
+            }});
+            setStatic(true);
+            setReturn(new Return("Variant") {{
+                setDescription("Объект из json");
+            }});
+            addArgument(new Argument("ReadableByteChannel", "channel") {{
+                setDescription("Канал с json в кодировке UTF-8");
+            }});
+            setCode(new StatementBasedCode() {{
+                addStatement("return VariantJsonParser.parse(channel)");
+            }});
+        }});
+
+        addMethod(new Method("fromJsonStringLazy") {{
+            setDocumentation(new MethodDocumentation() {{
+                addLine("Отложенное создание объекта из json-строки.");
+                addLine("Таблицы и списки разбираются при первом обращении к ним, а неразобранные части записываются в json без изменений.");
+                addSeeLink("VariantJsonParser#parseLazy(byte[], int, int)");
+            }});
+            setStatic(true);
+            setReturn(new Return("Variant") {{
+                setDescription("Объект из json-строки");
+            }});
+            addArgument(new Argument("String", "json") {{
+                setDescription("Json-строка");
+            }});
+            setCode(new StatementBasedCode() {{
+                addStatement("return VariantJsonParser.parseLazy(json)");
+            }});
+        }});
+
+        addMethod(new Method("fromJsonBytesLazy") {{
+            setDocumentation(new MethodDocumentation() {{
+                addLine("Отложенное создание объекта из json в кодировке UTF-8.");
+                addLine("Таблицы и списки разбираются при первом обращении к ним, а неразобранные части записываются в json без изменений.");
+                addLine("Массив хранится без копирования и не должен изменяться, пока объект используется.");
+                addSeeLink("VariantJsonParser#parseLazy(byte[], int, int)");
+            }});
+            setStatic(true);
+            setReturn(new Return("Variant") {{
+                setDescription("Объект из json");
+            }});
+            addArgument(new Argument("byte[]", "json") {{
+                setDescription("Json в кодировке UTF-8");
+            }});
+            setCode(new StatementBasedCode() {{
+                addStatement("return VariantJsonParser.parseLazy(json)");
+            }});
+        }});
+
+        addMethod(new Method("fromJsonStringParallel") {{
+            setDocumentation(new MethodDocumentation() {{
+                addLine("Параллельное создание объекта из json-строки, корнем которой является большой список.");
+                addLine("Части списка разбираются в общем пуле ForkJoinPool.");
+                addSeeLink("VariantParallelJsonParser");
             }});
             setStatic(true);
             setReturn(new Return("Variant") {{
@@ -305,7 +544,131 @@ public class VariantClass extends Class {
                 setDescription("Json-строка");
             }});
             setCode(new StatementBasedCode() {{
-                addStatement("return fromJson(gson.fromJson(json, JsonElement.class))");
+                addStatement("return VariantParallelJsonParser.parse(json)");
+            }});
+        }});
+
+        addMethod(new Method("fromJsonBytesParallel") {{
+            setDocumentation(new MethodDocumentation() {{
+                addLine("Параллельное создание объекта из json в кодировке UTF-8, корнем которого является большой список.");
+                addLine("Части списка разбираются в общем пуле ForkJoinPool.");
+                addSeeLink("VariantParallelJsonParser");
+            }});
+            setStatic(true);
+            setReturn(new Return("Variant") {{
+                setDescription("Объект из json");
+            }});
+            addArgument(new Argument("byte[]", "json") {{
+                setDescription("Json в кодировке UTF-8");
+            }});
+            setCode(new StatementBasedCode() {{
+                addStatement("return VariantParallelJsonParser.parse(json)");
+            }});
+        }});
+
+        addMethod(new Method("fromCborBytes") {{
+            setDocumentation(new MethodDocumentation() {{
+                addLine("Создание объекта из CBOR.");
+                addSeeLink("VariantCborParser");
+            }});
+            setStatic(true);
+            setReturn(new Return("Variant") {{
+                setDescription("Объект из CBOR");
+            }});
+            addArgument(new Argument("byte[]", "cbor") {{
+                setDescription("CBOR");
+            }});
+            setCode(new StatementBasedCode() {{
+                addStatement("return VariantCborParser.parse(cbor)");
+            }});
+        }});
+
+        addMethod(new Method("fromCborStream") {{
+            setDocumentation(new MethodDocumentation() {{
+                addLine("Создание объекта из потока с CBOR.");
+                addLine("Поток читается до конца, но не закрывается.");
+                addSeeLink("VariantCborParser");
+            }});
+            setStatic(true);
+            setReturn(new Return("Variant") {{
+                setDescription("Объект из CBOR");
+            }});
+            addArgument(new Argument("InputStream", "stream") {{
+                setDescription("Поток с CBOR");
+            }});
+            setCode(new StatementBasedCode() {{
+                addStatement("return VariantCborParser.parse(stream)");
+            }});
+        }});
+
+        addMethod(new Method("fromMessagePackBytes") {{
+            setDocumentation(new MethodDocumentation() {{
+                addLine("Создание объекта из MessagePack.");
+                addLine("Строки ссылаются на массив без копирования, поэтому он не должен изменяться, пока объект используется.");
+                addSeeLink("VariantMessagePackParser");
+            }});
+            setStatic(true);
+            setReturn(new Return("Variant") {{
+                setDescription("Объект из MessagePack");
+            }});
+            addArgument(new Argument("byte[]", "messagePack") {{
+                setDescription("MessagePack");
+            }});
+            setCode(new StatementBasedCode() {{
+                addStatement("return VariantMessagePackParser.parse(messagePack)");
+            }});
+        }});
+
+        addMethod(new Method("fromMessagePackStream") {{
+            setDocumentation(new MethodDocumentation() {{
+                addLine("Создание объекта из потока с MessagePack.");
+                addLine("Поток читается до конца, но не закрывается.");
+                addSeeLink("VariantMessagePackParser");
+            }});
+            setStatic(true);
+            setReturn(new Return("Variant") {{
+                setDescription("Объект из MessagePack");
+            }});
+            addArgument(new Argument("InputStream", "stream") {{
+                setDescription("Поток с MessagePack");
+            }});
+            setCode(new StatementBasedCode() {{
+                addStatement("return VariantMessagePackParser.parse(stream)");
+            }});
+        }});
+
+        addMethod(new Method("fromSnapshot") {{
+            setDocumentation(new MethodDocumentation() {{
+                addLine("Создание объекта из двоичного снимка.");
+                addSeeLink("VariantSnapshotParser");
+            }});
+            setStatic(true);
+            setReturn(new Return("Variant") {{
+                setDescription("Объект из снимка");
+            }});
+            addArgument(new Argument("byte[]", "snapshot") {{
+                setDescription("Снимок");
+            }});
+            setCode(new StatementBasedCode() {{
+                addStatement("return VariantSnapshotParser.parse(snapshot)");
+            }});
+        }});
+
+        addMethod(new Method("fromSnapshotStream") {{
+            setDocumentation(new MethodDocumentation() {{
+                addLine("Создание объекта из потока с двоичным снимком.");
+                addLine("Поток читается до конца, но не закрывается.");
+                addSeeLink("VariantSnapshotParser");
+            }});
+            setStatic(true);
+            setReturn(new Return("Variant") {{
+                setDescription("Объект из снимка");
+            }});
+            addArgument(new Argument("InputStream", "stream") {{
+                setDescription("Поток со снимком");
+            }});
+            setCode(new StatementBasedCode() {{
+                addStatement("return VariantSnapshotParser.parse(stream)");
             }});
         }});
 
@@ -317,6 +680,7 @@ public class VariantClass extends Class {
                 setDescription("Тип объекта.");
             }});
             setCode(new StatementBasedCode() {{
+                addStatement(Statements.IF_RELEASED_THROW_ERROR);
                 addStatement("return type");
             }});
         }});
@@ -331,7 +695,8 @@ public class VariantClass extends Class {
                 setDescription("Длина строки, размер списка или размер таблицы.");
             }});
             setCode(new StatementBasedCode() {{
-                addSimpleIf("type == VariantType.STRING", "return ((String) object).length()");
+                addStatement(Statements.IF_RELEASED_THROW_ERROR);
+                addSimpleIf("type == VariantType.STRING", "return ((CharSequence) object).length()");
                 addSimpleIf("type == VariantType.LIST", "return ((List<?>) object).size()");
                 addSimpleIf("type == VariantType.MAP", "return ((Map<?, ?>) object).size()");
                 addStatement("throw new VariantTypeError(type, VariantType.STRING, VariantType.LIST, VariantType.MAP)");
@@ -385,7 +750,7 @@ public class VariantClass extends Class {
             setCode(new StatementBasedCode() {{
                 addStatement(ComplexStatements.IF_NOT_LIST_THROW_ERROR.build(method));
                 addStatement(ComplexStatements.IF_INDEX_OUT_OF_BOUNDS_THROW_ERROR.build(method));
-                addStatement("return ((List<Variant>) object).get(childIndex).type == type");
+                addStatement("return ((VariantList) object).peek(childIndex).type == type");
             }});
         }});
 
@@ -404,7 +769,7 @@ public class VariantClass extends Class {
             setCode(new StatementBasedCode() {{
                 addStatement(ComplexStatements.IF_NOT_MAP_THROW_ERROR.build(method));
                 addStatement(ComplexStatements.IF_CHILD_WITH_NAME_DOES_NOT_EXISTS_ERROR.build(method));
-                addStatement("return ((Map<String, Variant>) object).get(childName).type == type");
+                addStatement("return ((VariantMap) object).peek(childName).type == type");
             }});
         }});
 
@@ -487,6 +852,75 @@ public class VariantClass extends Class {
             }});
         }});
 
+        addMethod(new Method("peek") {{
+            setAccessModifier(AccessModifier.PROTECTED);
+            setDocumentation(new MethodDocumentation() {{
+                addLine("Получение дочернего объекта по индексу для чтения.");
+                addLine("Список примитивов не переводится на хранение объектов Variant, вместо этого возвращается копия значения.");
+            }});
+            setReturn(new Return("Variant") {{
+                setDescription("Дочерний объект или копия его значения.");
+            }});
+            addArgument(Arguments.CHILD_INDEX);
+            setCode(new StatementBasedCode() {{
+                addStatement(ComplexStatements.IF_NOT_LIST_THROW_ERROR.build(method));
+                addStatement(ComplexStatements.IF_INDEX_OUT_OF_BOUNDS_THROW_ERROR.build(method));
+                addStatement("return ((VariantList) object).peek(childIndex)");
+            }});
+        }});
+
+        addMethod(new Method("peekOrNull") {{
+            setAccessModifier(AccessModifier.PROTECTED);
+            setDocumentation(new MethodDocumentation() {{
+                addLine("Получение дочернего объекта по индексу для чтения.");
+                addLine("Список примитивов не переводится на хранение объектов Variant, вместо этого возвращается копия значения.");
+            }});
+            setReturn(new Return("Variant") {{
+                setDescription("Дочерний объект, копия его значения или null.");
+                setAnnotation(Annotations.NULLABLE);
+            }});
+            addArgument(Arguments.CHILD_INDEX);
+            setCode(new StatementBasedCode() {{
+                addStatement(ComplexStatements.IF_NOT_LIST_THROW_ERROR.build(method));
+                addStatement(ComplexStatements.IF_INDEX_OUT_OF_BOUNDS_RETURN_NULL.build(method));
+                addStatement("return ((VariantList) object).peek(childIndex)");
+            }});
+        }});
+
+        addMethod(new Method("peek") {{
+            setAccessModifier(AccessModifier.PROTECTED);
+            setDocumentation(new MethodDocumentation() {{
+                addLine("Получение дочернего объекта по имени для чтения.");
+                addLine("Общий неизменяемый экземпляр не заменяется изменяемой копией.");
+            }});
+            setReturn(new Return("Variant") {{
+                setDescription("Дочерний объект или общий экземпляр.");
+            }});
+            addArgument(Arguments.CHILD_NAME);
+            setCode(new StatementBasedCode() {{
+                addStatement(ComplexStatements.IF_NOT_MAP_THROW_ERROR.build(method));
+                addStatement(ComplexStatements.IF_CHILD_WITH_NAME_DOES_NOT_EXISTS_ERROR.build(method));
+                addStatement("return ((VariantMap) object).peek(childName)");
+            }});
+        }});
+
+        addMethod(new Method("peekOrNull") {{
+            setAccessModifier(AccessModifier.PROTECTED);
+            setDocumentation(new MethodDocumentation() {{
+                addLine("Получение дочернего объекта по имени для чтения.");
+                addLine("Общий неизменяемый экземпляр не заменяется изменяемой копией.");
+            }});
+            setReturn(new Return("Variant") {{
+                setDescription("Дочерний объект, общий экземпляр или null.");
+                setAnnotation(Annotations.NULLABLE);
+            }});
+            addArgument(Arguments.CHILD_NAME);
+            setCode(new StatementBasedCode() {{
+                addStatement(ComplexStatements.IF_NOT_MAP_THROW_ERROR.build(method));
+                addStatement("return ((VariantMap) object).peek(childName)");
+            }});
+        }});
+
         addMethod(new Method("get") {{
             setDocumentation(new MethodDocumentation() {{
                 addLine("Получение дочернего объекта по имени.");
@@ -548,6 +982,7 @@ public class VariantClass extends Class {
             setReturn(Returns.THIS);
             addArgument(Arguments.OBJECT_VALUE);
             setCode(new StatementBasedCode() {{
+                addStatement("modified()");
                 addSimpleIf("type == VariantType.LIST", "((List<?>) object).clear()");
                 addSimpleIf("type == VariantType.MAP", "((Map<?, ?>) object).clear()");
                 addStatement("type = VariantType.NULL");
@@ -560,70 +995,146 @@ public class VariantClass extends Class {
                     addStatement("object = value");
                     addStatement(Statements.RETURN_THIS);
                 }});
-                addIf("value instanceof Byte", new StatementBasedCode() {{
-                    addStatement("type = VariantType.NUMBER");
-                    addStatement("object = ((Byte) value).doubleValue()");
-                    addStatement(Statements.RETURN_THIS);
-                }});
-                addIf("value instanceof Short", new StatementBasedCode() {{
-                    addStatement("type = VariantType.NUMBER");
-                    addStatement("object = ((Short) value).doubleValue()");
-                    addStatement(Statements.RETURN_THIS);
-                }});
-                addIf("value instanceof Integer", new StatementBasedCode() {{
-                    addStatement("type = VariantType.NUMBER");
-                    addStatement("object = ((Integer) value).doubleValue()");
-                    addStatement(Statements.RETURN_THIS);
-                }});
-                addIf("value instanceof Long", new StatementBasedCode() {{
-                    addStatement("type = VariantType.NUMBER");
-                    addStatement("object = ((Long) value).doubleValue()");
-                    addStatement(Statements.RETURN_THIS);
-                }});
-                addIf("value instanceof Float", new StatementBasedCode() {{
-                    addStatement("type = VariantType.NUMBER");
-                    addStatement("object = ((Float) value).doubleValue()");
-                    addStatement(Statements.RETURN_THIS);
-                }});
-                addIf("value instanceof Double", new StatementBasedCode() {{
-                    addStatement("type = VariantType.NUMBER");
-                    addStatement("object = value");
-                    addStatement(Statements.RETURN_THIS);
-                }});
+                addSimpleIf("value instanceof Byte", "return setLongNumber((Byte) value)");
+                addSimpleIf("value instanceof Short", "return setLongNumber((Short) value)");
+                addSimpleIf("value instanceof Integer", "return setLongNumber((Integer) value)");
+                addSimpleIf("value instanceof Long", "return setLongNumber((Long) value)");
+                addSimpleIf("value instanceof Float", "return setDoubleNumber((Float) value)");
+                addSimpleIf("value instanceof Double", "return setDoubleNumber((Double) value)");
+                addSimpleIf("value instanceof Number", "return VariantDecimal.setNumber(this, (Number) value)");
                 addIf("value instanceof Character", new StatementBasedCode() {{
                     addStatement("type = VariantType.STRING");
                     addStatement("object = ((Character) value).toString()");
                     addStatement(Statements.RETURN_THIS);
                 }});
-                addIf("value instanceof String", new StatementBasedCode() {{
+                addIf("value instanceof String || value instanceof VariantUtf8String", new StatementBasedCode() {{
                     addStatement("type = VariantType.STRING");
                     addStatement("object = value");
                     addStatement(Statements.RETURN_THIS);
                 }});
+                addIf("value instanceof VariantList", new StatementBasedCode() {{
+                    addStatement("type = VariantType.LIST");
+                    addStatement("object = ((VariantList) value).copy()");
+                    addStatement(Statements.RETURN_THIS);
+                }});
                 addIf("value instanceof List<?>", new StatementBasedCode() {{
                     addStatement("type = VariantType.LIST");
-                    addStatement("object = new ArrayList<Variant>(((List<?>) value).size())");
+                    addStatement("object = new VariantList(((List<?>) value).size())");
                     addFor("Object innerObject : ((List<?>) value)", new StatementBasedCode() {{
-                        addStatement("((List<Variant>) object).add(new Variant(innerObject))");
+                        addStatement("((VariantList) object).addOwned(CanonicalVariant.of(innerObject))");
                     }});
                     addStatement(Statements.RETURN_THIS);
                 }});
+                addIf("value instanceof VariantMap", new StatementBasedCode() {{
+                    addStatement("type = VariantType.MAP");
+                    addStatement("object = ((VariantMap) value).copy()");
+                    addStatement(Statements.RETURN_THIS);
+                }});
                 addIf("value instanceof Map<?, ?>", new StatementBasedCode() {{
                     addStatement("type = VariantType.MAP");
-                    addStatement("object = new HashMap<String, Variant>(((Map<?, ?>) value).size())");
+                    addStatement("object = new VariantMap(((Map<?, ?>) value).size())");
                     addFor("Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()", new StatementBasedCode() {{
-                        addStatement("((Map<String, Variant>) object).put(entry.getKey().toString(), new Variant(entry.getValue()))");
+                        addStatement("((Map<String, Variant>) object).put(entry.getKey().toString(), CanonicalVariant.of(entry.getValue()))");
                     }});
                     addStatement(Statements.RETURN_THIS);
                 }});
+                addIf("value instanceof PersistentVariant", new StatementBasedCode() {{
+                    addStatement("Variant variant = ((PersistentVariant) value).toVariant()");
+                    addStatement("type = variant.type");
+                    addStatement("object = variant.object");
+                    addStatement("precision = variant.precision");
+                    addStatement("longNumber = variant.longNumber");
+                    addStatement("doubleNumber = variant.doubleNumber");
+                    addStatement(Statements.RETURN_THIS);
+                }});
                 addIf("value instanceof Variant", new StatementBasedCode() {{
-                    addStatement("set(((Variant) value).object)");
+                    addStatement("Variant variant = (Variant) value");
+                    addSimpleIf("variant.type != VariantType.NUMBER", "return set(variant.object)");
+                    addStatement("type = VariantType.NUMBER");
+                    addStatement("object = variant.object");
+                    addStatement("precision = variant.precision");
+                    addStatement("longNumber = variant.longNumber");
+                    addStatement("doubleNumber = variant.doubleNumber");
                     addStatement(Statements.RETURN_THIS);
                 }});
                 addStatement("throw new VariantSetValueError(value)");
             }});
         }});
 
+        addMethod(new Method("setLongNumber") {{
+            setAccessModifier(AccessModifier.PROTECTED);
+            setDocumentation(new MethodDocumentation() {{
+                addLine("Установка целочисленного значения объекта без упаковки.");
+            }});
+            addAnnotation(Annotations.UNUSED_RETURN_VALUE);
+            setReturn(Returns.THIS);
+            addArgument(new Argument("long", "value") {{
+                setDescription("Значение объекта");
+            }});
+            setCode(new StatementBasedCode() {{
+                addStatement("modified()");
+                addSimpleIf("type != VariantType.NUMBER", "set(null)");
+                addStatement("type = VariantType.NUMBER");
+                addStatement("object = null");
+                addStatement("precision = VariantNumberPrecision.LONG");
+                addStatement("longNumber = value");
+                addStatement("doubleNumber = value");
+                addStatement(Statements.RETURN_THIS);
+            }});
+        }});
+
+        addMethod(new Method("setDoubleNumber") {{
+            setAccessModifier(AccessModifier.PROTECTED);
+            setDocumentation(new MethodDocumentation() {{
+                addLine("Установка значения объекта с плавающей точкой без упаковки.");
+            }});
+            addAnnotation(Annotations.UNUSED_RETURN_VALUE);
+            setReturn(Returns.THIS);
+            addArgument(new Argument("double", "value") {{
+                setDescription("Значение объекта");
+            }});
+            setCode(new StatementBasedCode() {{
+                addStatement("modified()");
+                addSimpleIf("type != VariantType.NUMBER", "set(null)");
+                addStatement("type = VariantType.NUMBER");
+                addStatement("object = null");
+                addStatement("precision = VariantNumberPrecision.DOUBLE");
+                addStatement("longNumber = (long) value");
+                addStatement("doubleNumber = value");
+                addStatement(Statements.RETURN_THIS);
+            }});
+        }});
+
+        addMethod(new Method("modified") {{
+            setAccessModifier(AccessModifier.PROTECTED);
+            setDocumentation(new MethodDocumentation() {{
+                addLine("Отметка изменения объекта: сохранённый json этого объекта и всех его предков сбрасывается.");
+                addSeeLink("Variant#toJsonBytesCached()");
+            }});
+            setCode(new StatementBasedCode() {{
+                addStatement(Statements.IF_RELEASED_THROW_ERROR);
+                addFor("Variant node = this; node != null; node = node.parent", new StatementBasedCode() {{
+                    addStatement("node.cachedJson = null");
+                }});
+            }});
+        }});
+
+        addMethod(new Method("getNumberPrecision") {{
+            setDocumentation(new MethodDocumentation() {{
+                addLine("Получение точности хранения числа.");
+                addLine("Если этот объект не является числом, будет вызвано исключение.");
+                addThrowDescription("VariantTypeError", "Если этот объект не является числом, будет вызвано исключение.");
+            }});
+            setReturn(new Return("VariantNumberPrecision") {{
+                setDescription("Точность хранения числа.");
+            }});
+            setCode(new StatementBasedCode() {{
+                addStatement(Statements.IF_RELEASED_THROW_ERROR);
+                addSimpleIf("type != VariantType.NUMBER", "throw new VariantTypeError(type, VariantType.NUMBER)");
+                addStatement("return precision");
+            }});
+        }});
+
         addMethod(new Method("set") {{
             setDocumentation(new MethodDocumentation() {{
                 addLine("Установка дочернего объекта по индексу.");
@@ -637,7 +1148,7 @@ public class VariantClass extends Class {
             setCode(new StatementBasedCode() {{
                 addStatement(ComplexStatements.IF_NOT_LIST_THROW_ERROR.build(method));
                 addStatement(ComplexStatements.IF_INDEX_OUT_OF_BOUNDS_THROW_ERROR.build(method));
-                addStatement("((List<Variant>) object).set(childIndex, new Variant(value))");
+                addStatement("((VariantList) object).setOwned(childIndex, CanonicalVariant.of(value))");
                 addStatement(Statements.RETURN_THIS);
             }});
         }});
@@ -655,14 +1166,14 @@ public class VariantClass extends Class {
             setCode(new StatementBasedCode() {{
                 addStatement(ComplexStatements.IF_NOT_LIST_THROW_ERROR.build(method));
                 addStatement(new IfStatement("childIndex < 0", new StatementBasedCode() {{
-                    addStatement("((List<Variant>) object).add(0, new Variant(value))");
+                    addStatement("((VariantList) object).addOwned(0, CanonicalVariant.of(value))");
                     addStatement(Statements.RETURN_THIS);
                 }}));
                 addStatement(new IfStatement("childIndex >= ((List<?>) object).size()", new StatementBasedCode() {{
-                    addStatement("((List<Variant>) object).add(new Variant(value))");
+                    addStatement("((VariantList) object).addOwned(CanonicalVariant.of(value))");
                     addStatement(Statements.RETURN_THIS);
                 }}));
-                addStatement("((List<Variant>) object).add(childIndex, new Variant(value))");
+                addStatement("((VariantList) object).addOwned(childIndex, CanonicalVariant.of(value))");
                 addStatement(Statements.RETURN_THIS);
             }});
         }});
@@ -676,7 +1187,7 @@ public class VariantClass extends Class {
             addArgument(Arguments.OBJECT_VALUE);
             setCode(new StatementBasedCode() {{
                 addStatement(ComplexStatements.IF_NOT_LIST_THROW_ERROR.build(method));
-                addStatement("((List<Variant>) object).add(new Variant(value))");
+                addStatement("((VariantList) object).addOwned(CanonicalVariant.of(value))");
                 addStatement(Statements.RETURN_THIS);
             }});
         }});
@@ -690,7 +1201,7 @@ public class VariantClass extends Class {
             addArgument(Arguments.OBJECT_VALUE);
             setCode(new StatementBasedCode() {{
                 addStatement(ComplexStatements.IF_NOT_LIST_THROW_ERROR.build(method));
-                addStatement("((List<Variant>) object).add(0, new Variant(value))");
+                addStatement("((VariantList) object).addOwned(0, CanonicalVariant.of(value))");
                 addStatement(Statements.RETURN_THIS);
             }});
         }});
@@ -704,7 +1215,7 @@ public class VariantClass extends Class {
             addArgument(Arguments.OBJECT_VALUE);
             setCode(new StatementBasedCode() {{
                 addStatement(ComplexStatements.IF_NOT_LIST_THROW_ERROR.build(method));
-                addStatement("((List<Variant>) object).add(new Variant(value))");
+                addStatement("((VariantList) object).addOwned(CanonicalVariant.of(value))");
                 addStatement(Statements.RETURN_THIS);
             }});
         }});
@@ -721,11 +1232,112 @@ public class VariantClass extends Class {
             addArgument(Arguments.OBJECT_VALUE);
             setCode(new StatementBasedCode() {{
                 addStatement(ComplexStatements.IF_NOT_MAP_THROW_ERROR.build(method));
-                addStatement("((Map<String, Variant>) object).put(childName, new Variant(value))");
+                addStatement("((Map<String, Variant>) object).put(childName, CanonicalVariant.of(value))");
                 addStatement(Statements.RETURN_THIS);
             }});
         }});
 
+        addMethod(new Method("attach") {{
+            setDocumentation(new MethodDocumentation() {{
+                addLine("Присоединение дочернего объекта в конец списка без копирования.");
+                addLine("Изменения присоединённого объекта будут видны в этом списке.");
+                addLine("Один объект можно присоединить в несколько мест, и тогда дерево становится ациклическим графом.");
+                addLine("Присоединение объекта к собственному потомку не проверяется и приводит к бесконечной рекурсии при обходе.");
+                addLine("Объект области, который переживёт этот объект, копируется методом {@link VariantArena#detach(Variant)}.");
+            }});
+            addAnnotation(Annotations.UNCHECKED_AND_UNUSED_RETURN_VALUE);
+            setReturn(Returns.THIS);
+            addArgument(Arguments.VARIANT_CHILD);
+            setCode(new StatementBasedCode() {{
+                addStatement(ComplexStatements.IF_NOT_LIST_THROW_ERROR.build(method));
+                addStatement(ComplexStatements.IF_CHILD_IS_THIS_THROW_ERROR.build(method));
+                addStatement(Statements.ADOPT_ARENA_CHILD);
+                addStatement("((List<Variant>) object).add(child)");
+                addStatement(Statements.RETURN_THIS);
+            }});
+        }});
+
+        addMethod(new Method("attach") {{
+            setDocumentation(new MethodDocumentation() {{
+                addLine("Присоединение дочернего объекта по индексу без копирования.");
+                addLine("Изменения присоединённого объекта будут видны в этом списке.");
+                addLine("Один объект можно присоединить в несколько мест, и тогда дерево становится ациклическим графом.");
+                addLine("Присоединение объекта к собственному потомку не проверяется и приводит к бесконечной рекурсии при обходе.");
+                addLine("Объект области, который переживёт этот объект, копируется методом {@link VariantArena#detach(Variant)}.");
+            }});
+            addAnnotation(Annotations.UNCHECKED_AND_UNUSED_RETURN_VALUE);
+            setReturn(Returns.THIS);
+            addArgument(Arguments.CHILD_INDEX);
+            addArgument(Arguments.VARIANT_CHILD);
+            setCode(new StatementBasedCode() {{
+                addStatement(ComplexStatements.IF_NOT_LIST_THROW_ERROR.build(method));
+                addStatement(ComplexStatements.IF_INDEX_OUT_OF_BOUNDS_THROW_ERROR.build(method));
+                addStatement(ComplexStatements.IF_CHILD_IS_THIS_THROW_ERROR.build(method));
+                addStatement(Statements.ADOPT_ARENA_CHILD);
+                addStatement("((List<Variant>) object).set(childIndex, child)");
+                addStatement(Statements.RETURN_THIS);
+            }});
+        }});
+
+        addMethod(new Method("attach") {{
+            setDocumentation(new MethodDocumentation() {{
+                addLine("Присоединение дочернего объекта по имени без копирования.");
+                addLine("Изменения присоединённого объекта будут видны в этой таблице.");
+                addLine("Один объект можно присоединить в несколько мест, и тогда дерево становится ациклическим графом.");
+                addLine("Присоединение объекта к собственному потомку не проверяется и приводит к бесконечной рекурсии при обходе.");
+                addLine("Объект области, который переживёт этот объект, копируется методом {@link VariantArena#detach(Variant)}.");
+            }});
+            addAnnotation(Annotations.UNCHECKED_AND_UNUSED_RETURN_VALUE);
+            setReturn(Returns.THIS);
+            addArgument(Arguments.CHILD_NAME);
+            addArgument(Arguments.VARIANT_CHILD);
+            setCode(new StatementBasedCode() {{
+                addStatement(ComplexStatements.IF_NOT_MAP_THROW_ERROR.build(method));
+                addStatement(ComplexStatements.IF_CHILD_IS_THIS_THROW_ERROR.build(method));
+                addStatement(Statements.ADOPT_ARENA_CHILD);
+                addStatement("((Map<String, Variant>) object).put(childName, child)");
+                addStatement(Statements.RETURN_THIS);
+            }});
+        }});
+
+        addMethod(new Method("deepCopy") {{
+            setDocumentation(new MethodDocumentation() {{
+                addLine("Создание полной копии объекта вместе со всеми дочерними объектами.");
+            }});
+            setReturn(new Return("Variant") {{
+                setDescription("Копия объекта.");
+            }});
+            setCode(new StatementBasedCode() {{
+                addStatement("return new Variant(this)");
+            }});
+        }});
+
+        addMethod(new Method("freeze") {{
+            setDocumentation(new MethodDocumentation() {{
+                addLine("Создание неизменяемой копии объекта, которую можно разделять между потоками.");
+                addSeeLink("PersistentVariant");
+            }});
+            setReturn(new Return("PersistentVariant") {{
+                setDescription("Неизменяемая копия объекта.");
+            }});
+            setCode(new StatementBasedCode() {{
+                addStatement("return PersistentVariant.of(this)");
+            }});
+        }});
+
+        addMethod(new Method("toDocument") {{
+            setDocumentation(new MethodDocumentation() {{
+                addLine("Кодирование объекта в документ вне кучи, предназначенный для чтения.");
+                addSeeLink("VariantDocument");
+            }});
+            setReturn(new Return("VariantDocument") {{
+                setDescription("Документ с копией объекта.");
+            }});
+            setCode(new StatementBasedCode() {{
+                addStatement("return VariantDocument.of(this)");
+            }});
+        }});
+
         addMethod(new Method("remove") {{
             setDocumentation(new MethodDocumentation() {{
                 addLine("Удаление дочернего объекта по индексу.");
@@ -851,20 +1463,23 @@ public class VariantClass extends Class {
             setCode(new StatementBasedCode() {{
                 addSimpleIf("type == VariantType.NULL", "return JsonNull.INSTANCE");
                 addSimpleIf("type == VariantType.BOOLEAN", "return new JsonPrimitive((Boolean) object)");
-                addSimpleIf("type == VariantType.NUMBER", "return new JsonPrimitive((Double) object)");
-                addSimpleIf("type == VariantType.STRING", "return new JsonPrimitive((String) object)");
+                addIf("type == VariantType.NUMBER", new StatementBasedCode() {{
+                    addSimpleIf("precision == VariantNumberPrecision.LONG", "return new JsonPrimitive(longNumber)");
+                    addSimpleIf("precision == VariantNumberPrecision.DECIMAL", "return new JsonPrimitive(VariantDecimal.toBigDecimal(this))");
+                    addStatement("return new JsonPrimitive(doubleNumber)");
+                }});
+                addSimpleIf("type == VariantType.STRING", "return new JsonPrimitive(object.toString())");
                 addIf("type == VariantType.LIST", new StatementBasedCode() {{
+                    addStatement("VariantList list = (VariantList) object");
                     addStatement("JsonArray array = new JsonArray()");
-                    addFor("Variant child : (List<Variant>) object", new StatementBasedCode() {{
-                        addStatement("array.add(child.toJson())");
+                    addFor("int index = 0; index < list.size(); index++", new StatementBasedCode() {{
+                        addStatement("array.add(list.peek(index).toJson())");
                     }});
                     addStatement("return array");
                 }});
                 addIf("type == VariantType.MAP", new StatementBasedCode() {{
                     addStatement("JsonObject object = new JsonObject()");
-                    addFor("Map.Entry<String, Variant> entry : ((Map<String, Variant>) this.object).entrySet()", new StatementBasedCode() {{
-                        addStatement("object.add(entry.getKey(), entry.getValue().toJson())");
-                    }});
+                    addStatement("((VariantMap) this.object).peekEach((childName, child) -> object.add(childName, child.toJson()))");
                     addStatement("return object");
                 }});
                 addStatement("return null");
@@ -879,7 +1494,187 @@ public class VariantClass extends Class {
                 setDescription("Json-строка");
             }});
             setCode(new StatementBasedCode() {{
-                addStatement("return toJson().toString()");
+                addStatement("return VariantJsonWriter.writeToString(this)");
+            }});
+        }});
+
+        addMethod(new Method("toJsonBytesCached") {{
+            setDocumentation(new MethodDocumentation() {{
+                addLine("Преобразование объекта в json в кодировке UTF-8 с сохранением json записанных списков и таблиц.");
+                addLine("При следующей записи (любым способом) json списков и таблиц, не изменённых с тех пор, копируется из сохранённого.");
+                addSeeLink("VariantJsonWriter#writeToBytesCached(Variant)");
+            }});
+            setReturn(new Return("byte[]") {{
+                setDescription("Json в кодировке UTF-8");
+            }});
+            setCode(new StatementBasedCode() {{
+                addStatement("return VariantJsonWriter.writeToBytesCached(this)");
+            }});
+        }});
+
+        addMethod(new Method("toJsonStringCached") {{
+            setDocumentation(new MethodDocumentation() {{
+                addLine("Преобразование объекта в json-строку с сохранением json записанных списков и таблиц.");
+                addSeeLink("Variant#toJsonBytesCached()");
+            }});
+            setReturn(new Return("String") {{
+                setDescription("Json-строка");
+            }});
+            setCode(new StatementBasedCode() {{
+                addStatement("return VariantJsonWriter.writeToStringCached(this)");
+            }});
+        }});
+
+        addMethod(new Method("clearJsonCache") {{
+            setDocumentation(new MethodDocumentation() {{
+                addLine("Удаление json, сохранённого для этого объекта и всех дочерних объектов.");
+                addSeeLink("Variant#toJsonBytesCached()");
+            }});
+            addAnnotation(Annotations.UNUSED_RETURN_VALUE);
+            setReturn(Returns.THIS);
+            setCode(new StatementBasedCode() {{
+                addStatement("VariantJsonWriter.clearCache(this)");
+                addStatement(Statements.RETURN_THIS);
+            }});
+        }});
+
+        addMethod(new Method("writeJson") {{
+            setDocumentation(new MethodDocumentation() {{
+                addLine("Запись объекта в json в Appendable (например, StringBuilder или Writer).");
+                addSeeLink("VariantJsonWriter");
+            }});
+            addAnnotation(Annotations.UNUSED_RETURN_VALUE);
+            setReturn(Returns.THIS);
+            addArgument(new Argument("Appendable", "appendable") {{
+                setDescription("Получатель json");
+            }});
+            setCode(new StatementBasedCode() {{
+                addStatement("VariantJsonWriter.write(this, appendable)");
+                addStatement(Statements.RETURN_THIS);
+            }});
+        }});
+
+        addMethod(new Method("writeJson") {{
+            setDocumentation(new MethodDocumentation() {{
+                addLine("Запись объекта в json в поток в кодировке UTF-8.");
+                addLine("Поток не закрывается.");
+                addSeeLink("VariantJsonWriter");
+            }});
+            addAnnotation(Annotations.UNUSED_RETURN_VALUE);
+            setReturn(Returns.THIS);
+            addArgument(new Argument("OutputStream", "stream") {{
+                setDescription("Поток");
+            }});
+            setCode(new StatementBasedCode() {{
+                addStatement("VariantJsonWriter.write(this, stream)");
+                addStatement(Statements.RETURN_THIS);
+            }});
+        }});
+
+        addMethod(new Method("writeJson") {{
+            setDocumentation(new MethodDocumentation() {{
+                addLine("Запись объекта в json в канал в кодировке UTF-8.");
+                addLine("Канал не закрывается.");
+                addSeeLink("VariantJsonWriter");
+            }});
+            addAnnotation(Annotations.UNUSED_RETURN_VALUE);
+            setReturn(Returns.THIS);
+            addArgument(new Argument("WritableByteChannel", "channel") {{
+                setDescription("Канал");
+            }});
+            setCode(new StatementBasedCode() {{
+                addStatement("VariantJsonWriter.write(this, channel)");
+                addStatement(Statements.RETURN_THIS);
+            }});
+        }});
+
+        addMethod(new Method("toCborBytes") {{
+            setDocumentation(new MethodDocumentation() {{
+                addLine("Преобразование объекта в CBOR.");
+                addSeeLink("VariantCborWriter");
+            }});
+            setReturn(new Return("byte[]") {{
+                setDescription("CBOR");
+            }});
+            setCode(new StatementBasedCode() {{
+                addStatement("return VariantCborWriter.writeToByteArray(this)");
+            }});
+        }});
+
+        addMethod(new Method("writeCbor") {{
+            setDocumentation(new MethodDocumentation() {{
+                addLine("Запись объекта в CBOR в поток.");
+                addLine("Поток не закрывается.");
+                addSeeLink("VariantCborWriter");
+            }});
+            addAnnotation(Annotations.UNUSED_RETURN_VALUE);
+            setReturn(Returns.THIS);
+            addArgument(new Argument("OutputStream", "stream") {{
+                setDescription("Поток");
+            }});
+            setCode(new StatementBasedCode() {{
+                addStatement("VariantCborWriter.write(this, stream)");
+                addStatement(Statements.RETURN_THIS);
+            }});
+        }});
+
+        addMethod(new Method("toMessagePackBytes") {{
+            setDocumentation(new MethodDocumentation() {{
+                addLine("Преобразование объекта в MessagePack.");
+                addSeeLink("VariantMessagePackWriter");
+            }});
+            setReturn(new Return("byte[]") {{
+                setDescription("MessagePack");
+            }});
+            setCode(new StatementBasedCode() {{
+                addStatement("return VariantMessagePackWriter.writeToByteArray(this)");
+            }});
+        }});
+
+        addMethod(new Method("writeMessagePack") {{
+            setDocumentation(new MethodDocumentation() {{
+                addLine("Запись объекта в MessagePack в поток.");
+                addLine("Поток не закрывается.");
+                addSeeLink("VariantMessagePackWriter");
+            }});
+            addAnnotation(Annotations.UNUSED_RETURN_VALUE);
+            setReturn(Returns.THIS);
+            addArgument(new Argument("OutputStream", "stream") {{
+                setDescription("Поток");
+            }});
+            setCode(new StatementBasedCode() {{
+                addStatement("VariantMessagePackWriter.write(this, stream)");
+                addStatement(Statements.RETURN_THIS);
+            }});
+        }});
+
+        addMethod(new Method("toSnapshot") {{
+            setDocumentation(new MethodDocumentation() {{
+                addLine("Преобразование объекта в двоичный снимок со словарём имён таблиц.");
+                addSeeLink("VariantSnapshotWriter");
+            }});
+            setReturn(new Return("byte[]") {{
+                setDescription("Снимок");
+            }});
+            setCode(new StatementBasedCode() {{
+                addStatement("return VariantSnapshotWriter.writeToByteArray(this)");
+            }});
+        }});
+
+        addMethod(new Method("writeSnapshot") {{
+            setDocumentation(new MethodDocumentation() {{
+                addLine("Запись двоичного снимка объекта в поток.");
+                addLine("Поток не закрывается.");
+                addSeeLink("VariantSnapshotWriter");
+            }});
+            addAnnotation(Annotations.UNUSED_RETURN_VALUE);
+            setReturn(Returns.THIS);
+            addArgument(new Argument("OutputStream", "stream") {{
+                setDescription("Поток");
+            }});
+            setCode(new StatementBasedCode() {{
+                addStatement("VariantSnapshotWriter.write(this, stream)");
+                addStatement(Statements.RETURN_THIS);
             }});
         }});
 
@@ -896,14 +1691,16 @@ public class VariantClass extends Class {
                 addSimpleIf("type == VariantType.NULL", "return \"null\"");
                 addSimpleIf("type == VariantType.BOOLEAN", "return ((Boolean) object) ? \"true\" : \"false\"");
                 addIf("type == VariantType.NUMBER", new StatementBasedCode() {{
-                    addSimpleIf("((Double) object).longValue() == (Double) object", "return Long.toString(((Double) object).longValue())");
-                    addStatement("return ((Double) object).toString()");
+                    addSimpleIf("precision == VariantNumberPrecision.DECIMAL", "return object.toString()");
+                    addSimpleIf("precision == VariantNumberPrecision.LONG || longNumber == doubleNumber", "return Long.toString(longNumber)");
+                    addStatement("return Double.toString(doubleNumber)");
                 }});
                 addSimpleIf("type == VariantType.STRING", "return \"\\\"\" + object + \"\\\"\"");
                 addIf("type == VariantType.LIST", new StatementBasedCode() {{
+                    addStatement("VariantList list = (VariantList) object");
                     addStatement("StringBuilder string = new StringBuilder(\"[\")");
-                    addFor("Variant child : (List<Variant>) object", new StatementBasedCode() {{
-                        addStatement("string.append(child.toString()).append(\", \")");
+                    addFor("int index = 0; index < list.size(); index++", new StatementBasedCode() {{
+                        addStatement("string.append(list.peek(index).toString()).append(\", \")");
                     }});
                     addIf("!((List<?>) object).isEmpty()", new StatementBasedCode() {{
                         addStatement("string.delete(string.length() - 2, string.length())");
@@ -913,9 +1710,7 @@ public class VariantClass extends Class {
                 }});
                 addIf("type == VariantType.MAP", new StatementBasedCode() {{
                     addStatement("StringBuilder string = new StringBuilder(\"{\")");
-                    addFor("Map.Entry<String, Variant> entry : ((Map<String, Variant>) this.object).entrySet()", new StatementBasedCode() {{
-                        addStatement("string.append(entry.getKey()).append(\"=\").append(entry.getValue().toString()).append(\", \")");
-                    }});
+                    addStatement("((VariantMap) this.object).peekEach((childName, child) -> string.append(childName).append(\"=\").append(child.toString()).append(\", \"))");
                     addIf("!((Map<?, ?>) object).isEmpty()", new StatementBasedCode() {{
                         addStatement("string.delete(string.length() - 2, string.length())");
                     }});
@@ -935,6 +1730,10 @@ public class VariantClass extends Class {
                 setDescription("Хеш.");
             }});
             setCode(new StatementBasedCode() {{
+                addStatement(Statements.IF_RELEASED_THROW_ERROR);
+                addSimpleIf("type == VariantType.NULL", "return 0");
+                addSimpleIf("type == VariantType.NUMBER && precision == VariantNumberPrecision.DECIMAL", "return VariantDecimal.hashCode(object)");
+                addSimpleIf("type == VariantType.NUMBER", "return Long.hashCode(longNumber)");
                 addStatement("return object.hashCode()");
             }});
         }});
@@ -952,31 +1751,27 @@ public class VariantClass extends Class {
                 setDescription("Объект для сравнения");
             }});
             setCode(new StatementBasedCode() {{
+                addStatement(Statements.IF_RELEASED_THROW_ERROR);
                 addSimpleIf("!(obj instanceof Variant)", "return false");
                 addStatement("Variant other = (Variant) obj");
                 addSimpleIf("type != other.type", "return false");
                 addSimpleIf("type == VariantType.NULL", "return true");
                 addSimpleIf("type == VariantType.BOOLEAN", "return object == other.object");
-                addSimpleIf("type == VariantType.NUMBER", "return object == other.object");
-                addSimpleIf("type == VariantType.STRING", "return object.equals(other.object)");
+                addIf("type == VariantType.NUMBER && (precision == VariantNumberPrecision.DECIMAL || other.precision == VariantNumberPrecision.DECIMAL)", new StatementBasedCode() {{
+                    addStatement("return VariantDecimal.equal(precision, object, longNumber, doubleNumber, other.precision, other.object, other.longNumber, other.doubleNumber)");
+                }});
+                addSimpleIf("type == VariantType.NUMBER", "return longNumber == other.longNumber && (doubleNumber == other.doubleNumber || Double.isNaN(doubleNumber) && Double.isNaN(other.doubleNumber))");
+                addSimpleIf("type == VariantType.STRING", "return object instanceof String ? other.object.equals(object) : object.equals(other.object)");
                 addIf("type == VariantType.LIST", new StatementBasedCode() {{
-                    addStatement("List<Variant> list = ((List<Variant>) object)");
-                    addStatement("List<Variant> otherList = ((List<Variant>) other.object)");
+                    addStatement("VariantList list = ((VariantList) object)");
+                    addStatement("VariantList otherList = ((VariantList) other.object)");
                     addSimpleIf("list.size() != otherList.size()", "return false");
                     addFor("int index = 0; index < list.size(); index++", new StatementBasedCode() {{
-                        addSimpleIf("!list.get(index).equals(otherList.get(index))", "return false");
-                    }});
-                    addStatement("return true");
-                }});
-                addIf("type == VariantType.MAP", new StatementBasedCode() {{
-                    addStatement("Map<String, Variant> map = ((Map<String, Variant>) object)");
-                    addStatement("Map<String, Variant> otherMap = ((Map<String, Variant>) other.object)");
-                    addSimpleIf("map.size() != otherMap.size()", "return false");
-                    addFor("Map.Entry<String, Variant> entry : map.entrySet()", new StatementBasedCode() {{
-                        addSimpleIf("!entry.getValue().equals(otherMap.get(entry.getKey()))", "return false");
+                        addSimpleIf("!list.peek(index).equals(otherList.peek(index))", "return false");
                     }});
                     addStatement("return true");
                 }});
+                addSimpleIf("type == VariantType.MAP", "return object.equals(other.object)");
                 addStatement("return false");
             }});
         }});
@@ -986,17 +1781,19 @@ public class VariantClass extends Class {
 
     public void createDataTypesMethods() {
         List<VariantDataType> dataTypes = new ArrayList<>();
-        dataTypes.add(new VariantDataType("Boolean", "boolean", "Boolean", "return type == VariantType.BOOLEAN", "return (Boolean) object", "false"));
-        dataTypes.add(new VariantDataType("Byte", "byte", "Byte", "return type == VariantType.NUMBER && ((Double) object).byteValue() == (Double) object", "return ((Double) object).byteValue()", "0"));
-        dataTypes.add(new VariantDataType("Short", "short", "Short", "return type == VariantType.NUMBER && ((Double) object).shortValue() == (Double) object", "return ((Double) object).shortValue()", "0"));
-        dataTypes.add(new VariantDataType("Integer", "int", "Integer", "return type == VariantType.NUMBER && ((Double) object).intValue() == (Double) object", "return ((Double) object).intValue()", "0"));
-        dataTypes.add(new VariantDataType("Long", "long", "Long", "return type == VariantType.NUMBER && ((Double) object).longValue() == (Double) object", "return ((Double) object).longValue()", "0"));
-        dataTypes.add(new VariantDataType("Float", "float", "Float", "return type == VariantType.NUMBER && ((Double) object).floatValue() == (Double) object", "return ((Double) object).floatValue()", "0"));
-        dataTypes.add(new VariantDataType("Double", "double", "Double", "return type == VariantType.NUMBER", "return (Double) object", "0"));
-        dataTypes.add(new VariantDataType("Character", "char", "Character", "return type == VariantType.STRING && ((String) object).length() == 1", "return ((String) object).charAt(0)", "' '"));
-        dataTypes.add(new VariantDataType("String", "String", "String", "return type == VariantType.STRING", "return (String) object", "\"\""));
-        dataTypes.add(new VariantDataType("List", "List<Variant>", "List<Variant>", "return type == VariantType.LIST", "return (List<Variant>) object", "new ArrayList<>()"));
-        dataTypes.add(new VariantDataType("Map", "Map<String, Variant>", "Map<String, Variant>", "return type == VariantType.MAP", "return (Map<String, Variant>) object", "new HashMap<>()"));
+        dataTypes.add(new VariantDataType("Boolean", "boolean", "Boolean", "return type == VariantType.BOOLEAN", "return (Boolean) object", "set(value)", "addBoolean(value)", "getBoolean(childIndex)", "false").setPrimitiveListCode("list.getStorage() == VariantListStorage.BOOLEAN", "list.getBoolean(childIndex)"));
+        dataTypes.add(new VariantDataType("Byte", "byte", "Byte", "return type == VariantType.NUMBER && (precision == VariantNumberPrecision.LONG || precision == VariantNumberPrecision.DOUBLE && longNumber == doubleNumber) && (byte) longNumber == longNumber", "return (byte) longNumber", "setLongNumber(value)", "addLong(value)", null, "0").setPrimitiveListCode("list.isIntegral(childIndex, Byte.MIN_VALUE, Byte.MAX_VALUE)", "(byte) list.getLong(childIndex)"));
+        dataTypes.add(new VariantDataType("Short", "short", "Short", "return type == VariantType.NUMBER && (precision == VariantNumberPrecision.LONG || precision == VariantNumberPrecision.DOUBLE && longNumber == doubleNumber) && (short) longNumber == longNumber", "return (short) longNumber", "setLongNumber(value)", "addLong(value)", null, "0").setPrimitiveListCode("list.isIntegral(childIndex, Short.MIN_VALUE, Short.MAX_VALUE)", "(short) list.getLong(childIndex)"));
+        dataTypes.add(new VariantDataType("Integer", "int", "Integer", "return type == VariantType.NUMBER && (precision == VariantNumberPrecision.LONG || precision == VariantNumberPrecision.DOUBLE && longNumber == doubleNumber) && (int) longNumber == longNumber", "return (int) longNumber", "setLongNumber(value)", "addLong(value)", null, "0").setPrimitiveListCode("list.isIntegral(childIndex, Integer.MIN_VALUE, Integer.MAX_VALUE)", "(int) list.getLong(childIndex)"));
+        dataTypes.add(new VariantDataType("Long", "long", "Long", "return type == VariantType.NUMBER && (precision == VariantNumberPrecision.LONG || precision == VariantNumberPrecision.DOUBLE && longNumber == doubleNumber)", "return longNumber", "setLongNumber(value)", "addLong(value)", "getLong(childIndex)", "0").setPrimitiveListCode("list.isIntegral(childIndex, Long.MIN_VALUE, Long.MAX_VALUE)", "list.getLong(childIndex)"));
+        dataTypes.add(new VariantDataType("Float", "float", "Float", "return type == VariantType.NUMBER && (float) doubleNumber == doubleNumber && (precision == VariantNumberPrecision.DOUBLE || precision == VariantNumberPrecision.LONG && (long) doubleNumber == longNumber)", "return (float) doubleNumber", "setDoubleNumber(value)", "addDouble(value)", null, "0").setPrimitiveListCode("list.isFloat(childIndex)", "(float) list.getDouble(childIndex)"));
+        dataTypes.add(new VariantDataType("Double", "double", "Double", "return type == VariantType.NUMBER", "return doubleNumber", "setDoubleNumber(value)", "addDouble(value)", "getDouble(childIndex)", "0").setPrimitiveListCode("list.getStorage() != VariantListStorage.BOOLEAN", "list.getDouble(childIndex)"));
+        dataTypes.add(new VariantDataType("BigInteger", "BigInteger", "BigInteger", "return type == VariantType.NUMBER && VariantDecimal.isInteger(this)", "return VariantDecimal.toBigInteger(this)", "set(value)", null, null, "BigInteger.ZERO").setPrimitiveListCode("list.isInteger(childIndex)", "list.getBigInteger(childIndex)"));
+        dataTypes.add(new VariantDataType("BigDecimal", "BigDecimal", "BigDecimal", "return type == VariantType.NUMBER && VariantDecimal.isFinite(precision, doubleNumber)", "return VariantDecimal.toBigDecimal(this)", "set(value)", null, null, "BigDecimal.ZERO").setPrimitiveListCode("list.isFinite(childIndex)", "list.getBigDecimal(childIndex)"));
+        dataTypes.add(new VariantDataType("Character", "char", "Character", "return type == VariantType.STRING && ((CharSequence) object).length() == 1", "return ((CharSequence) object).charAt(0)", "set(value)", null, null, "' '"));
+        dataTypes.add(new VariantDataType("String", "String", "String", "return type == VariantType.STRING", "return object.toString()", "set(value)", null, null, "\"\""));
+        dataTypes.add(new VariantDataType("List", "List<Variant>", "List<Variant>", "return type == VariantType.LIST", "return (List<Variant>) object", "set(value)", null, null, "new ArrayList<>()"));
+        dataTypes.add(new VariantDataType("Map", "Map<String, Variant>", "Map<String, Variant>", "return type == VariantType.MAP", "return (Map<String, Variant>) object", "set(value)", null, null, "new HashMap<>()"));
         for (VariantDataType dataType : dataTypes) {
             createDataTypeMethods(dataType);
         }
@@ -1015,7 +1812,7 @@ public class VariantClass extends Class {
                 setDescription("Значение объекта");
             }});
             setCode(new StatementBasedCode() {{
-                addStatement("return new Variant(value)");
+                addStatement("return VariantArena.allocate()." + dataType.getSetCode());
             }});
         }});
 
@@ -1028,7 +1825,7 @@ public class VariantClass extends Class {
                 setDescription("Объект со значением типа " + dataType.getName() + " по умолчанию.");
             }});
             setCode(new StatementBasedCode() {{
-                addStatement("return new Variant(" + dataType.getDefaultCode() + ")");
+                addStatement("return VariantArena.allocate().set(" + dataType.getDefaultCode() + ")");
             }});
         }});
 
@@ -1040,6 +1837,7 @@ public class VariantClass extends Class {
                 setDescription("Является ли значение этого объекта " + dataType.getName() + ".");
             }});
             setCode(new StatementBasedCode() {{
+                addStatement(Statements.IF_RELEASED_THROW_ERROR);
                 addStatement(dataType.getIsCode());
             }});
         }});
@@ -1056,7 +1854,7 @@ public class VariantClass extends Class {
             setCode(new StatementBasedCode() {{
                 addStatement(ComplexStatements.IF_NOT_LIST_THROW_ERROR.build(method));
                 addStatement(ComplexStatements.IF_INDEX_OUT_OF_BOUNDS_THROW_ERROR.build(method));
-                addStatement("return ((List<Variant>) object).get(childIndex).is" + dataType.getName() + "()");
+                addStatement("return ((VariantList) object).peek(childIndex).is" + dataType.getName() + "()");
             }});
         }});
 
@@ -1072,7 +1870,7 @@ public class VariantClass extends Class {
             setCode(new StatementBasedCode() {{
                 addStatement(ComplexStatements.IF_NOT_MAP_THROW_ERROR.build(method));
                 addStatement(ComplexStatements.IF_CHILD_WITH_NAME_DOES_NOT_EXISTS_ERROR.build(method));
-                addStatement("return ((Map<String, Variant>) object).get(childName).is" + dataType.getName() + "()");
+                addStatement("return ((VariantMap) object).peek(childName).is" + dataType.getName() + "()");
             }});
         }});
 
@@ -1134,7 +1932,19 @@ public class VariantClass extends Class {
                 ComplexStatements.IF_NOT_LIST_THROW_ERROR.build(method);
                 ComplexStatements.IF_INDEX_OUT_OF_BOUNDS_THROW_ERROR.build(method);
                 ComplexStatements.CONVERT_VALUE_THROW_ERROR(dataType).build(method);
-                addStatement("return get(childIndex).as" + dataType.getName() + "()");
+                if (dataType.getListGetCode() == null) {
+                    addStatement(Statements.IF_NOT_LIST_THROW_ERROR);
+                    addStatement(Statements.IF_INDEX_OUT_OF_BOUNDS_THROW_ERROR);
+                    addStatement("VariantList list = (VariantList) object");
+                    if (dataType.getPrimitiveIsCode() != null) {
+                        addSimpleIf("list.getStorage() != VariantListStorage.GENERIC && " + dataType.getPrimitiveIsCode(), "return " + dataType.getPrimitiveAsCode());
+                    }
+                    addStatement("return list.peek(childIndex).as" + dataType.getName() + "()");
+                } else {
+                    addStatement(Statements.IF_NOT_LIST_THROW_ERROR);
+                    addStatement(Statements.IF_INDEX_OUT_OF_BOUNDS_THROW_ERROR);
+                    addStatement("return ((VariantList) object)." + dataType.getListGetCode());
+                }
             }});
         }});
 
@@ -1151,9 +1961,14 @@ public class VariantClass extends Class {
                 ComplexStatements.IF_NOT_LIST_THROW_ERROR.build(method);
                 ComplexStatements.IF_INDEX_OUT_OF_BOUNDS_RETURN_NULL.build(method);
                 ComplexStatements.CONVERT_VALUE_RETURN_NULL(dataType).build(method);
-                addStatement("Variant child = getOrNull(childIndex)");
-                addSimpleIf("child == null", "return null");
-                addStatement("return child.as" + dataType.getName() + "OrNull()");
+                addStatement(Statements.IF_NOT_LIST_THROW_ERROR);
+                addStatement(Statements.IF_INDEX_OUT_OF_BOUNDS_RETURN_NULL);
+                addStatement("VariantList list = (VariantList) object");
+                addIf("list.getStorage() != VariantListStorage.GENERIC", new StatementBasedCode() {{
+                    if (dataType.getPrimitiveIsCode() != null) addSimpleIf(dataType.getPrimitiveIsCode(), "return " + dataType.getPrimitiveAsCode());
+                    addStatement("return null");
+                }});
+                addStatement("return list.peek(childIndex).as" + dataType.getName() + "OrNull()");
             }});
         }});
 
@@ -1172,9 +1987,14 @@ public class VariantClass extends Class {
                 ComplexStatements.IF_NOT_LIST_THROW_ERROR.build(method);
                 ComplexStatements.IF_INDEX_OUT_OF_BOUNDS_RETURN_DEFAULT.build(method);
                 ComplexStatements.CONVERT_VALUE_RETURN_DEFAULT(dataType).build(method);
-                addStatement("Variant child = getOrNull(childIndex)");
-                addSimpleIf("child == null", "return defaultValue");
-                addStatement("return child.as" + dataType.getName() + "OrDefault(defaultValue)");
+                addStatement(Statements.IF_NOT_LIST_THROW_ERROR);
+                addStatement(Statements.IF_INDEX_OUT_OF_BOUNDS_RETURN_DEFAULT);
+                addStatement("VariantList list = (VariantList) object");
+                addIf("list.getStorage() != VariantListStorage.GENERIC", new StatementBasedCode() {{
+                    if (dataType.getPrimitiveIsCode() != null) addSimpleIf(dataType.getPrimitiveIsCode(), "return " + dataType.getPrimitiveAsCode());
+                    addStatement("return defaultValue");
+                }});
+                addStatement("return list.peek(childIndex).as" + dataType.getName() + "OrDefault(defaultValue)");
             }});
         }});
 
@@ -1190,7 +2010,7 @@ public class VariantClass extends Class {
                 ComplexStatements.IF_NOT_MAP_THROW_ERROR.build(method);
                 ComplexStatements.IF_CHILD_WITH_NAME_DOES_NOT_EXISTS_ERROR.build(method);
                 ComplexStatements.CONVERT_VALUE_THROW_ERROR(dataType).build(method);
-                addStatement("return get(childName).as" + dataType.getName() + "()");
+                addStatement("return peek(childName).as" + dataType.getName() + "()");
             }});
         }});
 
@@ -1207,7 +2027,7 @@ public class VariantClass extends Class {
                 ComplexStatements.IF_NOT_MAP_THROW_ERROR.build(method);
                 ComplexStatements.IF_CHILD_WITH_NAME_DOES_NOT_EXISTS_RETURN_NULL.build(method);
                 ComplexStatements.CONVERT_VALUE_RETURN_NULL(dataType).build(method);
-                addStatement("Variant child = getOrNull(childName)");
+                addStatement("Variant child = peekOrNull(childName)");
                 addSimpleIf("child == null", "return null");
                 addStatement("return child.as" + dataType.getName() + "OrNull()");
             }});
@@ -1228,7 +2048,7 @@ public class VariantClass extends Class {
                 ComplexStatements.IF_NOT_MAP_THROW_ERROR.build(method);
                 ComplexStatements.IF_CHILD_WITH_NAME_DOES_NOT_EXISTS_RETURN_DEFAULT.build(method);
                 ComplexStatements.CONVERT_VALUE_RETURN_DEFAULT(dataType).build(method);
-                addStatement("Variant child = getOrNull(childName)");
+                addStatement("Variant child = peekOrNull(childName)");
                 addSimpleIf("child == null", "return defaultValue");
                 addStatement("return child.as" + dataType.getName() + "OrDefault(defaultValue)");
             }});
@@ -1243,7 +2063,7 @@ public class VariantClass extends Class {
                 setDescription("Значение объекта с типом " + dataType.getName());
             }});
             setCode(new StatementBasedCode() {{
-                addStatement("set(value)");
+                addStatement(dataType.getSetCode());
                 addStatement(Statements.RETURN_THIS);
             }});
         }});
@@ -1293,7 +2113,12 @@ public class VariantClass extends Class {
             }});
             setCode(new StatementBasedCode() {{
                 ComplexStatements.IF_NOT_LIST_THROW_ERROR.build(method);
-                addStatement("add(value)");
+                if (dataType.getListAddCode() == null) {
+                    addStatement("add(value)");
+                } else {
+                    addStatement(Statements.IF_NOT_LIST_THROW_ERROR);
+                    addStatement("((VariantList) object)." + dataType.getListAddCode());
+                }
                 addStatement(Statements.RETURN_THIS);
             }});
         }});
@@ -1323,7 +2148,12 @@ public class VariantClass extends Class {
             }});
             setCode(new StatementBasedCode() {{
                 ComplexStatements.IF_NOT_LIST_THROW_ERROR.build(method);
-                addStatement("addLast(value)");
+                if (dataType.getListAddCode() == null) {
+                    addStatement("addLast(value)");
+                } else {
+                    addStatement(Statements.IF_NOT_LIST_THROW_ERROR);
+                    addStatement("((VariantList) object)." + dataType.getListAddCode());
+                }
                 addStatement(Statements.RETURN_THIS);
             }});
         }});
@@ -1356,8 +2186,27 @@ public class VariantClass extends Class {
                 setDescription("Обработчик значения дочернего объекта");
             }});
             setCode(new StatementBasedCode() {{
-                addStatement("forEach((child) -> { if (child.is" + dataType.getName() + "()) handler.accept(child.as" + dataType.getName() + "()); })");
-                addStatement(Statements.RETURN_THIS);
+                addIf("type == VariantType.LIST", new StatementBasedCode() {{
+                    addStatement("VariantList list = (VariantList) object");
+                    addIf("list.getStorage() != VariantListStorage.GENERIC", new StatementBasedCode() {{
+                        if (dataType.getPrimitiveIsCode() != null) {
+                            addFor("int childIndex = 0; childIndex < list.size(); childIndex++", new StatementBasedCode() {{
+                                addSimpleIf(dataType.getPrimitiveIsCode(), "handler.accept(" + dataType.getPrimitiveAsCode() + ")");
+                            }});
+                        }
+                        addStatement(Statements.RETURN_THIS);
+                    }});
+                    addFor("int childIndex = 0; childIndex < list.size(); childIndex++", new StatementBasedCode() {{
+                        addStatement("Variant child = list.peek(childIndex)");
+                        addSimpleIf("child.is" + dataType.getName() + "()", "handler.accept(child.as" + dataType.getName() + "())");
+                    }});
+                    addStatement(Statements.RETURN_THIS);
+                }});
+                addIf("type == VariantType.MAP", new StatementBasedCode() {{
+                    addStatement("((VariantMap) object).peekEach((childName, child) -> { if (child.is" + dataType.getName() + "()) handler.accept(child.as" + dataType.getName() + "()); })");
+                    addStatement(Statements.RETURN_THIS);
+                }});
+                addStatement("throw new VariantTypeError(type, VariantType.LIST, VariantType.MAP)");
             }});
         }});
 
@@ -1372,7 +2221,20 @@ public class VariantClass extends Class {
             }});
             setCode(new StatementBasedCode() {{
                 ComplexStatements.IF_NOT_LIST_THROW_ERROR.build(method);
-                addStatement("forEachInList((childIndex, child) -> { if (child.is" + dataType.getName() + "()) handler.accept(childIndex, child.as" + dataType.getName() + "()); })");
+                addStatement(Statements.IF_NOT_LIST_THROW_ERROR);
+                addStatement("VariantList list = (VariantList) object");
+                addIf("list.getStorage() != VariantListStorage.GENERIC", new StatementBasedCode() {{
+                    if (dataType.getPrimitiveIsCode() != null) {
+                        addFor("int childIndex = 0; childIndex < list.size(); childIndex++", new StatementBasedCode() {{
+                            addSimpleIf(dataType.getPrimitiveIsCode(), "handler.accept(childIndex, " + dataType.getPrimitiveAsCode() + ")");
+                        }});
+                    }
+                    addStatement(Statements.RETURN_THIS);
+                }});
+                addFor("int childIndex = 0; childIndex < list.size(); childIndex++", new StatementBasedCode() {{
+                    addStatement("Variant child = list.peek(childIndex)");
+                    addSimpleIf("child.is" + dataType.getName() + "()", "handler.accept(childIndex, child.as" + dataType.getName() + "())");
+                }});
                 addStatement(Statements.RETURN_THIS);
             }});
         }});
@@ -1388,7 +2250,8 @@ public class VariantClass extends Class {
             }});
             setCode(new StatementBasedCode() {{
                 ComplexStatements.IF_NOT_MAP_THROW_ERROR.build(method);
-                addStatement("forEachInMap((childName, child) -> { if (child.is" + dataType.getName() + "()) handler.accept(childName, child.as" + dataType.getName() + "()); })");
+                addStatement(Statements.IF_NOT_MAP_THROW_ERROR);
+                addStatement("((VariantMap) object).peekEach((childName, child) -> { if (child.is" + dataType.getName() + "()) handler.accept(childName, child.as" + dataType.getName() + "()); })");
                 addStatement(Statements.RETURN_THIS);
             }});
         }});
@@ -0,0 +1,49 @@
+package ru.vladislav117.variant.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.vladislav117.variant.Variant;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарк сгенерированных типизированных методов доступа.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AccessorBenchmark {
+    Variant map;
+    Variant list;
+    int index;
+
+    @Setup
+    public void setup() {
+        map = Variant.newMap();
+        for (int child = 0; child < 8; child++) {
+            map.setInteger("key" + child, child);
+        }
+        list = Variant.newList();
+        for (int child = 0; child < 64; child++) {
+            list.addDouble(child * 0.5);
+        }
+    }
+
+    @Benchmark
+    public int getIntegerByName() {
+        return map.getInteger("key5");
+    }
+
+    @Benchmark
+    public double getDoubleByIndex() {
+        index = (index + 1) & 63;
+        return list.getDouble(index);
+    }
+
+    @Benchmark
+    public boolean isIntegerByName() {
+        return map.isInteger("key3");
+    }
+}
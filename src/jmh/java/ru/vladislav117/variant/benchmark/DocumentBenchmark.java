@@ -0,0 +1,89 @@
+package ru.vladislav117.variant.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.vladislav117.variant.Variant;
+import ru.vladislav117.variant.VariantCursor;
+import ru.vladislav117.variant.VariantDocument;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарк чтения документа вне кучи в сравнении с обычным деревом, а также открытия документа,
+ * отображённого из файла, в сравнении с разбором снимка целиком.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+public class DocumentBenchmark {
+    @Param({"medium", "large"})
+    String size;
+
+    Variant variant;
+    VariantDocument document;
+    Path file;
+    byte[] snapshot;
+
+    @Setup
+    public void setup() throws IOException {
+        variant = VariantCorpus.variant(size);
+        document = variant.toDocument();
+        file = Files.createTempFile("variant", ".vdoc");
+        document.write(file);
+        snapshot = variant.toSnapshot();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public double sumScoresInVariant() {
+        double sum = 0;
+        for (int index = 0, count = variant.getSize(); index < count; index++) {
+            sum += variant.get(index).getDouble("score");
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double sumScoresInDocument() {
+        VariantCursor records = document.root();
+        VariantCursor record = records.copy();
+        double sum = 0;
+        for (int index = 0, count = records.getSize(); index < count; index++) {
+            sum += record.move(records).move(index).getDouble("score");
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double forEachInMapInDocument() {
+        double[] sum = new double[1];
+        document.root().forEachInList((index, record) -> sum[0] += record.move("position").getLong("x"));
+        return sum[0];
+    }
+
+    @Benchmark
+    public double mapAndReadOne() {
+        VariantCursor root = VariantDocument.map(file).root();
+        return root.move(root.getSize() / 2).getDouble("score");
+    }
+
+    @Benchmark
+    public double parseSnapshotAndReadOne() {
+        Variant root = Variant.fromSnapshot(snapshot);
+        return root.get(root.getSize() / 2).getDouble("score");
+    }
+
+    @Benchmark
+    public VariantDocument encode() {
+        return variant.toDocument();
+    }
+}
@@ -0,0 +1,39 @@
+package ru.vladislav117.variant.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.vladislav117.variant.Variant;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарк equals и hashCode для деревьев объектов.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EqualityBenchmark {
+    @Param({"small", "medium"})
+    String size;
+
+    Variant variant;
+    Variant copy;
+
+    @Setup
+    public void setup() {
+        variant = VariantCorpus.variant(size);
+        copy = variant.deepCopy();
+    }
+
+    @Benchmark
+    public boolean equalsCopy() {
+        return variant.equals(copy);
+    }
+
+    @Benchmark
+    public int hashCodeTree() {
+        return variant.hashCode();
+    }
+}
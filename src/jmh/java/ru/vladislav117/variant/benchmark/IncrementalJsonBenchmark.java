@@ -0,0 +1,65 @@
+package ru.vladislav117.variant.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.vladislav117.variant.Variant;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарк повторной записи большого объекта после изменения одного поля:
+ * полная запись в сравнении с записью, копирующей сохранённый json неизменённых записей.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+public class IncrementalJsonBenchmark {
+    @Param({"medium", "large"})
+    String size;
+
+    Variant plain;
+    Variant cached;
+    int edit;
+
+    @Setup
+    public void setup() {
+        plain = VariantCorpus.variant(size);
+        cached = VariantCorpus.variant(size);
+        cached.toJsonBytesCached();
+    }
+
+    @Benchmark
+    public String editAndToJsonString() {
+        edit(plain);
+        return plain.toJsonString();
+    }
+
+    @Benchmark
+    public byte[] editAndToJsonBytesCached() {
+        edit(cached);
+        return cached.toJsonBytesCached();
+    }
+
+    @Benchmark
+    public String editAndToJsonStringCached() {
+        edit(cached);
+        return cached.toJsonStringCached();
+    }
+
+    @Benchmark
+    public byte[] toJsonBytesCachedUnchanged() {
+        return cached.toJsonBytesCached();
+    }
+
+    /**
+     * Изменение поля очередной записи.
+     *
+     * @param records Список записей
+     */
+    void edit(Variant records) {
+        edit++;
+        records.get(edit % records.getSize()).get("position").setInteger("x", edit & 1023);
+    }
+}
@@ -0,0 +1,76 @@
+package ru.vladislav117.variant.benchmark;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import org.openjdk.jmh.annotations.*;
+import ru.vladislav117.variant.Variant;
+import ru.vladislav117.variant.VariantArena;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарк разбора и записи json, включая прежний путь через дерево Gson.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+public class JsonBenchmark {
+    @Param({"small", "medium", "large"})
+    String size;
+
+    Gson gson;
+    String json;
+    Variant variant;
+
+    @Setup
+    public void setup() {
+        gson = new Gson();
+        json = VariantCorpus.json(size);
+        variant = Variant.fromJsonString(json);
+    }
+
+    @Benchmark
+    public Variant fromJsonString() {
+        return Variant.fromJsonString(json);
+    }
+
+    @Benchmark
+    public Variant fromJsonStringParallel() {
+        return Variant.fromJsonStringParallel(json);
+    }
+
+    @Benchmark
+    public int fromJsonStringInArena() {
+        try (VariantArena arena = VariantArena.open()) {
+            return Variant.fromJsonString(json).getSize();
+        }
+    }
+
+    @Benchmark
+    public Variant fromJsonViaGsonTree() {
+        return Variant.fromJson(gson.fromJson(json, JsonElement.class));
+    }
+
+    @Benchmark
+    public String fromJsonStringLazyReadOne() {
+        return Variant.fromJsonStringLazy(json).get(0).getString("name");
+    }
+
+    @Benchmark
+    public String fromJsonStringLazyToJson() {
+        return Variant.fromJsonStringLazy(json).toJsonString();
+    }
+
+    @Benchmark
+    public String toJsonString() {
+        return variant.toJsonString();
+    }
+
+    @Benchmark
+    public String toJsonViaGsonTree() {
+        return variant.toJson().toString();
+    }
+}
@@ -0,0 +1,61 @@
+package ru.vladislav117.variant.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import ru.vladislav117.variant.Variant;
+import ru.vladislav117.variant.VariantJsonLinesReader;
+import ru.vladislav117.variant.VariantJsonLinesWriter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарк чтения и записи json lines в сравнении с разбором тех же записей одним json-документом.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+public class JsonLinesBenchmark {
+    @Param({"medium", "large"})
+    String size;
+
+    String json;
+    byte[] lines;
+    Variant variant;
+
+    @Setup
+    public void setup() {
+        json = VariantCorpus.json(size);
+        variant = Variant.fromJsonString(json);
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        VariantJsonLinesWriter writer = new VariantJsonLinesWriter(stream);
+        variant.forEach(writer::write);
+        writer.close();
+        lines = stream.toByteArray();
+    }
+
+    @Benchmark
+    public void readLines(Blackhole blackhole) {
+        VariantJsonLinesReader reader = new VariantJsonLinesReader(new ByteArrayInputStream(lines));
+        while (reader.hasNext()) blackhole.consume(reader.next());
+    }
+
+    @Benchmark
+    public Variant fromJsonString() {
+        return Variant.fromJsonString(json);
+    }
+
+    @Benchmark
+    public int writeLines() {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream(lines.length);
+        VariantJsonLinesWriter writer = new VariantJsonLinesWriter(stream);
+        variant.forEach(writer::write);
+        writer.close();
+        return stream.size();
+    }
+}
@@ -0,0 +1,60 @@
+package ru.vladislav117.variant.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.vladislav117.variant.Variant;
+import ru.vladislav117.variant.VariantMessagePackReader;
+
+import java.io.ByteArrayInputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарк разбора и записи MessagePack в сравнении с json на том же наборе данных.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+public class MessagePackBenchmark {
+    @Param({"small", "medium", "large"})
+    String size;
+
+    byte[] json;
+    byte[] messagePack;
+    Variant variant;
+
+    @Setup
+    public void setup() {
+        json = VariantCorpus.json(size).getBytes(StandardCharsets.UTF_8);
+        variant = Variant.fromJsonBytes(json);
+        messagePack = variant.toMessagePackBytes();
+    }
+
+    @Benchmark
+    public Variant fromMessagePackBytes() {
+        return Variant.fromMessagePackBytes(messagePack);
+    }
+
+    @Benchmark
+    public Variant readFromChannel() {
+        return new VariantMessagePackReader(Channels.newChannel(new ByteArrayInputStream(messagePack))).read();
+    }
+
+    @Benchmark
+    public Variant fromJsonBytes() {
+        return Variant.fromJsonBytes(json);
+    }
+
+    @Benchmark
+    public byte[] toMessagePackBytes() {
+        return variant.toMessagePackBytes();
+    }
+
+    @Benchmark
+    public String toJsonString() {
+        return variant.toJsonString();
+    }
+}
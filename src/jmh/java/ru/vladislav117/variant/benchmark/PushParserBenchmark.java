@@ -0,0 +1,60 @@
+package ru.vladislav117.variant.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.vladislav117.variant.Variant;
+import ru.vladislav117.variant.VariantJsonPushParser;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарк разбора json, поступающего частями, в сравнении с разбором всего документа.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+public class PushParserBenchmark {
+    @Param({"small", "medium", "large"})
+    String size;
+
+    @Param({"1024", "16384"})
+    int chunkSize;
+
+    byte[] json;
+    ByteBuffer direct;
+    VariantJsonPushParser parser;
+
+    @Setup
+    public void setup() {
+        json = VariantCorpus.json(size).getBytes(StandardCharsets.UTF_8);
+        direct = ByteBuffer.allocateDirect(json.length);
+        direct.put(json).flip();
+        parser = new VariantJsonPushParser();
+    }
+
+    @Benchmark
+    public Variant feedHeapChunks() {
+        for (int offset = 0; offset < json.length; offset += chunkSize) {
+            parser.feed(ByteBuffer.wrap(json, offset, Math.min(chunkSize, json.length - offset)));
+        }
+        return parser.finish();
+    }
+
+    @Benchmark
+    public Variant feedDirectChunks() {
+        for (int offset = 0; offset < json.length; offset += chunkSize) {
+            parser.feed(direct.limit(Math.min(json.length, offset + chunkSize)).position(offset));
+        }
+        direct.clear();
+        return parser.finish();
+    }
+
+    @Benchmark
+    public Variant fromJsonBytes() {
+        return Variant.fromJsonBytes(json);
+    }
+}
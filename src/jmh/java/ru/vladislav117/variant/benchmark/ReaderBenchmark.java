@@ -0,0 +1,57 @@
+package ru.vladislav117.variant.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.vladislav117.variant.Variant;
+import ru.vladislav117.variant.VariantReader;
+import ru.vladislav117.variant.VariantToken;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарк фильтрации записей: подсчёт активных записей через {@link VariantReader} в сравнении с полным разбором документа.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+public class ReaderBenchmark {
+    @Param({"medium", "large"})
+    String size;
+
+    byte[] json;
+
+    @Setup
+    public void setup() {
+        json = VariantCorpus.json(size).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public int countWithReader() {
+        VariantReader reader = new VariantReader(json);
+        reader.next();
+        int count = 0;
+        while (reader.next() == VariantToken.START_MAP) {
+            while (reader.next() != VariantToken.END_MAP) {
+                if (reader.nameEquals("active")) {
+                    if (reader.getBoolean()) count++;
+                } else {
+                    reader.skipChildren();
+                }
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int countWithTree() {
+        Variant records = Variant.fromJsonBytes(json);
+        int count = 0;
+        for (int index = 0; index < records.getSize(); index++) {
+            if (records.get(index).get("active").asBoolean()) count++;
+        }
+        return count;
+    }
+}
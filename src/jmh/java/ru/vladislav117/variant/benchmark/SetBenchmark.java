@@ -0,0 +1,57 @@
+package ru.vladislav117.variant.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.vladislav117.variant.Variant;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарк диспетчеризации set(Object) по типу значения.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SetBenchmark {
+    @Param({"boolean", "integer", "long", "double", "string", "variant"})
+    String kind;
+
+    Object value;
+    Variant target;
+
+    @Setup
+    public void setup() {
+        switch (kind) {
+            case "boolean":
+                value = Boolean.TRUE;
+                break;
+            case "integer":
+                value = 42;
+                break;
+            case "long":
+                value = 9007199254740993L;
+                break;
+            case "double":
+                value = 2.5;
+                break;
+            case "string":
+                value = "value";
+                break;
+            default:
+                value = Variant.newInteger(7);
+        }
+        target = new Variant(null);
+    }
+
+    @Benchmark
+    public Variant set() {
+        return target.set(value);
+    }
+
+    @Benchmark
+    public Variant construct() {
+        return new Variant(value);
+    }
+}
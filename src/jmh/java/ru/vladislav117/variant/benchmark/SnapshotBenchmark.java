@@ -0,0 +1,52 @@
+package ru.vladislav117.variant.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.vladislav117.variant.Variant;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарк записи и чтения двоичного снимка со словарём имён в сравнении с json на том же наборе данных.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+public class SnapshotBenchmark {
+    @Param({"small", "medium", "large"})
+    String size;
+
+    byte[] json;
+    byte[] snapshot;
+    Variant variant;
+
+    @Setup
+    public void setup() {
+        json = VariantCorpus.json(size).getBytes(StandardCharsets.UTF_8);
+        variant = Variant.fromJsonBytes(json);
+        snapshot = variant.toSnapshot();
+    }
+
+    @Benchmark
+    public Variant fromSnapshot() {
+        return Variant.fromSnapshot(snapshot);
+    }
+
+    @Benchmark
+    public Variant fromJsonBytes() {
+        return Variant.fromJsonBytes(json);
+    }
+
+    @Benchmark
+    public byte[] toSnapshot() {
+        return variant.toSnapshot();
+    }
+
+    @Benchmark
+    public String toJsonString() {
+        return variant.toJsonString();
+    }
+}
@@ -0,0 +1,92 @@
+package ru.vladislav117.variant.benchmark;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import org.openjdk.jmh.annotations.*;
+import ru.vladislav117.variant.Variant;
+import ru.vladislav117.variant.VariantJsonIndex;
+import ru.vladislav117.variant.VariantJsonScanner;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарк поиска структурных символов {@link VariantJsonScanner} в сравнении с полным разбором json, в том числе через дерево Gson.
+ * Счётчик bytes показывает пропускную способность в байтах в секунду.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+public class StructuralIndexBenchmark {
+    @Param({"medium", "large"})
+    String size;
+
+    Gson gson;
+    String json;
+    byte[] bytes;
+    int[] tape;
+
+    /**
+     * Счётчик обработанных байтов.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Throughput {
+        public long bytes;
+    }
+
+    @Setup
+    public void setup() {
+        gson = new Gson();
+        json = VariantCorpus.json(size);
+        bytes = json.getBytes(StandardCharsets.UTF_8);
+        tape = new int[1024];
+    }
+
+    @Benchmark
+    public int scan(Throughput throughput) {
+        throughput.bytes += bytes.length;
+        return scanAll();
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g", "-Dru.vladislav117.variant.json.swar=false"})
+    public int scanBytewise(Throughput throughput) {
+        throughput.bytes += bytes.length;
+        return scanAll();
+    }
+
+    @Benchmark
+    public int buildIndex(Throughput throughput) {
+        throughput.bytes += bytes.length;
+        return VariantJsonIndex.build(bytes, 0, bytes.length).size();
+    }
+
+    @Benchmark
+    public Variant fromJsonBytes(Throughput throughput) {
+        throughput.bytes += bytes.length;
+        return Variant.fromJsonBytes(bytes);
+    }
+
+    @Benchmark
+    public Variant fromJsonViaGsonTree(Throughput throughput) {
+        throughput.bytes += bytes.length;
+        return Variant.fromJson(gson.fromJson(json, JsonElement.class));
+    }
+
+    /**
+     * Поиск всех скобок и запятых документа.
+     *
+     * @return Количество найденных символов.
+     */
+    int scanAll() {
+        VariantJsonScanner scanner = new VariantJsonScanner(bytes, 0, bytes.length, true);
+        int total = 0;
+        int found;
+        while ((found = scanner.next(tape)) > 0) total += found;
+        return total;
+    }
+}
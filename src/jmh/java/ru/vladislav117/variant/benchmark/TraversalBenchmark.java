@@ -0,0 +1,50 @@
+package ru.vladislav117.variant.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.vladislav117.variant.Variant;
+import ru.vladislav117.variant.VariantType;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарк глубокого обхода дерева через forEach.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TraversalBenchmark {
+    @Param({"small", "medium", "large"})
+    String size;
+
+    Variant variant;
+
+    @Setup
+    public void setup() {
+        variant = VariantCorpus.variant(size);
+    }
+
+    @Benchmark
+    public long forEachDeep() {
+        long[] leaves = new long[1];
+        countLeaves(variant, leaves);
+        return leaves[0];
+    }
+
+    @Benchmark
+    public double forEachDoubleInMaps() {
+        double[] sum = new double[1];
+        variant.forEach(record -> record.forEachDoubleInMap((name, value) -> sum[0] += value));
+        return sum[0];
+    }
+
+    static void countLeaves(Variant variant, long[] leaves) {
+        if (variant.is(VariantType.LIST) || variant.is(VariantType.MAP)) {
+            variant.forEach(child -> countLeaves(child, leaves));
+        } else {
+            leaves[0]++;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package ru.vladislav117.variant.benchmark;
+
+import ru.vladislav117.variant.Variant;
+
+import java.util.Random;
+
+/**
+ * Детерминированные json-документы для бенчмарков.
+ */
+public final class VariantCorpus {
+    /**
+     * Создание json-документа: списка однотипных записей.
+     *
+     * @param size Размер документа: small (~1 КБ), medium (~100 КБ) или large (~10 МБ)
+     * @return Json-строка.
+     */
+    public static String json(String size) {
+        switch (size) {
+            case "small":
+                return records(8);
+            case "medium":
+                return records(800);
+            case "large":
+                return records(80000);
+            default:
+                throw new IllegalArgumentException("Unknown corpus size: " + size);
+        }
+    }
+
+    /**
+     * Создание списка записей.
+     *
+     * @param count Количество записей
+     * @return Json-строка.
+     */
+    static String records(int count) {
+        Random random = new Random(count);
+        StringBuilder json = new StringBuilder("[");
+        for (int index = 0; index < count; index++) {
+            if (index > 0) json.append(',');
+            json.append("{\"id\":").append(random.nextLong())
+                    .append(",\"name\":\"user ").append(index).append('"')
+                    .append(",\"score\":").append(Math.round(random.nextDouble() * 100000) / 100.0)
+                    .append(",\"active\":").append(random.nextBoolean())
+                    .append(",\"tags\":[\"alpha\",\"beta\",\"gamma\"]")
+                    .append(",\"position\":{\"x\":").append(random.nextInt(1000)).append(",\"y\":").append(random.nextInt(1000)).append('}')
+                    .append(",\"parent\":null}");
+        }
+        return json.append(']').toString();
+    }
+
+    /**
+     * Создание объекта из json-документа.
+     *
+     * @param size Размер документа
+     * @return Объект.
+     */
+    public static Variant variant(String size) {
+        return Variant.fromJsonString(json(size));
+    }
+
+    private VariantCorpus() {
+    }
+}
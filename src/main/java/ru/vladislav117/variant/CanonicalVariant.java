@@ -0,0 +1,180 @@
+package ru.vladislav117.variant;
+
+import org.jetbrains.annotations.Nullable;
+import ru.vladislav117.variant.error.VariantImmutableError;
+
+/**
+ * Общий неизменяемый экземпляр листового значения: null, логического значения, пустой строки или небольшого целого числа.
+ * Списки и таблицы хранят такие экземпляры вместо отдельных объектов, а перед выдачей дочернего объекта наружу
+ * заменяют его изменяемой копией, поэтому изменение полученного объекта не затрагивает другие документы.
+ * Попытка изменить сам общий экземпляр вызывает исключение.
+ * <p>
+ * Диапазон целых чисел задаётся системными свойствами {@code ru.vladislav117.variant.canonical.low}
+ * и {@code ru.vladislav117.variant.canonical.high} (по умолчанию от -128 до 1024),
+ * а отключить общие экземпляры можно свойством {@code ru.vladislav117.variant.canonical=false}.
+ */
+public final class CanonicalVariant extends Variant {
+    /**
+     * Используются ли общие экземпляры.
+     */
+    public static final boolean ENABLED = !"false".equals(System.getProperty("ru.vladislav117.variant.canonical"));
+    /**
+     * Наименьшее целое число, имеющее общий экземпляр.
+     */
+    public static final long LOW = Integer.getInteger("ru.vladislav117.variant.canonical.low", -128);
+    /**
+     * Наибольшее целое число, имеющее общий экземпляр.
+     */
+    public static final long HIGH = Math.max(LOW - 1, Integer.getInteger("ru.vladislav117.variant.canonical.high", 1024));
+    /**
+     * Общий экземпляр null.
+     */
+    public static final CanonicalVariant NULL = new CanonicalVariant(null);
+    /**
+     * Общий экземпляр true.
+     */
+    public static final CanonicalVariant TRUE = new CanonicalVariant(Boolean.TRUE);
+    /**
+     * Общий экземпляр false.
+     */
+    public static final CanonicalVariant FALSE = new CanonicalVariant(Boolean.FALSE);
+    /**
+     * Общий экземпляр пустой строки.
+     */
+    public static final CanonicalVariant EMPTY_STRING = new CanonicalVariant("");
+    protected static final CanonicalVariant[] INTEGERS = new CanonicalVariant[ENABLED ? (int) (HIGH - LOW + 1) : 0];
+
+    static {
+        for (int index = 0; index < INTEGERS.length; index++) {
+            INTEGERS[index] = new CanonicalVariant(LOW + index);
+        }
+    }
+
+    protected boolean sealed;
+
+    /**
+     * Создание общего экземпляра.
+     *
+     * @param value Значение
+     */
+    private CanonicalVariant(@Nullable Object value) {
+        super(value);
+        sealed = true;
+    }
+
+    /**
+     * Получение объекта с логическим значением.
+     *
+     * @param value Значение
+     * @return Общий экземпляр или новый объект, если общие экземпляры отключены.
+     */
+    public static Variant ofBoolean(boolean value) {
+        if (!ENABLED) return new Variant(value);
+        return value ? TRUE : FALSE;
+    }
+
+    /**
+     * Получение объекта со значением null.
+     *
+     * @return Общий экземпляр или новый объект, если общие экземпляры отключены.
+     */
+    public static Variant ofNull() {
+        return ENABLED ? NULL : new Variant(null);
+    }
+
+    /**
+     * Получение объекта с пустой строкой.
+     *
+     * @return Общий экземпляр или новый объект, если общие экземпляры отключены.
+     */
+    public static Variant ofEmptyString() {
+        return ENABLED ? EMPTY_STRING : new Variant("");
+    }
+
+    /**
+     * Получение объекта с целым числом.
+     *
+     * @param value Значение
+     * @return Общий экземпляр, если число входит в диапазон, иначе новый объект.
+     */
+    public static Variant ofLong(long value) {
+        if (value >= LOW && value <= HIGH && INTEGERS.length != 0) return INTEGERS[(int) (value - LOW)];
+        return new Variant(null).setLongNumber(value);
+    }
+
+    /**
+     * Получение общего экземпляра с таким же значением, как у объекта.
+     *
+     * @param variant Объект
+     * @return Общий экземпляр или null, если для значения его нет.
+     */
+    public static @Nullable CanonicalVariant find(Variant variant) {
+        if (!ENABLED) return null;
+        if (variant instanceof CanonicalVariant) return (CanonicalVariant) variant;
+        switch (variant.type) {
+            case NULL:
+                return NULL;
+            case BOOLEAN:
+                return (Boolean) variant.object ? TRUE : FALSE;
+            case STRING:
+                return ((CharSequence) variant.object).length() == 0 ? EMPTY_STRING : null;
+            case NUMBER:
+                if (variant.precision != VariantNumberPrecision.LONG) return null;
+                long value = variant.longNumber;
+                return value >= LOW && value <= HIGH ? INTEGERS[(int) (value - LOW)] : null;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Создание дочернего объекта из значения.
+     * Для листовых значений, имеющих общий экземпляр, возвращается он, иначе создаётся новый объект (как в {@link Variant#Variant(Object)}).
+     *
+     * @param value Значение
+     * @return Общий экземпляр или новый объект.
+     */
+    public static Variant of(@Nullable Object value) {
+        if (ENABLED) {
+            if (value == null) return NULL;
+            if (value instanceof Boolean) return (Boolean) value ? TRUE : FALSE;
+            if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+                return ofLong(((Number) value).longValue());
+            }
+            if (value instanceof String && ((String) value).isEmpty()) return EMPTY_STRING;
+            if (value instanceof Variant) {
+                CanonicalVariant canonical = find((Variant) value);
+                if (canonical != null) return canonical;
+            }
+        }
+        return new Variant(value);
+    }
+
+    /**
+     * Получение изменяемого объекта для выдачи наружу: общий экземпляр заменяется копией.
+     *
+     * @param variant Объект
+     * @return Этот же объект или копия общего экземпляра.
+     */
+    public static Variant detach(Variant variant) {
+        return variant instanceof CanonicalVariant ? new Variant(variant) : variant;
+    }
+
+    @Override
+    public Variant set(Object value) {
+        if (sealed) throw new VariantImmutableError();
+        return super.set(value);
+    }
+
+    @Override
+    protected Variant setLongNumber(long value) {
+        if (sealed) throw new VariantImmutableError();
+        return super.setLongNumber(value);
+    }
+
+    @Override
+    protected Variant setDoubleNumber(double value) {
+        if (sealed) throw new VariantImmutableError();
+        return super.setDoubleNumber(value);
+    }
+}
@@ -0,0 +1,172 @@
+package ru.vladislav117.variant;
+
+/**
+ * Список, разбираемый из исходного json при первом обращении.
+ * До обращения список хранит только ссылку на {@link VariantJsonIndex} и номер своей скобки в индексе;
+ * при первом обращении разбирается один уровень: вложенные таблицы и списки остаются неразобранными.
+ * Неразобранный список записывается в json копированием исходных байтов после проверки их синтаксиса ({@link VariantJsonIndex#check(int)}).
+ */
+public class LazyVariantList extends VariantList {
+    protected VariantJsonIndex index;
+    protected final int node;
+
+    /**
+     * Создание неразобранного списка.
+     *
+     * @param index Индекс исходного json
+     * @param node  Номер списка в индексе
+     */
+    protected LazyVariantList(VariantJsonIndex index, int node) {
+        this.index = index;
+        this.node = node;
+    }
+
+    /**
+     * Проверка, разобран ли список.
+     *
+     * @return Разобран ли список.
+     */
+    public boolean isLoaded() {
+        return index == null;
+    }
+
+    @Override
+    protected void load() {
+        VariantJsonIndex index = this.index;
+        if (index == null) return;
+        this.index = null;
+        try {
+            VariantJsonParser.load(index, node, this);
+        } catch (RuntimeException | Error exception) {
+            super.clear();
+            this.index = index;
+            throw exception;
+        }
+    }
+
+    @Override
+    protected VariantList copy() {
+        if (index != null) return new LazyVariantList(index, node);
+        return super.copy();
+    }
+
+    @Override
+    public VariantListStorage getStorage() {
+        load();
+        return super.getStorage();
+    }
+
+    @Override
+    public Variant peek(int index) {
+        load();
+        return super.peek(index);
+    }
+
+    @Override
+    public long getLong(int index) {
+        load();
+        return super.getLong(index);
+    }
+
+    @Override
+    public double getDouble(int index) {
+        load();
+        return super.getDouble(index);
+    }
+
+    @Override
+    public boolean getBoolean(int index) {
+        load();
+        return super.getBoolean(index);
+    }
+
+    @Override
+    public void addLong(long value) {
+        load();
+        super.addLong(value);
+    }
+
+    @Override
+    public void addDouble(double value) {
+        load();
+        super.addDouble(value);
+    }
+
+    @Override
+    public void addBoolean(boolean value) {
+        load();
+        super.addBoolean(value);
+    }
+
+    @Override
+    public void addOwned(int index, Variant child) {
+        load();
+        super.addOwned(index, child);
+    }
+
+    @Override
+    public void addOwned(Variant child) {
+        load();
+        super.addOwned(child);
+    }
+
+    @Override
+    public void setOwned(int index, Variant child) {
+        load();
+        super.setOwned(index, child);
+    }
+
+    @Override
+    public void trimToSize() {
+        load();
+        super.trimToSize();
+    }
+
+    @Override
+    public int size() {
+        load();
+        return super.size();
+    }
+
+    @Override
+    public Variant get(int index) {
+        load();
+        return super.get(index);
+    }
+
+    @Override
+    public Variant set(int index, Variant element) {
+        load();
+        return super.set(index, element);
+    }
+
+    @Override
+    public void add(int index, Variant element) {
+        load();
+        super.add(index, element);
+    }
+
+    @Override
+    public Variant remove(int index) {
+        load();
+        return super.remove(index);
+    }
+
+    @Override
+    public void clear() {
+        index = null;
+        super.clear();
+    }
+
+    @Override
+    public int hashCode() {
+        load();
+        return super.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        load();
+        return super.equals(obj);
+    }
+}
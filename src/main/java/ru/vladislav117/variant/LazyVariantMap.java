@@ -0,0 +1,160 @@
+package ru.vladislav117.variant;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * Таблица, разбираемая из исходного json при первом обращении.
+ * До обращения таблица хранит только ссылку на {@link VariantJsonIndex} и номер своей скобки в индексе;
+ * при первом обращении разбирается один уровень: вложенные таблицы и списки остаются неразобранными.
+ * Неразобранная таблица записывается в json копированием исходных байтов после проверки их синтаксиса ({@link VariantJsonIndex#check(int)}).
+ */
+public class LazyVariantMap extends VariantMap {
+    protected VariantJsonIndex index;
+    protected final int node;
+
+    /**
+     * Создание неразобранной таблицы.
+     *
+     * @param index Индекс исходного json
+     * @param node  Номер таблицы в индексе
+     */
+    protected LazyVariantMap(VariantJsonIndex index, int node) {
+        this.index = index;
+        this.node = node;
+    }
+
+    /**
+     * Проверка, разобрана ли таблица.
+     *
+     * @return Разобрана ли таблица.
+     */
+    public boolean isLoaded() {
+        return index == null;
+    }
+
+    @Override
+    protected void load() {
+        VariantJsonIndex index = this.index;
+        if (index == null) return;
+        this.index = null;
+        try {
+            VariantJsonParser.load(index, node, this);
+        } catch (RuntimeException | Error exception) {
+            super.clear();
+            this.index = index;
+            throw exception;
+        }
+    }
+
+    @Override
+    protected VariantMap copy() {
+        if (index != null) return new LazyVariantMap(index, node);
+        return super.copy();
+    }
+
+    @Override
+    public boolean isCompact() {
+        load();
+        return super.isCompact();
+    }
+
+    @Override
+    public @Nullable VariantMapShape getShape() {
+        load();
+        return super.getShape();
+    }
+
+    @Override
+    public void trimToSize() {
+        load();
+        super.trimToSize();
+    }
+
+    @Override
+    public int size() {
+        load();
+        return super.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        load();
+        return super.isEmpty();
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        load();
+        return super.containsKey(key);
+    }
+
+    @Override
+    public Variant get(Object key) {
+        load();
+        return super.get(key);
+    }
+
+    @Override
+    public @Nullable Variant peek(Object key) {
+        load();
+        return super.peek(key);
+    }
+
+    @Override
+    public void peekEach(BiConsumer<? super String, ? super Variant> action) {
+        load();
+        super.peekEach(action);
+    }
+
+    @Override
+    public Variant put(String key, Variant value) {
+        load();
+        return super.put(key, value);
+    }
+
+    @Override
+    public Variant remove(Object key) {
+        load();
+        return super.remove(key);
+    }
+
+    @Override
+    public void clear() {
+        index = null;
+        super.clear();
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super String, ? super Variant> action) {
+        load();
+        super.forEach(action);
+    }
+
+    @Override
+    public int hashCode() {
+        load();
+        return super.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        load();
+        return super.equals(obj);
+    }
+
+    @Override
+    public Set<String> keySet() {
+        load();
+        return super.keySet();
+    }
+
+    @Override
+    public Set<Map.Entry<String, Variant>> entrySet() {
+        load();
+        return super.entrySet();
+    }
+}
@@ -0,0 +1,732 @@
+package ru.vladislav117.variant;
+
+import org.jetbrains.annotations.Nullable;
+import ru.vladislav117.variant.error.*;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Неизменяемый объект, который может иметь значения различных типов, таких как
+ * логическое значение, число, строка, список или таблица.
+ * Изменение возвращает новую версию объекта, которая разделяет с исходной все незатронутые узлы,
+ * поэтому объект можно свободно читать из нескольких потоков без блокировок и копирования.
+ *
+ * @see Variant#freeze()
+ */
+public final class PersistentVariant {
+    /**
+     * Значение null.
+     */
+    public static final PersistentVariant NULL = new PersistentVariant(VariantType.NULL, null, VariantNumberPrecision.LONG, 0, 0);
+    /**
+     * Логическое значение true.
+     */
+    public static final PersistentVariant TRUE = new PersistentVariant(VariantType.BOOLEAN, Boolean.TRUE, VariantNumberPrecision.LONG, 0, 0);
+    /**
+     * Логическое значение false.
+     */
+    public static final PersistentVariant FALSE = new PersistentVariant(VariantType.BOOLEAN, Boolean.FALSE, VariantNumberPrecision.LONG, 0, 0);
+    /**
+     * Пустой список.
+     */
+    public static final PersistentVariant EMPTY_LIST = new PersistentVariant(VariantType.LIST, PersistentVariantList.EMPTY, VariantNumberPrecision.LONG, 0, 0);
+    /**
+     * Пустая таблица.
+     */
+    public static final PersistentVariant EMPTY_MAP = new PersistentVariant(VariantType.MAP, PersistentVariantMap.EMPTY, VariantNumberPrecision.LONG, 0, 0);
+
+    protected final VariantType type;
+    protected final Object object;
+    protected final VariantNumberPrecision precision;
+    protected final long longNumber;
+    protected final double doubleNumber;
+
+    /**
+     * Создание объекта.
+     *
+     * @param type         Тип
+     * @param object       Значение (кроме чисел)
+     * @param precision    Точность числа
+     * @param longNumber   Целочисленное значение числа
+     * @param doubleNumber Значение числа с плавающей точкой
+     */
+    protected PersistentVariant(VariantType type, @Nullable Object object, VariantNumberPrecision precision, long longNumber, double doubleNumber) {
+        this.type = type;
+        this.object = object;
+        this.precision = precision;
+        this.longNumber = longNumber;
+        this.doubleNumber = doubleNumber;
+    }
+
+    /**
+     * Создание неизменяемого объекта из значения.
+     * Изменяемые объекты Variant, списки и таблицы копируются; неизменяемые объекты возвращаются как есть.
+     * Если тип значения не поддерживается, будет вызвано исключение.
+     *
+     * @param value Значение
+     * @return Неизменяемый объект.
+     * @throws VariantSetValueError Если тип значения не поддерживается, будет вызвано исключение.
+     */
+    public static PersistentVariant of(@Nullable Object value) {
+        if (value == null) return NULL;
+        if (value instanceof PersistentVariant) return (PersistentVariant) value;
+        if (value instanceof Variant) return ofVariant((Variant) value);
+        if (value instanceof Boolean) return ofBoolean((Boolean) value);
+        if (value instanceof Byte || value instanceof Short || value instanceof Integer || value instanceof Long) {
+            return ofLong(((Number) value).longValue());
+        }
+        if (value instanceof Float || value instanceof Double) return ofDouble(((Number) value).doubleValue());
+        if (value instanceof Number) return ofVariant(new Variant(value));
+        if (value instanceof Character) return new PersistentVariant(VariantType.STRING, value.toString(), VariantNumberPrecision.LONG, 0, 0);
+        if (value instanceof String || value instanceof VariantUtf8String) return new PersistentVariant(VariantType.STRING, value, VariantNumberPrecision.LONG, 0, 0);
+        if (value instanceof List<?>) {
+            List<?> list = (List<?>) value;
+            PersistentVariant[] items = new PersistentVariant[list.size()];
+            int count = 0;
+            for (Object item : list) {
+                items[count++] = of(item);
+            }
+            return ofList(PersistentVariantList.of(items, count));
+        }
+        if (value instanceof Map<?, ?>) {
+            Map<?, ?> map = (Map<?, ?>) value;
+            String[] keys = new String[map.size()];
+            PersistentVariant[] values = new PersistentVariant[map.size()];
+            int count = 0;
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                keys[count] = entry.getKey().toString();
+                values[count++] = of(entry.getValue());
+            }
+            return ofMap(PersistentVariantMap.of(keys, values, count));
+        }
+        throw new VariantSetValueError(value);
+    }
+
+    /**
+     * Создание неизменяемого объекта из Variant.
+     * Список примитивов читается напрямую из массива, без создания дочерних объектов Variant.
+     *
+     * @param variant Изменяемый объект
+     * @return Неизменяемый объект.
+     */
+    @SuppressWarnings("unchecked")
+    protected static PersistentVariant ofVariant(Variant variant) {
+        switch (variant.type) {
+            case BOOLEAN:
+                return ofBoolean((Boolean) variant.object);
+            case NUMBER:
+                return new PersistentVariant(VariantType.NUMBER, variant.object, variant.precision, variant.longNumber, variant.doubleNumber);
+            case STRING:
+                return new PersistentVariant(VariantType.STRING, variant.object, VariantNumberPrecision.LONG, 0, 0);
+            case LIST:
+                VariantList list = (VariantList) variant.object;
+                list.load();
+                PersistentVariant[] items = new PersistentVariant[list.size];
+                for (int index = 0; index < list.size; index++) {
+                    switch (list.storage) {
+                        case LONG:
+                            items[index] = ofLong(list.longs[index]);
+                            break;
+                        case DOUBLE:
+                            items[index] = ofDouble(list.doubles[index]);
+                            break;
+                        case BOOLEAN:
+                            items[index] = ofBoolean(list.booleans[index]);
+                            break;
+                        default:
+                            items[index] = ofVariant(list.elements[index]);
+                    }
+                }
+                return ofList(PersistentVariantList.of(items, items.length));
+            case MAP:
+                VariantMap map = (VariantMap) variant.object;
+                String[] keys = new String[map.size()];
+                PersistentVariant[] values = new PersistentVariant[map.size()];
+                int[] count = {0};
+                map.peekEach((childName, child) -> {
+                    keys[count[0]] = childName;
+                    values[count[0]++] = ofVariant(child);
+                });
+                return ofMap(PersistentVariantMap.of(keys, values, count[0]));
+            default:
+                return NULL;
+        }
+    }
+
+    /**
+     * Создание логического значения.
+     *
+     * @param value Значение
+     * @return Неизменяемый объект.
+     */
+    public static PersistentVariant ofBoolean(boolean value) {
+        return value ? TRUE : FALSE;
+    }
+
+    /**
+     * Создание целого числа.
+     *
+     * @param value Значение
+     * @return Неизменяемый объект.
+     */
+    public static PersistentVariant ofLong(long value) {
+        return new PersistentVariant(VariantType.NUMBER, null, VariantNumberPrecision.LONG, value, value);
+    }
+
+    /**
+     * Создание числа с плавающей точкой.
+     *
+     * @param value Значение
+     * @return Неизменяемый объект.
+     */
+    public static PersistentVariant ofDouble(double value) {
+        return new PersistentVariant(VariantType.NUMBER, null, VariantNumberPrecision.DOUBLE, (long) value, value);
+    }
+
+    /**
+     * Создание списка.
+     *
+     * @param list Список
+     * @return Неизменяемый объект.
+     */
+    public static PersistentVariant ofList(PersistentVariantList list) {
+        return list.size == 0 ? EMPTY_LIST : new PersistentVariant(VariantType.LIST, list, VariantNumberPrecision.LONG, 0, 0);
+    }
+
+    /**
+     * Создание таблицы.
+     *
+     * @param map Таблица
+     * @return Неизменяемый объект.
+     */
+    public static PersistentVariant ofMap(PersistentVariantMap map) {
+        return map.size == 0 ? EMPTY_MAP : new PersistentVariant(VariantType.MAP, map, VariantNumberPrecision.LONG, 0, 0);
+    }
+
+    /**
+     * Создание изменяемой копии объекта.
+     *
+     * @return Изменяемый объект.
+     */
+    public Variant toVariant() {
+        switch (type) {
+            case BOOLEAN:
+                return new Variant(object);
+            case NUMBER:
+                Variant number = new Variant(null);
+                number.type = VariantType.NUMBER;
+                number.object = object;
+                number.precision = precision;
+                number.longNumber = longNumber;
+                number.doubleNumber = doubleNumber;
+                return number;
+            case STRING:
+                return new Variant(object);
+            case LIST:
+                PersistentVariantList items = (PersistentVariantList) object;
+                VariantList list = new VariantList(items.size);
+                for (int index = 0; index < items.size; index++) {
+                    list.addOwned(items.get(index).toVariant());
+                }
+                return Variant.adoptList(list);
+            case MAP:
+                PersistentVariantMap entries = (PersistentVariantMap) object;
+                VariantMap map = new VariantMap(entries.size);
+                entries.forEach((childName, child) -> map.put(childName, child.toVariant()));
+                return Variant.adoptMap(map);
+            default:
+                return new Variant(null);
+        }
+    }
+
+    /**
+     * Получение типа объекта.
+     *
+     * @return Тип объекта.
+     */
+    public VariantType getType() {
+        return type;
+    }
+
+    /**
+     * Проверка типа объекта.
+     *
+     * @param type Тип для сравнения
+     * @return Равенство типов.
+     */
+    public boolean is(VariantType type) {
+        return this.type == type;
+    }
+
+    /**
+     * Получение размера списка или таблицы.
+     * Если этот объект не является списком или таблицей, будет вызвано исключение.
+     *
+     * @return Размер.
+     * @throws VariantTypeError Если этот объект не является списком или таблицей, будет вызвано исключение.
+     */
+    public int getSize() {
+        if (type == VariantType.LIST) return ((PersistentVariantList) object).size;
+        if (type == VariantType.MAP) return ((PersistentVariantMap) object).size;
+        throw new VariantTypeError(type, VariantType.LIST, VariantType.MAP);
+    }
+
+    /**
+     * Получение точности числа.
+     * Если этот объект не является числом, будет вызвано исключение.
+     *
+     * @return Точность числа.
+     * @throws VariantTypeError Если этот объект не является числом, будет вызвано исключение.
+     */
+    public VariantNumberPrecision getNumberPrecision() {
+        if (type != VariantType.NUMBER) throw new VariantTypeError(type, VariantType.NUMBER);
+        return precision;
+    }
+
+    /**
+     * Проверка, является ли значение этого объекта Boolean.
+     *
+     * @return Является ли значение этого объекта Boolean.
+     */
+    public boolean isBoolean() {
+        return type == VariantType.BOOLEAN;
+    }
+
+    /**
+     * Проверка, является ли значение этого объекта Integer.
+     *
+     * @return Является ли значение этого объекта Integer.
+     */
+    public boolean isInteger() {
+        return isLong() && (int) longNumber == longNumber;
+    }
+
+    /**
+     * Проверка, является ли значение этого объекта Long.
+     *
+     * @return Является ли значение этого объекта Long.
+     */
+    public boolean isLong() {
+        return type == VariantType.NUMBER && (precision == VariantNumberPrecision.LONG || precision == VariantNumberPrecision.DOUBLE && longNumber == doubleNumber);
+    }
+
+    /**
+     * Проверка, является ли значение этого объекта Double.
+     *
+     * @return Является ли значение этого объекта Double.
+     */
+    public boolean isDouble() {
+        return type == VariantType.NUMBER;
+    }
+
+    /**
+     * Проверка, является ли значение этого объекта BigInteger.
+     *
+     * @return Является ли значение этого объекта BigInteger.
+     */
+    public boolean isBigInteger() {
+        return type == VariantType.NUMBER && VariantDecimal.isInteger(precision, object, doubleNumber);
+    }
+
+    /**
+     * Проверка, является ли значение этого объекта BigDecimal.
+     *
+     * @return Является ли значение этого объекта BigDecimal.
+     */
+    public boolean isBigDecimal() {
+        return type == VariantType.NUMBER && VariantDecimal.isFinite(precision, doubleNumber);
+    }
+
+    /**
+     * Проверка, является ли значение этого объекта String.
+     *
+     * @return Является ли значение этого объекта String.
+     */
+    public boolean isString() {
+        return type == VariantType.STRING;
+    }
+
+    /**
+     * Преобразование значения объекта к типу Boolean.
+     * Если значение не может быть преобразовано к указанному типу, будет вызвано исключение.
+     *
+     * @return Значение объекта с типом Boolean.
+     * @throws VariantValueError Если значение не может быть преобразовано к указанному типу, будет вызвано исключение.
+     */
+    public boolean asBoolean() {
+        if (!isBoolean()) throw new VariantValueError(type, "boolean");
+        return (Boolean) object;
+    }
+
+    /**
+     * Преобразование значения объекта к типу Integer.
+     * Если значение не может быть преобразовано к указанному типу, будет вызвано исключение.
+     *
+     * @return Значение объекта с типом Integer.
+     * @throws VariantValueError Если значение не может быть преобразовано к указанному типу, будет вызвано исключение.
+     */
+    public int asInteger() {
+        if (!isInteger()) throw new VariantValueError(type, "int");
+        return (int) longNumber;
+    }
+
+    /**
+     * Преобразование значения объекта к типу Long.
+     * Если значение не может быть преобразовано к указанному типу, будет вызвано исключение.
+     *
+     * @return Значение объекта с типом Long.
+     * @throws VariantValueError Если значение не может быть преобразовано к указанному типу, будет вызвано исключение.
+     */
+    public long asLong() {
+        if (!isLong()) throw new VariantValueError(type, "long");
+        return longNumber;
+    }
+
+    /**
+     * Преобразование значения объекта к типу Double.
+     * Если значение не может быть преобразовано к указанному типу, будет вызвано исключение.
+     *
+     * @return Значение объекта с типом Double.
+     * @throws VariantValueError Если значение не может быть преобразовано к указанному типу, будет вызвано исключение.
+     */
+    public double asDouble() {
+        if (!isDouble()) throw new VariantValueError(type, "double");
+        return doubleNumber;
+    }
+
+    /**
+     * Преобразование значения объекта к типу BigInteger.
+     * Если значение не может быть преобразовано к указанному типу, будет вызвано исключение.
+     *
+     * @return Значение объекта с типом BigInteger.
+     * @throws VariantValueError Если значение не может быть преобразовано к указанному типу, будет вызвано исключение.
+     */
+    public BigInteger asBigInteger() {
+        if (!isBigInteger()) throw new VariantValueError(type, "BigInteger");
+        if (precision == VariantNumberPrecision.LONG) return BigInteger.valueOf(longNumber);
+        return VariantDecimal.toBigDecimal(precision, object, longNumber, doubleNumber).toBigIntegerExact();
+    }
+
+    /**
+     * Преобразование значения объекта к типу BigDecimal.
+     * Если значение не может быть преобразовано к указанному типу, будет вызвано исключение.
+     *
+     * @return Значение объекта с типом BigDecimal.
+     * @throws VariantValueError Если значение не может быть преобразовано к указанному типу, будет вызвано исключение.
+     */
+    public BigDecimal asBigDecimal() {
+        if (!isBigDecimal()) throw new VariantValueError(type, "BigDecimal");
+        return VariantDecimal.toBigDecimal(precision, object, longNumber, doubleNumber);
+    }
+
+    /**
+     * Преобразование значения объекта к типу String.
+     * Если значение не может быть преобразовано к указанному типу, будет вызвано исключение.
+     *
+     * @return Значение объекта с типом String.
+     * @throws VariantValueError Если значение не может быть преобразовано к указанному типу, будет вызвано исключение.
+     */
+    public String asString() {
+        if (!isString()) throw new VariantValueError(type, "String");
+        return object.toString();
+    }
+
+    /**
+     * Получение списка дочерних объектов.
+     * Если этот объект не является списком, будет вызвано исключение.
+     *
+     * @return Неизменяемый список.
+     * @throws VariantValueError Если этот объект не является списком, будет вызвано исключение.
+     */
+    public PersistentVariantList asList() {
+        if (type != VariantType.LIST) throw new VariantValueError(type, "List");
+        return (PersistentVariantList) object;
+    }
+
+    /**
+     * Получение таблицы дочерних объектов.
+     * Если этот объект не является таблицей, будет вызвано исключение.
+     *
+     * @return Неизменяемая таблица.
+     * @throws VariantValueError Если этот объект не является таблицей, будет вызвано исключение.
+     */
+    public PersistentVariantMap asMap() {
+        if (type != VariantType.MAP) throw new VariantValueError(type, "Map");
+        return (PersistentVariantMap) object;
+    }
+
+    /**
+     * Проверка наличия дочернего объекта по имени.
+     * Если этот объект не является таблицей, будет вызвано исключение.
+     *
+     * @param childName Имя дочернего объекта
+     * @return Наличие дочернего объекта.
+     * @throws VariantTypeError Если этот объект не является таблицей, будет вызвано исключение.
+     */
+    public boolean contains(String childName) {
+        if (type != VariantType.MAP) throw new VariantTypeError(type, VariantType.MAP);
+        return ((PersistentVariantMap) object).containsKey(childName);
+    }
+
+    /**
+     * Получение дочернего объекта по индексу.
+     * Если этот объект не является списком, будет вызвано исключение.
+     * Если индекс за границей списка, будет вызвано исключение.
+     *
+     * @param childIndex Индекс дочернего объекта
+     * @return Дочерний объект.
+     * @throws VariantTypeError Если этот объект не является списком, будет вызвано исключение.
+     * @throws VariantChildIndexError Если индекс за границей списка, будет вызвано исключение.
+     */
+    public PersistentVariant get(int childIndex) {
+        if (type != VariantType.LIST) throw new VariantTypeError(type, VariantType.LIST);
+        PersistentVariantList list = (PersistentVariantList) object;
+        if (childIndex < 0 || childIndex >= list.size) throw new VariantChildIndexError(childIndex, list.size);
+        return list.get(childIndex);
+    }
+
+    /**
+     * Получение дочернего объекта по имени.
+     * Если этот объект не является таблицей, будет вызвано исключение.
+     * Если в таблице нет объекта с указанным именем, будет вызвано исключение.
+     *
+     * @param childName Имя дочернего объекта
+     * @return Дочерний объект.
+     * @throws VariantTypeError Если этот объект не является таблицей, будет вызвано исключение.
+     * @throws VariantChildNameError Если в таблице нет объекта с указанным именем, будет вызвано исключение.
+     */
+    public PersistentVariant get(String childName) {
+        PersistentVariant child = getOrNull(childName);
+        if (child == null) throw new VariantChildNameError(childName);
+        return child;
+    }
+
+    /**
+     * Получение дочернего объекта по имени.
+     * Если этот объект не является таблицей, будет вызвано исключение.
+     * Если в таблице нет объекта с указанным именем, будет возвращено null.
+     *
+     * @param childName Имя дочернего объекта
+     * @return Дочерний объект или null.
+     * @throws VariantTypeError Если этот объект не является таблицей, будет вызвано исключение.
+     */
+    public @Nullable PersistentVariant getOrNull(String childName) {
+        if (type != VariantType.MAP) throw new VariantTypeError(type, VariantType.MAP);
+        return ((PersistentVariantMap) object).get(childName);
+    }
+
+    /**
+     * Получение вложенного объекта по пути из имён (String) и индексов (Integer).
+     * Если элемент пути не соответствует типу объекта или дочернего объекта нет, будет вызвано исключение.
+     *
+     * @param path Путь
+     * @return Вложенный объект.
+     * @throws VariantPathError Если элемент пути не является String или Integer, будет вызвано исключение.
+     * @throws VariantTypeError Если элемент пути не соответствует типу объекта, будет вызвано исключение.
+     * @throws VariantChildIndexError Если индекс за границей списка, будет вызвано исключение.
+     * @throws VariantChildNameError Если в таблице нет объекта с указанным именем, будет вызвано исключение.
+     */
+    public PersistentVariant getPath(Object... path) {
+        PersistentVariant current = this;
+        for (Object element : path) {
+            if (element instanceof String) {
+                current = current.get((String) element);
+            } else if (element instanceof Integer) {
+                current = current.get((int) (Integer) element);
+            } else {
+                throw new VariantPathError(element);
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Получение версии таблицы с установленным дочерним объектом.
+     * Если этот объект не является таблицей, будет вызвано исключение.
+     *
+     * @param childName Имя дочернего объекта
+     * @param value     Значение дочернего объекта
+     * @return Новая версия объекта.
+     * @throws VariantTypeError Если этот объект не является таблицей, будет вызвано исключение.
+     * @throws VariantSetValueError Если тип значения не поддерживается, будет вызвано исключение.
+     */
+    public PersistentVariant with(String childName, @Nullable Object value) {
+        if (type != VariantType.MAP) throw new VariantTypeError(type, VariantType.MAP);
+        PersistentVariantMap map = ((PersistentVariantMap) object).with(childName, of(value));
+        return map == object ? this : ofMap(map);
+    }
+
+    /**
+     * Получение версии списка с заменённым дочерним объектом.
+     * Если индекс равен длине списка, объект будет добавлен в конец списка.
+     * Если этот объект не является списком, будет вызвано исключение.
+     * Если индекс за границей списка, будет вызвано исключение.
+     *
+     * @param childIndex Индекс дочернего объекта
+     * @param value      Значение дочернего объекта
+     * @return Новая версия объекта.
+     * @throws VariantTypeError Если этот объект не является списком, будет вызвано исключение.
+     * @throws VariantChildIndexError Если индекс за границей списка, будет вызвано исключение.
+     * @throws VariantSetValueError Если тип значения не поддерживается, будет вызвано исключение.
+     */
+    public PersistentVariant with(int childIndex, @Nullable Object value) {
+        if (type != VariantType.LIST) throw new VariantTypeError(type, VariantType.LIST);
+        PersistentVariantList list = (PersistentVariantList) object;
+        if (childIndex < 0 || childIndex > list.size) throw new VariantChildIndexError(childIndex, list.size);
+        PersistentVariantList result = childIndex == list.size ? list.withAdded(of(value)) : list.with(childIndex, of(value));
+        return result == list ? this : ofList(result);
+    }
+
+    /**
+     * Получение версии списка с добавленным в конец дочерним объектом.
+     * Если этот объект не является списком, будет вызвано исключение.
+     *
+     * @param value Значение дочернего объекта
+     * @return Новая версия объекта.
+     * @throws VariantTypeError Если этот объект не является списком, будет вызвано исключение.
+     * @throws VariantSetValueError Если тип значения не поддерживается, будет вызвано исключение.
+     */
+    public PersistentVariant withAdded(@Nullable Object value) {
+        if (type != VariantType.LIST) throw new VariantTypeError(type, VariantType.LIST);
+        return ofList(((PersistentVariantList) object).withAdded(of(value)));
+    }
+
+    /**
+     * Получение версии таблицы без дочернего объекта.
+     * Если этот объект не является таблицей, будет вызвано исключение.
+     *
+     * @param childName Имя дочернего объекта
+     * @return Новая версия объекта или этот же объект, если дочернего объекта нет.
+     * @throws VariantTypeError Если этот объект не является таблицей, будет вызвано исключение.
+     */
+    public PersistentVariant without(String childName) {
+        if (type != VariantType.MAP) throw new VariantTypeError(type, VariantType.MAP);
+        PersistentVariantMap map = ((PersistentVariantMap) object).without(childName);
+        return map == object ? this : ofMap(map);
+    }
+
+    /**
+     * Получение версии списка без дочернего объекта.
+     * Если этот объект не является списком, будет вызвано исключение.
+     * Если индекс за границей списка, будет вызвано исключение.
+     *
+     * @param childIndex Индекс дочернего объекта
+     * @return Новая версия объекта.
+     * @throws VariantTypeError Если этот объект не является списком, будет вызвано исключение.
+     * @throws VariantChildIndexError Если индекс за границей списка, будет вызвано исключение.
+     */
+    public PersistentVariant without(int childIndex) {
+        if (type != VariantType.LIST) throw new VariantTypeError(type, VariantType.LIST);
+        PersistentVariantList list = (PersistentVariantList) object;
+        if (childIndex < 0 || childIndex >= list.size) throw new VariantChildIndexError(childIndex, list.size);
+        return ofList(list.without(childIndex));
+    }
+
+    /**
+     * Получение версии объекта с установленным по пути значением.
+     * Путь состоит из имён (String) и индексов (Integer); отсутствующие промежуточные таблицы и списки создаются.
+     * Все узлы вне пути разделяются с исходной версией.
+     *
+     * @param path  Путь
+     * @param value Значение
+     * @return Новая версия объекта.
+     * @throws VariantPathError Если элемент пути не является String или Integer, будет вызвано исключение.
+     * @throws VariantTypeError Если элемент пути не соответствует типу объекта, будет вызвано исключение.
+     * @throws VariantChildIndexError Если индекс за границей списка, будет вызвано исключение.
+     * @throws VariantSetValueError Если тип значения не поддерживается, будет вызвано исключение.
+     */
+    public PersistentVariant with(Object[] path, @Nullable Object value) {
+        return withPath(path, 0, of(value));
+    }
+
+    /**
+     * Установка значения по пути начиная с указанной глубины.
+     *
+     * @param path  Путь
+     * @param depth Глубина
+     * @param value Значение
+     * @return Новая версия объекта.
+     */
+    protected PersistentVariant withPath(Object[] path, int depth, PersistentVariant value) {
+        if (depth == path.length) return value;
+        Object element = path[depth];
+        if (element instanceof String) {
+            String childName = (String) element;
+            PersistentVariant child = getOrNull(childName);
+            if (child == null) child = emptyFor(path, depth + 1);
+            return with(childName, child.withPath(path, depth + 1, value));
+        }
+        if (element instanceof Integer) {
+            int childIndex = (Integer) element;
+            int size = type == VariantType.LIST ? ((PersistentVariantList) object).size : 0;
+            PersistentVariant child = childIndex == size ? emptyFor(path, depth + 1) : get(childIndex);
+            return with(childIndex, child.withPath(path, depth + 1, value));
+        }
+        throw new VariantPathError(element);
+    }
+
+    /**
+     * Создание пустого промежуточного объекта для следующего элемента пути.
+     *
+     * @param path  Путь
+     * @param depth Глубина следующего элемента
+     * @return Пустая таблица, пустой список или null.
+     */
+    protected static PersistentVariant emptyFor(Object[] path, int depth) {
+        if (depth == path.length) return NULL;
+        return path[depth] instanceof Integer ? EMPTY_LIST : EMPTY_MAP;
+    }
+
+    /**
+     * Получение хеша объекта.
+     *
+     * @return Хеш.
+     */
+    @Override
+    public int hashCode() {
+        if (type == VariantType.NULL) return 0;
+        if (type == VariantType.NUMBER) return precision == VariantNumberPrecision.DECIMAL ? VariantDecimal.hashCode(object) : Long.hashCode(longNumber);
+        return object.hashCode();
+    }
+
+    /**
+     * Сравнение объектов.
+     *
+     * @param obj Объект для сравнения
+     * @return Равенство объектов.
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) return true;
+        if (!(obj instanceof PersistentVariant)) return false;
+        PersistentVariant other = (PersistentVariant) obj;
+        if (type != other.type) return false;
+        if (type == VariantType.NULL) return true;
+        if (type == VariantType.NUMBER && (precision == VariantNumberPrecision.DECIMAL || other.precision == VariantNumberPrecision.DECIMAL)) {
+            return VariantDecimal.equal(precision, object, longNumber, doubleNumber, other.precision, other.object, other.longNumber, other.doubleNumber);
+        }
+        if (type == VariantType.NUMBER) return longNumber == other.longNumber && (doubleNumber == other.doubleNumber || Double.isNaN(doubleNumber) && Double.isNaN(other.doubleNumber));
+        if (type == VariantType.STRING && object instanceof String) return other.object.equals(object);
+        return object.equals(other.object);
+    }
+
+    /**
+     * Преобразование объекта в строку.
+     *
+     * @return Строка
+     */
+    @Override
+    public String toString() {
+        if (type == VariantType.NULL) return "null";
+        if (type == VariantType.NUMBER) {
+            if (precision == VariantNumberPrecision.DECIMAL) return object.toString();
+            if (precision == VariantNumberPrecision.LONG || longNumber == doubleNumber) return Long.toString(longNumber);
+            return Double.toString(doubleNumber);
+        }
+        if (type == VariantType.STRING) return "\"" + object + "\"";
+        return object.toString();
+    }
+}
@@ -0,0 +1,253 @@
+package ru.vladislav117.variant;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * Неизменяемый список дочерних объектов PersistentVariant.
+ * Реализован как префиксное дерево с ветвлением 32 и отдельным хвостом:
+ * чтение, замена и добавление в конец занимают O(log32 n), а новая версия списка
+ * разделяет с исходной все незатронутые узлы.
+ */
+public final class PersistentVariantList extends AbstractList<PersistentVariant> implements RandomAccess {
+    protected static final int BITS = 5;
+    protected static final int WIDTH = 1 << BITS;
+    protected static final int MASK = WIDTH - 1;
+    protected static final Object[] EMPTY_NODE = new Object[WIDTH];
+    protected static final Object[] EMPTY_TAIL = new Object[0];
+    /**
+     * Пустой список.
+     */
+    public static final PersistentVariantList EMPTY = new PersistentVariantList(0, BITS, EMPTY_NODE, EMPTY_TAIL);
+
+    protected final int size;
+    protected final int shift;
+    protected final Object[] root;
+    protected final Object[] tail;
+    protected int hash = 0;
+
+    /**
+     * Создание списка.
+     *
+     * @param size  Размер
+     * @param shift Сдвиг корня
+     * @param root  Корень дерева
+     * @param tail  Хвост
+     */
+    protected PersistentVariantList(int size, int shift, Object[] root, Object[] tail) {
+        this.size = size;
+        this.shift = shift;
+        this.root = root;
+        this.tail = tail;
+    }
+
+    /**
+     * Создание списка из массива элементов.
+     * Дерево строится снизу вверх за O(n).
+     *
+     * @param items Элементы
+     * @param count Количество элементов
+     * @return Список.
+     */
+    public static PersistentVariantList of(PersistentVariant[] items, int count) {
+        if (count == 0) return EMPTY;
+        int tailOffset = ((count - 1) >>> BITS) << BITS;
+        Object[] tail = Arrays.copyOfRange(items, tailOffset, count, Object[].class);
+        Object[][] nodes = new Object[tailOffset >>> BITS][];
+        for (int leaf = 0; leaf < nodes.length; leaf++) {
+            nodes[leaf] = Arrays.copyOfRange(items, leaf << BITS, (leaf + 1) << BITS, Object[].class);
+        }
+        int shift = BITS;
+        while (nodes.length > WIDTH) {
+            Object[][] parents = new Object[(nodes.length + MASK) >>> BITS][];
+            for (int parent = 0; parent < parents.length; parent++) {
+                parents[parent] = new Object[WIDTH];
+                int from = parent << BITS;
+                System.arraycopy(nodes, from, parents[parent], 0, Math.min(WIDTH, nodes.length - from));
+            }
+            nodes = parents;
+            shift += BITS;
+        }
+        Object[] root = new Object[WIDTH];
+        System.arraycopy(nodes, 0, root, 0, nodes.length);
+        return new PersistentVariantList(count, shift, root, tail);
+    }
+
+    /**
+     * Получение индекса первого элемента хвоста.
+     *
+     * @return Индекс первого элемента хвоста.
+     */
+    protected int tailOffset() {
+        return size == 0 ? 0 : ((size - 1) >>> BITS) << BITS;
+    }
+
+    /**
+     * Получение листа дерева, содержащего элемент.
+     *
+     * @param index Индекс элемента
+     * @return Лист или хвост.
+     */
+    protected Object[] leafFor(int index) {
+        if (index >= tailOffset()) return tail;
+        Object[] node = root;
+        for (int level = shift; level > 0; level -= BITS) {
+            node = (Object[]) node[(index >>> level) & MASK];
+        }
+        return node;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public PersistentVariant get(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        return (PersistentVariant) leafFor(index)[index & MASK];
+    }
+
+    /**
+     * Получение версии списка с заменённым элементом.
+     *
+     * @param index Индекс
+     * @param value Новый элемент
+     * @return Новая версия списка или этот же список, если элемент не изменился.
+     */
+    public PersistentVariantList with(int index, PersistentVariant value) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        if (get(index) == value) return this;
+        if (index >= tailOffset()) {
+            Object[] tail = this.tail.clone();
+            tail[index & MASK] = value;
+            return new PersistentVariantList(size, shift, root, tail);
+        }
+        return new PersistentVariantList(size, shift, replace(shift, root, index, value), tail);
+    }
+
+    /**
+     * Копирование пути от узла до листа с заменой элемента.
+     *
+     * @param level Уровень узла
+     * @param node  Узел
+     * @param index Индекс элемента
+     * @param value Новый элемент
+     * @return Копия узла.
+     */
+    protected static Object[] replace(int level, Object[] node, int index, PersistentVariant value) {
+        Object[] copy = node.clone();
+        if (level == 0) {
+            copy[index & MASK] = value;
+        } else {
+            int child = (index >>> level) & MASK;
+            copy[child] = replace(level - BITS, (Object[]) node[child], index, value);
+        }
+        return copy;
+    }
+
+    /**
+     * Получение версии списка с добавленным в конец элементом.
+     *
+     * @param value Элемент
+     * @return Новая версия списка.
+     */
+    public PersistentVariantList withAdded(PersistentVariant value) {
+        if (size - tailOffset() < WIDTH) {
+            Object[] tail = Arrays.copyOf(this.tail, this.tail.length + 1);
+            tail[this.tail.length] = value;
+            return new PersistentVariantList(size + 1, shift, root, tail);
+        }
+        Object[] root;
+        int shift = this.shift;
+        if ((size >>> BITS) > (1 << this.shift)) {
+            root = new Object[WIDTH];
+            root[0] = this.root;
+            root[1] = newPath(this.shift, this.tail);
+            shift += BITS;
+        } else {
+            root = pushTail(this.shift, this.root, this.tail);
+        }
+        return new PersistentVariantList(size + 1, shift, root, new Object[]{value});
+    }
+
+    /**
+     * Добавление заполненного хвоста в дерево с копированием пути.
+     *
+     * @param level  Уровень узла
+     * @param parent Узел
+     * @param leaf   Хвост
+     * @return Копия узла.
+     */
+    protected Object[] pushTail(int level, Object[] parent, Object[] leaf) {
+        int child = ((size - 1) >>> level) & MASK;
+        Object[] copy = parent.clone();
+        if (level == BITS) {
+            copy[child] = leaf;
+        } else {
+            Object[] existing = (Object[]) parent[child];
+            copy[child] = existing != null ? pushTail(level - BITS, existing, leaf) : newPath(level - BITS, leaf);
+        }
+        return copy;
+    }
+
+    /**
+     * Создание цепочки узлов до листа.
+     *
+     * @param level Уровень
+     * @param leaf  Лист
+     * @return Верхний узел цепочки.
+     */
+    protected static Object[] newPath(int level, Object[] leaf) {
+        if (level == 0) return leaf;
+        Object[] node = new Object[WIDTH];
+        node[0] = newPath(level - BITS, leaf);
+        return node;
+    }
+
+    /**
+     * Получение версии списка без элемента.
+     * Список пересобирается за O(n).
+     *
+     * @param index Индекс
+     * @return Новая версия списка.
+     */
+    public PersistentVariantList without(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        PersistentVariant[] items = new PersistentVariant[size - 1];
+        for (int current = 0, target = 0; current < size; current++) {
+            if (current != index) items[target++] = get(current);
+        }
+        return of(items, items.length);
+    }
+
+    /**
+     * Получение версии списка со вставленным элементом.
+     * Вставка в конец занимает O(log32 n), в остальных случаях список пересобирается за O(n).
+     *
+     * @param index Индекс
+     * @param value Элемент
+     * @return Новая версия списка.
+     */
+    public PersistentVariantList withInserted(int index, PersistentVariant value) {
+        if (index < 0 || index > size) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        if (index == size) return withAdded(value);
+        PersistentVariant[] items = new PersistentVariant[size + 1];
+        for (int current = 0, target = 0; current < size; current++) {
+            if (current == index) items[target++] = value;
+            items[target++] = get(current);
+        }
+        return of(items, items.length);
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = this.hash;
+        if (hash == 0) {
+            hash = super.hashCode();
+            this.hash = hash;
+        }
+        return hash;
+    }
+}
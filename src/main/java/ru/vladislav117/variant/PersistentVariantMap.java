@@ -0,0 +1,458 @@
+package ru.vladislav117.variant;
+
+import java.util.*;
+import java.util.function.BiConsumer;
+
+/**
+ * Неизменяемая таблица дочерних объектов PersistentVariant.
+ * Реализована как HAMT (hash array mapped trie) с ветвлением 32:
+ * чтение, добавление и удаление занимают O(log32 n), а новая версия таблицы
+ * разделяет с исходной все незатронутые узлы.
+ * Порядок обхода определяется хешами имён.
+ */
+public final class PersistentVariantMap extends AbstractMap<String, PersistentVariant> {
+    protected static final int BITS = 5;
+    protected static final int MASK = (1 << BITS) - 1;
+    /**
+     * Пустая таблица.
+     */
+    public static final PersistentVariantMap EMPTY = new PersistentVariantMap(new Node(0, new Object[0]), 0);
+
+    protected final Node root;
+    protected final int size;
+    protected Set<Map.Entry<String, PersistentVariant>> entrySet = null;
+    protected int hash = 0;
+
+    /**
+     * Создание таблицы.
+     *
+     * @param root Корневой узел
+     * @param size Размер
+     */
+    protected PersistentVariantMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * Создание таблицы из массивов имён и значений.
+     * Дерево строится сразу целиком за O(n), без промежуточных версий; при повторе имени остаётся последнее значение.
+     *
+     * @param keys   Имена
+     * @param values Значения
+     * @param count  Количество пар
+     * @return Таблица.
+     */
+    public static PersistentVariantMap of(String[] keys, PersistentVariant[] values, int count) {
+        if (count == 0) return EMPTY;
+        int[] hashes = new int[count];
+        int[] order = new int[count];
+        for (int index = 0; index < count; index++) {
+            hashes[index] = keys[index].hashCode();
+            order[index] = index;
+        }
+        int[] size = {count};
+        Node root = build(keys, values, hashes, order, new int[count], 0, count, 0, size);
+        return new PersistentVariantMap(root, size[0]);
+    }
+
+    /**
+     * Построение узла из диапазона пар.
+     *
+     * @param keys   Имена
+     * @param values Значения
+     * @param hashes Хеши имён
+     * @param order  Порядок пар (переставляется)
+     * @param buffer Временный массив для перестановки
+     * @param from   Начало диапазона в order
+     * @param to     Конец диапазона в order
+     * @param shift  Сдвиг уровня
+     * @param size   Количество уникальных имён (уменьшается при повторах)
+     * @return Узел.
+     */
+    protected static Node build(String[] keys, PersistentVariant[] values, int[] hashes, int[] order, int[] buffer, int from, int to, int shift, int[] size) {
+        if (shift >= 32) {
+            Object[] array = new Object[2 * (to - from)];
+            int length = 0;
+            for (int position = from; position < to; position++) {
+                int pair = order[position];
+                int existing = 0;
+                while (existing < length && !keys[pair].equals(array[existing])) existing += 2;
+                if (existing < length) size[0]--;
+                array[existing] = keys[pair];
+                array[existing + 1] = values[pair];
+                if (existing == length) length += 2;
+            }
+            return new Node(0, length == array.length ? array : Arrays.copyOf(array, length));
+        }
+        int[] starts = new int[(1 << BITS) + 1];
+        for (int position = from; position < to; position++) {
+            starts[((hashes[order[position]] >>> shift) & MASK) + 1]++;
+        }
+        int bitmap = 0;
+        int groups = 0;
+        for (int fragment = 0; fragment < 1 << BITS; fragment++) {
+            if (starts[fragment + 1] != 0) {
+                bitmap |= 1 << fragment;
+                groups++;
+            }
+            starts[fragment + 1] += starts[fragment];
+        }
+        int[] next = Arrays.copyOf(starts, starts.length);
+        for (int position = from; position < to; position++) {
+            int pair = order[position];
+            buffer[from + next[(hashes[pair] >>> shift) & MASK]++] = pair;
+        }
+        System.arraycopy(buffer, from, order, from, to - from);
+        Object[] array = new Object[2 * groups];
+        int index = 0;
+        for (int fragment = 0; fragment < 1 << BITS; fragment++) {
+            int start = from + starts[fragment];
+            int end = from + starts[fragment + 1];
+            if (start == end) continue;
+            if (end - start == 1) {
+                array[index] = keys[order[start]];
+                array[index + 1] = values[order[start]];
+            } else {
+                Node child = build(keys, values, hashes, order, buffer, start, end, shift + BITS, size);
+                if (child.array.length == 2 && child.array[0] != null) {
+                    array[index] = child.array[0];
+                    array[index + 1] = child.array[1];
+                } else {
+                    array[index + 1] = child;
+                }
+            }
+            index += 2;
+        }
+        return new Node(bitmap, array);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof String && root.find((String) key, key.hashCode(), 0) != null;
+    }
+
+    @Override
+    public PersistentVariant get(Object key) {
+        if (!(key instanceof String)) return null;
+        return root.find((String) key, key.hashCode(), 0);
+    }
+
+    /**
+     * Получение версии таблицы с установленным значением.
+     *
+     * @param key   Имя
+     * @param value Значение
+     * @return Новая версия таблицы или эта же таблица, если значение не изменилось.
+     */
+    public PersistentVariantMap with(String key, PersistentVariant value) {
+        boolean[] added = new boolean[1];
+        Node root = this.root.with(key, key.hashCode(), 0, value, added);
+        if (root == this.root) return this;
+        return new PersistentVariantMap(root, added[0] ? size + 1 : size);
+    }
+
+    /**
+     * Получение версии таблицы без значения.
+     *
+     * @param key Имя
+     * @return Новая версия таблицы или эта же таблица, если имени в ней нет.
+     */
+    public PersistentVariantMap without(String key) {
+        Node root = this.root.without(key, key.hashCode(), 0);
+        if (root == this.root) return this;
+        if (root == null) return EMPTY;
+        return new PersistentVariantMap(root, size - 1);
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super String, ? super PersistentVariant> action) {
+        root.forEach(action);
+    }
+
+    @Override
+    public Set<Map.Entry<String, PersistentVariant>> entrySet() {
+        if (entrySet == null) entrySet = new EntrySet();
+        return entrySet;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = this.hash;
+        if (hash == 0) {
+            hash = super.hashCode();
+            this.hash = hash;
+        }
+        return hash;
+    }
+
+    /**
+     * Узел дерева.
+     * Массив содержит пары (имя, значение) и пары (null, дочерний узел).
+     * На глубине, где биты хеша закончились, узел хранит пары с совпадающими хешами без битовой маски.
+     */
+    protected static final class Node {
+        protected final int bitmap;
+        protected final Object[] array;
+
+        /**
+         * Создание узла.
+         *
+         * @param bitmap Битовая маска занятых позиций
+         * @param array  Пары
+         */
+        protected Node(int bitmap, Object[] array) {
+            this.bitmap = bitmap;
+            this.array = array;
+        }
+
+        /**
+         * Поиск значения.
+         *
+         * @param key   Имя
+         * @param hash  Хеш имени
+         * @param shift Сдвиг уровня
+         * @return Значение или null.
+         */
+        protected PersistentVariant find(String key, int hash, int shift) {
+            Node node = this;
+            while (shift < 32) {
+                int bit = 1 << ((hash >>> shift) & MASK);
+                if ((node.bitmap & bit) == 0) return null;
+                int index = 2 * Integer.bitCount(node.bitmap & (bit - 1));
+                Object candidate = node.array[index];
+                if (candidate != null) return key.equals(candidate) ? (PersistentVariant) node.array[index + 1] : null;
+                node = (Node) node.array[index + 1];
+                shift += BITS;
+            }
+            for (int index = 0; index < node.array.length; index += 2) {
+                if (key.equals(node.array[index])) return (PersistentVariant) node.array[index + 1];
+            }
+            return null;
+        }
+
+        /**
+         * Получение версии узла с установленным значением.
+         *
+         * @param key   Имя
+         * @param hash  Хеш имени
+         * @param shift Сдвиг уровня
+         * @param value Значение
+         * @param added Флаг добавления нового имени
+         * @return Новая версия узла или этот же узел.
+         */
+        protected Node with(String key, int hash, int shift, PersistentVariant value, boolean[] added) {
+            if (shift >= 32) {
+                for (int index = 0; index < array.length; index += 2) {
+                    if (key.equals(array[index])) {
+                        if (array[index + 1] == value) return this;
+                        Object[] copy = array.clone();
+                        copy[index + 1] = value;
+                        return new Node(0, copy);
+                    }
+                }
+                added[0] = true;
+                Object[] copy = Arrays.copyOf(array, array.length + 2);
+                copy[array.length] = key;
+                copy[array.length + 1] = value;
+                return new Node(0, copy);
+            }
+            int bit = 1 << ((hash >>> shift) & MASK);
+            int index = 2 * Integer.bitCount(bitmap & (bit - 1));
+            if ((bitmap & bit) == 0) {
+                added[0] = true;
+                Object[] copy = new Object[array.length + 2];
+                System.arraycopy(array, 0, copy, 0, index);
+                copy[index] = key;
+                copy[index + 1] = value;
+                System.arraycopy(array, index, copy, index + 2, array.length - index);
+                return new Node(bitmap | bit, copy);
+            }
+            Object existingKey = array[index];
+            Object existingValue = array[index + 1];
+            Object[] copy = array.clone();
+            if (existingKey == null) {
+                Node child = ((Node) existingValue).with(key, hash, shift + BITS, value, added);
+                if (child == existingValue) return this;
+                copy[index + 1] = child;
+            } else if (key.equals(existingKey)) {
+                if (existingValue == value) return this;
+                copy[index + 1] = value;
+            } else {
+                added[0] = true;
+                copy[index] = null;
+                copy[index + 1] = merge((String) existingKey, (PersistentVariant) existingValue, key, hash, value, shift + BITS);
+            }
+            return new Node(bitmap, copy);
+        }
+
+        /**
+         * Создание узла из двух пар с разными именами.
+         *
+         * @param firstKey    Первое имя
+         * @param firstValue  Первое значение
+         * @param secondKey   Второе имя
+         * @param secondHash  Хеш второго имени
+         * @param secondValue Второе значение
+         * @param shift       Сдвиг уровня
+         * @return Узел.
+         */
+        protected static Node merge(String firstKey, PersistentVariant firstValue, String secondKey, int secondHash, PersistentVariant secondValue, int shift) {
+            if (shift >= 32) return new Node(0, new Object[]{firstKey, firstValue, secondKey, secondValue});
+            int firstHash = firstKey.hashCode();
+            int firstFragment = (firstHash >>> shift) & MASK;
+            int secondFragment = (secondHash >>> shift) & MASK;
+            if (firstFragment == secondFragment) {
+                return new Node(1 << firstFragment, new Object[]{null, merge(firstKey, firstValue, secondKey, secondHash, secondValue, shift + BITS)});
+            }
+            int bitmap = (1 << firstFragment) | (1 << secondFragment);
+            if (firstFragment < secondFragment) return new Node(bitmap, new Object[]{firstKey, firstValue, secondKey, secondValue});
+            return new Node(bitmap, new Object[]{secondKey, secondValue, firstKey, firstValue});
+        }
+
+        /**
+         * Получение версии узла без значения.
+         *
+         * @param key   Имя
+         * @param hash  Хеш имени
+         * @param shift Сдвиг уровня
+         * @return Новая версия узла, этот же узел, если имени в нём нет, или null, если узел стал пустым.
+         */
+        protected Node without(String key, int hash, int shift) {
+            if (shift >= 32) {
+                for (int index = 0; index < array.length; index += 2) {
+                    if (key.equals(array[index])) return array.length == 2 ? null : new Node(0, removePair(index));
+                }
+                return this;
+            }
+            int bit = 1 << ((hash >>> shift) & MASK);
+            if ((bitmap & bit) == 0) return this;
+            int index = 2 * Integer.bitCount(bitmap & (bit - 1));
+            Object existingKey = array[index];
+            if (existingKey == null) {
+                Node child = ((Node) array[index + 1]).without(key, hash, shift + BITS);
+                if (child == array[index + 1]) return this;
+                if (child != null) {
+                    Object[] copy = array.clone();
+                    if (child.array.length == 2 && child.array[0] != null) {
+                        copy[index] = child.array[0];
+                        copy[index + 1] = child.array[1];
+                    } else {
+                        copy[index + 1] = child;
+                    }
+                    return new Node(bitmap, copy);
+                }
+            } else if (!key.equals(existingKey)) {
+                return this;
+            }
+            if (bitmap == bit) return null;
+            return new Node(bitmap ^ bit, removePair(index));
+        }
+
+        /**
+         * Копирование массива без пары.
+         *
+         * @param index Индекс имени пары
+         * @return Новый массив.
+         */
+        protected Object[] removePair(int index) {
+            Object[] copy = new Object[array.length - 2];
+            System.arraycopy(array, 0, copy, 0, index);
+            System.arraycopy(array, index + 2, copy, index, array.length - index - 2);
+            return copy;
+        }
+
+        /**
+         * Обход всех пар узла и его потомков.
+         *
+         * @param action Обработчик пары
+         */
+        protected void forEach(BiConsumer<? super String, ? super PersistentVariant> action) {
+            for (int index = 0; index < array.length; index += 2) {
+                if (array[index] == null) {
+                    ((Node) array[index + 1]).forEach(action);
+                } else {
+                    action.accept((String) array[index], (PersistentVariant) array[index + 1]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Набор элементов таблицы.
+     */
+    protected class EntrySet extends AbstractSet<Map.Entry<String, PersistentVariant>> {
+        @Override
+        public Iterator<Map.Entry<String, PersistentVariant>> iterator() {
+            return new EntryIterator(root);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    /**
+     * Итератор по элементам таблицы с явным стеком узлов.
+     */
+    protected static class EntryIterator implements Iterator<Map.Entry<String, PersistentVariant>> {
+        protected final Node[] nodes = new Node[8];
+        protected final int[] positions = new int[8];
+        protected int depth = 0;
+        protected Map.Entry<String, PersistentVariant> next = null;
+
+        /**
+         * Создание итератора.
+         *
+         * @param root Корневой узел
+         */
+        protected EntryIterator(Node root) {
+            nodes[0] = root;
+            advance();
+        }
+
+        /**
+         * Поиск следующей пары.
+         */
+        protected void advance() {
+            next = null;
+            while (depth >= 0) {
+                Node node = nodes[depth];
+                int position = positions[depth];
+                if (position >= node.array.length) {
+                    depth--;
+                    continue;
+                }
+                positions[depth] = position + 2;
+                Object key = node.array[position];
+                if (key == null) {
+                    depth++;
+                    nodes[depth] = (Node) node.array[position + 1];
+                    positions[depth] = 0;
+                    continue;
+                }
+                next = new AbstractMap.SimpleImmutableEntry<>((String) key, (PersistentVariant) node.array[position + 1]);
+                return;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Map.Entry<String, PersistentVariant> next() {
+            if (next == null) throw new NoSuchElementException();
+            Map.Entry<String, PersistentVariant> entry = next;
+            advance();
+            return entry;
+        }
+    }
+}
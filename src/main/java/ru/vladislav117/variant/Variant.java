@@ -4,6 +4,12 @@ import com.google.gson.*;
 import org.jetbrains.annotations.Nullable;
 import ru.vladislav117.variant.error.*;
 
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.util.*;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
@@ -17,6 +23,11 @@ public class Variant {
     static Gson gson = new Gson();
     protected VariantType type = VariantType.NULL;
     protected Object object = null;
+    protected VariantNumberPrecision precision = VariantNumberPrecision.LONG;
+    protected long longNumber = 0;
+    protected double doubleNumber = 0;
+    protected Variant parent = null;
+    protected byte[] cachedJson = null;
 
     /**
      * Создание объекта.
@@ -41,37 +52,237 @@ public class Variant {
         if (json.isJsonPrimitive()) {
             JsonPrimitive primitive = json.getAsJsonPrimitive();
             if (primitive.isBoolean()) return new Variant(primitive.getAsBoolean());
-            if (primitive.isNumber()) return new Variant(primitive.getAsNumber().doubleValue());
+            if (primitive.isNumber()) return VariantDecimal.setNumber(new Variant(null), primitive.getAsNumber());
             if (primitive.isString()) return new Variant(primitive.getAsString());
         }
         if (json.isJsonArray()) {
             JsonArray array = json.getAsJsonArray();
-            ArrayList<Variant> list = new ArrayList<>();
+            VariantList list = new VariantList(array.size());
             for (JsonElement entry : array) {
-                list.add(fromJson(entry));
+                list.addOwned(fromJsonChild(entry));
             }
-            return new Variant(list);
+            return adoptList(list);
         }
         if (json.isJsonObject()) {
             JsonObject object = json.getAsJsonObject();
-            HashMap<String, Variant> map = new HashMap<>();
+            VariantMap map = new VariantMap(object.size());
             for (Map.Entry<String, JsonElement> entry : object.entrySet()) {
-                map.put(entry.getKey(), fromJson(entry.getValue()));
+                map.put(entry.getKey(), fromJsonChild(entry.getValue()));
             }
-            return new Variant(map);
+            return adoptMap(map);
         }
         return new Variant(null);
     }
 
+    /**
+     * Создание дочернего объекта из json-элемента.
+     * Для null, логических значений и пустой строки возвращаются общие экземпляры.
+     *
+     * @param json Json-элемент
+     * @return Дочерний объект из json-элемента
+     * @see CanonicalVariant
+     */
+    protected static Variant fromJsonChild(JsonElement json) {
+        if (json.isJsonNull()) return CanonicalVariant.ofNull();
+        if (json.isJsonPrimitive()) {
+            JsonPrimitive primitive = json.getAsJsonPrimitive();
+            if (primitive.isBoolean()) return CanonicalVariant.ofBoolean(primitive.getAsBoolean());
+            if (primitive.isString()) return CanonicalVariant.of(primitive.getAsString());
+        }
+        return fromJson(json);
+    }
+
+    /**
+     * Создание списка, который использует переданный список дочерних объектов без копирования.
+     * После вызова список принадлежит созданному объекту и не должен изменяться снаружи.
+     *
+     * @param list Список дочерних объектов
+     * @return Список.
+     */
+    protected static Variant adoptList(VariantList list) {
+        Variant variant = VariantArena.allocate();
+        variant.type = VariantType.LIST;
+        variant.object = list;
+        return variant;
+    }
+
+    /**
+     * Создание таблицы, которая использует переданную таблицу дочерних объектов без копирования.
+     * После вызова таблица принадлежит созданному объекту и не должна изменяться снаружи.
+     *
+     * @param map Таблица дочерних объектов
+     * @return Таблица.
+     */
+    protected static Variant adoptMap(Map<String, Variant> map) {
+        Variant variant = VariantArena.allocate();
+        variant.type = VariantType.MAP;
+        variant.object = map;
+        return variant;
+    }
+
     /**
      * Создание объекта из json-строки.
      *
      * @param json Json-строка
      * @return Объект из json-строки
-     * @see Variant#fromJson(JsonElement)
+     * @see VariantJsonParser
      */
     public static Variant fromJsonString(String json) {
-        return fromJson(gson.fromJson(json, JsonElement.class));
+        return VariantJsonParser.parse(json);
+    }
+
+    /**
+     * Создание объекта из json в кодировке UTF-8.
+     *
+     * @param json Json в кодировке UTF-8
+     * @return Объект из json
+     * @see VariantJsonParser
+     */
+    public static Variant fromJsonBytes(byte[] json) {
+        return VariantJsonParser.parse(json);
+    }
+
+    /**
+     * Создание объекта из потока с json в кодировке UTF-8.
+     * Поток читается до конца, но не закрывается.
+     *
+     * @param stream Поток с json в кодировке UTF-8
+     * @return Объект из json
+     * @see VariantJsonParser
+     */
+    public static Variant fromJsonStream(InputStream stream) {
+        return VariantJsonParser.parse(stream);
+    }
+
+    /**
+     * Создание объекта из канала с json в кодировке UTF-8.
+     * Канал читается до конца, но не закрывается.
+     *
+     * @param channel Канал с json в кодировке UTF-8
+     * @return Объект из json
+     * @see VariantJsonParser
+     */
+    public static Variant fromJsonChannel(ReadableByteChannel channel) {
+        return VariantJsonParser.parse(channel);
+    }
+
+    /**
+     * Отложенное создание объекта из json-строки.
+     * Таблицы и списки разбираются при первом обращении к ним, а неразобранные части записываются в json без изменений.
+     *
+     * @param json Json-строка
+     * @return Объект из json-строки
+     * @see VariantJsonParser#parseLazy(byte[], int, int)
+     */
+    public static Variant fromJsonStringLazy(String json) {
+        return VariantJsonParser.parseLazy(json);
+    }
+
+    /**
+     * Отложенное создание объекта из json в кодировке UTF-8.
+     * Таблицы и списки разбираются при первом обращении к ним, а неразобранные части записываются в json без изменений.
+     * Массив хранится без копирования и не должен изменяться, пока объект используется.
+     *
+     * @param json Json в кодировке UTF-8
+     * @return Объект из json
+     * @see VariantJsonParser#parseLazy(byte[], int, int)
+     */
+    public static Variant fromJsonBytesLazy(byte[] json) {
+        return VariantJsonParser.parseLazy(json);
+    }
+
+    /**
+     * Параллельное создание объекта из json-строки, корнем которой является большой список.
+     * Части списка разбираются в общем пуле ForkJoinPool.
+     *
+     * @param json Json-строка
+     * @return Объект из json-строки
+     * @see VariantParallelJsonParser
+     */
+    public static Variant fromJsonStringParallel(String json) {
+        return VariantParallelJsonParser.parse(json);
+    }
+
+    /**
+     * Параллельное создание объекта из json в кодировке UTF-8, корнем которого является большой список.
+     * Части списка разбираются в общем пуле ForkJoinPool.
+     *
+     * @param json Json в кодировке UTF-8
+     * @return Объект из json
+     * @see VariantParallelJsonParser
+     */
+    public static Variant fromJsonBytesParallel(byte[] json) {
+        return VariantParallelJsonParser.parse(json);
+    }
+
+    /**
+     * Создание объекта из CBOR.
+     *
+     * @param cbor CBOR
+     * @return Объект из CBOR
+     * @see VariantCborParser
+     */
+    public static Variant fromCborBytes(byte[] cbor) {
+        return VariantCborParser.parse(cbor);
+    }
+
+    /**
+     * Создание объекта из потока с CBOR.
+     * Поток читается до конца, но не закрывается.
+     *
+     * @param stream Поток с CBOR
+     * @return Объект из CBOR
+     * @see VariantCborParser
+     */
+    public static Variant fromCborStream(InputStream stream) {
+        return VariantCborParser.parse(stream);
+    }
+
+    /**
+     * Создание объекта из MessagePack.
+     * Строки ссылаются на массив без копирования, поэтому он не должен изменяться, пока объект используется.
+     *
+     * @param messagePack MessagePack
+     * @return Объект из MessagePack
+     * @see VariantMessagePackParser
+     */
+    public static Variant fromMessagePackBytes(byte[] messagePack) {
+        return VariantMessagePackParser.parse(messagePack);
+    }
+
+    /**
+     * Создание объекта из потока с MessagePack.
+     * Поток читается до конца, но не закрывается.
+     *
+     * @param stream Поток с MessagePack
+     * @return Объект из MessagePack
+     * @see VariantMessagePackParser
+     */
+    public static Variant fromMessagePackStream(InputStream stream) {
+        return VariantMessagePackParser.parse(stream);
+    }
+
+    /**
+     * Создание объекта из двоичного снимка.
+     *
+     * @param snapshot Снимок
+     * @return Объект из снимка
+     * @see VariantSnapshotParser
+     */
+    public static Variant fromSnapshot(byte[] snapshot) {
+        return VariantSnapshotParser.parse(snapshot);
+    }
+
+    /**
+     * Создание объекта из потока с двоичным снимком.
+     * Поток читается до конца, но не закрывается.
+     *
+     * @param stream Поток со снимком
+     * @return Объект из снимка
+     * @see VariantSnapshotParser
+     */
+    public static Variant fromSnapshotStream(InputStream stream) {
+        return VariantSnapshotParser.parse(stream);
     }
 
     /**
@@ -80,6 +291,7 @@ public class Variant {
      * @return Тип объекта.
      */
     public VariantType getType() {
+        if (VariantArena.DEBUG && object == VariantArena.RELEASED) throw new VariantArenaError();
         return type;
     }
 
@@ -91,7 +303,8 @@ public class Variant {
      * @throws VariantTypeError Если этот объект не является строкой, списком или таблицей, будет вызвано исключение.
      */
     public int getSize() {
-        if (type == VariantType.STRING) return ((String) object).length();
+        if (VariantArena.DEBUG && object == VariantArena.RELEASED) throw new VariantArenaError();
+        if (type == VariantType.STRING) return ((CharSequence) object).length();
         if (type == VariantType.LIST) return ((List<?>) object).size();
         if (type == VariantType.MAP) return ((Map<?, ?>) object).size();
         throw new VariantTypeError(type, VariantType.STRING, VariantType.LIST, VariantType.MAP);
@@ -136,7 +349,7 @@ public class Variant {
     public boolean is(int childIndex, VariantType type) {
         if (type != VariantType.LIST) throw new VariantTypeError(type, VariantType.LIST);
         if (childIndex < 0 || childIndex >= ((List<?>) object).size()) throw new VariantChildIndexError(childIndex, ((List<?>) object).size());
-        return ((List<Variant>) object).get(childIndex).type == type;
+        return ((VariantList) object).peek(childIndex).type == type;
     }
 
     /**
@@ -154,7 +367,7 @@ public class Variant {
     public boolean is(String childName, VariantType type) {
         if (type != VariantType.MAP) throw new VariantTypeError(type, VariantType.MAP);
         if (!((Map<?, ?>) object).containsKey(childName)) throw new VariantChildNameError(childName);
-        return ((Map<String, Variant>) object).get(childName).type == type;
+        return ((VariantMap) object).peek(childName).type == type;
     }
 
     /**
@@ -233,6 +446,70 @@ public class Variant {
         return ((List<Variant>) object).get(childIndex);
     }
 
+    /**
+     * Получение дочернего объекта по индексу для чтения.
+     * Список примитивов не переводится на хранение объектов Variant, вместо этого возвращается копия значения.
+     * Если этот объект не является списком, будет вызвано исключение.
+     * Если индекс за границей списка, будет вызвано исключение.
+     *
+     * @param childIndex Индекс дочернего объекта
+     * @return Дочерний объект или копия его значения.
+     * @throws VariantTypeError Если этот объект не является списком, будет вызвано исключение.
+     * @throws VariantChildIndexError Если индекс за границей списка, будет вызвано исключение.
+     */
+    protected Variant peek(int childIndex) {
+        if (type != VariantType.LIST) throw new VariantTypeError(type, VariantType.LIST);
+        if (childIndex < 0 || childIndex >= ((List<?>) object).size()) throw new VariantChildIndexError(childIndex, ((List<?>) object).size());
+        return ((VariantList) object).peek(childIndex);
+    }
+
+    /**
+     * Получение дочернего объекта по индексу для чтения.
+     * Список примитивов не переводится на хранение объектов Variant, вместо этого возвращается копия значения.
+     * Если этот объект не является списком, будет вызвано исключение.
+     * Если индекс за границей списка, будет возвращено null.
+     *
+     * @param childIndex Индекс дочернего объекта
+     * @return Дочерний объект, копия его значения или null.
+     * @throws VariantTypeError Если этот объект не является списком, будет вызвано исключение.
+     */
+    protected @Nullable Variant peekOrNull(int childIndex) {
+        if (type != VariantType.LIST) throw new VariantTypeError(type, VariantType.LIST);
+        if (childIndex < 0 || childIndex >= ((List<?>) object).size()) return null;
+        return ((VariantList) object).peek(childIndex);
+    }
+
+    /**
+     * Получение дочернего объекта по имени для чтения.
+     * Общий неизменяемый экземпляр не заменяется изменяемой копией.
+     * Если этот объект не является таблицей, будет вызвано исключение.
+     * Если в таблице нет объекта с указанным именем, будет вызвано исключение.
+     *
+     * @param childName Имя дочернего объекта
+     * @return Дочерний объект или общий экземпляр.
+     * @throws VariantTypeError Если этот объект не является таблицей, будет вызвано исключение.
+     * @throws VariantChildIndexError Если в таблице нет объекта с указанным именем, будет вызвано исключение.
+     */
+    protected Variant peek(String childName) {
+        if (type != VariantType.MAP) throw new VariantTypeError(type, VariantType.MAP);
+        if (!((Map<?, ?>) object).containsKey(childName)) throw new VariantChildNameError(childName);
+        return ((VariantMap) object).peek(childName);
+    }
+
+    /**
+     * Получение дочернего объекта по имени для чтения.
+     * Общий неизменяемый экземпляр не заменяется изменяемой копией.
+     * Если этот объект не является таблицей, будет вызвано исключение.
+     *
+     * @param childName Имя дочернего объекта
+     * @return Дочерний объект, общий экземпляр или null.
+     * @throws VariantTypeError Если этот объект не является таблицей, будет вызвано исключение.
+     */
+    protected @Nullable Variant peekOrNull(String childName) {
+        if (type != VariantType.MAP) throw new VariantTypeError(type, VariantType.MAP);
+        return ((VariantMap) object).peek(childName);
+    }
+
     /**
      * Получение дочернего объекта по имени.
      * Если этот объект не является таблицей, будет вызвано исключение.
@@ -293,6 +570,7 @@ public class Variant {
      */
     @SuppressWarnings({"unchecked", "UnusedReturnValue"})
     public Variant set(Object value) {
+        modified();
         if (type == VariantType.LIST) ((List<?>) object).clear();
         if (type == VariantType.MAP) ((Map<?, ?>) object).clear();
         type = VariantType.NULL;
@@ -305,69 +583,132 @@ public class Variant {
             object = value;
             return this;
         }
-        if (value instanceof Byte) {
-            type = VariantType.NUMBER;
-            object = ((Byte) value).doubleValue();
-            return this;
-        }
-        if (value instanceof Short) {
-            type = VariantType.NUMBER;
-            object = ((Short) value).doubleValue();
-            return this;
-        }
-        if (value instanceof Integer) {
-            type = VariantType.NUMBER;
-            object = ((Integer) value).doubleValue();
-            return this;
-        }
-        if (value instanceof Long) {
-            type = VariantType.NUMBER;
-            object = ((Long) value).doubleValue();
-            return this;
-        }
-        if (value instanceof Float) {
-            type = VariantType.NUMBER;
-            object = ((Float) value).doubleValue();
-            return this;
-        }
-        if (value instanceof Double) {
-            type = VariantType.NUMBER;
-            object = value;
-            return this;
-        }
+        if (value instanceof Byte) return setLongNumber((Byte) value);
+        if (value instanceof Short) return setLongNumber((Short) value);
+        if (value instanceof Integer) return setLongNumber((Integer) value);
+        if (value instanceof Long) return setLongNumber((Long) value);
+        if (value instanceof Float) return setDoubleNumber((Float) value);
+        if (value instanceof Double) return setDoubleNumber((Double) value);
+        if (value instanceof Number) return VariantDecimal.setNumber(this, (Number) value);
         if (value instanceof Character) {
             type = VariantType.STRING;
             object = ((Character) value).toString();
             return this;
         }
-        if (value instanceof String) {
+        if (value instanceof String || value instanceof VariantUtf8String) {
             type = VariantType.STRING;
             object = value;
             return this;
         }
+        if (value instanceof VariantList) {
+            type = VariantType.LIST;
+            object = ((VariantList) value).copy();
+            return this;
+        }
         if (value instanceof List<?>) {
             type = VariantType.LIST;
-            object = new ArrayList<Variant>(((List<?>) value).size());
+            object = new VariantList(((List<?>) value).size());
             for (Object innerObject : ((List<?>) value)) {
-                ((List<Variant>) object).add(new Variant(innerObject));
+                ((VariantList) object).addOwned(CanonicalVariant.of(innerObject));
             }
             return this;
         }
+        if (value instanceof VariantMap) {
+            type = VariantType.MAP;
+            object = ((VariantMap) value).copy();
+            return this;
+        }
         if (value instanceof Map<?, ?>) {
             type = VariantType.MAP;
-            object = new HashMap<String, Variant>(((Map<?, ?>) value).size());
+            object = new VariantMap(((Map<?, ?>) value).size());
             for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
-                ((Map<String, Variant>) object).put(entry.getKey().toString(), new Variant(entry.getValue()));
+                ((Map<String, Variant>) object).put(entry.getKey().toString(), CanonicalVariant.of(entry.getValue()));
             }
             return this;
         }
+        if (value instanceof PersistentVariant) {
+            Variant variant = ((PersistentVariant) value).toVariant();
+            type = variant.type;
+            object = variant.object;
+            precision = variant.precision;
+            longNumber = variant.longNumber;
+            doubleNumber = variant.doubleNumber;
+            return this;
+        }
         if (value instanceof Variant) {
-            set(((Variant) value).object);
+            Variant variant = (Variant) value;
+            if (variant.type != VariantType.NUMBER) return set(variant.object);
+            type = VariantType.NUMBER;
+            object = variant.object;
+            precision = variant.precision;
+            longNumber = variant.longNumber;
+            doubleNumber = variant.doubleNumber;
             return this;
         }
         throw new VariantSetValueError(value);
     }
 
+    /**
+     * Установка целочисленного значения объекта без упаковки.
+     *
+     * @param value Значение объекта
+     * @return Этот же объект.
+     */
+    @SuppressWarnings("UnusedReturnValue")
+    protected Variant setLongNumber(long value) {
+        modified();
+        if (type != VariantType.NUMBER) set(null);
+        type = VariantType.NUMBER;
+        object = null;
+        precision = VariantNumberPrecision.LONG;
+        longNumber = value;
+        doubleNumber = value;
+        return this;
+    }
+
+    /**
+     * Установка значения объекта с плавающей точкой без упаковки.
+     *
+     * @param value Значение объекта
+     * @return Этот же объект.
+     */
+    @SuppressWarnings("UnusedReturnValue")
+    protected Variant setDoubleNumber(double value) {
+        modified();
+        if (type != VariantType.NUMBER) set(null);
+        type = VariantType.NUMBER;
+        object = null;
+        precision = VariantNumberPrecision.DOUBLE;
+        longNumber = (long) value;
+        doubleNumber = value;
+        return this;
+    }
+
+    /**
+     * Отметка изменения объекта: сохранённый json этого объекта и всех его предков сбрасывается.
+     *
+     * @see Variant#toJsonBytesCached()
+     */
+    protected void modified() {
+        if (VariantArena.DEBUG && object == VariantArena.RELEASED) throw new VariantArenaError();
+        for (Variant node = this; node != null; node = node.parent) {
+            node.cachedJson = null;
+        }
+    }
+
+    /**
+     * Получение точности хранения числа.
+     * Если этот объект не является числом, будет вызвано исключение.
+     *
+     * @return Точность хранения числа.
+     * @throws VariantTypeError Если этот объект не является числом, будет вызвано исключение.
+     */
+    public VariantNumberPrecision getNumberPrecision() {
+        if (VariantArena.DEBUG && object == VariantArena.RELEASED) throw new VariantArenaError();
+        if (type != VariantType.NUMBER) throw new VariantTypeError(type, VariantType.NUMBER);
+        return precision;
+    }
+
     /**
      * Установка дочернего объекта по индексу.
      * Если тип устанавливаемого значения не поддерживается, будет вызвано исключение.
@@ -385,7 +726,7 @@ public class Variant {
     public Variant set(int childIndex, Object value) {
         if (type != VariantType.LIST) throw new VariantTypeError(type, VariantType.LIST);
         if (childIndex < 0 || childIndex >= ((List<?>) object).size()) throw new VariantChildIndexError(childIndex, ((List<?>) object).size());
-        ((List<Variant>) object).set(childIndex, new Variant(value));
+        ((VariantList) object).setOwned(childIndex, CanonicalVariant.of(value));
         return this;
     }
 
@@ -404,14 +745,14 @@ public class Variant {
     public Variant insert(int childIndex, Object value) {
         if (type != VariantType.LIST) throw new VariantTypeError(type, VariantType.LIST);
         if (childIndex < 0) {
-            ((List<Variant>) object).add(0, new Variant(value));
+            ((VariantList) object).addOwned(0, CanonicalVariant.of(value));
             return this;
         }
         if (childIndex >= ((List<?>) object).size()) {
-            ((List<Variant>) object).add(new Variant(value));
+            ((VariantList) object).addOwned(CanonicalVariant.of(value));
             return this;
         }
-        ((List<Variant>) object).add(childIndex, new Variant(value));
+        ((VariantList) object).addOwned(childIndex, CanonicalVariant.of(value));
         return this;
     }
 
@@ -426,7 +767,7 @@ public class Variant {
     @SuppressWarnings({"unchecked", "UnusedReturnValue"})
     public Variant add(Object value) {
         if (type != VariantType.LIST) throw new VariantTypeError(type, VariantType.LIST);
-        ((List<Variant>) object).add(new Variant(value));
+        ((VariantList) object).addOwned(CanonicalVariant.of(value));
         return this;
     }
 
@@ -441,7 +782,7 @@ public class Variant {
     @SuppressWarnings({"unchecked", "UnusedReturnValue"})
     public Variant addFirst(Object value) {
         if (type != VariantType.LIST) throw new VariantTypeError(type, VariantType.LIST);
-        ((List<Variant>) object).add(0, new Variant(value));
+        ((VariantList) object).addOwned(0, CanonicalVariant.of(value));
         return this;
     }
 
@@ -456,7 +797,7 @@ public class Variant {
     @SuppressWarnings({"unchecked", "UnusedReturnValue"})
     public Variant addLast(Object value) {
         if (type != VariantType.LIST) throw new VariantTypeError(type, VariantType.LIST);
-        ((List<Variant>) object).add(new Variant(value));
+        ((VariantList) object).addOwned(CanonicalVariant.of(value));
         return this;
     }
 
@@ -474,10 +815,113 @@ public class Variant {
     @SuppressWarnings({"unchecked", "UnusedReturnValue"})
     public Variant set(String childName, Object value) {
         if (type != VariantType.MAP) throw new VariantTypeError(type, VariantType.MAP);
-        ((Map<String, Variant>) object).put(childName, new Variant(value));
+        ((Map<String, Variant>) object).put(childName, CanonicalVariant.of(value));
+        return this;
+    }
+
+    /**
+     * Присоединение дочернего объекта в конец списка без копирования.
+     * Изменения присоединённого объекта будут видны в этом списке.
+     * Один объект можно присоединить в несколько мест, и тогда дерево становится ациклическим графом.
+     * Присоединение объекта к собственному потомку не проверяется и приводит к бесконечной рекурсии при обходе.
+     * Объект области, который переживёт этот объект, копируется методом {@link VariantArena#detach(Variant)}.
+     * Если этот объект не является списком, будет вызвано исключение.
+     * Если дочерний объект совпадает с этим объектом, будет вызвано исключение.
+     *
+     * @param child Дочерний объект
+     * @return Этот же объект.
+     * @throws VariantTypeError Если этот объект не является списком, будет вызвано исключение.
+     * @throws VariantAttachError Если дочерний объект совпадает с этим объектом, будет вызвано исключение.
+     */
+    @SuppressWarnings({"unchecked", "UnusedReturnValue"})
+    public Variant attach(Variant child) {
+        if (type != VariantType.LIST) throw new VariantTypeError(type, VariantType.LIST);
+        if (child == this) throw new VariantAttachError();
+        child = VariantArena.adopt(this, child);
+        ((List<Variant>) object).add(child);
+        return this;
+    }
+
+    /**
+     * Присоединение дочернего объекта по индексу без копирования.
+     * Изменения присоединённого объекта будут видны в этом списке.
+     * Один объект можно присоединить в несколько мест, и тогда дерево становится ациклическим графом.
+     * Присоединение объекта к собственному потомку не проверяется и приводит к бесконечной рекурсии при обходе.
+     * Объект области, который переживёт этот объект, копируется методом {@link VariantArena#detach(Variant)}.
+     * Если этот объект не является списком, будет вызвано исключение.
+     * Если индекс за границей списка, будет вызвано исключение.
+     * Если дочерний объект совпадает с этим объектом, будет вызвано исключение.
+     *
+     * @param childIndex Индекс дочернего объекта
+     * @param child Дочерний объект
+     * @return Этот же объект.
+     * @throws VariantTypeError Если этот объект не является списком, будет вызвано исключение.
+     * @throws VariantChildIndexError Если индекс за границей списка, будет вызвано исключение.
+     * @throws VariantAttachError Если дочерний объект совпадает с этим объектом, будет вызвано исключение.
+     */
+    @SuppressWarnings({"unchecked", "UnusedReturnValue"})
+    public Variant attach(int childIndex, Variant child) {
+        if (type != VariantType.LIST) throw new VariantTypeError(type, VariantType.LIST);
+        if (childIndex < 0 || childIndex >= ((List<?>) object).size()) throw new VariantChildIndexError(childIndex, ((List<?>) object).size());
+        if (child == this) throw new VariantAttachError();
+        child = VariantArena.adopt(this, child);
+        ((List<Variant>) object).set(childIndex, child);
+        return this;
+    }
+
+    /**
+     * Присоединение дочернего объекта по имени без копирования.
+     * Изменения присоединённого объекта будут видны в этой таблице.
+     * Один объект можно присоединить в несколько мест, и тогда дерево становится ациклическим графом.
+     * Присоединение объекта к собственному потомку не проверяется и приводит к бесконечной рекурсии при обходе.
+     * Объект области, который переживёт этот объект, копируется методом {@link VariantArena#detach(Variant)}.
+     * Если этот объект не является таблицей, будет вызвано исключение.
+     * Если дочерний объект совпадает с этим объектом, будет вызвано исключение.
+     *
+     * @param childName Имя дочернего объекта
+     * @param child Дочерний объект
+     * @return Этот же объект.
+     * @throws VariantTypeError Если этот объект не является таблицей, будет вызвано исключение.
+     * @throws VariantAttachError Если дочерний объект совпадает с этим объектом, будет вызвано исключение.
+     */
+    @SuppressWarnings({"unchecked", "UnusedReturnValue"})
+    public Variant attach(String childName, Variant child) {
+        if (type != VariantType.MAP) throw new VariantTypeError(type, VariantType.MAP);
+        if (child == this) throw new VariantAttachError();
+        child = VariantArena.adopt(this, child);
+        ((Map<String, Variant>) object).put(childName, child);
         return this;
     }
 
+    /**
+     * Создание полной копии объекта вместе со всеми дочерними объектами.
+     *
+     * @return Копия объекта.
+     */
+    public Variant deepCopy() {
+        return new Variant(this);
+    }
+
+    /**
+     * Создание неизменяемой копии объекта, которую можно разделять между потоками.
+     *
+     * @return Неизменяемая копия объекта.
+     * @see PersistentVariant
+     */
+    public PersistentVariant freeze() {
+        return PersistentVariant.of(this);
+    }
+
+    /**
+     * Кодирование объекта в документ вне кучи, предназначенный для чтения.
+     *
+     * @return Документ с копией объекта.
+     * @see VariantDocument
+     */
+    public VariantDocument toDocument() {
+        return VariantDocument.of(this);
+    }
+
     /**
      * Удаление дочернего объекта по индексу.
      * Если этот объект не является списком, будет вызвано исключение.
@@ -599,20 +1043,23 @@ public class Variant {
     public JsonElement toJson() {
         if (type == VariantType.NULL) return JsonNull.INSTANCE;
         if (type == VariantType.BOOLEAN) return new JsonPrimitive((Boolean) object);
-        if (type == VariantType.NUMBER) return new JsonPrimitive((Double) object);
-        if (type == VariantType.STRING) return new JsonPrimitive((String) object);
+        if (type == VariantType.NUMBER) {
+            if (precision == VariantNumberPrecision.LONG) return new JsonPrimitive(longNumber);
+            if (precision == VariantNumberPrecision.DECIMAL) return new JsonPrimitive(VariantDecimal.toBigDecimal(this));
+            return new JsonPrimitive(doubleNumber);
+        }
+        if (type == VariantType.STRING) return new JsonPrimitive(object.toString());
         if (type == VariantType.LIST) {
+            VariantList list = (VariantList) object;
             JsonArray array = new JsonArray();
-            for (Variant child : (List<Variant>) object) {
-                array.add(child.toJson());
+            for (int index = 0; index < list.size(); index++) {
+                array.add(list.peek(index).toJson());
             }
             return array;
         }
         if (type == VariantType.MAP) {
             JsonObject object = new JsonObject();
-            for (Map.Entry<String, Variant> entry : ((Map<String, Variant>) this.object).entrySet()) {
-                object.add(entry.getKey(), entry.getValue().toJson());
-            }
+            ((VariantMap) this.object).peekEach((childName, child) -> object.add(childName, child.toJson()));
             return object;
         }
         return null;
@@ -624,28 +1071,176 @@ public class Variant {
      * @return Json-строка
      */
     public String toJsonString() {
-        return toJson().toString();
+        return VariantJsonWriter.writeToString(this);
     }
 
     /**
-     * Преобразование объекта в строку.
+     * Преобразование объекта в json в кодировке UTF-8 с сохранением json записанных списков и таблиц.
+     * При следующей записи (любым способом) json списков и таблиц, не изменённых с тех пор, копируется из сохранённого.
      *
-     * @return Строка
+     * @return Json в кодировке UTF-8
+     * @see VariantJsonWriter#writeToBytesCached(Variant)
      */
-    @Override
-    @SuppressWarnings("unchecked")
-    public String toString() {
-        if (type == VariantType.NULL) return "null";
-        if (type == VariantType.BOOLEAN) return ((Boolean) object) ? "true" : "false";
-        if (type == VariantType.NUMBER) {
-            if (((Double) object).longValue() == (Double) object) return Long.toString(((Double) object).longValue());
-            return ((Double) object).toString();
+    public byte[] toJsonBytesCached() {
+        return VariantJsonWriter.writeToBytesCached(this);
+    }
+
+    /**
+     * Преобразование объекта в json-строку с сохранением json записанных списков и таблиц.
+     *
+     * @return Json-строка
+     * @see Variant#toJsonBytesCached()
+     */
+    public String toJsonStringCached() {
+        return VariantJsonWriter.writeToStringCached(this);
+    }
+
+    /**
+     * Удаление json, сохранённого для этого объекта и всех дочерних объектов.
+     *
+     * @return Этот же объект.
+     * @see Variant#toJsonBytesCached()
+     */
+    @SuppressWarnings("UnusedReturnValue")
+    public Variant clearJsonCache() {
+        VariantJsonWriter.clearCache(this);
+        return this;
+    }
+
+    /**
+     * Запись объекта в json в Appendable (например, StringBuilder или Writer).
+     *
+     * @param appendable Получатель json
+     * @return Этот же объект.
+     * @see VariantJsonWriter
+     */
+    @SuppressWarnings("UnusedReturnValue")
+    public Variant writeJson(Appendable appendable) {
+        VariantJsonWriter.write(this, appendable);
+        return this;
+    }
+
+    /**
+     * Запись объекта в json в поток в кодировке UTF-8.
+     * Поток не закрывается.
+     *
+     * @param stream Поток
+     * @return Этот же объект.
+     * @see VariantJsonWriter
+     */
+    @SuppressWarnings("UnusedReturnValue")
+    public Variant writeJson(OutputStream stream) {
+        VariantJsonWriter.write(this, stream);
+        return this;
+    }
+
+    /**
+     * Запись объекта в json в канал в кодировке UTF-8.
+     * Канал не закрывается.
+     *
+     * @param channel Канал
+     * @return Этот же объект.
+     * @see VariantJsonWriter
+     */
+    @SuppressWarnings("UnusedReturnValue")
+    public Variant writeJson(WritableByteChannel channel) {
+        VariantJsonWriter.write(this, channel);
+        return this;
+    }
+
+    /**
+     * Преобразование объекта в CBOR.
+     *
+     * @return CBOR
+     * @see VariantCborWriter
+     */
+    public byte[] toCborBytes() {
+        return VariantCborWriter.writeToByteArray(this);
+    }
+
+    /**
+     * Запись объекта в CBOR в поток.
+     * Поток не закрывается.
+     *
+     * @param stream Поток
+     * @return Этот же объект.
+     * @see VariantCborWriter
+     */
+    @SuppressWarnings("UnusedReturnValue")
+    public Variant writeCbor(OutputStream stream) {
+        VariantCborWriter.write(this, stream);
+        return this;
+    }
+
+    /**
+     * Преобразование объекта в MessagePack.
+     *
+     * @return MessagePack
+     * @see VariantMessagePackWriter
+     */
+    public byte[] toMessagePackBytes() {
+        return VariantMessagePackWriter.writeToByteArray(this);
+    }
+
+    /**
+     * Запись объекта в MessagePack в поток.
+     * Поток не закрывается.
+     *
+     * @param stream Поток
+     * @return Этот же объект.
+     * @see VariantMessagePackWriter
+     */
+    @SuppressWarnings("UnusedReturnValue")
+    public Variant writeMessagePack(OutputStream stream) {
+        VariantMessagePackWriter.write(this, stream);
+        return this;
+    }
+
+    /**
+     * Преобразование объекта в двоичный снимок со словарём имён таблиц.
+     *
+     * @return Снимок
+     * @see VariantSnapshotWriter
+     */
+    public byte[] toSnapshot() {
+        return VariantSnapshotWriter.writeToByteArray(this);
+    }
+
+    /**
+     * Запись двоичного снимка объекта в поток.
+     * Поток не закрывается.
+     *
+     * @param stream Поток
+     * @return Этот же объект.
+     * @see VariantSnapshotWriter
+     */
+    @SuppressWarnings("UnusedReturnValue")
+    public Variant writeSnapshot(OutputStream stream) {
+        VariantSnapshotWriter.write(this, stream);
+        return this;
+    }
+
+    /**
+     * Преобразование объекта в строку.
+     *
+     * @return Строка
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public String toString() {
+        if (type == VariantType.NULL) return "null";
+        if (type == VariantType.BOOLEAN) return ((Boolean) object) ? "true" : "false";
+        if (type == VariantType.NUMBER) {
+            if (precision == VariantNumberPrecision.DECIMAL) return object.toString();
+            if (precision == VariantNumberPrecision.LONG || longNumber == doubleNumber) return Long.toString(longNumber);
+            return Double.toString(doubleNumber);
         }
         if (type == VariantType.STRING) return "\"" + object + "\"";
         if (type == VariantType.LIST) {
+            VariantList list = (VariantList) object;
             StringBuilder string = new StringBuilder("[");
-            for (Variant child : (List<Variant>) object) {
-                string.append(child.toString()).append(", ");
+            for (int index = 0; index < list.size(); index++) {
+                string.append(list.peek(index).toString()).append(", ");
             }
             if (!((List<?>) object).isEmpty()) {
                 string.delete(string.length() - 2, string.length());
@@ -655,9 +1250,7 @@ public class Variant {
         }
         if (type == VariantType.MAP) {
             StringBuilder string = new StringBuilder("{");
-            for (Map.Entry<String, Variant> entry : ((Map<String, Variant>) this.object).entrySet()) {
-                string.append(entry.getKey()).append("=").append(entry.getValue().toString()).append(", ");
-            }
+            ((VariantMap) this.object).peekEach((childName, child) -> string.append(childName).append("=").append(child.toString()).append(", "));
             if (!((Map<?, ?>) object).isEmpty()) {
                 string.delete(string.length() - 2, string.length());
             }
@@ -674,6 +1267,10 @@ public class Variant {
      */
     @Override
     public int hashCode() {
+        if (VariantArena.DEBUG && object == VariantArena.RELEASED) throw new VariantArenaError();
+        if (type == VariantType.NULL) return 0;
+        if (type == VariantType.NUMBER && precision == VariantNumberPrecision.DECIMAL) return VariantDecimal.hashCode(object);
+        if (type == VariantType.NUMBER) return Long.hashCode(longNumber);
         return object.hashCode();
     }
 
@@ -686,31 +1283,27 @@ public class Variant {
     @Override
     @SuppressWarnings("unchecked")
     public boolean equals(Object obj) {
+        if (VariantArena.DEBUG && object == VariantArena.RELEASED) throw new VariantArenaError();
         if (!(obj instanceof Variant)) return false;
         Variant other = (Variant) obj;
         if (type != other.type) return false;
         if (type == VariantType.NULL) return true;
         if (type == VariantType.BOOLEAN) return object == other.object;
-        if (type == VariantType.NUMBER) return object == other.object;
-        if (type == VariantType.STRING) return object.equals(other.object);
+        if (type == VariantType.NUMBER && (precision == VariantNumberPrecision.DECIMAL || other.precision == VariantNumberPrecision.DECIMAL)) {
+            return VariantDecimal.equal(precision, object, longNumber, doubleNumber, other.precision, other.object, other.longNumber, other.doubleNumber);
+        }
+        if (type == VariantType.NUMBER) return longNumber == other.longNumber && (doubleNumber == other.doubleNumber || Double.isNaN(doubleNumber) && Double.isNaN(other.doubleNumber));
+        if (type == VariantType.STRING) return object instanceof String ? other.object.equals(object) : object.equals(other.object);
         if (type == VariantType.LIST) {
-            List<Variant> list = ((List<Variant>) object);
-            List<Variant> otherList = ((List<Variant>) other.object);
+            VariantList list = ((VariantList) object);
+            VariantList otherList = ((VariantList) other.object);
             if (list.size() != otherList.size()) return false;
             for (int index = 0; index < list.size(); index++) {
-                if (!list.get(index).equals(otherList.get(index))) return false;
-            }
-            return true;
-        }
-        if (type == VariantType.MAP) {
-            Map<String, Variant> map = ((Map<String, Variant>) object);
-            Map<String, Variant> otherMap = ((Map<String, Variant>) other.object);
-            if (map.size() != otherMap.size()) return false;
-            for (Map.Entry<String, Variant> entry : map.entrySet()) {
-                if (!entry.getValue().equals(otherMap.get(entry.getKey()))) return false;
+                if (!list.peek(index).equals(otherList.peek(index))) return false;
             }
             return true;
         }
+        if (type == VariantType.MAP) return object.equals(other.object);
         return false;
     }
 
@@ -721,7 +1314,7 @@ public class Variant {
      * @return Объект со значением типа Boolean.
      */
     public static Variant newBoolean(boolean value) {
-        return new Variant(value);
+        return VariantArena.allocate().set(value);
     }
 
     /**
@@ -730,7 +1323,7 @@ public class Variant {
      * @return Объект со значением типа Boolean по умолчанию.
      */
     public static Variant newBoolean() {
-        return new Variant(false);
+        return VariantArena.allocate().set(false);
     }
 
     /**
@@ -739,6 +1332,7 @@ public class Variant {
      * @return Является ли значение этого объекта Boolean.
      */
     public boolean isBoolean() {
+        if (VariantArena.DEBUG && object == VariantArena.RELEASED) throw new VariantArenaError();
         return type == VariantType.BOOLEAN;
     }
 
@@ -756,7 +1350,7 @@ public class Variant {
     public boolean isBoolean(int childIndex) {
         if (type != VariantType.LIST) throw new VariantTypeError(type, VariantType.LIST);
         if (childIndex < 0 || childIndex >= ((List<?>) object).size()) throw new VariantChildIndexError(childIndex, ((List<?>) object).size());
-        return ((List<Variant>) object).get(childIndex).isBoolean();
+        return ((VariantList) object).peek(childIndex).isBoolean();
     }
 
     /**
@@ -773,7 +1367,7 @@ public class Variant {
     public boolean isBoolean(String childName) {
         if (type != VariantType.MAP) throw new VariantTypeError(type, VariantType.MAP);
         if (!((Map<?, ?>) object).containsKey(childName)) throw new VariantChildNameError(childName);
-        return ((Map<String, Variant>) object).get(childName).isBoolean();
+        return ((VariantMap) object).peek(childName).isBoolean();
     }
 
     /**
@@ -827,7 +1421,9 @@ public class Variant {
      * @throws VariantValueError Если значение не может быть преобразовано к указанному типу, будет вызвано исключение.
      */
     public boolean getBoolean(int childIndex) {
-        return get(childIndex).asBoolean();
+        if (type != VariantType.LIST) throw new VariantTypeError(type, VariantType.LIST);
+        if (childIndex < 0 || childIndex >= ((List<?>) object).size()) throw new VariantChildIndexError(childIndex, ((List<?>) object).size());
+        return ((VariantList) object).getBoolean(childIndex);
     }
 
     /**
@@ -841,9 +1437,14 @@ public class Variant {
      * @throws VariantTypeError Если этот объект не является списком, будет вызвано исключение.
      */
     public @Nullable Boolean getBooleanOrNull(int childIndex) {
-        Variant child = getOrNull(childIndex);
-        if (child == null) return null;
-        return child.asBooleanOrNull();
+        if (type != VariantType.LIST) throw new VariantTypeError(type, VariantType.LIST);
+        if (childIndex < 0 || childIndex >= ((List<?>) object).size()) return null;
+        VariantList list = (VariantList) object;
+        if (list.getStorage() != VariantListStorage.GENERIC) {
+            if (list.getStorage() == VariantListStorage.BOOLEAN) return list.getBoolean(childIndex);
+            return null;
+        }
+        return list.peek(childIndex).asBooleanOrNull();
     }
 
     /**
@@ -858,9 +1459,14 @@ public class Variant {
      * @throws VariantTypeError Если этот объект не является списком, будет вызвано исключение.
      */
     public Boolean getBooleanOrDefault(int childIndex, Boolean defaultValue) {
-        Variant child = getOrNull(childIndex);
-        if (child == null) return defaultValue;
-        return child.asBooleanOrDefault(defaultValue);
+        if (type != VariantType.LIST) throw new VariantTypeError(type, VariantType.LIST);
+        if (childIndex < 0 || childIndex >= ((List<?>) object).size()) return defaultValue;
+        VariantList list = (VariantList) object;
+        if (list.getStorage() != VariantListStorage.GENERIC) {
+            if (list.getStorage() == VariantListStorage.BOOLEAN) return list.getBoolean(childIndex);
+            return defaultValue;
+        }
+        return list.peek(childIndex).asBooleanOrDefault(defaultValue);
     }
 
     /**
@@ -876,7 +1482,7 @@ public class Variant {
      * @throws VariantValueError Если значение не может быть преобразовано к указанному типу, будет вызвано исключение.
      */
     public boolean getBoolean(String childName) {
-        return get(childName).asBoolean();
+        return peek(childName).asBoolean();
     }
 
     /**
@@ -890,7 +1496,7 @@ public class Variant {
      * @throws VariantTypeError Если этот объект не является таблицей, будет вызвано исключение.
      */
     public @Nullable Boolean getBooleanOrNull(String childName) {
-        Variant child = getOrNull(childName);
+        Variant child = peekOrNull(childName);
         if (child == null) return null;
         return child.asBooleanOrNull();
     }
@@ -907,7 +1513,7 @@ public class Variant {
      * @throws VariantTypeError Если этот объект не является таблицей, будет вызвано исключение.
      */
     public Boolean getBooleanOrDefault(String childName, Boolean defaultValue) {
-        Variant child = getOrNull(childName);
+        Variant child = peekOrNull(childName);
         if (child == null) return defaultValue;
         return child.asBooleanOrDefault(defaultValue);
     }
@@ -964,7 +1570,8 @@ public class Variant {
      * @throws VariantTypeError Если этот объект не является списком, будет вызвано исключение.
      */
     public Variant addBoolean(boolean value) {
-        add(value);
+        if (type != VariantType.LIST) throw new VariantTypeError(type, VariantType.LIST);
+        ((VariantList) object).addBoolean(value);
         return this;
     }
 
@@ -990,7 +1597,8 @@ public class Variant {
      * @throws VariantTypeError Если этот объект не является списком, будет вызвано исключение.
      */
     public Variant addLastBoolean(boolean value) {
-        addLast(value);
+        if (type != VariantType.LIST) throw new VariantTypeError(type, VariantType.LIST);
+        ((VariantList) object).addBoolean(value);
         return this;
     }
 
@@ -1018,8 +1626,25 @@ public class Variant {
      */
     @SuppressWarnings("UnusedReturnValue")
     public Variant forEachBoolean(Consumer<Boolean> handler) {
-        forEach((child) -> { if (child.isBoolean()) handler.accept(child.asBoolean()); });
-        return this;
+        if (type == VariantType.LIST) {
+            VariantList list = (VariantList) object;
+            if (list.getStorage() != VariantListStorage.GENERIC) {
+                for (int childIndex = 0; childIndex < list.size(); childIndex++) {
+                    if (list.getStorage() == VariantListStorage.BOOLEAN) handler.accept(list.getBoolean(childIndex));
+                }
+                return this;
+            }
+            for (int childIndex = 0; childIndex < list.size(); childIndex++) {
+                Variant child = list.peek(childIndex);
+                if (child.isBoolean()) handler.accept(child.asBoolean());
+            }
+            return this;
+        }
+        if (type == VariantType.MAP) {
+            ((VariantMap) object).peekEach((childName, child) -> { if (child.isBoolean()) handler.accept(child.asBoolean()); });
+            return this;
+        }
+        throw new VariantTypeError(type, VariantType.LIST, VariantType.MAP);
     }
 
     /**
@@ -1032,7 +1657,18 @@ public class Variant {
      */
     @SuppressWarnings("UnusedReturnValue")
     public Variant forEachBooleanInList(BiConsumer<Integer, Boolean> handler) {
-        forEachInList((childIndex, child) -> { if (child.isBoolean()) handler.accept(childIndex, child.asBoolean()); });
+        if (type != VariantType.LIST) throw new VariantTypeError(type, VariantType.LIST);
+        VariantList list = (VariantList) object;
+        if (list.getStorage() != VariantListStorage.GENERIC) {
+            for (int childIndex = 0; childIndex < list.size(); childIndex++) {
+                if (list.getStorage() == VariantListStorage.BOOLEAN) handler.accept(childIndex, list.getBoolean(childIndex));
+            }
+            return this;
+        }
+        for (int childIndex = 0; childIndex < list.size(); childIndex++) {
+            Variant child = list.peek(childIndex);
+            if (child.isBoolean()) handler.accept(childIndex, child.asBoolean());
+        }
         return this;
     }
 
@@ -1046,7 +1682,8 @@ public class Variant {
      */
     @SuppressWarnings("UnusedReturnValue")
     public Variant forEachBooleanInMap(BiConsumer<String, Boolean> handler) {
-        forEachInMap((childName, child) -> { if (child.isBoolean()) handler.accept(childName, child.asBoolean()); });
+        if (type != VariantType.MAP) throw new VariantTypeError(type, VariantType.MAP);
+        ((VariantMap) object).peekEach((childName, child) -> { if (child.isBoolean()) handler.accept(childName, child.asBoolean()); });
         return this;
     }
 
@@ -1057,7 +1694,7 @@ public class Variant {
      * @return Объект со значением типа Byte.
      */
     public static Variant newByte(byte value) {
-        return new Variant(value);
+        return VariantArena.allocate().setLongNumber(value);
     }
 
     /**
@@ -1066,7 +1703,7 @@ public class Variant {
      * @return Объект со значением типа Byte по умолчанию.
      */
     public static Variant newByte() {
-        return new Variant(0);
+        return VariantArena.allocate().set(0);
     }
 
     /**
@@ -1075,7 +1712,8 @@ public class Variant {
      * @return Является ли значение этого объекта Byte.
      */
     public boolean isByte() {
-        return type == VariantType.NUMBER && ((Double) object).byteValue() == (Double) object;
+        if (VariantArena.DEBUG && object == VariantArena.RELEASED) throw new VariantArenaError();
+        return type == VariantType.NUMBER && (precision == VariantNumberPrecision.LONG || precision == VariantNumberPrecision.DOUBLE && longNumber == doubleNumber) && (byte) longNumber == longNumber;
     }
 
     /**
@@ -1092,7 +1730,7 @@ public class Variant {
     public boolean isByte(int childIndex) {
         if (type != VariantType.LIST) throw new VariantTypeError(type, VariantType.LIST);
         if (childIndex < 0 || childIndex >= ((List<?>) object).size()) throw new VariantChildIndexError(childIndex, ((List<?>) object).size());
-        return ((List<Variant>) object).get(childIndex).isByte();
+        return ((VariantList) object).peek(childIndex).isByte();
     }
 
     /**
@@ -1109,7 +1747,7 @@ public class Variant {
     public boolean isByte(String childName) {
         if (type != VariantType.MAP) throw new VariantTypeError(type, VariantType.MAP);
         if (!((Map<?, ?>) object).containsKey(childName)) throw new VariantChildNameError(childName);
-        return ((Map<String, Variant>) object).get(childName).isByte();
+        return ((VariantMap) object).peek(childName).isByte();
     }
 
     /**
@@ -1122,7 +1760,7 @@ public class Variant {
     @SuppressWarnings("unchecked")
     public byte asByte() {
         if (!isByte()) throw new VariantValueError(type, "byte");
-        return ((Double) object).byteValue();
+        return (byte) longNumber;
     }
 
     /**
@@ -1134,7 +1772,7 @@ public class Variant {
     @SuppressWarnings("unchecked")
     public @Nullable Byte asByteOrNull() {
         if (!isByte()) return null;
-        return ((Double) object).byteValue();
+        return (byte) longNumber;
     }
 
     /**
@@ -1147,7 +1785,7 @@ public class Variant {
     @SuppressWarnings("unchecked")
     public Byte asByteOrDefault(Byte defaultValue) {
         if (!isByte()) return defaultValue;
-        return ((Double) object).byteValue();
+        return (byte) longNumber;
     }
 
     /**
@@ -1163,7 +1801,11 @@ public class Variant {
      * @throws VariantValueError Если значение не может быть преобразовано к указанному типу, будет вызвано исключение.
      */
     public byte getByte(int childIndex) {
-        return get(childIndex).asByte();
+        if (type != VariantType.LIST) throw new VariantTypeError(type, VariantType.LIST);
+        if (childIndex < 0 || childIndex >= ((List<?>) object).size()) throw new VariantChildIndexError(childIndex, ((List<?>) object).size());
+        VariantList list = (VariantList) object;
+        if (list.getStorage() != VariantListStorage.GENERIC && list.isIntegral(childIndex, Byte.MIN_VALUE, Byte.MAX_VALUE)) return (byte) list.getLong(childIndex);
+        return list.peek(childIndex).asByte();
     }
 
     /**
@@ -1177,9 +1819,14 @@ public class Variant {
      * @throws VariantTypeError Если этот объект не является списком, будет вызвано исключение.
      */
     public @Nullable Byte getByteOrNull(int childIndex) {
-        Variant child = getOrNull(childIndex);
-        if (child == null) return null;
-        return child.asByteOrNull();
+        if (type != VariantType.LIST) throw new VariantTypeError(type, VariantType.LIST);
+        if (childIndex < 0 || childIndex >= ((List<?>) object).size()) return null;
+        VariantList list = (VariantList) object;
+        if (list.getStorage() != VariantListStorage.GENERIC) {
+            if (list.isIntegral(childIndex, Byte.MIN_VALUE, Byte.MAX_VALUE)) return (byte) list.getLong(childIndex);
+            return null;
+        }
+        return list.peek(childIndex).asByteOrNull();
     }
 
     /**
@@ -1194,9 +1841,14 @@ public class Variant {
      * @throws VariantTypeError Если этот объект не является списком, будет вызвано исключение.
      */
     public Byte getByteOrDefault(int childIndex, Byte defaultValue) {
-        Variant child = getOrNull(childIndex);
-        if (child == null) return defaultValue;
-        return child.asByteOrDefault(defaultValue);
+        if (type != VariantType.LIST) throw new VariantTypeError(type, VariantType.LIST);
+        if (childIndex < 0 || childIndex >= ((List<?>) object).size()) return defaultValue;
+        VariantList list = (VariantList) object;
+        if (list.getStorage() != VariantListStorage.GENERIC) {
+            if (list.isIntegral(childIndex, Byte.MIN_VALUE, Byte.MAX_VALUE)) return (byte) list.getLong(childIndex);
+            return defaultValue;
+        }
+        return list.peek(childIndex).asByteOrDefault(defaultValue);
     }
 
     /**
@@ -1212,7 +1864,7 @@ public class Variant {
      * @throws VariantValueError Если значение не может быть преобразовано к указанному типу, будет вызвано исключение.
      */
     public byte getByte(String childName) {
-        return get(childName).asByte();
+        return peek(childName).asByte();
     }
 
     /**
@@ -1226,7 +1878,7 @@ public class Variant {
      * @throws VariantTypeError Если этот объект не является таблицей, будет вызвано исключение.
      */
     public @Nullable Byte getByteOrNull(String childName) {
-        Variant child = getOrNull(childName);
+        Variant child = peekOrNull(childName);
         if (child == null) return null;
         return child.asByteOrNull();
     }
@@ -1243,7 +1895,7 @@ public class Variant {
      * @throws VariantTypeError Если этот объект не является таблицей, будет вызвано исключение.
      */
     public Byte getByteOrDefault(String childName, Byte defaultValue) {
-        Variant child = getOrNull(childName);
+        Variant child = peekOrNull(childName);
         if (child == null) return defaultValue;
         return child.asByteOrDefault(defaultValue);
     }
@@ -1255,7 +1907,7 @@ public class Variant {
      * @return Этот же объект.
      */
     public Variant setByte(byte value) {
-        set(value);
+        setLongNumber(value);
         return this;
     }
 
@@ -1300,7 +1952,8 @@ public class Variant {
      * @throws VariantTypeError Если этот объект не является списком, будет вызвано исключение.
      */
     public Variant addByte(byte value) {
-        add(value);
+        if (type != VariantType.LIST) throw new VariantTypeError(type, VariantType.LIST);
+        ((VariantList) object).addLong(value);
         return this;
     }
 
@@ -1326,7 +1979,8 @@ public class Variant {
      * @throws VariantTypeError Если этот объект не является списком, будет вызвано исключение.
      */
     public Variant addLastByte(byte value) {
-        addLast(value);
+        if (type != VariantType.LIST) throw new VariantTypeError(type, VariantType.LIST);
+        ((VariantList) object).addLong(value);
         return this;
     }
 
@@ -1354,8 +2008,25 @@ public class Variant {
      */
     @SuppressWarnings("UnusedReturnValue")
     public Variant forEachByte(Consumer<Byte> handler) {
-        forEach((child) -> { if (child.isByte()) handler.accept(child.asByte()); });
-        return this;
+        if (type == VariantType.LIST) {
+            VariantList list = (VariantList) object;
+            if (list.getStorage() != VariantListStorage.GENERIC) {
+                for (int childIndex = 0; childIndex < list.size(); childIndex++) {
+                    if (list.isIntegral(childIndex, Byte.MIN_VALUE, Byte.MAX_VALUE)) handler.accept((byte) list.getLong(childIndex));
+                }
+                return this;
+            }
+            for (int childIndex = 0; childIndex < list.size(); childIndex++) {
+                Variant child = list.peek(childIndex);
+                if (child.isByte()) handler.accept(child.asByte());
+            }
+            return this;
+        }
+        if (type == VariantType.MAP) {
+            ((VariantMap) object).peekEach((childName, child) -> { if (child.isByte()) handler.accept(child.asByte()); });
+            return this;
+        }
+        throw new VariantTypeError(type, VariantType.LIST, VariantType.MAP);
     }
 
     /**
@@ -1368,7 +2039,18 @@ public class Variant {
      */
     @SuppressWarnings("UnusedReturnValue")
     public Variant forEachByteInList(BiConsumer<Integer, Byte> handler) {
-        forEachInList((childIndex, child) -> { if (child.isByte()) handler.accept(childIndex, child.asByte()); });
+        if (type != VariantType.LIST) throw new VariantTypeError(type, VariantType.LIST);
+        VariantList list = (VariantList) object;
+        if (list.getStorage() != VariantListStorage.GENERIC) {
+            for (int childIndex = 0; childIndex < list.size(); childIndex++) {
+                if (list.isIntegral(childIndex, Byte.MIN_VALUE, Byte.MAX_VALUE)) handler.accept(childIndex, (byte) list.getLong(childIndex));
+            }
+            return this;
+        }
+        for (int childIndex = 0; childIndex < list.size(); childIndex++) {
+            Variant child = list.peek(childIndex);
+            if (child.isByte()) handler.accept(childIndex, child.asByte());
+        }
         return this;
     }
 
@@ -1382,7 +2064,8 @@ public class Variant {
      */
     @SuppressWarnings("UnusedReturnValue")
     public Variant forEachByteInMap(BiConsumer<String, Byte> handler) {
-        forEachInMap((childName, child) -> { if (child.isByte()) handler.accept(childName, child.asByte()); });
+        if (type != VariantType.MAP) throw new VariantTypeError(type, VariantType.MAP);
+        ((VariantMap) object).peekEach((childName, child) -> { if (child.isByte()) handler.accept(childName, child.asByte()); });
         return this;
     }
 
@@ -1393,7 +2076,7 @@ public class Variant {
      * @return Объект со значением типа Short.
      */
     public static Variant newShort(short value) {
-        return new Variant(value);
+        return VariantArena.allocate().setLongNumber(value);
     }
 
     /**
@@ -1402,7 +2085,7 @@ public class Variant {
      * @return Объект со значением типа Short по умолчанию.
      */
     public static Variant newShort() {
-        return new Variant(0);
+        return VariantArena.allocate().set(0);
     }
 
     /**
@@ -1411,7 +2094,8 @@ public class Variant {
      * @return Является ли значение этого объекта Short.
      */
     public boolean isShort() {
-        return type == VariantType.NUMBER && ((Double) object).shortValue() == (Double) object;
+        if (VariantArena.DEBUG && object == VariantArena.RELEASED) throw new VariantArenaError();
+        return type == VariantType.NUMBER && (precision == VariantNumberPrecision.LONG || precision == VariantNumberPrecision.DOUBLE && longNumber == doubleNumber) && (short) longNumber == longNumber;
     }
 
     /**
@@ -1428,7 +2112,7 @@ public class Variant {
     public boolean isShort(int childIndex) {
         if (type != VariantType.LIST) throw new VariantTypeError(type, VariantType.LIST);
         if (childIndex < 0 || childIndex >= ((List<?>) object).size()) throw new VariantChildIndexError(childIndex, ((List<?>) object).size());
-        return ((List<Variant>) object).get(childIndex).isShort();
+        return ((VariantList) object).peek(childIndex).isShort();
     }
 
     /**
@@ -1445,7 +2129,7 @@ public class Variant {
     public boolean isShort(String childName) {
         if (type != VariantType.MAP) throw new VariantTypeError(type, VariantType.MAP);
         if (!((Map<?, ?>) object).containsKey(childName)) throw new VariantChildNameError(childName);
-        return ((Map<String, Variant>) object).get(childName).isShort();
+        return ((VariantMap) object).peek(childName).isShort();
     }
 
     /**
@@ -1458,7 +2142,7 @@ public class Variant {
     @SuppressWarnings("unchecked")
     public short asShort() {
         if (!isShort()) throw new VariantValueError(type, "short");
-        return ((Double) object).shortValue();
+        return (short) longNumber;
     }
 
     /**
@@ -1470,7 +2154,7 @@ public class Variant {
     @SuppressWarnings("unchecked")
     public @Nullable Short asShortOrNull() {
         if (!isShort()) return null;
-        return ((Double) object).shortValue();
+        return (short) longNumber;
     }
 
     /**
@@ -1483,7 +2167,7 @@ public class Variant {
     @SuppressWarnings("unchecked")
     public Short asShortOrDefault(Short defaultValue) {
         if (!isShort()) return defaultValue;
-        return ((Double) object).shortValue();
+        return (short) longNumber;
     }
 
     /**
@@ -1499,7 +2183,11 @@ public class Variant {
      * @throws VariantValueError Если значение не может быть преобразовано к указанному типу, будет вызвано исключение.
      */
     public short getShort(int childIndex) {
-        return get(childIndex).asShort();
+        if (type != VariantType.LIST) throw new VariantTypeError(type, VariantType.LIST);
+        if (childIndex < 0 || childIndex >= ((List<?>) object).size()) throw new VariantChildIndexError(childIndex, ((List<?>) object).size());
+        VariantList list = (VariantList) object;
+        if (list.getStorage() != VariantListStorage.GENERIC && list.isIntegral(childIndex, Short.MIN_VALUE, Short.MAX_VALUE)) return (short) list.getLong(childIndex);
+        return list.peek(childIndex).asShort();
     }
 
     /**
@@ -1513,9 +2201,14 @@ public class Variant {
      * @throws VariantTypeError Если этот объект не является списком, будет вызвано исключение.
      */
     public @Nullable Short getShortOrNull(int childIndex) {
-        Variant child = getOrNull(childIndex);
-        if (child == null) return null;
-        return child.asShortOrNull();
+        if (type != VariantType.LIST) throw new VariantTypeError(type, VariantType.LIST);
+        if (childIndex < 0 || childIndex >= ((List<?>) object).size()) return null;
+        VariantList list = (VariantList) object;
+        if (list.getStorage() != VariantListStorage.GENERIC) {
+            if (list.isIntegral(childIndex, Short.MIN_VALUE, Short.MAX_VALUE)) return (short) list.getLong(childIndex);
+            return null;
+        }
+        return list.peek(childIndex).asShortOrNull();
     }
 
     /**
@@ -1530,9 +2223,14 @@ public class Variant {
      * @throws VariantTypeError Если этот объект не является списком, будет вызвано исключение.
      */
     public Short getShortOrDefault(int childIndex, Short defaultValue) {
-        Variant child = getOrNull(childIndex);
-        if (child == null) return defaultValue;
-        return child.asShortOrDefault(defaultValue);
+        if (type != VariantType.LIST) throw new VariantTypeError(type, VariantType.LIST);
+        if (childIndex < 0 || childIndex >= ((List<?>) object).size()) return defaultValue;
+        VariantList list = (VariantList) object;
+        if (list.getStorage() != VariantListStorage.GENERIC) {
+            if (list.isIntegral(childIndex, Short.MIN_VALUE, Short.MAX_VALUE)) return (short) list.getLong(childIndex);
+            return defaultValue;
+        }
+        return list.peek(childIndex).asShortOrDefault(defaultValue);
     }
 
     /**
@@ -1548,7 +2246,7 @@ public class Variant {
      * @throws VariantValueError Если значение не может быть преобразовано к указанному типу, будет вызвано исключение.
      */
     public short getShort(String childName) {
-        return get(childName).asShort();
+        return peek(childName).asShort();
     }
 
     /**
@@ -1562,7 +2260,7 @@ public class Variant {
      * @throws VariantTypeError Если этот объект не является таблицей, будет вызвано исключение.
      */
     public @Nullable Short getShortOrNull(String childName) {
-        Variant child = getOrNull(childName);
+        Variant child = peekOrNull(childName);
         if (child == null) return null;
         return child.asShortOrNull();
     }
@@ -1579,7 +2277,7 @@ public class Variant {
      * @throws VariantTypeError Если этот объект не является таблицей, будет вызвано исключение.
      */
     public Short getShortOrDefault(String childName, Short defaultValue) {
-        Variant child = getOrNull(childName);
+        Variant child = peekOrNull(childName);
         if (child == null) return defaultValue;
         return child.asShortOrDefault(defaultValue);
     }
@@ -1591,7 +2289,7 @@ public class Variant {
      * @return Этот же объект.
      */
     public Variant setShort(short value) {
-        set(value);
+        setLongNumber(value);
         return this;
     }
 
@@ -1636,7 +2334,8 @@ public class Variant {
      * @throws VariantTypeError Если этот объект не является списком, будет вызвано исключение.
      */
     public Variant addShort(short value) {
-        add(value);
+        if (type != VariantType.LIST) throw new VariantTypeError(type, VariantType.LIST);
+        ((VariantList) object).addLong(value);
         return this;
     }
 
@@ -1662,7 +2361,8 @@ public class Variant {
      * @throws VariantTypeError Если этот объект не является списком, будет вызвано исключение.
      */
     public Variant addLastShort(short value) {
-        addLast(value);
+        if (type != VariantType.LIST) throw new VariantTypeError(type, VariantType.LIST);
+        ((VariantList) object).addLong(value);
         return this;
     }
 
@@ -1690,8 +2390,25 @@ public class Variant {
      */
     @SuppressWarnings("UnusedReturnValue")
     public Variant forEachShort(Consumer<Short> handler) {
-        forEach((child) -> { if (child.isShort()) handler.accept(child.asShort()); });
-        return this;
+        if (type == VariantType.LIST) {
+            VariantList list = (VariantList) object;
+            if (list.getStorage() != VariantListStorage.GENERIC) {
+                for (int childIndex = 0; childIndex < list.size(); childIndex++) {
+                    if (list.isIntegral(childIndex, Short.MIN_VALUE, Short.MAX_VALUE)) handler.accept((short) list.getLong(childIndex));
+                }
+                return this;
+            }
+            for (int childIndex = 0; childIndex < list.size(); childIndex++) {
+                Variant child = list.peek(childIndex);
+                if (child.isShort()) handler.accept(child.asShort());
+            }
+            return this;
+        }
+        if (type == VariantType.MAP) {
+            ((VariantMap) object).peekEach((childName, child) -> { if (child.isShort()) handler.accept(child.asShort()); });
+            return this;
+        }
+        throw new VariantTypeError(type, VariantType.LIST, VariantType.MAP);
     }
 
     /**
@@ -1704,7 +2421,18 @@ public class Variant {
      */
     @SuppressWarnings("UnusedReturnValue")
     public Variant forEachShortInList(BiConsumer<Integer, Short> handler) {
-        forEachInList((childIndex, child) -> { if (child.isShort()) handler.accept(childIndex, child.asShort()); });
+        if (type != VariantType.LIST) throw new VariantTypeError(type, VariantType.LIST);
+        VariantList list = (VariantList) object;
+        if (list.getStorage() != VariantListStorage.GENERIC) {
+            for (int childIndex = 0; childIndex < list.size(); childIndex++) {
+                if (list.isIntegral(childIndex, Short.MIN_VALUE, Short.MAX_VALUE)) handler.accept(childIndex, (short) list.getLong(childIndex));
+            }
+            return this;
+        }
+        for (int childIndex = 0; childIndex < list.size(); childIndex++) {
+            Variant child = list.peek(childIndex);
+            if (child.isShort()) handler.accept(childIndex, child.asShort());
+        }
         return this;
     }
 
@@ -1718,7 +2446,8 @@ public class Variant {
      */
     @SuppressWarnings("UnusedReturnValue")
     public Variant forEachShortInMap(BiConsumer<String, Short> handler) {
-        forEachInMap((childName, child) -> { if (child.isShort()) handler.accept(childName, child.asShort()); });
+        if (type != VariantType.MAP) throw new VariantTypeError(type, VariantType.MAP);
+        ((VariantMap) object).peekEach((childName, child) -> { if (child.isShort()) handler.accept(childName, child.asShort()); });
         return this;
     }
 
@@ -1729,7 +2458,7 @@ public class Variant {
      * @return Объект со значением типа Integer.
      */
     public static Variant newInteger(int value) {
-        return new Variant(value);
+        return VariantArena.allocate().setLongNumber(value);
     }
 
     /**
@@ -1738,7 +2467,7 @@ public class Variant {
      * @return Объект со значением типа Integer по умолчанию.
      */
     public static Variant newInteger() {
-        return new Variant(0);
+        return VariantArena.allocate().set(0);
     }
 
     /**
@@ -1747,7 +2476,8 @@ public class Variant {
      * @return Является ли значение этого объекта Integer.
      */
     public boolean isInteger() {
-        return type == VariantType.NUMBER && ((Double) object).intValue() == (Double) object;
+        if (VariantArena.DEBUG && object == VariantArena.RELEASED) throw new VariantArenaError();
+        return type == VariantType.NUMBER && (precision == VariantNumberPrecision.LONG || precision == VariantNumberPrecision.DOUBLE && longNumber == doubleNumber) && (int) longNumber == longNumber;
     }
 
     /**
@@ -1764,7 +2494,7 @@ public class Variant {
     public boolean isInteger(int childIndex) {
         if (type != VariantType.LIST) throw new VariantTypeError(type, VariantType.LIST);
         if (childIndex < 0 || childIndex >= ((List<?>) object).size()) throw new VariantChildIndexError(childIndex, ((List<?>) object).size());
-        return ((List<Variant>) object).get(childIndex).isInteger();
+        return ((VariantList) object).peek(childIndex).isInteger();
     }
 
     /**
@@ -1781,7 +2511,7 @@ public class Variant {
     public boolean isInteger(String childName) {
         if (type != VariantType.MAP) throw new VariantTypeError(type, VariantType.MAP);
         if (!((Map<?, ?>) object).containsKey(childName)) throw new VariantChildNameError(childName);
-        return ((Map<String, Variant>) object).get(childName).isInteger();
+        return ((VariantMap) object).peek(childName).isInteger();
     }
 
     /**
@@ -1794,7 +2524,7 @@ public class Variant {
     @SuppressWarnings("unchecked")
     public int asInteger() {
         if (!isInteger()) throw new VariantValueError(type, "int");
-        return ((Double) object).intValue();
+        return (int) longNumber;
     }
 
     /**
@@ -1806,7 +2536,7 @@ public class Variant {
     @SuppressWarnings("unchecked")
     public @Nullable Integer asIntegerOrNull() {
         if (!isInteger()) return null;
-        return ((Double) object).intValue();
+        return (int) longNumber;
     }
 
     /**
@@ -1819,7 +2549,7 @@ public class Variant {
     @SuppressWarnings("unchecked")
     public Integer asIntegerOrDefault(Integer defaultValue) {
         if (!isInteger()) return defaultValue;
-        return ((Double) object).intValue();
+        return (int) longNumber;
     }
 
     /**
@@ -1835,7 +2565,11 @@ public class Variant {
      * @throws VariantValueError Если значение не может быть преобразовано к указанному типу, будет вызвано исключение.
      */
     public int getInteger(int childIndex) {
-        return get(childIndex).asInteger();
+        if (type != VariantType.LIST) throw new VariantTypeError(type, VariantType.LIST);
+        if (childIndex < 0 || childIndex >= ((List<?>) object).size()) throw new VariantChildIndexError(childIndex, ((List<?>) object).size());
+        VariantList list = (VariantList) object;
+        if (list.getStorage() != VariantListStorage.GENERIC && list.isIntegral(childIndex, Integer.MIN_VALUE, Integer.MAX_VALUE)) return (int) list.getLong(childIndex);
+        return list.peek(childIndex).asInteger();
     }
 
     /**
@@ -1849,9 +2583,14 @@ public class Variant {
      * @throws VariantTypeError Если этот объект не является списком, будет вызвано исключение.
      */
     public @Nullable Integer getIntegerOrNull(int childIndex) {
-        Variant child = getOrNull(childIndex);
-        if (child == null) return null;
-        return child.asIntegerOrNull();
+        if (type != VariantType.LIST) throw new VariantTypeError(type, VariantType.LIST);
+        if (childIndex < 0 || childIndex >= ((List<?>) object).size()) return null;
+        VariantList list = (VariantList) object;
+        if (list.getStorage() != VariantListStorage.GENERIC) {
+            if (list.isIntegral(childIndex, Integer.MIN_VALUE, Integer.MAX_VALUE)) return (int) list.getLong(childIndex);
+            return null;
+        }
+        return list.peek(childIndex).asIntegerOrNull();
     }
 
     /**
@@ -1866,9 +2605,14 @@ public class Variant {
      * @throws VariantTypeError Если этот объект не является списком, будет вызвано исключение.
      */
     public Integer getIntegerOrDefault(int childIndex, Integer defaultValue) {
-        Variant child = getOrNull(childIndex);
-        if (child == null) return defaultValue;
-        return child.asIntegerOrDefault(defaultValue);
+        if (type != VariantType.LIST) throw new VariantTypeError(type, VariantType.LIST);
+        if (childIndex < 0 || childIndex >= ((List<?>) object).size()) return defaultValue;
+        VariantList list = (VariantList) object;
+        if (list.getStorage() != VariantListStorage.GENERIC) {
+            if (list.isIntegral(childIndex, Integer.MIN_VALUE, Integer.MAX_VALUE)) return (int) list.getLong(childIndex);
+            return defaultValue;
+        }
+        return list.peek(childIndex).asIntegerOrDefault(defaultValue);
     }
 
     /**
@@ -1884,7 +2628,7 @@ public class Variant {
      * @throws VariantValueError Если значение не может быть преобразовано к указанному типу, будет вызвано исключение.
      */
     public int getInteger(String childName) {
-        return get(childName).asInteger();
+        return peek(childName).asInteger();
     }
 
     /**
@@ -1898,7 +2642,7 @@ public class Variant {
      * @throws VariantTypeError Если этот объект не является таблицей, будет вызвано исключение.
      */
     public @Nullable Integer getIntegerOrNull(String childName) {
-        Variant child = getOrNull(childName);
+        Variant child = peekOrNull(childName);
         if (child == null) return null;
         return child.asIntegerOrNull();
     }
@@ -1915,7 +2659,7 @@ public class Variant {
      * @throws VariantTypeError Если этот объект не является таблицей, будет вызвано исключение.
      */
     public Integer getIntegerOrDefault(String childName, Integer defaultValue) {
-        Variant child = getOrNull(childName);
+        Variant child = peekOrNull(childName);
         if (child == null) return defaultValue;
         return child.asIntegerOrDefault(defaultValue);
     }
@@ -1927,7 +2671,7 @@ public class Variant {
      * @return Этот же объект.
      */
     public Variant setInteger(int value) {
-        set(value);
+        setLongNumber(value);
         return this;
     }
 
@@ -1972,7 +2716,8 @@ public class Variant {
      * @throws VariantTypeError Если этот объект не является списком, будет вызвано исключение.
      */
     public Variant addInteger(int value) {
-        add(value);
+        if (type != VariantType.LIST) throw new VariantTypeError(type, VariantType.LIST);
+        ((VariantList) object).addLong(value);
         return this;
     }
 
@@ -1998,7 +2743,8 @@ public class Variant {
      * @throws VariantTypeError Если этот объект не является списком, будет вызвано исключение.
      */
     public Variant addLastInteger(int value) {
-        addLast(value);
+        if (type != VariantType.LIST) throw new VariantTypeError(type, VariantType.LIST);
+        ((VariantList) object).addLong(value);
         return this;
     }
 
@@ -2026,8 +2772,25 @@ public class Variant {
      */
     @SuppressWarnings("UnusedReturnValue")
     public Variant forEachInteger(Consumer<Integer> handler) {
-        forEach((child) -> { if (child.isInteger()) handler.accept(child.asInteger()); });
-        return this;
+        if (type == VariantType.LIST) {
+            VariantList list = (VariantList) object;
+            if (list.getStorage() != VariantListStorage.GENERIC) {
+                for (int childIndex = 0; childIndex < list.size(); childIndex++) {
+                    if (list.isIntegral(childIndex, Integer.MIN_VALUE, Integer.MAX_VALUE)) handler.accept((int) list.getLong(childIndex));
+                }
+                return this;
+            }
+            for (int childIndex = 0; childIndex < list.size(); childIndex++) {
+                Variant child = list.peek(childIndex);
+                if (child.isInteger()) handler.accept(child.asInteger());
+            }
+            return this;
+        }
+        if (type == VariantType.MAP) {
+            ((VariantMap) object).peekEach((childName, child) -> { if (child.isInteger()) handler.accept(child.asInteger()); });
+            return this;
+        }
+        throw new VariantTypeError(type, VariantType.LIST, VariantType.MAP);
     }
 
     /**
@@ -2040,7 +2803,18 @@ public class Variant {
      */
     @SuppressWarnings("UnusedReturnValue")
     public Variant forEachIntegerInList(BiConsumer<Integer, Integer> handler) {
-        forEachInList((childIndex, child) -> { if (child.isInteger()) handler.accept(childIndex, child.asInteger()); });
+        if (type != VariantType.LIST) throw new VariantTypeError(type, VariantType.LIST);
+        VariantList list = (VariantList) object;
+        if (list.getStorage() != VariantListStorage.GENERIC) {
+            for (int childIndex = 0; childIndex < list.size(); childIndex++) {
+                if (list.isIntegral(childIndex, Integer.MIN_VALUE, Integer.MAX_VALUE)) handler.accept(childIndex, (int) list.getLong(childIndex));
+            }
+            return this;
+        }
+        for (int childIndex = 0; childIndex < list.size(); childIndex++) {
+            Variant child = list.peek(childIndex);
+            if (child.isInteger()) handler.accept(childIndex, child.asInteger());
+        }
         return this;
     }
 
@@ -2054,7 +2828,8 @@ public class Variant {
      */
     @SuppressWarnings("UnusedReturnValue")
     public Variant forEachIntegerInMap(BiConsumer<String, Integer> handler) {
-        forEachInMap((childName, child) -> { if (child.isInteger()) handler.accept(childName, child.asInteger()); });
+        if (type != VariantType.MAP) throw new VariantTypeError(type, VariantType.MAP);
+        ((VariantMap) object).peekEach((childName, child) -> { if (child.isInteger()) handler.accept(childName, child.asInteger()); });
         return this;
     }
 
@@ -2065,7 +2840,7 @@ public class Variant {
      * @return Объект со значением типа Long.
      */
     public static Variant newLong(long value) {
-        return new Variant(value);
+        return VariantArena.allocate().setLongNumber(value);
     }
 
     /**
@@ -2074,7 +2849,7 @@ public class Variant {
      * @return Объект со значением типа Long по умолчанию.
      */
     public static Variant newLong() {
-        return new Variant(0);
+        return VariantArena.allocate().set(0);
     }
 
     /**
@@ -2083,7 +2858,8 @@ public class Variant {
      * @return Является ли значение этого объекта Long.
      */
     public boolean isLong() {
-        return type == VariantType.NUMBER && ((Double) object).longValue() == (Double) object;
+        if (VariantArena.DEBUG && object == VariantArena.RELEASED) throw new VariantArenaError();
+        return type == VariantType.NUMBER && (precision == VariantNumberPrecision.LONG || precision == VariantNumberPrecision.DOUBLE && longNumber == doubleNumber);
     }
 
     /**
@@ -2100,7 +2876,7 @@ public class Variant {
     public boolean isLong(int childIndex) {
         if (type != VariantType.LIST) throw new VariantTypeError(type, VariantType.LIST);
         if (childIndex < 0 || childIndex >= ((List<?>) object).size()) throw new VariantChildIndexError(childIndex, ((List<?>) object).size());
-        return ((List<Variant>) object).get(childIndex).isLong();
+        return ((VariantList) object).peek(childIndex).isLong();
     }
 
     /**
@@ -2117,7 +2893,7 @@ public class Variant {
     public boolean isLong(String childName) {
         if (type != VariantType.MAP) throw new VariantTypeError(type, VariantType.MAP);
         if (!((Map<?, ?>) object).containsKey(childName)) throw new VariantChildNameError(childName);
-        return ((Map<String, Variant>) object).get(childName).isLong();
+        return ((VariantMap) object).peek(childName).isLong();
     }
 
     /**
@@ -2130,7 +2906,7 @@ public class Variant {
     @SuppressWarnings("unchecked")
     public long asLong() {
         if (!isLong()) throw new VariantValueError(type, "long");
-        return ((Double) object).longValue();
+        return longNumber;
     }
 
     /**
@@ -2142,7 +2918,7 @@ public class Variant {
     @SuppressWarnings("unchecked")
     public @Nullable Long asLongOrNull() {
         if (!isLong()) return null;
-        return ((Double) object).longValue();
+        return longNumber;
     }
 
     /**
@@ -2155,7 +2931,7 @@ public class Variant {
     @SuppressWarnings("unchecked")
     public Long asLongOrDefault(Long defaultValue) {
         if (!isLong()) return defaultValue;
-        return ((Double) object).longValue();
+        return longNumber;
     }
 
     /**
@@ -2171,7 +2947,9 @@ public class Variant {
      * @throws VariantValueError Если значение не может быть преобразовано к указанному типу, будет вызвано исключение.
      */
     public long getLong(int childIndex) {
-        return get(childIndex).asLong();
+        if (type != VariantType.LIST) throw new VariantTypeError(type, VariantType.LIST);
+        if (childIndex < 0 || childIndex >= ((List<?>) object).size()) throw new VariantChildIndexError(childIndex, ((List<?>) object).size());
+        return ((VariantList) object).getLong(childIndex);
     }
 
     /**
@@ -2185,9 +2963,14 @@ public class Variant {
      * @throws VariantTypeError Если этот объект не является списком, будет вызвано исключение.
      */
     public @Nullable Long getLongOrNull(int childIndex) {
-        Variant child = getOrNull(childIndex);
-        if (child == null) return null;
-        return child.asLongOrNull();
+        if (type != VariantType.LIST) throw new VariantTypeError(type, VariantType.LIST);
+        if (childIndex < 0 || childIndex >= ((List<?>) object).size()) return null;
+        VariantList list = (VariantList) object;
+        if (list.getStorage() != VariantListStorage.GENERIC) {
+            if (list.isIntegral(childIndex, Long.MIN_VALUE, Long.MAX_VALUE)) return list.getLong(childIndex);
+            return null;
+        }
+        return list.peek(childIndex).asLongOrNull();
     }
 
     /**
@@ -2202,9 +2985,14 @@ public class Variant {
      * @throws VariantTypeError Если этот объект не является списком, будет вызвано исключение.
      */
     public Long getLongOrDefault(int childIndex, Long defaultValue) {
-        Variant child = getOrNull(childIndex);
-        if (child == null) return defaultValue;
-        return child.asLongOrDefault(defaultValue);
+        if (type != VariantType.LIST) throw new VariantTypeError(type, VariantType.LIST);
+        if (childIndex < 0 || childIndex >= ((List<?>) object).size()) return defaultValue;
+        VariantList list = (VariantList) object;
+        if (list.getStorage() != VariantListStorage.GENERIC) {
+            if (list.isIntegral(childIndex, Long.MIN_VALUE, Long.MAX_VALUE)) return list.getLong(childIndex);
+            return defaultValue;
+        }
+        return list.peek(childIndex).asLongOrDefault(defaultValue);
     }
 
     /**
@@ -2220,7 +3008,7 @@ public class Variant {
      * @throws VariantValueError Если значение не может быть преобразовано к указанному типу, будет вызвано исключение.
      */
     public long getLong(String childName) {
-        return get(childName).asLong();
+        return peek(childName).asLong();
     }
 
     /**
@@ -2234,7 +3022,7 @@ public class Variant {
      * @throws VariantTypeError Если этот объект не является таблицей, будет вызвано исключение.
      */
     public @Nullable Long getLongOrNull(String childName) {
-        Variant child = getOrNull(childName);
+        Variant child = peekOrNull(childName);
         if (child == null) return null;
         return child.asLongOrNull();
     }
@@ -2251,7 +3039,7 @@ public class Variant {
      * @throws VariantTypeError Если этот объект не является таблицей, будет вызвано исключение.
      */
     public Long getLongOrDefault(String childName, Long defaultValue) {
-        Variant child = getOrNull(childName);
+        Variant child = peekOrNull(childName);
         if (child == null) return defaultValue;
         return child.asLongOrDefault(defaultValue);
     }
@@ -2263,7 +3051,7 @@ public class Variant {
      * @return Этот же объект.
      */
     public Variant setLong(long value) {
-        set(value);
+        setLongNumber(value);
         return this;
     }
 
@@ -2308,7 +3096,8 @@ public class Variant {
      * @throws VariantTypeError Если этот объект не является списком, будет вызвано исключение.
      */
     public Variant addLong(long value) {
-        add(value);
+        if (type != VariantType.LIST) throw new VariantTypeError(type, VariantType.LIST);
+        ((VariantList) object).addLong(value);
         return this;
     }
 
@@ -2334,7 +3123,8 @@ public class Variant {
      * @throws VariantTypeError Если этот объект не является списком, будет вызвано исключение.
      */
     public Variant addLastLong(long value) {
-        addLast(value);
+        if (type != VariantType.LIST) throw new VariantTypeError(type, VariantType.LIST);
+        ((VariantList) object).addLong(value);
         return this;
     }
 
@@ -2362,8 +3152,25 @@ public class Variant {
      */
     @SuppressWarnings("UnusedReturnValue")
     public Variant forEachLong(Consumer<Long> handler) {
-        forEach((child) -> { if (child.isLong()) handler.accept(child.asLong()); });
-        return this;
+        if (type == VariantType.LIST) {
+            VariantList list = (VariantList) object;
+            if (list.getStorage() != VariantListStorage.GENERIC) {
+                for (int childIndex = 0; childIndex < list.size(); childIndex++) {
+                    if (list.isIntegral(childIndex, Long.MIN_VALUE, Long.MAX_VALUE)) handler.accept(list.getLong(childIndex));
+                }
+                return this;
+            }
+            for (int childIndex = 0; childIndex < list.size(); childIndex++) {
+                Variant child = list.peek(childIndex);
+                if (child.isLong()) handler.accept(child.asLong());
+            }
+            return this;
+        }
+        if (type == VariantType.MAP) {
+            ((VariantMap) object).peekEach((childName, child) -> { if (child.isLong()) handler.accept(child.asLong()); });
+            return this;
+        }
+        throw new VariantTypeError(type, VariantType.LIST, VariantType.MAP);
     }
 
     /**
@@ -2376,8 +3183,19 @@ public class Variant {
      */
     @SuppressWarnings("UnusedReturnValue")
     public Variant forEachLongInList(BiConsumer<Integer, Long> handler) {
-        forEachInList((childIndex, child) -> { if (child.isLong()) handler.accept(childIndex, child.asLong()); });
-        return this;
+        if (type != VariantType.LIST) throw new VariantTypeError(type, VariantType.LIST);
+        VariantList list = (VariantList) object;
+        if (list.getStorage() != VariantListStorage.GENERIC) {
+            for (int childIndex = 0; childIndex < list.size(); childIndex++) {
+                if (list.isIntegral(childIndex, Long.MIN_VALUE, Long.MAX_VALUE)) handler.accept(childIndex, list.getLong(childIndex));
+            }
+            return this;
+        }
+        for (int childIndex = 0; childIndex < list.size(); childIndex++) {
+            Variant child = list.peek(childIndex);
+            if (child.isLong()) handler.accept(childIndex, child.asLong());
+        }
+        return this;
     }
 
     /**
@@ -2390,7 +3208,8 @@ public class Variant {
      */
     @SuppressWarnings("UnusedReturnValue")
     public Variant forEachLongInMap(BiConsumer<String, Long> handler) {
-        forEachInMap((childName, child) -> { if (child.isLong()) handler.accept(childName, child.asLong()); });
+        if (type != VariantType.MAP) throw new VariantTypeError(type, VariantType.MAP);
+        ((VariantMap) object).peekEach((childName, child) -> { if (child.isLong()) handler.accept(childName, child.asLong()); });
         return this;
     }
 
@@ -2401,7 +3220,7 @@ public class Variant {
      * @return Объект со значением типа Float.
      */
     public static Variant newFloat(float value) {
-        return new Variant(value);
+        return VariantArena.allocate().setDoubleNumber(value);
     }
 
     /**
@@ -2410,7 +3229,7 @@ public class Variant {
      * @return Объект со значением типа Float по умолчанию.
      */
     public static Variant newFloat() {
-        return new Variant(0);
+        return VariantArena.allocate().set(0);
     }
 
     /**
@@ -2419,7 +3238,8 @@ public class Variant {
      * @return Является ли значение этого объекта Float.
      */
     public boolean isFloat() {
-        return type == VariantType.NUMBER && ((Double) object).floatValue() == (Double) object;
+        if (VariantArena.DEBUG && object == VariantArena.RELEASED) throw new VariantArenaError();
+        return type == VariantType.NUMBER && (float) doubleNumber == doubleNumber && (precision == VariantNumberPrecision.DOUBLE || precision == VariantNumberPrecision.LONG && (long) doubleNumber == longNumber);
     }
 
     /**
@@ -2436,7 +3256,7 @@ public class Variant {
     public boolean isFloat(int childIndex) {
         if (type != VariantType.LIST) throw new VariantTypeError(type, VariantType.LIST);
         if (childIndex < 0 || childIndex >= ((List<?>) object).size()) throw new VariantChildIndexError(childIndex, ((List<?>) object).size());
-        return ((List<Variant>) object).get(childIndex).isFloat();
+        return ((VariantList) object).peek(childIndex).isFloat();
     }
 
     /**
@@ -2453,7 +3273,7 @@ public class Variant {
     public boolean isFloat(String childName) {
         if (type != VariantType.MAP) throw new VariantTypeError(type, VariantType.MAP);
         if (!((Map<?, ?>) object).containsKey(childName)) throw new VariantChildNameError(childName);
-        return ((Map<String, Variant>) object).get(childName).isFloat();
+        return ((VariantMap) object).peek(childName).isFloat();
     }
 
     /**
@@ -2466,7 +3286,7 @@ public class Variant {
     @SuppressWarnings("unchecked")
     public float asFloat() {
         if (!isFloat()) throw new VariantValueError(type, "float");
-        return ((Double) object).floatValue();
+        return (float) doubleNumber;
     }
 
     /**
@@ -2478,7 +3298,7 @@ public class Variant {
     @SuppressWarnings("unchecked")
     public @Nullable Float asFloatOrNull() {
         if (!isFloat()) return null;
-        return ((Double) object).floatValue();
+        return (float) doubleNumber;
     }
 
     /**
@@ -2491,7 +3311,7 @@ public class Variant {
     @SuppressWarnings("unchecked")
     public Float asFloatOrDefault(Float defaultValue) {
         if (!isFloat()) return defaultValue;
-        return ((Double) object).floatValue();
+        return (float) doubleNumber;
     }
 
     /**
@@ -2507,7 +3327,11 @@ public class Variant {
      * @throws VariantValueError Если значение не может быть преобразовано к указанному типу, будет вызвано исключение.
      */
     public float getFloat(int childIndex) {
-        return get(childIndex).asFloat();
+        if (type != VariantType.LIST) throw new VariantTypeError(type, VariantType.LIST);
+        if (childIndex < 0 || childIndex >= ((List<?>) object).size()) throw new VariantChildIndexError(childIndex, ((List<?>) object).size());
+        VariantList list = (VariantList) object;
+        if (list.getStorage() != VariantListStorage.GENERIC && list.isFloat(childIndex)) return (float) list.getDouble(childIndex);
+        return list.peek(childIndex).asFloat();
     }
 
     /**
@@ -2521,9 +3345,14 @@ public class Variant {
      * @throws VariantTypeError Если этот объект не является списком, будет вызвано исключение.
      */
     public @Nullable Float getFloatOrNull(int childIndex) {
-        Variant child = getOrNull(childIndex);
-        if (child == null) return null;
-        return child.asFloatOrNull();
+        if (type != VariantType.LIST) throw new VariantTypeError(type, VariantType.LIST);
+        if (childIndex < 0 || childIndex >= ((List<?>) object).size()) return null;
+        VariantList list = (VariantList) object;
+        if (list.getStorage() != VariantListStorage.GENERIC) {
+            if (list.isFloat(childIndex)) return (float) list.getDouble(childIndex);
+            return null;
+        }
+        return list.peek(childIndex).asFloatOrNull();
     }
 
     /**
@@ -2538,9 +3367,14 @@ public class Variant {
      * @throws VariantTypeError Если этот объект не является списком, будет вызвано исключение.
      */
     public Float getFloatOrDefault(int childIndex, Float defaultValue) {
-        Variant child = getOrNull(childIndex);
-        if (child == null) return defaultValue;
-        return child.asFloatOrDefault(defaultValue);
+        if (type != VariantType.LIST) throw new VariantTypeError(type, VariantType.LIST);
+        if (childIndex < 0 || childIndex >= ((List<?>) object).size()) return defaultValue;
+        VariantList list = (VariantList) object;
+        if (list.getStorage() != VariantListStorage.GENERIC) {
+            if (list.isFloat(childIndex)) return (float) list.getDouble(childIndex);
+            return defaultValue;
+        }
+        return list.peek(childIndex).asFloatOrDefault(defaultValue);
     }
 
     /**
@@ -2556,7 +3390,7 @@ public class Variant {
      * @throws VariantValueError Если значение не может быть преобразовано к указанному типу, будет вызвано исключение.
      */
     public float getFloat(String childName) {
-        return get(childName).asFloat();
+        return peek(childName).asFloat();
     }
 
     /**
@@ -2569,127 +3403,889 @@ public class Variant {
      * @return Значение дочернего объекта с типом Float или null.
      * @throws VariantTypeError Если этот объект не является таблицей, будет вызвано исключение.
      */
-    public @Nullable Float getFloatOrNull(String childName) {
-        Variant child = getOrNull(childName);
+    public @Nullable Float getFloatOrNull(String childName) {
+        Variant child = peekOrNull(childName);
+        if (child == null) return null;
+        return child.asFloatOrNull();
+    }
+
+    /**
+     * Преобразование значения дочернего объекта к типу Float.
+     * Если этот объект не является таблицей, будет вызвано исключение.
+     * Если в таблице нет объекта с указанным именем, будет возвращено значение по умолчанию.
+     * Если значение не может быть преобразовано к указанному типу, будет возвращено значение по умолчанию.
+     *
+     * @param childName Имя дочернего объекта
+     * @param defaultValue Значение по умолчанию
+     * @return Значение дочернего объекта с типом Float или значение по умолчанию.
+     * @throws VariantTypeError Если этот объект не является таблицей, будет вызвано исключение.
+     */
+    public Float getFloatOrDefault(String childName, Float defaultValue) {
+        Variant child = peekOrNull(childName);
+        if (child == null) return defaultValue;
+        return child.asFloatOrDefault(defaultValue);
+    }
+
+    /**
+     * Установка значения объекта с типом Float.
+     *
+     * @param value Значение объекта с типом Float
+     * @return Этот же объект.
+     */
+    public Variant setFloat(float value) {
+        setDoubleNumber(value);
+        return this;
+    }
+
+    /**
+     * Установка дочернего объекта со значением с типом Float.
+     * Если этот объект не является списком, будет вызвано исключение.
+     * Если индекс за границей списка, будет вызвано исключение.
+     *
+     * @param childIndex Индекс дочернего объекта
+     * @param value Значение дочернего объекта с типом Float
+     * @return Этот же объект.
+     * @throws VariantTypeError Если этот объект не является списком, будет вызвано исключение.
+     * @throws VariantChildIndexError Если индекс за границей списка, будет вызвано исключение.
+     */
+    public Variant setFloat(int childIndex, float value) {
+        set(childIndex, value);
+        return this;
+    }
+
+    /**
+     * Вставка дочернего объекта со значением с типом Float.
+     * Если индекс меньше 0, объект будет добавлен в начало списка.
+     * Если индекс больше или равен длине списка, объект будет добавлен в конец списка.
+     * Если этот объект не является списком, будет вызвано исключение.
+     *
+     * @param childIndex Индекс дочернего объекта
+     * @param value Значение дочернего объекта с типом Float
+     * @return Этот же объект.
+     * @throws VariantTypeError Если этот объект не является списком, будет вызвано исключение.
+     */
+    public Variant insertFloat(int childIndex, float value) {
+        insert(childIndex, value);
+        return this;
+    }
+
+    /**
+     * Добавление дочернего объекта со значением с типом Float.
+     * Если этот объект не является списком, будет вызвано исключение.
+     *
+     * @param value Значение дочернего объекта с типом Float
+     * @return Этот же объект.
+     * @throws VariantTypeError Если этот объект не является списком, будет вызвано исключение.
+     */
+    public Variant addFloat(float value) {
+        if (type != VariantType.LIST) throw new VariantTypeError(type, VariantType.LIST);
+        ((VariantList) object).addDouble(value);
+        return this;
+    }
+
+    /**
+     * Добавление дочернего объекта со значением с типом Float в начало списка.
+     * Если этот объект не является списком, будет вызвано исключение.
+     *
+     * @param value Значение дочернего объекта с типом Float
+     * @return Этот же объект.
+     * @throws VariantTypeError Если этот объект не является списком, будет вызвано исключение.
+     */
+    public Variant addFirstFloat(float value) {
+        addFirst(value);
+        return this;
+    }
+
+    /**
+     * Добавление дочернего объекта со значением с типом Float в конец списка.
+     * Если этот объект не является списком, будет вызвано исключение.
+     *
+     * @param value Значение дочернего объекта с типом Float
+     * @return Этот же объект.
+     * @throws VariantTypeError Если этот объект не является списком, будет вызвано исключение.
+     */
+    public Variant addLastFloat(float value) {
+        if (type != VariantType.LIST) throw new VariantTypeError(type, VariantType.LIST);
+        ((VariantList) object).addDouble(value);
+        return this;
+    }
+
+    /**
+     * Установка значения дочернего объекта с типом Float.
+     * Если этот объект не является таблицей, будет вызвано исключение.
+     *
+     * @param childName Имя дочернего объекта
+     * @param value Значение дочернего объекта с типом Float
+     * @return Этот же объект.
+     * @throws VariantTypeError Если этот объект не является таблицей, будет вызвано исключение.
+     */
+    public Variant setFloat(String childName, float value) {
+        set(childName, value);
+        return this;
+    }
+
+    /**
+     * Обработка значения каждого дочернего объекта с типом Float.
+     * Если этот объект не является списком или таблицей, будет вызвано исключение.
+     *
+     * @param handler Обработчик значения дочернего объекта
+     * @return Этот же объект.
+     * @throws VariantTypeError Если этот объект не является списком или таблицей, будет вызвано исключение.
+     */
+    @SuppressWarnings("UnusedReturnValue")
+    public Variant forEachFloat(Consumer<Float> handler) {
+        if (type == VariantType.LIST) {
+            VariantList list = (VariantList) object;
+            if (list.getStorage() != VariantListStorage.GENERIC) {
+                for (int childIndex = 0; childIndex < list.size(); childIndex++) {
+                    if (list.isFloat(childIndex)) handler.accept((float) list.getDouble(childIndex));
+                }
+                return this;
+            }
+            for (int childIndex = 0; childIndex < list.size(); childIndex++) {
+                Variant child = list.peek(childIndex);
+                if (child.isFloat()) handler.accept(child.asFloat());
+            }
+            return this;
+        }
+        if (type == VariantType.MAP) {
+            ((VariantMap) object).peekEach((childName, child) -> { if (child.isFloat()) handler.accept(child.asFloat()); });
+            return this;
+        }
+        throw new VariantTypeError(type, VariantType.LIST, VariantType.MAP);
+    }
+
+    /**
+     * Обработка значения каждого дочернего объекта с типом Float в списке.
+     * Если этот объект не является списком, будет вызвано исключение.
+     *
+     * @param handler Обработчик значения дочернего объекта и его индекса
+     * @return Этот же объект.
+     * @throws VariantTypeError Если этот объект не является списком, будет вызвано исключение.
+     */
+    @SuppressWarnings("UnusedReturnValue")
+    public Variant forEachFloatInList(BiConsumer<Integer, Float> handler) {
+        if (type != VariantType.LIST) throw new VariantTypeError(type, VariantType.LIST);
+        VariantList list = (VariantList) object;
+        if (list.getStorage() != VariantListStorage.GENERIC) {
+            for (int childIndex = 0; childIndex < list.size(); childIndex++) {
+                if (list.isFloat(childIndex)) handler.accept(childIndex, (float) list.getDouble(childIndex));
+            }
+            return this;
+        }
+        for (int childIndex = 0; childIndex < list.size(); childIndex++) {
+            Variant child = list.peek(childIndex);
+            if (child.isFloat()) handler.accept(childIndex, child.asFloat());
+        }
+        return this;
+    }
+
+    /**
+     * Обработка значения каждого дочернего объекта с типом Float в таблице.
+     * Если этот объект не является таблицей, будет вызвано исключение.
+     *
+     * @param handler Обработчик значения дочернего объекта и его имени
+     * @return Этот же объект.
+     * @throws VariantTypeError Если этот объект не является таблицей, будет вызвано исключение.
+     */
+    @SuppressWarnings("UnusedReturnValue")
+    public Variant forEachFloatInMap(BiConsumer<String, Float> handler) {
+        if (type != VariantType.MAP) throw new VariantTypeError(type, VariantType.MAP);
+        ((VariantMap) object).peekEach((childName, child) -> { if (child.isFloat()) handler.accept(childName, child.asFloat()); });
+        return this;
+    }
+
+    /**
+     * Создание объекта со значением типа Double.
+     *
+     * @param value Значение объекта
+     * @return Объект со значением типа Double.
+     */
+    public static Variant newDouble(double value) {
+        return VariantArena.allocate().setDoubleNumber(value);
+    }
+
+    /**
+     * Создание объекта со значением типа Double по умолчанию.
+     *
+     * @return Объект со значением типа Double по умолчанию.
+     */
+    public static Variant newDouble() {
+        return VariantArena.allocate().set(0);
+    }
+
+    /**
+     * Проверка, является ли значение этого объекта Double.
+     *
+     * @return Является ли значение этого объекта Double.
+     */
+    public boolean isDouble() {
+        if (VariantArena.DEBUG && object == VariantArena.RELEASED) throw new VariantArenaError();
+        return type == VariantType.NUMBER;
+    }
+
+    /**
+     * Проверка типа значения дочернего объекта по индексу.
+     * Если этот объект не является списком, будет вызвано исключение.
+     * Если индекс за границей списка, будет вызвано исключение.
+     *
+     * @param childIndex Индекс дочернего объекта
+     * @return Соответствие типа значения.
+     * @throws VariantTypeError Если этот объект не является списком, будет вызвано исключение.
+     * @throws VariantChildIndexError Если индекс за границей списка, будет вызвано исключение.
+     */
+    @SuppressWarnings("unchecked")
+    public boolean isDouble(int childIndex) {
+        if (type != VariantType.LIST) throw new VariantTypeError(type, VariantType.LIST);
+        if (childIndex < 0 || childIndex >= ((List<?>) object).size()) throw new VariantChildIndexError(childIndex, ((List<?>) object).size());
+        return ((VariantList) object).peek(childIndex).isDouble();
+    }
+
+    /**
+     * Проверка типа значения дочернего объекта по имени.
+     * Если этот объект не является таблицей, будет вызвано исключение.
+     * Если в таблице нет объекта с указанным именем, будет вызвано исключение.
+     *
+     * @param childName Имя дочернего объекта
+     * @return Соответствие типа значения.
+     * @throws VariantTypeError Если этот объект не является таблицей, будет вызвано исключение.
+     * @throws VariantChildIndexError Если в таблице нет объекта с указанным именем, будет вызвано исключение.
+     */
+    @SuppressWarnings("unchecked")
+    public boolean isDouble(String childName) {
+        if (type != VariantType.MAP) throw new VariantTypeError(type, VariantType.MAP);
+        if (!((Map<?, ?>) object).containsKey(childName)) throw new VariantChildNameError(childName);
+        return ((VariantMap) object).peek(childName).isDouble();
+    }
+
+    /**
+     * Преобразование значения объекта к типу Double.
+     * Если значение не может быть преобразовано к указанному типу, будет вызвано исключение.
+     *
+     * @return Значение объекта с типом Double.
+     * @throws VariantValueError Если значение не может быть преобразовано к указанному типу, будет вызвано исключение.
+     */
+    @SuppressWarnings("unchecked")
+    public double asDouble() {
+        if (!isDouble()) throw new VariantValueError(type, "double");
+        return doubleNumber;
+    }
+
+    /**
+     * Преобразование значения объекта к типу Double.
+     * Если значение не может быть преобразовано к указанному типу, будет возвращено null.
+     *
+     * @return Значение объекта с типом Double или null.
+     */
+    @SuppressWarnings("unchecked")
+    public @Nullable Double asDoubleOrNull() {
+        if (!isDouble()) return null;
+        return doubleNumber;
+    }
+
+    /**
+     * Преобразование значения объекта к типу Double.
+     * Если значение не может быть преобразовано к указанному типу, будет возвращено значение по умолчанию.
+     *
+     * @param defaultValue Значение по умолчанию
+     * @return Значение объекта с типом Double или значение по умолчанию.
+     */
+    @SuppressWarnings("unchecked")
+    public Double asDoubleOrDefault(Double defaultValue) {
+        if (!isDouble()) return defaultValue;
+        return doubleNumber;
+    }
+
+    /**
+     * Преобразование значения дочернего объекта к типу Double.
+     * Если этот объект не является списком, будет вызвано исключение.
+     * Если индекс за границей списка, будет вызвано исключение.
+     * Если значение не может быть преобразовано к указанному типу, будет вызвано исключение.
+     *
+     * @param childIndex Индекс дочернего объекта
+     * @return Значение дочернего объекта с типом Double.
+     * @throws VariantTypeError Если этот объект не является списком, будет вызвано исключение.
+     * @throws VariantChildIndexError Если индекс за границей списка, будет вызвано исключение.
+     * @throws VariantValueError Если значение не может быть преобразовано к указанному типу, будет вызвано исключение.
+     */
+    public double getDouble(int childIndex) {
+        if (type != VariantType.LIST) throw new VariantTypeError(type, VariantType.LIST);
+        if (childIndex < 0 || childIndex >= ((List<?>) object).size()) throw new VariantChildIndexError(childIndex, ((List<?>) object).size());
+        return ((VariantList) object).getDouble(childIndex);
+    }
+
+    /**
+     * Преобразование значения дочернего объекта к типу Double.
+     * Если этот объект не является списком, будет вызвано исключение.
+     * Если индекс за границей списка, будет возвращено null.
+     * Если значение не может быть преобразовано к указанному типу, будет возвращено null.
+     *
+     * @param childIndex Индекс дочернего объекта
+     * @return Значение дочернего объекта с типом Double или null.
+     * @throws VariantTypeError Если этот объект не является списком, будет вызвано исключение.
+     */
+    public @Nullable Double getDoubleOrNull(int childIndex) {
+        if (type != VariantType.LIST) throw new VariantTypeError(type, VariantType.LIST);
+        if (childIndex < 0 || childIndex >= ((List<?>) object).size()) return null;
+        VariantList list = (VariantList) object;
+        if (list.getStorage() != VariantListStorage.GENERIC) {
+            if (list.getStorage() != VariantListStorage.BOOLEAN) return list.getDouble(childIndex);
+            return null;
+        }
+        return list.peek(childIndex).asDoubleOrNull();
+    }
+
+    /**
+     * Преобразование значения дочернего объекта к типу Double.
+     * Если этот объект не является списком, будет вызвано исключение.
+     * Если индекс за границей списка, будет возвращено значение по умолчанию.
+     * Если значение не может быть преобразовано к указанному типу, будет возвращено значение по умолчанию.
+     *
+     * @param childIndex Индекс дочернего объекта
+     * @param defaultValue Значение по умолчанию
+     * @return Значение дочернего объекта с типом Double или значение по умолчанию.
+     * @throws VariantTypeError Если этот объект не является списком, будет вызвано исключение.
+     */
+    public Double getDoubleOrDefault(int childIndex, Double defaultValue) {
+        if (type != VariantType.LIST) throw new VariantTypeError(type, VariantType.LIST);
+        if (childIndex < 0 || childIndex >= ((List<?>) object).size()) return defaultValue;
+        VariantList list = (VariantList) object;
+        if (list.getStorage() != VariantListStorage.GENERIC) {
+            if (list.getStorage() != VariantListStorage.BOOLEAN) return list.getDouble(childIndex);
+            return defaultValue;
+        }
+        return list.peek(childIndex).asDoubleOrDefault(defaultValue);
+    }
+
+    /**
+     * Преобразование значения дочернего объекта к типу Double.
+     * Если этот объект не является таблицей, будет вызвано исключение.
+     * Если в таблице нет объекта с указанным именем, будет вызвано исключение.
+     * Если значение не может быть преобразовано к указанному типу, будет вызвано исключение.
+     *
+     * @param childName Имя дочернего объекта
+     * @return Значение дочернего объекта с типом Double.
+     * @throws VariantTypeError Если этот объект не является таблицей, будет вызвано исключение.
+     * @throws VariantChildIndexError Если в таблице нет объекта с указанным именем, будет вызвано исключение.
+     * @throws VariantValueError Если значение не может быть преобразовано к указанному типу, будет вызвано исключение.
+     */
+    public double getDouble(String childName) {
+        return peek(childName).asDouble();
+    }
+
+    /**
+     * Преобразование значения дочернего объекта к типу Double.
+     * Если этот объект не является таблицей, будет вызвано исключение.
+     * Если в таблице нет объекта с указанным именем, будет возвращено null.
+     * Если значение не может быть преобразовано к указанному типу, будет возвращено null.
+     *
+     * @param childName Имя дочернего объекта
+     * @return Значение дочернего объекта с типом Double или null.
+     * @throws VariantTypeError Если этот объект не является таблицей, будет вызвано исключение.
+     */
+    public @Nullable Double getDoubleOrNull(String childName) {
+        Variant child = peekOrNull(childName);
+        if (child == null) return null;
+        return child.asDoubleOrNull();
+    }
+
+    /**
+     * Преобразование значения дочернего объекта к типу Double.
+     * Если этот объект не является таблицей, будет вызвано исключение.
+     * Если в таблице нет объекта с указанным именем, будет возвращено значение по умолчанию.
+     * Если значение не может быть преобразовано к указанному типу, будет возвращено значение по умолчанию.
+     *
+     * @param childName Имя дочернего объекта
+     * @param defaultValue Значение по умолчанию
+     * @return Значение дочернего объекта с типом Double или значение по умолчанию.
+     * @throws VariantTypeError Если этот объект не является таблицей, будет вызвано исключение.
+     */
+    public Double getDoubleOrDefault(String childName, Double defaultValue) {
+        Variant child = peekOrNull(childName);
+        if (child == null) return defaultValue;
+        return child.asDoubleOrDefault(defaultValue);
+    }
+
+    /**
+     * Установка значения объекта с типом Double.
+     *
+     * @param value Значение объекта с типом Double
+     * @return Этот же объект.
+     */
+    public Variant setDouble(double value) {
+        setDoubleNumber(value);
+        return this;
+    }
+
+    /**
+     * Установка дочернего объекта со значением с типом Double.
+     * Если этот объект не является списком, будет вызвано исключение.
+     * Если индекс за границей списка, будет вызвано исключение.
+     *
+     * @param childIndex Индекс дочернего объекта
+     * @param value Значение дочернего объекта с типом Double
+     * @return Этот же объект.
+     * @throws VariantTypeError Если этот объект не является списком, будет вызвано исключение.
+     * @throws VariantChildIndexError Если индекс за границей списка, будет вызвано исключение.
+     */
+    public Variant setDouble(int childIndex, double value) {
+        set(childIndex, value);
+        return this;
+    }
+
+    /**
+     * Вставка дочернего объекта со значением с типом Double.
+     * Если индекс меньше 0, объект будет добавлен в начало списка.
+     * Если индекс больше или равен длине списка, объект будет добавлен в конец списка.
+     * Если этот объект не является списком, будет вызвано исключение.
+     *
+     * @param childIndex Индекс дочернего объекта
+     * @param value Значение дочернего объекта с типом Double
+     * @return Этот же объект.
+     * @throws VariantTypeError Если этот объект не является списком, будет вызвано исключение.
+     */
+    public Variant insertDouble(int childIndex, double value) {
+        insert(childIndex, value);
+        return this;
+    }
+
+    /**
+     * Добавление дочернего объекта со значением с типом Double.
+     * Если этот объект не является списком, будет вызвано исключение.
+     *
+     * @param value Значение дочернего объекта с типом Double
+     * @return Этот же объект.
+     * @throws VariantTypeError Если этот объект не является списком, будет вызвано исключение.
+     */
+    public Variant addDouble(double value) {
+        if (type != VariantType.LIST) throw new VariantTypeError(type, VariantType.LIST);
+        ((VariantList) object).addDouble(value);
+        return this;
+    }
+
+    /**
+     * Добавление дочернего объекта со значением с типом Double в начало списка.
+     * Если этот объект не является списком, будет вызвано исключение.
+     *
+     * @param value Значение дочернего объекта с типом Double
+     * @return Этот же объект.
+     * @throws VariantTypeError Если этот объект не является списком, будет вызвано исключение.
+     */
+    public Variant addFirstDouble(double value) {
+        addFirst(value);
+        return this;
+    }
+
+    /**
+     * Добавление дочернего объекта со значением с типом Double в конец списка.
+     * Если этот объект не является списком, будет вызвано исключение.
+     *
+     * @param value Значение дочернего объекта с типом Double
+     * @return Этот же объект.
+     * @throws VariantTypeError Если этот объект не является списком, будет вызвано исключение.
+     */
+    public Variant addLastDouble(double value) {
+        if (type != VariantType.LIST) throw new VariantTypeError(type, VariantType.LIST);
+        ((VariantList) object).addDouble(value);
+        return this;
+    }
+
+    /**
+     * Установка значения дочернего объекта с типом Double.
+     * Если этот объект не является таблицей, будет вызвано исключение.
+     *
+     * @param childName Имя дочернего объекта
+     * @param value Значение дочернего объекта с типом Double
+     * @return Этот же объект.
+     * @throws VariantTypeError Если этот объект не является таблицей, будет вызвано исключение.
+     */
+    public Variant setDouble(String childName, double value) {
+        set(childName, value);
+        return this;
+    }
+
+    /**
+     * Обработка значения каждого дочернего объекта с типом Double.
+     * Если этот объект не является списком или таблицей, будет вызвано исключение.
+     *
+     * @param handler Обработчик значения дочернего объекта
+     * @return Этот же объект.
+     * @throws VariantTypeError Если этот объект не является списком или таблицей, будет вызвано исключение.
+     */
+    @SuppressWarnings("UnusedReturnValue")
+    public Variant forEachDouble(Consumer<Double> handler) {
+        if (type == VariantType.LIST) {
+            VariantList list = (VariantList) object;
+            if (list.getStorage() != VariantListStorage.GENERIC) {
+                for (int childIndex = 0; childIndex < list.size(); childIndex++) {
+                    if (list.getStorage() != VariantListStorage.BOOLEAN) handler.accept(list.getDouble(childIndex));
+                }
+                return this;
+            }
+            for (int childIndex = 0; childIndex < list.size(); childIndex++) {
+                Variant child = list.peek(childIndex);
+                if (child.isDouble()) handler.accept(child.asDouble());
+            }
+            return this;
+        }
+        if (type == VariantType.MAP) {
+            ((VariantMap) object).peekEach((childName, child) -> { if (child.isDouble()) handler.accept(child.asDouble()); });
+            return this;
+        }
+        throw new VariantTypeError(type, VariantType.LIST, VariantType.MAP);
+    }
+
+    /**
+     * Обработка значения каждого дочернего объекта с типом Double в списке.
+     * Если этот объект не является списком, будет вызвано исключение.
+     *
+     * @param handler Обработчик значения дочернего объекта и его индекса
+     * @return Этот же объект.
+     * @throws VariantTypeError Если этот объект не является списком, будет вызвано исключение.
+     */
+    @SuppressWarnings("UnusedReturnValue")
+    public Variant forEachDoubleInList(BiConsumer<Integer, Double> handler) {
+        if (type != VariantType.LIST) throw new VariantTypeError(type, VariantType.LIST);
+        VariantList list = (VariantList) object;
+        if (list.getStorage() != VariantListStorage.GENERIC) {
+            for (int childIndex = 0; childIndex < list.size(); childIndex++) {
+                if (list.getStorage() != VariantListStorage.BOOLEAN) handler.accept(childIndex, list.getDouble(childIndex));
+            }
+            return this;
+        }
+        for (int childIndex = 0; childIndex < list.size(); childIndex++) {
+            Variant child = list.peek(childIndex);
+            if (child.isDouble()) handler.accept(childIndex, child.asDouble());
+        }
+        return this;
+    }
+
+    /**
+     * Обработка значения каждого дочернего объекта с типом Double в таблице.
+     * Если этот объект не является таблицей, будет вызвано исключение.
+     *
+     * @param handler Обработчик значения дочернего объекта и его имени
+     * @return Этот же объект.
+     * @throws VariantTypeError Если этот объект не является таблицей, будет вызвано исключение.
+     */
+    @SuppressWarnings("UnusedReturnValue")
+    public Variant forEachDoubleInMap(BiConsumer<String, Double> handler) {
+        if (type != VariantType.MAP) throw new VariantTypeError(type, VariantType.MAP);
+        ((VariantMap) object).peekEach((childName, child) -> { if (child.isDouble()) handler.accept(childName, child.asDouble()); });
+        return this;
+    }
+
+    /**
+     * Создание объекта со значением типа BigInteger.
+     *
+     * @param value Значение объекта
+     * @return Объект со значением типа BigInteger.
+     */
+    public static Variant newBigInteger(BigInteger value) {
+        return VariantArena.allocate().set(value);
+    }
+
+    /**
+     * Создание объекта со значением типа BigInteger по умолчанию.
+     *
+     * @return Объект со значением типа BigInteger по умолчанию.
+     */
+    public static Variant newBigInteger() {
+        return VariantArena.allocate().set(BigInteger.ZERO);
+    }
+
+    /**
+     * Проверка, является ли значение этого объекта BigInteger.
+     *
+     * @return Является ли значение этого объекта BigInteger.
+     */
+    public boolean isBigInteger() {
+        if (VariantArena.DEBUG && object == VariantArena.RELEASED) throw new VariantArenaError();
+        return type == VariantType.NUMBER && VariantDecimal.isInteger(this);
+    }
+
+    /**
+     * Проверка типа значения дочернего объекта по индексу.
+     * Если этот объект не является списком, будет вызвано исключение.
+     * Если индекс за границей списка, будет вызвано исключение.
+     *
+     * @param childIndex Индекс дочернего объекта
+     * @return Соответствие типа значения.
+     * @throws VariantTypeError Если этот объект не является списком, будет вызвано исключение.
+     * @throws VariantChildIndexError Если индекс за границей списка, будет вызвано исключение.
+     */
+    @SuppressWarnings("unchecked")
+    public boolean isBigInteger(int childIndex) {
+        if (type != VariantType.LIST) throw new VariantTypeError(type, VariantType.LIST);
+        if (childIndex < 0 || childIndex >= ((List<?>) object).size()) throw new VariantChildIndexError(childIndex, ((List<?>) object).size());
+        return ((VariantList) object).peek(childIndex).isBigInteger();
+    }
+
+    /**
+     * Проверка типа значения дочернего объекта по имени.
+     * Если этот объект не является таблицей, будет вызвано исключение.
+     * Если в таблице нет объекта с указанным именем, будет вызвано исключение.
+     *
+     * @param childName Имя дочернего объекта
+     * @return Соответствие типа значения.
+     * @throws VariantTypeError Если этот объект не является таблицей, будет вызвано исключение.
+     * @throws VariantChildIndexError Если в таблице нет объекта с указанным именем, будет вызвано исключение.
+     */
+    @SuppressWarnings("unchecked")
+    public boolean isBigInteger(String childName) {
+        if (type != VariantType.MAP) throw new VariantTypeError(type, VariantType.MAP);
+        if (!((Map<?, ?>) object).containsKey(childName)) throw new VariantChildNameError(childName);
+        return ((VariantMap) object).peek(childName).isBigInteger();
+    }
+
+    /**
+     * Преобразование значения объекта к типу BigInteger.
+     * Если значение не может быть преобразовано к указанному типу, будет вызвано исключение.
+     *
+     * @return Значение объекта с типом BigInteger.
+     * @throws VariantValueError Если значение не может быть преобразовано к указанному типу, будет вызвано исключение.
+     */
+    @SuppressWarnings("unchecked")
+    public BigInteger asBigInteger() {
+        if (!isBigInteger()) throw new VariantValueError(type, "BigInteger");
+        return VariantDecimal.toBigInteger(this);
+    }
+
+    /**
+     * Преобразование значения объекта к типу BigInteger.
+     * Если значение не может быть преобразовано к указанному типу, будет возвращено null.
+     *
+     * @return Значение объекта с типом BigInteger или null.
+     */
+    @SuppressWarnings("unchecked")
+    public @Nullable BigInteger asBigIntegerOrNull() {
+        if (!isBigInteger()) return null;
+        return VariantDecimal.toBigInteger(this);
+    }
+
+    /**
+     * Преобразование значения объекта к типу BigInteger.
+     * Если значение не может быть преобразовано к указанному типу, будет возвращено значение по умолчанию.
+     *
+     * @param defaultValue Значение по умолчанию
+     * @return Значение объекта с типом BigInteger или значение по умолчанию.
+     */
+    @SuppressWarnings("unchecked")
+    public BigInteger asBigIntegerOrDefault(BigInteger defaultValue) {
+        if (!isBigInteger()) return defaultValue;
+        return VariantDecimal.toBigInteger(this);
+    }
+
+    /**
+     * Преобразование значения дочернего объекта к типу BigInteger.
+     * Если этот объект не является списком, будет вызвано исключение.
+     * Если индекс за границей списка, будет вызвано исключение.
+     * Если значение не может быть преобразовано к указанному типу, будет вызвано исключение.
+     *
+     * @param childIndex Индекс дочернего объекта
+     * @return Значение дочернего объекта с типом BigInteger.
+     * @throws VariantTypeError Если этот объект не является списком, будет вызвано исключение.
+     * @throws VariantChildIndexError Если индекс за границей списка, будет вызвано исключение.
+     * @throws VariantValueError Если значение не может быть преобразовано к указанному типу, будет вызвано исключение.
+     */
+    public BigInteger getBigInteger(int childIndex) {
+        if (type != VariantType.LIST) throw new VariantTypeError(type, VariantType.LIST);
+        if (childIndex < 0 || childIndex >= ((List<?>) object).size()) throw new VariantChildIndexError(childIndex, ((List<?>) object).size());
+        VariantList list = (VariantList) object;
+        if (list.getStorage() != VariantListStorage.GENERIC && list.isInteger(childIndex)) return list.getBigInteger(childIndex);
+        return list.peek(childIndex).asBigInteger();
+    }
+
+    /**
+     * Преобразование значения дочернего объекта к типу BigInteger.
+     * Если этот объект не является списком, будет вызвано исключение.
+     * Если индекс за границей списка, будет возвращено null.
+     * Если значение не может быть преобразовано к указанному типу, будет возвращено null.
+     *
+     * @param childIndex Индекс дочернего объекта
+     * @return Значение дочернего объекта с типом BigInteger или null.
+     * @throws VariantTypeError Если этот объект не является списком, будет вызвано исключение.
+     */
+    public @Nullable BigInteger getBigIntegerOrNull(int childIndex) {
+        if (type != VariantType.LIST) throw new VariantTypeError(type, VariantType.LIST);
+        if (childIndex < 0 || childIndex >= ((List<?>) object).size()) return null;
+        VariantList list = (VariantList) object;
+        if (list.getStorage() != VariantListStorage.GENERIC) {
+            if (list.isInteger(childIndex)) return list.getBigInteger(childIndex);
+            return null;
+        }
+        return list.peek(childIndex).asBigIntegerOrNull();
+    }
+
+    /**
+     * Преобразование значения дочернего объекта к типу BigInteger.
+     * Если этот объект не является списком, будет вызвано исключение.
+     * Если индекс за границей списка, будет возвращено значение по умолчанию.
+     * Если значение не может быть преобразовано к указанному типу, будет возвращено значение по умолчанию.
+     *
+     * @param childIndex Индекс дочернего объекта
+     * @param defaultValue Значение по умолчанию
+     * @return Значение дочернего объекта с типом BigInteger или значение по умолчанию.
+     * @throws VariantTypeError Если этот объект не является списком, будет вызвано исключение.
+     */
+    public BigInteger getBigIntegerOrDefault(int childIndex, BigInteger defaultValue) {
+        if (type != VariantType.LIST) throw new VariantTypeError(type, VariantType.LIST);
+        if (childIndex < 0 || childIndex >= ((List<?>) object).size()) return defaultValue;
+        VariantList list = (VariantList) object;
+        if (list.getStorage() != VariantListStorage.GENERIC) {
+            if (list.isInteger(childIndex)) return list.getBigInteger(childIndex);
+            return defaultValue;
+        }
+        return list.peek(childIndex).asBigIntegerOrDefault(defaultValue);
+    }
+
+    /**
+     * Преобразование значения дочернего объекта к типу BigInteger.
+     * Если этот объект не является таблицей, будет вызвано исключение.
+     * Если в таблице нет объекта с указанным именем, будет вызвано исключение.
+     * Если значение не может быть преобразовано к указанному типу, будет вызвано исключение.
+     *
+     * @param childName Имя дочернего объекта
+     * @return Значение дочернего объекта с типом BigInteger.
+     * @throws VariantTypeError Если этот объект не является таблицей, будет вызвано исключение.
+     * @throws VariantChildIndexError Если в таблице нет объекта с указанным именем, будет вызвано исключение.
+     * @throws VariantValueError Если значение не может быть преобразовано к указанному типу, будет вызвано исключение.
+     */
+    public BigInteger getBigInteger(String childName) {
+        return peek(childName).asBigInteger();
+    }
+
+    /**
+     * Преобразование значения дочернего объекта к типу BigInteger.
+     * Если этот объект не является таблицей, будет вызвано исключение.
+     * Если в таблице нет объекта с указанным именем, будет возвращено null.
+     * Если значение не может быть преобразовано к указанному типу, будет возвращено null.
+     *
+     * @param childName Имя дочернего объекта
+     * @return Значение дочернего объекта с типом BigInteger или null.
+     * @throws VariantTypeError Если этот объект не является таблицей, будет вызвано исключение.
+     */
+    public @Nullable BigInteger getBigIntegerOrNull(String childName) {
+        Variant child = peekOrNull(childName);
         if (child == null) return null;
-        return child.asFloatOrNull();
+        return child.asBigIntegerOrNull();
     }
 
     /**
-     * Преобразование значения дочернего объекта к типу Float.
+     * Преобразование значения дочернего объекта к типу BigInteger.
      * Если этот объект не является таблицей, будет вызвано исключение.
      * Если в таблице нет объекта с указанным именем, будет возвращено значение по умолчанию.
      * Если значение не может быть преобразовано к указанному типу, будет возвращено значение по умолчанию.
      *
      * @param childName Имя дочернего объекта
      * @param defaultValue Значение по умолчанию
-     * @return Значение дочернего объекта с типом Float или значение по умолчанию.
+     * @return Значение дочернего объекта с типом BigInteger или значение по умолчанию.
      * @throws VariantTypeError Если этот объект не является таблицей, будет вызвано исключение.
      */
-    public Float getFloatOrDefault(String childName, Float defaultValue) {
-        Variant child = getOrNull(childName);
+    public BigInteger getBigIntegerOrDefault(String childName, BigInteger defaultValue) {
+        Variant child = peekOrNull(childName);
         if (child == null) return defaultValue;
-        return child.asFloatOrDefault(defaultValue);
+        return child.asBigIntegerOrDefault(defaultValue);
     }
 
     /**
-     * Установка значения объекта с типом Float.
+     * Установка значения объекта с типом BigInteger.
      *
-     * @param value Значение объекта с типом Float
+     * @param value Значение объекта с типом BigInteger
      * @return Этот же объект.
      */
-    public Variant setFloat(float value) {
+    public Variant setBigInteger(BigInteger value) {
         set(value);
         return this;
     }
 
     /**
-     * Установка дочернего объекта со значением с типом Float.
+     * Установка дочернего объекта со значением с типом BigInteger.
      * Если этот объект не является списком, будет вызвано исключение.
      * Если индекс за границей списка, будет вызвано исключение.
      *
      * @param childIndex Индекс дочернего объекта
-     * @param value Значение дочернего объекта с типом Float
+     * @param value Значение дочернего объекта с типом BigInteger
      * @return Этот же объект.
      * @throws VariantTypeError Если этот объект не является списком, будет вызвано исключение.
      * @throws VariantChildIndexError Если индекс за границей списка, будет вызвано исключение.
      */
-    public Variant setFloat(int childIndex, float value) {
+    public Variant setBigInteger(int childIndex, BigInteger value) {
         set(childIndex, value);
         return this;
     }
 
     /**
-     * Вставка дочернего объекта со значением с типом Float.
+     * Вставка дочернего объекта со значением с типом BigInteger.
      * Если индекс меньше 0, объект будет добавлен в начало списка.
      * Если индекс больше или равен длине списка, объект будет добавлен в конец списка.
      * Если этот объект не является списком, будет вызвано исключение.
      *
      * @param childIndex Индекс дочернего объекта
-     * @param value Значение дочернего объекта с типом Float
+     * @param value Значение дочернего объекта с типом BigInteger
      * @return Этот же объект.
      * @throws VariantTypeError Если этот объект не является списком, будет вызвано исключение.
      */
-    public Variant insertFloat(int childIndex, float value) {
+    public Variant insertBigInteger(int childIndex, BigInteger value) {
         insert(childIndex, value);
         return this;
     }
 
     /**
-     * Добавление дочернего объекта со значением с типом Float.
+     * Добавление дочернего объекта со значением с типом BigInteger.
      * Если этот объект не является списком, будет вызвано исключение.
      *
-     * @param value Значение дочернего объекта с типом Float
+     * @param value Значение дочернего объекта с типом BigInteger
      * @return Этот же объект.
      * @throws VariantTypeError Если этот объект не является списком, будет вызвано исключение.
      */
-    public Variant addFloat(float value) {
+    public Variant addBigInteger(BigInteger value) {
         add(value);
         return this;
     }
 
     /**
-     * Добавление дочернего объекта со значением с типом Float в начало списка.
+     * Добавление дочернего объекта со значением с типом BigInteger в начало списка.
      * Если этот объект не является списком, будет вызвано исключение.
      *
-     * @param value Значение дочернего объекта с типом Float
+     * @param value Значение дочернего объекта с типом BigInteger
      * @return Этот же объект.
      * @throws VariantTypeError Если этот объект не является списком, будет вызвано исключение.
      */
-    public Variant addFirstFloat(float value) {
+    public Variant addFirstBigInteger(BigInteger value) {
         addFirst(value);
         return this;
     }
 
     /**
-     * Добавление дочернего объекта со значением с типом Float в конец списка.
+     * Добавление дочернего объекта со значением с типом BigInteger в конец списка.
      * Если этот объект не является списком, будет вызвано исключение.
      *
-     * @param value Значение дочернего объекта с типом Float
+     * @param value Значение дочернего объекта с типом BigInteger
      * @return Этот же объект.
      * @throws VariantTypeError Если этот объект не является списком, будет вызвано исключение.
      */
-    public Variant addLastFloat(float value) {
+    public Variant addLastBigInteger(BigInteger value) {
         addLast(value);
         return this;
     }
 
     /**
-     * Установка значения дочернего объекта с типом Float.
+     * Установка значения дочернего объекта с типом BigInteger.
      * Если этот объект не является таблицей, будет вызвано исключение.
      *
      * @param childName Имя дочернего объекта
-     * @param value Значение дочернего объекта с типом Float
+     * @param value Значение дочернего объекта с типом BigInteger
      * @return Этот же объект.
      * @throws VariantTypeError Если этот объект не является таблицей, будет вызвано исключение.
      */
-    public Variant setFloat(String childName, float value) {
+    public Variant setBigInteger(String childName, BigInteger value) {
         set(childName, value);
         return this;
     }
 
     /**
-     * Обработка значения каждого дочернего объекта с типом Float.
+     * Обработка значения каждого дочернего объекта с типом BigInteger.
      * Если этот объект не является списком или таблицей, будет вызвано исключение.
      *
      * @param handler Обработчик значения дочернего объекта
@@ -2697,13 +4293,30 @@ public class Variant {
      * @throws VariantTypeError Если этот объект не является списком или таблицей, будет вызвано исключение.
      */
     @SuppressWarnings("UnusedReturnValue")
-    public Variant forEachFloat(Consumer<Float> handler) {
-        forEach((child) -> { if (child.isFloat()) handler.accept(child.asFloat()); });
-        return this;
+    public Variant forEachBigInteger(Consumer<BigInteger> handler) {
+        if (type == VariantType.LIST) {
+            VariantList list = (VariantList) object;
+            if (list.getStorage() != VariantListStorage.GENERIC) {
+                for (int childIndex = 0; childIndex < list.size(); childIndex++) {
+                    if (list.isInteger(childIndex)) handler.accept(list.getBigInteger(childIndex));
+                }
+                return this;
+            }
+            for (int childIndex = 0; childIndex < list.size(); childIndex++) {
+                Variant child = list.peek(childIndex);
+                if (child.isBigInteger()) handler.accept(child.asBigInteger());
+            }
+            return this;
+        }
+        if (type == VariantType.MAP) {
+            ((VariantMap) object).peekEach((childName, child) -> { if (child.isBigInteger()) handler.accept(child.asBigInteger()); });
+            return this;
+        }
+        throw new VariantTypeError(type, VariantType.LIST, VariantType.MAP);
     }
 
     /**
-     * Обработка значения каждого дочернего объекта с типом Float в списке.
+     * Обработка значения каждого дочернего объекта с типом BigInteger в списке.
      * Если этот объект не является списком, будет вызвано исключение.
      *
      * @param handler Обработчик значения дочернего объекта и его индекса
@@ -2711,13 +4324,24 @@ public class Variant {
      * @throws VariantTypeError Если этот объект не является списком, будет вызвано исключение.
      */
     @SuppressWarnings("UnusedReturnValue")
-    public Variant forEachFloatInList(BiConsumer<Integer, Float> handler) {
-        forEachInList((childIndex, child) -> { if (child.isFloat()) handler.accept(childIndex, child.asFloat()); });
+    public Variant forEachBigIntegerInList(BiConsumer<Integer, BigInteger> handler) {
+        if (type != VariantType.LIST) throw new VariantTypeError(type, VariantType.LIST);
+        VariantList list = (VariantList) object;
+        if (list.getStorage() != VariantListStorage.GENERIC) {
+            for (int childIndex = 0; childIndex < list.size(); childIndex++) {
+                if (list.isInteger(childIndex)) handler.accept(childIndex, list.getBigInteger(childIndex));
+            }
+            return this;
+        }
+        for (int childIndex = 0; childIndex < list.size(); childIndex++) {
+            Variant child = list.peek(childIndex);
+            if (child.isBigInteger()) handler.accept(childIndex, child.asBigInteger());
+        }
         return this;
     }
 
     /**
-     * Обработка значения каждого дочернего объекта с типом Float в таблице.
+     * Обработка значения каждого дочернего объекта с типом BigInteger в таблице.
      * Если этот объект не является таблицей, будет вызвано исключение.
      *
      * @param handler Обработчик значения дочернего объекта и его имени
@@ -2725,37 +4349,39 @@ public class Variant {
      * @throws VariantTypeError Если этот объект не является таблицей, будет вызвано исключение.
      */
     @SuppressWarnings("UnusedReturnValue")
-    public Variant forEachFloatInMap(BiConsumer<String, Float> handler) {
-        forEachInMap((childName, child) -> { if (child.isFloat()) handler.accept(childName, child.asFloat()); });
+    public Variant forEachBigIntegerInMap(BiConsumer<String, BigInteger> handler) {
+        if (type != VariantType.MAP) throw new VariantTypeError(type, VariantType.MAP);
+        ((VariantMap) object).peekEach((childName, child) -> { if (child.isBigInteger()) handler.accept(childName, child.asBigInteger()); });
         return this;
     }
 
     /**
-     * Создание объекта со значением типа Double.
+     * Создание объекта со значением типа BigDecimal.
      *
      * @param value Значение объекта
-     * @return Объект со значением типа Double.
+     * @return Объект со значением типа BigDecimal.
      */
-    public static Variant newDouble(double value) {
-        return new Variant(value);
+    public static Variant newBigDecimal(BigDecimal value) {
+        return VariantArena.allocate().set(value);
     }
 
     /**
-     * Создание объекта со значением типа Double по умолчанию.
+     * Создание объекта со значением типа BigDecimal по умолчанию.
      *
-     * @return Объект со значением типа Double по умолчанию.
+     * @return Объект со значением типа BigDecimal по умолчанию.
      */
-    public static Variant newDouble() {
-        return new Variant(0);
+    public static Variant newBigDecimal() {
+        return VariantArena.allocate().set(BigDecimal.ZERO);
     }
 
     /**
-     * Проверка, является ли значение этого объекта Double.
+     * Проверка, является ли значение этого объекта BigDecimal.
      *
-     * @return Является ли значение этого объекта Double.
+     * @return Является ли значение этого объекта BigDecimal.
      */
-    public boolean isDouble() {
-        return type == VariantType.NUMBER;
+    public boolean isBigDecimal() {
+        if (VariantArena.DEBUG && object == VariantArena.RELEASED) throw new VariantArenaError();
+        return type == VariantType.NUMBER && VariantDecimal.isFinite(precision, doubleNumber);
     }
 
     /**
@@ -2769,10 +4395,10 @@ public class Variant {
      * @throws VariantChildIndexError Если индекс за границей списка, будет вызвано исключение.
      */
     @SuppressWarnings("unchecked")
-    public boolean isDouble(int childIndex) {
+    public boolean isBigDecimal(int childIndex) {
         if (type != VariantType.LIST) throw new VariantTypeError(type, VariantType.LIST);
         if (childIndex < 0 || childIndex >= ((List<?>) object).size()) throw new VariantChildIndexError(childIndex, ((List<?>) object).size());
-        return ((List<Variant>) object).get(childIndex).isDouble();
+        return ((VariantList) object).peek(childIndex).isBigDecimal();
     }
 
     /**
@@ -2786,246 +4412,260 @@ public class Variant {
      * @throws VariantChildIndexError Если в таблице нет объекта с указанным именем, будет вызвано исключение.
      */
     @SuppressWarnings("unchecked")
-    public boolean isDouble(String childName) {
+    public boolean isBigDecimal(String childName) {
         if (type != VariantType.MAP) throw new VariantTypeError(type, VariantType.MAP);
         if (!((Map<?, ?>) object).containsKey(childName)) throw new VariantChildNameError(childName);
-        return ((Map<String, Variant>) object).get(childName).isDouble();
+        return ((VariantMap) object).peek(childName).isBigDecimal();
     }
 
     /**
-     * Преобразование значения объекта к типу Double.
+     * Преобразование значения объекта к типу BigDecimal.
      * Если значение не может быть преобразовано к указанному типу, будет вызвано исключение.
      *
-     * @return Значение объекта с типом Double.
+     * @return Значение объекта с типом BigDecimal.
      * @throws VariantValueError Если значение не может быть преобразовано к указанному типу, будет вызвано исключение.
      */
     @SuppressWarnings("unchecked")
-    public double asDouble() {
-        if (!isDouble()) throw new VariantValueError(type, "double");
-        return (Double) object;
+    public BigDecimal asBigDecimal() {
+        if (!isBigDecimal()) throw new VariantValueError(type, "BigDecimal");
+        return VariantDecimal.toBigDecimal(this);
     }
 
     /**
-     * Преобразование значения объекта к типу Double.
+     * Преобразование значения объекта к типу BigDecimal.
      * Если значение не может быть преобразовано к указанному типу, будет возвращено null.
      *
-     * @return Значение объекта с типом Double или null.
+     * @return Значение объекта с типом BigDecimal или null.
      */
     @SuppressWarnings("unchecked")
-    public @Nullable Double asDoubleOrNull() {
-        if (!isDouble()) return null;
-        return (Double) object;
+    public @Nullable BigDecimal asBigDecimalOrNull() {
+        if (!isBigDecimal()) return null;
+        return VariantDecimal.toBigDecimal(this);
     }
 
     /**
-     * Преобразование значения объекта к типу Double.
+     * Преобразование значения объекта к типу BigDecimal.
      * Если значение не может быть преобразовано к указанному типу, будет возвращено значение по умолчанию.
      *
      * @param defaultValue Значение по умолчанию
-     * @return Значение объекта с типом Double или значение по умолчанию.
+     * @return Значение объекта с типом BigDecimal или значение по умолчанию.
      */
     @SuppressWarnings("unchecked")
-    public Double asDoubleOrDefault(Double defaultValue) {
-        if (!isDouble()) return defaultValue;
-        return (Double) object;
+    public BigDecimal asBigDecimalOrDefault(BigDecimal defaultValue) {
+        if (!isBigDecimal()) return defaultValue;
+        return VariantDecimal.toBigDecimal(this);
     }
 
     /**
-     * Преобразование значения дочернего объекта к типу Double.
+     * Преобразование значения дочернего объекта к типу BigDecimal.
      * Если этот объект не является списком, будет вызвано исключение.
      * Если индекс за границей списка, будет вызвано исключение.
      * Если значение не может быть преобразовано к указанному типу, будет вызвано исключение.
      *
      * @param childIndex Индекс дочернего объекта
-     * @return Значение дочернего объекта с типом Double.
+     * @return Значение дочернего объекта с типом BigDecimal.
      * @throws VariantTypeError Если этот объект не является списком, будет вызвано исключение.
      * @throws VariantChildIndexError Если индекс за границей списка, будет вызвано исключение.
      * @throws VariantValueError Если значение не может быть преобразовано к указанному типу, будет вызвано исключение.
      */
-    public double getDouble(int childIndex) {
-        return get(childIndex).asDouble();
+    public BigDecimal getBigDecimal(int childIndex) {
+        if (type != VariantType.LIST) throw new VariantTypeError(type, VariantType.LIST);
+        if (childIndex < 0 || childIndex >= ((List<?>) object).size()) throw new VariantChildIndexError(childIndex, ((List<?>) object).size());
+        VariantList list = (VariantList) object;
+        if (list.getStorage() != VariantListStorage.GENERIC && list.isFinite(childIndex)) return list.getBigDecimal(childIndex);
+        return list.peek(childIndex).asBigDecimal();
     }
 
     /**
-     * Преобразование значения дочернего объекта к типу Double.
+     * Преобразование значения дочернего объекта к типу BigDecimal.
      * Если этот объект не является списком, будет вызвано исключение.
      * Если индекс за границей списка, будет возвращено null.
      * Если значение не может быть преобразовано к указанному типу, будет возвращено null.
      *
      * @param childIndex Индекс дочернего объекта
-     * @return Значение дочернего объекта с типом Double или null.
+     * @return Значение дочернего объекта с типом BigDecimal или null.
      * @throws VariantTypeError Если этот объект не является списком, будет вызвано исключение.
      */
-    public @Nullable Double getDoubleOrNull(int childIndex) {
-        Variant child = getOrNull(childIndex);
-        if (child == null) return null;
-        return child.asDoubleOrNull();
+    public @Nullable BigDecimal getBigDecimalOrNull(int childIndex) {
+        if (type != VariantType.LIST) throw new VariantTypeError(type, VariantType.LIST);
+        if (childIndex < 0 || childIndex >= ((List<?>) object).size()) return null;
+        VariantList list = (VariantList) object;
+        if (list.getStorage() != VariantListStorage.GENERIC) {
+            if (list.isFinite(childIndex)) return list.getBigDecimal(childIndex);
+            return null;
+        }
+        return list.peek(childIndex).asBigDecimalOrNull();
     }
 
     /**
-     * Преобразование значения дочернего объекта к типу Double.
+     * Преобразование значения дочернего объекта к типу BigDecimal.
      * Если этот объект не является списком, будет вызвано исключение.
      * Если индекс за границей списка, будет возвращено значение по умолчанию.
      * Если значение не может быть преобразовано к указанному типу, будет возвращено значение по умолчанию.
      *
      * @param childIndex Индекс дочернего объекта
      * @param defaultValue Значение по умолчанию
-     * @return Значение дочернего объекта с типом Double или значение по умолчанию.
+     * @return Значение дочернего объекта с типом BigDecimal или значение по умолчанию.
      * @throws VariantTypeError Если этот объект не является списком, будет вызвано исключение.
      */
-    public Double getDoubleOrDefault(int childIndex, Double defaultValue) {
-        Variant child = getOrNull(childIndex);
-        if (child == null) return defaultValue;
-        return child.asDoubleOrDefault(defaultValue);
+    public BigDecimal getBigDecimalOrDefault(int childIndex, BigDecimal defaultValue) {
+        if (type != VariantType.LIST) throw new VariantTypeError(type, VariantType.LIST);
+        if (childIndex < 0 || childIndex >= ((List<?>) object).size()) return defaultValue;
+        VariantList list = (VariantList) object;
+        if (list.getStorage() != VariantListStorage.GENERIC) {
+            if (list.isFinite(childIndex)) return list.getBigDecimal(childIndex);
+            return defaultValue;
+        }
+        return list.peek(childIndex).asBigDecimalOrDefault(defaultValue);
     }
 
     /**
-     * Преобразование значения дочернего объекта к типу Double.
+     * Преобразование значения дочернего объекта к типу BigDecimal.
      * Если этот объект не является таблицей, будет вызвано исключение.
      * Если в таблице нет объекта с указанным именем, будет вызвано исключение.
      * Если значение не может быть преобразовано к указанному типу, будет вызвано исключение.
      *
      * @param childName Имя дочернего объекта
-     * @return Значение дочернего объекта с типом Double.
+     * @return Значение дочернего объекта с типом BigDecimal.
      * @throws VariantTypeError Если этот объект не является таблицей, будет вызвано исключение.
      * @throws VariantChildIndexError Если в таблице нет объекта с указанным именем, будет вызвано исключение.
      * @throws VariantValueError Если значение не может быть преобразовано к указанному типу, будет вызвано исключение.
      */
-    public double getDouble(String childName) {
-        return get(childName).asDouble();
+    public BigDecimal getBigDecimal(String childName) {
+        return peek(childName).asBigDecimal();
     }
 
     /**
-     * Преобразование значения дочернего объекта к типу Double.
+     * Преобразование значения дочернего объекта к типу BigDecimal.
      * Если этот объект не является таблицей, будет вызвано исключение.
      * Если в таблице нет объекта с указанным именем, будет возвращено null.
      * Если значение не может быть преобразовано к указанному типу, будет возвращено null.
      *
      * @param childName Имя дочернего объекта
-     * @return Значение дочернего объекта с типом Double или null.
+     * @return Значение дочернего объекта с типом BigDecimal или null.
      * @throws VariantTypeError Если этот объект не является таблицей, будет вызвано исключение.
      */
-    public @Nullable Double getDoubleOrNull(String childName) {
-        Variant child = getOrNull(childName);
+    public @Nullable BigDecimal getBigDecimalOrNull(String childName) {
+        Variant child = peekOrNull(childName);
         if (child == null) return null;
-        return child.asDoubleOrNull();
+        return child.asBigDecimalOrNull();
     }
 
     /**
-     * Преобразование значения дочернего объекта к типу Double.
+     * Преобразование значения дочернего объекта к типу BigDecimal.
      * Если этот объект не является таблицей, будет вызвано исключение.
      * Если в таблице нет объекта с указанным именем, будет возвращено значение по умолчанию.
      * Если значение не может быть преобразовано к указанному типу, будет возвращено значение по умолчанию.
      *
      * @param childName Имя дочернего объекта
      * @param defaultValue Значение по умолчанию
-     * @return Значение дочернего объекта с типом Double или значение по умолчанию.
+     * @return Значение дочернего объекта с типом BigDecimal или значение по умолчанию.
      * @throws VariantTypeError Если этот объект не является таблицей, будет вызвано исключение.
      */
-    public Double getDoubleOrDefault(String childName, Double defaultValue) {
-        Variant child = getOrNull(childName);
+    public BigDecimal getBigDecimalOrDefault(String childName, BigDecimal defaultValue) {
+        Variant child = peekOrNull(childName);
         if (child == null) return defaultValue;
-        return child.asDoubleOrDefault(defaultValue);
+        return child.asBigDecimalOrDefault(defaultValue);
     }
 
     /**
-     * Установка значения объекта с типом Double.
+     * Установка значения объекта с типом BigDecimal.
      *
-     * @param value Значение объекта с типом Double
+     * @param value Значение объекта с типом BigDecimal
      * @return Этот же объект.
      */
-    public Variant setDouble(double value) {
+    public Variant setBigDecimal(BigDecimal value) {
         set(value);
         return this;
     }
 
     /**
-     * Установка дочернего объекта со значением с типом Double.
+     * Установка дочернего объекта со значением с типом BigDecimal.
      * Если этот объект не является списком, будет вызвано исключение.
      * Если индекс за границей списка, будет вызвано исключение.
      *
      * @param childIndex Индекс дочернего объекта
-     * @param value Значение дочернего объекта с типом Double
+     * @param value Значение дочернего объекта с типом BigDecimal
      * @return Этот же объект.
      * @throws VariantTypeError Если этот объект не является списком, будет вызвано исключение.
      * @throws VariantChildIndexError Если индекс за границей списка, будет вызвано исключение.
      */
-    public Variant setDouble(int childIndex, double value) {
+    public Variant setBigDecimal(int childIndex, BigDecimal value) {
         set(childIndex, value);
         return this;
     }
 
     /**
-     * Вставка дочернего объекта со значением с типом Double.
+     * Вставка дочернего объекта со значением с типом BigDecimal.
      * Если индекс меньше 0, объект будет добавлен в начало списка.
      * Если индекс больше или равен длине списка, объект будет добавлен в конец списка.
      * Если этот объект не является списком, будет вызвано исключение.
      *
      * @param childIndex Индекс дочернего объекта
-     * @param value Значение дочернего объекта с типом Double
+     * @param value Значение дочернего объекта с типом BigDecimal
      * @return Этот же объект.
      * @throws VariantTypeError Если этот объект не является списком, будет вызвано исключение.
      */
-    public Variant insertDouble(int childIndex, double value) {
+    public Variant insertBigDecimal(int childIndex, BigDecimal value) {
         insert(childIndex, value);
         return this;
     }
 
     /**
-     * Добавление дочернего объекта со значением с типом Double.
+     * Добавление дочернего объекта со значением с типом BigDecimal.
      * Если этот объект не является списком, будет вызвано исключение.
      *
-     * @param value Значение дочернего объекта с типом Double
+     * @param value Значение дочернего объекта с типом BigDecimal
      * @return Этот же объект.
      * @throws VariantTypeError Если этот объект не является списком, будет вызвано исключение.
      */
-    public Variant addDouble(double value) {
+    public Variant addBigDecimal(BigDecimal value) {
         add(value);
         return this;
     }
 
     /**
-     * Добавление дочернего объекта со значением с типом Double в начало списка.
+     * Добавление дочернего объекта со значением с типом BigDecimal в начало списка.
      * Если этот объект не является списком, будет вызвано исключение.
      *
-     * @param value Значение дочернего объекта с типом Double
+     * @param value Значение дочернего объекта с типом BigDecimal
      * @return Этот же объект.
      * @throws VariantTypeError Если этот объект не является списком, будет вызвано исключение.
      */
-    public Variant addFirstDouble(double value) {
+    public Variant addFirstBigDecimal(BigDecimal value) {
         addFirst(value);
         return this;
     }
 
     /**
-     * Добавление дочернего объекта со значением с типом Double в конец списка.
+     * Добавление дочернего объекта со значением с типом BigDecimal в конец списка.
      * Если этот объект не является списком, будет вызвано исключение.
      *
-     * @param value Значение дочернего объекта с типом Double
+     * @param value Значение дочернего объекта с типом BigDecimal
      * @return Этот же объект.
      * @throws VariantTypeError Если этот объект не является списком, будет вызвано исключение.
      */
-    public Variant addLastDouble(double value) {
+    public Variant addLastBigDecimal(BigDecimal value) {
         addLast(value);
         return this;
     }
 
     /**
-     * Установка значения дочернего объекта с типом Double.
+     * Установка значения дочернего объекта с типом BigDecimal.
      * Если этот объект не является таблицей, будет вызвано исключение.
      *
      * @param childName Имя дочернего объекта
-     * @param value Значение дочернего объекта с типом Double
+     * @param value Значение дочернего объекта с типом BigDecimal
      * @return Этот же объект.
      * @throws VariantTypeError Если этот объект не является таблицей, будет вызвано исключение.
      */
-    public Variant setDouble(String childName, double value) {
+    public Variant setBigDecimal(String childName, BigDecimal value) {
         set(childName, value);
         return this;
     }
 
     /**
-     * Обработка значения каждого дочернего объекта с типом Double.
+     * Обработка значения каждого дочернего объекта с типом BigDecimal.
      * Если этот объект не является списком или таблицей, будет вызвано исключение.
      *
      * @param handler Обработчик значения дочернего объекта
@@ -3033,13 +4673,30 @@ public class Variant {
      * @throws VariantTypeError Если этот объект не является списком или таблицей, будет вызвано исключение.
      */
     @SuppressWarnings("UnusedReturnValue")
-    public Variant forEachDouble(Consumer<Double> handler) {
-        forEach((child) -> { if (child.isDouble()) handler.accept(child.asDouble()); });
-        return this;
+    public Variant forEachBigDecimal(Consumer<BigDecimal> handler) {
+        if (type == VariantType.LIST) {
+            VariantList list = (VariantList) object;
+            if (list.getStorage() != VariantListStorage.GENERIC) {
+                for (int childIndex = 0; childIndex < list.size(); childIndex++) {
+                    if (list.isFinite(childIndex)) handler.accept(list.getBigDecimal(childIndex));
+                }
+                return this;
+            }
+            for (int childIndex = 0; childIndex < list.size(); childIndex++) {
+                Variant child = list.peek(childIndex);
+                if (child.isBigDecimal()) handler.accept(child.asBigDecimal());
+            }
+            return this;
+        }
+        if (type == VariantType.MAP) {
+            ((VariantMap) object).peekEach((childName, child) -> { if (child.isBigDecimal()) handler.accept(child.asBigDecimal()); });
+            return this;
+        }
+        throw new VariantTypeError(type, VariantType.LIST, VariantType.MAP);
     }
 
     /**
-     * Обработка значения каждого дочернего объекта с типом Double в списке.
+     * Обработка значения каждого дочернего объекта с типом BigDecimal в списке.
      * Если этот объект не является списком, будет вызвано исключение.
      *
      * @param handler Обработчик значения дочернего объекта и его индекса
@@ -3047,13 +4704,24 @@ public class Variant {
      * @throws VariantTypeError Если этот объект не является списком, будет вызвано исключение.
      */
     @SuppressWarnings("UnusedReturnValue")
-    public Variant forEachDoubleInList(BiConsumer<Integer, Double> handler) {
-        forEachInList((childIndex, child) -> { if (child.isDouble()) handler.accept(childIndex, child.asDouble()); });
+    public Variant forEachBigDecimalInList(BiConsumer<Integer, BigDecimal> handler) {
+        if (type != VariantType.LIST) throw new VariantTypeError(type, VariantType.LIST);
+        VariantList list = (VariantList) object;
+        if (list.getStorage() != VariantListStorage.GENERIC) {
+            for (int childIndex = 0; childIndex < list.size(); childIndex++) {
+                if (list.isFinite(childIndex)) handler.accept(childIndex, list.getBigDecimal(childIndex));
+            }
+            return this;
+        }
+        for (int childIndex = 0; childIndex < list.size(); childIndex++) {
+            Variant child = list.peek(childIndex);
+            if (child.isBigDecimal()) handler.accept(childIndex, child.asBigDecimal());
+        }
         return this;
     }
 
     /**
-     * Обработка значения каждого дочернего объекта с типом Double в таблице.
+     * Обработка значения каждого дочернего объекта с типом BigDecimal в таблице.
      * Если этот объект не является таблицей, будет вызвано исключение.
      *
      * @param handler Обработчик значения дочернего объекта и его имени
@@ -3061,8 +4729,9 @@ public class Variant {
      * @throws VariantTypeError Если этот объект не является таблицей, будет вызвано исключение.
      */
     @SuppressWarnings("UnusedReturnValue")
-    public Variant forEachDoubleInMap(BiConsumer<String, Double> handler) {
-        forEachInMap((childName, child) -> { if (child.isDouble()) handler.accept(childName, child.asDouble()); });
+    public Variant forEachBigDecimalInMap(BiConsumer<String, BigDecimal> handler) {
+        if (type != VariantType.MAP) throw new VariantTypeError(type, VariantType.MAP);
+        ((VariantMap) object).peekEach((childName, child) -> { if (child.isBigDecimal()) handler.accept(childName, child.asBigDecimal()); });
         return this;
     }
 
@@ -3073,7 +4742,7 @@ public class Variant {
      * @return Объект со значением типа Character.
      */
     public static Variant newCharacter(char value) {
-        return new Variant(value);
+        return VariantArena.allocate().set(value);
     }
 
     /**
@@ -3082,7 +4751,7 @@ public class Variant {
      * @return Объект со значением типа Character по умолчанию.
      */
     public static Variant newCharacter() {
-        return new Variant(' ');
+        return VariantArena.allocate().set(' ');
     }
 
     /**
@@ -3091,7 +4760,8 @@ public class Variant {
      * @return Является ли значение этого объекта Character.
      */
     public boolean isCharacter() {
-        return type == VariantType.STRING && ((String) object).length() == 1;
+        if (VariantArena.DEBUG && object == VariantArena.RELEASED) throw new VariantArenaError();
+        return type == VariantType.STRING && ((CharSequence) object).length() == 1;
     }
 
     /**
@@ -3108,7 +4778,7 @@ public class Variant {
     public boolean isCharacter(int childIndex) {
         if (type != VariantType.LIST) throw new VariantTypeError(type, VariantType.LIST);
         if (childIndex < 0 || childIndex >= ((List<?>) object).size()) throw new VariantChildIndexError(childIndex, ((List<?>) object).size());
-        return ((List<Variant>) object).get(childIndex).isCharacter();
+        return ((VariantList) object).peek(childIndex).isCharacter();
     }
 
     /**
@@ -3125,7 +4795,7 @@ public class Variant {
     public boolean isCharacter(String childName) {
         if (type != VariantType.MAP) throw new VariantTypeError(type, VariantType.MAP);
         if (!((Map<?, ?>) object).containsKey(childName)) throw new VariantChildNameError(childName);
-        return ((Map<String, Variant>) object).get(childName).isCharacter();
+        return ((VariantMap) object).peek(childName).isCharacter();
     }
 
     /**
@@ -3138,7 +4808,7 @@ public class Variant {
     @SuppressWarnings("unchecked")
     public char asCharacter() {
         if (!isCharacter()) throw new VariantValueError(type, "char");
-        return ((String) object).charAt(0);
+        return ((CharSequence) object).charAt(0);
     }
 
     /**
@@ -3150,7 +4820,7 @@ public class Variant {
     @SuppressWarnings("unchecked")
     public @Nullable Character asCharacterOrNull() {
         if (!isCharacter()) return null;
-        return ((String) object).charAt(0);
+        return ((CharSequence) object).charAt(0);
     }
 
     /**
@@ -3163,7 +4833,7 @@ public class Variant {
     @SuppressWarnings("unchecked")
     public Character asCharacterOrDefault(Character defaultValue) {
         if (!isCharacter()) return defaultValue;
-        return ((String) object).charAt(0);
+        return ((CharSequence) object).charAt(0);
     }
 
     /**
@@ -3179,7 +4849,10 @@ public class Variant {
      * @throws VariantValueError Если значение не может быть преобразовано к указанному типу, будет вызвано исключение.
      */
     public char getCharacter(int childIndex) {
-        return get(childIndex).asCharacter();
+        if (type != VariantType.LIST) throw new VariantTypeError(type, VariantType.LIST);
+        if (childIndex < 0 || childIndex >= ((List<?>) object).size()) throw new VariantChildIndexError(childIndex, ((List<?>) object).size());
+        VariantList list = (VariantList) object;
+        return list.peek(childIndex).asCharacter();
     }
 
     /**
@@ -3193,9 +4866,13 @@ public class Variant {
      * @throws VariantTypeError Если этот объект не является списком, будет вызвано исключение.
      */
     public @Nullable Character getCharacterOrNull(int childIndex) {
-        Variant child = getOrNull(childIndex);
-        if (child == null) return null;
-        return child.asCharacterOrNull();
+        if (type != VariantType.LIST) throw new VariantTypeError(type, VariantType.LIST);
+        if (childIndex < 0 || childIndex >= ((List<?>) object).size()) return null;
+        VariantList list = (VariantList) object;
+        if (list.getStorage() != VariantListStorage.GENERIC) {
+            return null;
+        }
+        return list.peek(childIndex).asCharacterOrNull();
     }
 
     /**
@@ -3210,9 +4887,13 @@ public class Variant {
      * @throws VariantTypeError Если этот объект не является списком, будет вызвано исключение.
      */
     public Character getCharacterOrDefault(int childIndex, Character defaultValue) {
-        Variant child = getOrNull(childIndex);
-        if (child == null) return defaultValue;
-        return child.asCharacterOrDefault(defaultValue);
+        if (type != VariantType.LIST) throw new VariantTypeError(type, VariantType.LIST);
+        if (childIndex < 0 || childIndex >= ((List<?>) object).size()) return defaultValue;
+        VariantList list = (VariantList) object;
+        if (list.getStorage() != VariantListStorage.GENERIC) {
+            return defaultValue;
+        }
+        return list.peek(childIndex).asCharacterOrDefault(defaultValue);
     }
 
     /**
@@ -3228,7 +4909,7 @@ public class Variant {
      * @throws VariantValueError Если значение не может быть преобразовано к указанному типу, будет вызвано исключение.
      */
     public char getCharacter(String childName) {
-        return get(childName).asCharacter();
+        return peek(childName).asCharacter();
     }
 
     /**
@@ -3242,7 +4923,7 @@ public class Variant {
      * @throws VariantTypeError Если этот объект не является таблицей, будет вызвано исключение.
      */
     public @Nullable Character getCharacterOrNull(String childName) {
-        Variant child = getOrNull(childName);
+        Variant child = peekOrNull(childName);
         if (child == null) return null;
         return child.asCharacterOrNull();
     }
@@ -3259,7 +4940,7 @@ public class Variant {
      * @throws VariantTypeError Если этот объект не является таблицей, будет вызвано исключение.
      */
     public Character getCharacterOrDefault(String childName, Character defaultValue) {
-        Variant child = getOrNull(childName);
+        Variant child = peekOrNull(childName);
         if (child == null) return defaultValue;
         return child.asCharacterOrDefault(defaultValue);
     }
@@ -3370,8 +5051,22 @@ public class Variant {
      */
     @SuppressWarnings("UnusedReturnValue")
     public Variant forEachCharacter(Consumer<Character> handler) {
-        forEach((child) -> { if (child.isCharacter()) handler.accept(child.asCharacter()); });
-        return this;
+        if (type == VariantType.LIST) {
+            VariantList list = (VariantList) object;
+            if (list.getStorage() != VariantListStorage.GENERIC) {
+                return this;
+            }
+            for (int childIndex = 0; childIndex < list.size(); childIndex++) {
+                Variant child = list.peek(childIndex);
+                if (child.isCharacter()) handler.accept(child.asCharacter());
+            }
+            return this;
+        }
+        if (type == VariantType.MAP) {
+            ((VariantMap) object).peekEach((childName, child) -> { if (child.isCharacter()) handler.accept(child.asCharacter()); });
+            return this;
+        }
+        throw new VariantTypeError(type, VariantType.LIST, VariantType.MAP);
     }
 
     /**
@@ -3384,7 +5079,15 @@ public class Variant {
      */
     @SuppressWarnings("UnusedReturnValue")
     public Variant forEachCharacterInList(BiConsumer<Integer, Character> handler) {
-        forEachInList((childIndex, child) -> { if (child.isCharacter()) handler.accept(childIndex, child.asCharacter()); });
+        if (type != VariantType.LIST) throw new VariantTypeError(type, VariantType.LIST);
+        VariantList list = (VariantList) object;
+        if (list.getStorage() != VariantListStorage.GENERIC) {
+            return this;
+        }
+        for (int childIndex = 0; childIndex < list.size(); childIndex++) {
+            Variant child = list.peek(childIndex);
+            if (child.isCharacter()) handler.accept(childIndex, child.asCharacter());
+        }
         return this;
     }
 
@@ -3398,7 +5101,8 @@ public class Variant {
      */
     @SuppressWarnings("UnusedReturnValue")
     public Variant forEachCharacterInMap(BiConsumer<String, Character> handler) {
-        forEachInMap((childName, child) -> { if (child.isCharacter()) handler.accept(childName, child.asCharacter()); });
+        if (type != VariantType.MAP) throw new VariantTypeError(type, VariantType.MAP);
+        ((VariantMap) object).peekEach((childName, child) -> { if (child.isCharacter()) handler.accept(childName, child.asCharacter()); });
         return this;
     }
 
@@ -3409,7 +5113,7 @@ public class Variant {
      * @return Объект со значением типа String.
      */
     public static Variant newString(String value) {
-        return new Variant(value);
+        return VariantArena.allocate().set(value);
     }
 
     /**
@@ -3418,7 +5122,7 @@ public class Variant {
      * @return Объект со значением типа String по умолчанию.
      */
     public static Variant newString() {
-        return new Variant("");
+        return VariantArena.allocate().set("");
     }
 
     /**
@@ -3427,6 +5131,7 @@ public class Variant {
      * @return Является ли значение этого объекта String.
      */
     public boolean isString() {
+        if (VariantArena.DEBUG && object == VariantArena.RELEASED) throw new VariantArenaError();
         return type == VariantType.STRING;
     }
 
@@ -3444,7 +5149,7 @@ public class Variant {
     public boolean isString(int childIndex) {
         if (type != VariantType.LIST) throw new VariantTypeError(type, VariantType.LIST);
         if (childIndex < 0 || childIndex >= ((List<?>) object).size()) throw new VariantChildIndexError(childIndex, ((List<?>) object).size());
-        return ((List<Variant>) object).get(childIndex).isString();
+        return ((VariantList) object).peek(childIndex).isString();
     }
 
     /**
@@ -3461,7 +5166,7 @@ public class Variant {
     public boolean isString(String childName) {
         if (type != VariantType.MAP) throw new VariantTypeError(type, VariantType.MAP);
         if (!((Map<?, ?>) object).containsKey(childName)) throw new VariantChildNameError(childName);
-        return ((Map<String, Variant>) object).get(childName).isString();
+        return ((VariantMap) object).peek(childName).isString();
     }
 
     /**
@@ -3474,7 +5179,7 @@ public class Variant {
     @SuppressWarnings("unchecked")
     public String asString() {
         if (!isString()) throw new VariantValueError(type, "String");
-        return (String) object;
+        return object.toString();
     }
 
     /**
@@ -3486,7 +5191,7 @@ public class Variant {
     @SuppressWarnings("unchecked")
     public @Nullable String asStringOrNull() {
         if (!isString()) return null;
-        return (String) object;
+        return object.toString();
     }
 
     /**
@@ -3499,7 +5204,7 @@ public class Variant {
     @SuppressWarnings("unchecked")
     public String asStringOrDefault(String defaultValue) {
         if (!isString()) return defaultValue;
-        return (String) object;
+        return object.toString();
     }
 
     /**
@@ -3515,7 +5220,10 @@ public class Variant {
      * @throws VariantValueError Если значение не может быть преобразовано к указанному типу, будет вызвано исключение.
      */
     public String getString(int childIndex) {
-        return get(childIndex).asString();
+        if (type != VariantType.LIST) throw new VariantTypeError(type, VariantType.LIST);
+        if (childIndex < 0 || childIndex >= ((List<?>) object).size()) throw new VariantChildIndexError(childIndex, ((List<?>) object).size());
+        VariantList list = (VariantList) object;
+        return list.peek(childIndex).asString();
     }
 
     /**
@@ -3529,9 +5237,13 @@ public class Variant {
      * @throws VariantTypeError Если этот объект не является списком, будет вызвано исключение.
      */
     public @Nullable String getStringOrNull(int childIndex) {
-        Variant child = getOrNull(childIndex);
-        if (child == null) return null;
-        return child.asStringOrNull();
+        if (type != VariantType.LIST) throw new VariantTypeError(type, VariantType.LIST);
+        if (childIndex < 0 || childIndex >= ((List<?>) object).size()) return null;
+        VariantList list = (VariantList) object;
+        if (list.getStorage() != VariantListStorage.GENERIC) {
+            return null;
+        }
+        return list.peek(childIndex).asStringOrNull();
     }
 
     /**
@@ -3546,9 +5258,13 @@ public class Variant {
      * @throws VariantTypeError Если этот объект не является списком, будет вызвано исключение.
      */
     public String getStringOrDefault(int childIndex, String defaultValue) {
-        Variant child = getOrNull(childIndex);
-        if (child == null) return defaultValue;
-        return child.asStringOrDefault(defaultValue);
+        if (type != VariantType.LIST) throw new VariantTypeError(type, VariantType.LIST);
+        if (childIndex < 0 || childIndex >= ((List<?>) object).size()) return defaultValue;
+        VariantList list = (VariantList) object;
+        if (list.getStorage() != VariantListStorage.GENERIC) {
+            return defaultValue;
+        }
+        return list.peek(childIndex).asStringOrDefault(defaultValue);
     }
 
     /**
@@ -3564,7 +5280,7 @@ public class Variant {
      * @throws VariantValueError Если значение не может быть преобразовано к указанному типу, будет вызвано исключение.
      */
     public String getString(String childName) {
-        return get(childName).asString();
+        return peek(childName).asString();
     }
 
     /**
@@ -3578,7 +5294,7 @@ public class Variant {
      * @throws VariantTypeError Если этот объект не является таблицей, будет вызвано исключение.
      */
     public @Nullable String getStringOrNull(String childName) {
-        Variant child = getOrNull(childName);
+        Variant child = peekOrNull(childName);
         if (child == null) return null;
         return child.asStringOrNull();
     }
@@ -3595,7 +5311,7 @@ public class Variant {
      * @throws VariantTypeError Если этот объект не является таблицей, будет вызвано исключение.
      */
     public String getStringOrDefault(String childName, String defaultValue) {
-        Variant child = getOrNull(childName);
+        Variant child = peekOrNull(childName);
         if (child == null) return defaultValue;
         return child.asStringOrDefault(defaultValue);
     }
@@ -3706,8 +5422,22 @@ public class Variant {
      */
     @SuppressWarnings("UnusedReturnValue")
     public Variant forEachString(Consumer<String> handler) {
-        forEach((child) -> { if (child.isString()) handler.accept(child.asString()); });
-        return this;
+        if (type == VariantType.LIST) {
+            VariantList list = (VariantList) object;
+            if (list.getStorage() != VariantListStorage.GENERIC) {
+                return this;
+            }
+            for (int childIndex = 0; childIndex < list.size(); childIndex++) {
+                Variant child = list.peek(childIndex);
+                if (child.isString()) handler.accept(child.asString());
+            }
+            return this;
+        }
+        if (type == VariantType.MAP) {
+            ((VariantMap) object).peekEach((childName, child) -> { if (child.isString()) handler.accept(child.asString()); });
+            return this;
+        }
+        throw new VariantTypeError(type, VariantType.LIST, VariantType.MAP);
     }
 
     /**
@@ -3720,7 +5450,15 @@ public class Variant {
      */
     @SuppressWarnings("UnusedReturnValue")
     public Variant forEachStringInList(BiConsumer<Integer, String> handler) {
-        forEachInList((childIndex, child) -> { if (child.isString()) handler.accept(childIndex, child.asString()); });
+        if (type != VariantType.LIST) throw new VariantTypeError(type, VariantType.LIST);
+        VariantList list = (VariantList) object;
+        if (list.getStorage() != VariantListStorage.GENERIC) {
+            return this;
+        }
+        for (int childIndex = 0; childIndex < list.size(); childIndex++) {
+            Variant child = list.peek(childIndex);
+            if (child.isString()) handler.accept(childIndex, child.asString());
+        }
         return this;
     }
 
@@ -3734,7 +5472,8 @@ public class Variant {
      */
     @SuppressWarnings("UnusedReturnValue")
     public Variant forEachStringInMap(BiConsumer<String, String> handler) {
-        forEachInMap((childName, child) -> { if (child.isString()) handler.accept(childName, child.asString()); });
+        if (type != VariantType.MAP) throw new VariantTypeError(type, VariantType.MAP);
+        ((VariantMap) object).peekEach((childName, child) -> { if (child.isString()) handler.accept(childName, child.asString()); });
         return this;
     }
 
@@ -3745,7 +5484,7 @@ public class Variant {
      * @return Объект со значением типа List.
      */
     public static Variant newList(List<Variant> value) {
-        return new Variant(value);
+        return VariantArena.allocate().set(value);
     }
 
     /**
@@ -3754,7 +5493,7 @@ public class Variant {
      * @return Объект со значением типа List по умолчанию.
      */
     public static Variant newList() {
-        return new Variant(new ArrayList<>());
+        return VariantArena.allocate().set(new ArrayList<>());
     }
 
     /**
@@ -3763,6 +5502,7 @@ public class Variant {
      * @return Является ли значение этого объекта List.
      */
     public boolean isList() {
+        if (VariantArena.DEBUG && object == VariantArena.RELEASED) throw new VariantArenaError();
         return type == VariantType.LIST;
     }
 
@@ -3780,7 +5520,7 @@ public class Variant {
     public boolean isList(int childIndex) {
         if (type != VariantType.LIST) throw new VariantTypeError(type, VariantType.LIST);
         if (childIndex < 0 || childIndex >= ((List<?>) object).size()) throw new VariantChildIndexError(childIndex, ((List<?>) object).size());
-        return ((List<Variant>) object).get(childIndex).isList();
+        return ((VariantList) object).peek(childIndex).isList();
     }
 
     /**
@@ -3797,7 +5537,7 @@ public class Variant {
     public boolean isList(String childName) {
         if (type != VariantType.MAP) throw new VariantTypeError(type, VariantType.MAP);
         if (!((Map<?, ?>) object).containsKey(childName)) throw new VariantChildNameError(childName);
-        return ((Map<String, Variant>) object).get(childName).isList();
+        return ((VariantMap) object).peek(childName).isList();
     }
 
     /**
@@ -3851,7 +5591,10 @@ public class Variant {
      * @throws VariantValueError Если значение не может быть преобразовано к указанному типу, будет вызвано исключение.
      */
     public List<Variant> getList(int childIndex) {
-        return get(childIndex).asList();
+        if (type != VariantType.LIST) throw new VariantTypeError(type, VariantType.LIST);
+        if (childIndex < 0 || childIndex >= ((List<?>) object).size()) throw new VariantChildIndexError(childIndex, ((List<?>) object).size());
+        VariantList list = (VariantList) object;
+        return list.peek(childIndex).asList();
     }
 
     /**
@@ -3865,9 +5608,13 @@ public class Variant {
      * @throws VariantTypeError Если этот объект не является списком, будет вызвано исключение.
      */
     public @Nullable List<Variant> getListOrNull(int childIndex) {
-        Variant child = getOrNull(childIndex);
-        if (child == null) return null;
-        return child.asListOrNull();
+        if (type != VariantType.LIST) throw new VariantTypeError(type, VariantType.LIST);
+        if (childIndex < 0 || childIndex >= ((List<?>) object).size()) return null;
+        VariantList list = (VariantList) object;
+        if (list.getStorage() != VariantListStorage.GENERIC) {
+            return null;
+        }
+        return list.peek(childIndex).asListOrNull();
     }
 
     /**
@@ -3882,9 +5629,13 @@ public class Variant {
      * @throws VariantTypeError Если этот объект не является списком, будет вызвано исключение.
      */
     public List<Variant> getListOrDefault(int childIndex, List<Variant> defaultValue) {
-        Variant child = getOrNull(childIndex);
-        if (child == null) return defaultValue;
-        return child.asListOrDefault(defaultValue);
+        if (type != VariantType.LIST) throw new VariantTypeError(type, VariantType.LIST);
+        if (childIndex < 0 || childIndex >= ((List<?>) object).size()) return defaultValue;
+        VariantList list = (VariantList) object;
+        if (list.getStorage() != VariantListStorage.GENERIC) {
+            return defaultValue;
+        }
+        return list.peek(childIndex).asListOrDefault(defaultValue);
     }
 
     /**
@@ -3900,7 +5651,7 @@ public class Variant {
      * @throws VariantValueError Если значение не может быть преобразовано к указанному типу, будет вызвано исключение.
      */
     public List<Variant> getList(String childName) {
-        return get(childName).asList();
+        return peek(childName).asList();
     }
 
     /**
@@ -3914,7 +5665,7 @@ public class Variant {
      * @throws VariantTypeError Если этот объект не является таблицей, будет вызвано исключение.
      */
     public @Nullable List<Variant> getListOrNull(String childName) {
-        Variant child = getOrNull(childName);
+        Variant child = peekOrNull(childName);
         if (child == null) return null;
         return child.asListOrNull();
     }
@@ -3931,7 +5682,7 @@ public class Variant {
      * @throws VariantTypeError Если этот объект не является таблицей, будет вызвано исключение.
      */
     public List<Variant> getListOrDefault(String childName, List<Variant> defaultValue) {
-        Variant child = getOrNull(childName);
+        Variant child = peekOrNull(childName);
         if (child == null) return defaultValue;
         return child.asListOrDefault(defaultValue);
     }
@@ -4042,8 +5793,22 @@ public class Variant {
      */
     @SuppressWarnings("UnusedReturnValue")
     public Variant forEachList(Consumer<List<Variant>> handler) {
-        forEach((child) -> { if (child.isList()) handler.accept(child.asList()); });
-        return this;
+        if (type == VariantType.LIST) {
+            VariantList list = (VariantList) object;
+            if (list.getStorage() != VariantListStorage.GENERIC) {
+                return this;
+            }
+            for (int childIndex = 0; childIndex < list.size(); childIndex++) {
+                Variant child = list.peek(childIndex);
+                if (child.isList()) handler.accept(child.asList());
+            }
+            return this;
+        }
+        if (type == VariantType.MAP) {
+            ((VariantMap) object).peekEach((childName, child) -> { if (child.isList()) handler.accept(child.asList()); });
+            return this;
+        }
+        throw new VariantTypeError(type, VariantType.LIST, VariantType.MAP);
     }
 
     /**
@@ -4056,7 +5821,15 @@ public class Variant {
      */
     @SuppressWarnings("UnusedReturnValue")
     public Variant forEachListInList(BiConsumer<Integer, List<Variant>> handler) {
-        forEachInList((childIndex, child) -> { if (child.isList()) handler.accept(childIndex, child.asList()); });
+        if (type != VariantType.LIST) throw new VariantTypeError(type, VariantType.LIST);
+        VariantList list = (VariantList) object;
+        if (list.getStorage() != VariantListStorage.GENERIC) {
+            return this;
+        }
+        for (int childIndex = 0; childIndex < list.size(); childIndex++) {
+            Variant child = list.peek(childIndex);
+            if (child.isList()) handler.accept(childIndex, child.asList());
+        }
         return this;
     }
 
@@ -4070,7 +5843,8 @@ public class Variant {
      */
     @SuppressWarnings("UnusedReturnValue")
     public Variant forEachListInMap(BiConsumer<String, List<Variant>> handler) {
-        forEachInMap((childName, child) -> { if (child.isList()) handler.accept(childName, child.asList()); });
+        if (type != VariantType.MAP) throw new VariantTypeError(type, VariantType.MAP);
+        ((VariantMap) object).peekEach((childName, child) -> { if (child.isList()) handler.accept(childName, child.asList()); });
         return this;
     }
 
@@ -4081,7 +5855,7 @@ public class Variant {
      * @return Объект со значением типа Map.
      */
     public static Variant newMap(Map<String, Variant> value) {
-        return new Variant(value);
+        return VariantArena.allocate().set(value);
     }
 
     /**
@@ -4090,7 +5864,7 @@ public class Variant {
      * @return Объект со значением типа Map по умолчанию.
      */
     public static Variant newMap() {
-        return new Variant(new HashMap<>());
+        return VariantArena.allocate().set(new HashMap<>());
     }
 
     /**
@@ -4099,6 +5873,7 @@ public class Variant {
      * @return Является ли значение этого объекта Map.
      */
     public boolean isMap() {
+        if (VariantArena.DEBUG && object == VariantArena.RELEASED) throw new VariantArenaError();
         return type == VariantType.MAP;
     }
 
@@ -4116,7 +5891,7 @@ public class Variant {
     public boolean isMap(int childIndex) {
         if (type != VariantType.LIST) throw new VariantTypeError(type, VariantType.LIST);
         if (childIndex < 0 || childIndex >= ((List<?>) object).size()) throw new VariantChildIndexError(childIndex, ((List<?>) object).size());
-        return ((List<Variant>) object).get(childIndex).isMap();
+        return ((VariantList) object).peek(childIndex).isMap();
     }
 
     /**
@@ -4133,7 +5908,7 @@ public class Variant {
     public boolean isMap(String childName) {
         if (type != VariantType.MAP) throw new VariantTypeError(type, VariantType.MAP);
         if (!((Map<?, ?>) object).containsKey(childName)) throw new VariantChildNameError(childName);
-        return ((Map<String, Variant>) object).get(childName).isMap();
+        return ((VariantMap) object).peek(childName).isMap();
     }
 
     /**
@@ -4187,7 +5962,10 @@ public class Variant {
      * @throws VariantValueError Если значение не может быть преобразовано к указанному типу, будет вызвано исключение.
      */
     public Map<String, Variant> getMap(int childIndex) {
-        return get(childIndex).asMap();
+        if (type != VariantType.LIST) throw new VariantTypeError(type, VariantType.LIST);
+        if (childIndex < 0 || childIndex >= ((List<?>) object).size()) throw new VariantChildIndexError(childIndex, ((List<?>) object).size());
+        VariantList list = (VariantList) object;
+        return list.peek(childIndex).asMap();
     }
 
     /**
@@ -4201,9 +5979,13 @@ public class Variant {
      * @throws VariantTypeError Если этот объект не является списком, будет вызвано исключение.
      */
     public @Nullable Map<String, Variant> getMapOrNull(int childIndex) {
-        Variant child = getOrNull(childIndex);
-        if (child == null) return null;
-        return child.asMapOrNull();
+        if (type != VariantType.LIST) throw new VariantTypeError(type, VariantType.LIST);
+        if (childIndex < 0 || childIndex >= ((List<?>) object).size()) return null;
+        VariantList list = (VariantList) object;
+        if (list.getStorage() != VariantListStorage.GENERIC) {
+            return null;
+        }
+        return list.peek(childIndex).asMapOrNull();
     }
 
     /**
@@ -4218,9 +6000,13 @@ public class Variant {
      * @throws VariantTypeError Если этот объект не является списком, будет вызвано исключение.
      */
     public Map<String, Variant> getMapOrDefault(int childIndex, Map<String, Variant> defaultValue) {
-        Variant child = getOrNull(childIndex);
-        if (child == null) return defaultValue;
-        return child.asMapOrDefault(defaultValue);
+        if (type != VariantType.LIST) throw new VariantTypeError(type, VariantType.LIST);
+        if (childIndex < 0 || childIndex >= ((List<?>) object).size()) return defaultValue;
+        VariantList list = (VariantList) object;
+        if (list.getStorage() != VariantListStorage.GENERIC) {
+            return defaultValue;
+        }
+        return list.peek(childIndex).asMapOrDefault(defaultValue);
     }
 
     /**
@@ -4236,7 +6022,7 @@ public class Variant {
      * @throws VariantValueError Если значение не может быть преобразовано к указанному типу, будет вызвано исключение.
      */
     public Map<String, Variant> getMap(String childName) {
-        return get(childName).asMap();
+        return peek(childName).asMap();
     }
 
     /**
@@ -4250,7 +6036,7 @@ public class Variant {
      * @throws VariantTypeError Если этот объект не является таблицей, будет вызвано исключение.
      */
     public @Nullable Map<String, Variant> getMapOrNull(String childName) {
-        Variant child = getOrNull(childName);
+        Variant child = peekOrNull(childName);
         if (child == null) return null;
         return child.asMapOrNull();
     }
@@ -4267,7 +6053,7 @@ public class Variant {
      * @throws VariantTypeError Если этот объект не является таблицей, будет вызвано исключение.
      */
     public Map<String, Variant> getMapOrDefault(String childName, Map<String, Variant> defaultValue) {
-        Variant child = getOrNull(childName);
+        Variant child = peekOrNull(childName);
         if (child == null) return defaultValue;
         return child.asMapOrDefault(defaultValue);
     }
@@ -4378,8 +6164,22 @@ public class Variant {
      */
     @SuppressWarnings("UnusedReturnValue")
     public Variant forEachMap(Consumer<Map<String, Variant>> handler) {
-        forEach((child) -> { if (child.isMap()) handler.accept(child.asMap()); });
-        return this;
+        if (type == VariantType.LIST) {
+            VariantList list = (VariantList) object;
+            if (list.getStorage() != VariantListStorage.GENERIC) {
+                return this;
+            }
+            for (int childIndex = 0; childIndex < list.size(); childIndex++) {
+                Variant child = list.peek(childIndex);
+                if (child.isMap()) handler.accept(child.asMap());
+            }
+            return this;
+        }
+        if (type == VariantType.MAP) {
+            ((VariantMap) object).peekEach((childName, child) -> { if (child.isMap()) handler.accept(child.asMap()); });
+            return this;
+        }
+        throw new VariantTypeError(type, VariantType.LIST, VariantType.MAP);
     }
 
     /**
@@ -4392,7 +6192,15 @@ public class Variant {
      */
     @SuppressWarnings("UnusedReturnValue")
     public Variant forEachMapInList(BiConsumer<Integer, Map<String, Variant>> handler) {
-        forEachInList((childIndex, child) -> { if (child.isMap()) handler.accept(childIndex, child.asMap()); });
+        if (type != VariantType.LIST) throw new VariantTypeError(type, VariantType.LIST);
+        VariantList list = (VariantList) object;
+        if (list.getStorage() != VariantListStorage.GENERIC) {
+            return this;
+        }
+        for (int childIndex = 0; childIndex < list.size(); childIndex++) {
+            Variant child = list.peek(childIndex);
+            if (child.isMap()) handler.accept(childIndex, child.asMap());
+        }
         return this;
     }
 
@@ -4406,7 +6214,8 @@ public class Variant {
      */
     @SuppressWarnings("UnusedReturnValue")
     public Variant forEachMapInMap(BiConsumer<String, Map<String, Variant>> handler) {
-        forEachInMap((childName, child) -> { if (child.isMap()) handler.accept(childName, child.asMap()); });
+        if (type != VariantType.MAP) throw new VariantTypeError(type, VariantType.MAP);
+        ((VariantMap) object).peekEach((childName, child) -> { if (child.isMap()) handler.accept(childName, child.asMap()); });
         return this;
     }
 }
\ No newline at end of file
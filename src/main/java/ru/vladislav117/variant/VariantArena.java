@@ -0,0 +1,317 @@
+package ru.vladislav117.variant;
+
+import org.jetbrains.annotations.Nullable;
+import ru.vladislav117.variant.error.VariantArenaError;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Область выделения объектов для деревьев, живущих не дольше одного запроса.
+ * Пока на потоке открыта область, объекты, создаваемые фабричными методами Variant (newString, newList и т.п.)
+ * и при разборе json, а также списки и таблицы разобранных дочерних объектов берутся из пула потока.
+ * При закрытии области все созданные в ней объекты очищаются и возвращаются в пул вместе с массивами списков и таблиц.
+ * <p>
+ * Объекты области и их дочерние объекты нельзя использовать после её закрытия.
+ * Дерево, которое должно пережить область, нужно скопировать методом {@link #detach(Variant)}.
+ * Присоединение объекта области методом attach к объекту, который её переживёт (созданному вне области
+ * или во внешней вложенной области), копирует присоединяемое дерево так же, как {@link #detach(Variant)}.
+ * Внутри одной области attach объекты не копирует.
+ * Области можно вкладывать друг в друга; закрывать их нужно в обратном порядке на том же потоке, например через try-with-resources.
+ * <p>
+ * В режиме отладки (системное свойство {@code ru.vladislav117.variant.arena.debug=true}) объекты закрытой области
+ * не возвращаются в пул, а помечаются: проверки и получение типа, размера, значения, хеша, сравнение и изменение
+ * такого объекта вызывают {@link VariantArenaError}.
+ */
+public final class VariantArena implements AutoCloseable {
+    /**
+     * Режим отладки.
+     */
+    public static final boolean DEBUG = Boolean.getBoolean("ru.vladislav117.variant.arena.debug");
+    /**
+     * Максимальное количество свободных объектов в пуле потока.
+     */
+    public static final int MAX_POOLED_NODES = Integer.getInteger("ru.vladislav117.variant.arena.nodes", 1 << 16);
+    /**
+     * Максимальное количество свободных списков и таблиц (каждого вида) в пуле потока.
+     */
+    public static final int MAX_POOLED_CONTAINERS = Integer.getInteger("ru.vladislav117.variant.arena.containers", 1 << 12);
+    /**
+     * Максимальная вместимость списка или таблицы, возвращаемых в пул.
+     */
+    public static final int MAX_POOLED_CAPACITY = 1024;
+    /**
+     * Список, который получают объекты закрытой области в режиме отладки.
+     */
+    protected static final ReleasedList RELEASED = new ReleasedList();
+    protected static final ThreadLocal<VariantArena> ARENAS = new ThreadLocal<>();
+    /**
+     * Количество потоков с открытой областью; пока оно равно нулю, выделение не обращается к ThreadLocal.
+     */
+    protected static final AtomicInteger activeThreads = new AtomicInteger();
+
+    protected final Thread owner = Thread.currentThread();
+    protected int depth = 0;
+    protected int suspended = 0;
+    protected int[] marks = new int[4];
+    protected Node[] nodes = new Node[64];
+    protected int nodeCount = 0;
+    protected Node[] freeNodes = new Node[64];
+    protected int freeNodeCount = 0;
+    protected VariantList[] freeLists = new VariantList[16];
+    protected int freeListCount = 0;
+    protected VariantMap[] freeMaps = new VariantMap[16];
+    protected int freeMapCount = 0;
+
+    private VariantArena() {
+    }
+
+    /**
+     * Открытие области на текущем потоке.
+     *
+     * @return Область, которую нужно закрыть.
+     */
+    public static VariantArena open() {
+        VariantArena arena = ARENAS.get();
+        if (arena == null) {
+            arena = new VariantArena();
+            ARENAS.set(arena);
+        }
+        if (arena.depth == 0) activeThreads.incrementAndGet();
+        if (arena.depth == arena.marks.length) arena.marks = Arrays.copyOf(arena.marks, arena.depth * 2);
+        arena.marks[arena.depth++] = arena.nodeCount;
+        return arena;
+    }
+
+    /**
+     * Закрытие последней открытой на потоке области: созданные в ней объекты возвращаются в пул.
+     *
+     * @throws VariantArenaError Если область закрывается на другом потоке или уже закрыта, будет вызвано исключение.
+     */
+    @Override
+    public void close() {
+        if (Thread.currentThread() != owner) throw new VariantArenaError("Arena must be closed by the thread that opened it");
+        if (depth == 0) throw new VariantArenaError("Arena is already closed");
+        int mark = marks[--depth];
+        for (int index = nodeCount - 1; index >= mark; index--) {
+            release(nodes[index]);
+            nodes[index] = null;
+        }
+        nodeCount = mark;
+        if (depth == 0) activeThreads.decrementAndGet();
+    }
+
+    /**
+     * Проверка, открыта ли область на текущем потоке.
+     *
+     * @return Открыта ли область.
+     */
+    public static boolean isActive() {
+        return current() != null;
+    }
+
+    /**
+     * Создание копии дерева, не принадлежащей ни одной области.
+     *
+     * @param variant Объект
+     * @return Глубокая копия объекта.
+     */
+    public static Variant detach(Variant variant) {
+        VariantArena arena = suspend();
+        try {
+            return variant.deepCopy();
+        } finally {
+            resume(arena);
+        }
+    }
+
+    /**
+     * Подготовка объекта к присоединению: объект области, который не переживёт родителя, копируется.
+     *
+     * @param parent Родитель
+     * @param child Присоединяемый объект
+     * @return Присоединяемый объект или его копия, не принадлежащая ни одной области.
+     */
+    protected static Variant adopt(Variant parent, Variant child) {
+        if (!(child instanceof Node)) return child;
+        Node node = (Node) child;
+        if (parent instanceof Node && ((Node) parent).arena == node.arena && ((Node) parent).level >= node.level) return child;
+        return detach(child);
+    }
+
+    /**
+     * Приостановка открытой на текущем потоке области: до возобновления объекты создаются обычным образом.
+     *
+     * @return Приостановленная область или null, если область не открыта.
+     */
+    protected static @Nullable VariantArena suspend() {
+        VariantArena arena = current();
+        if (arena != null) arena.suspended++;
+        return arena;
+    }
+
+    /**
+     * Возобновление области, приостановленной методом {@link #suspend()}.
+     *
+     * @param arena Приостановленная область или null
+     */
+    protected static void resume(@Nullable VariantArena arena) {
+        if (arena != null) arena.suspended--;
+    }
+
+    /**
+     * Получение открытой на текущем потоке области.
+     *
+     * @return Область или null, если область не открыта.
+     */
+    protected static @Nullable VariantArena current() {
+        if (activeThreads.get() == 0) return null;
+        VariantArena arena = ARENAS.get();
+        if (arena == null || arena.depth == 0 || arena.suspended != 0) return null;
+        return arena;
+    }
+
+    /**
+     * Выделение пустого объекта: из пула, если на потоке открыта область, иначе обычным созданием.
+     *
+     * @return Объект со значением null.
+     */
+    protected static Variant allocate() {
+        VariantArena arena = current();
+        if (arena == null) return new Variant(null);
+        Node node = arena.freeNodeCount == 0 ? new Node() : arena.freeNodes[--arena.freeNodeCount];
+        arena.freeNodes[arena.freeNodeCount] = null;
+        node.arena = arena;
+        node.level = arena.depth;
+        if (arena.nodeCount == arena.nodes.length) arena.nodes = Arrays.copyOf(arena.nodes, arena.nodeCount * 2);
+        arena.nodes[arena.nodeCount++] = node;
+        return node;
+    }
+
+    /**
+     * Выделение пустого списка: из пула, если на потоке открыта область, иначе обычным созданием.
+     * Список должен сразу передаваться объекту, выделенному через {@link #allocate()}.
+     *
+     * @return Пустой список.
+     */
+    protected static VariantList allocateList() {
+        VariantArena arena = current();
+        if (arena == null || arena.freeListCount == 0) return new VariantList();
+        VariantList list = arena.freeLists[--arena.freeListCount];
+        arena.freeLists[arena.freeListCount] = null;
+        return list;
+    }
+
+    /**
+     * Выделение пустой таблицы: из пула, если на потоке открыта область, иначе обычным созданием.
+     * Таблица должна сразу передаваться объекту, выделенному через {@link #allocate()}.
+     *
+     * @return Пустая таблица.
+     */
+    protected static VariantMap allocateMap() {
+        VariantArena arena = current();
+        if (arena == null || arena.freeMapCount == 0) return new VariantMap();
+        VariantMap map = arena.freeMaps[--arena.freeMapCount];
+        arena.freeMaps[arena.freeMapCount] = null;
+        return map;
+    }
+
+    /**
+     * Возвращение объекта закрытой области в пул (или его пометка в режиме отладки).
+     *
+     * @param node Объект
+     */
+    protected void release(Node node) {
+        Object object = node.object;
+        if (DEBUG) {
+            node.type = VariantType.LIST;
+            node.object = RELEASED;
+            return;
+        }
+        if (object != null) {
+            if (object.getClass() == VariantList.class) {
+                recycle((VariantList) object);
+            } else if (object.getClass() == VariantMap.class) {
+                recycle((VariantMap) object);
+            }
+        }
+        node.type = VariantType.NULL;
+        node.object = null;
+        node.precision = VariantNumberPrecision.LONG;
+        node.longNumber = 0;
+        node.doubleNumber = 0;
+        node.parent = null;
+        node.cachedJson = null;
+        if (freeNodeCount == MAX_POOLED_NODES) return;
+        if (freeNodeCount == freeNodes.length) freeNodes = Arrays.copyOf(freeNodes, freeNodeCount * 2);
+        freeNodes[freeNodeCount++] = node;
+    }
+
+    /**
+     * Очистка списка и его возвращение в пул.
+     *
+     * @param list Список
+     */
+    protected void recycle(VariantList list) {
+        if (freeListCount == MAX_POOLED_CONTAINERS || list.capacity() > MAX_POOLED_CAPACITY) return;
+        list.owner = null;
+        list.clear();
+        if (freeListCount == freeLists.length) freeLists = Arrays.copyOf(freeLists, freeListCount * 2);
+        freeLists[freeListCount++] = list;
+    }
+
+    /**
+     * Очистка компактной таблицы и её возвращение в пул.
+     *
+     * @param map Таблица
+     */
+    protected void recycle(VariantMap map) {
+        if (freeMapCount == MAX_POOLED_CONTAINERS || map.hashMap != null || map.values.length > MAX_POOLED_CAPACITY) return;
+        map.owner = null;
+        map.clear();
+        if (freeMapCount == freeMaps.length) freeMaps = Arrays.copyOf(freeMaps, freeMapCount * 2);
+        freeMaps[freeMapCount++] = map;
+    }
+
+    /**
+     * Объект, выделенный в области.
+     */
+    protected static final class Node extends Variant {
+        /**
+         * Область, которой принадлежит объект.
+         */
+        protected VariantArena arena = null;
+        /**
+         * Глубина вложенности области при выделении объекта.
+         */
+        protected int level = 0;
+
+        protected Node() {
+            super(null);
+        }
+    }
+
+    /**
+     * Список объектов закрытой области в режиме отладки: любое обращение к нему вызывает {@link VariantArenaError}.
+     */
+    protected static final class ReleasedList extends LazyVariantList {
+        protected ReleasedList() {
+            super(null, -1);
+        }
+
+        @Override
+        public boolean isLoaded() {
+            throw new VariantArenaError();
+        }
+
+        @Override
+        protected void load() {
+            throw new VariantArenaError();
+        }
+
+        @Override
+        protected VariantList copy() {
+            throw new VariantArenaError();
+        }
+    }
+}
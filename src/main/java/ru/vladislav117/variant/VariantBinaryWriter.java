@@ -0,0 +1,228 @@
+package ru.vladislav117.variant;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Основа потоковой записи Variant в двоичные форматы: буфер, передача данных в поток или буфер
+ * либо накопление в растущем массиве, а также кодирование строк в UTF-8.
+ */
+public abstract class VariantBinaryWriter {
+    /**
+     * Размер буфера записи.
+     */
+    protected static final int BUFFER_SIZE = 8192;
+    /**
+     * Размер буфера, начиная с которого он не сохраняется для повторного использования при записи в массив.
+     */
+    protected static final int RETAINED_BUFFER_SIZE = 1 << 20;
+
+    protected OutputStream stream = null;
+    protected ByteBuffer byteBuffer = null;
+    protected byte[] bytes = new byte[BUFFER_SIZE];
+    protected int position = 0;
+
+    /**
+     * Создание объекта записи в массив: буфер растёт вместо передачи данных получателю.
+     */
+    protected VariantBinaryWriter() {
+    }
+
+    /**
+     * Создание объекта записи в поток.
+     *
+     * @param stream Поток
+     */
+    protected VariantBinaryWriter(OutputStream stream) {
+        this.stream = stream;
+    }
+
+    /**
+     * Создание объекта записи в буфер.
+     *
+     * @param buffer Буфер
+     */
+    protected VariantBinaryWriter(ByteBuffer buffer) {
+        this.byteBuffer = buffer;
+    }
+
+    /**
+     * Запись значения.
+     *
+     * @param variant Объект
+     * @throws IOException Ошибка записи.
+     */
+    protected abstract void writeValue(Variant variant) throws IOException;
+
+    /**
+     * Запись объекта в массив, накопленный объектом записи в массив; буфер после этого можно использовать снова.
+     *
+     * @param variant Объект
+     * @return Массив байтов.
+     */
+    protected byte[] writeToArray(Variant variant) {
+        position = 0;
+        try {
+            writeValue(variant);
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+        byte[] result = Arrays.copyOf(bytes, position);
+        if (bytes.length > RETAINED_BUFFER_SIZE) bytes = new byte[BUFFER_SIZE];
+        return result;
+    }
+
+    /**
+     * Запись объекта.
+     * Данные могут остаться в буфере до вызова {@link #flush()}.
+     *
+     * @param variant Объект
+     * @throws UncheckedIOException Если при записи произошла ошибка, будет вызвано исключение.
+     */
+    public void write(Variant variant) {
+        try {
+            writeValue(variant);
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    /**
+     * Передача накопленных в буфере данных получателю.
+     *
+     * @throws UncheckedIOException Если при записи произошла ошибка, будет вызвано исключение.
+     */
+    public void flush() {
+        try {
+            flushBuffer();
+            if (stream != null) stream.flush();
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    /**
+     * Передача буфера получателю.
+     *
+     * @throws IOException Ошибка записи.
+     */
+    protected void flushBuffer() throws IOException {
+        if (position == 0) return;
+        if (stream != null) {
+            stream.write(bytes, 0, position);
+        } else if (byteBuffer != null) {
+            byteBuffer.put(bytes, 0, position);
+        } else {
+            return;
+        }
+        position = 0;
+    }
+
+    /**
+     * Обеспечение места в буфере.
+     *
+     * @param count Требуемое количество байтов (не больше размера буфера при записи получателю)
+     * @throws IOException Ошибка записи.
+     */
+    protected void ensure(int count) throws IOException {
+        if (position + count <= bytes.length) return;
+        if (stream == null && byteBuffer == null) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, position + count));
+            return;
+        }
+        flushBuffer();
+    }
+
+    /**
+     * Запись байтов без изменений; большие части при записи получателю передаются напрямую.
+     *
+     * @param source Массив байтов
+     * @param from   Начало части
+     * @param count  Количество байтов
+     * @throws IOException Ошибка записи.
+     */
+    protected void writeRaw(byte[] source, int from, int count) throws IOException {
+        if (count > bytes.length / 2 && (stream != null || byteBuffer != null)) {
+            flushBuffer();
+            if (stream != null) {
+                stream.write(source, from, count);
+            } else {
+                byteBuffer.put(source, from, count);
+            }
+            return;
+        }
+        ensure(count);
+        System.arraycopy(source, from, bytes, position, count);
+        position += count;
+    }
+
+    /**
+     * Подсчёт длины строки в UTF-8 с учётом замены одиночных суррогатов на '?'.
+     *
+     * @param string Строка
+     * @return Длина в байтах.
+     */
+    protected static long utf8Length(String string) {
+        int length = string.length();
+        long utf8Length = 0;
+        for (int index = 0; index < length; index++) {
+            char character = string.charAt(index);
+            if (character < 0x80) {
+                utf8Length++;
+            } else if (character < 0x800) {
+                utf8Length += 2;
+            } else if (Character.isHighSurrogate(character) && index + 1 < length && Character.isLowSurrogate(string.charAt(index + 1))) {
+                utf8Length += 4;
+                index++;
+            } else if (Character.isSurrogate(character)) {
+                utf8Length++;
+            } else {
+                utf8Length += 3;
+            }
+        }
+        return utf8Length;
+    }
+
+    /**
+     * Запись строки в UTF-8. Одиночные суррогаты заменяются на '?', как при записи json.
+     *
+     * @param string Строка
+     * @throws IOException Ошибка записи.
+     */
+    protected void writeUtf8(String string) throws IOException {
+        int length = string.length();
+        int index = 0;
+        while (index < length) {
+            int end = Math.min(length, index + BUFFER_SIZE / 4);
+            if (end < length && Character.isHighSurrogate(string.charAt(end - 1))) end++;
+            ensure((end - index) * 3);
+            byte[] bytes = this.bytes;
+            int count = position;
+            for (; index < end; index++) {
+                char character = string.charAt(index);
+                if (character < 0x80) {
+                    bytes[count++] = (byte) character;
+                } else if (character < 0x800) {
+                    bytes[count++] = (byte) (0xC0 | (character >> 6));
+                    bytes[count++] = (byte) (0x80 | (character & 0x3F));
+                } else if (Character.isHighSurrogate(character) && index + 1 < length && Character.isLowSurrogate(string.charAt(index + 1))) {
+                    int codePoint = Character.toCodePoint(character, string.charAt(++index));
+                    bytes[count++] = (byte) (0xF0 | (codePoint >> 18));
+                    bytes[count++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                    bytes[count++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                    bytes[count++] = (byte) (0x80 | (codePoint & 0x3F));
+                } else if (Character.isSurrogate(character)) {
+                    bytes[count++] = '?';
+                } else {
+                    bytes[count++] = (byte) (0xE0 | (character >> 12));
+                    bytes[count++] = (byte) (0x80 | ((character >> 6) & 0x3F));
+                    bytes[count++] = (byte) (0x80 | (character & 0x3F));
+                }
+            }
+            position = count;
+        }
+    }
+}
@@ -0,0 +1,636 @@
+package ru.vladislav117.variant;
+
+import org.jetbrains.annotations.Nullable;
+import ru.vladislav117.variant.error.VariantFormatError;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Потоковый парсер CBOR (RFC 8949), создающий Variant напрямую.
+ * Поддерживаются все основные типы, включая элементы с неизвестной заранее длиной:
+ * <ul>
+ *     <li>целые числа сохраняются как long, а не помещающиеся в long — с точностью {@link VariantNumberPrecision#DECIMAL};</li>
+ *     <li>half, float и double сохраняются как double;</li>
+ *     <li>bignum (теги 2 и 3), десятичные и двоичные дроби (теги 4 и 5) нормализуются, как в {@link VariantDecimal#setDecimal(Variant, BigDecimal)};</li>
+ *     <li>байтовые строки, которых нет среди типов Variant, преобразуются в строки base64url без дополнения, как предлагает RFC 8949 для json;</li>
+ *     <li>текстовые строки должны быть корректным UTF-8;</li>
+ *     <li>имена таблиц должны быть строками или целыми числами;</li>
+ *     <li>остальные теги пропускаются, undefined читается как null.</li>
+ * </ul>
+ * Null, логические значения, пустые строки и небольшие целые числа представляются общими экземплярами {@link CanonicalVariant}.
+ * Глубина вложенности списков, таблиц и тегов ограничена {@link #MAX_DEPTH}, чтобы разбор не переполнял стек.
+ */
+public class VariantCborParser {
+    /**
+     * Размер буфера чтения из потока или буфера.
+     */
+    protected static final int BUFFER_SIZE = 8192;
+    /**
+     * Максимальный порядок двоичной дроби (тег 5).
+     */
+    protected static final int MAX_BIGFLOAT_EXPONENT = 1 << 16;
+    /**
+     * Максимальная глубина вложенности (системное свойство {@code ru.vladislav117.variant.cbor.maxDepth}, по умолчанию 512).
+     */
+    public static final int MAX_DEPTH = Integer.getInteger("ru.vladislav117.variant.cbor.maxDepth", 512);
+
+    protected InputStream stream = null;
+    protected ByteBuffer source = null;
+    protected byte[] buffer;
+    protected int position;
+    protected int limit;
+    protected long bufferOffset;
+    protected int depth = 0;
+
+    /**
+     * Создание парсера для массива байтов.
+     *
+     * @param cbor   Массив байтов
+     * @param offset Начало данных в массиве
+     * @param length Длина данных
+     */
+    protected VariantCborParser(byte[] cbor, int offset, int length) {
+        buffer = cbor;
+        position = offset;
+        limit = offset + length;
+        bufferOffset = -offset;
+    }
+
+    /**
+     * Создание парсера для потока.
+     * Поток читается блоками, поэтому после чтения объектов в нём не остаётся прочитанных парсером байтов.
+     *
+     * @param stream Поток
+     */
+    public VariantCborParser(InputStream stream) {
+        this.stream = stream;
+        buffer = new byte[BUFFER_SIZE];
+    }
+
+    /**
+     * Разбор CBOR из массива байтов.
+     *
+     * @param cbor Массив байтов
+     * @return Объект.
+     * @throws VariantFormatError Если данные некорректны или после объекта есть лишние байты, будет вызвано исключение.
+     */
+    public static Variant parse(byte[] cbor) {
+        return parse(cbor, 0, cbor.length);
+    }
+
+    /**
+     * Разбор CBOR из части массива байтов.
+     *
+     * @param cbor   Массив байтов
+     * @param offset Начало данных в массиве
+     * @param length Длина данных
+     * @return Объект.
+     * @throws VariantFormatError Если данные некорректны или после объекта есть лишние байты, будет вызвано исключение.
+     */
+    public static Variant parse(byte[] cbor, int offset, int length) {
+        try {
+            return new VariantCborParser(cbor, offset, length).readDocument();
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    /**
+     * Разбор CBOR из потока.
+     * Поток читается до конца, но не закрывается.
+     *
+     * @param stream Поток
+     * @return Объект.
+     * @throws VariantFormatError   Если данные некорректны или после объекта есть лишние байты, будет вызвано исключение.
+     * @throws UncheckedIOException Если при чтении потока произошла ошибка, будет вызвано исключение.
+     */
+    public static Variant parse(InputStream stream) {
+        try {
+            return new VariantCborParser(stream).readDocument();
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    /**
+     * Разбор одного объекта CBOR из буфера, начиная с его текущей позиции.
+     * После разбора позиция буфера указывает на первый байт после объекта.
+     *
+     * @param buffer Буфер
+     * @return Объект.
+     * @throws VariantFormatError Если данные некорректны, будет вызвано исключение.
+     */
+    public static Variant parse(ByteBuffer buffer) {
+        VariantCborParser parser;
+        if (buffer.hasArray()) {
+            parser = new VariantCborParser(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+        } else {
+            parser = new VariantCborParser(new byte[Math.min(BUFFER_SIZE, buffer.remaining())], 0, 0);
+            parser.source = buffer;
+        }
+        try {
+            int start = parser.position;
+            Variant value = parser.readItem();
+            if (parser.source == null) {
+                buffer.position(buffer.position() + parser.position - start);
+            } else {
+                buffer.position(buffer.position() - (parser.limit - parser.position));
+            }
+            return value;
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    /**
+     * Чтение следующего объекта последовательности CBOR (RFC 8742).
+     *
+     * @return Объект или null, если данные закончились.
+     * @throws VariantFormatError   Если данные некорректны, будет вызвано исключение.
+     * @throws UncheckedIOException Если при чтении потока произошла ошибка, будет вызвано исключение.
+     */
+    public @Nullable Variant readNext() {
+        try {
+            if (position == limit && !fill()) return null;
+            return readItem();
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    /**
+     * Заполнение буфера следующей частью данных.
+     *
+     * @return Были ли прочитаны данные.
+     * @throws IOException Ошибка чтения.
+     */
+    protected boolean fill() throws IOException {
+        if (stream == null && source == null) return false;
+        bufferOffset += limit;
+        position = 0;
+        limit = 0;
+        int read;
+        if (stream != null) {
+            do {
+                read = stream.read(buffer, 0, buffer.length);
+            } while (read == 0);
+        } else {
+            read = Math.min(buffer.length, source.remaining());
+            if (read == 0) return false;
+            source.get(buffer, 0, read);
+        }
+        if (read < 0) return false;
+        limit = read;
+        return true;
+    }
+
+    /**
+     * Чтение следующего байта.
+     *
+     * @return Байт.
+     * @throws IOException Ошибка чтения.
+     */
+    protected int read() throws IOException {
+        if (position == limit && !fill()) throw error("unexpected end of data");
+        return buffer[position++] & 0xFF;
+    }
+
+    /**
+     * Чтение числа из нескольких байтов в порядке big-endian.
+     *
+     * @param count Количество байтов
+     * @return Число.
+     * @throws IOException Ошибка чтения.
+     */
+    protected long readNumber(int count) throws IOException {
+        long value = 0;
+        if (limit - position >= count) {
+            for (int index = 0; index < count; index++) value = value << 8 | (buffer[position++] & 0xFF);
+            return value;
+        }
+        for (int index = 0; index < count; index++) value = value << 8 | read();
+        return value;
+    }
+
+    /**
+     * Чтение указанного количества байтов.
+     *
+     * @param length Количество байтов
+     * @return Массив байтов.
+     * @throws IOException Ошибка чтения.
+     */
+    protected byte[] readBytes(int length) throws IOException {
+        if (limit - position >= length) {
+            byte[] bytes = Arrays.copyOfRange(buffer, position, position + length);
+            position += length;
+            return bytes;
+        }
+        if (stream == null && source == null) throw error("unexpected end of data");
+        byte[] bytes = new byte[Math.min(length, 1 << 20)];
+        int count = 0;
+        while (count < length) {
+            if (position == limit && !fill()) throw error("unexpected end of data");
+            if (count == bytes.length) bytes = Arrays.copyOf(bytes, (int) Math.min(length, bytes.length * 2L));
+            int chunk = Math.min(length - count, limit - position);
+            System.arraycopy(buffer, position, bytes, count, chunk);
+            position += chunk;
+            count += chunk;
+        }
+        return bytes;
+    }
+
+    /**
+     * Создание ошибки разбора в текущей позиции.
+     *
+     * @param message Сообщение об ошибке
+     * @return Ошибка.
+     */
+    protected VariantFormatError error(String message) {
+        return new VariantFormatError("Invalid CBOR at position " + (bufferOffset + position) + ": " + message);
+    }
+
+    /**
+     * Чтение документа: одного объекта, после которого нет данных.
+     *
+     * @return Объект.
+     * @throws IOException Ошибка чтения.
+     */
+    protected Variant readDocument() throws IOException {
+        Variant value = readItem();
+        if (position < limit || fill()) throw error("unexpected data after CBOR item");
+        return value;
+    }
+
+    /**
+     * Чтение объекта, который выдаётся наружу (общий экземпляр заменяется копией).
+     *
+     * @return Объект.
+     * @throws IOException Ошибка чтения.
+     */
+    protected Variant readItem() throws IOException {
+        return CanonicalVariant.detach(readValue(read()));
+    }
+
+    /**
+     * Чтение аргумента элемента данных.
+     *
+     * @param info Дополнительная информация начального байта
+     * @return Аргумент (беззнаковый).
+     * @throws IOException Ошибка чтения.
+     */
+    protected long readArgument(int info) throws IOException {
+        if (info < 24) return info;
+        switch (info) {
+            case 24:
+                return readNumber(1);
+            case 25:
+                return readNumber(2);
+            case 26:
+                return readNumber(4);
+            case 27:
+                return readNumber(8);
+            default:
+                throw error("invalid additional information " + info);
+        }
+    }
+
+    /**
+     * Чтение длины строки, списка или таблицы.
+     *
+     * @param info Дополнительная информация начального байта
+     * @return Длина.
+     * @throws IOException Ошибка чтения.
+     */
+    protected int readLength(int info) throws IOException {
+        long length = readArgument(info);
+        if (length < 0 || length > Integer.MAX_VALUE - 8) throw error("length is too large");
+        return (int) length;
+    }
+
+    /**
+     * Чтение значения.
+     * Листовое значение может быть общим экземпляром {@link CanonicalVariant}.
+     *
+     * @param initial Начальный байт
+     * @return Объект.
+     * @throws IOException Ошибка чтения.
+     */
+    protected Variant readValue(int initial) throws IOException {
+        int info = initial & 0x1F;
+        switch (initial >>> 5) {
+            case VariantCborWriter.UNSIGNED: {
+                long value = readArgument(info);
+                if (value >= 0) return newLong(value);
+                return VariantDecimal.setDecimal(VariantArena.allocate(), new BigDecimal(unsigned(value)));
+            }
+            case VariantCborWriter.NEGATIVE: {
+                long value = readArgument(info);
+                if (value >= 0) return newLong(~value);
+                return VariantDecimal.setDecimal(VariantArena.allocate(), new BigDecimal(unsigned(value).not()));
+            }
+            case VariantCborWriter.BYTES:
+                return newString(Base64.getUrlEncoder().withoutPadding().encodeToString(readByteString(info)));
+            case VariantCborWriter.TEXT:
+                return newString(readText(info));
+            case VariantCborWriter.ARRAY:
+                return readList(info);
+            case VariantCborWriter.MAP:
+                return readMap(info);
+            case VariantCborWriter.TAG:
+                return readTagged(readArgument(info));
+            default:
+                return readSimple(info);
+        }
+    }
+
+    /**
+     * Преобразование беззнакового 64-битного числа в BigInteger.
+     *
+     * @param value Число
+     * @return Число.
+     */
+    protected static BigInteger unsigned(long value) {
+        return new BigInteger(Long.toUnsignedString(value));
+    }
+
+    /**
+     * Чтение байтовой строки, в том числе состоящей из частей.
+     *
+     * @param info Дополнительная информация начального байта
+     * @return Байты.
+     * @throws IOException Ошибка чтения.
+     */
+    protected byte[] readByteString(int info) throws IOException {
+        if (info != 31) return readBytes(readLength(info));
+        byte[] bytes = new byte[0];
+        while (true) {
+            int initial = read();
+            if (initial == 0xFF) return bytes;
+            if (initial >>> 5 != VariantCborWriter.BYTES || (initial & 0x1F) == 31) throw error("invalid chunk of byte string");
+            byte[] chunk = readBytes(readLength(initial & 0x1F));
+            int length = bytes.length;
+            bytes = Arrays.copyOf(bytes, length + chunk.length);
+            System.arraycopy(chunk, 0, bytes, length, chunk.length);
+        }
+    }
+
+    /**
+     * Чтение текстовой строки, в том числе состоящей из частей.
+     * Строка из ASCII декодируется сразу, остальные хранятся в UTF-8 как {@link VariantUtf8String}.
+     * Некорректный UTF-8 вызывает ошибку разбора.
+     *
+     * @param info Дополнительная информация начального байта
+     * @return Строка.
+     * @throws IOException Ошибка чтения.
+     */
+    protected CharSequence readText(int info) throws IOException {
+        byte[] bytes;
+        if (info == 31) {
+            bytes = new byte[0];
+            while (true) {
+                int initial = read();
+                if (initial == 0xFF) break;
+                if (initial >>> 5 != VariantCborWriter.TEXT || (initial & 0x1F) == 31) throw error("invalid chunk of text string");
+                byte[] chunk = readBytes(readLength(initial & 0x1F));
+                int length = bytes.length;
+                bytes = Arrays.copyOf(bytes, length + chunk.length);
+                System.arraycopy(chunk, 0, bytes, length, chunk.length);
+            }
+        } else {
+            int length = readLength(info);
+            if (limit - position >= length && isAscii(buffer, position, length)) {
+                String string = new String(buffer, position, length, StandardCharsets.ISO_8859_1);
+                position += length;
+                return string;
+            }
+            bytes = readBytes(length);
+        }
+        if (isAscii(bytes, 0, bytes.length)) return new String(bytes, StandardCharsets.ISO_8859_1);
+        int check = VariantUtf8String.check(bytes, 0, bytes.length);
+        if (check == VariantUtf8String.INVALID) throw error("invalid UTF-8 in text string");
+        return new VariantUtf8String(bytes, 0, bytes.length, check == VariantUtf8String.PLAIN);
+    }
+
+    protected static boolean isAscii(byte[] bytes, int offset, int length) {
+        for (int index = offset, end = offset + length; index < end; index++) {
+            if (bytes[index] < 0) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Чтение списка.
+     *
+     * @param info Дополнительная информация начального байта
+     * @return Список.
+     * @throws IOException Ошибка чтения.
+     */
+    protected Variant readList(int info) throws IOException {
+        if (++depth > MAX_DEPTH) throw error("nesting is too deep");
+        VariantList list = VariantArena.allocateList();
+        if (info == 31) {
+            while (true) {
+                int initial = read();
+                if (initial == 0xFF) break;
+                list.addOwned(readValue(initial));
+            }
+        } else {
+            for (int index = readLength(info); index > 0; index--) list.addOwned(readValue(read()));
+        }
+        if (!VariantArena.isActive()) list.trimToSize();
+        depth--;
+        return Variant.adoptList(list);
+    }
+
+    /**
+     * Чтение таблицы.
+     *
+     * @param info Дополнительная информация начального байта
+     * @return Таблица.
+     * @throws IOException Ошибка чтения.
+     */
+    protected Variant readMap(int info) throws IOException {
+        if (++depth > MAX_DEPTH) throw error("nesting is too deep");
+        VariantMap map = VariantArena.allocateMap();
+        if (info == 31) {
+            while (true) {
+                int initial = read();
+                if (initial == 0xFF) break;
+                String key = readKey(initial);
+                map.put(key, readValue(read()));
+            }
+        } else {
+            for (int index = readLength(info); index > 0; index--) {
+                String key = readKey(read());
+                map.put(key, readValue(read()));
+            }
+        }
+        if (!VariantArena.isActive()) map.trimToSize();
+        depth--;
+        return Variant.adoptMap(map);
+    }
+
+    /**
+     * Чтение имени в таблице: строки или целого числа.
+     *
+     * @param initial Начальный байт
+     * @return Имя.
+     * @throws IOException Ошибка чтения.
+     */
+    protected String readKey(int initial) throws IOException {
+        int info = initial & 0x1F;
+        switch (initial >>> 5) {
+            case VariantCborWriter.TEXT:
+                return readText(info).toString();
+            case VariantCborWriter.UNSIGNED:
+                return Long.toUnsignedString(readArgument(info));
+            case VariantCborWriter.NEGATIVE:
+                long value = readArgument(info);
+                return value >= 0 ? Long.toString(~value) : unsigned(value).not().toString();
+            default:
+                throw error("map key must be a string or an integer");
+        }
+    }
+
+    /**
+     * Чтение значения с тегом.
+     *
+     * @param tag Тег
+     * @return Объект.
+     * @throws IOException Ошибка чтения.
+     */
+    protected Variant readTagged(long tag) throws IOException {
+        if (tag == 2 || tag == 3) {
+            int initial = read();
+            if (initial >>> 5 != VariantCborWriter.BYTES) throw error("bignum must be a byte string");
+            BigInteger value = new BigInteger(1, readByteString(initial & 0x1F));
+            return VariantDecimal.setDecimal(VariantArena.allocate(), new BigDecimal(tag == 2 ? value : value.not()));
+        }
+        if (tag == 4 || tag == 5) {
+            if (read() != (VariantCborWriter.ARRAY << 5 | 2)) throw error("decimal fraction must be an array of two items");
+            BigInteger exponent = readInteger(read());
+            BigInteger mantissa = readInteger(read());
+            BigDecimal value;
+            if (tag == 4) {
+                if (exponent.bitLength() >= Integer.SIZE) throw error("exponent is too large");
+                value = new BigDecimal(mantissa, -exponent.intValue());
+            } else {
+                if (exponent.abs().compareTo(BigInteger.valueOf(MAX_BIGFLOAT_EXPONENT)) > 0) throw error("exponent is too large");
+                int power = exponent.intValue();
+                value = power >= 0 ? new BigDecimal(mantissa.shiftLeft(power)) : new BigDecimal(mantissa.multiply(BigInteger.valueOf(5).pow(-power)), -power);
+            }
+            return VariantDecimal.setDecimal(VariantArena.allocate(), value);
+        }
+        if (++depth > MAX_DEPTH) throw error("nesting is too deep");
+        Variant value = readValue(read());
+        depth--;
+        return value;
+    }
+
+    /**
+     * Чтение целого числа (в том числе bignum) как BigInteger.
+     *
+     * @param initial Начальный байт
+     * @return Число.
+     * @throws IOException Ошибка чтения.
+     */
+    protected BigInteger readInteger(int initial) throws IOException {
+        int info = initial & 0x1F;
+        switch (initial >>> 5) {
+            case VariantCborWriter.UNSIGNED:
+                return unsigned(readArgument(info));
+            case VariantCborWriter.NEGATIVE:
+                return unsigned(readArgument(info)).not();
+            case VariantCborWriter.TAG:
+                long tag = readArgument(info);
+                int content = read();
+                if (tag != 2 && tag != 3 || content >>> 5 != VariantCborWriter.BYTES) throw error("integer expected");
+                BigInteger value = new BigInteger(1, readByteString(content & 0x1F));
+                return tag == 2 ? value : value.not();
+            default:
+                throw error("integer expected");
+        }
+    }
+
+    /**
+     * Чтение простого значения или числа с плавающей точкой.
+     *
+     * @param info Дополнительная информация начального байта
+     * @return Объект.
+     * @throws IOException Ошибка чтения.
+     */
+    protected Variant readSimple(int info) throws IOException {
+        switch (info) {
+            case 20:
+                return CanonicalVariant.ofBoolean(false);
+            case 21:
+                return CanonicalVariant.ofBoolean(true);
+            case 22:
+            case 23:
+                return CanonicalVariant.ofNull();
+            case 25:
+                return VariantArena.allocate().setDoubleNumber(fromHalf((int) readNumber(2)));
+            case 26:
+                return VariantArena.allocate().setDoubleNumber(Float.intBitsToFloat((int) readNumber(4)));
+            case 27:
+                return VariantArena.allocate().setDoubleNumber(Double.longBitsToDouble(readNumber(8)));
+            case 31:
+                throw error("unexpected break");
+            default:
+                throw error("unsupported simple value");
+        }
+    }
+
+    /**
+     * Преобразование half в double.
+     *
+     * @param half Биты half
+     * @return Число.
+     */
+    protected static double fromHalf(int half) {
+        int exponent = (half >> 10) & 0x1F;
+        int mantissa = half & 0x3FF;
+        double value;
+        if (exponent == 0) {
+            value = Math.scalb((double) mantissa, -24);
+        } else if (exponent == 31) {
+            value = mantissa == 0 ? Double.POSITIVE_INFINITY : Double.NaN;
+        } else {
+            value = Math.scalb((double) (mantissa + 1024), exponent - 25);
+        }
+        return (half & 0x8000) != 0 ? -value : value;
+    }
+
+    /**
+     * Создание объекта с целым числом: общий экземпляр, если он есть, иначе объект из области выделения.
+     *
+     * @param value Число
+     * @return Числовой объект.
+     */
+    protected Variant newLong(long value) {
+        if (value >= CanonicalVariant.LOW && value <= CanonicalVariant.HIGH) return CanonicalVariant.ofLong(value);
+        return VariantArena.allocate().setLongNumber(value);
+    }
+
+    /**
+     * Создание строкового объекта.
+     *
+     * @param value Строка (String или {@link VariantUtf8String})
+     * @return Строковый объект.
+     */
+    protected Variant newString(CharSequence value) {
+        if (value.length() == 0) return CanonicalVariant.ofEmptyString();
+        Variant variant = VariantArena.allocate();
+        variant.type = VariantType.STRING;
+        variant.object = value;
+        return variant;
+    }
+}
@@ -0,0 +1,328 @@
+package ru.vladislav117.variant;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.Map;
+
+/**
+ * Потоковая запись Variant в CBOR (RFC 8949).
+ * Используется предпочтительная сериализация: целые числа и длины записываются в кратчайшем виде,
+ * а double — в кратчайшем из форматов half, float и double, который сохраняет значение.
+ * Числа с точностью {@link VariantNumberPrecision#DECIMAL} записываются как bignum (теги 2 и 3)
+ * или десятичная дробь (тег 4). Списки и таблицы записываются с известной длиной.
+ */
+public class VariantCborWriter extends VariantBinaryWriter {
+    /**
+     * Переиспользуемые объекты записи в массив.
+     */
+    protected static final ThreadLocal<VariantCborWriter> ARRAY_WRITERS = ThreadLocal.withInitial(VariantCborWriter::new);
+
+    protected static final int UNSIGNED = 0;
+    protected static final int NEGATIVE = 1;
+    protected static final int BYTES = 2;
+    protected static final int TEXT = 3;
+    protected static final int ARRAY = 4;
+    protected static final int MAP = 5;
+    protected static final int TAG = 6;
+    protected static final int SIMPLE = 7;
+
+    /**
+     * Создание объекта записи в массив: буфер растёт вместо передачи данных получателю.
+     */
+    protected VariantCborWriter() {
+    }
+
+    /**
+     * Создание объекта записи в поток.
+     * Несколько объектов, записанных подряд, образуют последовательность CBOR (RFC 8742).
+     *
+     * @param stream Поток
+     */
+    public VariantCborWriter(OutputStream stream) {
+        super(stream);
+    }
+
+    /**
+     * Создание объекта записи в буфер.
+     * Если в буфере не хватит места, будет вызвано исключение {@link java.nio.BufferOverflowException}.
+     *
+     * @param buffer Буфер
+     */
+    public VariantCborWriter(ByteBuffer buffer) {
+        super(buffer);
+    }
+
+    /**
+     * Преобразование объекта в CBOR.
+     *
+     * @param variant Объект
+     * @return Массив байтов.
+     */
+    public static byte[] writeToByteArray(Variant variant) {
+        return ARRAY_WRITERS.get().writeToArray(variant);
+    }
+
+    /**
+     * Запись объекта в CBOR в поток.
+     * Поток не закрывается.
+     *
+     * @param variant Объект
+     * @param stream  Поток
+     * @throws java.io.UncheckedIOException Если при записи произошла ошибка, будет вызвано исключение.
+     */
+    public static void write(Variant variant, OutputStream stream) {
+        VariantCborWriter writer = new VariantCborWriter(stream);
+        writer.write(variant);
+        writer.flush();
+    }
+
+    /**
+     * Запись объекта в CBOR в буфер, начиная с его текущей позиции.
+     *
+     * @param variant Объект
+     * @param buffer  Буфер
+     * @throws java.nio.BufferOverflowException Если в буфере не хватает места, будет вызвано исключение.
+     */
+    public static void write(Variant variant, ByteBuffer buffer) {
+        VariantCborWriter writer = new VariantCborWriter(buffer);
+        writer.write(variant);
+        writer.flush();
+    }
+
+
+    /**
+     * Запись начального байта и аргумента элемента данных в кратчайшем виде.
+     *
+     * @param major    Основной тип
+     * @param argument Аргумент (беззнаковый)
+     * @throws IOException Ошибка записи.
+     */
+    protected void writeHead(int major, long argument) throws IOException {
+        ensure(9);
+        byte[] bytes = this.bytes;
+        int type = major << 5;
+        if (argument >= 0 && argument < 24) {
+            bytes[position++] = (byte) (type | argument);
+        } else if (argument >= 0 && argument < 0x100) {
+            bytes[position++] = (byte) (type | 24);
+            bytes[position++] = (byte) argument;
+        } else if (argument >= 0 && argument < 0x10000) {
+            bytes[position++] = (byte) (type | 25);
+            bytes[position++] = (byte) (argument >> 8);
+            bytes[position++] = (byte) argument;
+        } else if (argument >= 0 && argument < 0x100000000L) {
+            bytes[position++] = (byte) (type | 26);
+            for (int shift = 24; shift >= 0; shift -= 8) bytes[position++] = (byte) (argument >> shift);
+        } else {
+            bytes[position++] = (byte) (type | 27);
+            for (int shift = 56; shift >= 0; shift -= 8) bytes[position++] = (byte) (argument >> shift);
+        }
+    }
+
+    /**
+     * Запись значения.
+     *
+     * @param variant Объект
+     * @throws IOException Ошибка записи.
+     */
+    @Override
+    protected void writeValue(Variant variant) throws IOException {
+        switch (variant.type) {
+            case BOOLEAN:
+                writeHead(SIMPLE, (Boolean) variant.object ? 21 : 20);
+                return;
+            case NUMBER:
+                if (variant.precision == VariantNumberPrecision.LONG) {
+                    writeLong(variant.longNumber);
+                } else if (variant.precision == VariantNumberPrecision.DOUBLE) {
+                    writeDouble(variant.doubleNumber);
+                } else {
+                    writeDecimal(VariantDecimal.toBigDecimal(variant.precision, variant.object, variant.longNumber, variant.doubleNumber));
+                }
+                return;
+            case STRING:
+                writeText((CharSequence) variant.object);
+                return;
+            case LIST:
+                writeList((VariantList) variant.object);
+                return;
+            case MAP:
+                writeMap((VariantMap) variant.object);
+                return;
+            default:
+                writeHead(SIMPLE, 22);
+        }
+    }
+
+    /**
+     * Запись целого числа.
+     *
+     * @param value Число
+     * @throws IOException Ошибка записи.
+     */
+    protected void writeLong(long value) throws IOException {
+        if (value >= 0) {
+            writeHead(UNSIGNED, value);
+        } else {
+            writeHead(NEGATIVE, ~value);
+        }
+    }
+
+    /**
+     * Запись числа с плавающей точкой в кратчайшем формате, который сохраняет значение.
+     *
+     * @param value Число
+     * @throws IOException Ошибка записи.
+     */
+    protected void writeDouble(double value) throws IOException {
+        ensure(9);
+        byte[] bytes = this.bytes;
+        float single = (float) value;
+        if (single == value || Double.isNaN(value)) {
+            int half = toHalf(single);
+            if (half >= 0) {
+                bytes[position++] = (byte) 0xF9;
+                bytes[position++] = (byte) (half >> 8);
+                bytes[position++] = (byte) half;
+                return;
+            }
+            int bits = Float.floatToRawIntBits(single);
+            bytes[position++] = (byte) 0xFA;
+            for (int shift = 24; shift >= 0; shift -= 8) bytes[position++] = (byte) (bits >> shift);
+            return;
+        }
+        long bits = Double.doubleToRawLongBits(value);
+        bytes[position++] = (byte) 0xFB;
+        for (int shift = 56; shift >= 0; shift -= 8) bytes[position++] = (byte) (bits >> shift);
+    }
+
+    /**
+     * Преобразование float в half без потерь.
+     *
+     * @param value Число
+     * @return Биты half или -1, если число не представимо в half точно.
+     */
+    protected static int toHalf(float value) {
+        int bits = Float.floatToRawIntBits(value);
+        int sign = (bits >>> 16) & 0x8000;
+        int exponent = (bits >>> 23) & 0xFF;
+        int mantissa = bits & 0x7FFFFF;
+        if (exponent == 0xFF) return mantissa == 0 ? sign | 0x7C00 : 0x7E00;
+        if (exponent == 0) return mantissa == 0 ? sign : -1;
+        int halfExponent = exponent - 112;
+        if (halfExponent >= 31) return -1;
+        if (halfExponent >= 1) return (mantissa & 0x1FFF) != 0 ? -1 : sign | halfExponent << 10 | mantissa >> 13;
+        int shift = 126 - exponent;
+        if (shift > 24) return -1;
+        int significand = mantissa | 0x800000;
+        if ((significand & ((1 << shift) - 1)) != 0) return -1;
+        return sign | significand >> shift;
+    }
+
+    /**
+     * Запись числа произвольной точности: число с нулевым масштабом — как bignum, остальные — как десятичная дробь с тем же масштабом.
+     *
+     * @param value Число
+     * @throws IOException Ошибка записи.
+     */
+    protected void writeDecimal(BigDecimal value) throws IOException {
+        if (value.scale() == 0) {
+            writeInteger(value.unscaledValue());
+            return;
+        }
+        writeHead(TAG, 4);
+        writeHead(ARRAY, 2);
+        writeLong(-(long) value.scale());
+        writeInteger(value.unscaledValue());
+    }
+
+    /**
+     * Запись целого числа: в кратчайшем виде, если оно помещается в аргумент, иначе как bignum.
+     *
+     * @param value Число
+     * @throws IOException Ошибка записи.
+     */
+    protected void writeInteger(BigInteger value) throws IOException {
+        boolean negative = value.signum() < 0;
+        BigInteger magnitude = negative ? value.not() : value;
+        if (magnitude.bitLength() <= Long.SIZE) {
+            writeHead(negative ? NEGATIVE : UNSIGNED, magnitude.longValue());
+            return;
+        }
+        byte[] content = magnitude.toByteArray();
+        int from = content[0] == 0 ? 1 : 0;
+        writeHead(TAG, negative ? 3 : 2);
+        writeHead(BYTES, content.length - from);
+        writeRaw(content, from, content.length - from);
+    }
+
+    /**
+     * Запись строки в UTF-8. Одиночные суррогаты заменяются на '?', как при записи json.
+     *
+     * @param value Строка
+     * @throws IOException Ошибка записи.
+     */
+    protected void writeText(CharSequence value) throws IOException {
+        if (value instanceof VariantUtf8String) {
+            VariantUtf8String utf8 = (VariantUtf8String) value;
+            writeHead(TEXT, utf8.length);
+            writeRaw(utf8.bytes, utf8.offset, utf8.length);
+            return;
+        }
+        String string = value.toString();
+        writeHead(TEXT, utf8Length(string));
+        writeUtf8(string);
+    }
+
+    /**
+     * Запись списка. Элементы примитивных способов хранения записываются без создания объектов.
+     *
+     * @param list Список
+     * @throws IOException Ошибка записи.
+     */
+    protected void writeList(VariantList list) throws IOException {
+        list.load();
+        int size = list.size;
+        writeHead(ARRAY, size);
+        switch (list.storage) {
+            case LONG:
+                for (int index = 0; index < size; index++) writeLong(list.longs[index]);
+                return;
+            case DOUBLE:
+                for (int index = 0; index < size; index++) writeDouble(list.doubles[index]);
+                return;
+            case BOOLEAN:
+                for (int index = 0; index < size; index++) writeHead(SIMPLE, list.booleans[index] ? 21 : 20);
+                return;
+            default:
+                for (int index = 0; index < size; index++) writeValue(list.elements[index]);
+        }
+    }
+
+    /**
+     * Запись таблицы.
+     *
+     * @param map Таблица
+     * @throws IOException Ошибка записи.
+     */
+    protected void writeMap(VariantMap map) throws IOException {
+        map.load();
+        if (map.hashMap != null) {
+            writeHead(MAP, map.hashMap.size());
+            for (Map.Entry<String, Variant> entry : map.hashMap.entrySet()) {
+                writeText(entry.getKey());
+                writeValue(entry.getValue());
+            }
+            return;
+        }
+        int size = map.shape.size();
+        writeHead(MAP, size);
+        for (int index = 0; index < size; index++) {
+            writeText(map.shape.keys[index]);
+            writeValue(map.values[index]);
+        }
+    }
+}
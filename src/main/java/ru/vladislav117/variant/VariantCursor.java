@@ -0,0 +1,654 @@
+package ru.vladislav117.variant;
+
+import org.jetbrains.annotations.Nullable;
+import ru.vladislav117.variant.error.*;
+
+import java.math.BigDecimal;
+import java.util.function.BiConsumer;
+
+/**
+ * Курсор для чтения документа {@link VariantDocument}.
+ * Курсор указывает на один узел документа и читает его значение прямо из буферов документа.
+ * Методы move перемещают этот же курсор на дочерний узел, а методы getDouble(String) и подобные читают дочерний узел
+ * без создания объектов, поэтому обход документа не создаёт объект на каждый узел.
+ * Метод get создаёт новый курсор, а методы forEach передают обработчику один и тот же курсор,
+ * который обработчик может перемещать, но не должен сохранять.
+ * Курсор не потокобезопасен, но разные потоки могут читать один документ своими курсорами.
+ */
+public final class VariantCursor {
+    protected final VariantDocument document;
+    protected byte tag = VariantDocument.NULL;
+    protected long position = 0;
+
+    /**
+     * Создание курсора.
+     *
+     * @param document Документ
+     */
+    protected VariantCursor(VariantDocument document) {
+        this.document = document;
+    }
+
+    /**
+     * Перемещение на узел.
+     *
+     * @param node Положение узла в документе
+     */
+    protected void moveToNode(long node) {
+        tag = document.getByte(node);
+        position = node + 1;
+    }
+
+    /**
+     * Перемещение на элемент списка без проверок.
+     *
+     * @param childIndex Индекс элемента
+     */
+    protected void moveToElement(int childIndex) {
+        long elements = position + Integer.BYTES;
+        switch (tag) {
+            case VariantDocument.LIST:
+                moveToNode(document.getLong(elements + (long) childIndex * Long.BYTES));
+                return;
+            case VariantDocument.LONG_LIST:
+                tag = VariantDocument.LONG;
+                position = elements + (long) childIndex * Long.BYTES;
+                return;
+            case VariantDocument.DOUBLE_LIST:
+                tag = VariantDocument.DOUBLE;
+                position = elements + (long) childIndex * Long.BYTES;
+                return;
+            default:
+                tag = document.getByte(elements + childIndex) != 0 ? VariantDocument.TRUE : VariantDocument.FALSE;
+        }
+    }
+
+    /**
+     * Поиск записи таблицы по имени через индекс, упорядоченный по хэшу имени.
+     *
+     * @param childName Имя
+     * @return Номер записи или -1, если записи нет.
+     */
+    protected int find(String childName) {
+        int size = document.getInt(position);
+        long entries = position + Integer.BYTES;
+        long index = entries + (long) size * 2 * Long.BYTES;
+        int hash = childName.hashCode();
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if ((int) (document.getLong(index + (long) middle * Long.BYTES) >> 32) < hash) {
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        for (int current = low; current < size; current++) {
+            long item = document.getLong(index + (long) current * Long.BYTES);
+            if ((int) (item >> 32) != hash) break;
+            int entry = (int) item;
+            if (document.stringEquals(document.getLong(entries + (long) entry * 2 * Long.BYTES) + 1, childName)) return entry;
+        }
+        return -1;
+    }
+
+    /**
+     * Получение положения значения записи таблицы.
+     *
+     * @param entry Номер записи
+     * @return Положение узла значения.
+     */
+    protected long valueNode(int entry) {
+        return document.getLong(position + Integer.BYTES + (long) entry * 2 * Long.BYTES + Long.BYTES);
+    }
+
+    /**
+     * Получение положения имени записи таблицы.
+     *
+     * @param entry Номер записи
+     * @return Положение узла имени.
+     */
+    protected long keyNode(int entry) {
+        return document.getLong(position + Integer.BYTES + (long) entry * 2 * Long.BYTES);
+    }
+
+    /**
+     * Получение копии курсора.
+     *
+     * @return Новый курсор на тот же узел.
+     */
+    public VariantCursor copy() {
+        VariantCursor cursor = new VariantCursor(document);
+        cursor.tag = tag;
+        cursor.position = position;
+        return cursor;
+    }
+
+    /**
+     * Получение типа объекта.
+     *
+     * @return Тип объекта.
+     */
+    public VariantType getType() {
+        switch (tag) {
+            case VariantDocument.FALSE:
+            case VariantDocument.TRUE:
+                return VariantType.BOOLEAN;
+            case VariantDocument.LONG:
+            case VariantDocument.DOUBLE:
+            case VariantDocument.DECIMAL:
+                return VariantType.NUMBER;
+            case VariantDocument.STRING:
+                return VariantType.STRING;
+            case VariantDocument.LIST:
+            case VariantDocument.LONG_LIST:
+            case VariantDocument.DOUBLE_LIST:
+            case VariantDocument.BOOLEAN_LIST:
+                return VariantType.LIST;
+            case VariantDocument.MAP:
+                return VariantType.MAP;
+            default:
+                return VariantType.NULL;
+        }
+    }
+
+    /**
+     * Проверка типа объекта.
+     *
+     * @param type Тип для сравнения
+     * @return Равенство типов.
+     */
+    public boolean is(VariantType type) {
+        return getType() == type;
+    }
+
+    /**
+     * Получение размера списка или таблицы.
+     * Если этот объект не является списком или таблицей, будет вызвано исключение.
+     *
+     * @return Размер.
+     * @throws VariantTypeError Если этот объект не является списком или таблицей, будет вызвано исключение.
+     */
+    public int getSize() {
+        VariantType type = getType();
+        if (type != VariantType.LIST && type != VariantType.MAP) throw new VariantTypeError(type, VariantType.LIST, VariantType.MAP);
+        return document.getInt(position);
+    }
+
+    /**
+     * Получение точности числа.
+     * Если этот объект не является числом, будет вызвано исключение.
+     *
+     * @return Точность числа.
+     * @throws VariantTypeError Если этот объект не является числом, будет вызвано исключение.
+     */
+    public VariantNumberPrecision getNumberPrecision() {
+        if (tag == VariantDocument.LONG) return VariantNumberPrecision.LONG;
+        if (tag == VariantDocument.DOUBLE) return VariantNumberPrecision.DOUBLE;
+        if (tag == VariantDocument.DECIMAL) return VariantNumberPrecision.DECIMAL;
+        throw new VariantTypeError(getType(), VariantType.NUMBER);
+    }
+
+    /**
+     * Проверка, является ли значение этого объекта null.
+     *
+     * @return Является ли значение этого объекта null.
+     */
+    public boolean isNull() {
+        return tag == VariantDocument.NULL;
+    }
+
+    /**
+     * Проверка, является ли значение этого объекта Boolean.
+     *
+     * @return Является ли значение этого объекта Boolean.
+     */
+    public boolean isBoolean() {
+        return tag == VariantDocument.FALSE || tag == VariantDocument.TRUE;
+    }
+
+    /**
+     * Проверка, является ли значение этого объекта Integer.
+     *
+     * @return Является ли значение этого объекта Integer.
+     */
+    public boolean isInteger() {
+        if (!isLong()) return false;
+        long value = asLong();
+        return (int) value == value;
+    }
+
+    /**
+     * Проверка, является ли значение этого объекта Long.
+     *
+     * @return Является ли значение этого объекта Long.
+     */
+    public boolean isLong() {
+        if (tag == VariantDocument.LONG) return true;
+        if (tag != VariantDocument.DOUBLE) return false;
+        double value = document.getDouble(position);
+        return (long) value == value;
+    }
+
+    /**
+     * Проверка, является ли значение этого объекта Double.
+     *
+     * @return Является ли значение этого объекта Double.
+     */
+    public boolean isDouble() {
+        return tag == VariantDocument.LONG || tag == VariantDocument.DOUBLE || tag == VariantDocument.DECIMAL;
+    }
+
+    /**
+     * Проверка, является ли значение этого объекта BigDecimal.
+     *
+     * @return Является ли значение этого объекта BigDecimal.
+     */
+    public boolean isBigDecimal() {
+        return tag == VariantDocument.LONG || tag == VariantDocument.DECIMAL || tag == VariantDocument.DOUBLE && Double.isFinite(document.getDouble(position));
+    }
+
+    /**
+     * Проверка, является ли значение этого объекта String.
+     *
+     * @return Является ли значение этого объекта String.
+     */
+    public boolean isString() {
+        return tag == VariantDocument.STRING;
+    }
+
+    /**
+     * Преобразование значения объекта к типу Boolean.
+     * Если значение не может быть преобразовано к указанному типу, будет вызвано исключение.
+     *
+     * @return Значение объекта с типом Boolean.
+     * @throws VariantValueError Если значение не может быть преобразовано к указанному типу, будет вызвано исключение.
+     */
+    public boolean asBoolean() {
+        if (!isBoolean()) throw new VariantValueError(getType(), "boolean");
+        return tag == VariantDocument.TRUE;
+    }
+
+    /**
+     * Преобразование значения объекта к типу Integer.
+     * Если значение не может быть преобразовано к указанному типу, будет вызвано исключение.
+     *
+     * @return Значение объекта с типом Integer.
+     * @throws VariantValueError Если значение не может быть преобразовано к указанному типу, будет вызвано исключение.
+     */
+    public int asInteger() {
+        if (!isInteger()) throw new VariantValueError(getType(), "int");
+        return (int) asLong();
+    }
+
+    /**
+     * Преобразование значения объекта к типу Long.
+     * Если значение не может быть преобразовано к указанному типу, будет вызвано исключение.
+     *
+     * @return Значение объекта с типом Long.
+     * @throws VariantValueError Если значение не может быть преобразовано к указанному типу, будет вызвано исключение.
+     */
+    public long asLong() {
+        if (tag == VariantDocument.LONG) return document.getLong(position);
+        if (!isLong()) throw new VariantValueError(getType(), "long");
+        return (long) document.getDouble(position);
+    }
+
+    /**
+     * Преобразование значения объекта к типу Double.
+     * Если значение не может быть преобразовано к указанному типу, будет вызвано исключение.
+     *
+     * @return Значение объекта с типом Double.
+     * @throws VariantValueError Если значение не может быть преобразовано к указанному типу, будет вызвано исключение.
+     */
+    public double asDouble() {
+        if (tag == VariantDocument.LONG) return document.getLong(position);
+        if (tag == VariantDocument.DOUBLE || tag == VariantDocument.DECIMAL) return document.getDouble(position);
+        throw new VariantValueError(getType(), "double");
+    }
+
+    /**
+     * Преобразование значения объекта к типу BigDecimal.
+     * Если значение не может быть преобразовано к указанному типу, будет вызвано исключение.
+     *
+     * @return Значение объекта с типом BigDecimal.
+     * @throws VariantValueError Если значение не может быть преобразовано к указанному типу, будет вызвано исключение.
+     */
+    public BigDecimal asBigDecimal() {
+        if (!isBigDecimal()) throw new VariantValueError(getType(), "BigDecimal");
+        if (tag == VariantDocument.LONG) return BigDecimal.valueOf(document.getLong(position));
+        if (tag == VariantDocument.DOUBLE) return BigDecimal.valueOf(document.getDouble(position));
+        return new BigDecimal(document.getString(position + Long.BYTES));
+    }
+
+    /**
+     * Преобразование значения объекта к типу String.
+     * Если значение не может быть преобразовано к указанному типу, будет вызвано исключение.
+     *
+     * @return Значение объекта с типом String.
+     * @throws VariantValueError Если значение не может быть преобразовано к указанному типу, будет вызвано исключение.
+     */
+    public String asString() {
+        if (!isString()) throw new VariantValueError(getType(), "String");
+        return document.getString(position);
+    }
+
+    /**
+     * Проверка наличия дочернего объекта по имени.
+     * Если этот объект не является таблицей, будет вызвано исключение.
+     *
+     * @param childName Имя дочернего объекта
+     * @return Наличие дочернего объекта.
+     * @throws VariantTypeError Если этот объект не является таблицей, будет вызвано исключение.
+     */
+    public boolean contains(String childName) {
+        if (tag != VariantDocument.MAP) throw new VariantTypeError(getType(), VariantType.MAP);
+        return find(childName) >= 0;
+    }
+
+    /**
+     * Перемещение этого курсора на узел, на который указывает другой курсор того же документа.
+     *
+     * @param cursor Курсор
+     * @return Этот курсор.
+     */
+    public VariantCursor move(VariantCursor cursor) {
+        if (cursor.document != document) throw new VariantError("Cursor belongs to another document");
+        tag = cursor.tag;
+        position = cursor.position;
+        return this;
+    }
+
+    /**
+     * Перемещение этого курсора на дочерний объект по индексу.
+     * Если этот объект не является списком, будет вызвано исключение.
+     * Если индекс за границей списка, будет вызвано исключение.
+     *
+     * @param childIndex Индекс дочернего объекта
+     * @return Этот курсор.
+     * @throws VariantTypeError Если этот объект не является списком, будет вызвано исключение.
+     * @throws VariantChildIndexError Если индекс за границей списка, будет вызвано исключение.
+     */
+    public VariantCursor move(int childIndex) {
+        if (getType() != VariantType.LIST) throw new VariantTypeError(getType(), VariantType.LIST);
+        int size = document.getInt(position);
+        if (childIndex < 0 || childIndex >= size) throw new VariantChildIndexError(childIndex, size);
+        moveToElement(childIndex);
+        return this;
+    }
+
+    /**
+     * Перемещение этого курсора на дочерний объект по имени.
+     * Если этот объект не является таблицей, будет вызвано исключение.
+     * Если в таблице нет объекта с указанным именем, будет вызвано исключение.
+     *
+     * @param childName Имя дочернего объекта
+     * @return Этот курсор.
+     * @throws VariantTypeError Если этот объект не является таблицей, будет вызвано исключение.
+     * @throws VariantChildNameError Если в таблице нет объекта с указанным именем, будет вызвано исключение.
+     */
+    public VariantCursor move(String childName) {
+        if (tag != VariantDocument.MAP) throw new VariantTypeError(getType(), VariantType.MAP);
+        int entry = find(childName);
+        if (entry < 0) throw new VariantChildNameError(childName);
+        moveToNode(valueNode(entry));
+        return this;
+    }
+
+    /**
+     * Получение курсора на дочерний объект по индексу.
+     * Если этот объект не является списком, будет вызвано исключение.
+     * Если индекс за границей списка, будет вызвано исключение.
+     *
+     * @param childIndex Индекс дочернего объекта
+     * @return Новый курсор.
+     * @throws VariantTypeError Если этот объект не является списком, будет вызвано исключение.
+     * @throws VariantChildIndexError Если индекс за границей списка, будет вызвано исключение.
+     */
+    public VariantCursor get(int childIndex) {
+        return copy().move(childIndex);
+    }
+
+    /**
+     * Получение курсора на дочерний объект по имени.
+     * Если этот объект не является таблицей, будет вызвано исключение.
+     * Если в таблице нет объекта с указанным именем, будет вызвано исключение.
+     *
+     * @param childName Имя дочернего объекта
+     * @return Новый курсор.
+     * @throws VariantTypeError Если этот объект не является таблицей, будет вызвано исключение.
+     * @throws VariantChildNameError Если в таблице нет объекта с указанным именем, будет вызвано исключение.
+     */
+    public VariantCursor get(String childName) {
+        return copy().move(childName);
+    }
+
+    /**
+     * Получение курсора на дочерний объект по имени.
+     * Если этот объект не является таблицей, будет вызвано исключение.
+     * Если в таблице нет объекта с указанным именем, будет возвращено null.
+     *
+     * @param childName Имя дочернего объекта
+     * @return Новый курсор или null.
+     * @throws VariantTypeError Если этот объект не является таблицей, будет вызвано исключение.
+     */
+    public @Nullable VariantCursor getOrNull(String childName) {
+        if (tag != VariantDocument.MAP) throw new VariantTypeError(getType(), VariantType.MAP);
+        int entry = find(childName);
+        if (entry < 0) return null;
+        VariantCursor cursor = new VariantCursor(document);
+        cursor.moveToNode(valueNode(entry));
+        return cursor;
+    }
+
+    /**
+     * Получение значения дочернего объекта с типом Boolean по имени.
+     *
+     * @param childName Имя дочернего объекта
+     * @return Значение дочернего объекта.
+     * @throws VariantTypeError Если этот объект не является таблицей, будет вызвано исключение.
+     * @throws VariantChildNameError Если в таблице нет объекта с указанным именем, будет вызвано исключение.
+     * @throws VariantValueError Если значение не может быть преобразовано к указанному типу, будет вызвано исключение.
+     */
+    public boolean getBoolean(String childName) {
+        byte tag = this.tag;
+        long position = this.position;
+        try {
+            return move(childName).asBoolean();
+        } finally {
+            this.tag = tag;
+            this.position = position;
+        }
+    }
+
+    /**
+     * Получение значения дочернего объекта с типом Long по имени.
+     *
+     * @param childName Имя дочернего объекта
+     * @return Значение дочернего объекта.
+     * @throws VariantTypeError Если этот объект не является таблицей, будет вызвано исключение.
+     * @throws VariantChildNameError Если в таблице нет объекта с указанным именем, будет вызвано исключение.
+     * @throws VariantValueError Если значение не может быть преобразовано к указанному типу, будет вызвано исключение.
+     */
+    public long getLong(String childName) {
+        byte tag = this.tag;
+        long position = this.position;
+        try {
+            return move(childName).asLong();
+        } finally {
+            this.tag = tag;
+            this.position = position;
+        }
+    }
+
+    /**
+     * Получение значения дочернего объекта с типом Double по имени.
+     *
+     * @param childName Имя дочернего объекта
+     * @return Значение дочернего объекта.
+     * @throws VariantTypeError Если этот объект не является таблицей, будет вызвано исключение.
+     * @throws VariantChildNameError Если в таблице нет объекта с указанным именем, будет вызвано исключение.
+     * @throws VariantValueError Если значение не может быть преобразовано к указанному типу, будет вызвано исключение.
+     */
+    public double getDouble(String childName) {
+        byte tag = this.tag;
+        long position = this.position;
+        try {
+            return move(childName).asDouble();
+        } finally {
+            this.tag = tag;
+            this.position = position;
+        }
+    }
+
+    /**
+     * Получение значения дочернего объекта с типом String по имени.
+     *
+     * @param childName Имя дочернего объекта
+     * @return Значение дочернего объекта.
+     * @throws VariantTypeError Если этот объект не является таблицей, будет вызвано исключение.
+     * @throws VariantChildNameError Если в таблице нет объекта с указанным именем, будет вызвано исключение.
+     * @throws VariantValueError Если значение не может быть преобразовано к указанному типу, будет вызвано исключение.
+     */
+    public String getString(String childName) {
+        byte tag = this.tag;
+        long position = this.position;
+        try {
+            return move(childName).asString();
+        } finally {
+            this.tag = tag;
+            this.position = position;
+        }
+    }
+
+    /**
+     * Получение значения дочернего объекта с типом Long по индексу.
+     *
+     * @param childIndex Индекс дочернего объекта
+     * @return Значение дочернего объекта.
+     * @throws VariantTypeError Если этот объект не является списком, будет вызвано исключение.
+     * @throws VariantChildIndexError Если индекс за границей списка, будет вызвано исключение.
+     * @throws VariantValueError Если значение не может быть преобразовано к указанному типу, будет вызвано исключение.
+     */
+    public long getLong(int childIndex) {
+        byte tag = this.tag;
+        long position = this.position;
+        try {
+            return move(childIndex).asLong();
+        } finally {
+            this.tag = tag;
+            this.position = position;
+        }
+    }
+
+    /**
+     * Получение значения дочернего объекта с типом Double по индексу.
+     *
+     * @param childIndex Индекс дочернего объекта
+     * @return Значение дочернего объекта.
+     * @throws VariantTypeError Если этот объект не является списком, будет вызвано исключение.
+     * @throws VariantChildIndexError Если индекс за границей списка, будет вызвано исключение.
+     * @throws VariantValueError Если значение не может быть преобразовано к указанному типу, будет вызвано исключение.
+     */
+    public double getDouble(int childIndex) {
+        byte tag = this.tag;
+        long position = this.position;
+        try {
+            return move(childIndex).asDouble();
+        } finally {
+            this.tag = tag;
+            this.position = position;
+        }
+    }
+
+    /**
+     * Обработка всех дочерних объектов списка.
+     * Обработчику передаётся один и тот же курсор, перемещаемый на очередной элемент.
+     * Если этот объект не является списком, будет вызвано исключение.
+     *
+     * @param handler Обработчик, принимающий индекс и курсор
+     * @return Этот курсор.
+     * @throws VariantTypeError Если этот объект не является списком, будет вызвано исключение.
+     */
+    public VariantCursor forEachInList(BiConsumer<Integer, VariantCursor> handler) {
+        if (getType() != VariantType.LIST) throw new VariantTypeError(getType(), VariantType.LIST);
+        int size = document.getInt(position);
+        VariantCursor child = new VariantCursor(document);
+        for (int index = 0; index < size; index++) {
+            child.tag = tag;
+            child.position = position;
+            child.moveToElement(index);
+            handler.accept(index, child);
+        }
+        return this;
+    }
+
+    /**
+     * Обработка всех дочерних объектов таблицы в исходном порядке.
+     * Обработчику передаётся один и тот же курсор, перемещаемый на очередное значение.
+     * Если этот объект не является таблицей, будет вызвано исключение.
+     *
+     * @param handler Обработчик, принимающий имя и курсор
+     * @return Этот курсор.
+     * @throws VariantTypeError Если этот объект не является таблицей, будет вызвано исключение.
+     */
+    public VariantCursor forEachInMap(BiConsumer<String, VariantCursor> handler) {
+        if (tag != VariantDocument.MAP) throw new VariantTypeError(getType(), VariantType.MAP);
+        int size = document.getInt(position);
+        VariantCursor child = new VariantCursor(document);
+        for (int entry = 0; entry < size; entry++) {
+            child.moveToNode(valueNode(entry));
+            handler.accept(document.getString(keyNode(entry) + 1), child);
+        }
+        return this;
+    }
+
+    /**
+     * Преобразование узла и всех его дочерних узлов в изменяемый объект.
+     *
+     * @return Новый объект.
+     */
+    public Variant toVariant() {
+        switch (tag) {
+            case VariantDocument.FALSE:
+            case VariantDocument.TRUE:
+                return new Variant(tag == VariantDocument.TRUE);
+            case VariantDocument.LONG:
+                return new Variant(null).setLongNumber(document.getLong(position));
+            case VariantDocument.DOUBLE:
+                return new Variant(null).setDoubleNumber(document.getDouble(position));
+            case VariantDocument.DECIMAL:
+                return VariantDecimal.setLiteral(new Variant(null), document.getString(position + Long.BYTES));
+            case VariantDocument.STRING:
+                return new Variant(document.getString(position));
+            case VariantDocument.MAP:
+                int entries = document.getInt(position);
+                VariantMap map = new VariantMap(entries);
+                VariantCursor value = new VariantCursor(document);
+                for (int entry = 0; entry < entries; entry++) {
+                    value.moveToNode(valueNode(entry));
+                    map.put(document.getString(keyNode(entry) + 1), value.toVariant());
+                }
+                return Variant.adoptMap(map);
+            case VariantDocument.NULL:
+                return new Variant(null);
+            default:
+                int size = document.getInt(position);
+                VariantList list = new VariantList(size);
+                VariantCursor element = new VariantCursor(document);
+                for (int index = 0; index < size; index++) {
+                    element.tag = tag;
+                    element.position = position;
+                    element.moveToElement(index);
+                    list.addOwned(element.toVariant());
+                }
+                return Variant.adoptList(list);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return toVariant().toString();
+    }
+}
@@ -0,0 +1,292 @@
+package ru.vladislav117.variant;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+/**
+ * Числа произвольной точности.
+ * Число получает точность {@link VariantNumberPrecision#DECIMAL}, только если оно не представимо без потерь
+ * ни в long, ни в double (значением double считается его кратчайшая десятичная запись, как в {@link Double#toString(double)}).
+ * Такое число хранит исходную десятичную запись (до первого обращения) или BigDecimal,
+ * а в полях long и double — ближайшие приближения, поэтому проверки точности не требуют разбора записи.
+ */
+public final class VariantDecimal {
+    /**
+     * Максимальное количество значащих цифр в кратчайшей записи double.
+     */
+    protected static final int MAX_DOUBLE_DIGITS = 17;
+    /**
+     * Максимальная длина целого числа, которое заведомо помещается в long.
+     */
+    protected static final int SAFE_LONG_DIGITS = 18;
+
+    /**
+     * Установка числового значения без потерь.
+     * Целые числа Java сохраняются как long, Float и Double — как double,
+     * BigInteger и BigDecimal нормализуются, остальные числа разбираются из десятичной записи.
+     *
+     * @param variant Объект
+     * @param value   Число
+     * @return Этот же объект.
+     */
+    public static Variant setNumber(Variant variant, Number value) {
+        if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) return variant.setLongNumber(value.longValue());
+        if (value instanceof Double || value instanceof Float) return variant.setDoubleNumber(value.doubleValue());
+        if (value instanceof BigDecimal) return setDecimal(variant, (BigDecimal) value);
+        if (value instanceof BigInteger) return setDecimal(variant, new BigDecimal((BigInteger) value));
+        String literal = value.toString();
+        if (isShortInteger(literal)) return variant.setLongNumber(Long.parseLong(literal));
+        if (canonicalForm(literal) == null) return variant.setDoubleNumber(value.doubleValue());
+        return setLiteral(variant, literal);
+    }
+
+    /**
+     * Установка числа из BigDecimal с нормализацией: целое число в диапазоне long сохраняется как long,
+     * число, равное кратчайшей записи double, — как double, остальные — с точностью {@link VariantNumberPrecision#DECIMAL}.
+     *
+     * @param variant Объект
+     * @param value   Число
+     * @return Этот же объект.
+     */
+    public static Variant setDecimal(Variant variant, BigDecimal value) {
+        if (value.signum() == 0) return variant.setLongNumber(0);
+        BigDecimal stripped = value.stripTrailingZeros();
+        if (stripped.scale() <= 0 && stripped.precision() - stripped.scale() <= SAFE_LONG_DIGITS + 1) {
+            BigInteger integer = stripped.toBigInteger();
+            if (integer.bitLength() < Long.SIZE) return variant.setLongNumber(integer.longValue());
+        }
+        double number = value.doubleValue();
+        if (stripped.precision() <= MAX_DOUBLE_DIGITS && Double.isFinite(number) && BigDecimal.valueOf(number).compareTo(value) == 0) {
+            return variant.setDoubleNumber(number);
+        }
+        return assign(variant, value, number);
+    }
+
+    /**
+     * Установка числа из корректной десятичной записи json с нормализацией, как в {@link #setDecimal(Variant, BigDecimal)}.
+     * Если число не представимо в long или double, сохраняется сама запись; BigDecimal создаётся при первом обращении.
+     *
+     * @param variant Объект
+     * @param literal Десятичная запись
+     * @return Этот же объект.
+     */
+    protected static Variant setLiteral(Variant variant, String literal) {
+        String form = canonicalForm(literal);
+        int mark = form.indexOf('e');
+        if (mark < 0) return variant.setDoubleNumber(Double.parseDouble(literal));
+        int digits = form.charAt(0) == '-' ? mark - 1 : mark;
+        long exponent = Long.parseLong(form.substring(mark + 1));
+        if (exponent >= digits && exponent <= SAFE_LONG_DIGITS + 1) return setDecimal(variant, new BigDecimal(literal));
+        double number = Double.parseDouble(literal);
+        if (digits <= MAX_DOUBLE_DIGITS && Double.isFinite(number) && form.equals(canonicalForm(Double.toString(number)))) {
+            return variant.setDoubleNumber(number);
+        }
+        return assign(variant, literal, number);
+    }
+
+    /**
+     * Установка числа с точностью {@link VariantNumberPrecision#DECIMAL}.
+     *
+     * @param variant Объект
+     * @param value   Десятичная запись или BigDecimal
+     * @param number  Ближайшее значение double
+     * @return Этот же объект.
+     */
+    protected static Variant assign(Variant variant, Object value, double number) {
+        variant.modified();
+        if (variant.type != VariantType.NUMBER) variant.set(null);
+        variant.type = VariantType.NUMBER;
+        variant.precision = VariantNumberPrecision.DECIMAL;
+        variant.object = value;
+        variant.longNumber = (long) number;
+        variant.doubleNumber = number;
+        return variant;
+    }
+
+    /**
+     * Проверка, является ли запись коротким целым числом, которое помещается в long.
+     *
+     * @param literal Запись
+     * @return Является ли запись коротким целым числом.
+     */
+    protected static boolean isShortInteger(String literal) {
+        int length = literal.length();
+        int start = length > 0 && literal.charAt(0) == '-' ? 1 : 0;
+        if (length == start || length - start > SAFE_LONG_DIGITS) return false;
+        for (int index = start; index < length; index++) {
+            char character = literal.charAt(index);
+            if (character < '0' || character > '9') return false;
+        }
+        return true;
+    }
+
+    /**
+     * Приведение десятичной записи к каноническому виду "[-]цифрыeпорядок", где значение равно 0.цифры * 10^порядок,
+     * а цифры не содержат ведущих и завершающих нулей. Ноль приводится к "0" или "-0".
+     *
+     * @param literal Десятичная запись
+     * @return Канонический вид или null, если запись некорректна.
+     */
+    protected static @Nullable String canonicalForm(CharSequence literal) {
+        int length = literal.length();
+        int index = 0;
+        boolean negative = false;
+        if (index < length && (literal.charAt(index) == '-' || literal.charAt(index) == '+')) negative = literal.charAt(index++) == '-';
+        StringBuilder digits = new StringBuilder();
+        long exponent = 0;
+        boolean point = false;
+        boolean seen = false;
+        for (; index < length; index++) {
+            char character = literal.charAt(index);
+            if (character == '.' && !point) {
+                point = true;
+                continue;
+            }
+            if (character == 'e' || character == 'E') break;
+            if (character < '0' || character > '9') return null;
+            seen = true;
+            if (character == '0' && digits.length() == 0) {
+                if (point) exponent--;
+                continue;
+            }
+            digits.append(character);
+            if (!point) exponent++;
+        }
+        if (!seen) return null;
+        if (index < length) {
+            index++;
+            boolean negativeExponent = false;
+            if (index < length && (literal.charAt(index) == '-' || literal.charAt(index) == '+')) negativeExponent = literal.charAt(index++) == '-';
+            if (index == length) return null;
+            long value = 0;
+            for (; index < length; index++) {
+                char character = literal.charAt(index);
+                if (character < '0' || character > '9') return null;
+                if (value < Integer.MAX_VALUE) value = value * 10 + (character - '0');
+            }
+            exponent += negativeExponent ? -value : value;
+        }
+        int end = digits.length();
+        while (end > 0 && digits.charAt(end - 1) == '0') end--;
+        if (end == 0) return negative ? "-0" : "0";
+        digits.setLength(end);
+        return (negative ? "-" : "") + digits + "e" + exponent;
+    }
+
+    /**
+     * Получение значения числа в BigDecimal.
+     * Значением double считается его кратчайшая десятичная запись.
+     *
+     * @param precision    Точность числа
+     * @param object       Десятичная запись или BigDecimal (для точности DECIMAL)
+     * @param longNumber   Значение long
+     * @param doubleNumber Значение double
+     * @return Число.
+     * @throws NumberFormatException Если число бесконечно или не является числом, будет вызвано исключение.
+     */
+    protected static BigDecimal toBigDecimal(VariantNumberPrecision precision, @Nullable Object object, long longNumber, double doubleNumber) {
+        if (precision == VariantNumberPrecision.LONG) return BigDecimal.valueOf(longNumber);
+        if (precision == VariantNumberPrecision.DOUBLE) return BigDecimal.valueOf(doubleNumber);
+        return object instanceof BigDecimal ? (BigDecimal) object : new BigDecimal(String.valueOf(object));
+    }
+
+    /**
+     * Получение значения числового объекта в BigDecimal.
+     * Десятичная запись числа с точностью DECIMAL заменяется созданным BigDecimal.
+     *
+     * @param variant Числовой объект
+     * @return Число.
+     */
+    public static BigDecimal toBigDecimal(Variant variant) {
+        BigDecimal value = toBigDecimal(variant.precision, variant.object, variant.longNumber, variant.doubleNumber);
+        if (variant.precision == VariantNumberPrecision.DECIMAL) variant.object = value;
+        return value;
+    }
+
+    /**
+     * Получение значения целого числового объекта в BigInteger.
+     *
+     * @param variant Числовой объект
+     * @return Число.
+     * @throws ArithmeticException Если число не целое, будет вызвано исключение.
+     */
+    public static BigInteger toBigInteger(Variant variant) {
+        if (variant.precision == VariantNumberPrecision.LONG) return BigInteger.valueOf(variant.longNumber);
+        return toBigDecimal(variant).toBigIntegerExact();
+    }
+
+    /**
+     * Проверка, представимо ли число в BigDecimal (то есть конечно ли оно).
+     *
+     * @param precision    Точность числа
+     * @param doubleNumber Значение double
+     * @return Представимо ли число.
+     */
+    protected static boolean isFinite(VariantNumberPrecision precision, double doubleNumber) {
+        return precision != VariantNumberPrecision.DOUBLE || Double.isFinite(doubleNumber);
+    }
+
+    /**
+     * Проверка, является ли число целым.
+     * Для десятичной записи без дробной части и порядка BigDecimal не создаётся.
+     *
+     * @param precision    Точность числа
+     * @param object       Десятичная запись или BigDecimal (для точности DECIMAL)
+     * @param doubleNumber Значение double
+     * @return Является ли число целым.
+     */
+    protected static boolean isInteger(VariantNumberPrecision precision, @Nullable Object object, double doubleNumber) {
+        if (precision == VariantNumberPrecision.LONG) return true;
+        if (precision == VariantNumberPrecision.DOUBLE) return Double.isFinite(doubleNumber) && doubleNumber == Math.rint(doubleNumber);
+        if (object instanceof String) {
+            String literal = (String) object;
+            if (literal.indexOf('.') < 0 && literal.indexOf('e') < 0 && literal.indexOf('E') < 0) return true;
+        }
+        BigDecimal value = toBigDecimal(precision, object, 0, doubleNumber);
+        return value.signum() == 0 || value.stripTrailingZeros().scale() <= 0;
+    }
+
+    /**
+     * Проверка, является ли значение числового объекта целым.
+     *
+     * @param variant Числовой объект
+     * @return Является ли значение целым.
+     */
+    public static boolean isInteger(Variant variant) {
+        return isInteger(variant.precision, variant.object, variant.doubleNumber);
+    }
+
+    /**
+     * Сравнение чисел, хотя бы одно из которых имеет точность DECIMAL.
+     *
+     * @param precision         Точность первого числа
+     * @param object            Запись первого числа
+     * @param longNumber        Значение long первого числа
+     * @param doubleNumber      Значение double первого числа
+     * @param otherPrecision    Точность второго числа
+     * @param otherObject       Запись второго числа
+     * @param otherLongNumber   Значение long второго числа
+     * @param otherDoubleNumber Значение double второго числа
+     * @return Равенство чисел.
+     */
+    protected static boolean equal(VariantNumberPrecision precision, @Nullable Object object, long longNumber, double doubleNumber,
+                                   VariantNumberPrecision otherPrecision, @Nullable Object otherObject, long otherLongNumber, double otherDoubleNumber) {
+        if (precision != otherPrecision) return false;
+        if (doubleNumber != otherDoubleNumber) return false;
+        if (object == otherObject) return true;
+        return toBigDecimal(precision, object, longNumber, doubleNumber).compareTo(toBigDecimal(otherPrecision, otherObject, otherLongNumber, otherDoubleNumber)) == 0;
+    }
+
+    /**
+     * Получение хэша числа с точностью DECIMAL, не зависящего от формы записи.
+     *
+     * @param object Десятичная запись или BigDecimal
+     * @return Хэш.
+     */
+    protected static int hashCode(Object object) {
+        String form = object instanceof BigDecimal ? canonicalForm(object.toString()) : canonicalForm((String) object);
+        return form == null ? 0 : form.hashCode();
+    }
+}
@@ -0,0 +1,572 @@
+package ru.vladislav117.variant;
+
+import ru.vladislav117.variant.error.VariantFormatError;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Неизменяемый документ, хранящий дерево объектов вне кучи в компактном двоичном виде.
+ * Документ предназначен для больших справочных данных, которые долго находятся в памяти:
+ * его содержимое лежит в прямых буферах ({@link ByteBuffer#allocateDirect(int)}) и не увеличивает работу сборщика мусора.
+ * Чтение идёт через курсоры {@link VariantCursor}, которые не создают объектов для узлов дерева.
+ * Документ можно читать из нескольких потоков одновременно.
+ * Документ можно записать в файл и затем отобразить его в память ({@link #map(Path)}), не читая файл целиком:
+ * список хранит таблицу положений элементов, а таблица — индекс, упорядоченный по хэшу имени,
+ * поэтому переход к элементу списка занимает O(1), а к элементу таблицы — двоичный поиск.
+ * <p>
+ * Документ делится на части размером 2^{@link #CHUNK_SHIFT} байтов, поэтому его размер не ограничен размером одного буфера.
+ * Все числа записываются в порядке little-endian. Документ начинается с заголовка (магическое число, версия, положение корня),
+ * за которым идут узлы. Узел начинается с байта-метки; дочерние узлы записываются раньше родителя,
+ * а родитель хранит их положения. Имена таблиц записываются один раз на документ,
+ * а таблица хранит, кроме записей в исходном порядке, индекс записей, упорядоченный по хэшу имени.
+ *
+ * @see Variant#toDocument()
+ */
+public final class VariantDocument {
+    /**
+     * Магическое число в начале документа ("VDOC").
+     */
+    public static final int MAGIC = 0x434F4456;
+    /**
+     * Версия формата.
+     */
+    public static final int VERSION = 1;
+    /**
+     * Двоичный логарифм размера части документа.
+     */
+    public static final int CHUNK_SHIFT = Math.max(10, Math.min(30, Integer.getInteger("ru.vladislav117.variant.document.chunkShift", 30)));
+    /**
+     * Начальная вместимость части при кодировании.
+     */
+    protected static final int INITIAL_CAPACITY = 1 << 16;
+    protected static final int HEADER_SIZE = 16;
+
+    protected static final byte NULL = 0;
+    protected static final byte FALSE = 1;
+    protected static final byte TRUE = 2;
+    protected static final byte LONG = 3;
+    protected static final byte DOUBLE = 4;
+    protected static final byte DECIMAL = 5;
+    protected static final byte STRING = 6;
+    protected static final byte LIST = 7;
+    protected static final byte MAP = 8;
+    protected static final byte LONG_LIST = 9;
+    protected static final byte DOUBLE_LIST = 10;
+    protected static final byte BOOLEAN_LIST = 11;
+
+    protected final ByteBuffer[] chunks;
+    protected final int chunkShift;
+    protected final long chunkMask;
+    protected final long size;
+    protected final long root;
+
+    /**
+     * Создание документа над частями.
+     *
+     * @param chunks     Части документа (все, кроме последней, имеют размер 2^chunkShift байтов)
+     * @param chunkShift Двоичный логарифм размера части
+     * @param size       Размер документа в байтах
+     */
+    protected VariantDocument(ByteBuffer[] chunks, int chunkShift, long size) {
+        this.chunks = chunks;
+        this.chunkShift = chunkShift;
+        this.chunkMask = (1L << chunkShift) - 1;
+        this.size = size;
+        if (size < HEADER_SIZE || getInt(0) != MAGIC) throw new VariantFormatError("Buffer does not contain a variant document");
+        if (getInt(4) != VERSION) throw new VariantFormatError("Unsupported variant document version " + getInt(4));
+        root = getLong(8);
+    }
+
+    /**
+     * Кодирование объекта в документ.
+     *
+     * @param variant Объект
+     * @return Документ.
+     */
+    public static VariantDocument of(Variant variant) {
+        Encoder encoder = new Encoder(CHUNK_SHIFT);
+        long root = encoder.encode(variant);
+        return encoder.finish(root);
+    }
+
+    /**
+     * Отображение файла документа в память только для чтения.
+     * Файл отображается частями через {@link FileChannel#map(FileChannel.MapMode, long, long)}:
+     * открытие не зависит от размера файла, а страницы читаются операционной системой только при обращении к ним курсоров.
+     * Файл не должен изменяться, пока документ используется.
+     *
+     * @param path Путь к файлу, записанному методом {@link #write(Path)}
+     * @return Документ.
+     * @throws VariantFormatError   Если файл не содержит документ, будет вызвано исключение.
+     * @throws UncheckedIOException Если при отображении файла произошла ошибка, будет вызвано исключение.
+     */
+    public static VariantDocument map(Path path) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return map(channel);
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    /**
+     * Отображение содержимого канала файла в память только для чтения.
+     * Отображение остаётся действительным и после закрытия канала.
+     *
+     * @param channel Канал файла
+     * @return Документ.
+     * @throws VariantFormatError   Если файл не содержит документ, будет вызвано исключение.
+     * @throws UncheckedIOException Если при отображении файла произошла ошибка, будет вызвано исключение.
+     */
+    public static VariantDocument map(FileChannel channel) {
+        try {
+            long size = channel.size();
+            if (size < HEADER_SIZE) throw new VariantFormatError("File does not contain a variant document");
+            ByteBuffer[] chunks = new ByteBuffer[(int) ((size - 1 >>> CHUNK_SHIFT) + 1)];
+            for (int index = 0; index < chunks.length; index++) {
+                long offset = (long) index << CHUNK_SHIFT;
+                long length = Math.min(size - offset, 1L << CHUNK_SHIFT);
+                chunks[index] = channel.map(FileChannel.MapMode.READ_ONLY, offset, length).order(ByteOrder.LITTLE_ENDIAN);
+            }
+            VariantDocument document = new VariantDocument(chunks, CHUNK_SHIFT, size);
+            if (document.root < HEADER_SIZE || document.root >= size) throw new VariantFormatError("Invalid variant document root");
+            return document;
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    /**
+     * Запись документа в файл для последующего отображения методом {@link #map(Path)}.
+     * Существующий файл перезаписывается.
+     *
+     * @param path Путь к файлу
+     * @throws UncheckedIOException Если при записи произошла ошибка, будет вызвано исключение.
+     */
+    public void write(Path path) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            write(channel);
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    /**
+     * Запись документа в канал.
+     * Канал не закрывается.
+     *
+     * @param channel Канал
+     * @throws UncheckedIOException Если при записи произошла ошибка, будет вызвано исключение.
+     */
+    public void write(WritableByteChannel channel) {
+        try {
+            for (ByteBuffer chunk : chunks) {
+                ByteBuffer source = chunk.duplicate();
+                source.position(0);
+                while (source.hasRemaining()) channel.write(source);
+            }
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    /**
+     * Получение курсора на корень документа.
+     *
+     * @return Новый курсор.
+     */
+    public VariantCursor root() {
+        VariantCursor cursor = new VariantCursor(this);
+        cursor.moveToNode(root);
+        return cursor;
+    }
+
+    /**
+     * Получение размера документа в байтах.
+     *
+     * @return Размер.
+     */
+    public long getByteSize() {
+        return size;
+    }
+
+    /**
+     * Преобразование документа в изменяемый объект.
+     *
+     * @return Новый объект.
+     */
+    public Variant toVariant() {
+        return root().toVariant();
+    }
+
+    @Override
+    public String toString() {
+        return root().toString();
+    }
+
+    protected byte getByte(long position) {
+        return chunks[(int) (position >>> chunkShift)].get((int) (position & chunkMask));
+    }
+
+    protected int getInt(long position) {
+        ByteBuffer chunk = chunks[(int) (position >>> chunkShift)];
+        int offset = (int) (position & chunkMask);
+        if (offset <= chunk.limit() - Integer.BYTES) return chunk.getInt(offset);
+        int value = 0;
+        for (int index = 0; index < Integer.BYTES; index++) value |= (getByte(position + index) & 0xFF) << (index * 8);
+        return value;
+    }
+
+    protected long getLong(long position) {
+        ByteBuffer chunk = chunks[(int) (position >>> chunkShift)];
+        int offset = (int) (position & chunkMask);
+        if (offset <= chunk.limit() - Long.BYTES) return chunk.getLong(offset);
+        long value = 0;
+        for (int index = 0; index < Long.BYTES; index++) value |= (getByte(position + index) & 0xFFL) << (index * 8);
+        return value;
+    }
+
+    protected double getDouble(long position) {
+        return Double.longBitsToDouble(getLong(position));
+    }
+
+    /**
+     * Копирование байтов документа в массив.
+     *
+     * @param position Положение в документе
+     * @param target   Массив
+     * @param offset   Начало в массиве
+     * @param length   Количество байтов
+     */
+    protected void getBytes(long position, byte[] target, int offset, int length) {
+        while (length > 0) {
+            ByteBuffer chunk = chunks[(int) (position >>> chunkShift)];
+            int chunkOffset = (int) (position & chunkMask);
+            int count = Math.min(length, chunk.limit() - chunkOffset);
+            chunk.get(chunkOffset, target, offset, count);
+            position += count;
+            offset += count;
+            length -= count;
+        }
+    }
+
+    /**
+     * Чтение строки (длина в байтах и байты UTF-8).
+     *
+     * @param position Положение длины строки
+     * @return Строка.
+     */
+    protected String getString(long position) {
+        int length = getInt(position);
+        byte[] bytes = new byte[length];
+        getBytes(position + Integer.BYTES, bytes, 0, length);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Сравнение строки документа со строкой без её декодирования.
+     *
+     * @param position Положение длины строки
+     * @param string   Строка
+     * @return Равенство строк.
+     */
+    protected boolean stringEquals(long position, String string) {
+        int length = getInt(position);
+        int stringLength = string.length();
+        if (stringLength > length || stringLength * 3 < length) return false;
+        long index = position + Integer.BYTES;
+        long end = index + length;
+        int character = 0;
+        while (index < end) {
+            int lead = getByte(index++);
+            int codePoint;
+            if (lead >= 0) {
+                codePoint = lead;
+            } else if ((lead & 0xE0) == 0xC0) {
+                codePoint = (lead & 0x1F) << 6 | getByte(index++) & 0x3F;
+            } else if ((lead & 0xF0) == 0xE0) {
+                codePoint = (lead & 0x0F) << 12 | (getByte(index++) & 0x3F) << 6;
+                codePoint |= getByte(index++) & 0x3F;
+            } else {
+                codePoint = (lead & 0x07) << 18 | (getByte(index++) & 0x3F) << 12;
+                codePoint |= (getByte(index++) & 0x3F) << 6;
+                codePoint |= getByte(index++) & 0x3F;
+            }
+            if (codePoint < 0x10000) {
+                if (character == stringLength || string.charAt(character++) != codePoint) return false;
+            } else {
+                if (character + 1 >= stringLength) return false;
+                if (string.charAt(character++) != Character.highSurrogate(codePoint)) return false;
+                if (string.charAt(character++) != Character.lowSurrogate(codePoint)) return false;
+            }
+        }
+        return character == stringLength;
+    }
+
+    /**
+     * Кодировщик документа. Пишет узлы в прямые буферы, увеличивая текущую часть до полного размера.
+     */
+    protected static final class Encoder {
+        protected final int chunkShift;
+        protected final int chunkSize;
+        protected final ArrayList<ByteBuffer> chunks = new ArrayList<>();
+        protected final HashMap<String, Long> names = new HashMap<>();
+        protected ByteBuffer chunk;
+        protected long nullNode = -1;
+        protected long falseNode = -1;
+        protected long trueNode = -1;
+
+        protected Encoder(int chunkShift) {
+            this.chunkShift = chunkShift;
+            this.chunkSize = 1 << chunkShift;
+            chunk = allocate(Math.min(chunkSize, INITIAL_CAPACITY));
+            writeInt(MAGIC);
+            writeInt(VERSION);
+            writeLong(0);
+        }
+
+        protected static ByteBuffer allocate(int capacity) {
+            return ByteBuffer.allocateDirect(capacity).order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        protected long position() {
+            return ((long) chunks.size() << chunkShift) + chunk.position();
+        }
+
+        /**
+         * Подготовка места в текущей части: часть увеличивается, пока не достигнет полного размера.
+         *
+         * @param length Количество байтов
+         * @return Помещаются ли байты в текущую часть.
+         */
+        protected boolean reserve(int length) {
+            while (chunk.remaining() < length && chunk.capacity() < chunkSize) {
+                ByteBuffer grown = allocate(Math.min(chunkSize, chunk.capacity() * 2));
+                chunk.flip();
+                grown.put(chunk);
+                chunk = grown;
+            }
+            return chunk.remaining() >= length;
+        }
+
+        protected void writeByte(int value) {
+            if (!reserve(1)) {
+                chunks.add(chunk);
+                chunk = allocate(Math.min(chunkSize, INITIAL_CAPACITY));
+            }
+            chunk.put((byte) value);
+        }
+
+        protected void writeInt(int value) {
+            if (reserve(Integer.BYTES)) {
+                chunk.putInt(value);
+                return;
+            }
+            for (int index = 0; index < Integer.BYTES; index++) writeByte(value >>> (index * 8));
+        }
+
+        protected void writeLong(long value) {
+            if (reserve(Long.BYTES)) {
+                chunk.putLong(value);
+                return;
+            }
+            for (int index = 0; index < Long.BYTES; index++) writeByte((int) (value >>> (index * 8)));
+        }
+
+        protected void writeBytes(byte[] bytes, int offset, int length) {
+            while (length > 0) {
+                if (!reserve(Math.min(length, chunkSize))) {
+                    if (!chunk.hasRemaining()) {
+                        chunks.add(chunk);
+                        chunk = allocate(Math.min(chunkSize, Math.max(INITIAL_CAPACITY, length)));
+                    }
+                }
+                int count = Math.min(length, chunk.remaining());
+                chunk.put(bytes, offset, count);
+                offset += count;
+                length -= count;
+            }
+        }
+
+        protected void writeString(CharSequence value) {
+            if (value instanceof VariantUtf8String) {
+                VariantUtf8String utf8 = (VariantUtf8String) value;
+                writeInt(utf8.length);
+                writeBytes(utf8.bytes, utf8.offset, utf8.length);
+                return;
+            }
+            byte[] bytes = value.toString().getBytes(StandardCharsets.UTF_8);
+            writeInt(bytes.length);
+            writeBytes(bytes, 0, bytes.length);
+        }
+
+        /**
+         * Запись узла с меткой без содержимого (общего для всего документа).
+         *
+         * @param tag Метка
+         * @return Положение узла.
+         */
+        protected long writeConstant(byte tag) {
+            long node = position();
+            writeByte(tag);
+            return node;
+        }
+
+        /**
+         * Запись объекта и всех его дочерних объектов.
+         *
+         * @param variant Объект
+         * @return Положение узла объекта.
+         */
+        protected long encode(Variant variant) {
+            long node;
+            switch (variant.type) {
+                case BOOLEAN:
+                    if ((Boolean) variant.object) {
+                        if (trueNode < 0) trueNode = writeConstant(TRUE);
+                        return trueNode;
+                    }
+                    if (falseNode < 0) falseNode = writeConstant(FALSE);
+                    return falseNode;
+                case NUMBER:
+                    node = position();
+                    if (variant.precision == VariantNumberPrecision.LONG) {
+                        writeByte(LONG);
+                        writeLong(variant.longNumber);
+                    } else if (variant.precision == VariantNumberPrecision.DOUBLE) {
+                        writeByte(DOUBLE);
+                        writeLong(Double.doubleToRawLongBits(variant.doubleNumber));
+                    } else {
+                        writeByte(DECIMAL);
+                        writeLong(Double.doubleToRawLongBits(variant.doubleNumber));
+                        writeString(variant.object.toString());
+                    }
+                    return node;
+                case STRING:
+                    node = position();
+                    writeByte(STRING);
+                    writeString((CharSequence) variant.object);
+                    return node;
+                case LIST:
+                    return encodeList((VariantList) variant.object);
+                case MAP:
+                    return encodeMap((VariantMap) variant.object);
+                default:
+                    if (nullNode < 0) nullNode = writeConstant(NULL);
+                    return nullNode;
+            }
+        }
+
+        protected long encodeList(VariantList list) {
+            list.load();
+            int size = list.size;
+            long node;
+            switch (list.storage) {
+                case LONG:
+                    node = position();
+                    writeByte(LONG_LIST);
+                    writeInt(size);
+                    for (int index = 0; index < size; index++) writeLong(list.longs[index]);
+                    return node;
+                case DOUBLE:
+                    node = position();
+                    writeByte(DOUBLE_LIST);
+                    writeInt(size);
+                    for (int index = 0; index < size; index++) writeLong(Double.doubleToRawLongBits(list.doubles[index]));
+                    return node;
+                case BOOLEAN:
+                    node = position();
+                    writeByte(BOOLEAN_LIST);
+                    writeInt(size);
+                    for (int index = 0; index < size; index++) writeByte(list.booleans[index] ? 1 : 0);
+                    return node;
+                default:
+                    long[] children = new long[size];
+                    for (int index = 0; index < size; index++) children[index] = encode(list.elements[index]);
+                    node = position();
+                    writeByte(LIST);
+                    writeInt(size);
+                    for (long child : children) writeLong(child);
+                    return node;
+            }
+        }
+
+        protected long encodeMap(VariantMap map) {
+            map.load();
+            int size;
+            String[] keys;
+            Variant[] values;
+            if (map.hashMap != null) {
+                size = map.hashMap.size();
+                keys = new String[size];
+                values = new Variant[size];
+                int index = 0;
+                for (Map.Entry<String, Variant> entry : map.hashMap.entrySet()) {
+                    keys[index] = entry.getKey();
+                    values[index++] = entry.getValue();
+                }
+            } else {
+                size = map.shape.size();
+                keys = map.shape.keys;
+                values = map.values;
+            }
+            long[] keyNodes = new long[size];
+            long[] valueNodes = new long[size];
+            long[] order = new long[size];
+            for (int index = 0; index < size; index++) {
+                String key = keys[index];
+                Long keyNode = names.get(key);
+                if (keyNode == null) {
+                    keyNode = position();
+                    writeByte(STRING);
+                    writeString(key);
+                    names.put(key, keyNode);
+                }
+                keyNodes[index] = keyNode;
+                valueNodes[index] = encode(values[index]);
+                order[index] = (long) key.hashCode() << 32 | index;
+            }
+            Arrays.sort(order);
+            long node = position();
+            writeByte(MAP);
+            writeInt(size);
+            for (int index = 0; index < size; index++) {
+                writeLong(keyNodes[index]);
+                writeLong(valueNodes[index]);
+            }
+            for (long entry : order) writeLong(entry);
+            return node;
+        }
+
+        /**
+         * Завершение документа: запись положения корня и уменьшение последней части до занятого размера.
+         *
+         * @param root Положение корня
+         * @return Документ.
+         */
+        protected VariantDocument finish(long root) {
+            long size = position();
+            if (chunk.position() < chunk.capacity()) {
+                ByteBuffer trimmed = allocate(chunk.position());
+                chunk.flip();
+                trimmed.put(chunk);
+                chunk = trimmed;
+            }
+            chunk.flip();
+            chunks.add(chunk);
+            chunks.get(0).putLong(8, root);
+            return new VariantDocument(chunks.toArray(new ByteBuffer[0]), chunkShift, size);
+        }
+    }
+}
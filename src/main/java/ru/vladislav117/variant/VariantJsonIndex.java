@@ -0,0 +1,160 @@
+package ru.vladislav117.variant;
+
+import ru.vladislav117.variant.error.VariantJsonError;
+
+import java.util.Arrays;
+
+/**
+ * Исходный json (UTF-8) и структурный индекс его таблиц и списков для отложенного разбора.
+ * Индекс строится за один проход без создания объектов: для каждой открывающей скобки
+ * запоминаются её позиция, позиция парной закрывающей скобки и номер следующей скобки после неё,
+ * что позволяет пропускать неразобранные таблицы и списки за O(1). Скобки вне строк находятся {@link VariantJsonScanner}.
+ *
+ * @see LazyVariantMap
+ * @see LazyVariantList
+ */
+public class VariantJsonIndex {
+    protected static final int INITIAL_CAPACITY = 64;
+    /**
+     * Размер ленты позиций скобок.
+     */
+    protected static final int TAPE_SIZE = 1024;
+
+    protected final byte[] json;
+    protected final int offset;
+    protected final int limit;
+    protected int[] opens = new int[INITIAL_CAPACITY];
+    protected int[] closes = new int[INITIAL_CAPACITY];
+    protected int[] nexts = new int[INITIAL_CAPACITY];
+    protected int count = 0;
+    protected boolean[] checked = null;
+
+    /**
+     * Создание индекса.
+     *
+     * @param json   Json в кодировке UTF-8
+     * @param offset Начало json в массиве
+     * @param length Длина json
+     */
+    protected VariantJsonIndex(byte[] json, int offset, int length) {
+        this.json = json;
+        this.offset = offset;
+        this.limit = offset + length;
+    }
+
+    /**
+     * Построение индекса json.
+     * Проверяется только парность скобок и кавычек и вложенность не глубже {@link VariantJsonParser#MAX_DEPTH};
+     * остальные ошибки обнаруживаются при разборе соответствующей части.
+     *
+     * @param json   Json в кодировке UTF-8
+     * @param offset Начало json в массиве
+     * @param length Длина json
+     * @return Индекс.
+     * @throws VariantJsonError Если скобки или кавычки не парные или вложенность слишком глубокая, будет вызвано исключение.
+     */
+    public static VariantJsonIndex build(byte[] json, int offset, int length) {
+        VariantJsonIndex index = new VariantJsonIndex(json, offset, length);
+        index.scan();
+        return index;
+    }
+
+    /**
+     * Получение количества таблиц и списков в json.
+     *
+     * @return Количество таблиц и списков.
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Проход по json с заполнением индекса по позициям скобок, найденным {@link VariantJsonScanner}.
+     */
+    protected void scan() {
+        byte[] json = this.json;
+        VariantJsonScanner scanner = new VariantJsonScanner(json, offset, limit - offset, false);
+        int[] tape = new int[TAPE_SIZE];
+        int[] stack = new int[16];
+        int depth = 0;
+        int found;
+        while ((found = scanner.next(tape)) > 0) {
+            for (int index = 0; index < found; index++) {
+                int position = tape[index];
+                byte value = json[position];
+                if (value == '{' || value == '[') {
+                    if (depth == VariantJsonParser.MAX_DEPTH) throw new VariantJsonError("nesting is too deep", position + 1 - offset);
+                    if (count == opens.length) grow();
+                    if (depth == stack.length) stack = Arrays.copyOf(stack, depth * 2);
+                    opens[count] = position;
+                    stack[depth++] = count++;
+                } else {
+                    if (depth == 0) throw new VariantJsonError("unexpected '" + (char) value + "'", position - offset);
+                    int node = stack[--depth];
+                    if (json[opens[node]] != (value == '}' ? '{' : '[')) throw new VariantJsonError("unexpected '" + (char) value + "'", position - offset);
+                    closes[node] = position;
+                    nexts[node] = count;
+                }
+            }
+        }
+        if (scanner.isInString()) throw new VariantJsonError("unterminated string", limit - offset);
+        if (depth != 0) throw new VariantJsonError("unexpected end of data", limit - offset);
+    }
+
+    /**
+     * Проверка синтаксиса таблицы или списка со всеми вложенными без создания дерева.
+     * Проверенные таблицы и списки запоминаются и повторно не проверяются.
+     *
+     * @param node Номер таблицы или списка
+     * @throws VariantJsonError Если json некорректен, будет вызвано исключение.
+     */
+    public void check(int node) {
+        if (checked == null) checked = new boolean[count];
+        if (checked[node]) return;
+        VariantReader reader = new VariantReader(json, opens[node], closes[node] + 1 - opens[node]);
+        reader.parser.bufferOffset = -offset;
+        VariantToken token = reader.next();
+        while (token != VariantToken.END_DOCUMENT) token = reader.next();
+        Arrays.fill(checked, node, nexts[node], true);
+    }
+
+    /**
+     * Увеличение массивов индекса.
+     */
+    protected void grow() {
+        int capacity = opens.length * 2;
+        opens = Arrays.copyOf(opens, capacity);
+        closes = Arrays.copyOf(closes, capacity);
+        nexts = Arrays.copyOf(nexts, capacity);
+    }
+
+    /**
+     * Получение позиции открывающей скобки.
+     *
+     * @param node Номер таблицы или списка
+     * @return Позиция в массиве байтов.
+     */
+    public int getOpen(int node) {
+        return opens[node];
+    }
+
+    /**
+     * Получение позиции закрывающей скобки.
+     *
+     * @param node Номер таблицы или списка
+     * @return Позиция в массиве байтов.
+     */
+    public int getClose(int node) {
+        return closes[node];
+    }
+
+    /**
+     * Получение номера первой таблицы или списка после закрывающей скобки.
+     *
+     * @param node Номер таблицы или списка
+     * @return Номер следующей таблицы или списка.
+     */
+    public int getNext(int node) {
+        return nexts[node];
+    }
+}
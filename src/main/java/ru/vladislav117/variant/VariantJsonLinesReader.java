@@ -0,0 +1,219 @@
+package ru.vladislav117.variant;
+
+import ru.vladislav117.variant.error.VariantJsonError;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Чтение json lines (NDJSON): по одному объекту на строку.
+ * Данные читаются в один переиспользуемый буфер, который растёт только до длины самой длинной строки,
+ * поэтому память не зависит от количества строк. Строки разбираются прямо в буфере, а созданные объекты
+ * не ссылаются на него. Пустые строки и завершающие '\r' пропускаются, последняя строка может не заканчиваться '\n'.
+ * Позиции в ошибках разбора отсчитываются от начала данных.
+ * <p>
+ * Закрытие объекта чтения закрывает поток или канал.
+ */
+public class VariantJsonLinesReader implements Iterator<Variant>, Closeable {
+    /**
+     * Размер буфера чтения.
+     */
+    protected static final int BUFFER_SIZE = 1 << 16;
+
+    protected final InputStream stream;
+    protected final ReadableByteChannel channel;
+    protected byte[] buffer = new byte[BUFFER_SIZE];
+    protected int start = 0;
+    protected int end = 0;
+    protected int scanned = 0;
+    protected long bufferOffset = 0;
+    protected long lineNumber = 0;
+    protected boolean endOfData = false;
+    protected Variant next = null;
+
+    /**
+     * Создание объекта чтения из потока в кодировке UTF-8.
+     *
+     * @param stream Поток
+     */
+    public VariantJsonLinesReader(InputStream stream) {
+        this.stream = stream;
+        this.channel = null;
+    }
+
+    /**
+     * Создание объекта чтения из канала в кодировке UTF-8.
+     *
+     * @param channel Канал
+     */
+    public VariantJsonLinesReader(ReadableByteChannel channel) {
+        this.stream = null;
+        this.channel = channel;
+    }
+
+    /**
+     * Проверка, есть ли следующий объект.
+     *
+     * @return Есть ли следующий объект.
+     * @throws VariantJsonError     Если строка содержит некорректный json, будет вызвано исключение.
+     * @throws UncheckedIOException Если при чтении произошла ошибка, будет вызвано исключение.
+     */
+    @Override
+    public boolean hasNext() {
+        if (next == null) next = readLine();
+        return next != null;
+    }
+
+    /**
+     * Получение следующего объекта.
+     *
+     * @return Объект из следующей непустой строки.
+     * @throws NoSuchElementException Если объектов больше нет, будет вызвано исключение.
+     * @throws VariantJsonError       Если строка содержит некорректный json, будет вызвано исключение.
+     * @throws UncheckedIOException   Если при чтении произошла ошибка, будет вызвано исключение.
+     */
+    @Override
+    public Variant next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        Variant value = next;
+        next = null;
+        return value;
+    }
+
+    /**
+     * Получение последовательного потока объектов.
+     * Закрытие потока объектов закрывает объект чтения.
+     *
+     * @return Поток объектов.
+     */
+    public Stream<Variant> stream() {
+        Spliterator<Variant> spliterator = Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false).onClose(this::close);
+    }
+
+    /**
+     * Получение номера последней прочитанной строки (начиная с 1).
+     *
+     * @return Номер строки.
+     */
+    public long getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * Закрытие потока или канала.
+     *
+     * @throws UncheckedIOException Если при закрытии произошла ошибка, будет вызвано исключение.
+     */
+    @Override
+    public void close() {
+        try {
+            if (stream != null) {
+                stream.close();
+            } else {
+                channel.close();
+            }
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    /**
+     * Чтение и разбор следующей непустой строки.
+     *
+     * @return Объект или null, если данные закончились.
+     */
+    protected Variant readLine() {
+        try {
+            while (true) {
+                int newline = -1;
+                for (int index = scanned; index < end; index++) {
+                    if (buffer[index] == '\n') {
+                        newline = index;
+                        break;
+                    }
+                }
+                if (newline < 0 && !endOfData) {
+                    scanned = end;
+                    fill();
+                    continue;
+                }
+                if (newline < 0 && start == end) return null;
+                int lineEnd = newline < 0 ? end : newline;
+                int lineStart = start;
+                start = newline < 0 ? end : newline + 1;
+                scanned = start;
+                lineNumber++;
+                if (isBlank(lineStart, lineEnd)) continue;
+                VariantJsonParser parser = new VariantJsonParser(buffer, lineStart, lineEnd - lineStart);
+                parser.bufferOffset = bufferOffset;
+                return parser.readDocument();
+            }
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    /**
+     * Проверка, состоит ли часть буфера только из пробельных символов.
+     *
+     * @param from Начало части
+     * @param to   Конец части
+     * @return Пуста ли строка.
+     */
+    protected boolean isBlank(int from, int to) {
+        for (int index = from; index < to; index++) {
+            byte value = buffer[index];
+            if (value != ' ' && value != '\t' && value != '\r') return false;
+        }
+        return true;
+    }
+
+    /**
+     * Чтение следующей части данных: прочитанные строки удаляются из буфера, а если незавершённая строка занимает его целиком,
+     * буфер увеличивается.
+     *
+     * @throws IOException Ошибка чтения.
+     */
+    protected void fill() throws IOException {
+        if (start > 0) {
+            int remaining = end - start;
+            if (buffer.length > BUFFER_SIZE && remaining < BUFFER_SIZE / 2) {
+                byte[] shrunk = new byte[BUFFER_SIZE];
+                System.arraycopy(buffer, start, shrunk, 0, remaining);
+                buffer = shrunk;
+            } else {
+                System.arraycopy(buffer, start, buffer, 0, remaining);
+            }
+            bufferOffset += start;
+            scanned -= start;
+            end = remaining;
+            start = 0;
+        }
+        if (end == buffer.length) buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        int read;
+        do {
+            if (stream != null) {
+                read = stream.read(buffer, end, buffer.length - end);
+            } else {
+                read = channel.read(ByteBuffer.wrap(buffer, end, buffer.length - end));
+            }
+        } while (read == 0);
+        if (read < 0) {
+            endOfData = true;
+        } else {
+            end += read;
+        }
+    }
+}
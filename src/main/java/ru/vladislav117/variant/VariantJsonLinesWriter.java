@@ -0,0 +1,111 @@
+package ru.vladislav117.variant;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Запись json lines (NDJSON): каждый объект записывается одной строкой json, как {@link Variant#toJsonString()}, и завершается '\n'.
+ * Строки накапливаются в буферах {@link VariantJsonWriter} и передаются получателю пачками по мере заполнения буфера,
+ * а также при вызове {@link #flush()} и {@link #close()}.
+ * <p>
+ * Закрытие объекта записи передаёт оставшиеся данные и закрывает поток или канал.
+ */
+public class VariantJsonLinesWriter implements Flushable, Closeable {
+    protected final VariantJsonWriter writer;
+    protected final OutputStream stream;
+    protected final WritableByteChannel channel;
+    protected long lineCount = 0;
+
+    /**
+     * Создание объекта записи в поток в кодировке UTF-8.
+     *
+     * @param stream Поток
+     */
+    public VariantJsonLinesWriter(OutputStream stream) {
+        writer = new VariantJsonWriter(stream);
+        this.stream = stream;
+        this.channel = null;
+    }
+
+    /**
+     * Создание объекта записи в канал в кодировке UTF-8.
+     *
+     * @param channel Канал
+     */
+    public VariantJsonLinesWriter(WritableByteChannel channel) {
+        writer = new VariantJsonWriter(channel);
+        this.stream = null;
+        this.channel = channel;
+    }
+
+    /**
+     * Запись объекта отдельной строкой.
+     * Данные могут остаться в буфере до вызова {@link #flush()}.
+     *
+     * @param variant Объект
+     * @return Этот же объект записи.
+     * @throws UncheckedIOException Если при записи произошла ошибка, будет вызвано исключение.
+     */
+    @SuppressWarnings("UnusedReturnValue")
+    public VariantJsonLinesWriter write(Variant variant) {
+        try {
+            writer.writeValue(variant);
+            writer.ensure(1);
+            writer.buffer[writer.position++] = '\n';
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+        lineCount++;
+        return this;
+    }
+
+    /**
+     * Получение количества записанных строк.
+     *
+     * @return Количество строк.
+     */
+    public long getLineCount() {
+        return lineCount;
+    }
+
+    /**
+     * Передача накопленных строк получателю.
+     *
+     * @throws UncheckedIOException Если при записи произошла ошибка, будет вызвано исключение.
+     */
+    @Override
+    public void flush() {
+        writer.flush();
+        try {
+            if (stream != null) stream.flush();
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    /**
+     * Передача оставшихся строк и закрытие потока или канала.
+     *
+     * @throws UncheckedIOException Если при записи или закрытии произошла ошибка, будет вызвано исключение.
+     */
+    @Override
+    public void close() {
+        try {
+            writer.flush();
+        } finally {
+            try {
+                if (stream != null) {
+                    stream.close();
+                } else {
+                    channel.close();
+                }
+            } catch (IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+        }
+    }
+}
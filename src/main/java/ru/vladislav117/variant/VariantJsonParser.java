@@ -0,0 +1,763 @@
+package ru.vladislav117.variant;
+
+import ru.vladislav117.variant.error.VariantJsonError;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Потоковый парсер json (UTF-8), создающий Variant напрямую,
+ * без промежуточного дерева JsonElement.
+ * Null, логические значения, пустые строки и небольшие целые числа внутри документа
+ * представляются общими экземплярами {@link CanonicalVariant}.
+ * Строки с символами вне ASCII, не требующие разбора экранирования, хранятся в UTF-8 как {@link VariantUtf8String}.
+ * Вложенность таблиц и списков ограничена {@link #MAX_DEPTH}, чтобы глубокий json не переполнял стек.
+ */
+public class VariantJsonParser {
+    /**
+     * Наибольшая вложенность таблиц и списков (системное свойство {@code ru.vladislav117.variant.json.maxDepth}, по умолчанию 512).
+     */
+    public static final int MAX_DEPTH = Integer.getInteger("ru.vladislav117.variant.json.maxDepth", 512);
+    /**
+     * Размер буфера чтения из потока или канала.
+     */
+    protected static final int BUFFER_SIZE = 8192;
+    /**
+     * Степени десяти, которые точно представимы в double.
+     */
+    protected static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    protected InputStream stream = null;
+    protected ReadableByteChannel channel = null;
+    protected ByteBuffer channelBuffer = null;
+    protected byte[] buffer;
+    protected int position;
+    protected int limit;
+    protected long bufferOffset;
+    protected char[] chars = new char[64];
+    protected VariantJsonIndex index = null;
+    protected int nextNode = 0;
+    protected int depth = 0;
+
+    /**
+     * Создание парсера для массива байтов.
+     *
+     * @param json   Json в кодировке UTF-8
+     * @param offset Начало json в массиве
+     * @param length Длина json
+     */
+    protected VariantJsonParser(byte[] json, int offset, int length) {
+        buffer = json;
+        position = offset;
+        limit = offset + length;
+        bufferOffset = -offset;
+    }
+
+    /**
+     * Создание парсера для отложенного разбора: таблицы и списки не разбираются, а пропускаются по индексу.
+     *
+     * @param index    Индекс json
+     * @param position Позиция начала чтения
+     * @param nextNode Номер первой таблицы или списка после позиции
+     */
+    protected VariantJsonParser(VariantJsonIndex index, int position, int nextNode) {
+        this(index.json, position, index.limit - position);
+        bufferOffset = -index.offset;
+        this.index = index;
+        this.nextNode = nextNode;
+    }
+
+    /**
+     * Создание парсера для потока.
+     *
+     * @param stream Поток с json в кодировке UTF-8
+     */
+    protected VariantJsonParser(InputStream stream) {
+        this.stream = stream;
+        buffer = new byte[BUFFER_SIZE];
+    }
+
+    /**
+     * Создание парсера для канала.
+     *
+     * @param channel Канал с json в кодировке UTF-8
+     */
+    protected VariantJsonParser(ReadableByteChannel channel) {
+        this.channel = channel;
+        buffer = new byte[BUFFER_SIZE];
+        channelBuffer = ByteBuffer.wrap(buffer);
+    }
+
+    /**
+     * Разбор json-строки.
+     *
+     * @param json Json-строка
+     * @return Объект из json.
+     * @throws VariantJsonError Если json некорректен, будет вызвано исключение.
+     */
+    public static Variant parse(String json) {
+        return parse(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Разбор json из массива байтов.
+     *
+     * @param json Json в кодировке UTF-8
+     * @return Объект из json.
+     * @throws VariantJsonError Если json некорректен, будет вызвано исключение.
+     */
+    public static Variant parse(byte[] json) {
+        return parse(json, 0, json.length);
+    }
+
+    /**
+     * Разбор json из части массива байтов.
+     *
+     * @param json   Json в кодировке UTF-8
+     * @param offset Начало json в массиве
+     * @param length Длина json
+     * @return Объект из json.
+     * @throws VariantJsonError Если json некорректен, будет вызвано исключение.
+     */
+    public static Variant parse(byte[] json, int offset, int length) {
+        try {
+            return new VariantJsonParser(json, offset, length).readDocument();
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    /**
+     * Отложенный разбор json-строки.
+     *
+     * @param json Json-строка
+     * @return Объект из json.
+     * @throws VariantJsonError Если json некорректен, будет вызвано исключение.
+     * @see #parseLazy(byte[], int, int)
+     */
+    public static Variant parseLazy(String json) {
+        return parseLazy(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Отложенный разбор json из массива байтов.
+     *
+     * @param json Json в кодировке UTF-8
+     * @return Объект из json.
+     * @throws VariantJsonError Если json некорректен, будет вызвано исключение.
+     * @see #parseLazy(byte[], int, int)
+     */
+    public static Variant parseLazy(byte[] json) {
+        return parseLazy(json, 0, json.length);
+    }
+
+    /**
+     * Отложенный разбор json из части массива байтов.
+     * Сначала за один проход строится {@link VariantJsonIndex}, затем разбирается только верхний уровень документа;
+     * каждая таблица и каждый список разбираются при первом обращении к ним ({@link LazyVariantMap}, {@link LazyVariantList}).
+     * Массив хранится без копирования и не должен изменяться, пока документ используется.
+     * Ошибки внутри неразобранных частей обнаруживаются при обращении к ним или при записи их в json.
+     *
+     * @param json   Json в кодировке UTF-8
+     * @param offset Начало json в массиве
+     * @param length Длина json
+     * @return Объект из json.
+     * @throws VariantJsonError Если json некорректен, будет вызвано исключение.
+     */
+    public static Variant parseLazy(byte[] json, int offset, int length) {
+        VariantJsonIndex index = VariantJsonIndex.build(json, offset, length);
+        try {
+            return new VariantJsonParser(index, offset, 0).readDocument();
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    /**
+     * Разбор одного уровня неразобранной таблицы.
+     * Разобранные объекты не принадлежат области выделения, ведь таблица может её пережить.
+     *
+     * @param index Индекс json
+     * @param node  Номер таблицы в индексе
+     * @param map   Заполняемая таблица
+     * @throws VariantJsonError Если json некорректен, будет вызвано исключение.
+     */
+    protected static void load(VariantJsonIndex index, int node, VariantMap map) {
+        VariantArena arena = VariantArena.suspend();
+        try {
+            new VariantJsonParser(index, index.getOpen(node) + 1, node + 1).readMapEntries(map);
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        } finally {
+            VariantArena.resume(arena);
+        }
+    }
+
+    /**
+     * Разбор одного уровня неразобранного списка.
+     * Разобранные объекты не принадлежат области выделения, ведь список может её пережить.
+     *
+     * @param index Индекс json
+     * @param node  Номер списка в индексе
+     * @param list  Заполняемый список
+     * @throws VariantJsonError Если json некорректен, будет вызвано исключение.
+     */
+    protected static void load(VariantJsonIndex index, int node, VariantList list) {
+        VariantArena arena = VariantArena.suspend();
+        try {
+            new VariantJsonParser(index, index.getOpen(node) + 1, node + 1).readListItems(list);
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        } finally {
+            VariantArena.resume(arena);
+        }
+    }
+
+    /**
+     * Разбор json из потока.
+     * Поток читается до конца, но не закрывается.
+     *
+     * @param stream Поток с json в кодировке UTF-8
+     * @return Объект из json.
+     * @throws VariantJsonError     Если json некорректен, будет вызвано исключение.
+     * @throws UncheckedIOException Если при чтении потока произошла ошибка, будет вызвано исключение.
+     */
+    public static Variant parse(InputStream stream) {
+        try {
+            return new VariantJsonParser(stream).readDocument();
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    /**
+     * Разбор json из канала.
+     * Канал читается до конца, но не закрывается.
+     *
+     * @param channel Канал с json в кодировке UTF-8
+     * @return Объект из json.
+     * @throws VariantJsonError     Если json некорректен, будет вызвано исключение.
+     * @throws UncheckedIOException Если при чтении канала произошла ошибка, будет вызвано исключение.
+     */
+    public static Variant parse(ReadableByteChannel channel) {
+        try {
+            return new VariantJsonParser(channel).readDocument();
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    /**
+     * Чтение очередной порции данных из потока или канала в буфер.
+     *
+     * @return Были ли прочитаны данные.
+     * @throws IOException Ошибка чтения.
+     */
+    protected boolean fill() throws IOException {
+        if (stream == null && channel == null) return false;
+        bufferOffset += limit;
+        position = 0;
+        limit = 0;
+        int read = 0;
+        while (read == 0) {
+            if (stream != null) {
+                read = stream.read(buffer, 0, buffer.length);
+            } else {
+                channelBuffer.clear();
+                read = channel.read(channelBuffer);
+            }
+        }
+        if (read < 0) return false;
+        limit = read;
+        return true;
+    }
+
+    /**
+     * Чтение следующего байта.
+     *
+     * @return Байт или -1, если данные закончились.
+     * @throws IOException Ошибка чтения.
+     */
+    protected int read() throws IOException {
+        if (position == limit && !fill()) return -1;
+        return buffer[position++] & 0xFF;
+    }
+
+    /**
+     * Получение следующего байта без его чтения.
+     *
+     * @return Байт или -1, если данные закончились.
+     * @throws IOException Ошибка чтения.
+     */
+    protected int peek() throws IOException {
+        if (position == limit && !fill()) return -1;
+        return buffer[position] & 0xFF;
+    }
+
+    /**
+     * Пропуск пробельных символов и чтение следующего байта.
+     *
+     * @return Байт или -1, если данные закончились.
+     * @throws IOException Ошибка чтения.
+     */
+    protected int readSkippingWhitespace() throws IOException {
+        while (true) {
+            if (position == limit && !fill()) return -1;
+            int value = buffer[position++];
+            if (value != ' ' && value != '\n' && value != '\r' && value != '\t') return value & 0xFF;
+        }
+    }
+
+    /**
+     * Создание ошибки разбора в текущей позиции.
+     *
+     * @param message Сообщение об ошибке
+     * @return Ошибка.
+     */
+    protected VariantJsonError error(String message) {
+        return new VariantJsonError(message, bufferOffset + position);
+    }
+
+    /**
+     * Чтение документа: одного значения, после которого нет ничего, кроме пробельных символов.
+     *
+     * @return Объект из json.
+     * @throws IOException Ошибка чтения.
+     */
+    protected Variant readDocument() throws IOException {
+        Variant value = readValue(readSkippingWhitespace());
+        if (readSkippingWhitespace() != -1) throw error("unexpected data after json value");
+        return CanonicalVariant.detach(value);
+    }
+
+    /**
+     * Чтение значения.
+     * Листовое значение может быть общим экземпляром {@link CanonicalVariant}.
+     *
+     * @param first Первый байт значения
+     * @return Объект.
+     * @throws IOException Ошибка чтения.
+     */
+    protected Variant readValue(int first) throws IOException {
+        switch (first) {
+            case '{':
+                if (index != null) return Variant.adoptMap(new LazyVariantMap(index, skipNode()));
+                return readMap();
+            case '[':
+                if (index != null) return Variant.adoptList(new LazyVariantList(index, skipNode()));
+                return readList();
+            case '"':
+                return readStringValue();
+            case 't':
+                readLiteral("rue");
+                return CanonicalVariant.ofBoolean(true);
+            case 'f':
+                readLiteral("alse");
+                return CanonicalVariant.ofBoolean(false);
+            case 'n':
+                readLiteral("ull");
+                return CanonicalVariant.ofNull();
+            case '-':
+            case '0':
+            case '1':
+            case '2':
+            case '3':
+            case '4':
+            case '5':
+            case '6':
+            case '7':
+            case '8':
+            case '9':
+                return readNumber(first);
+            case -1:
+                throw error("unexpected end of json");
+            default:
+                throw error("unexpected character '" + (char) first + "'");
+        }
+    }
+
+    /**
+     * Чтение оставшейся части литерала true, false или null.
+     *
+     * @param rest Оставшаяся часть литерала
+     * @throws IOException Ошибка чтения.
+     */
+    protected void readLiteral(String rest) throws IOException {
+        for (int index = 0; index < rest.length(); index++) {
+            if (read() != rest.charAt(index)) throw error("invalid literal");
+        }
+    }
+
+    /**
+     * Чтение таблицы (открывающая скобка уже прочитана).
+     *
+     * @return Таблица.
+     * @throws IOException Ошибка чтения.
+     */
+    protected Variant readMap() throws IOException {
+        if (++depth > MAX_DEPTH) throw error("nesting is too deep");
+        VariantMap map = VariantArena.allocateMap();
+        readMapEntries(map);
+        depth--;
+        return Variant.adoptMap(map);
+    }
+
+    /**
+     * Чтение элементов таблицы до закрывающей скобки включительно (открывающая скобка уже прочитана).
+     *
+     * @param map Заполняемая таблица
+     * @throws IOException Ошибка чтения.
+     */
+    protected void readMapEntries(VariantMap map) throws IOException {
+        int next = readSkippingWhitespace();
+        if (next == '}') return;
+        while (true) {
+            if (next != '"') throw error("expected name");
+            String name = readString();
+            if (readSkippingWhitespace() != ':') throw error("expected ':'");
+            map.put(name, readValue(readSkippingWhitespace()));
+            next = readSkippingWhitespace();
+            if (next == '}') {
+                if (!VariantArena.isActive()) map.trimToSize();
+                return;
+            }
+            if (next != ',') throw error("expected ',' or '}'");
+            next = readSkippingWhitespace();
+        }
+    }
+
+    /**
+     * Чтение списка (открывающая скобка уже прочитана).
+     *
+     * @return Список.
+     * @throws IOException Ошибка чтения.
+     */
+    protected Variant readList() throws IOException {
+        if (++depth > MAX_DEPTH) throw error("nesting is too deep");
+        VariantList list = VariantArena.allocateList();
+        readListItems(list);
+        depth--;
+        return Variant.adoptList(list);
+    }
+
+    /**
+     * Чтение элементов списка до закрывающей скобки включительно (открывающая скобка уже прочитана).
+     *
+     * @param list Заполняемый список
+     * @throws IOException Ошибка чтения.
+     */
+    protected void readListItems(VariantList list) throws IOException {
+        int next = readSkippingWhitespace();
+        if (next == ']') return;
+        while (true) {
+            list.addOwned(readValue(next));
+            next = readSkippingWhitespace();
+            if (next == ']') {
+                if (!VariantArena.isActive()) list.trimToSize();
+                return;
+            }
+            if (next != ',') throw error("expected ',' or ']'");
+            next = readSkippingWhitespace();
+        }
+    }
+
+    /**
+     * Пропуск таблицы или списка по индексу (открывающая скобка уже прочитана).
+     *
+     * @return Номер пропущенной таблицы или списка в индексе.
+     */
+    protected int skipNode() {
+        int node = nextNode;
+        if (node >= index.size() || index.getOpen(node) != position - 1) throw error("unexpected structure");
+        position = index.getClose(node) + 1;
+        nextNode = index.getNext(node);
+        return node;
+    }
+
+    /**
+     * Создание строкового объекта.
+     *
+     * @param value Строка (String или {@link VariantUtf8String})
+     * @return Строковый объект.
+     */
+    protected Variant newString(CharSequence value) {
+        if (value instanceof String && ((String) value).isEmpty()) return CanonicalVariant.ofEmptyString();
+        Variant variant = VariantArena.allocate();
+        variant.type = VariantType.STRING;
+        variant.object = value;
+        return variant;
+    }
+
+    /**
+     * Создание объекта с целым числом: общий экземпляр, если он есть, иначе объект из области выделения.
+     *
+     * @param value Число
+     * @return Числовой объект.
+     */
+    protected Variant newLong(long value) {
+        if (value >= CanonicalVariant.LOW && value <= CanonicalVariant.HIGH) return CanonicalVariant.ofLong(value);
+        return VariantArena.allocate().setLongNumber(value);
+    }
+
+    /**
+     * Чтение строкового значения (открывающая кавычка уже прочитана).
+     * Строка без экранирования, целиком лежащая в буфере, не декодируется:
+     * при отложенном разборе она ссылается на исходный json, иначе строка с символами вне ASCII
+     * копируется как {@link VariantUtf8String}, а строка из ASCII-символов создаётся как String.
+     *
+     * @return Строковый объект.
+     * @throws IOException Ошибка чтения.
+     */
+    protected Variant readStringValue() throws IOException {
+        byte[] buffer = this.buffer;
+        int start = position;
+        int end = start;
+        boolean ascii = true;
+        while (true) {
+            if (end == limit) return newString(readStringSlowly());
+            byte value = buffer[end];
+            if (value == '"') break;
+            if (value == '\\' || value >= 0 && value < 0x20) return newString(readStringSlowly());
+            if (value < 0) ascii = false;
+            end++;
+        }
+        if (start == end) {
+            position = end + 1;
+            return CanonicalVariant.ofEmptyString();
+        }
+        if (ascii && index == null) {
+            position = end + 1;
+            return newString(new String(buffer, start, end - start, StandardCharsets.ISO_8859_1));
+        }
+        int check = ascii ? VariantUtf8String.PLAIN : VariantUtf8String.check(buffer, start, end);
+        if (check == VariantUtf8String.INVALID) return newString(readStringSlowly());
+        position = end + 1;
+        if (index != null) return newString(new VariantUtf8String(buffer, start, end - start, check == VariantUtf8String.PLAIN));
+        return newString(new VariantUtf8String(Arrays.copyOfRange(buffer, start, end), 0, end - start, check == VariantUtf8String.PLAIN));
+    }
+
+    /**
+     * Чтение строки (открывающая кавычка уже прочитана).
+     * Строки из ASCII-символов без экранирования, целиком лежащие в буфере, создаются без декодирования.
+     *
+     * @return Строка.
+     * @throws IOException Ошибка чтения.
+     */
+    protected String readString() throws IOException {
+        byte[] buffer = this.buffer;
+        for (int index = position; index < limit; index++) {
+            byte value = buffer[index];
+            if (value == '"') {
+                String string = new String(buffer, position, index - position, StandardCharsets.ISO_8859_1);
+                position = index + 1;
+                return string;
+            }
+            if (value == '\\' || value < 0x20) break;
+        }
+        return readStringSlowly();
+    }
+
+    /**
+     * Чтение строки с экранированием, символами вне ASCII или на границе буфера.
+     *
+     * @return Строка.
+     * @throws IOException Ошибка чтения.
+     */
+    protected String readStringSlowly() throws IOException {
+        int length = 0;
+        while (true) {
+            int value = read();
+            if (value == '"') return new String(chars, 0, length);
+            if (length + 2 > chars.length) chars = Arrays.copyOf(chars, chars.length * 2);
+            if (value == '\\') {
+                chars[length++] = readEscape();
+            } else if (value < 0x20) {
+                throw error(value == -1 ? "unterminated string" : "control character in string");
+            } else if (value < 0x80) {
+                chars[length++] = (char) value;
+            } else {
+                int codePoint = readUtf8(value);
+                if (codePoint >= 0x10000) {
+                    chars[length++] = Character.highSurrogate(codePoint);
+                    chars[length++] = Character.lowSurrogate(codePoint);
+                } else {
+                    chars[length++] = (char) codePoint;
+                }
+            }
+        }
+    }
+
+    /**
+     * Чтение экранированного символа (обратная косая черта уже прочитана).
+     *
+     * @return Символ.
+     * @throws IOException Ошибка чтения.
+     */
+    protected char readEscape() throws IOException {
+        int value = read();
+        switch (value) {
+            case '"':
+                return '"';
+            case '\\':
+                return '\\';
+            case '/':
+                return '/';
+            case 'b':
+                return '\b';
+            case 'f':
+                return '\f';
+            case 'n':
+                return '\n';
+            case 'r':
+                return '\r';
+            case 't':
+                return '\t';
+            case 'u':
+                int character = 0;
+                for (int index = 0; index < 4; index++) {
+                    int digit = Character.digit(read(), 16);
+                    if (digit < 0) throw error("invalid unicode escape");
+                    character = (character << 4) | digit;
+                }
+                return (char) character;
+            default:
+                throw error("invalid escape");
+        }
+    }
+
+    /**
+     * Декодирование многобайтового символа UTF-8.
+     * Избыточные последовательности, суррогаты и кодовые точки больше U+10FFFF считаются ошибкой.
+     *
+     * @param first Первый байт символа
+     * @return Кодовая точка.
+     * @throws IOException Ошибка чтения.
+     */
+    protected int readUtf8(int first) throws IOException {
+        int count;
+        int codePoint;
+        if ((first & 0xE0) == 0xC0) {
+            count = 1;
+            codePoint = first & 0x1F;
+        } else if ((first & 0xF0) == 0xE0) {
+            count = 2;
+            codePoint = first & 0x0F;
+        } else if ((first & 0xF8) == 0xF0) {
+            count = 3;
+            codePoint = first & 0x07;
+        } else {
+            throw error("invalid utf-8");
+        }
+        for (int index = 0; index < count; index++) {
+            int next = read();
+            if ((next & 0xC0) != 0x80) throw error("invalid utf-8");
+            codePoint = (codePoint << 6) | (next & 0x3F);
+        }
+        if (codePoint < (count == 1 ? 0x80 : count == 2 ? 0x800 : 0x10000) || codePoint > Character.MAX_CODE_POINT
+                || codePoint >= Character.MIN_SURROGATE && codePoint <= Character.MAX_SURROGATE) {
+            throw error("invalid utf-8");
+        }
+        return codePoint;
+    }
+
+    /**
+     * Чтение числа.
+     * Целые числа, помещающиеся в long, сохраняются в long, остальные — в double, если это не приводит к потере точности.
+     *
+     * @param first Первый байт числа
+     * @return Число.
+     * @throws IOException Ошибка чтения.
+     */
+    protected Variant readNumber(int first) throws IOException {
+        int length = 0;
+        chars[length++] = (char) first;
+        while (true) {
+            int value = peek();
+            if ((value < '0' || value > '9') && value != '.' && value != 'e' && value != 'E' && value != '+' && value != '-') break;
+            if (length == chars.length) chars = Arrays.copyOf(chars, chars.length * 2);
+            chars[length++] = (char) value;
+            position++;
+        }
+        return parseNumber(chars, length);
+    }
+
+    /**
+     * Разбор числа из символов.
+     * Числа, не представимые без потерь ни в long, ни в double, сохраняют исходную запись (см. {@link VariantDecimal}).
+     *
+     * @param chars  Символы числа
+     * @param length Количество символов
+     * @return Число.
+     */
+    protected Variant parseNumber(char[] chars, int length) {
+        int index = 0;
+        boolean negative = chars[0] == '-';
+        if (negative) index++;
+        int integerStart = index;
+        while (index < length && chars[index] >= '0' && chars[index] <= '9') index++;
+        int integerDigits = index - integerStart;
+        if (integerDigits == 0 || (integerDigits > 1 && chars[integerStart] == '0')) throw error("invalid number");
+        int fractionStart = index;
+        int fractionDigits = 0;
+        if (index < length && chars[index] == '.') {
+            fractionStart = ++index;
+            while (index < length && chars[index] >= '0' && chars[index] <= '9') index++;
+            fractionDigits = index - fractionStart;
+            if (fractionDigits == 0) throw error("invalid number");
+        }
+        boolean hasExponent = false;
+        int exponent = 0;
+        if (index < length && (chars[index] == 'e' || chars[index] == 'E')) {
+            hasExponent = true;
+            index++;
+            boolean negativeExponent = false;
+            if (index < length && (chars[index] == '+' || chars[index] == '-')) negativeExponent = chars[index++] == '-';
+            int exponentStart = index;
+            while (index < length && chars[index] >= '0' && chars[index] <= '9') {
+                if (exponent < 100000) exponent = exponent * 10 + (chars[index] - '0');
+                index++;
+            }
+            if (index == exponentStart) throw error("invalid number");
+            if (negativeExponent) exponent = -exponent;
+        }
+        if (index != length) throw error("invalid number");
+
+        if (fractionDigits == 0 && !hasExponent) {
+            if (integerDigits <= 18) {
+                long value = 0;
+                for (int digit = integerStart; digit < integerStart + integerDigits; digit++) value = value * 10 + (chars[digit] - '0');
+                return newLong(negative ? -value : value);
+            }
+            String string = new String(chars, 0, length);
+            try {
+                return VariantArena.allocate().setLongNumber(Long.parseLong(string));
+            } catch (NumberFormatException exception) {
+                return VariantDecimal.setLiteral(VariantArena.allocate(), string);
+            }
+        }
+
+        long significand = 0;
+        int significantDigits = 0;
+        for (int digit = integerStart; digit < fractionStart + fractionDigits; digit++) {
+            char character = chars[digit];
+            if (character == '.') continue;
+            if (significantDigits == 0 && character == '0') continue;
+            if (++significantDigits > 15) break;
+            significand = significand * 10 + (character - '0');
+        }
+        int decimalExponent = exponent - fractionDigits;
+        if (significantDigits <= 15 && decimalExponent >= -22 && decimalExponent <= 22) {
+            double value = decimalExponent >= 0 ? significand * POWERS_OF_TEN[decimalExponent] : significand / POWERS_OF_TEN[-decimalExponent];
+            return VariantArena.allocate().setDoubleNumber(negative ? -value : value);
+        }
+        return VariantDecimal.setLiteral(VariantArena.allocate(), new String(chars, 0, length));
+    }
+}
@@ -0,0 +1,536 @@
+package ru.vladislav117.variant;
+
+import ru.vladislav117.variant.error.VariantJsonError;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Неблокирующий разбор json (UTF-8), данные которого поступают частями.
+ * Каждая часть передаётся в {@link #feed(ByteBuffer)} и сразу разбирается: таблицы и списки заполняются по мере чтения,
+ * а между вызовами сохраняется только состояние разбора и байты незавершённой строки или числа.
+ * После последней части {@link #finish()} возвращает готовый объект.
+ * <p>
+ * Сообщения и позиции ошибок совпадают с {@link VariantJsonParser}; позиции отсчитываются от начала всех переданных данных.
+ * Глубина вложенности ограничена так же, как в {@link VariantJsonParser#MAX_DEPTH}.
+ * После ошибки объект разбора можно использовать снова только после {@link #reset()}.
+ * Созданные объекты не принадлежат области выделения.
+ */
+public class VariantJsonPushParser {
+    /**
+     * Размер буфера для копирования частей, не имеющих массива (например, direct ByteBuffer).
+     */
+    protected static final int BUFFER_SIZE = 8192;
+    /**
+     * Размер буфера незавершённой строки, начиная с которого он не сохраняется для повторного использования.
+     */
+    protected static final int RETAINED_TOKEN_SIZE = 1 << 16;
+
+    protected static final int VALUE = 0;
+    protected static final int LIST_FIRST = 1;
+    protected static final int MAP_FIRST = 2;
+    protected static final int NAME = 3;
+    protected static final int COLON = 4;
+    protected static final int NEXT = 5;
+    protected static final int STRING = 6;
+    protected static final int NUMBER = 7;
+    protected static final int LITERAL = 8;
+    protected static final int DONE = 9;
+
+    /**
+     * Парсер, которым декодируются завершённые строки и числа.
+     */
+    protected final VariantJsonParser decoder = new VariantJsonParser(new byte[0], 0, 0);
+    protected byte[] scratch = null;
+    protected int state = VALUE;
+    protected long offset = 0;
+    protected Object[] containers = new Object[16];
+    protected String[] names = new String[16];
+    protected int depth = 0;
+    protected Variant root = null;
+    protected byte[] token = new byte[64];
+    protected int tokenLength = 0;
+    protected long tokenStart = 0;
+    protected boolean name = false;
+    protected boolean escaped = false;
+    protected char[] number = new char[32];
+    protected int numberLength = 0;
+    protected String literal = null;
+    protected int literalIndex = 0;
+    protected Variant literalValue = null;
+
+    /**
+     * Создание объекта разбора.
+     */
+    public VariantJsonPushParser() {
+    }
+
+    /**
+     * Разбор очередной части данных.
+     * Буфер читается до конца: его позиция становится равной границе.
+     *
+     * @param data Часть данных
+     * @throws VariantJsonError Если json некорректен, будет вызвано исключение.
+     */
+    public void feed(ByteBuffer data) {
+        if (data.hasArray()) {
+            int from = data.arrayOffset() + data.position();
+            int to = data.arrayOffset() + data.limit();
+            data.position(data.limit());
+            feed(data.array(), from, to - from);
+            return;
+        }
+        if (scratch == null) scratch = new byte[BUFFER_SIZE];
+        while (data.hasRemaining()) {
+            int count = Math.min(data.remaining(), scratch.length);
+            data.get(scratch, 0, count);
+            feed(scratch, 0, count);
+        }
+    }
+
+    /**
+     * Разбор очередной части данных из массива байтов.
+     *
+     * @param data   Массив байтов
+     * @param from   Начало части в массиве
+     * @param length Длина части
+     * @throws VariantJsonError Если json некорректен, будет вызвано исключение.
+     */
+    public void feed(byte[] data, int from, int length) {
+        VariantArena arena = VariantArena.suspend();
+        try {
+            process(data, from, from + length, offset - from);
+            offset += length;
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        } finally {
+            VariantArena.resume(arena);
+        }
+    }
+
+    /**
+     * Проверка, прочитано ли корневое значение целиком.
+     * Число в корне документа завершается только вызовом {@link #finish()}.
+     *
+     * @return Прочитано ли значение.
+     */
+    public boolean isComplete() {
+        return state == DONE;
+    }
+
+    /**
+     * Завершение разбора после последней части данных.
+     * Объект разбора возвращается в начальное состояние и может разбирать следующий документ.
+     *
+     * @return Объект из json.
+     * @throws VariantJsonError Если json некорректен или не закончен, будет вызвано исключение.
+     */
+    public Variant finish() {
+        VariantArena arena = VariantArena.suspend();
+        try {
+            switch (state) {
+                case STRING:
+                    decodeString(token, 0, tokenLength, tokenStart);
+                    throw error("unterminated string", offset);
+                case NUMBER:
+                    completeNumber(offset);
+                    break;
+                case LITERAL:
+                    throw error("invalid literal", offset);
+                default:
+            }
+            if (state != DONE) throw error(endMessage(), offset);
+            Variant value = CanonicalVariant.detach(root);
+            reset();
+            return value;
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        } finally {
+            VariantArena.resume(arena);
+        }
+    }
+
+    /**
+     * Возвращение в начальное состояние для разбора нового документа.
+     */
+    public void reset() {
+        state = VALUE;
+        offset = 0;
+        Arrays.fill(containers, 0, depth, null);
+        Arrays.fill(names, 0, depth, null);
+        depth = 0;
+        root = null;
+        tokenLength = 0;
+        if (token.length > RETAINED_TOKEN_SIZE) token = new byte[64];
+        numberLength = 0;
+        escaped = false;
+        literal = null;
+        literalValue = null;
+    }
+
+    /**
+     * Получение сообщения об ошибке для данных, закончившихся в текущем состоянии.
+     *
+     * @return Сообщение.
+     */
+    protected String endMessage() {
+        switch (state) {
+            case MAP_FIRST:
+            case NAME:
+                return "expected name";
+            case COLON:
+                return "expected ':'";
+            case NEXT:
+                return containers[depth - 1] instanceof VariantMap ? "expected ',' or '}'" : "expected ',' or ']'";
+            default:
+                return "unexpected end of json";
+        }
+    }
+
+    /**
+     * Разбор части массива.
+     *
+     * @param data Массив байтов
+     * @param from Начало части
+     * @param to   Конец части (не включительно)
+     * @param base Позиция в данных, соответствующая нулевому индексу массива
+     * @throws IOException Ошибка чтения.
+     */
+    protected void process(byte[] data, int from, int to, long base) throws IOException {
+        int position = from;
+        while (position < to) {
+            switch (state) {
+                case STRING:
+                    position = scanString(data, position, to, base);
+                    continue;
+                case NUMBER:
+                    position = scanNumber(data, position, to, base);
+                    continue;
+                case LITERAL:
+                    position = scanLiteral(data, position, to, base);
+                    continue;
+                default:
+            }
+            int value = data[position++];
+            if (value == ' ' || value == '\n' || value == '\r' || value == '\t') continue;
+            value &= 0xFF;
+            long at = base + position;
+            switch (state) {
+                case VALUE:
+                    startValue(value, at);
+                    break;
+                case LIST_FIRST:
+                    if (value == ']') {
+                        closeContainer();
+                    } else {
+                        startValue(value, at);
+                    }
+                    break;
+                case MAP_FIRST:
+                case NAME:
+                    if (value == '}' && state == MAP_FIRST) {
+                        closeContainer();
+                    } else if (value == '"') {
+                        startString(true, at);
+                    } else {
+                        throw error("expected name", at);
+                    }
+                    break;
+                case COLON:
+                    if (value != ':') throw error("expected ':'", at);
+                    state = VALUE;
+                    break;
+                case NEXT: {
+                    boolean map = containers[depth - 1] instanceof VariantMap;
+                    if (value == ',') {
+                        state = map ? NAME : VALUE;
+                    } else if (value == (map ? '}' : ']')) {
+                        closeContainer();
+                    } else {
+                        throw error(map ? "expected ',' or '}'" : "expected ',' or ']'", at);
+                    }
+                    break;
+                }
+                default:
+                    throw error("unexpected data after json value", at);
+            }
+        }
+    }
+
+    /**
+     * Начало значения.
+     *
+     * @param first Первый байт значения
+     * @param at    Позиция после первого байта
+     */
+    protected void startValue(int first, long at) {
+        switch (first) {
+            case '{':
+                if (depth == VariantJsonParser.MAX_DEPTH) throw error("nesting is too deep", at);
+                push(new VariantMap());
+                state = MAP_FIRST;
+                return;
+            case '[':
+                if (depth == VariantJsonParser.MAX_DEPTH) throw error("nesting is too deep", at);
+                push(new VariantList());
+                state = LIST_FIRST;
+                return;
+            case '"':
+                startString(false, at);
+                return;
+            case 't':
+                startLiteral("true", CanonicalVariant.ofBoolean(true));
+                return;
+            case 'f':
+                startLiteral("false", CanonicalVariant.ofBoolean(false));
+                return;
+            case 'n':
+                startLiteral("null", CanonicalVariant.ofNull());
+                return;
+            case '-':
+            case '0':
+            case '1':
+            case '2':
+            case '3':
+            case '4':
+            case '5':
+            case '6':
+            case '7':
+            case '8':
+            case '9':
+                number[0] = (char) first;
+                numberLength = 1;
+                state = NUMBER;
+                return;
+            default:
+                throw error("unexpected character '" + (char) first + "'", at);
+        }
+    }
+
+    /**
+     * Вход в таблицу или список.
+     *
+     * @param container Таблица или список
+     */
+    protected void push(Object container) {
+        if (depth == containers.length) {
+            containers = Arrays.copyOf(containers, depth * 2);
+            names = Arrays.copyOf(names, depth * 2);
+        }
+        containers[depth++] = container;
+    }
+
+    /**
+     * Завершение таблицы или списка и добавление их в родителя.
+     */
+    protected void closeContainer() {
+        Object container = containers[--depth];
+        containers[depth] = null;
+        if (container instanceof VariantMap) {
+            VariantMap map = (VariantMap) container;
+            map.trimToSize();
+            complete(Variant.adoptMap(map));
+        } else {
+            VariantList list = (VariantList) container;
+            list.trimToSize();
+            complete(Variant.adoptList(list));
+        }
+    }
+
+    /**
+     * Добавление завершённого значения в текущую таблицу или список либо сохранение корневого значения.
+     *
+     * @param value Значение
+     */
+    protected void complete(Variant value) {
+        if (depth == 0) {
+            root = value;
+            state = DONE;
+            return;
+        }
+        Object container = containers[depth - 1];
+        if (container instanceof VariantMap) {
+            ((VariantMap) container).put(names[depth - 1], value);
+            names[depth - 1] = null;
+        } else {
+            ((VariantList) container).addOwned(value);
+        }
+        state = NEXT;
+    }
+
+    /**
+     * Начало строки или имени (открывающая кавычка уже прочитана).
+     *
+     * @param name Является ли строка именем в таблице
+     * @param at   Позиция первого байта строки
+     */
+    protected void startString(boolean name, long at) {
+        this.name = name;
+        tokenLength = 0;
+        tokenStart = at;
+        escaped = false;
+        state = STRING;
+    }
+
+    /**
+     * Чтение строки до закрывающей кавычки.
+     * Строка, целиком лежащая в части, декодируется прямо из неё, иначе её байты накапливаются в буфере.
+     *
+     * @param data     Массив байтов
+     * @param position Позиция начала чтения
+     * @param to       Конец части
+     * @param base     Позиция в данных, соответствующая нулевому индексу массива
+     * @return Позиция после прочитанных байтов.
+     * @throws IOException Ошибка чтения.
+     */
+    protected int scanString(byte[] data, int position, int to, long base) throws IOException {
+        boolean escaped = this.escaped;
+        int index = position;
+        while (index < to) {
+            byte value = data[index];
+            if (escaped) {
+                escaped = false;
+            } else if (value == '\\') {
+                escaped = true;
+            } else if (value == '"') {
+                break;
+            }
+            index++;
+        }
+        if (index == to) {
+            appendToken(data, position, to);
+            this.escaped = escaped;
+            return to;
+        }
+        if (tokenLength == 0) {
+            decodeString(data, position, index + 1, base);
+        } else {
+            appendToken(data, position, index + 1);
+            decodeString(token, 0, tokenLength, tokenStart);
+        }
+        tokenLength = 0;
+        return index + 1;
+    }
+
+    /**
+     * Декодирование строки, заканчивающейся закрывающей кавычкой, и её использование как имени или значения.
+     *
+     * @param data Массив байтов
+     * @param from Начало строки
+     * @param to   Конец строки, включая закрывающую кавычку
+     * @param base Позиция в данных, соответствующая нулевому индексу массива
+     * @throws IOException Ошибка чтения.
+     */
+    protected void decodeString(byte[] data, int from, int to, long base) throws IOException {
+        VariantJsonParser decoder = this.decoder;
+        decoder.buffer = data;
+        decoder.position = from;
+        decoder.limit = to;
+        decoder.bufferOffset = base;
+        if (name) {
+            names[depth - 1] = decoder.readString();
+            state = COLON;
+        } else {
+            complete(decoder.readStringValue());
+        }
+    }
+
+    /**
+     * Добавление байтов в буфер незавершённой строки.
+     *
+     * @param data Массив байтов
+     * @param from Начало байтов
+     * @param to   Конец байтов
+     */
+    protected void appendToken(byte[] data, int from, int to) {
+        int count = to - from;
+        if (tokenLength + count > token.length) token = Arrays.copyOf(token, Math.max(token.length * 2, tokenLength + count));
+        System.arraycopy(data, from, token, tokenLength, count);
+        tokenLength += count;
+    }
+
+    /**
+     * Чтение символов числа до первого символа, который не может в нём встречаться.
+     *
+     * @param data     Массив байтов
+     * @param position Позиция начала чтения
+     * @param to       Конец части
+     * @param base     Позиция в данных, соответствующая нулевому индексу массива
+     * @return Позиция после символов числа.
+     */
+    protected int scanNumber(byte[] data, int position, int to, long base) {
+        while (position < to) {
+            byte value = data[position];
+            if ((value < '0' || value > '9') && value != '.' && value != 'e' && value != 'E' && value != '+' && value != '-') {
+                completeNumber(base + position);
+                return position;
+            }
+            if (numberLength == number.length) number = Arrays.copyOf(number, numberLength * 2);
+            number[numberLength++] = (char) value;
+            position++;
+        }
+        return position;
+    }
+
+    /**
+     * Разбор накопленного числа.
+     *
+     * @param end Позиция после числа
+     */
+    protected void completeNumber(long end) {
+        decoder.position = 0;
+        decoder.bufferOffset = end;
+        Variant value = decoder.parseNumber(number, numberLength);
+        numberLength = 0;
+        complete(value);
+    }
+
+    /**
+     * Начало литерала true, false или null (первый байт уже прочитан).
+     *
+     * @param literal Литерал
+     * @param value   Значение литерала
+     */
+    protected void startLiteral(String literal, Variant value) {
+        this.literal = literal;
+        literalIndex = 1;
+        literalValue = value;
+        state = LITERAL;
+    }
+
+    /**
+     * Чтение оставшихся байтов литерала.
+     *
+     * @param data     Массив байтов
+     * @param position Позиция начала чтения
+     * @param to       Конец части
+     * @param base     Позиция в данных, соответствующая нулевому индексу массива
+     * @return Позиция после прочитанных байтов.
+     */
+    protected int scanLiteral(byte[] data, int position, int to, long base) {
+        String literal = this.literal;
+        while (position < to && literalIndex < literal.length()) {
+            if (data[position++] != literal.charAt(literalIndex++)) throw error("invalid literal", base + position);
+        }
+        if (literalIndex == literal.length()) {
+            Variant value = literalValue;
+            this.literal = null;
+            literalValue = null;
+            complete(value);
+        }
+        return position;
+    }
+
+    /**
+     * Создание ошибки разбора.
+     *
+     * @param message  Сообщение об ошибке
+     * @param position Позиция в данных
+     * @return Ошибка.
+     */
+    protected VariantJsonError error(String message, long position) {
+        return new VariantJsonError(message, position);
+    }
+}
@@ -0,0 +1,215 @@
+package ru.vladislav117.variant;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * Поиск структурных символов json (скобок и, по желанию, запятых) вне строк блоками по 64 байта.
+ * Для каждого блока строятся 64-битные маски кавычек, обратных косых черт и структурных символов: байты сравниваются
+ * по восемь за раз в одном long (SWAR), экранированные кавычки исключаются, а маска содержимого строк получается
+ * префиксным XOR маски кавычек. Позиции оставшихся структурных символов выдаются по порядку в ленту фиксированного
+ * размера, которую заполняет каждый вызов {@link #next(int[])}, поэтому память не зависит от размера json.
+ * <p>
+ * Обратная косая черта экранирует следующую за ней кавычку или обратную косую черту и вне строк; другие байты после неё
+ * не меняют своего смысла. Корректный json не содержит обратных косых черт вне строк, а ошибка будет найдена при разборе.
+ * Если свойство {@code ru.vladislav117.variant.json.swar} равно {@code false}, маски строятся побайтовым проходом;
+ * лента при этом не меняется.
+ *
+ * @see VariantJsonIndex
+ */
+public class VariantJsonScanner {
+    /**
+     * Включено ли построение масок по восемь байтов за раз.
+     */
+    public static final boolean SWAR = !"false".equals(System.getProperty("ru.vladislav117.variant.json.swar"));
+    /**
+     * Размер блока в байтах.
+     */
+    protected static final int BLOCK_SIZE = 64;
+    protected static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    protected static final long ONES = 0x0101010101010101L;
+    protected static final long LOW_BITS = 0x7F7F7F7F7F7F7F7FL;
+    protected static final long CASE_BITS = 0x2020202020202020L;
+    /**
+     * Множитель, собирающий старшие биты восьми байтов в старший байт произведения.
+     */
+    protected static final long GATHER = 0x0102040810204080L;
+
+    protected final byte[] json;
+    protected final int limit;
+    protected final boolean commas;
+    protected int position;
+    protected long pending = 0;
+    protected int pendingBase = 0;
+    protected long inString = 0;
+    protected boolean escape = false;
+
+    /**
+     * Создание объекта поиска.
+     *
+     * @param json   Json в кодировке UTF-8
+     * @param offset Начало json в массиве
+     * @param length Длина json
+     * @param commas Выдавать ли позиции запятых
+     */
+    public VariantJsonScanner(byte[] json, int offset, int length, boolean commas) {
+        this.json = json;
+        this.limit = offset + length;
+        this.commas = commas;
+        position = offset;
+    }
+
+    /**
+     * Заполнение ленты позициями следующих структурных символов.
+     *
+     * @param tape Лента
+     * @return Количество записанных позиций (0, если json закончился).
+     */
+    public int next(int[] tape) {
+        int count = drain(tape, 0);
+        while (count < tape.length && position < limit) {
+            pendingBase = position;
+            pending = SWAR ? classify() : classifyBytes();
+            position += BLOCK_SIZE;
+            count = drain(tape, count);
+        }
+        return count;
+    }
+
+    /**
+     * Проверка, закончился ли просмотренный json внутри строки.
+     *
+     * @return Находится ли конец просмотренной части внутри строки.
+     */
+    public boolean isInString() {
+        return inString != 0;
+    }
+
+    /**
+     * Запись позиций из маски текущего блока в ленту.
+     *
+     * @param tape  Лента
+     * @param count Количество уже записанных позиций
+     * @return Количество записанных позиций.
+     */
+    protected int drain(int[] tape, int count) {
+        long mask = pending;
+        int base = pendingBase;
+        while (mask != 0 && count < tape.length) {
+            tape[count++] = base + Long.numberOfTrailingZeros(mask);
+            mask &= mask - 1;
+        }
+        pending = mask;
+        return count;
+    }
+
+    /**
+     * Построение маски структурных символов вне строк для блока, начинающегося с {@link #position}, по восемь байтов за раз.
+     *
+     * @return Маска структурных символов.
+     */
+    protected long classify() {
+        byte[] json = this.json;
+        long quotes = 0;
+        long backslashes = 0;
+        long structurals = 0;
+        for (int shift = 0; shift < BLOCK_SIZE; shift += 8) {
+            int at = position + shift;
+            if (at >= limit) break;
+            long word;
+            if (at + 8 <= limit) {
+                word = (long) LONGS.get(json, at);
+            } else {
+                word = 0;
+                for (int index = at; index < limit; index++) word |= (json[index] & 0xFFL) << ((index - at) * 8);
+            }
+            quotes |= match(word, '"') << shift;
+            backslashes |= match(word, '\\') << shift;
+            long folded = word | CASE_BITS;
+            long brackets = match(folded, '{') | match(folded, '}');
+            if (commas) brackets |= match(word, ',');
+            structurals |= brackets << shift;
+        }
+        if (backslashes != 0 || escape) quotes &= ~escaped(backslashes);
+        long strings = quotes;
+        strings ^= strings << 1;
+        strings ^= strings << 2;
+        strings ^= strings << 4;
+        strings ^= strings << 8;
+        strings ^= strings << 16;
+        strings ^= strings << 32;
+        strings ^= inString;
+        inString = strings >> 63;
+        return structurals & ~strings;
+    }
+
+    /**
+     * Получение маски байтов слова, равных указанному.
+     *
+     * @param word  Восемь байтов
+     * @param value Искомый байт
+     * @return Восьмибитная маска совпадений.
+     */
+    protected static long match(long word, int value) {
+        long difference = word ^ (ONES * value);
+        long zeros = ~(((difference & LOW_BITS) + LOW_BITS) | difference | LOW_BITS);
+        return ((zeros >>> 7) * GATHER) >>> 56;
+    }
+
+    /**
+     * Получение маски экранированных байтов блока: байт экранирован, если перед ним стоит неэкранированная обратная косая черта.
+     *
+     * @param backslashes Маска обратных косых черт
+     * @return Маска экранированных байтов.
+     */
+    protected long escaped(long backslashes) {
+        long escaped = 0;
+        if (escape) {
+            escaped = 1;
+            backslashes &= ~1L;
+            escape = false;
+        }
+        while (backslashes != 0) {
+            int bit = Long.numberOfTrailingZeros(backslashes);
+            if (bit == BLOCK_SIZE - 1) {
+                escape = true;
+                break;
+            }
+            escaped |= 1L << (bit + 1);
+            backslashes &= ~(3L << bit);
+        }
+        return escaped;
+    }
+
+    /**
+     * Построение маски структурных символов вне строк для блока, начинающегося с {@link #position}, побайтовым проходом.
+     *
+     * @return Маска структурных символов.
+     */
+    protected long classifyBytes() {
+        byte[] json = this.json;
+        boolean inString = this.inString != 0;
+        boolean escape = this.escape;
+        long structurals = 0;
+        int end = Math.min(limit, position + BLOCK_SIZE);
+        for (int index = position; index < end; index++) {
+            byte value = json[index];
+            if (escape) {
+                escape = false;
+                if (value == '"' || value == '\\') continue;
+            } else if (value == '\\') {
+                escape = true;
+                continue;
+            }
+            if (value == '"') {
+                inString = !inString;
+            } else if (!inString && (value == '{' || value == '}' || value == '[' || value == ']' || commas && value == ',')) {
+                structurals |= 1L << (index - position);
+            }
+        }
+        this.inString = inString ? -1 : 0;
+        this.escape = escape;
+        return structurals;
+    }
+}
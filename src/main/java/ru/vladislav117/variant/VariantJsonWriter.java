@@ -0,0 +1,796 @@
+package ru.vladislav117.variant;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Потоковая запись Variant в json без промежуточного дерева JsonElement.
+ * Символы накапливаются в буфере, который переиспользуется между записями;
+ * при записи в поток или канал они кодируются в UTF-8 во второй переиспользуемый буфер,
+ * куда без перекодирования добавляются и байты строк {@link VariantUtf8String} и неразобранных частей исходного json.
+ * <p>
+ * Json списков и таблиц, сохранённый при записи с сохранением ({@link #writeToBytesCached(Variant)}), копируется без обхода их содержимого.
+ * Json сохраняется только для объекта, все потомки которого связаны с ним ссылками на родителя:
+ * тогда любое изменение потомка сбрасывает сохранённый json (см. {@link Variant#modified()}).
+ * Объект, входящий сразу в несколько списков или таблиц, связан только с одним из них, поэтому остальные не сохраняются.
+ */
+public class VariantJsonWriter {
+    /**
+     * Размер буфера записи.
+     */
+    protected static final int BUFFER_SIZE = 8192;
+    /**
+     * Размер буфера, начиная с которого он не сохраняется для повторного использования при записи в строку.
+     */
+    protected static final int RETAINED_BUFFER_SIZE = 1 << 20;
+    /**
+     * Минимальная длина json списка или таблицы, который сохраняется при записи с сохранением.
+     */
+    protected static final int MIN_CACHED_LENGTH = 64;
+    /**
+     * Замены символов ASCII, которые нужно экранировать.
+     */
+    protected static final String[] REPLACEMENTS = new String[128];
+    /**
+     * Степени десяти, которые точно представимы в double.
+     */
+    protected static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    /**
+     * Переиспользуемые объекты записи в строку.
+     */
+    protected static final ThreadLocal<VariantJsonWriter> STRING_WRITERS = ThreadLocal.withInitial(VariantJsonWriter::new);
+    /**
+     * Переиспользуемые объекты записи с сохранением.
+     */
+    protected static final ThreadLocal<VariantJsonWriter> CACHING_WRITERS = ThreadLocal.withInitial(() -> new VariantJsonWriter(new byte[BUFFER_SIZE * 3]));
+
+    static {
+        for (int character = 0; character < 0x20; character++) {
+            REPLACEMENTS[character] = String.format("\\u%04x", character);
+        }
+        REPLACEMENTS['"'] = "\\\"";
+        REPLACEMENTS['\\'] = "\\\\";
+        REPLACEMENTS['\t'] = "\\t";
+        REPLACEMENTS['\b'] = "\\b";
+        REPLACEMENTS['\n'] = "\\n";
+        REPLACEMENTS['\r'] = "\\r";
+        REPLACEMENTS['\f'] = "\\f";
+    }
+
+    protected Appendable appendable = null;
+    protected Writer writer = null;
+    protected OutputStream stream = null;
+    protected WritableByteChannel channel = null;
+    protected char[] buffer = new char[BUFFER_SIZE];
+    protected int position = 0;
+    protected byte[] bytes = null;
+    protected int staged = 0;
+    protected ByteBuffer byteBuffer = null;
+    protected boolean caching = false;
+    protected Variant owner = null;
+    protected boolean linked = true;
+
+    /**
+     * Создание объекта записи в строку: буфер растёт вместо передачи данных получателю.
+     */
+    protected VariantJsonWriter() {
+    }
+
+    /**
+     * Создание объекта записи в массив байтов UTF-8: массив растёт вместо передачи данных получателю.
+     *
+     * @param bytes Начальный массив
+     */
+    protected VariantJsonWriter(byte[] bytes) {
+        this.bytes = bytes;
+    }
+
+    /**
+     * Создание объекта записи в Appendable (например, StringBuilder или Writer).
+     *
+     * @param appendable Получатель json
+     */
+    public VariantJsonWriter(Appendable appendable) {
+        this.appendable = appendable;
+        if (appendable instanceof Writer) writer = (Writer) appendable;
+    }
+
+    /**
+     * Создание объекта записи в поток в кодировке UTF-8.
+     *
+     * @param stream Поток
+     */
+    public VariantJsonWriter(OutputStream stream) {
+        this.stream = stream;
+        bytes = new byte[BUFFER_SIZE * 3];
+    }
+
+    /**
+     * Создание объекта записи в канал в кодировке UTF-8.
+     *
+     * @param channel Канал
+     */
+    public VariantJsonWriter(WritableByteChannel channel) {
+        this.channel = channel;
+        bytes = new byte[BUFFER_SIZE * 3];
+        byteBuffer = ByteBuffer.wrap(bytes);
+    }
+
+    /**
+     * Преобразование объекта в json-строку.
+     *
+     * @param variant Объект
+     * @return Json-строка.
+     */
+    public static String writeToString(Variant variant) {
+        VariantJsonWriter writer = STRING_WRITERS.get();
+        writer.position = 0;
+        try {
+            writer.writeValue(variant);
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+        String string = new String(writer.buffer, 0, writer.position);
+        if (writer.buffer.length > RETAINED_BUFFER_SIZE) writer.buffer = new char[BUFFER_SIZE];
+        return string;
+    }
+
+    /**
+     * Преобразование объекта в json в кодировке UTF-8 с сохранением json записанных списков и таблиц.
+     * Для сохранённых списков и таблиц запоминается родитель каждого дочернего объекта,
+     * поэтому их изменение, как и изменение любого потомка, сбрасывает сохранённый json.
+     * Json короче {@link #MIN_CACHED_LENGTH} байтов не сохраняется.
+     *
+     * @param variant Объект
+     * @return Json в кодировке UTF-8.
+     */
+    public static byte[] writeToBytesCached(Variant variant) {
+        byte[] cached = variant.cachedJson;
+        if (cached != null) return cached.clone();
+        VariantJsonWriter writer = CACHING_WRITERS.get();
+        writer.position = 0;
+        writer.staged = 0;
+        writer.caching = true;
+        writer.linked = true;
+        try {
+            writer.writeValue(variant);
+            writer.flushBuffer(true);
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        } finally {
+            writer.owner = null;
+        }
+        byte[] json = Arrays.copyOf(writer.bytes, writer.staged);
+        if (writer.bytes.length > RETAINED_BUFFER_SIZE) writer.bytes = new byte[BUFFER_SIZE * 3];
+        return json;
+    }
+
+    /**
+     * Преобразование объекта в json-строку с сохранением json записанных списков и таблиц.
+     *
+     * @param variant Объект
+     * @return Json-строка.
+     * @see #writeToBytesCached(Variant)
+     */
+    public static String writeToStringCached(Variant variant) {
+        return new String(writeToBytesCached(variant), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Удаление json, сохранённого для объекта и всех его потомков.
+     *
+     * @param variant Объект
+     */
+    public static void clearCache(Variant variant) {
+        variant.cachedJson = null;
+        if (variant.type == VariantType.LIST) {
+            VariantList list = (VariantList) variant.object;
+            if (list.storage != VariantListStorage.GENERIC) return;
+            for (int index = 0; index < list.size; index++) clearChildCache(list.elements[index]);
+        } else if (variant.type == VariantType.MAP) {
+            VariantMap map = (VariantMap) variant.object;
+            if (map.hashMap != null) {
+                for (Variant child : map.hashMap.values()) clearChildCache(child);
+            } else {
+                for (int index = 0; index < map.shape.size(); index++) clearChildCache(map.values[index]);
+            }
+        }
+    }
+
+    /**
+     * Удаление json, сохранённого для дочернего списка или таблицы и всех их потомков.
+     * Листовые объекты пропускаются: для них json не сохраняется.
+     *
+     * @param child Дочерний объект
+     */
+    protected static void clearChildCache(Variant child) {
+        if (child.type == VariantType.LIST || child.type == VariantType.MAP) clearCache(child);
+    }
+
+    /**
+     * Запись объекта в json в Appendable (например, StringBuilder или Writer).
+     *
+     * @param variant    Объект
+     * @param appendable Получатель json
+     * @throws UncheckedIOException Если при записи произошла ошибка, будет вызвано исключение.
+     */
+    public static void write(Variant variant, Appendable appendable) {
+        new VariantJsonWriter(appendable).write(variant).flush();
+    }
+
+    /**
+     * Запись объекта в json в поток в кодировке UTF-8.
+     * Поток не закрывается.
+     *
+     * @param variant Объект
+     * @param stream  Поток
+     * @throws UncheckedIOException Если при записи произошла ошибка, будет вызвано исключение.
+     */
+    public static void write(Variant variant, OutputStream stream) {
+        new VariantJsonWriter(stream).write(variant).flush();
+    }
+
+    /**
+     * Запись объекта в json в канал в кодировке UTF-8.
+     * Канал не закрывается.
+     *
+     * @param variant Объект
+     * @param channel Канал
+     * @throws UncheckedIOException Если при записи произошла ошибка, будет вызвано исключение.
+     */
+    public static void write(Variant variant, WritableByteChannel channel) {
+        new VariantJsonWriter(channel).write(variant).flush();
+    }
+
+    /**
+     * Запись объекта в json.
+     * Данные могут остаться в буфере до вызова {@link #flush()}.
+     *
+     * @param variant Объект
+     * @return Этот же объект записи.
+     * @throws UncheckedIOException Если при записи произошла ошибка, будет вызвано исключение.
+     */
+    @SuppressWarnings("UnusedReturnValue")
+    public VariantJsonWriter write(Variant variant) {
+        try {
+            writeValue(variant);
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+        return this;
+    }
+
+    /**
+     * Передача накопленных в буфере данных получателю.
+     *
+     * @return Этот же объект записи.
+     * @throws UncheckedIOException Если при записи произошла ошибка, будет вызвано исключение.
+     */
+    @SuppressWarnings("UnusedReturnValue")
+    public VariantJsonWriter flush() {
+        try {
+            flushBuffer(true);
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+        return this;
+    }
+
+    /**
+     * Передача буфера получателю.
+     *
+     * @param complete Передать ли данные полностью (иначе незавершённая суррогатная пара остаётся в буфере)
+     * @throws IOException Ошибка записи.
+     */
+    protected void flushBuffer(boolean complete) throws IOException {
+        if (position == 0 && staged == 0) return;
+        int length = position;
+        if (!complete && length > 0 && Character.isHighSurrogate(buffer[length - 1])) length--;
+        if (writer != null) {
+            writer.write(buffer, 0, length);
+        } else if (appendable instanceof StringBuilder) {
+            ((StringBuilder) appendable).append(buffer, 0, length);
+        } else if (appendable != null) {
+            appendable.append(CharBuffer.wrap(buffer, 0, length));
+        } else {
+            stage(length);
+            if (stream != null || channel != null) {
+                writeBytes(bytes, 0, staged);
+                staged = 0;
+            }
+        }
+        System.arraycopy(buffer, length, buffer, 0, position - length);
+        position -= length;
+    }
+
+    /**
+     * Кодирование символов буфера в UTF-8 после уже накопленных байтов.
+     * Если места не хватает, накопленные байты предварительно передаются получателю.
+     *
+     * @param length Количество символов
+     * @throws IOException Ошибка записи.
+     */
+    protected void stage(int length) throws IOException {
+        reserve(length * 3);
+        staged = encode(length);
+    }
+
+    /**
+     * Обеспечение места для байтов после уже накопленных.
+     * При записи в массив байтов массив растёт, иначе накопленные байты передаются получателю.
+     *
+     * @param count Требуемое количество байтов
+     * @throws IOException Ошибка записи.
+     */
+    protected void reserve(int count) throws IOException {
+        if (staged + count <= bytes.length) return;
+        if (stream == null && channel == null) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, staged + count));
+            return;
+        }
+        writeBytes(bytes, 0, staged);
+        staged = 0;
+    }
+
+    /**
+     * Кодирование символов буфера в UTF-8 после уже накопленных байтов.
+     *
+     * @param length Количество символов
+     * @return Количество накопленных байтов.
+     */
+    protected int encode(int length) {
+        byte[] bytes = this.bytes;
+        int count = staged;
+        for (int index = 0; index < length; index++) {
+            char character = buffer[index];
+            if (character < 0x80) {
+                bytes[count++] = (byte) character;
+            } else if (character < 0x800) {
+                bytes[count++] = (byte) (0xC0 | (character >> 6));
+                bytes[count++] = (byte) (0x80 | (character & 0x3F));
+            } else if (Character.isHighSurrogate(character) && index + 1 < length && Character.isLowSurrogate(buffer[index + 1])) {
+                int codePoint = Character.toCodePoint(character, buffer[++index]);
+                bytes[count++] = (byte) (0xF0 | (codePoint >> 18));
+                bytes[count++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                bytes[count++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                bytes[count++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(character)) {
+                bytes[count++] = '?';
+            } else {
+                bytes[count++] = (byte) (0xE0 | (character >> 12));
+                bytes[count++] = (byte) (0x80 | ((character >> 6) & 0x3F));
+                bytes[count++] = (byte) (0x80 | (character & 0x3F));
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Передача байтов в поток или канал.
+     *
+     * @param source Массив байтов
+     * @param from   Начало части
+     * @param count  Количество байтов
+     * @throws IOException Ошибка записи.
+     */
+    protected void writeBytes(byte[] source, int from, int count) throws IOException {
+        if (stream != null) {
+            stream.write(source, from, count);
+            return;
+        }
+        if (channel != null) {
+            ByteBuffer byteBuffer = source == bytes ? this.byteBuffer.clear().position(from).limit(from + count) : ByteBuffer.wrap(source, from, count);
+            while (byteBuffer.hasRemaining()) channel.write(byteBuffer);
+        }
+    }
+
+    /**
+     * Обеспечение места в буфере.
+     *
+     * @param count Требуемое количество символов
+     * @throws IOException Ошибка записи.
+     */
+    protected void ensure(int count) throws IOException {
+        if (position + count <= buffer.length) return;
+        if (appendable == null && bytes == null) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + count));
+            return;
+        }
+        flushBuffer(false);
+    }
+
+    /**
+     * Запись части исходного json (UTF-8) без изменений.
+     * При записи в поток, канал или массив байтов байты добавляются к закодированным (большие части передаются в поток
+     * или канал напрямую), иначе декодируются в буфер символов.
+     *
+     * @param json Исходный json
+     * @param from Начало части
+     * @param to   Конец части (не включительно)
+     * @throws IOException Ошибка записи.
+     */
+    protected void writeSource(byte[] json, int from, int to) throws IOException {
+        if (bytes != null) {
+            if (position > 0) {
+                stage(position);
+                position = 0;
+            }
+            int count = to - from;
+            if (stream == null && channel == null) {
+                reserve(count);
+            } else if (staged + count > bytes.length || count > bytes.length / 2) {
+                writeBytes(bytes, 0, staged);
+                staged = 0;
+                if (count > bytes.length / 2) {
+                    writeBytes(json, from, count);
+                    return;
+                }
+            }
+            System.arraycopy(json, from, bytes, staged, count);
+            staged += count;
+            return;
+        }
+        while (from < to) {
+            int end = Math.min(to, from + BUFFER_SIZE / 2);
+            while (end < to && (json[end] & 0xC0) == 0x80) end--;
+            ensure(end - from);
+            int position = this.position;
+            int index = from;
+            while (index < end && json[index] >= 0) buffer[position++] = (char) json[index++];
+            this.position = position;
+            if (index < end) writeRaw(new String(json, index, end - index, StandardCharsets.UTF_8));
+            from = end;
+        }
+    }
+
+    /**
+     * Запись символов без экранирования.
+     *
+     * @param string Символы
+     * @throws IOException Ошибка записи.
+     */
+    protected void writeRaw(String string) throws IOException {
+        int length = string.length();
+        ensure(length);
+        if (position + length <= buffer.length) {
+            string.getChars(0, length, buffer, position);
+            position += length;
+            return;
+        }
+        int offset = 0;
+        while (offset < length) {
+            if (position == buffer.length) flushBuffer(false);
+            int count = Math.min(length - offset, buffer.length - position);
+            string.getChars(offset, offset + count, buffer, position);
+            position += count;
+            offset += count;
+        }
+    }
+
+    /**
+     * Запись значения.
+     *
+     * @param variant Объект
+     * @throws IOException Ошибка записи.
+     */
+    protected void writeValue(Variant variant) throws IOException {
+        switch (variant.type) {
+            case NULL:
+                writeRaw("null");
+                return;
+            case BOOLEAN:
+                writeRaw((Boolean) variant.object ? "true" : "false");
+                return;
+            case NUMBER:
+                if (variant.precision == VariantNumberPrecision.LONG) {
+                    writeLong(variant.longNumber);
+                } else if (variant.precision == VariantNumberPrecision.DOUBLE) {
+                    writeDouble(variant.doubleNumber);
+                } else {
+                    writeRaw(variant.object.toString());
+                }
+                return;
+            case STRING:
+                if (variant.object instanceof VariantUtf8String) {
+                    writeUtf8String((VariantUtf8String) variant.object);
+                } else {
+                    writeString((String) variant.object);
+                }
+                return;
+            case LIST:
+                if (variant.cachedJson != null || caching) {
+                    writeCached(variant);
+                } else {
+                    writeList((VariantList) variant.object);
+                }
+                return;
+            case MAP:
+                if (variant.cachedJson != null || caching) {
+                    writeCached(variant);
+                } else {
+                    writeMap((VariantMap) variant.object);
+                }
+        }
+    }
+
+    /**
+     * Запись списка или таблицы с использованием сохранённого json.
+     * При записи с сохранением json записанного объекта сохраняется, если объект связан со всеми потомками.
+     *
+     * @param variant Список или таблица
+     * @throws IOException Ошибка записи.
+     */
+    protected void writeCached(Variant variant) throws IOException {
+        byte[] cached = variant.cachedJson;
+        if (cached != null) {
+            writeSource(cached, 0, cached.length);
+            return;
+        }
+        Variant owner = this.owner;
+        boolean linked = this.linked;
+        this.owner = variant;
+        if (position > 0) {
+            stage(position);
+            position = 0;
+        }
+        int start = staged;
+        if (variant.type == VariantType.LIST) {
+            VariantList list = (VariantList) variant.object;
+            if (list.owner == null) list.owner = variant;
+            this.linked = list.owner == variant;
+            writeList(list);
+        } else {
+            VariantMap map = (VariantMap) variant.object;
+            if (map.owner == null) map.owner = variant;
+            this.linked = map.owner == variant;
+            writeMap(map);
+        }
+        if (position > 0) {
+            stage(position);
+            position = 0;
+        }
+        boolean complete = this.linked;
+        if (complete && staged - start >= MIN_CACHED_LENGTH) variant.cachedJson = Arrays.copyOfRange(bytes, start, staged);
+        this.owner = owner;
+        this.linked = linked && complete;
+    }
+
+    /**
+     * Запись дочернего объекта списка или таблицы.
+     * При записи с сохранением дочерний объект без родителя связывается с записываемым списком или таблицей;
+     * если он уже связан с другим, json записываемого объекта не сохраняется.
+     *
+     * @param child Дочерний объект
+     * @throws IOException Ошибка записи.
+     */
+    protected void writeChild(Variant child) throws IOException {
+        if (caching && !(child instanceof CanonicalVariant)) {
+            if (child.parent == null) child.parent = owner;
+            if (child.parent != owner) linked = false;
+        }
+        writeValue(child);
+    }
+
+    /**
+     * Запись таблицы; значения читаются без замены общих экземпляров копиями.
+     * Неразобранная таблица записывается копированием исходных байтов после проверки их синтаксиса.
+     *
+     * @param map Таблица
+     * @throws IOException Ошибка записи.
+     */
+    protected void writeMap(VariantMap map) throws IOException {
+        if (map instanceof LazyVariantMap && !((LazyVariantMap) map).isLoaded()) {
+            LazyVariantMap lazy = (LazyVariantMap) map;
+            lazy.index.check(lazy.node);
+            writeSource(lazy.index.json, lazy.index.getOpen(lazy.node), lazy.index.getClose(lazy.node) + 1);
+            return;
+        }
+        ensure(1);
+        buffer[position++] = '{';
+        if (map.hashMap == null) {
+            for (int index = 0; index < map.shape.size(); index++) {
+                writeEntry(index > 0, map.shape.getKey(index), map.values[index]);
+            }
+        } else {
+            boolean firstEntry = true;
+            for (Map.Entry<String, Variant> entry : map.hashMap.entrySet()) {
+                writeEntry(!firstEntry, entry.getKey(), entry.getValue());
+                firstEntry = false;
+            }
+        }
+        ensure(1);
+        buffer[position++] = '}';
+    }
+
+    /**
+     * Запись элемента таблицы.
+     *
+     * @param separated Нужна ли запятая перед элементом
+     * @param name      Имя
+     * @param value     Значение
+     * @throws IOException Ошибка записи.
+     */
+    protected void writeEntry(boolean separated, String name, Variant value) throws IOException {
+        if (separated) {
+            ensure(1);
+            buffer[position++] = ',';
+        }
+        writeString(name);
+        ensure(1);
+        buffer[position++] = ':';
+        writeChild(value);
+    }
+
+    /**
+     * Запись строки с экранированием.
+     *
+     * @param string Строка
+     * @throws IOException Ошибка записи.
+     */
+    protected void writeString(String string) throws IOException {
+        int length = string.length();
+        ensure(length + 2);
+        buffer[position++] = '"';
+        for (int index = 0; index < length; index++) {
+            char character = string.charAt(index);
+            String replacement = null;
+            if (character < 128) {
+                replacement = REPLACEMENTS[character];
+            } else if (character == '\u2028') {
+                replacement = "\\u2028";
+            } else if (character == '\u2029') {
+                replacement = "\\u2029";
+            }
+            if (replacement != null) {
+                writeRaw(replacement);
+            } else {
+                if (position == buffer.length) ensure(1);
+                buffer[position++] = character;
+            }
+        }
+        ensure(1);
+        buffer[position++] = '"';
+    }
+
+    /**
+     * Запись строки UTF-8: строка, не требующая экранирования, записывается копированием байтов.
+     *
+     * @param string Строка
+     * @throws IOException Ошибка записи.
+     */
+    protected void writeUtf8String(VariantUtf8String string) throws IOException {
+        if (!string.plain) {
+            writeString(string.toString());
+            return;
+        }
+        ensure(1);
+        buffer[position++] = '"';
+        writeSource(string.bytes, string.offset, string.offset + string.length);
+        ensure(1);
+        buffer[position++] = '"';
+    }
+
+    /**
+     * Запись списка; элементы списка примитивов пишутся без создания дочерних объектов.
+     * Неразобранный список записывается копированием исходных байтов после проверки их синтаксиса.
+     *
+     * @param list Список
+     * @throws IOException Ошибка записи.
+     */
+    protected void writeList(VariantList list) throws IOException {
+        if (list instanceof LazyVariantList && !((LazyVariantList) list).isLoaded()) {
+            LazyVariantList lazy = (LazyVariantList) list;
+            lazy.index.check(lazy.node);
+            writeSource(lazy.index.json, lazy.index.getOpen(lazy.node), lazy.index.getClose(lazy.node) + 1);
+            return;
+        }
+        ensure(1);
+        buffer[position++] = '[';
+        for (int index = 0; index < list.size; index++) {
+            if (index > 0) {
+                ensure(1);
+                buffer[position++] = ',';
+            }
+            switch (list.storage) {
+                case LONG:
+                    writeLong(list.longs[index]);
+                    break;
+                case DOUBLE:
+                    writeDouble(list.doubles[index]);
+                    break;
+                case BOOLEAN:
+                    writeRaw(list.booleans[index] ? "true" : "false");
+                    break;
+                default:
+                    writeChild(list.elements[index]);
+            }
+        }
+        ensure(1);
+        buffer[position++] = ']';
+    }
+
+    /**
+     * Запись целого числа без создания строки.
+     *
+     * @param value Число
+     * @throws IOException Ошибка записи.
+     */
+    protected void writeLong(long value) throws IOException {
+        if (value == Long.MIN_VALUE) {
+            writeRaw("-9223372036854775808");
+            return;
+        }
+        ensure(20);
+        if (value < 0) {
+            buffer[position++] = '-';
+            value = -value;
+        }
+        int digits = 1;
+        for (long bound = 10; digits < 19 && value >= bound; bound *= 10) digits++;
+        int index = position + digits;
+        position = index;
+        do {
+            buffer[--index] = (char) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+    }
+
+    /**
+     * Запись числа с плавающей точкой.
+     * Числа от 0.001 до 10^7, у которых есть короткое десятичное представление, записываются
+     * без Double.toString; результат при разборе даёт в точности то же число.
+     * Числа от 2^53 до 2^63 всегда целые и записываются всеми цифрами: их кратчайшая запись
+     * обозначает другое целое число, которое при разборе сохранилось бы в long.
+     *
+     * @param value Число
+     * @throws IOException Ошибка записи.
+     */
+    protected void writeDouble(double value) throws IOException {
+        double absolute = Math.abs(value);
+        if (absolute >= 0x1p53 && absolute < 0x1p63) {
+            writeLong((long) value);
+            return;
+        }
+        if (absolute >= 1e-3 && absolute < 1e7) {
+            for (int scale = 0; scale <= 15; scale++) {
+                double scaled = absolute * POWERS_OF_TEN[scale];
+                if (scaled >= 9007199254740992.0) break;
+                long significand = Math.round(scaled);
+                if (significand / POWERS_OF_TEN[scale] != absolute) continue;
+                long integer = significand;
+                long fraction = 0;
+                if (scale > 0) {
+                    long divisor = (long) POWERS_OF_TEN[scale];
+                    integer = significand / divisor;
+                    fraction = significand % divisor;
+                }
+                if (value < 0) writeRaw("-");
+                writeLong(integer);
+                ensure(scale + 1);
+                buffer[position++] = '.';
+                if (scale == 0) {
+                    buffer[position++] = '0';
+                    return;
+                }
+                for (int index = position + scale - 1; index >= position; index--) {
+                    buffer[index] = (char) ('0' + fraction % 10);
+                    fraction /= 10;
+                }
+                position += scale;
+                return;
+            }
+        }
+        writeRaw(Double.toString(value));
+    }
+}
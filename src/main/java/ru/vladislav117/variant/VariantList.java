@@ -0,0 +1,628 @@
+package ru.vladislav117.variant;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.*;
+
+/**
+ * Список дочерних объектов Variant.
+ * Пока все элементы списка - целые числа, числа с плавающей точкой или логические значения,
+ * они хранятся в массиве примитивов без создания дочерних объектов.
+ * При добавлении элемента другого типа или при первом обращении к дочерним объектам как к Variant
+ * (например, через {@link #get(int)} или итератор) список переходит на хранение объектов Variant.
+ * Листовые элементы могут храниться как общие экземпляры {@link CanonicalVariant}; при выдаче наружу
+ * такой элемент заменяется изменяемой копией.
+ * Изменение списка сбрасывает json, сохранённый для объекта-владельца и его предков.
+ * Как и Variant, список не рассчитан на одновременное использование из нескольких потоков.
+ */
+public class VariantList extends AbstractList<Variant> implements RandomAccess {
+    /**
+     * Начальная вместимость массива элементов.
+     */
+    protected static final int INITIAL_CAPACITY = 4;
+    protected static final Variant[] EMPTY_ELEMENTS = new Variant[0];
+
+    protected VariantListStorage storage = VariantListStorage.GENERIC;
+    protected Variant[] elements;
+    protected long[] longs = null;
+    protected double[] doubles = null;
+    protected boolean[] booleans = null;
+    protected int size = 0;
+    protected Variant owner = null;
+
+    /**
+     * Создание пустого списка.
+     */
+    public VariantList() {
+        elements = EMPTY_ELEMENTS;
+    }
+
+    /**
+     * Создание пустого списка, рассчитанного на указанное количество элементов.
+     *
+     * @param expectedSize Ожидаемое количество элементов
+     */
+    public VariantList(int expectedSize) {
+        elements = expectedSize <= 0 ? EMPTY_ELEMENTS : new Variant[expectedSize];
+    }
+
+    /**
+     * Создание полной копии списка вместе со всеми дочерними объектами.
+     *
+     * @param source Копируемый список
+     */
+    public VariantList(VariantList source) {
+        source.load();
+        storage = source.storage;
+        size = source.size;
+        switch (storage) {
+            case LONG:
+                longs = Arrays.copyOf(source.longs, size);
+                return;
+            case DOUBLE:
+                doubles = Arrays.copyOf(source.doubles, size);
+                return;
+            case BOOLEAN:
+                booleans = Arrays.copyOf(source.booleans, size);
+                return;
+            default:
+                elements = new Variant[size];
+                for (int index = 0; index < size; index++) {
+                    elements[index] = CanonicalVariant.of(source.elements[index]);
+                }
+        }
+    }
+
+    /**
+     * Создание полной копии списка вместе со всеми дочерними объектами.
+     *
+     * @return Копия списка.
+     */
+    protected VariantList copy() {
+        return new VariantList(this);
+    }
+
+    /**
+     * Загрузка отложенного содержимого списка.
+     * Обычный список всегда загружен, поэтому ничего не делает.
+     *
+     * @see LazyVariantList
+     */
+    protected void load() {
+    }
+
+    /**
+     * Отметка изменения списка: json, сохранённый для владельца и его предков, сбрасывается.
+     *
+     * @see Variant#toJsonBytesCached()
+     */
+    protected void modified() {
+        if (owner != null) owner.modified();
+    }
+
+    /**
+     * Отвязка удалённого элемента от владельца списка.
+     *
+     * @param child Элемент
+     */
+    protected void orphan(Variant child) {
+        if (child != null && owner != null && child.parent == owner) child.parent = null;
+    }
+
+    /**
+     * Получение способа хранения элементов.
+     *
+     * @return Способ хранения элементов.
+     */
+    public VariantListStorage getStorage() {
+        return storage;
+    }
+
+    /**
+     * Определение способа хранения, подходящего для объекта.
+     *
+     * @param child Объект
+     * @return Способ хранения.
+     */
+    protected static VariantListStorage storageOf(Variant child) {
+        if (child.type == VariantType.NUMBER) {
+            if (child.precision == VariantNumberPrecision.LONG) return VariantListStorage.LONG;
+            if (child.precision == VariantNumberPrecision.DOUBLE) return VariantListStorage.DOUBLE;
+        }
+        if (child.type == VariantType.BOOLEAN) return VariantListStorage.BOOLEAN;
+        return VariantListStorage.GENERIC;
+    }
+
+    /**
+     * Получение текущей вместимости массива элементов.
+     *
+     * @return Вместимость.
+     */
+    protected int capacity() {
+        switch (storage) {
+            case LONG:
+                return longs.length;
+            case DOUBLE:
+                return doubles.length;
+            case BOOLEAN:
+                return booleans.length;
+            default:
+                return elements.length;
+        }
+    }
+
+    /**
+     * Смена способа хранения пустого списка.
+     *
+     * @param storage Способ хранения
+     */
+    protected void switchEmptyTo(VariantListStorage storage) {
+        int capacity = Math.max(INITIAL_CAPACITY, capacity());
+        elements = null;
+        longs = null;
+        doubles = null;
+        booleans = null;
+        this.storage = storage;
+        switch (storage) {
+            case LONG:
+                longs = new long[capacity];
+                return;
+            case DOUBLE:
+                doubles = new double[capacity];
+                return;
+            case BOOLEAN:
+                booleans = new boolean[capacity];
+                return;
+            default:
+                elements = new Variant[capacity];
+        }
+    }
+
+    /**
+     * Перевод списка на хранение объектов Variant.
+     */
+    protected void inflate() {
+        if (storage == VariantListStorage.GENERIC) return;
+        Variant[] elements = new Variant[Math.max(size, capacity())];
+        for (int index = 0; index < size; index++) {
+            Variant element = peek(index);
+            if (!(element instanceof CanonicalVariant)) element.parent = owner;
+            elements[index] = element;
+        }
+        this.elements = elements;
+        longs = null;
+        doubles = null;
+        booleans = null;
+        storage = VariantListStorage.GENERIC;
+    }
+
+    /**
+     * Освобождение места под элемент по индексу со сдвигом следующих элементов.
+     *
+     * @param index Индекс
+     */
+    protected void openGap(int index) {
+        if (size == capacity()) {
+            int capacity = Math.max(INITIAL_CAPACITY, size + (size >> 1) + 1);
+            switch (storage) {
+                case LONG:
+                    longs = Arrays.copyOf(longs, capacity);
+                    break;
+                case DOUBLE:
+                    doubles = Arrays.copyOf(doubles, capacity);
+                    break;
+                case BOOLEAN:
+                    booleans = Arrays.copyOf(booleans, capacity);
+                    break;
+                default:
+                    elements = Arrays.copyOf(elements, capacity);
+            }
+        }
+        if (index < size) {
+            Object array = storage == VariantListStorage.LONG ? longs : storage == VariantListStorage.DOUBLE ? doubles : storage == VariantListStorage.BOOLEAN ? booleans : elements;
+            System.arraycopy(array, index, array, index + 1, size - index);
+        }
+        size++;
+        modCount++;
+        modified();
+    }
+
+    /**
+     * Проверка индекса для вставки.
+     *
+     * @param index Индекс
+     */
+    protected void checkPositionIndex(int index) {
+        if (index < 0 || index > size) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+
+    /**
+     * Проверка индекса существующего элемента.
+     *
+     * @param index Индекс
+     */
+    protected void checkElementIndex(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+
+    /**
+     * Получение элемента для чтения без перевода списка на хранение объектов Variant.
+     * Для списка примитивов возвращается новый объект, изменения которого не попадут в список;
+     * возвращённый объект может быть общим неизменяемым экземпляром {@link CanonicalVariant}.
+     *
+     * @param index Индекс
+     * @return Элемент, его копия или общий экземпляр.
+     */
+    public Variant peek(int index) {
+        checkElementIndex(index);
+        switch (storage) {
+            case LONG:
+                return CanonicalVariant.ofLong(longs[index]);
+            case DOUBLE:
+                return new Variant(null).setDoubleNumber(doubles[index]);
+            case BOOLEAN:
+                return CanonicalVariant.ofBoolean(booleans[index]);
+            default:
+                return elements[index];
+        }
+    }
+
+    /**
+     * Получение элемента как целого числа без создания дочернего объекта.
+     *
+     * @param index Индекс
+     * @return Число.
+     * @throws ru.vladislav117.variant.error.VariantValueError Если элемент не может быть преобразован к long.
+     */
+    public long getLong(int index) {
+        if (storage == VariantListStorage.LONG) {
+            checkElementIndex(index);
+            return longs[index];
+        }
+        if (storage == VariantListStorage.DOUBLE) {
+            checkElementIndex(index);
+            double value = doubles[index];
+            if ((long) value == value) return (long) value;
+        }
+        return peek(index).asLong();
+    }
+
+    /**
+     * Получение элемента как числа с плавающей точкой без создания дочернего объекта.
+     *
+     * @param index Индекс
+     * @return Число.
+     * @throws ru.vladislav117.variant.error.VariantValueError Если элемент не может быть преобразован к double.
+     */
+    public double getDouble(int index) {
+        if (storage == VariantListStorage.DOUBLE) {
+            checkElementIndex(index);
+            return doubles[index];
+        }
+        if (storage == VariantListStorage.LONG) {
+            checkElementIndex(index);
+            return longs[index];
+        }
+        return peek(index).asDouble();
+    }
+
+    /**
+     * Получение элемента как логического значения без создания дочернего объекта.
+     *
+     * @param index Индекс
+     * @return Логическое значение.
+     * @throws ru.vladislav117.variant.error.VariantValueError Если элемент не может быть преобразован к boolean.
+     */
+    public boolean getBoolean(int index) {
+        if (storage == VariantListStorage.BOOLEAN) {
+            checkElementIndex(index);
+            return booleans[index];
+        }
+        return peek(index).asBoolean();
+    }
+
+    /**
+     * Проверка, что элемент списка примитивов - целое число в указанных границах.
+     * Число с плавающей точкой считается целым, как в {@link Variant#isLong()}.
+     *
+     * @param index   Индекс
+     * @param minimum Наименьшее значение
+     * @param maximum Наибольшее значение
+     * @return Является ли элемент целым числом в указанных границах.
+     */
+    protected boolean isIntegral(int index, long minimum, long maximum) {
+        long value;
+        if (storage == VariantListStorage.LONG) {
+            value = longs[index];
+        } else if (storage == VariantListStorage.DOUBLE) {
+            value = (long) doubles[index];
+            if (value != doubles[index]) return false;
+        } else {
+            return false;
+        }
+        return value >= minimum && value <= maximum;
+    }
+
+    /**
+     * Проверка, что элемент списка примитивов представим во float без потерь, как в {@link Variant#isFloat()}.
+     *
+     * @param index Индекс
+     * @return Представим ли элемент во float.
+     */
+    protected boolean isFloat(int index) {
+        if (storage == VariantListStorage.LONG) {
+            double value = longs[index];
+            return (float) value == value && (long) value == longs[index];
+        }
+        return storage == VariantListStorage.DOUBLE && (float) doubles[index] == doubles[index];
+    }
+
+    /**
+     * Проверка, что элемент списка примитивов - целое число, как в {@link Variant#isBigInteger()}.
+     *
+     * @param index Индекс
+     * @return Является ли элемент целым числом.
+     */
+    protected boolean isInteger(int index) {
+        if (storage == VariantListStorage.LONG) return true;
+        return storage == VariantListStorage.DOUBLE && VariantDecimal.isInteger(VariantNumberPrecision.DOUBLE, null, doubles[index]);
+    }
+
+    /**
+     * Проверка, что элемент списка примитивов - конечное число, как в {@link Variant#isBigDecimal()}.
+     *
+     * @param index Индекс
+     * @return Является ли элемент конечным числом.
+     */
+    protected boolean isFinite(int index) {
+        if (storage == VariantListStorage.LONG) return true;
+        return storage == VariantListStorage.DOUBLE && Double.isFinite(doubles[index]);
+    }
+
+    /**
+     * Получение целого элемента списка чисел в BigInteger.
+     *
+     * @param index Индекс
+     * @return Число.
+     */
+    protected BigInteger getBigInteger(int index) {
+        if (storage == VariantListStorage.LONG) return BigInteger.valueOf(longs[index]);
+        return getBigDecimal(index).toBigIntegerExact();
+    }
+
+    /**
+     * Получение конечного элемента списка чисел в BigDecimal.
+     *
+     * @param index Индекс
+     * @return Число.
+     */
+    protected BigDecimal getBigDecimal(int index) {
+        if (storage == VariantListStorage.LONG) return BigDecimal.valueOf(longs[index]);
+        return VariantDecimal.toBigDecimal(VariantNumberPrecision.DOUBLE, null, 0, doubles[index]);
+    }
+
+    /**
+     * Добавление целого числа в конец списка.
+     *
+     * @param value Число
+     */
+    public void addLong(long value) {
+        if (size == 0 && storage != VariantListStorage.LONG) switchEmptyTo(VariantListStorage.LONG);
+        if (storage != VariantListStorage.LONG) {
+            addOwned(CanonicalVariant.ofLong(value));
+            return;
+        }
+        openGap(size);
+        longs[size - 1] = value;
+    }
+
+    /**
+     * Добавление числа с плавающей точкой в конец списка.
+     *
+     * @param value Число
+     */
+    public void addDouble(double value) {
+        if (size == 0 && storage != VariantListStorage.DOUBLE) switchEmptyTo(VariantListStorage.DOUBLE);
+        if (storage != VariantListStorage.DOUBLE) {
+            addOwned(new Variant(null).setDoubleNumber(value));
+            return;
+        }
+        openGap(size);
+        doubles[size - 1] = value;
+    }
+
+    /**
+     * Добавление логического значения в конец списка.
+     *
+     * @param value Логическое значение
+     */
+    public void addBoolean(boolean value) {
+        if (size == 0 && storage != VariantListStorage.BOOLEAN) switchEmptyTo(VariantListStorage.BOOLEAN);
+        if (storage != VariantListStorage.BOOLEAN) {
+            addOwned(CanonicalVariant.ofBoolean(value));
+            return;
+        }
+        openGap(size);
+        booleans[size - 1] = value;
+    }
+
+    /**
+     * Вставка объекта, который больше нигде не используется.
+     * Значение объекта может быть сохранено в массиве примитивов, а сам объект - отброшен.
+     *
+     * @param index Индекс
+     * @param child Объект
+     */
+    public void addOwned(int index, Variant child) {
+        checkPositionIndex(index);
+        VariantListStorage childStorage = storageOf(child);
+        if (size == 0 && storage != childStorage) switchEmptyTo(childStorage);
+        if (storage != childStorage) inflate();
+        openGap(index);
+        store(index, child);
+    }
+
+    /**
+     * Добавление в конец списка объекта, который больше нигде не используется.
+     * Значение объекта может быть сохранено в массиве примитивов, а сам объект - отброшен.
+     *
+     * @param child Объект
+     */
+    public void addOwned(Variant child) {
+        addOwned(size, child);
+    }
+
+    /**
+     * Замена элемента объектом, который больше нигде не используется.
+     * Значение объекта может быть сохранено в массиве примитивов, а сам объект - отброшен.
+     *
+     * @param index Индекс
+     * @param child Объект
+     */
+    public void setOwned(int index, Variant child) {
+        checkElementIndex(index);
+        if (storage != storageOf(child)) inflate();
+        if (storage == VariantListStorage.GENERIC) orphan(elements[index]);
+        store(index, child);
+        modified();
+    }
+
+    /**
+     * Запись объекта в массив текущего способа хранения.
+     *
+     * @param index Индекс
+     * @param child Объект
+     */
+    protected void store(int index, Variant child) {
+        switch (storage) {
+            case LONG:
+                longs[index] = child.longNumber;
+                return;
+            case DOUBLE:
+                doubles[index] = child.doubleNumber;
+                return;
+            case BOOLEAN:
+                booleans[index] = (Boolean) child.object;
+                return;
+            default:
+                elements[index] = child;
+        }
+    }
+
+    /**
+     * Сокращение массива элементов до размера списка.
+     */
+    public void trimToSize() {
+        if (size == capacity()) return;
+        switch (storage) {
+            case LONG:
+                longs = Arrays.copyOf(longs, size);
+                return;
+            case DOUBLE:
+                doubles = Arrays.copyOf(doubles, size);
+                return;
+            case BOOLEAN:
+                booleans = Arrays.copyOf(booleans, size);
+                return;
+            default:
+                elements = size == 0 ? EMPTY_ELEMENTS : Arrays.copyOf(elements, size);
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Variant get(int index) {
+        checkElementIndex(index);
+        inflate();
+        Variant element = elements[index];
+        if (element instanceof CanonicalVariant) {
+            element = new Variant(element);
+            element.parent = owner;
+            elements[index] = element;
+        }
+        return element;
+    }
+
+    @Override
+    public Variant set(int index, Variant element) {
+        checkElementIndex(index);
+        inflate();
+        Variant previous = elements[index];
+        elements[index] = element;
+        orphan(previous);
+        modified();
+        return CanonicalVariant.detach(previous);
+    }
+
+    @Override
+    public void add(int index, Variant element) {
+        checkPositionIndex(index);
+        if (size == 0 && storage != VariantListStorage.GENERIC) switchEmptyTo(VariantListStorage.GENERIC);
+        inflate();
+        openGap(index);
+        elements[index] = element;
+    }
+
+    @Override
+    public Variant remove(int index) {
+        Variant previous = peek(index);
+        int moved = size - index - 1;
+        switch (storage) {
+            case LONG:
+                System.arraycopy(longs, index + 1, longs, index, moved);
+                break;
+            case DOUBLE:
+                System.arraycopy(doubles, index + 1, doubles, index, moved);
+                break;
+            case BOOLEAN:
+                System.arraycopy(booleans, index + 1, booleans, index, moved);
+                break;
+            default:
+                System.arraycopy(elements, index + 1, elements, index, moved);
+                elements[size - 1] = null;
+        }
+        size--;
+        modCount++;
+        orphan(previous);
+        modified();
+        return CanonicalVariant.detach(previous);
+    }
+
+    @Override
+    public void clear() {
+        if (storage == VariantListStorage.GENERIC) {
+            if (owner != null) {
+                for (int index = 0; index < size; index++) orphan(elements[index]);
+            }
+            Arrays.fill(elements, 0, size, null);
+        }
+        size = 0;
+        modCount++;
+        modified();
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 1;
+        for (int index = 0; index < size; index++) {
+            hash = 31 * hash + peek(index).hashCode();
+        }
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) return true;
+        if (!(obj instanceof VariantList)) return super.equals(obj);
+        VariantList other = (VariantList) obj;
+        if (size != other.size()) return false;
+        for (int index = 0; index < size; index++) {
+            if (!peek(index).equals(other.peek(index))) return false;
+        }
+        return true;
+    }
+}
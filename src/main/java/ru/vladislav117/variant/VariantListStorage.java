@@ -0,0 +1,46 @@
+package ru.vladislav117.variant;
+
+/**
+ * Способ хранения элементов списка.
+ */
+public enum VariantListStorage {
+    /**
+     * Элементы хранятся как объекты Variant.
+     */
+    GENERIC("generic"),
+    /**
+     * Все элементы - целые числа, хранятся в long[].
+     */
+    LONG("long"),
+    /**
+     * Все элементы - числа с плавающей точкой, хранятся в double[].
+     */
+    DOUBLE("double"),
+    /**
+     * Все элементы - логические значения, хранятся в boolean[].
+     */
+    BOOLEAN("boolean");
+
+    /**
+     * Название способа хранения.
+     */
+    final String name;
+
+    /**
+     * Создание способа хранения.
+     *
+     * @param name Название точности
+     */
+    VariantListStorage(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Получение название.
+     *
+     * @return Название.
+     */
+    public String getName() {
+        return name;
+    }
+}
@@ -0,0 +1,560 @@
+package ru.vladislav117.variant;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.function.BiConsumer;
+
+/**
+ * Таблица дочерних объектов Variant.
+ * Пока в таблице не больше {@link #COMPACT_THRESHOLD} элементов, имена хранятся в разделяемой
+ * раскладке {@link VariantMapShape}, а значения - в массиве; при превышении порога таблица переходит на HashMap.
+ * Таблицы с одинаковыми именами (например, записи одного списка) ссылаются на одну раскладку.
+ * Листовые значения могут храниться как общие экземпляры {@link CanonicalVariant}; при выдаче наружу
+ * такое значение заменяется изменяемой копией.
+ * Изменение таблицы сбрасывает json, сохранённый для объекта-владельца и его предков.
+ */
+public class VariantMap extends AbstractMap<String, Variant> {
+    /**
+     * Максимальное количество элементов компактной таблицы.
+     */
+    public static final int COMPACT_THRESHOLD = 32;
+    /**
+     * Максимальное количество элементов компактной таблицы с неразделяемой раскладкой.
+     */
+    public static final int UNSHARED_THRESHOLD = 8;
+    /**
+     * Начальная вместимость массивов компактной таблицы.
+     */
+    protected static final int INITIAL_CAPACITY = 4;
+    protected static final Variant[] EMPTY_VALUES = new Variant[0];
+
+    protected VariantMapShape shape = VariantMapShape.EMPTY;
+    protected Variant[] values;
+    protected HashMap<String, Variant> hashMap = null;
+    protected Set<Map.Entry<String, Variant>> entrySet = null;
+    protected Set<String> keySet = null;
+    protected Variant owner = null;
+
+    /**
+     * Создание пустой таблицы.
+     */
+    public VariantMap() {
+        values = EMPTY_VALUES;
+    }
+
+    /**
+     * Создание пустой таблицы, рассчитанной на указанное количество элементов.
+     *
+     * @param expectedSize Ожидаемое количество элементов
+     */
+    public VariantMap(int expectedSize) {
+        if (expectedSize > COMPACT_THRESHOLD) {
+            values = EMPTY_VALUES;
+            hashMap = new HashMap<>((int) (expectedSize / 0.75f) + 1);
+            return;
+        }
+        values = expectedSize == 0 ? EMPTY_VALUES : new Variant[expectedSize];
+    }
+
+    /**
+     * Создание глубокой копии таблицы.
+     * Компактная копия использует ту же раскладку имён, а листовые значения заменяются общими экземплярами, где это возможно.
+     *
+     * @param source Исходная таблица
+     */
+    public VariantMap(VariantMap source) {
+        source.load();
+        if (source.hashMap != null) {
+            values = EMPTY_VALUES;
+            hashMap = new HashMap<>((int) (source.hashMap.size() / 0.75f) + 1);
+            source.hashMap.forEach((key, value) -> hashMap.put(key, CanonicalVariant.of(value)));
+            return;
+        }
+        int size = source.shape.size();
+        shape = source.shape;
+        values = size == 0 ? EMPTY_VALUES : new Variant[size];
+        for (int index = 0; index < size; index++) {
+            values[index] = CanonicalVariant.of(source.values[index]);
+        }
+    }
+
+    /**
+     * Создание глубокой копии таблицы.
+     *
+     * @return Копия таблицы.
+     */
+    protected VariantMap copy() {
+        return new VariantMap(this);
+    }
+
+    /**
+     * Загрузка отложенного содержимого таблицы.
+     * Обычная таблица всегда загружена, поэтому ничего не делает.
+     *
+     * @see LazyVariantMap
+     */
+    protected void load() {
+    }
+
+    /**
+     * Отметка изменения таблицы: json, сохранённый для владельца и его предков, сбрасывается.
+     *
+     * @see Variant#toJsonBytesCached()
+     */
+    protected void modified() {
+        if (owner != null) owner.modified();
+    }
+
+    /**
+     * Отвязка удалённого значения от владельца таблицы.
+     *
+     * @param value Значение
+     */
+    protected void orphan(@Nullable Variant value) {
+        if (value != null && owner != null && value.parent == owner) value.parent = null;
+    }
+
+    /**
+     * Замена общего экземпляра изменяемой копией, принадлежащей владельцу таблицы.
+     *
+     * @param value Значение
+     * @return Значение или его копия.
+     */
+    protected Variant detach(Variant value) {
+        if (!(value instanceof CanonicalVariant)) return value;
+        Variant copy = new Variant(value);
+        copy.parent = owner;
+        return copy;
+    }
+
+    /**
+     * Проверка, хранится ли таблица в компактном виде.
+     *
+     * @return Хранится ли таблица в компактном виде.
+     */
+    public boolean isCompact() {
+        return hashMap == null;
+    }
+
+    /**
+     * Получение раскладки имён компактной таблицы.
+     *
+     * @return Раскладка или null, если таблица не компактная.
+     */
+    public @Nullable VariantMapShape getShape() {
+        return hashMap == null ? shape : null;
+    }
+
+    /**
+     * Сокращение массива значений компактной таблицы до её размера.
+     */
+    public void trimToSize() {
+        if (hashMap == null && values.length > shape.size()) {
+            values = shape.size() == 0 ? EMPTY_VALUES : Arrays.copyOf(values, shape.size());
+        }
+    }
+
+    /**
+     * Перевод таблицы на HashMap.
+     */
+    protected void promote() {
+        int size = shape.size();
+        HashMap<String, Variant> hashMap = new HashMap<>((int) (Math.max(size, UNSHARED_THRESHOLD) * 2 / 0.75f) + 1);
+        for (int index = 0; index < size; index++) {
+            hashMap.put(shape.getKey(index), values[index]);
+        }
+        this.hashMap = hashMap;
+        shape = VariantMapShape.EMPTY;
+        values = EMPTY_VALUES;
+    }
+
+    /**
+     * Удаление элемента компактной таблицы по индексу с сохранением порядка остальных.
+     *
+     * @param index Индекс
+     * @return Удалённое значение.
+     */
+    protected Variant removeAt(int index) {
+        Variant value = values[index];
+        int size = shape.size();
+        int moved = size - index - 1;
+        if (moved > 0) System.arraycopy(values, index + 1, values, index, moved);
+        values[size - 1] = null;
+        shape = shape.withoutKey(index);
+        orphan(value);
+        modified();
+        return value;
+    }
+
+    @Override
+    public int size() {
+        return hashMap == null ? shape.size() : hashMap.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        if (hashMap != null) return hashMap.containsKey(key);
+        return shape.indexOf(key) >= 0;
+    }
+
+    @Override
+    public Variant get(Object key) {
+        if (hashMap != null) {
+            Variant value = hashMap.get(key);
+            if (!(value instanceof CanonicalVariant)) return value;
+            value = detach(value);
+            hashMap.put((String) key, value);
+            return value;
+        }
+        int index = shape.indexOf(key);
+        return index < 0 ? null : materialize(index);
+    }
+
+    /**
+     * Получение значения для чтения, без замены общего экземпляра изменяемой копией.
+     *
+     * @param key Имя
+     * @return Значение, общий экземпляр или null.
+     */
+    public @Nullable Variant peek(Object key) {
+        if (hashMap != null) return hashMap.get(key);
+        int index = shape.indexOf(key);
+        return index < 0 ? null : values[index];
+    }
+
+    /**
+     * Обход элементов для чтения, без замены общих экземпляров изменяемыми копиями.
+     *
+     * @param action Обработчик
+     */
+    public void peekEach(BiConsumer<? super String, ? super Variant> action) {
+        if (hashMap != null) {
+            hashMap.forEach(action);
+            return;
+        }
+        VariantMapShape shape = this.shape;
+        Variant[] values = this.values;
+        for (int index = 0; index < shape.size(); index++) {
+            action.accept(shape.getKey(index), values[index]);
+        }
+    }
+
+    /**
+     * Замена общего экземпляра в компактной таблице изменяемой копией.
+     *
+     * @param index Индекс
+     * @return Значение.
+     */
+    protected Variant materialize(int index) {
+        Variant value = values[index];
+        if (value instanceof CanonicalVariant) {
+            value = detach(value);
+            values[index] = value;
+        }
+        return value;
+    }
+
+    @Override
+    public Variant put(String key, Variant value) {
+        modified();
+        if (hashMap != null) {
+            Variant previous = hashMap.put(key, value);
+            orphan(previous);
+            return CanonicalVariant.detach(previous);
+        }
+        int index = shape.indexOf(key);
+        if (index >= 0) {
+            Variant previous = values[index];
+            values[index] = value;
+            orphan(previous);
+            return CanonicalVariant.detach(previous);
+        }
+        int size = shape.size();
+        VariantMapShape next = size == COMPACT_THRESHOLD ? null : shape.withKey(key);
+        if (next == null || (!next.isCached() && size >= UNSHARED_THRESHOLD)) {
+            promote();
+            hashMap.put(key, value);
+            return null;
+        }
+        if (size == values.length) {
+            values = Arrays.copyOf(values, Math.min(COMPACT_THRESHOLD, Math.max(INITIAL_CAPACITY, size * 2)));
+        }
+        values[size] = value;
+        shape = next;
+        return null;
+    }
+
+    @Override
+    public Variant remove(Object key) {
+        if (hashMap != null) {
+            Variant previous = hashMap.remove(key);
+            orphan(previous);
+            modified();
+            return CanonicalVariant.detach(previous);
+        }
+        int index = shape.indexOf(key);
+        return index < 0 ? null : CanonicalVariant.detach(removeAt(index));
+    }
+
+    @Override
+    public void clear() {
+        if (owner != null) peekEach((key, value) -> orphan(value));
+        modified();
+        if (hashMap != null) {
+            hashMap.clear();
+            return;
+        }
+        Arrays.fill(values, 0, shape.size(), null);
+        shape = VariantMapShape.EMPTY;
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super String, ? super Variant> action) {
+        if (hashMap != null) {
+            hashMap.replaceAll((key, value) -> detach(value));
+            hashMap.forEach(action);
+            return;
+        }
+        for (int index = 0; index < shape.size(); index++) {
+            action.accept(shape.getKey(index), materialize(index));
+        }
+    }
+
+    @Override
+    public int hashCode() {
+        int[] hash = {0};
+        peekEach((key, value) -> hash[0] += key.hashCode() ^ Objects.hashCode(value));
+        return hash[0];
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) return true;
+        if (!(obj instanceof VariantMap)) return super.equals(obj);
+        VariantMap other = (VariantMap) obj;
+        if (size() != other.size()) return false;
+        if (hashMap == null) {
+            for (int index = 0; index < shape.size(); index++) {
+                if (!matches(values[index], other, shape.getKey(index))) return false;
+            }
+            return true;
+        }
+        for (Map.Entry<String, Variant> entry : hashMap.entrySet()) {
+            if (!matches(entry.getValue(), other, entry.getKey())) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Сравнение значения со значением другой таблицы по имени.
+     *
+     * @param value Значение
+     * @param other Другая таблица
+     * @param key   Имя
+     * @return Равенство значений.
+     */
+    protected static boolean matches(@Nullable Variant value, VariantMap other, String key) {
+        Variant otherValue = other.peek(key);
+        if (value == null) return otherValue == null && other.containsKey(key);
+        return value.equals(otherValue);
+    }
+
+    @Override
+    public Set<String> keySet() {
+        if (keySet == null) keySet = new KeySet();
+        return keySet;
+    }
+
+    @Override
+    public Set<Map.Entry<String, Variant>> entrySet() {
+        if (entrySet == null) entrySet = new EntrySet();
+        return entrySet;
+    }
+
+    /**
+     * Набор элементов таблицы, отражающий её изменения.
+     */
+    protected class EntrySet extends AbstractSet<Map.Entry<String, Variant>> {
+        @Override
+        public Iterator<Map.Entry<String, Variant>> iterator() {
+            if (hashMap != null) {
+                hashMap.replaceAll((key, value) -> detach(value));
+                return new HashEntryIterator();
+            }
+            return new CompactEntryIterator();
+        }
+
+        @Override
+        public int size() {
+            return VariantMap.this.size();
+        }
+
+        @Override
+        public void clear() {
+            VariantMap.this.clear();
+        }
+    }
+
+    /**
+     * Набор имён таблицы, отражающий её изменения.
+     * Обход имён не заменяет общие экземпляры значений изменяемыми копиями.
+     */
+    protected class KeySet extends AbstractSet<String> {
+        @Override
+        public Iterator<String> iterator() {
+            if (hashMap != null) return new HashKeyIterator();
+            return new CompactKeyIterator();
+        }
+
+        @Override
+        public int size() {
+            return VariantMap.this.size();
+        }
+
+        @Override
+        public boolean contains(Object key) {
+            return containsKey(key);
+        }
+
+        @Override
+        public boolean remove(Object key) {
+            if (!containsKey(key)) return false;
+            VariantMap.this.remove(key);
+            return true;
+        }
+
+        @Override
+        public void clear() {
+            VariantMap.this.clear();
+        }
+    }
+
+    /**
+     * Итератор по компактной таблице.
+     *
+     * @param <T> Тип элементов итератора
+     */
+    protected abstract class CompactIterator<T> implements Iterator<T> {
+        protected int index = 0;
+        protected int last = -1;
+
+        @Override
+        public boolean hasNext() {
+            return hashMap == null && index < shape.size();
+        }
+
+        /**
+         * Переход к следующему элементу.
+         *
+         * @return Индекс элемента.
+         */
+        protected int nextIndex() {
+            if (!hasNext()) throw new NoSuchElementException();
+            last = index++;
+            return last;
+        }
+
+        @Override
+        public void remove() {
+            if (last < 0 || hashMap != null) throw new IllegalStateException();
+            removeAt(last);
+            index = last;
+            last = -1;
+        }
+    }
+
+    /**
+     * Итератор по элементам компактной таблицы.
+     */
+    protected class CompactEntryIterator extends CompactIterator<Map.Entry<String, Variant>> {
+        @Override
+        public Map.Entry<String, Variant> next() {
+            int index = nextIndex();
+            return new Entry(shape.getKey(index), materialize(index));
+        }
+    }
+
+    /**
+     * Итератор по именам компактной таблицы.
+     */
+    protected class CompactKeyIterator extends CompactIterator<String> {
+        @Override
+        public String next() {
+            return shape.getKey(nextIndex());
+        }
+    }
+
+    /**
+     * Итератор по таблице на HashMap; удаление через итератор отмечается как изменение таблицы.
+     *
+     * @param <T> Тип элементов итератора
+     */
+    protected abstract class HashIterator<T> implements Iterator<T> {
+        protected final Iterator<Map.Entry<String, Variant>> iterator = hashMap.entrySet().iterator();
+        protected Map.Entry<String, Variant> last = null;
+
+        @Override
+        public boolean hasNext() {
+            return iterator.hasNext();
+        }
+
+        /**
+         * Переход к следующему элементу.
+         *
+         * @return Элемент HashMap.
+         */
+        protected Map.Entry<String, Variant> nextEntry() {
+            last = iterator.next();
+            return last;
+        }
+
+        @Override
+        public void remove() {
+            iterator.remove();
+            orphan(last.getValue());
+            modified();
+        }
+    }
+
+    /**
+     * Итератор по элементам таблицы на HashMap.
+     */
+    protected class HashEntryIterator extends HashIterator<Map.Entry<String, Variant>> {
+        @Override
+        public Map.Entry<String, Variant> next() {
+            Map.Entry<String, Variant> entry = nextEntry();
+            return new Entry(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Итератор по именам таблицы на HashMap.
+     */
+    protected class HashKeyIterator extends HashIterator<String> {
+        @Override
+        public String next() {
+            return nextEntry().getKey();
+        }
+    }
+
+    /**
+     * Элемент таблицы; изменение значения записывается в таблицу.
+     */
+    protected class Entry extends AbstractMap.SimpleEntry<String, Variant> {
+        Entry(String key, Variant value) {
+            super(key, value);
+        }
+
+        @Override
+        public Variant setValue(Variant value) {
+            put(getKey(), value);
+            return super.setValue(value);
+        }
+    }
+}
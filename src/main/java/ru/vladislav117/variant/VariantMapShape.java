@@ -0,0 +1,250 @@
+package ru.vladislav117.variant;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Неизменяемая раскладка имён компактной таблицы.
+ * Таблицы с одинаковым набором имён, добавленных в одинаковом порядке, ссылаются на одну раскладку
+ * и хранят только массив значений. Раскладки образуют дерево переходов от пустой раскладки.
+ * <p>
+ * Переходы хранят раскладки через слабые ссылки, поэтому раскладка, на которую не ссылается ни одна таблица,
+ * удаляется сборщиком мусора вместе с её именами, а её место в кэше освобождается.
+ * Из одной раскладки кэшируется не больше {@link #MAX_TRANSITIONS} переходов: новый переход вытесняет один из старых.
+ * Живых закэшированных раскладок не больше {@link #MAX_CACHED_SHAPES}. Пока кэш заполнен, новые раскладки
+ * не разделяются: таблица остаётся компактной до {@link VariantMap#UNSHARED_THRESHOLD} элементов,
+ * а затем переходит на HashMap. Разделение возобновляется, когда неиспользуемые раскладки будут удалены.
+ */
+public class VariantMapShape {
+    /**
+     * Максимальное количество живых закэшированных раскладок.
+     */
+    public static final int MAX_CACHED_SHAPES = 16384;
+    /**
+     * Максимальное количество закэшированных переходов из одной раскладки.
+     */
+    public static final int MAX_TRANSITIONS = 64;
+    /**
+     * Количество имён, начиная с которого поиск идёт по индексу, а не перебором.
+     */
+    protected static final int INDEXED_THRESHOLD = 8;
+    protected static final AtomicInteger cachedShapes = new AtomicInteger();
+    protected static final ReferenceQueue<VariantMapShape> released = new ReferenceQueue<>();
+    protected static final Set<Transition> registered = ConcurrentHashMap.newKeySet();
+    /**
+     * Пустая раскладка, корень дерева переходов.
+     */
+    public static final VariantMapShape EMPTY = new VariantMapShape(new String[0], true);
+
+    protected final String[] keys;
+    protected final int[] hashes;
+    protected final boolean cached;
+    protected final HashMap<String, Integer> index;
+    protected volatile ConcurrentHashMap<String, Transition> transitions = null;
+    protected volatile Transition lastTransition = null;
+
+    /**
+     * Создание раскладки.
+     *
+     * @param keys   Имена
+     * @param cached Закэширована ли раскладка
+     */
+    protected VariantMapShape(String[] keys, boolean cached) {
+        this.keys = keys;
+        this.cached = cached;
+        hashes = new int[keys.length];
+        for (int position = 0; position < keys.length; position++) {
+            hashes[position] = keys[position].hashCode();
+        }
+        if (keys.length > INDEXED_THRESHOLD) {
+            index = new HashMap<>((int) (keys.length / 0.75f) + 1);
+            for (int position = 0; position < keys.length; position++) {
+                index.put(keys[position], position);
+            }
+        } else {
+            index = null;
+        }
+    }
+
+    /**
+     * Получение количества имён.
+     *
+     * @return Количество имён.
+     */
+    public int size() {
+        return keys.length;
+    }
+
+    /**
+     * Получение имени по индексу.
+     *
+     * @param position Индекс
+     * @return Имя.
+     */
+    public String getKey(int position) {
+        return keys[position];
+    }
+
+    /**
+     * Проверка, закэширована ли раскладка (то есть может ли она разделяться таблицами).
+     *
+     * @return Закэширована ли раскладка.
+     */
+    public boolean isCached() {
+        return cached;
+    }
+
+    /**
+     * Поиск индекса имени.
+     *
+     * @param key Имя
+     * @return Индекс или -1.
+     */
+    public int indexOf(Object key) {
+        String[] keys = this.keys;
+        for (int position = 0; position < keys.length; position++) {
+            if (keys[position] == key) return position;
+        }
+        if (!(key instanceof String)) return -1;
+        if (index != null) {
+            Integer position = index.get(key);
+            return position == null ? -1 : position;
+        }
+        int hash = key.hashCode();
+        for (int position = 0; position < keys.length; position++) {
+            if (hashes[position] == hash && keys[position].equals(key)) return position;
+        }
+        return -1;
+    }
+
+    /**
+     * Получение раскладки с добавленным в конец именем.
+     * Имя не должно присутствовать в раскладке.
+     *
+     * @param key Имя
+     * @return Раскладка.
+     */
+    public VariantMapShape withKey(String key) {
+        Transition last = lastTransition;
+        if (last != null && (last.key == key || last.key.equals(key))) {
+            VariantMapShape shape = last.get();
+            if (shape != null) return shape;
+        }
+        ConcurrentHashMap<String, Transition> transitions = this.transitions;
+        if (transitions != null) {
+            Transition transition = transitions.get(key);
+            VariantMapShape shape = transition == null ? null : transition.get();
+            if (shape != null) {
+                lastTransition = transition;
+                return shape;
+            }
+        }
+        String[] keys = new String[this.keys.length + 1];
+        System.arraycopy(this.keys, 0, keys, 0, this.keys.length);
+        keys[this.keys.length] = key;
+        if (!cached) return new VariantMapShape(keys, false);
+        expunge();
+        if (!reserve()) return new VariantMapShape(keys, false);
+        synchronized (this) {
+            transitions = this.transitions;
+            if (transitions == null) {
+                transitions = new ConcurrentHashMap<>();
+                this.transitions = transitions;
+            }
+            Transition transition = transitions.get(key);
+            VariantMapShape shape = transition == null ? null : transition.get();
+            if (shape != null) {
+                cachedShapes.decrementAndGet();
+            } else {
+                if (transition == null && transitions.size() >= MAX_TRANSITIONS) evict(transitions);
+                shape = new VariantMapShape(keys, true);
+                transition = new Transition(shape, transitions, key);
+                registered.add(transition);
+                transitions.put(key, transition);
+            }
+            lastTransition = transition;
+            return shape;
+        }
+    }
+
+    /**
+     * Получение раскладки без имени с указанным индексом.
+     *
+     * @param position Индекс
+     * @return Раскладка.
+     */
+    public VariantMapShape withoutKey(int position) {
+        VariantMapShape shape = EMPTY;
+        for (int current = 0; current < keys.length; current++) {
+            if (current != position) shape = shape.withKey(keys[current]);
+        }
+        return shape;
+    }
+
+    /**
+     * Вытеснение одного перехода, кроме последнего использованного.
+     * Вытесненная раскладка остаётся у таблиц, которые на неё ссылаются, и освобождает место в кэше после удаления.
+     *
+     * @param transitions Переходы этой раскладки
+     */
+    protected void evict(ConcurrentHashMap<String, Transition> transitions) {
+        Iterator<Transition> iterator = transitions.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next() != lastTransition) {
+                iterator.remove();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Освобождение мест в кэше, занятых раскладками, удалёнными сборщиком мусора.
+     */
+    protected static void expunge() {
+        Transition transition;
+        while ((transition = (Transition) released.poll()) != null) {
+            transition.owner.remove(transition.key, transition);
+            if (registered.remove(transition)) cachedShapes.decrementAndGet();
+        }
+    }
+
+    /**
+     * Резервирование места в кэше раскладок.
+     *
+     * @return Удалось ли зарезервировать место.
+     */
+    protected static boolean reserve() {
+        while (true) {
+            int count = cachedShapes.get();
+            if (count >= MAX_CACHED_SHAPES) return false;
+            if (cachedShapes.compareAndSet(count, count + 1)) return true;
+        }
+    }
+
+    /**
+     * Слабая ссылка на закэшированную раскладку из перехода.
+     * Ссылка хранится в {@link #registered}, пока раскладка не удалена, чтобы её удаление всегда освобождало место в кэше.
+     */
+    protected static final class Transition extends WeakReference<VariantMapShape> {
+        protected final ConcurrentHashMap<String, Transition> owner;
+        protected final String key;
+
+        /**
+         * Создание перехода.
+         *
+         * @param shape Раскладка
+         * @param owner Переходы родительской раскладки
+         * @param key   Добавленное имя
+         */
+        protected Transition(VariantMapShape shape, ConcurrentHashMap<String, Transition> owner, String key) {
+            super(shape, released);
+            this.owner = owner;
+            this.key = key;
+        }
+    }
+}
@@ -0,0 +1,585 @@
+package ru.vladislav117.variant;
+
+import ru.vladislav117.variant.error.VariantFormatError;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Парсер MessagePack, создающий Variant напрямую.
+ * Строки не копируются: они хранятся как {@link VariantUtf8String}, ссылающиеся на разбираемый массив,
+ * поэтому массив не должен изменяться, пока используется результат.
+ * <ul>
+ *     <li>целые числа сохраняются как long, а uint 64 больше {@link Long#MAX_VALUE} — с точностью {@link VariantNumberPrecision#DECIMAL};</li>
+ *     <li>float 32 и float 64 сохраняются как double;</li>
+ *     <li>bin, которого нет среди типов Variant, преобразуется в строку base64url без дополнения;</li>
+ *     <li>временная метка (расширение -1) преобразуется в строку ISO-8601, остальные расширения не поддерживаются;</li>
+ *     <li>имена таблиц должны быть строками или целыми числами;</li>
+ *     <li>некорректный UTF-8 в строках и именах не считается ошибкой и декодируется с заменой символом U+FFFD.</li>
+ * </ul>
+ * Глубина вложенности списков и таблиц ограничена {@link #MAX_DEPTH}, чтобы разбор не переполнял стек.
+ * Для чтения сообщений из канала или потока по мере поступления данных используется {@link VariantMessagePackReader}.
+ */
+public class VariantMessagePackParser {
+    /**
+     * Тип расширения временной метки.
+     */
+    protected static final int TIMESTAMP_TYPE = -1;
+    /**
+     * Максимальная глубина вложенности (системное свойство {@code ru.vladislav117.variant.messagePack.maxDepth}, по умолчанию 512).
+     */
+    public static final int MAX_DEPTH = Integer.getInteger("ru.vladislav117.variant.messagePack.maxDepth", 512);
+
+    protected final byte[] buffer;
+    protected int position;
+    protected final int limit;
+    protected final int start;
+    protected int depth = 0;
+
+    /**
+     * Создание парсера для части массива байтов.
+     *
+     * @param buffer Массив байтов
+     * @param offset Начало данных в массиве
+     * @param length Длина данных
+     */
+    protected VariantMessagePackParser(byte[] buffer, int offset, int length) {
+        this.buffer = buffer;
+        position = offset;
+        limit = offset + length;
+        start = offset;
+    }
+
+    /**
+     * Разбор MessagePack из массива байтов.
+     * Массив не копируется и не должен изменяться, пока используется результат.
+     *
+     * @param messagePack Массив байтов
+     * @return Объект.
+     * @throws VariantFormatError Если данные некорректны или после объекта есть лишние байты, будет вызвано исключение.
+     */
+    public static Variant parse(byte[] messagePack) {
+        return parse(messagePack, 0, messagePack.length);
+    }
+
+    /**
+     * Разбор MessagePack из части массива байтов.
+     * Массив не копируется и не должен изменяться, пока используется результат.
+     *
+     * @param messagePack Массив байтов
+     * @param offset      Начало данных в массиве
+     * @param length      Длина данных
+     * @return Объект.
+     * @throws VariantFormatError Если данные некорректны или после объекта есть лишние байты, будет вызвано исключение.
+     */
+    public static Variant parse(byte[] messagePack, int offset, int length) {
+        VariantMessagePackParser parser = new VariantMessagePackParser(messagePack, offset, length);
+        Variant value = parser.readItem();
+        if (parser.position != parser.limit) throw parser.error("unexpected data after MessagePack object");
+        return value;
+    }
+
+    /**
+     * Разбор MessagePack из потока.
+     * Поток читается до конца, но не закрывается.
+     *
+     * @param stream Поток
+     * @return Объект.
+     * @throws VariantFormatError   Если данные некорректны или после объекта есть лишние байты, будет вызвано исключение.
+     * @throws UncheckedIOException Если при чтении потока произошла ошибка, будет вызвано исключение.
+     */
+    public static Variant parse(InputStream stream) {
+        try {
+            return parse(stream.readAllBytes());
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    /**
+     * Разбор одного объекта MessagePack из буфера, начиная с его текущей позиции.
+     * Байты объекта копируются, поэтому буфер можно использовать снова.
+     * После разбора позиция буфера указывает на первый байт после объекта.
+     *
+     * @param buffer Буфер
+     * @return Объект.
+     * @throws VariantFormatError Если данные некорректны или неполны, будет вызвано исключение.
+     */
+    public static Variant parse(ByteBuffer buffer) {
+        Scanner scanner = new Scanner();
+        byte[] message;
+        if (buffer.hasArray()) {
+            int offset = buffer.arrayOffset() + buffer.position();
+            if (!scanner.scan(buffer.array(), offset, offset + buffer.remaining())) {
+                throw scanner.error("unexpected end of data");
+            }
+            message = Arrays.copyOfRange(buffer.array(), offset, offset + scanner.length);
+        } else {
+            byte[] data = new byte[Math.min(buffer.remaining(), VariantBinaryWriter.BUFFER_SIZE)];
+            int count = 0;
+            while (!scanner.scan(data, 0, count)) {
+                if (count == buffer.remaining()) {
+                    throw scanner.error("unexpected end of data");
+                }
+                if (count == data.length) data = Arrays.copyOf(data, (int) Math.min(buffer.remaining(), data.length * 2L));
+                int chunk = data.length - count;
+                buffer.get(buffer.position() + count, data, count, chunk);
+                count += chunk;
+            }
+            message = scanner.length == data.length ? data : Arrays.copyOf(data, scanner.length);
+        }
+        buffer.position(buffer.position() + message.length);
+        return new VariantMessagePackParser(message, 0, message.length).readItem();
+    }
+
+    /**
+     * Создание ошибки разбора в текущей позиции.
+     *
+     * @param message Сообщение об ошибке
+     * @return Ошибка.
+     */
+    protected VariantFormatError error(String message) {
+        return new VariantFormatError("Invalid MessagePack at position " + (position - start) + ": " + message);
+    }
+
+    /**
+     * Чтение объекта, который выдаётся наружу (общий экземпляр заменяется копией).
+     *
+     * @return Объект.
+     */
+    protected Variant readItem() {
+        return CanonicalVariant.detach(readValue());
+    }
+
+    /**
+     * Проверка, что в данных осталось указанное количество байтов.
+     *
+     * @param count Количество байтов
+     */
+    protected void require(long count) {
+        if (limit - position < count) throw error("unexpected end of data");
+    }
+
+    /**
+     * Чтение числа из нескольких байтов в порядке big-endian.
+     *
+     * @param count Количество байтов
+     * @return Число.
+     */
+    protected long readNumber(int count) {
+        require(count);
+        byte[] buffer = this.buffer;
+        long value = 0;
+        for (int index = 0; index < count; index++) value = value << 8 | (buffer[position++] & 0xFF);
+        return value;
+    }
+
+    /**
+     * Чтение длины строки, bin, списка или таблицы.
+     *
+     * @param count Количество байтов длины
+     * @return Длина.
+     */
+    protected int readLength(int count) {
+        long length = readNumber(count);
+        if (length > Integer.MAX_VALUE - 8) throw error("length is too large");
+        return (int) length;
+    }
+
+    /**
+     * Чтение значения.
+     * Листовое значение может быть общим экземпляром {@link CanonicalVariant}.
+     *
+     * @return Объект.
+     */
+    protected Variant readValue() {
+        require(1);
+        int format = buffer[position++] & 0xFF;
+        if (format < 0x80) return newLong(format);
+        if (format >= 0xE0) return newLong((byte) format);
+        if (format < 0x90) return readMap(format & 0x0F);
+        if (format < 0xA0) return readList(format & 0x0F);
+        if (format < 0xC0) return newString(readString(format & 0x1F));
+        switch (format) {
+            case 0xC0:
+                return CanonicalVariant.ofNull();
+            case 0xC2:
+                return CanonicalVariant.ofBoolean(false);
+            case 0xC3:
+                return CanonicalVariant.ofBoolean(true);
+            case 0xC4:
+                return readBinary(readLength(1));
+            case 0xC5:
+                return readBinary(readLength(2));
+            case 0xC6:
+                return readBinary(readLength(4));
+            case 0xC7:
+                return readExtension(readLength(1));
+            case 0xC8:
+                return readExtension(readLength(2));
+            case 0xC9:
+                return readExtension(readLength(4));
+            case 0xCA:
+                return VariantArena.allocate().setDoubleNumber(Float.intBitsToFloat((int) readNumber(4)));
+            case 0xCB:
+                return VariantArena.allocate().setDoubleNumber(Double.longBitsToDouble(readNumber(8)));
+            case 0xCC:
+                return newLong(readNumber(1));
+            case 0xCD:
+                return newLong(readNumber(2));
+            case 0xCE:
+                return newLong(readNumber(4));
+            case 0xCF: {
+                long value = readNumber(8);
+                if (value >= 0) return newLong(value);
+                return VariantDecimal.setDecimal(VariantArena.allocate(), new BigDecimal(new BigInteger(Long.toUnsignedString(value))));
+            }
+            case 0xD0:
+                return newLong((byte) readNumber(1));
+            case 0xD1:
+                return newLong((short) readNumber(2));
+            case 0xD2:
+                return newLong((int) readNumber(4));
+            case 0xD3:
+                return newLong(readNumber(8));
+            case 0xD4:
+                return readExtension(1);
+            case 0xD5:
+                return readExtension(2);
+            case 0xD6:
+                return readExtension(4);
+            case 0xD7:
+                return readExtension(8);
+            case 0xD8:
+                return readExtension(16);
+            case 0xD9:
+                return newString(readString(readLength(1)));
+            case 0xDA:
+                return newString(readString(readLength(2)));
+            case 0xDB:
+                return newString(readString(readLength(4)));
+            case 0xDC:
+                return readList(readLength(2));
+            case 0xDD:
+                return readList(readLength(4));
+            case 0xDE:
+                return readMap(readLength(2));
+            case 0xDF:
+                return readMap(readLength(4));
+            default:
+                position--;
+                throw error("invalid format byte 0xC1");
+        }
+    }
+
+    /**
+     * Чтение строки без копирования байтов.
+     * Некорректный UTF-8 декодируется с заменой ошибочных последовательностей символом U+FFFD.
+     *
+     * @param length Длина строки в байтах
+     * @return Строка.
+     */
+    protected CharSequence readString(int length) {
+        require(length);
+        int from = position;
+        position += length;
+        if (length == 0) return "";
+        int check = VariantUtf8String.check(buffer, from, from + length);
+        if (check == VariantUtf8String.INVALID) return VariantUtf8String.of(buffer, from, length);
+        return new VariantUtf8String(buffer, from, length, check == VariantUtf8String.PLAIN);
+    }
+
+    /**
+     * Чтение bin как строки base64url без дополнения.
+     *
+     * @param length Длина в байтах
+     * @return Строковый объект.
+     */
+    protected Variant readBinary(int length) {
+        require(length);
+        byte[] bytes = Arrays.copyOfRange(buffer, position, position + length);
+        position += length;
+        return newString(Base64.getUrlEncoder().withoutPadding().encodeToString(bytes));
+    }
+
+    /**
+     * Чтение расширения. Поддерживается только временная метка.
+     *
+     * @param length Длина данных расширения
+     * @return Объект.
+     */
+    protected Variant readExtension(int length) {
+        require(1L + length);
+        int type = buffer[position];
+        if (type != TIMESTAMP_TYPE) throw error("unsupported extension type " + type);
+        position++;
+        long seconds;
+        long nanos;
+        switch (length) {
+            case 4:
+                seconds = readNumber(4);
+                nanos = 0;
+                break;
+            case 8: {
+                long value = readNumber(8);
+                nanos = value >>> 34;
+                seconds = value & 0x3FFFFFFFFL;
+                break;
+            }
+            case 12:
+                nanos = readNumber(4);
+                seconds = readNumber(8);
+                break;
+            default:
+                throw error("invalid timestamp length " + length);
+        }
+        if (nanos > 999_999_999L) throw error("invalid timestamp nanoseconds");
+        try {
+            return newString(Instant.ofEpochSecond(seconds, nanos).toString());
+        } catch (RuntimeException exception) {
+            throw error("timestamp is out of range");
+        }
+    }
+
+    /**
+     * Чтение списка.
+     *
+     * @param size Количество элементов
+     * @return Список.
+     */
+    protected Variant readList(int size) {
+        require(size);
+        if (++depth > MAX_DEPTH) throw error("nesting is too deep");
+        VariantList list = VariantArena.allocateList();
+        for (int index = 0; index < size; index++) list.addOwned(readValue());
+        if (!VariantArena.isActive()) list.trimToSize();
+        depth--;
+        return Variant.adoptList(list);
+    }
+
+    /**
+     * Чтение таблицы.
+     *
+     * @param size Количество элементов
+     * @return Таблица.
+     */
+    protected Variant readMap(int size) {
+        require(size * 2L);
+        if (++depth > MAX_DEPTH) throw error("nesting is too deep");
+        VariantMap map = VariantArena.allocateMap();
+        for (int index = 0; index < size; index++) {
+            String key = readKey();
+            map.put(key, readValue());
+        }
+        if (!VariantArena.isActive()) map.trimToSize();
+        depth--;
+        return Variant.adoptMap(map);
+    }
+
+    /**
+     * Чтение имени в таблице: строки или целого числа.
+     *
+     * @return Имя.
+     */
+    protected String readKey() {
+        require(1);
+        int format = buffer[position] & 0xFF;
+        int length;
+        if (format >= 0xA0 && format < 0xC0) {
+            position++;
+            length = format & 0x1F;
+        } else if (format >= 0xD9 && format <= 0xDB) {
+            position++;
+            length = readLength(1 << (format - 0xD9));
+        } else if (format < 0x80 || format >= 0xE0 || format >= 0xCC && format <= 0xD3) {
+            Variant key = readValue();
+            return VariantDecimal.toBigDecimal(key.precision, key.object, key.longNumber, key.doubleNumber).toPlainString();
+        } else {
+            throw error("map key must be a string or an integer");
+        }
+        require(length);
+        int from = position;
+        position += length;
+        for (int index = from; index < position; index++) {
+            if (buffer[index] < 0) return new String(buffer, from, length, StandardCharsets.UTF_8);
+        }
+        return new String(buffer, from, length, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Создание объекта с целым числом: общий экземпляр, если он есть, иначе объект из области выделения.
+     *
+     * @param value Число
+     * @return Числовой объект.
+     */
+    protected Variant newLong(long value) {
+        if (value >= CanonicalVariant.LOW && value <= CanonicalVariant.HIGH) return CanonicalVariant.ofLong(value);
+        return VariantArena.allocate().setLongNumber(value);
+    }
+
+    /**
+     * Создание строкового объекта.
+     *
+     * @param value Строка (String или {@link VariantUtf8String})
+     * @return Строковый объект.
+     */
+    protected Variant newString(CharSequence value) {
+        if (value.length() == 0) return CanonicalVariant.ofEmptyString();
+        Variant variant = VariantArena.allocate();
+        variant.type = VariantType.STRING;
+        variant.object = value;
+        return variant;
+    }
+
+    /**
+     * Поиск границы объекта MessagePack без его разбора.
+     * Просмотр можно продолжать по мере поступления данных: уже просмотренные элементы повторно не разбираются.
+     */
+    protected static final class Scanner {
+        /**
+         * Длина уже просмотренной части объекта.
+         */
+        protected int length = 0;
+        /**
+         * Количество ещё не просмотренных элементов.
+         */
+        protected long pending = 1;
+        /**
+         * Позиция начала объекта в данных, используемая в сообщениях об ошибках.
+         */
+        protected long offset = 0;
+
+        /**
+         * Сброс для поиска следующего объекта.
+         *
+         * @param offset Позиция начала следующего объекта в данных
+         */
+        protected void reset(long offset) {
+            length = 0;
+            pending = 1;
+            this.offset = offset;
+        }
+
+        /**
+         * Создание ошибки просмотра в текущей позиции.
+         *
+         * @param message Сообщение об ошибке
+         * @return Ошибка.
+         */
+        protected VariantFormatError error(String message) {
+            return new VariantFormatError("Invalid MessagePack at position " + (offset + length) + ": " + message);
+        }
+
+        /**
+         * Продолжение просмотра.
+         *
+         * @param data  Массив байтов
+         * @param start Начало объекта в массиве
+         * @param end   Конец доступных данных
+         * @return Найдена ли граница объекта (тогда его длина равна {@link #length}).
+         * @throws VariantFormatError Если данные некорректны, будет вызвано исключение.
+         */
+        protected boolean scan(byte[] data, int start, int end) {
+            while (pending > 0) {
+                int at = start + length;
+                if (at >= end) return false;
+                int format = data[at] & 0xFF;
+                int header;
+                int lengthBytes = 0;
+                long payload = 0;
+                long children = 0;
+                if (format < 0x80 || format >= 0xE0 || format == 0xC0 || format == 0xC2 || format == 0xC3) {
+                    header = 1;
+                } else if (format < 0x90) {
+                    header = 1;
+                    children = 2L * (format & 0x0F);
+                } else if (format < 0xA0) {
+                    header = 1;
+                    children = format & 0x0F;
+                } else if (format < 0xC0) {
+                    header = 1;
+                    payload = format & 0x1F;
+                } else {
+                    switch (format) {
+                        case 0xC4:
+                        case 0xC5:
+                        case 0xC6:
+                            lengthBytes = 1 << (format - 0xC4);
+                            header = 1 + lengthBytes;
+                            break;
+                        case 0xC7:
+                        case 0xC8:
+                        case 0xC9:
+                            lengthBytes = 1 << (format - 0xC7);
+                            header = 2 + lengthBytes;
+                            break;
+                        case 0xCA:
+                        case 0xCB:
+                            header = 1 + (4 << (format - 0xCA));
+                            break;
+                        case 0xCC:
+                        case 0xCD:
+                        case 0xCE:
+                        case 0xCF:
+                            header = 1 + (1 << (format - 0xCC));
+                            break;
+                        case 0xD0:
+                        case 0xD1:
+                        case 0xD2:
+                        case 0xD3:
+                            header = 1 + (1 << (format - 0xD0));
+                            break;
+                        case 0xD4:
+                        case 0xD5:
+                        case 0xD6:
+                        case 0xD7:
+                        case 0xD8:
+                            header = 2 + (1 << (format - 0xD4));
+                            break;
+                        case 0xD9:
+                        case 0xDA:
+                        case 0xDB:
+                            lengthBytes = 1 << (format - 0xD9);
+                            header = 1 + lengthBytes;
+                            break;
+                        case 0xDC:
+                        case 0xDD:
+                        case 0xDE:
+                        case 0xDF:
+                            lengthBytes = format == 0xDC || format == 0xDE ? 2 : 4;
+                            header = 1 + lengthBytes;
+                            break;
+                        default:
+                            throw error("invalid format byte 0xC1");
+                    }
+                }
+                if (end - at < header) return false;
+                if (lengthBytes != 0) {
+                    long value = 0;
+                    for (int index = 1; index <= lengthBytes; index++) value = value << 8 | (data[at + index] & 0xFF);
+                    if (format >= 0xDC) {
+                        children = format >= 0xDE ? value * 2 : value;
+                    } else {
+                        payload = value;
+                    }
+                }
+                long size = header + payload;
+                if (length + size > Integer.MAX_VALUE - 8) {
+                    throw error("object is too large");
+                }
+                if (end - at < size) return false;
+                length += (int) size;
+                pending += children - 1;
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package ru.vladislav117.variant;
+
+import org.jetbrains.annotations.Nullable;
+import ru.vladislav117.variant.error.VariantFormatError;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Arrays;
+
+/**
+ * Последовательное чтение объектов MessagePack, записанных подряд, из канала по мере поступления данных.
+ * Граница каждого объекта определяется просмотром его заголовков, при этом уже просмотренные элементы
+ * при поступлении новых данных повторно не просматриваются. Готовый объект копируется в собственный массив
+ * и разбирается {@link VariantMessagePackParser} без копирования строк.
+ * <p>
+ * Для неблокирующего канала {@link #read()} возвращает null, если полного объекта пока нет;
+ * конец данных определяется методом {@link #isFinished()}. Канал не закрывается.
+ * Поток можно прочитать через {@link java.nio.channels.Channels#newChannel(java.io.InputStream)}.
+ */
+public class VariantMessagePackReader {
+    /**
+     * Максимальный размер объекта по умолчанию.
+     */
+    public static final int DEFAULT_MAX_MESSAGE_SIZE = 64 << 20;
+    /**
+     * Начальный размер буфера.
+     */
+    protected static final int BUFFER_SIZE = 8192;
+
+    protected final ReadableByteChannel channel;
+    protected final int maxMessageSize;
+    protected final VariantMessagePackParser.Scanner scanner = new VariantMessagePackParser.Scanner();
+    protected byte[] buffer = new byte[BUFFER_SIZE];
+    protected int start = 0;
+    protected int end = 0;
+    protected long offset = 0;
+    protected boolean endOfStream = false;
+
+    /**
+     * Создание объекта чтения с максимальным размером объекта {@link #DEFAULT_MAX_MESSAGE_SIZE}.
+     *
+     * @param channel Канал
+     */
+    public VariantMessagePackReader(ReadableByteChannel channel) {
+        this(channel, DEFAULT_MAX_MESSAGE_SIZE);
+    }
+
+    /**
+     * Создание объекта чтения.
+     *
+     * @param channel        Канал
+     * @param maxMessageSize Максимальный размер объекта в байтах
+     */
+    public VariantMessagePackReader(ReadableByteChannel channel, int maxMessageSize) {
+        this.channel = channel;
+        this.maxMessageSize = maxMessageSize;
+    }
+
+    /**
+     * Чтение следующего объекта.
+     * Для блокирующего канала ожидает поступления объекта целиком.
+     *
+     * @return Объект или null, если полного объекта пока нет или данные закончились.
+     * @throws VariantFormatError   Если данные некорректны, объект больше максимального размера или данные оборвались посреди объекта, будет вызвано исключение.
+     * @throws UncheckedIOException Если при чтении канала произошла ошибка, будет вызвано исключение.
+     */
+    public @Nullable Variant read() {
+        try {
+            while (true) {
+                if (start < end && scanner.scan(buffer, start, end)) {
+                    int length = scanner.length;
+                    byte[] message = Arrays.copyOfRange(buffer, start, start + length);
+                    start += length;
+                    offset += length;
+                    scanner.reset(offset);
+                    return new VariantMessagePackParser(message, 0, length).readItem();
+                }
+                if (endOfStream) {
+                    if (start < end) throw error("unexpected end of data");
+                    return null;
+                }
+                if (!fill()) return null;
+            }
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    /**
+     * Проверка, прочитаны ли все объекты и достигнут ли конец канала.
+     *
+     * @return Закончились ли данные.
+     */
+    public boolean isFinished() {
+        return endOfStream && start == end;
+    }
+
+    /**
+     * Чтение следующей части данных из канала.
+     *
+     * @return Были ли прочитаны данные (false, если неблокирующий канал пока не содержит данных).
+     * @throws IOException Ошибка чтения.
+     */
+    protected boolean fill() throws IOException {
+        if (start > 0) {
+            System.arraycopy(buffer, start, buffer, 0, end - start);
+            end -= start;
+            start = 0;
+        }
+        if (end == buffer.length) {
+            if (end >= maxMessageSize) throw error("object is larger than " + maxMessageSize + " bytes");
+            buffer = Arrays.copyOf(buffer, (int) Math.min(maxMessageSize, buffer.length * 2L));
+        }
+        int read = channel.read(ByteBuffer.wrap(buffer, end, buffer.length - end));
+        if (read < 0) {
+            endOfStream = true;
+            return true;
+        }
+        end += read;
+        return read > 0;
+    }
+
+    /**
+     * Создание ошибки чтения в позиции текущего объекта.
+     *
+     * @param message Сообщение об ошибке
+     * @return Ошибка.
+     */
+    protected VariantFormatError error(String message) {
+        return new VariantFormatError("Invalid MessagePack at position " + (offset + scanner.length) + ": " + message);
+    }
+}
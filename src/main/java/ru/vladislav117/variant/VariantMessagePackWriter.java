@@ -0,0 +1,301 @@
+package ru.vladislav117.variant;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.Map;
+
+/**
+ * Потоковая запись Variant в MessagePack.
+ * Целые числа, длины строк, списков и таблиц записываются в кратчайшем виде,
+ * double — как float 32, если это не меняет значение, иначе как float 64.
+ * В MessagePack нет чисел произвольной точности, поэтому числа с точностью {@link VariantNumberPrecision#DECIMAL}
+ * записываются как целые, если помещаются в int 64 или uint 64, а остальные — как ближайший float 64.
+ */
+public class VariantMessagePackWriter extends VariantBinaryWriter {
+    /**
+     * Переиспользуемые объекты записи в массив.
+     */
+    protected static final ThreadLocal<VariantMessagePackWriter> ARRAY_WRITERS = ThreadLocal.withInitial(VariantMessagePackWriter::new);
+    /**
+     * Наибольшее значение uint 64.
+     */
+    protected static final BigInteger MAX_UINT64 = BigInteger.ONE.shiftLeft(Long.SIZE).subtract(BigInteger.ONE);
+
+    /**
+     * Создание объекта записи в массив: буфер растёт вместо передачи данных получателю.
+     */
+    protected VariantMessagePackWriter() {
+    }
+
+    /**
+     * Создание объекта записи в поток.
+     * Объекты, записанные подряд, читаются {@link VariantMessagePackParser} по одному.
+     *
+     * @param stream Поток
+     */
+    public VariantMessagePackWriter(OutputStream stream) {
+        super(stream);
+    }
+
+    /**
+     * Создание объекта записи в буфер.
+     * Если в буфере не хватит места, будет вызвано исключение {@link java.nio.BufferOverflowException}.
+     *
+     * @param buffer Буфер
+     */
+    public VariantMessagePackWriter(ByteBuffer buffer) {
+        super(buffer);
+    }
+
+    /**
+     * Преобразование объекта в MessagePack.
+     *
+     * @param variant Объект
+     * @return Массив байтов.
+     */
+    public static byte[] writeToByteArray(Variant variant) {
+        return ARRAY_WRITERS.get().writeToArray(variant);
+    }
+
+    /**
+     * Запись объекта в MessagePack в поток.
+     * Поток не закрывается.
+     *
+     * @param variant Объект
+     * @param stream  Поток
+     * @throws java.io.UncheckedIOException Если при записи произошла ошибка, будет вызвано исключение.
+     */
+    public static void write(Variant variant, OutputStream stream) {
+        VariantMessagePackWriter writer = new VariantMessagePackWriter(stream);
+        writer.write(variant);
+        writer.flush();
+    }
+
+    /**
+     * Запись объекта в MessagePack в буфер, начиная с его текущей позиции.
+     *
+     * @param variant Объект
+     * @param buffer  Буфер
+     * @throws java.nio.BufferOverflowException Если в буфере не хватает места, будет вызвано исключение.
+     */
+    public static void write(Variant variant, ByteBuffer buffer) {
+        VariantMessagePackWriter writer = new VariantMessagePackWriter(buffer);
+        writer.write(variant);
+        writer.flush();
+    }
+
+    @Override
+    protected void writeValue(Variant variant) throws IOException {
+        switch (variant.type) {
+            case BOOLEAN:
+                writeByte((Boolean) variant.object ? 0xC3 : 0xC2);
+                return;
+            case NUMBER:
+                if (variant.precision == VariantNumberPrecision.LONG) {
+                    writeLong(variant.longNumber);
+                } else if (variant.precision == VariantNumberPrecision.DOUBLE) {
+                    writeDouble(variant.doubleNumber);
+                } else {
+                    writeDecimal(VariantDecimal.toBigDecimal(variant.precision, variant.object, variant.longNumber, variant.doubleNumber));
+                }
+                return;
+            case STRING:
+                writeString((CharSequence) variant.object);
+                return;
+            case LIST:
+                writeList((VariantList) variant.object);
+                return;
+            case MAP:
+                writeMap((VariantMap) variant.object);
+                return;
+            default:
+                writeByte(0xC0);
+        }
+    }
+
+    /**
+     * Запись одного байта.
+     *
+     * @param value Байт
+     * @throws IOException Ошибка записи.
+     */
+    protected void writeByte(int value) throws IOException {
+        ensure(1);
+        bytes[position++] = (byte) value;
+    }
+
+    /**
+     * Запись байта формата и числа из нескольких байтов в порядке big-endian.
+     *
+     * @param format Байт формата
+     * @param value  Число
+     * @param count  Количество байтов числа
+     * @throws IOException Ошибка записи.
+     */
+    protected void writeFormat(int format, long value, int count) throws IOException {
+        ensure(9);
+        byte[] bytes = this.bytes;
+        bytes[position++] = (byte) format;
+        for (int shift = (count - 1) * 8; shift >= 0; shift -= 8) bytes[position++] = (byte) (value >> shift);
+    }
+
+    /**
+     * Запись целого числа в кратчайшем виде.
+     *
+     * @param value Число
+     * @throws IOException Ошибка записи.
+     */
+    protected void writeLong(long value) throws IOException {
+        if (value >= 0) {
+            if (value < 0x80) {
+                writeByte((int) value);
+            } else if (value < 0x100) {
+                writeFormat(0xCC, value, 1);
+            } else if (value < 0x10000) {
+                writeFormat(0xCD, value, 2);
+            } else if (value < 0x100000000L) {
+                writeFormat(0xCE, value, 4);
+            } else {
+                writeFormat(0xCF, value, 8);
+            }
+        } else if (value >= -32) {
+            writeByte((int) value & 0xFF);
+        } else if (value >= Byte.MIN_VALUE) {
+            writeFormat(0xD0, value, 1);
+        } else if (value >= Short.MIN_VALUE) {
+            writeFormat(0xD1, value, 2);
+        } else if (value >= Integer.MIN_VALUE) {
+            writeFormat(0xD2, value, 4);
+        } else {
+            writeFormat(0xD3, value, 8);
+        }
+    }
+
+    /**
+     * Запись числа с плавающей точкой: как float 32, если это не меняет значение, иначе как float 64.
+     *
+     * @param value Число
+     * @throws IOException Ошибка записи.
+     */
+    protected void writeDouble(double value) throws IOException {
+        float single = (float) value;
+        if (single == value || Double.isNaN(value)) {
+            writeFormat(0xCA, Float.floatToIntBits(single), 4);
+        } else {
+            writeFormat(0xCB, Double.doubleToRawLongBits(value), 8);
+        }
+    }
+
+    /**
+     * Запись числа произвольной точности: целое, помещающееся в int 64 или uint 64, — как целое, остальные — как float 64.
+     *
+     * @param value Число
+     * @throws IOException Ошибка записи.
+     */
+    protected void writeDecimal(BigDecimal value) throws IOException {
+        if (value.scale() <= 0 || value.stripTrailingZeros().scale() <= 0) {
+            BigInteger integer = value.toBigInteger();
+            if (integer.bitLength() < Long.SIZE) {
+                writeLong(integer.longValue());
+                return;
+            }
+            if (integer.signum() > 0 && integer.compareTo(MAX_UINT64) <= 0) {
+                writeFormat(0xCF, integer.longValue(), 8);
+                return;
+            }
+        }
+        writeFormat(0xCB, Double.doubleToRawLongBits(value.doubleValue()), 8);
+    }
+
+    /**
+     * Запись заголовка строки, списка или таблицы.
+     *
+     * @param fix    Байт формата fix (для длин, помещающихся в него) или -1
+     * @param limit  Наибольшая длина для формата fix
+     * @param format Байт формата с длиной в 1 байт или -1, затем следуют форматы с длиной в 2 и 4 байта
+     * @param length Длина
+     * @throws IOException Ошибка записи.
+     */
+    protected void writeHeader(int fix, int limit, int format, long length) throws IOException {
+        if (length > 0xFFFFFFFFL) throw new IOException("MessagePack length is too large: " + length);
+        if (length <= limit) {
+            writeByte(fix | (int) length);
+        } else if (format >= 0 && length < 0x100) {
+            writeFormat(format, length, 1);
+        } else if (length < 0x10000) {
+            writeFormat(format >= 0 ? format + 1 : fix == 0x90 ? 0xDC : 0xDE, length, 2);
+        } else {
+            writeFormat(format >= 0 ? format + 2 : fix == 0x90 ? 0xDD : 0xDF, length, 4);
+        }
+    }
+
+    /**
+     * Запись строки в UTF-8.
+     *
+     * @param value Строка
+     * @throws IOException Ошибка записи.
+     */
+    protected void writeString(CharSequence value) throws IOException {
+        if (value instanceof VariantUtf8String) {
+            VariantUtf8String utf8 = (VariantUtf8String) value;
+            writeHeader(0xA0, 31, 0xD9, utf8.length);
+            writeRaw(utf8.bytes, utf8.offset, utf8.length);
+            return;
+        }
+        String string = value.toString();
+        writeHeader(0xA0, 31, 0xD9, utf8Length(string));
+        writeUtf8(string);
+    }
+
+    /**
+     * Запись списка. Элементы примитивных способов хранения записываются без создания объектов.
+     *
+     * @param list Список
+     * @throws IOException Ошибка записи.
+     */
+    protected void writeList(VariantList list) throws IOException {
+        list.load();
+        int size = list.size;
+        writeHeader(0x90, 15, -1, size);
+        switch (list.storage) {
+            case LONG:
+                for (int index = 0; index < size; index++) writeLong(list.longs[index]);
+                return;
+            case DOUBLE:
+                for (int index = 0; index < size; index++) writeDouble(list.doubles[index]);
+                return;
+            case BOOLEAN:
+                for (int index = 0; index < size; index++) writeByte(list.booleans[index] ? 0xC3 : 0xC2);
+                return;
+            default:
+                for (int index = 0; index < size; index++) writeValue(list.elements[index]);
+        }
+    }
+
+    /**
+     * Запись таблицы.
+     *
+     * @param map Таблица
+     * @throws IOException Ошибка записи.
+     */
+    protected void writeMap(VariantMap map) throws IOException {
+        map.load();
+        if (map.hashMap != null) {
+            writeHeader(0x80, 15, -1, map.hashMap.size());
+            for (Map.Entry<String, Variant> entry : map.hashMap.entrySet()) {
+                writeString(entry.getKey());
+                writeValue(entry.getValue());
+            }
+            return;
+        }
+        int size = map.shape.size();
+        writeHeader(0x80, 15, -1, size);
+        for (int index = 0; index < size; index++) {
+            writeString(map.shape.keys[index]);
+            writeValue(map.values[index]);
+        }
+    }
+}
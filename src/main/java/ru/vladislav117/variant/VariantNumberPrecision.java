@@ -0,0 +1,45 @@
+package ru.vladislav117.variant;
+
+/**
+ * Точность хранения числа.
+ */
+public enum VariantNumberPrecision {
+    /**
+     * Целое число, хранится без потерь в long.
+     */
+    LONG("long"),
+    /**
+     * Число с плавающей точкой, хранится в double.
+     */
+    DOUBLE("double"),
+    /**
+     * Число, не представимое без потерь ни в long, ни в double.
+     * Хранится в исходной десятичной записи или в BigDecimal.
+     *
+     * @see VariantDecimal
+     */
+    DECIMAL("decimal");
+
+    /**
+     * Название точности.
+     */
+    final String name;
+
+    /**
+     * Создание точности.
+     *
+     * @param name Название точности
+     */
+    VariantNumberPrecision(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Получение название.
+     *
+     * @return Название.
+     */
+    public String getName() {
+        return name;
+    }
+}
@@ -0,0 +1,298 @@
+package ru.vladislav117.variant;
+
+import ru.vladislav117.variant.error.VariantJsonError;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Параллельный разбор json, корнем которого является большой список.
+ * Сначала {@link VariantJsonScanner} за один проход без создания объектов находит запятые верхнего уровня, которые делят список на части
+ * примерно одинакового размера. Части разбираются {@link VariantJsonParser} в пуле {@link ForkJoinPool},
+ * после чего их элементы по порядку собираются в один список.
+ * <p>
+ * Документы меньше {@link #PARALLEL_THRESHOLD} байтов, пул из одного потока, документы с другим корнем и документы, в которых проход
+ * не нашёл корректных границ, разбираются обычным {@link VariantJsonParser#parse(byte[], int, int)}.
+ * Ошибка в нескольких частях сообщается для первой из них, поэтому сообщение и позиция ошибки совпадают с последовательным разбором.
+ * Созданные объекты не принадлежат области выделения.
+ */
+public class VariantParallelJsonParser {
+    /**
+     * Размер документа в байтах, начиная с которого используется параллельный разбор.
+     */
+    public static final int PARALLEL_THRESHOLD = 1 << 20;
+    /**
+     * Минимальный размер части в байтах.
+     */
+    protected static final int MIN_CHUNK_SIZE = 1 << 16;
+    /**
+     * Количество частей на один поток пула: запас для выравнивания нагрузки между потоками.
+     */
+    protected static final int CHUNKS_PER_THREAD = 4;
+    /**
+     * Размер ленты позиций скобок и запятых.
+     */
+    protected static final int TAPE_SIZE = 1024;
+
+    protected final byte[] json;
+    protected final int offset;
+    protected final int limit;
+    protected int[] starts = new int[64];
+    protected int[] ends = new int[64];
+    protected int count = 0;
+    protected Variant[][] parts;
+    protected int[] sizes;
+    protected Throwable[] errors;
+    protected volatile int failedChunk = Integer.MAX_VALUE;
+
+    /**
+     * Создание парсера для части массива байтов.
+     *
+     * @param json   Json в кодировке UTF-8
+     * @param offset Начало json в массиве
+     * @param length Длина json
+     */
+    protected VariantParallelJsonParser(byte[] json, int offset, int length) {
+        this.json = json;
+        this.offset = offset;
+        this.limit = offset + length;
+    }
+
+    /**
+     * Параллельный разбор json-строки в общем пуле.
+     *
+     * @param json Json-строка
+     * @return Объект из json.
+     * @throws VariantJsonError Если json некорректен, будет вызвано исключение.
+     */
+    public static Variant parse(String json) {
+        return parse(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Параллельный разбор json из массива байтов в общем пуле.
+     *
+     * @param json Json в кодировке UTF-8
+     * @return Объект из json.
+     * @throws VariantJsonError Если json некорректен, будет вызвано исключение.
+     */
+    public static Variant parse(byte[] json) {
+        return parse(json, 0, json.length, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Параллельный разбор json из части массива байтов.
+     *
+     * @param json   Json в кодировке UTF-8
+     * @param offset Начало json в массиве
+     * @param length Длина json
+     * @param pool   Пул, в котором разбираются части списка
+     * @return Объект из json.
+     * @throws VariantJsonError Если json некорректен, будет вызвано исключение.
+     */
+    public static Variant parse(byte[] json, int offset, int length, ForkJoinPool pool) {
+        VariantParallelJsonParser parser = new VariantParallelJsonParser(json, offset, length);
+        int chunkSize = Math.max(MIN_CHUNK_SIZE, length / Math.max(1, pool.getParallelism() * CHUNKS_PER_THREAD));
+        if (length < PARALLEL_THRESHOLD || pool.getParallelism() < 2 || !parser.split(chunkSize)) return VariantJsonParser.parse(json, offset, length);
+        return parser.parseChunks(pool);
+    }
+
+    /**
+     * Поиск границ частей: каждая часть заканчивается запятой верхнего уровня, находящейся не ближе размера части от её начала,
+     * последняя часть заканчивается закрывающей скобкой списка.
+     *
+     * @param chunkSize Размер части в байтах
+     * @return Найдены ли границы (false, если корень не список или его структура некорректна).
+     */
+    protected boolean split(int chunkSize) {
+        byte[] json = this.json;
+        int limit = this.limit;
+        int position = skipWhitespace(offset);
+        if (position == limit || json[position] != '[') return false;
+        position++;
+        addChunk(position);
+        int boundary = position + chunkSize;
+        int depth = 1;
+        VariantJsonScanner scanner = new VariantJsonScanner(json, position, limit - position, true);
+        int[] tape = new int[TAPE_SIZE];
+        int found;
+        while ((found = scanner.next(tape)) > 0) {
+            for (int index = 0; index < found; index++) {
+                int at = tape[index];
+                switch (json[at]) {
+                    case '[':
+                    case '{':
+                        depth++;
+                        break;
+                    case '}':
+                        depth--;
+                        if (depth == 0) return false;
+                        break;
+                    case ']':
+                        depth--;
+                        if (depth == 0) {
+                            ends[count - 1] = at;
+                            return skipWhitespace(at + 1) == limit;
+                        }
+                        break;
+                    default:
+                        if (depth == 1 && at >= boundary) {
+                            ends[count - 1] = at;
+                            addChunk(at + 1);
+                            boundary = at + 1 + chunkSize;
+                        }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Пропуск пробельных символов.
+     *
+     * @param position Позиция начала пропуска
+     * @return Позиция первого непробельного символа или конец json.
+     */
+    protected int skipWhitespace(int position) {
+        while (position < limit) {
+            byte value = json[position];
+            if (value != ' ' && value != '\t' && value != '\n' && value != '\r') break;
+            position++;
+        }
+        return position;
+    }
+
+    /**
+     * Добавление части, начинающейся с указанной позиции.
+     *
+     * @param start Позиция начала части
+     */
+    protected void addChunk(int start) {
+        if (count == starts.length) {
+            starts = Arrays.copyOf(starts, count * 2);
+            ends = Arrays.copyOf(ends, count * 2);
+        }
+        starts[count++] = start;
+    }
+
+    /**
+     * Разбор частей в пуле и сборка их элементов в один список.
+     *
+     * @param pool Пул
+     * @return Список.
+     */
+    protected Variant parseChunks(ForkJoinPool pool) {
+        parts = new Variant[count][];
+        sizes = new int[count];
+        errors = new Throwable[count];
+        pool.invoke(new ChunkTask(0, count));
+        int total = 0;
+        for (int chunk = 0; chunk < count; chunk++) {
+            Throwable error = errors[chunk];
+            if (error instanceof RuntimeException) throw (RuntimeException) error;
+            if (error != null) throw (Error) error;
+            total += sizes[chunk];
+        }
+        VariantList list = new VariantList(total);
+        for (int chunk = 0; chunk < count; chunk++) {
+            Variant[] part = parts[chunk];
+            for (int index = 0; index < sizes[chunk]; index++) list.addOwned(part[index]);
+            parts[chunk] = null;
+        }
+        return Variant.adoptList(list);
+    }
+
+    /**
+     * Разбор элементов одной части.
+     * Разобранные объекты не принадлежат области выделения, даже если часть разбирается на потоке с открытой областью.
+     *
+     * @param chunk Номер части
+     */
+    protected void parseChunk(int chunk) {
+        if (chunk > failedChunk) return;
+        VariantArena arena = VariantArena.suspend();
+        try {
+            int start = starts[chunk];
+            int end = ends[chunk];
+            VariantJsonParser parser = new VariantJsonParser(json, start, end - start);
+            parser.bufferOffset = -offset;
+            parser.depth = 1;
+            Variant[] part = new Variant[64];
+            int size = 0;
+            int next = parser.readSkippingWhitespace();
+            if (next != -1 || count > 1) {
+                while (true) {
+                    if (next == -1) throw unexpectedEnd(end);
+                    if (size == part.length) part = Arrays.copyOf(part, size * 2);
+                    part[size++] = parser.readValue(next);
+                    next = parser.readSkippingWhitespace();
+                    if (next == -1) break;
+                    if (next != ',') throw parser.error("expected ',' or ']'");
+                    next = parser.readSkippingWhitespace();
+                }
+            }
+            parts[chunk] = part;
+            sizes[chunk] = size;
+        } catch (IOException exception) {
+            fail(chunk, new UncheckedIOException(exception));
+        } catch (RuntimeException | Error exception) {
+            fail(chunk, exception);
+        } finally {
+            VariantArena.resume(arena);
+        }
+    }
+
+    /**
+     * Создание ошибки для значения, которого нет перед границей части: на границе стоит запятая или закрывающая скобка.
+     *
+     * @param end Позиция границы части
+     * @return Ошибка.
+     */
+    protected VariantJsonError unexpectedEnd(int end) {
+        return new VariantJsonError("unexpected character '" + (char) json[end] + "'", end + 1 - offset);
+    }
+
+    /**
+     * Сохранение ошибки части; следующие за ней части больше не разбираются.
+     *
+     * @param chunk Номер части
+     * @param error Ошибка
+     */
+    protected synchronized void fail(int chunk, Throwable error) {
+        errors[chunk] = error;
+        if (chunk < failedChunk) failedChunk = chunk;
+    }
+
+    /**
+     * Задача разбора диапазона частей, делящая его пополам.
+     */
+    protected class ChunkTask extends RecursiveAction {
+        protected final int from;
+        protected final int to;
+
+        /**
+         * Создание задачи.
+         *
+         * @param from Номер первой части
+         * @param to   Номер части после последней
+         */
+        protected ChunkTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                parseChunk(from);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new ChunkTask(from, middle), new ChunkTask(middle, to));
+        }
+    }
+}
@@ -0,0 +1,522 @@
+package ru.vladislav117.variant;
+
+import ru.vladislav117.variant.error.VariantJsonError;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Последовательное чтение json (UTF-8) по элементам без создания дерева Variant.
+ * Каждый вызов {@link #next()} читает следующий элемент: начало или конец таблицы или списка, строку, число,
+ * логическое значение или null. Имена и строки декодируются в переиспользуемые буферы символов, а числа разбираются
+ * только при обращении к ним, поэтому проверки через {@link #nameEquals(CharSequence)}, {@link #stringEquals(CharSequence)},
+ * {@link #getLong()} и {@link #skipChildren()} не создают объектов.
+ * Текущее значение вместе со всеми вложенными можно прочитать целиком методом {@link #readVariant()}.
+ * <p>
+ * Поток или канал не закрывается.
+ */
+public class VariantReader {
+    protected final VariantJsonParser parser;
+    protected VariantToken token = null;
+    protected boolean[] maps = new boolean[16];
+    protected int depth = 0;
+    protected boolean empty = false;
+    protected char[] name = new char[32];
+    protected int nameLength = -1;
+    protected char[] text = new char[64];
+    protected int textLength = 0;
+    protected int decodedLength = 0;
+    protected boolean booleanValue = false;
+    protected String string = null;
+
+    /**
+     * Создание объекта чтения json-строки.
+     *
+     * @param json Json-строка
+     */
+    public VariantReader(String json) {
+        this(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Создание объекта чтения json из массива байтов.
+     *
+     * @param json Json в кодировке UTF-8
+     */
+    public VariantReader(byte[] json) {
+        this(json, 0, json.length);
+    }
+
+    /**
+     * Создание объекта чтения json из части массива байтов.
+     *
+     * @param json   Json в кодировке UTF-8
+     * @param offset Начало json в массиве
+     * @param length Длина json
+     */
+    public VariantReader(byte[] json, int offset, int length) {
+        parser = new VariantJsonParser(json, offset, length);
+    }
+
+    /**
+     * Создание объекта чтения json из потока.
+     *
+     * @param stream Поток с json в кодировке UTF-8
+     */
+    public VariantReader(InputStream stream) {
+        parser = new VariantJsonParser(stream);
+    }
+
+    /**
+     * Создание объекта чтения json из канала.
+     *
+     * @param channel Канал с json в кодировке UTF-8
+     */
+    public VariantReader(ReadableByteChannel channel) {
+        parser = new VariantJsonParser(channel);
+    }
+
+    /**
+     * Чтение следующего элемента.
+     * После конца документа проверяется, что за ним нет ничего, кроме пробельных символов, и дальше возвращается {@link VariantToken#END_DOCUMENT}.
+     *
+     * @return Вид прочитанного элемента.
+     * @throws VariantJsonError     Если json некорректен, будет вызвано исключение.
+     * @throws UncheckedIOException Если при чтении произошла ошибка, будет вызвано исключение.
+     */
+    public VariantToken next() {
+        string = null;
+        nameLength = -1;
+        try {
+            if (token == VariantToken.END_DOCUMENT) return token;
+            if (depth == 0) {
+                if (token == null) return readToken(parser.readSkippingWhitespace());
+                if (parser.readSkippingWhitespace() != -1) throw parser.error("unexpected data after json value");
+                return token = VariantToken.END_DOCUMENT;
+            }
+            boolean map = maps[depth - 1];
+            int next = parser.readSkippingWhitespace();
+            if (next == (map ? '}' : ']')) {
+                endContainer();
+                return token;
+            }
+            if (!empty) {
+                if (next != ',') throw parser.error(map ? "expected ',' or '}'" : "expected ',' or ']'");
+                next = parser.readSkippingWhitespace();
+            }
+            empty = false;
+            if (map) {
+                if (next != '"') throw parser.error("expected name");
+                name = readChars(name);
+                nameLength = decodedLength;
+                if (parser.readSkippingWhitespace() != ':') throw parser.error("expected ':'");
+                next = parser.readSkippingWhitespace();
+            }
+            return readToken(next);
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    /**
+     * Получение вида текущего элемента.
+     *
+     * @return Вид элемента или null, если чтение ещё не начато.
+     */
+    public VariantToken getToken() {
+        return token;
+    }
+
+    /**
+     * Получение типа текущего значения.
+     *
+     * @return Тип значения или null, если текущий элемент - конец таблицы, списка или документа.
+     */
+    public VariantType getType() {
+        return token == null ? null : token.getType();
+    }
+
+    /**
+     * Получение глубины вложенности: количества таблиц и списков, внутри которых находится текущий элемент.
+     * Для начала таблицы или списка учитываются и они сами.
+     *
+     * @return Глубина вложенности.
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Получение имени текущего значения в таблице.
+     *
+     * @return Имя или null, если значение не находится в таблице.
+     */
+    public String getName() {
+        return nameLength < 0 ? null : new String(name, 0, nameLength);
+    }
+
+    /**
+     * Проверка имени текущего значения в таблице без создания строки.
+     *
+     * @param expected Ожидаемое имя
+     * @return Совпадает ли имя.
+     */
+    public boolean nameEquals(CharSequence expected) {
+        return nameLength >= 0 && equals(name, nameLength, expected);
+    }
+
+    /**
+     * Получение текущей строки.
+     *
+     * @return Строка.
+     * @throws IllegalStateException Если текущий элемент не строка, будет вызвано исключение.
+     */
+    public String getString() {
+        requireToken(VariantToken.STRING);
+        if (string == null) string = new String(text, 0, textLength);
+        return string;
+    }
+
+    /**
+     * Проверка текущей строки без создания строки.
+     *
+     * @param expected Ожидаемая строка
+     * @return Является ли текущий элемент строкой, равной ожидаемой.
+     */
+    public boolean stringEquals(CharSequence expected) {
+        return token == VariantToken.STRING && equals(text, textLength, expected);
+    }
+
+    /**
+     * Получение текущего числа как long.
+     * Целые числа до 18 цифр разбираются без создания объектов.
+     *
+     * @return Число.
+     * @throws IllegalStateException                           Если текущий элемент не число, будет вызвано исключение.
+     * @throws ru.vladislav117.variant.error.VariantValueError Если число не может быть преобразовано к long.
+     */
+    public long getLong() {
+        requireToken(VariantToken.NUMBER);
+        if (isShortInteger()) return parseShortInteger();
+        return parser.parseNumber(text, textLength).asLong();
+    }
+
+    /**
+     * Получение текущего числа как double.
+     * Целые числа до 18 цифр разбираются без создания объектов.
+     *
+     * @return Число.
+     * @throws IllegalStateException Если текущий элемент не число, будет вызвано исключение.
+     */
+    public double getDouble() {
+        requireToken(VariantToken.NUMBER);
+        if (isShortInteger()) return parseShortInteger();
+        return parser.parseNumber(text, textLength).asDouble();
+    }
+
+    /**
+     * Получение текущего логического значения.
+     *
+     * @return Логическое значение.
+     * @throws IllegalStateException Если текущий элемент не логическое значение, будет вызвано исключение.
+     */
+    public boolean getBoolean() {
+        requireToken(VariantToken.BOOLEAN);
+        return booleanValue;
+    }
+
+    /**
+     * Пропуск содержимого текущей таблицы или списка: текущим элементом становится их конец.
+     * Для остальных элементов ничего не делает.
+     * Пропущенное содержимое проверяется только на парность скобок и кавычек.
+     *
+     * @throws VariantJsonError     Если скобки или кавычки не парные, будет вызвано исключение.
+     * @throws UncheckedIOException Если при чтении произошла ошибка, будет вызвано исключение.
+     */
+    public void skipChildren() {
+        if (token != VariantToken.START_MAP && token != VariantToken.START_LIST) return;
+        try {
+            int level = 1;
+            while (level > 0) {
+                int value = parser.read();
+                switch (value) {
+                    case -1:
+                        throw parser.error("unexpected end of json");
+                    case '"':
+                        skipString();
+                        break;
+                    case '{':
+                    case '[':
+                        level++;
+                        break;
+                    case '}':
+                    case ']':
+                        level--;
+                        break;
+                    default:
+                }
+                if (level == 0 && value != (token == VariantToken.START_MAP ? '}' : ']')) {
+                    throw parser.error("unexpected character '" + (char) value + "'");
+                }
+            }
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+        endContainer();
+    }
+
+    /**
+     * Чтение текущего значения вместе со всеми вложенными в отдельный объект.
+     * Для начала таблицы или списка текущим элементом становится их конец.
+     *
+     * @return Объект.
+     * @throws IllegalStateException Если текущий элемент не начало значения, будет вызвано исключение.
+     * @throws VariantJsonError      Если json некорректен, будет вызвано исключение.
+     * @throws UncheckedIOException  Если при чтении произошла ошибка, будет вызвано исключение.
+     */
+    public Variant readVariant() {
+        if (getType() == null) throw new IllegalStateException("Current token is not a value: " + token);
+        try {
+            switch (token) {
+                case START_MAP: {
+                    Variant map = parser.readMap();
+                    endContainer();
+                    return map;
+                }
+                case START_LIST: {
+                    Variant list = parser.readList();
+                    endContainer();
+                    return list;
+                }
+                case STRING:
+                    return CanonicalVariant.detach(parser.newString(getString()));
+                case NUMBER:
+                    return CanonicalVariant.detach(parser.parseNumber(text, textLength));
+                case BOOLEAN:
+                    return CanonicalVariant.detach(CanonicalVariant.ofBoolean(booleanValue));
+                default:
+                    return CanonicalVariant.detach(CanonicalVariant.ofNull());
+            }
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    /**
+     * Чтение элемента, начинающегося с указанного байта.
+     *
+     * @param first Первый байт элемента
+     * @return Вид элемента.
+     * @throws IOException Ошибка чтения.
+     */
+    protected VariantToken readToken(int first) throws IOException {
+        switch (first) {
+            case '{':
+                push(true);
+                return token = VariantToken.START_MAP;
+            case '[':
+                push(false);
+                return token = VariantToken.START_LIST;
+            case '"':
+                text = readChars(text);
+                textLength = decodedLength;
+                return token = VariantToken.STRING;
+            case 't':
+                parser.readLiteral("rue");
+                booleanValue = true;
+                return token = VariantToken.BOOLEAN;
+            case 'f':
+                parser.readLiteral("alse");
+                booleanValue = false;
+                return token = VariantToken.BOOLEAN;
+            case 'n':
+                parser.readLiteral("ull");
+                return token = VariantToken.NULL;
+            case '-':
+            case '0':
+            case '1':
+            case '2':
+            case '3':
+            case '4':
+            case '5':
+            case '6':
+            case '7':
+            case '8':
+            case '9':
+                readNumber(first);
+                return token = VariantToken.NUMBER;
+            case -1:
+                throw parser.error("unexpected end of json");
+            default:
+                throw parser.error("unexpected character '" + (char) first + "'");
+        }
+    }
+
+    /**
+     * Вход в таблицу или список.
+     *
+     * @param map Является ли значение таблицей
+     */
+    protected void push(boolean map) {
+        if (depth == maps.length) maps = Arrays.copyOf(maps, depth * 2);
+        maps[depth++] = map;
+        empty = true;
+    }
+
+    /**
+     * Выход из таблицы или списка: текущим элементом становится их конец.
+     */
+    protected void endContainer() {
+        depth--;
+        token = maps[depth] ? VariantToken.END_MAP : VariantToken.END_LIST;
+        empty = false;
+    }
+
+    /**
+     * Проверка вида текущего элемента.
+     *
+     * @param expected Ожидаемый вид элемента
+     */
+    protected void requireToken(VariantToken expected) {
+        if (token != expected) throw new IllegalStateException("Current token is " + token + ", not " + expected);
+    }
+
+    /**
+     * Декодирование строки в массив символов (открывающая кавычка уже прочитана).
+     * Длина строки сохраняется в {@link #decodedLength}.
+     *
+     * @param target Массив символов
+     * @return Массив символов со строкой (увеличенный, если строка в него не поместилась).
+     * @throws IOException Ошибка чтения.
+     */
+    protected char[] readChars(char[] target) throws IOException {
+        int length = 0;
+        while (true) {
+            int value = parser.read();
+            if (value == '"') break;
+            if (length + 2 > target.length) target = Arrays.copyOf(target, target.length * 2);
+            if (value == '\\') {
+                target[length++] = parser.readEscape();
+            } else if (value < 0x20) {
+                throw parser.error(value == -1 ? "unterminated string" : "control character in string");
+            } else if (value < 0x80) {
+                target[length++] = (char) value;
+            } else {
+                int codePoint = parser.readUtf8(value);
+                if (codePoint >= 0x10000) {
+                    target[length++] = Character.highSurrogate(codePoint);
+                    target[length++] = Character.lowSurrogate(codePoint);
+                } else {
+                    target[length++] = (char) codePoint;
+                }
+            }
+        }
+        decodedLength = length;
+        return target;
+    }
+
+    /**
+     * Пропуск строки (открывающая кавычка уже прочитана).
+     *
+     * @throws IOException Ошибка чтения.
+     */
+    protected void skipString() throws IOException {
+        while (true) {
+            int value = parser.read();
+            if (value == '"') return;
+            if (value == '\\') value = parser.read();
+            if (value == -1) throw parser.error("unterminated string");
+        }
+    }
+
+    /**
+     * Чтение символов числа в массив {@link #text} с проверкой записи числа.
+     *
+     * @param first Первый байт числа
+     * @throws IOException Ошибка чтения.
+     */
+    protected void readNumber(int first) throws IOException {
+        char[] text = this.text;
+        int length = 0;
+        text[length++] = (char) first;
+        while (true) {
+            int value = parser.peek();
+            if ((value < '0' || value > '9') && value != '.' && value != 'e' && value != 'E' && value != '+' && value != '-') break;
+            if (length == text.length) text = Arrays.copyOf(text, text.length * 2);
+            text[length++] = (char) value;
+            parser.position++;
+        }
+        this.text = text;
+        textLength = length;
+        int index = text[0] == '-' ? 1 : 0;
+        int integerStart = index;
+        index = skipDigits(index);
+        if (index == integerStart || (index - integerStart > 1 && text[integerStart] == '0')) throw parser.error("invalid number");
+        if (index < length && text[index] == '.') {
+            int fractionStart = ++index;
+            index = skipDigits(index);
+            if (index == fractionStart) throw parser.error("invalid number");
+        }
+        if (index < length && (text[index] == 'e' || text[index] == 'E')) {
+            index++;
+            if (index < length && (text[index] == '+' || text[index] == '-')) index++;
+            int exponentStart = index;
+            index = skipDigits(index);
+            if (index == exponentStart) throw parser.error("invalid number");
+        }
+        if (index != length) throw parser.error("invalid number");
+    }
+
+    /**
+     * Пропуск цифр в записи текущего числа.
+     *
+     * @param index Позиция начала пропуска
+     * @return Позиция первого символа, не являющегося цифрой.
+     */
+    protected int skipDigits(int index) {
+        while (index < textLength && text[index] >= '0' && text[index] <= '9') index++;
+        return index;
+    }
+
+    /**
+     * Проверка, является ли текущее число целым не длиннее 18 цифр.
+     *
+     * @return Является ли число коротким целым.
+     */
+    protected boolean isShortInteger() {
+        int start = text[0] == '-' ? 1 : 0;
+        return textLength - start <= 18 && skipDigits(start) == textLength;
+    }
+
+    /**
+     * Разбор текущего числа, являющегося коротким целым.
+     *
+     * @return Число.
+     */
+    protected long parseShortInteger() {
+        boolean negative = text[0] == '-';
+        long value = 0;
+        for (int index = negative ? 1 : 0; index < textLength; index++) value = value * 10 + (text[index] - '0');
+        return negative ? -value : value;
+    }
+
+    /**
+     * Сравнение символов с ожидаемой строкой.
+     *
+     * @param chars    Символы
+     * @param length   Количество символов
+     * @param expected Ожидаемая строка
+     * @return Равны ли строки.
+     */
+    protected static boolean equals(char[] chars, int length, CharSequence expected) {
+        if (expected.length() != length) return false;
+        for (int index = 0; index < length; index++) {
+            if (chars[index] != expected.charAt(index)) return false;
+        }
+        return true;
+    }
+}
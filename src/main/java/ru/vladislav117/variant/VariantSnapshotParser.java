@@ -0,0 +1,336 @@
+package ru.vladislav117.variant;
+
+import ru.vladislav117.variant.error.VariantFormatError;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Чтение снимка, записанного {@link VariantSnapshotWriter}.
+ * Имена словаря декодируются один раз, поэтому таблицы снимка разделяют одни и те же строки имён,
+ * а списки и таблицы создаются сразу с нужной вместимостью.
+ * Глубина вложенности списков и таблиц ограничена {@link #MAX_DEPTH}, чтобы чтение не переполняло стек.
+ */
+public class VariantSnapshotParser {
+    /**
+     * Максимальная глубина вложенности (системное свойство {@code ru.vladislav117.variant.snapshot.maxDepth}, по умолчанию 512).
+     */
+    public static final int MAX_DEPTH = Integer.getInteger("ru.vladislav117.variant.snapshot.maxDepth", 512);
+
+    protected final byte[] buffer;
+    protected int position;
+    protected final int limit;
+    protected final int start;
+    protected String[] keys;
+    protected int depth = 0;
+
+    /**
+     * Создание парсера для части массива байтов.
+     *
+     * @param buffer Массив байтов
+     * @param offset Начало данных в массиве
+     * @param length Длина данных
+     */
+    protected VariantSnapshotParser(byte[] buffer, int offset, int length) {
+        this.buffer = buffer;
+        position = offset;
+        limit = offset + length;
+        start = offset;
+    }
+
+    /**
+     * Чтение снимка из массива байтов.
+     *
+     * @param snapshot Массив байтов
+     * @return Объект.
+     * @throws VariantFormatError Если данные некорректны, будет вызвано исключение.
+     */
+    public static Variant parse(byte[] snapshot) {
+        return parse(snapshot, 0, snapshot.length);
+    }
+
+    /**
+     * Чтение снимка из части массива байтов.
+     *
+     * @param snapshot Массив байтов
+     * @param offset   Начало данных в массиве
+     * @param length   Длина данных
+     * @return Объект.
+     * @throws VariantFormatError Если данные некорректны, будет вызвано исключение.
+     */
+    public static Variant parse(byte[] snapshot, int offset, int length) {
+        return new VariantSnapshotParser(snapshot, offset, length).readSnapshot();
+    }
+
+    /**
+     * Чтение снимка из потока.
+     * Поток читается до конца, но не закрывается.
+     *
+     * @param stream Поток
+     * @return Объект.
+     * @throws VariantFormatError   Если данные некорректны, будет вызвано исключение.
+     * @throws UncheckedIOException Если при чтении потока произошла ошибка, будет вызвано исключение.
+     */
+    public static Variant parse(InputStream stream) {
+        try {
+            return parse(stream.readAllBytes());
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    /**
+     * Создание ошибки чтения в текущей позиции.
+     *
+     * @param message Сообщение об ошибке
+     * @return Ошибка.
+     */
+    protected VariantFormatError error(String message) {
+        return new VariantFormatError("Invalid variant snapshot at position " + (position - start) + ": " + message);
+    }
+
+    /**
+     * Чтение заголовка, словаря и корневого значения.
+     *
+     * @return Объект.
+     */
+    protected Variant readSnapshot() {
+        if (limit - position < 5 || (int) readFixed(4) != VariantSnapshotWriter.MAGIC) {
+            throw new VariantFormatError("Data does not contain a variant snapshot");
+        }
+        int version = buffer[position++];
+        if (version != VariantSnapshotWriter.VERSION) throw new VariantFormatError("Unsupported variant snapshot version " + version);
+        int count = readCount();
+        keys = new String[count];
+        for (int index = 0; index < count; index++) {
+            int length = readCount();
+            keys[index] = decode(length);
+        }
+        Variant value = CanonicalVariant.detach(readNode());
+        if (position != limit) throw error("unexpected data after snapshot");
+        return value;
+    }
+
+    /**
+     * Проверка, что в данных осталось указанное количество байтов.
+     *
+     * @param count Количество байтов
+     */
+    protected void require(long count) {
+        if (limit - position < count) throw error("unexpected end of data");
+    }
+
+    /**
+     * Чтение беззнакового числа в формате varint.
+     *
+     * @return Число.
+     */
+    protected long readVarint() {
+        byte[] buffer = this.buffer;
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            require(1);
+            int next = buffer[position++];
+            value |= (long) (next & 0x7F) << shift;
+            if (next >= 0) return value;
+        }
+        throw error("varint is too long");
+    }
+
+    /**
+     * Чтение количества или длины, которые не могут превышать размер оставшихся данных.
+     *
+     * @return Количество.
+     */
+    protected int readCount() {
+        long count = readVarint();
+        if (count < 0 || count > limit - position) throw error("invalid length " + Long.toUnsignedString(count));
+        return (int) count;
+    }
+
+    /**
+     * Zigzag-декодирование.
+     *
+     * @param value Закодированное число
+     * @return Число.
+     */
+    protected static long unzigzag(long value) {
+        return value >>> 1 ^ -(value & 1);
+    }
+
+    /**
+     * Чтение числа фиксированной длины в порядке little-endian.
+     *
+     * @param count Количество байтов
+     * @return Число.
+     */
+    protected long readFixed(int count) {
+        require(count);
+        byte[] buffer = this.buffer;
+        long value = 0;
+        for (int index = 0; index < count; index++) value |= (long) (buffer[position++] & 0xFF) << (index * 8);
+        return value;
+    }
+
+    /**
+     * Декодирование строки UTF-8 указанной длины.
+     *
+     * @param length Длина в байтах
+     * @return Строка.
+     */
+    protected String decode(int length) {
+        int from = position;
+        position += length;
+        for (int index = from; index < position; index++) {
+            if (buffer[index] < 0) return new String(buffer, from, length, StandardCharsets.UTF_8);
+        }
+        return new String(buffer, from, length, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Чтение значения.
+     * Листовое значение может быть общим экземпляром {@link CanonicalVariant}.
+     *
+     * @return Объект.
+     */
+    protected Variant readNode() {
+        require(1);
+        int tag = buffer[position++] & 0xFF;
+        switch (tag) {
+            case VariantSnapshotWriter.NULL:
+                return CanonicalVariant.ofNull();
+            case VariantSnapshotWriter.FALSE:
+                return CanonicalVariant.ofBoolean(false);
+            case VariantSnapshotWriter.TRUE:
+                return CanonicalVariant.ofBoolean(true);
+            case VariantSnapshotWriter.LONG:
+                return newLong(unzigzag(readVarint()));
+            case VariantSnapshotWriter.DOUBLE:
+                return VariantArena.allocate().setDoubleNumber(Double.longBitsToDouble(readFixed(8)));
+            case VariantSnapshotWriter.DECIMAL: {
+                int from = position;
+                String literal = decode(readCount());
+                if (VariantDecimal.canonicalForm(literal) == null) {
+                    position = from;
+                    throw error("invalid decimal");
+                }
+                return VariantDecimal.setLiteral(VariantArena.allocate(), literal);
+            }
+            case VariantSnapshotWriter.STRING:
+                return newString(readString());
+            case VariantSnapshotWriter.LIST:
+            case VariantSnapshotWriter.LONG_LIST:
+            case VariantSnapshotWriter.DOUBLE_LIST:
+            case VariantSnapshotWriter.BOOLEAN_LIST:
+                return readList(tag);
+            case VariantSnapshotWriter.MAP:
+                return readMap();
+            default:
+                position--;
+                throw error("invalid tag 0x" + Integer.toHexString(tag));
+        }
+    }
+
+    /**
+     * Чтение строки: строка из ASCII декодируется сразу, остальные хранятся в UTF-8 как {@link VariantUtf8String}.
+     *
+     * @return Строка.
+     */
+    protected CharSequence readString() {
+        int length = readCount();
+        int from = position;
+        boolean ascii = true;
+        for (int index = from; index < from + length; index++) {
+            if (buffer[index] < 0) {
+                ascii = false;
+                break;
+            }
+        }
+        if (ascii) return decode(length);
+        position += length;
+        int check = VariantUtf8String.check(buffer, from, from + length);
+        if (check == VariantUtf8String.INVALID) return VariantUtf8String.of(buffer, from, length);
+        return new VariantUtf8String(Arrays.copyOfRange(buffer, from, from + length), 0, length, check == VariantUtf8String.PLAIN);
+    }
+
+    /**
+     * Чтение списка вместимостью, равной количеству элементов.
+     *
+     * @param tag Метка списка
+     * @return Список.
+     */
+    protected Variant readList(int tag) {
+        long count = readVarint();
+        if (count < 0 || count > (tag == VariantSnapshotWriter.BOOLEAN_LIST ? 8L : 1L) * (limit - position)) {
+            throw error("invalid length " + Long.toUnsignedString(count));
+        }
+        int size = (int) count;
+        VariantList list = new VariantList(size);
+        switch (tag) {
+            case VariantSnapshotWriter.LONG_LIST:
+                for (int index = 0; index < size; index++) list.addLong(unzigzag(readVarint()));
+                break;
+            case VariantSnapshotWriter.DOUBLE_LIST:
+                require(size * 8L);
+                for (int index = 0; index < size; index++) list.addDouble(Double.longBitsToDouble(readFixed(8)));
+                break;
+            case VariantSnapshotWriter.BOOLEAN_LIST:
+                require((size + 7) / 8);
+                for (int index = 0; index < size; index++) list.addBoolean((buffer[position + index / 8] & 1 << (index % 8)) != 0);
+                position += (size + 7) / 8;
+                break;
+            default:
+                if (++depth > MAX_DEPTH) throw error("nesting is too deep");
+                for (int index = 0; index < size; index++) list.addOwned(readNode());
+                depth--;
+        }
+        return Variant.adoptList(list);
+    }
+
+    /**
+     * Чтение таблицы вместимостью, равной количеству элементов.
+     *
+     * @return Таблица.
+     */
+    protected Variant readMap() {
+        int size = readCount();
+        VariantMap map = new VariantMap(size);
+        String[] keys = this.keys;
+        if (++depth > MAX_DEPTH) throw error("nesting is too deep");
+        for (int index = 0; index < size; index++) {
+            long key = readVarint();
+            if (key < 0 || key >= keys.length) throw error("invalid key index " + Long.toUnsignedString(key));
+            map.put(keys[(int) key], readNode());
+        }
+        depth--;
+        return Variant.adoptMap(map);
+    }
+
+    /**
+     * Создание объекта с целым числом: общий экземпляр, если он есть, иначе объект из области выделения.
+     *
+     * @param value Число
+     * @return Числовой объект.
+     */
+    protected Variant newLong(long value) {
+        if (value >= CanonicalVariant.LOW && value <= CanonicalVariant.HIGH) return CanonicalVariant.ofLong(value);
+        return VariantArena.allocate().setLongNumber(value);
+    }
+
+    /**
+     * Создание строкового объекта.
+     *
+     * @param value Строка (String или {@link VariantUtf8String})
+     * @return Строковый объект.
+     */
+    protected Variant newString(CharSequence value) {
+        if (value.length() == 0) return CanonicalVariant.ofEmptyString();
+        Variant variant = VariantArena.allocate();
+        variant.type = VariantType.STRING;
+        variant.object = value;
+        return variant;
+    }
+}
@@ -0,0 +1,359 @@
+package ru.vladislav117.variant;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Запись Variant в компактный двоичный снимок.
+ * <p>
+ * Снимок начинается с заголовка: магического числа {@link #MAGIC}, версии {@link #VERSION} и словаря всех различных имён таблиц
+ * (количество, затем длина и байты UTF-8 каждого имени). За ним следует корневое значение. Значение начинается с байта-метки,
+ * старшие четыре бита которой равны порядковому номеру {@link VariantType}, а младшие уточняют вид значения:
+ * <ul>
+ *     <li>целое число записывается как varint в zigzag-кодировании, double — восемью байтами,
+ *     число произвольной точности — своей десятичной записью, как строка, поэтому запись сохраняется без изменений;</li>
+ *     <li>строка — длиной (varint) и байтами UTF-8;</li>
+ *     <li>список — количеством элементов (varint) и элементами; списки целых чисел, double и логических значений
+ *     записываются без меток элементов;</li>
+ *     <li>таблица — количеством элементов (varint) и парами из индекса имени в словаре (varint) и значения.</li>
+ * </ul>
+ * Числа фиксированной длины записываются в порядке little-endian.
+ *
+ * @see VariantSnapshotParser
+ */
+public class VariantSnapshotWriter extends VariantBinaryWriter {
+    /**
+     * Магическое число в начале снимка ("VSNP").
+     */
+    public static final int MAGIC = 0x504E5356;
+    /**
+     * Версия формата.
+     */
+    public static final int VERSION = 1;
+    /**
+     * Переиспользуемые объекты записи в массив.
+     */
+    protected static final ThreadLocal<VariantSnapshotWriter> ARRAY_WRITERS = ThreadLocal.withInitial(VariantSnapshotWriter::new);
+    /**
+     * Количество имён, начиная с которого словарь не сохраняется для повторного использования.
+     */
+    protected static final int RETAINED_DICTIONARY_SIZE = 1 << 12;
+
+    protected static final int NULL = 0x00;
+    protected static final int FALSE = 0x10;
+    protected static final int TRUE = 0x11;
+    protected static final int LONG = 0x20;
+    protected static final int DOUBLE = 0x21;
+    protected static final int DECIMAL = 0x22;
+    protected static final int STRING = 0x30;
+    protected static final int LIST = 0x40;
+    protected static final int LONG_LIST = 0x41;
+    protected static final int DOUBLE_LIST = 0x42;
+    protected static final int BOOLEAN_LIST = 0x43;
+    protected static final int MAP = 0x50;
+
+    protected HashMap<String, Integer> dictionary = new HashMap<>();
+    protected ArrayList<String> keys = new ArrayList<>();
+    /**
+     * Индексы имён для раскладок компактных таблиц: таблицы одной раскладки не ищут имена в словаре повторно.
+     */
+    protected IdentityHashMap<VariantMapShape, int[]> shapeIndices = new IdentityHashMap<>();
+
+    /**
+     * Создание объекта записи в массив: буфер растёт вместо передачи данных получателю.
+     */
+    protected VariantSnapshotWriter() {
+    }
+
+    /**
+     * Создание объекта записи в поток.
+     *
+     * @param stream Поток
+     */
+    public VariantSnapshotWriter(OutputStream stream) {
+        super(stream);
+    }
+
+    /**
+     * Преобразование объекта в снимок.
+     *
+     * @param variant Объект
+     * @return Массив байтов.
+     */
+    public static byte[] writeToByteArray(Variant variant) {
+        return ARRAY_WRITERS.get().writeToArray(variant);
+    }
+
+    /**
+     * Запись снимка объекта в поток.
+     * Поток не закрывается.
+     *
+     * @param variant Объект
+     * @param stream  Поток
+     * @throws java.io.UncheckedIOException Если при записи произошла ошибка, будет вызвано исключение.
+     */
+    public static void write(Variant variant, OutputStream stream) {
+        VariantSnapshotWriter writer = new VariantSnapshotWriter(stream);
+        writer.write(variant);
+        writer.flush();
+    }
+
+    /**
+     * Запись снимка: заголовка со словарём имён и корневого значения.
+     *
+     * @param variant Корневой объект
+     * @throws IOException Ошибка записи.
+     */
+    @Override
+    protected void writeValue(Variant variant) throws IOException {
+        try {
+            collectKeys(variant);
+            ensure(5);
+            writeInt(MAGIC);
+            bytes[position++] = VERSION;
+            writeVarint(keys.size());
+            for (String key : keys) {
+                writeVarint(utf8Length(key));
+                writeUtf8(key);
+            }
+            writeNode(variant);
+        } finally {
+            if (keys.size() > RETAINED_DICTIONARY_SIZE) {
+                dictionary = new HashMap<>();
+                keys = new ArrayList<>();
+            } else {
+                dictionary.clear();
+                keys.clear();
+            }
+            shapeIndices.clear();
+        }
+    }
+
+    /**
+     * Сбор имён всех таблиц дерева в словарь.
+     *
+     * @param variant Объект
+     */
+    protected void collectKeys(Variant variant) {
+        if (variant.type == VariantType.LIST) {
+            VariantList list = (VariantList) variant.object;
+            list.load();
+            if (list.storage != VariantListStorage.GENERIC) return;
+            for (int index = 0; index < list.size; index++) collectKeys(list.elements[index]);
+        } else if (variant.type == VariantType.MAP) {
+            VariantMap map = (VariantMap) variant.object;
+            map.load();
+            if (map.hashMap != null) {
+                for (Map.Entry<String, Variant> entry : map.hashMap.entrySet()) {
+                    keyIndex(entry.getKey());
+                    collectKeys(entry.getValue());
+                }
+                return;
+            }
+            VariantMapShape shape = map.shape;
+            if (!shapeIndices.containsKey(shape)) {
+                int[] indices = new int[shape.size()];
+                for (int index = 0; index < indices.length; index++) indices[index] = keyIndex(shape.keys[index]);
+                shapeIndices.put(shape, indices);
+            }
+            for (int index = 0; index < shape.size(); index++) collectKeys(map.values[index]);
+        }
+    }
+
+    /**
+     * Получение индекса имени в словаре с добавлением нового имени.
+     *
+     * @param key Имя
+     * @return Индекс.
+     */
+    protected int keyIndex(String key) {
+        Integer index = dictionary.get(key);
+        if (index != null) return index;
+        dictionary.put(key, keys.size());
+        keys.add(key);
+        return keys.size() - 1;
+    }
+
+    /**
+     * Запись значения.
+     *
+     * @param variant Объект
+     * @throws IOException Ошибка записи.
+     */
+    protected void writeNode(Variant variant) throws IOException {
+        switch (variant.type) {
+            case BOOLEAN:
+                writeTag((Boolean) variant.object ? TRUE : FALSE);
+                return;
+            case NUMBER:
+                if (variant.precision == VariantNumberPrecision.LONG) {
+                    writeTag(LONG);
+                    writeVarint(zigzag(variant.longNumber));
+                } else if (variant.precision == VariantNumberPrecision.DOUBLE) {
+                    writeTag(DOUBLE);
+                    writeLong(Double.doubleToRawLongBits(variant.doubleNumber));
+                } else {
+                    writeTag(DECIMAL);
+                    writeString(variant.object.toString());
+                }
+                return;
+            case STRING:
+                writeTag(STRING);
+                writeString((CharSequence) variant.object);
+                return;
+            case LIST:
+                writeList((VariantList) variant.object);
+                return;
+            case MAP:
+                writeMap((VariantMap) variant.object);
+                return;
+            default:
+                writeTag(NULL);
+        }
+    }
+
+    /**
+     * Запись байта-метки.
+     *
+     * @param tag Метка
+     * @throws IOException Ошибка записи.
+     */
+    protected void writeTag(int tag) throws IOException {
+        ensure(1);
+        bytes[position++] = (byte) tag;
+    }
+
+    /**
+     * Запись беззнакового числа в формате varint.
+     *
+     * @param value Число
+     * @throws IOException Ошибка записи.
+     */
+    protected void writeVarint(long value) throws IOException {
+        ensure(10);
+        byte[] bytes = this.bytes;
+        while ((value & ~0x7FL) != 0) {
+            bytes[position++] = (byte) (value | 0x80);
+            value >>>= 7;
+        }
+        bytes[position++] = (byte) value;
+    }
+
+    /**
+     * Zigzag-кодирование: небольшие по модулю числа получают короткий varint.
+     *
+     * @param value Число
+     * @return Закодированное число.
+     */
+    protected static long zigzag(long value) {
+        return value << 1 ^ value >> 63;
+    }
+
+    /**
+     * Запись 32-битного числа в порядке little-endian.
+     *
+     * @param value Число
+     * @throws IOException Ошибка записи.
+     */
+    protected void writeInt(int value) throws IOException {
+        ensure(4);
+        byte[] bytes = this.bytes;
+        for (int shift = 0; shift < 32; shift += 8) bytes[position++] = (byte) (value >> shift);
+    }
+
+    /**
+     * Запись 64-битного числа в порядке little-endian.
+     *
+     * @param value Число
+     * @throws IOException Ошибка записи.
+     */
+    protected void writeLong(long value) throws IOException {
+        ensure(8);
+        byte[] bytes = this.bytes;
+        for (int shift = 0; shift < 64; shift += 8) bytes[position++] = (byte) (value >> shift);
+    }
+
+    /**
+     * Запись длины и байтов строки в UTF-8.
+     *
+     * @param value Строка
+     * @throws IOException Ошибка записи.
+     */
+    protected void writeString(CharSequence value) throws IOException {
+        if (value instanceof VariantUtf8String) {
+            VariantUtf8String utf8 = (VariantUtf8String) value;
+            writeVarint(utf8.length);
+            writeRaw(utf8.bytes, utf8.offset, utf8.length);
+            return;
+        }
+        String string = value.toString();
+        writeVarint(utf8Length(string));
+        writeUtf8(string);
+    }
+
+    /**
+     * Запись списка. Элементы примитивных способов хранения записываются без меток.
+     *
+     * @param list Список
+     * @throws IOException Ошибка записи.
+     */
+    protected void writeList(VariantList list) throws IOException {
+        list.load();
+        int size = list.size;
+        switch (list.storage) {
+            case LONG:
+                writeTag(LONG_LIST);
+                writeVarint(size);
+                for (int index = 0; index < size; index++) writeVarint(zigzag(list.longs[index]));
+                return;
+            case DOUBLE:
+                writeTag(DOUBLE_LIST);
+                writeVarint(size);
+                for (int index = 0; index < size; index++) writeLong(Double.doubleToRawLongBits(list.doubles[index]));
+                return;
+            case BOOLEAN:
+                writeTag(BOOLEAN_LIST);
+                writeVarint(size);
+                for (int index = 0; index < size; index += 8) {
+                    int packed = 0;
+                    for (int bit = 0; bit < 8 && index + bit < size; bit++) {
+                        if (list.booleans[index + bit]) packed |= 1 << bit;
+                    }
+                    writeTag(packed);
+                }
+                return;
+            default:
+                writeTag(LIST);
+                writeVarint(size);
+                for (int index = 0; index < size; index++) writeNode(list.elements[index]);
+        }
+    }
+
+    /**
+     * Запись таблицы с заменой имён индексами словаря.
+     *
+     * @param map Таблица
+     * @throws IOException Ошибка записи.
+     */
+    protected void writeMap(VariantMap map) throws IOException {
+        writeTag(MAP);
+        if (map.hashMap != null) {
+            writeVarint(map.hashMap.size());
+            for (Map.Entry<String, Variant> entry : map.hashMap.entrySet()) {
+                writeVarint(dictionary.get(entry.getKey()));
+                writeNode(entry.getValue());
+            }
+            return;
+        }
+        int[] indices = shapeIndices.get(map.shape);
+        writeVarint(indices.length);
+        for (int index = 0; index < indices.length; index++) {
+            writeVarint(indices[index]);
+            writeNode(map.values[index]);
+        }
+    }
+}
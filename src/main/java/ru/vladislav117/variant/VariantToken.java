@@ -0,0 +1,81 @@
+package ru.vladislav117.variant;
+
+/**
+ * Вид элемента json, прочитанного {@link VariantReader}.
+ */
+public enum VariantToken {
+    /**
+     * Начало таблицы.
+     */
+    START_MAP("start map", VariantType.MAP),
+    /**
+     * Конец таблицы.
+     */
+    END_MAP("end map", null),
+    /**
+     * Начало списка.
+     */
+    START_LIST("start list", VariantType.LIST),
+    /**
+     * Конец списка.
+     */
+    END_LIST("end list", null),
+    /**
+     * Строка.
+     */
+    STRING("string", VariantType.STRING),
+    /**
+     * Число.
+     */
+    NUMBER("number", VariantType.NUMBER),
+    /**
+     * Логическое значение.
+     */
+    BOOLEAN("boolean", VariantType.BOOLEAN),
+    /**
+     * Null.
+     */
+    NULL("null", VariantType.NULL),
+    /**
+     * Конец документа.
+     */
+    END_DOCUMENT("end document", null);
+
+    /**
+     * Название вида элемента.
+     */
+    final String name;
+    /**
+     * Тип значения, которое начинается с элемента.
+     */
+    final VariantType type;
+
+    /**
+     * Создание вида элемента.
+     *
+     * @param name Название вида элемента
+     * @param type Тип значения или null для концов таблиц, списков и документа
+     */
+    VariantToken(String name, VariantType type) {
+        this.name = name;
+        this.type = type;
+    }
+
+    /**
+     * Получение названия.
+     *
+     * @return Название.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Получение типа значения, которое начинается с элемента.
+     *
+     * @return Тип значения или null для концов таблиц, списков и документа.
+     */
+    public VariantType getType() {
+        return type;
+    }
+}
@@ -0,0 +1,286 @@
+package ru.vladislav117.variant;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Строка, хранящаяся в кодировке UTF-8.
+ * Байты декодируются только при первом обращении к строке через {@link #toString()};
+ * длина, хэш и сравнение вычисляются по байтам, а при записи json в поток байты копируются без перекодирования.
+ * Хэш совпадает с хэшем равной строки String, а сравнение со строкой String идёт по содержимому.
+ * Объект неизменяем и может ссылаться на часть чужого массива (например, буфера отложенного разбора).
+ */
+public final class VariantUtf8String implements CharSequence {
+    /**
+     * Результат проверки: байты не являются корректным UTF-8.
+     */
+    protected static final int INVALID = -1;
+    /**
+     * Результат проверки: корректный UTF-8, при записи в json требуется экранирование.
+     */
+    protected static final int ESCAPED = 0;
+    /**
+     * Результат проверки: корректный UTF-8, записывается в json как есть.
+     */
+    protected static final int PLAIN = 1;
+
+    protected final byte[] bytes;
+    protected final int offset;
+    protected final int length;
+    protected final boolean plain;
+    protected String string = null;
+    protected int hash = 0;
+    protected int charLength = -1;
+
+    /**
+     * Создание строки над частью массива байтов без копирования.
+     * Байты должны быть корректным UTF-8 и не должны изменяться.
+     *
+     * @param bytes  Массив байтов
+     * @param offset Начало строки в массиве
+     * @param length Длина строки в байтах
+     * @param plain  Записывается ли строка в json без экранирования
+     */
+    protected VariantUtf8String(byte[] bytes, int offset, int length, boolean plain) {
+        this.bytes = bytes;
+        this.offset = offset;
+        this.length = length;
+        this.plain = plain;
+    }
+
+    /**
+     * Создание строки из байтов UTF-8.
+     * Байты копируются; некорректные последовательности заменяются символом U+FFFD, как в {@link String#String(byte[], java.nio.charset.Charset)}.
+     *
+     * @param utf8 Байты UTF-8
+     * @return Строка.
+     */
+    public static VariantUtf8String of(byte[] utf8) {
+        return of(utf8, 0, utf8.length);
+    }
+
+    /**
+     * Создание строки из части массива байтов UTF-8.
+     * Байты копируются; некорректные последовательности заменяются символом U+FFFD, как в {@link String#String(byte[], java.nio.charset.Charset)}.
+     *
+     * @param utf8   Массив байтов
+     * @param offset Начало строки в массиве
+     * @param length Длина строки в байтах
+     * @return Строка.
+     */
+    public static VariantUtf8String of(byte[] utf8, int offset, int length) {
+        byte[] bytes = Arrays.copyOfRange(utf8, offset, offset + length);
+        int check = check(bytes, 0, length);
+        if (check == INVALID) {
+            bytes = new String(bytes, StandardCharsets.UTF_8).getBytes(StandardCharsets.UTF_8);
+            check = check(bytes, 0, bytes.length);
+        }
+        return new VariantUtf8String(bytes, 0, bytes.length, check == PLAIN);
+    }
+
+    /**
+     * Проверка корректности UTF-8 (без избыточных последовательностей, суррогатов и кодовых точек больше U+10FFFF).
+     * Заодно определяется, нужно ли экранирование при записи в json.
+     *
+     * @param bytes Массив байтов
+     * @param from  Начало проверяемой части
+     * @param to    Конец проверяемой части
+     * @return {@link #INVALID}, {@link #ESCAPED} или {@link #PLAIN}.
+     */
+    protected static int check(byte[] bytes, int from, int to) {
+        int result = PLAIN;
+        int index = from;
+        while (index < to) {
+            int value = bytes[index++];
+            if (value >= 0) {
+                if (value < 0x20 || value == '"' || value == '\\') result = ESCAPED;
+                continue;
+            }
+            value &= 0xFF;
+            if (value < 0xC2) return INVALID;
+            if (value < 0xE0) {
+                if (index >= to || (bytes[index++] & 0xC0) != 0x80) return INVALID;
+                continue;
+            }
+            if (value < 0xF0) {
+                if (index + 1 >= to) return INVALID;
+                int second = bytes[index++] & 0xFF;
+                int third = bytes[index++] & 0xFF;
+                if ((second & 0xC0) != 0x80 || (third & 0xC0) != 0x80) return INVALID;
+                if (value == 0xE0 && second < 0xA0 || value == 0xED && second > 0x9F) return INVALID;
+                if (value == 0xE2 && second == 0x80 && (third == 0xA8 || third == 0xA9)) result = ESCAPED;
+                continue;
+            }
+            if (value > 0xF4 || index + 2 >= to) return INVALID;
+            int second = bytes[index++] & 0xFF;
+            if ((second & 0xC0) != 0x80 || (bytes[index++] & 0xC0) != 0x80 || (bytes[index++] & 0xC0) != 0x80) return INVALID;
+            if (value == 0xF0 && second < 0x90 || value == 0xF4 && second > 0x8F) return INVALID;
+        }
+        return result;
+    }
+
+    /**
+     * Получение количества байтов в последовательности UTF-8 по её первому байту.
+     *
+     * @param lead Первый байт
+     * @return Количество байтов.
+     */
+    protected static int width(byte lead) {
+        if (lead >= 0) return 1;
+        if ((lead & 0xE0) == 0xC0) return 2;
+        if ((lead & 0xF0) == 0xE0) return 3;
+        return 4;
+    }
+
+    /**
+     * Декодирование кодовой точки.
+     *
+     * @param index Индекс первого байта последовательности в массиве
+     * @return Кодовая точка.
+     */
+    protected int codePointAt(int index) {
+        byte[] bytes = this.bytes;
+        int lead = bytes[index];
+        if (lead >= 0) return lead;
+        if ((lead & 0xE0) == 0xC0) return (lead & 0x1F) << 6 | bytes[index + 1] & 0x3F;
+        if ((lead & 0xF0) == 0xE0) return (lead & 0x0F) << 12 | (bytes[index + 1] & 0x3F) << 6 | bytes[index + 2] & 0x3F;
+        return (lead & 0x07) << 18 | (bytes[index + 1] & 0x3F) << 12 | (bytes[index + 2] & 0x3F) << 6 | bytes[index + 3] & 0x3F;
+    }
+
+    /**
+     * Получение длины строки в байтах.
+     *
+     * @return Длина в байтах.
+     */
+    public int byteLength() {
+        return length;
+    }
+
+    /**
+     * Получение копии байтов строки.
+     *
+     * @return Байты UTF-8.
+     */
+    public byte[] toByteArray() {
+        return Arrays.copyOfRange(bytes, offset, offset + length);
+    }
+
+    /**
+     * Получение длины строки в символах UTF-16 (как у {@link String#length()}).
+     *
+     * @return Длина.
+     */
+    @Override
+    public int length() {
+        int charLength = this.charLength;
+        if (charLength < 0) {
+            charLength = 0;
+            for (int index = offset, end = offset + length; index < end; index++) {
+                byte value = bytes[index];
+                if ((value & 0xC0) != 0x80) charLength++;
+                if ((value & 0xF8) == 0xF0) charLength++;
+            }
+            this.charLength = charLength;
+        }
+        return charLength;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (length() == length) {
+            if (index < 0 || index >= length) throw new StringIndexOutOfBoundsException(index);
+            return (char) bytes[offset + index];
+        }
+        return toString().charAt(index);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return toString().subSequence(start, end);
+    }
+
+    /**
+     * Сравнение содержимого со строкой без декодирования.
+     *
+     * @param other Строка
+     * @return Равенство содержимого.
+     */
+    public boolean contentEquals(String other) {
+        String string = this.string;
+        if (string != null) return string.equals(other);
+        int otherLength = other.length();
+        if (otherLength > length || otherLength * 3 < length) return false;
+        int position = 0;
+        for (int index = offset, end = offset + length; index < end; index += width(bytes[index])) {
+            int codePoint = codePointAt(index);
+            if (codePoint < 0x10000) {
+                if (position == otherLength || other.charAt(position++) != codePoint) return false;
+            } else {
+                if (position + 1 >= otherLength) return false;
+                if (other.charAt(position++) != Character.highSurrogate(codePoint)) return false;
+                if (other.charAt(position++) != Character.lowSurrogate(codePoint)) return false;
+            }
+        }
+        return position == otherLength;
+    }
+
+    /**
+     * Получение хэша, совпадающего с хэшем равной строки String.
+     *
+     * @return Хэш.
+     */
+    @Override
+    public int hashCode() {
+        int hash = this.hash;
+        if (hash == 0 && length != 0) {
+            String string = this.string;
+            if (string != null) {
+                hash = string.hashCode();
+            } else {
+                for (int index = offset, end = offset + length; index < end; index += width(bytes[index])) {
+                    int codePoint = codePointAt(index);
+                    if (codePoint < 0x10000) {
+                        hash = 31 * hash + codePoint;
+                    } else {
+                        hash = 31 * hash + Character.highSurrogate(codePoint);
+                        hash = 31 * hash + Character.lowSurrogate(codePoint);
+                    }
+                }
+            }
+            this.hash = hash;
+        }
+        return hash;
+    }
+
+    /**
+     * Сравнение с другой строкой UTF-8 (по байтам) или со строкой String (по содержимому).
+     *
+     * @param obj Объект для сравнения
+     * @return Равенство строк.
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) return true;
+        if (obj instanceof String) return contentEquals((String) obj);
+        if (!(obj instanceof VariantUtf8String)) return false;
+        VariantUtf8String other = (VariantUtf8String) obj;
+        if (length != other.length) return false;
+        if (hash != 0 && other.hash != 0 && hash != other.hash) return false;
+        return Arrays.equals(bytes, offset, offset + length, other.bytes, other.offset, other.offset + other.length);
+    }
+
+    /**
+     * Получение декодированной строки. Результат кэшируется.
+     *
+     * @return Строка.
+     */
+    @Override
+    public String toString() {
+        String string = this.string;
+        if (string == null) {
+            string = new String(bytes, offset, length, length() == length ? StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_8);
+            this.string = string;
+        }
+        return string;
+    }
+}
@@ -0,0 +1,22 @@
+package ru.vladislav117.variant.error;
+
+/**
+ * Ошибка, возникающая при неправильном использовании области выделения объектов.
+ */
+public class VariantArenaError extends VariantError {
+    /**
+     * Создание ошибки, возникающей при обращении к объекту из уже закрытой области выделения.
+     */
+    public VariantArenaError() {
+        super("Variant was allocated in an arena that is already closed, copy it with VariantArena.detach(...) before closing");
+    }
+
+    /**
+     * Создание ошибки, возникающей при неправильном использовании области выделения объектов.
+     *
+     * @param message Сообщение об ошибке
+     */
+    public VariantArenaError(String message) {
+        super(message);
+    }
+}
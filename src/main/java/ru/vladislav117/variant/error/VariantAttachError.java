@@ -0,0 +1,13 @@
+package ru.vladislav117.variant.error;
+
+/**
+ * Ошибка, возникающая при присоединении объекта к самому себе.
+ */
+public class VariantAttachError extends VariantError {
+    /**
+     * Создание ошибки, возникающей при присоединении объекта к самому себе.
+     */
+    public VariantAttachError() {
+        super("Variant cannot be attached to itself");
+    }
+}
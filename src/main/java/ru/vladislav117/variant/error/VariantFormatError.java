@@ -0,0 +1,15 @@
+package ru.vladislav117.variant.error;
+
+/**
+ * Ошибка, возникающая при чтении некорректных двоичных данных.
+ */
+public class VariantFormatError extends VariantError {
+    /**
+     * Создание ошибки, возникающей при чтении некорректных двоичных данных.
+     *
+     * @param message Сообщение об ошибке
+     */
+    public VariantFormatError(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,13 @@
+package ru.vladislav117.variant.error;
+
+/**
+ * Ошибка, возникающая при попытке изменить общий неизменяемый объект.
+ */
+public class VariantImmutableError extends VariantError {
+    /**
+     * Создание ошибки, возникающей при попытке изменить общий неизменяемый объект.
+     */
+    public VariantImmutableError() {
+        super("Canonical variant cannot be modified, copy it with new Variant(...) first");
+    }
+}
@@ -0,0 +1,16 @@
+package ru.vladislav117.variant.error;
+
+/**
+ * Ошибка, возникающая при разборе некорректного json.
+ */
+public class VariantJsonError extends VariantError {
+    /**
+     * Создание ошибки, возникающей при разборе некорректного json.
+     *
+     * @param message  Сообщение об ошибке
+     * @param position Позиция в json (в байтах)
+     */
+    public VariantJsonError(String message, long position) {
+        super("Invalid json at position " + position + ": " + message);
+    }
+}
@@ -0,0 +1,17 @@
+package ru.vladislav117.variant.error;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Ошибка, возникающая при некорректном элементе пути к дочернему объекту.
+ */
+public class VariantPathError extends VariantError {
+    /**
+     * Создание ошибки, возникающей при некорректном элементе пути к дочернему объекту.
+     *
+     * @param element Элемент пути
+     */
+    public VariantPathError(@Nullable Object element) {
+        super("Path element must be String or Integer, but " + (element == null ? "null" : element.getClass().getSimpleName()) + " was given");
+    }
+}
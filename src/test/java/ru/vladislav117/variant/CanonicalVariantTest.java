@@ -0,0 +1,143 @@
+package ru.vladislav117.variant;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+import ru.vladislav117.variant.error.VariantImmutableError;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Тесты общих неизменяемых листовых объектов.
+ */
+public class CanonicalVariantTest {
+    static List<Variant> constants() {
+        return List.of(CanonicalVariant.NULL, CanonicalVariant.TRUE, CanonicalVariant.FALSE, CanonicalVariant.EMPTY_STRING,
+                CanonicalVariant.ofLong(0), CanonicalVariant.ofLong(CanonicalVariant.LOW), CanonicalVariant.ofLong(CanonicalVariant.HIGH));
+    }
+
+    @Test
+    public void constantsRejectChanges() {
+        assumeTrue(CanonicalVariant.ENABLED);
+        List<Consumer<Variant>> changes = new ArrayList<>();
+        changes.add(variant -> variant.set("text"));
+        changes.add(variant -> variant.set((Object) null));
+        changes.add(variant -> variant.setBoolean(true));
+        changes.add(variant -> variant.setInteger(5));
+        changes.add(variant -> variant.setLong(-1));
+        changes.add(variant -> variant.setDouble(1.5));
+        changes.add(variant -> variant.setFloat(2.5f));
+        changes.add(variant -> variant.setString(""));
+        changes.add(variant -> variant.setBigDecimal(BigDecimal.TEN));
+        changes.add(variant -> variant.set(List.of(1)));
+        changes.add(variant -> variant.set(Map.of("a", 1)));
+        for (Variant constant : constants()) {
+            assertInstanceOf(CanonicalVariant.class, constant);
+            String before = constant.toJsonString();
+            for (Consumer<Variant> change : changes) {
+                Executable executable = () -> change.accept(constant);
+                assertThrows(VariantImmutableError.class, executable, before);
+            }
+            assertEquals(before, constant.toJsonString());
+        }
+        assertEquals(0, CanonicalVariant.ofLong(0).asLong());
+        assertTrue(CanonicalVariant.TRUE.asBoolean());
+    }
+
+    @Test
+    public void factoriesReturnSharedInstances() {
+        assumeTrue(CanonicalVariant.ENABLED);
+        assertSame(CanonicalVariant.ofLong(7), CanonicalVariant.of(7));
+        assertSame(CanonicalVariant.ofLong(7), CanonicalVariant.of((byte) 7));
+        assertSame(CanonicalVariant.ofLong(7), CanonicalVariant.find(Variant.newLong(7)));
+        assertSame(CanonicalVariant.TRUE, CanonicalVariant.of(true));
+        assertSame(CanonicalVariant.NULL, CanonicalVariant.of(null));
+        assertSame(CanonicalVariant.EMPTY_STRING, CanonicalVariant.of(""));
+        assertSame(CanonicalVariant.FALSE, CanonicalVariant.of(Variant.newBoolean(false)));
+        assertFalse(CanonicalVariant.ofLong(CanonicalVariant.HIGH + 1) instanceof CanonicalVariant);
+        assertFalse(CanonicalVariant.ofLong(CanonicalVariant.LOW - 1) instanceof CanonicalVariant);
+        assertFalse(CanonicalVariant.of("x") instanceof CanonicalVariant);
+        assertFalse(CanonicalVariant.of(1.0) instanceof CanonicalVariant);
+        assertNull(CanonicalVariant.find(Variant.newDouble(1.0)));
+        assertNull(CanonicalVariant.find(Variant.newList()));
+        Variant copy = CanonicalVariant.detach(CanonicalVariant.TRUE);
+        assertFalse(copy instanceof CanonicalVariant);
+        assertEquals(CanonicalVariant.TRUE, copy);
+        copy.set(false);
+        assertTrue(CanonicalVariant.TRUE.asBoolean());
+        Variant plain = Variant.newString("x");
+        assertSame(plain, CanonicalVariant.detach(plain));
+    }
+
+    @Test
+    public void childrenAreCopiedOnGet() {
+        Variant variant = Variant.fromJsonString("{\"list\":[0,1,true,null,\"\"],\"map\":{\"a\":0,\"b\":false},\"longs\":[0,1,2]}");
+        Variant list = variant.get("list");
+        for (int index = 0; index < list.getSize(); index++) {
+            Variant element = list.get(index);
+            assertFalse(element instanceof CanonicalVariant);
+            assertSame(element, list.get(index));
+            element.set("changed" + index);
+        }
+        assertEquals(Variant.fromJsonString("[\"changed0\",\"changed1\",\"changed2\",\"changed3\",\"changed4\"]"), list);
+        Variant map = variant.get("map");
+        map.get("a").set(100);
+        for (Map.Entry<String, Variant> entry : map.asMap().entrySet()) {
+            assertFalse(entry.getValue() instanceof CanonicalVariant);
+        }
+        map.asMap().forEach((name, value) -> assertFalse(value instanceof CanonicalVariant));
+        assertEquals(100, map.get("a").asLong());
+        Variant longs = variant.get("longs");
+        longs.get(1).set(-5);
+        assertEquals(-5, longs.get(1).asLong());
+        for (Variant element : longs.asList()) assertFalse(element instanceof CanonicalVariant);
+        Variant parsed = Variant.fromJsonString("[0,1,true,null,\"\"]");
+        assertEquals(0, parsed.get(0).asLong());
+        assertTrue(parsed.get(2).asBoolean());
+        assertEquals(0, CanonicalVariant.ofLong(0).asLong());
+        assertEquals(1, CanonicalVariant.ofLong(1).asLong());
+        assertTrue(CanonicalVariant.TRUE.asBoolean());
+        assertEquals("", CanonicalVariant.EMPTY_STRING.asString());
+    }
+
+    @Test
+    public void removedAndReplacedChildrenAreDetached() {
+        Variant list = Variant.fromJsonString("[0,true,null,\"\",1]");
+        Variant removed = list.asList().remove(0);
+        assertFalse(removed instanceof CanonicalVariant);
+        removed.set(9);
+        Variant replaced = list.asList().set(0, Variant.newLong(3));
+        assertFalse(replaced instanceof CanonicalVariant);
+        replaced.set(false);
+        Variant map = Variant.fromJsonString("{\"a\":0,\"b\":true}");
+        Variant previous = map.asMap().put("a", Variant.newLong(1));
+        assertFalse(previous instanceof CanonicalVariant);
+        previous.set(10);
+        Variant gone = map.asMap().remove("b");
+        assertFalse(gone instanceof CanonicalVariant);
+        gone.set(false);
+        assertTrue(CanonicalVariant.TRUE.asBoolean());
+        assertEquals(0, CanonicalVariant.ofLong(0).asLong());
+        assertEquals(Variant.fromJsonString("[3,null,\"\",1]"), list);
+        assertEquals(Variant.fromJsonString("{\"a\":1}"), map);
+    }
+
+    @Test
+    public void copiesShareLeavesButStayIndependent() {
+        Variant source = Variant.fromJsonString("{\"a\":[0,1,true],\"b\":{\"c\":null,\"d\":\"\"}}");
+        Variant first = source.deepCopy();
+        Variant second = source.deepCopy();
+        first.get("a").get(0).set(42);
+        first.get("b").get("c").set("x");
+        assertEquals(source, second);
+        assertNotEquals(source, first);
+        assertEquals(0, second.get("a").get(0).asLong());
+        assertEquals(VariantType.NULL, second.get("b").get("c").getType());
+    }
+}
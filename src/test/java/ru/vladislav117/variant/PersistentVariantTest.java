@@ -0,0 +1,226 @@
+package ru.vladislav117.variant;
+
+import org.junit.jupiter.api.Test;
+import ru.vladislav117.variant.error.VariantChildIndexError;
+import ru.vladislav117.variant.error.VariantChildNameError;
+import ru.vladislav117.variant.error.VariantPathError;
+import ru.vladislav117.variant.error.VariantTypeError;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты неизменяемых объектов со структурным разделением.
+ */
+public class PersistentVariantTest {
+    /**
+     * Создание имён с одинаковым хешем: "Aa" и "BB" имеют один хеш, поэтому и любые их сочетания одной длины тоже.
+     *
+     * @param bits Количество пар символов
+     * @return Имена.
+     */
+    static List<String> collidingKeys(int bits) {
+        List<String> keys = new ArrayList<>();
+        for (int mask = 0; mask < 1 << bits; mask++) {
+            StringBuilder builder = new StringBuilder();
+            for (int bit = 0; bit < bits; bit++) builder.append((mask >> bit & 1) == 0 ? "Aa" : "BB");
+            keys.add(builder.toString());
+        }
+        return keys;
+    }
+
+    @Test
+    public void mapMatchesHashMapIncludingOldVersions() {
+        Random random = new Random(9);
+        List<String> keys = new ArrayList<>(collidingKeys(4));
+        for (int index = 0; index < 200; index++) keys.add("key" + index);
+        PersistentVariantMap map = PersistentVariantMap.EMPTY;
+        Map<String, PersistentVariant> model = new HashMap<>();
+        List<PersistentVariantMap> versions = new ArrayList<>();
+        List<Map<String, PersistentVariant>> models = new ArrayList<>();
+        for (int step = 0; step < 20_000; step++) {
+            String key = keys.get(random.nextInt(keys.size()));
+            if (random.nextInt(3) == 0) {
+                PersistentVariantMap next = map.without(key);
+                if (!model.containsKey(key)) assertSame(map, next);
+                map = next;
+                model.remove(key);
+            } else {
+                PersistentVariant value = PersistentVariant.ofLong(random.nextInt(1000));
+                map = map.with(key, value);
+                model.put(key, value);
+            }
+            assertEquals(model.size(), map.size());
+            assertEquals(model.get(key), map.get(key));
+            assertEquals(model.containsKey(key), map.containsKey(key));
+            if (step % 500 == 0) {
+                versions.add(map);
+                models.add(new HashMap<>(model));
+            }
+        }
+        assertEquals(model, map);
+        assertEquals(model.hashCode(), map.hashCode());
+        for (int index = 0; index < versions.size(); index++) {
+            assertEquals(models.get(index), versions.get(index));
+            assertEquals(models.get(index).keySet(), versions.get(index).keySet());
+        }
+        for (String key : keys) map = map.without(key);
+        assertSame(PersistentVariantMap.EMPTY, map);
+    }
+
+    @Test
+    public void collidingKeysAreKeptAndRemoved() {
+        List<String> keys = collidingKeys(5);
+        PersistentVariantMap map = PersistentVariantMap.EMPTY;
+        for (int index = 0; index < keys.size(); index++) map = map.with(keys.get(index), PersistentVariant.ofLong(index));
+        assertEquals(keys.size(), map.size());
+        for (int index = 0; index < keys.size(); index++) assertEquals(index, map.get(keys.get(index)).asLong());
+        PersistentVariantMap full = map;
+        assertSame(map, map.with(keys.get(3), map.get(keys.get(3))));
+        assertSame(map, map.without("AaAaAaAaAb"));
+        for (int index = 0; index < keys.size(); index += 2) map = map.without(keys.get(index));
+        assertEquals(keys.size() / 2, map.size());
+        for (int index = 0; index < keys.size(); index++) assertEquals(index % 2 == 1, map.containsKey(keys.get(index)));
+        assertEquals(keys.size(), full.size());
+        assertEquals(7, full.get(keys.get(7)).asLong());
+        String[] names = keys.toArray(new String[0]);
+        PersistentVariant[] values = new PersistentVariant[names.length];
+        for (int index = 0; index < names.length; index++) values[index] = PersistentVariant.ofLong(index);
+        assertEquals(full, PersistentVariantMap.of(names, values, names.length));
+    }
+
+    @Test
+    public void mapBuiltAtOnceMatchesIncrementalMap() {
+        Random random = new Random(10);
+        for (int iteration = 0; iteration < 200; iteration++) {
+            int count = random.nextInt(300);
+            String[] keys = new String[count];
+            PersistentVariant[] values = new PersistentVariant[count];
+            PersistentVariantMap incremental = PersistentVariantMap.EMPTY;
+            for (int index = 0; index < count; index++) {
+                keys[index] = random.nextInt(4) == 0 ? collidingKeys(3).get(random.nextInt(8)) : "k" + random.nextInt(count + 1);
+                values[index] = PersistentVariant.ofLong(index);
+                incremental = incremental.with(keys[index], values[index]);
+            }
+            PersistentVariantMap built = PersistentVariantMap.of(keys, values, count);
+            assertEquals(incremental.size(), built.size());
+            assertEquals(incremental, built);
+            assertEquals(incremental.hashCode(), built.hashCode());
+        }
+    }
+
+    @Test
+    public void listMatchesArrayListIncludingOldVersions() {
+        Random random = new Random(11);
+        PersistentVariantList list = PersistentVariantList.EMPTY;
+        List<PersistentVariant> model = new ArrayList<>();
+        List<PersistentVariantList> versions = new ArrayList<>();
+        List<List<PersistentVariant>> models = new ArrayList<>();
+        for (int step = 0; step < 3000; step++) {
+            PersistentVariant value = PersistentVariant.ofLong(step);
+            int operation = random.nextInt(10);
+            if (operation < 6 || model.isEmpty()) {
+                list = list.withAdded(value);
+                model.add(value);
+            } else if (operation < 8) {
+                int index = random.nextInt(model.size());
+                list = list.with(index, value);
+                model.set(index, value);
+            } else if (operation == 8) {
+                int index = random.nextInt(model.size());
+                list = list.without(index);
+                model.remove(index);
+            } else {
+                int index = random.nextInt(model.size() + 1);
+                list = list.withInserted(index, value);
+                model.add(index, value);
+            }
+            assertEquals(model.size(), list.size());
+            if (step % 100 == 0) {
+                assertEquals(model, list);
+                versions.add(list);
+                models.add(new ArrayList<>(model));
+            }
+        }
+        assertEquals(model, list);
+        assertEquals(model.hashCode(), list.hashCode());
+        for (int index = 0; index < versions.size(); index++) assertEquals(models.get(index), versions.get(index));
+        assertThrows(IndexOutOfBoundsException.class, () -> PersistentVariantList.EMPTY.without(0));
+    }
+
+    @Test
+    public void largeListsCrossTreeLevels() {
+        for (int size : new int[]{31, 32, 33, 1023, 1024, 1025, 1056, 1057, 32_800, 33_825}) {
+            PersistentVariant[] items = new PersistentVariant[size];
+            PersistentVariantList appended = PersistentVariantList.EMPTY;
+            for (int index = 0; index < size; index++) {
+                items[index] = PersistentVariant.ofLong(index);
+                appended = appended.withAdded(items[index]);
+            }
+            PersistentVariantList built = PersistentVariantList.of(items, size);
+            assertEquals(size, appended.size());
+            assertEquals(built, appended);
+            PersistentVariantList changed = built.with(size - 1, PersistentVariant.NULL).with(0, PersistentVariant.TRUE);
+            for (int index : new int[]{0, 1, 31, 32, size / 2, size - 2, size - 1}) {
+                if (index < 1 || index >= size - 1) continue;
+                assertEquals(index, built.get(index).asLong());
+                assertEquals(index, changed.get(index).asLong());
+            }
+            assertEquals(PersistentVariant.TRUE, changed.get(0));
+            assertEquals(PersistentVariant.NULL, changed.get(size - 1));
+            assertEquals(size - 1, built.get(size - 1).asLong());
+        }
+    }
+
+    @Test
+    public void pathUpdatesShareUntouchedNodes() {
+        PersistentVariant original = Variant.fromJsonString("{\"a\":{\"b\":[1,2,{\"c\":3}]},\"d\":{\"e\":true}}").freeze();
+        PersistentVariant changed = original.with(new Object[]{"a", "b", 2, "c"}, 4);
+        assertEquals(3, original.getPath("a", "b", 2, "c").asLong());
+        assertEquals(4, changed.getPath("a", "b", 2, "c").asLong());
+        assertSame(original.get("d"), changed.get("d"));
+        assertSame(original.getPath("a", "b", 0), changed.getPath("a", "b", 0));
+        PersistentVariant created = original.with(new Object[]{"x", 0, "y"}, "z");
+        assertEquals("z", created.getPath("x", 0, "y").asString());
+        assertEquals(VariantType.LIST, created.get("x").getType());
+        assertEquals(Variant.fromJsonString("[1,2,{\"c\":3},\"new\"]").freeze(), original.with(new Object[]{"a", "b", 3}, "new").getPath("a", "b"));
+        assertSame(original, original.with("d", original.get("d")));
+        assertSame(original, original.without("missing"));
+        assertEquals(original, original.with(new Object[]{"a", "b", 2, "c"}, 3));
+        assertThrows(VariantChildIndexError.class, () -> original.with(new Object[]{"a", "b", 5}, 1));
+        assertThrows(VariantTypeError.class, () -> original.with(new Object[]{"a", 0}, 1));
+        assertThrows(VariantPathError.class, () -> original.with(new Object[]{"a", 1.5}, 1));
+        assertThrows(VariantChildNameError.class, () -> original.getPath("a", "missing"));
+        assertEquals(PersistentVariant.of(5), original.with(new Object[0], 5));
+    }
+
+    @Test
+    public void freezeAndThawKeepEqualityAndHash() {
+        Random random = new Random(12);
+        for (int iteration = 0; iteration < 500; iteration++) {
+            Variant variant = VariantSamples.random(random, 0);
+            PersistentVariant frozen = variant.freeze();
+            Variant thawed = frozen.toVariant();
+            assertEquals(variant, thawed);
+            assertEquals(variant.hashCode(), thawed.hashCode());
+            PersistentVariant again = Variant.fromJsonString(variant.toJsonString()).freeze();
+            assertEquals(frozen, again);
+            assertEquals(frozen.hashCode(), again.hashCode());
+            assertEquals(frozen, thawed.freeze());
+            assertEquals(frozen, PersistentVariant.of(variant));
+        }
+        Variant parsed = Variant.fromJsonString("{\"b\":\"é\",\"a\":[1,2.5,true]}");
+        Variant built = Variant.newMap().set("a", List.of(1, 2.5, true)).set("b", "é");
+        assertEquals(parsed.freeze(), built.freeze());
+        assertEquals(parsed.freeze().hashCode(), built.freeze().hashCode());
+        assertNotEquals(parsed.freeze(), built.set("b", "e").freeze());
+        PersistentVariant frozen = parsed.freeze();
+        parsed.get("a").set(0, 100);
+        assertEquals(1, frozen.getPath("a", 0).asLong());
+    }
+}
@@ -0,0 +1,111 @@
+package ru.vladislav117.variant;
+
+import org.junit.jupiter.api.Test;
+import ru.vladislav117.variant.error.VariantArenaError;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Тесты области выделения объектов.
+ * Тесты режима отладки запускаются задачей arenaDebugTest.
+ */
+public class VariantArenaTest {
+    static Variant sample() {
+        return Variant.fromJsonString("{\"name\":\"value\",\"list\":[1,2.5,true,null,\"text\",[3]],\"map\":{\"a\":1}}");
+    }
+
+    @Test
+    public void attachedArenaObjectOutlivesArena() {
+        Variant list = Variant.newList();
+        Variant map = Variant.newMap();
+        Variant replaced = Variant.newList().attach(Variant.newString("old"));
+        try (VariantArena ignored = VariantArena.open()) {
+            Variant child = sample();
+            list.attach(child);
+            map.attach("child", child);
+            replaced.attach(0, child);
+            assertNotSame(child, list.get(0));
+        }
+        try (VariantArena ignored = VariantArena.open()) {
+            Random random = new Random(1);
+            for (int iteration = 0; iteration < 1000; iteration++) VariantSamples.random(random, 0);
+        }
+        assertEquals(sample(), list.get(0));
+        assertEquals(sample(), map.get("child"));
+        assertEquals(sample(), replaced.get(0));
+        assertEquals(sample().toJsonString(), list.get(0).toJsonString());
+    }
+
+    @Test
+    public void attachInsideArenaKeepsIdentity() {
+        try (VariantArena ignored = VariantArena.open()) {
+            Variant parent = Variant.newList();
+            Variant child = Variant.newString("value");
+            parent.attach(child);
+            assertSame(child, parent.get(0));
+        }
+    }
+
+    @Test
+    public void innerArenaObjectIsCopiedIntoOuterArena() {
+        try (VariantArena ignored = VariantArena.open()) {
+            Variant parent = Variant.newList();
+            Variant outer = Variant.newString("outer");
+            try (VariantArena inner = VariantArena.open()) {
+                Variant child = sample();
+                parent.attach(child);
+                assertNotSame(child, parent.get(0));
+                Variant innerParent = Variant.newList();
+                innerParent.attach(outer);
+                assertSame(outer, innerParent.get(0));
+            }
+            assertEquals(sample(), parent.get(0));
+        }
+    }
+
+    @Test
+    public void releasedObjectsAreRejectedInDebugMode() {
+        assumeTrue(VariantArena.DEBUG);
+        Variant list;
+        Variant number;
+        Variant string;
+        try (VariantArena ignored = VariantArena.open()) {
+            list = sample();
+            number = Variant.newLong(1L << 40);
+            string = Variant.newString("value");
+        }
+        for (Variant released : new Variant[]{list, number, string}) {
+            assertThrows(VariantArenaError.class, released::getType);
+            assertThrows(VariantArenaError.class, released::isLong);
+            assertThrows(VariantArenaError.class, released::asLong);
+            assertThrows(VariantArenaError.class, released::asLongOrNull);
+            assertThrows(VariantArenaError.class, released::isString);
+            assertThrows(VariantArenaError.class, released::asString);
+            assertThrows(VariantArenaError.class, released::isList);
+            assertThrows(VariantArenaError.class, released::isMap);
+            assertThrows(VariantArenaError.class, released::getSize);
+            assertThrows(VariantArenaError.class, released::hashCode);
+            assertThrows(VariantArenaError.class, released::toJsonString);
+            assertThrows(VariantArenaError.class, released::getNumberPrecision);
+            assertThrows(VariantArenaError.class, () -> released.equals(Variant.newLong(1)));
+            assertThrows(VariantArenaError.class, () -> released.setLong(1));
+            assertThrows(VariantArenaError.class, () -> Variant.newList().attach(released));
+        }
+    }
+
+    @Test
+    public void objectsAreReusedOutsideDebugMode() {
+        assumeFalse(VariantArena.DEBUG);
+        Variant first;
+        try (VariantArena ignored = VariantArena.open()) {
+            first = Variant.newString("value");
+        }
+        try (VariantArena ignored = VariantArena.open()) {
+            assertSame(first, Variant.newString("other"));
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package ru.vladislav117.variant;
+
+import org.junit.jupiter.api.Test;
+import ru.vladislav117.variant.error.VariantAttachError;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты присоединения дочерних объектов без копирования.
+ */
+public class VariantAttachTest {
+    @Test
+    public void attachKeepsInstance() {
+        Variant child = Variant.newMap().set("x", 1);
+        Variant list = Variant.newList().attach(child);
+        Variant map = Variant.newMap().attach("child", child);
+        assertSame(child, list.get(0));
+        assertSame(child, map.get("child"));
+        child.set("x", 2);
+        assertEquals(2, list.get(0).getInteger("x"));
+        assertEquals(2, map.get("child").getInteger("x"));
+
+        Variant replacement = Variant.newList();
+        list.attach(0, replacement);
+        assertSame(replacement, list.get(0));
+    }
+
+    @Test
+    public void attachNumberToPrimitiveList() {
+        Variant number = Variant.newLong(5);
+        Variant list = Variant.newList().addLong(1).addLong(2).attach(number);
+        number.set(6);
+        assertEquals("[1,2,6]", list.toJsonString());
+    }
+
+    @Test
+    public void attachToItselfIsRejected() {
+        Variant list = Variant.newList().add(1);
+        Variant map = Variant.newMap();
+        assertThrows(VariantAttachError.class, () -> list.attach(list));
+        assertThrows(VariantAttachError.class, () -> list.attach(0, list));
+        assertThrows(VariantAttachError.class, () -> map.attach("self", map));
+        assertEquals("[1]", list.toJsonString());
+        assertEquals("{}", map.toJsonString());
+    }
+
+    @Test
+    public void sharedChildFormsGraph() {
+        Variant shared = Variant.newList().add(1);
+        Variant root = Variant.newMap().attach("a", shared).attach("b", shared);
+        shared.add(2);
+        assertEquals("{\"a\":[1,2],\"b\":[1,2]}", root.toJsonString());
+        Variant copy = root.deepCopy();
+        assertNotSame(copy.get("a"), copy.get("b"));
+        assertEquals(root, copy);
+    }
+
+    @Test
+    public void bottomUpBuildDoesNotCopy() {
+        int leaves = 1 << 16;
+        List<Variant> level = new ArrayList<>();
+        Set<Variant> built = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (int index = 0; index < leaves; index++) {
+            Variant leaf = Variant.newMap().set("id", index);
+            level.add(leaf);
+            built.add(leaf);
+        }
+        while (level.size() > 1) {
+            List<Variant> next = new ArrayList<>();
+            for (int index = 0; index < level.size(); index += 2) {
+                Variant node = Variant.newList().attach(level.get(index)).attach(level.get(index + 1));
+                next.add(node);
+                built.add(node);
+            }
+            level = next;
+        }
+        Variant root = level.get(0);
+        Set<Variant> reachable = Collections.newSetFromMap(new IdentityHashMap<>());
+        collect(root, reachable);
+        assertEquals(built, reachable);
+    }
+
+    @Test
+    public void attachingLargeSubtreeIsConstantTime() {
+        Variant big = Variant.newList();
+        for (int index = 0; index < 100_000; index++) big.attach(Variant.newMap().set("id", index));
+        Variant root = Variant.newList();
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            for (int index = 0; index < 100_000; index++) root.attach(big);
+        });
+        assertSame(big, root.get(99_999));
+    }
+
+    static void collect(Variant variant, Set<Variant> out) {
+        out.add(variant);
+        if (!variant.isList()) return;
+        for (int index = 0; index < variant.getSize(); index++) collect(variant.get(index), out);
+    }
+}
@@ -0,0 +1,167 @@
+package ru.vladislav117.variant;
+
+import org.junit.jupiter.api.Test;
+import ru.vladislav117.variant.error.VariantFormatError;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты записи и разбора CBOR.
+ */
+public class VariantCborTest {
+    static byte[] hex(String hex) {
+        return HexFormat.of().parseHex(hex);
+    }
+
+    static byte[] concat(byte[] head, byte[] body, byte[] tail) {
+        byte[] bytes = Arrays.copyOf(head, head.length + body.length + tail.length);
+        System.arraycopy(body, 0, bytes, head.length, body.length);
+        System.arraycopy(tail, 0, bytes, head.length + body.length, tail.length);
+        return bytes;
+    }
+
+    @Test
+    public void roundTripRandomDocuments() {
+        Random random = new Random(6);
+        for (int iteration = 0; iteration < 1000; iteration++) {
+            Variant expected = VariantSamples.random(random, 0);
+            byte[] cbor = expected.toCborBytes();
+            assertEquals(expected, Variant.fromCborBytes(cbor));
+            assertEquals(expected, Variant.fromCborStream(new VariantJsonParserTest.SlowStream(cbor)));
+            ByteBuffer direct = ByteBuffer.allocateDirect(cbor.length + 1).put(cbor).put((byte) 0xF6).flip();
+            assertEquals(expected, VariantCborParser.parse(direct));
+            assertEquals(cbor.length, direct.position());
+        }
+    }
+
+    @Test
+    public void sequenceIsRead() {
+        Random random = new Random(7);
+        Variant[] expected = new Variant[50];
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        for (int index = 0; index < expected.length; index++) {
+            expected[index] = VariantSamples.random(random, 0);
+            expected[index].writeCbor(stream);
+        }
+        VariantCborParser parser = new VariantCborParser(new ByteArrayInputStream(stream.toByteArray()));
+        for (Variant variant : expected) assertEquals(variant, parser.readNext());
+        assertNull(parser.readNext());
+    }
+
+    @Test
+    public void specificationExamplesAreDecoded() {
+        assertEquals(Variant.newLong(1000000), Variant.fromCborBytes(hex("1a000f4240")));
+        assertEquals(new BigInteger("18446744073709551615"), Variant.fromCborBytes(hex("1bffffffffffffffff")).asBigInteger());
+        assertEquals(new BigInteger("18446744073709551616"), Variant.fromCborBytes(hex("c249010000000000000000")).asBigInteger());
+        assertEquals(new BigInteger("-18446744073709551616"), Variant.fromCborBytes(hex("3bffffffffffffffff")).asBigInteger());
+        assertEquals(new BigInteger("-18446744073709551617"), Variant.fromCborBytes(hex("c349010000000000000000")).asBigInteger());
+        assertEquals(0, new BigDecimal("273.15").compareTo(Variant.fromCborBytes(hex("c48221196ab3")).asBigDecimal()));
+        assertEquals(1.5, Variant.fromCborBytes(hex("c5822003")).asDouble());
+        assertEquals(65504.0, Variant.fromCborBytes(hex("f97bff")).asDouble());
+        assertEquals(5.960464477539063e-8, Variant.fromCborBytes(hex("f90001")).asDouble());
+        assertEquals(Double.NEGATIVE_INFINITY, Variant.fromCborBytes(hex("f9fc00")).asDouble());
+        assertTrue(Double.isNaN(Variant.fromCborBytes(hex("f97e00")).asDouble()));
+        assertEquals(100000.0, Variant.fromCborBytes(hex("fa47c35000")).asDouble());
+        assertEquals("ü", Variant.fromCborBytes(hex("62c3bc")).asString());
+        assertEquals("𐅑", Variant.fromCborBytes(hex("64f0908591")).asString());
+        assertEquals("streaming", Variant.fromCborBytes(hex("7f657374726561646d696e67ff")).asString());
+        assertEquals(Variant.fromJsonString("{\"a\":1,\"b\":[2,3]}"), Variant.fromCborBytes(hex("bf61610161629f0203ffff")));
+        assertEquals(Variant.fromJsonString("[1,[2,3],[4,5]]"), Variant.fromCborBytes(hex("9f01820203820405ff")));
+        assertEquals(Variant.fromJsonString("{\"1\":2,\"-4\":4}"), Variant.fromCborBytes(hex("a201022304")));
+        assertEquals("AQIDBA", Variant.fromCborBytes(hex("4401020304")).asString());
+        assertEquals(new Variant(null), Variant.fromCborBytes(hex("f7")));
+        assertEquals(Variant.newLong(1363896240), Variant.fromCborBytes(hex("c11a514b67b0")));
+    }
+
+    @Test
+    public void truncatedInputIsRejected() {
+        Random random = new Random(8);
+        for (int iteration = 0; iteration < 200; iteration++) {
+            byte[] cbor = VariantSamples.random(random, 0).toCborBytes();
+            for (int length = 0; length < cbor.length; length++) {
+                int end = length;
+                assertThrows(VariantFormatError.class, () -> VariantCborParser.parse(cbor, 0, end));
+                assertThrows(VariantFormatError.class, () -> Variant.fromCborStream(new VariantJsonParserTest.SlowStream(Arrays.copyOf(cbor, end))));
+            }
+        }
+    }
+
+    @Test
+    public void malformedInputIsRejected() {
+        String[] documents = {
+                "", "1c", "1d", "1e", "1f", "ff", "5f01ff", "5f61ff", "7f41ff", "7f7f", "a1800101", "a1f601", "f8", "fc",
+                "c401", "c48201", "c4820101ff", "c24101ff", "c261", "0100", "9f", "bf", "bf61", "81ff", "5b7fffffffffffffff",
+                "7bffffffffffffffff", "9bffffffffffffffff", "bbffffffffffffffff", "5a7ffffff8", "c5821a7fffffff01"
+        };
+        for (String document : documents) {
+            byte[] cbor = hex(document);
+            assertThrows(VariantFormatError.class, () -> Variant.fromCborBytes(cbor), document);
+            assertThrows(VariantFormatError.class, () -> Variant.fromCborStream(new ByteArrayInputStream(cbor)), document);
+        }
+    }
+
+    @Test
+    public void invalidUtf8IsRejected() {
+        String[] sequences = {"80", "bf", "c3", "c080", "c1bf", "e08080", "eda080", "e282", "f0808080", "f4908080", "f888808080", "ff"};
+        for (String sequence : sequences) {
+            byte[] body = hex(sequence);
+            byte[] prefixed = concat("é".getBytes(StandardCharsets.UTF_8), body, new byte[0]);
+            for (byte[] text : new byte[][]{body, prefixed}) {
+                byte[] definite = concat(new byte[]{(byte) (0x60 | text.length)}, text, new byte[0]);
+                byte[] chunked = concat(new byte[]{0x7F, (byte) (0x60 | text.length)}, text, new byte[]{(byte) 0xFF});
+                byte[] key = concat(new byte[]{(byte) 0xA1, (byte) (0x60 | text.length)}, text, new byte[]{0x01});
+                for (byte[] cbor : new byte[][]{definite, chunked, key}) {
+                    assertThrows(VariantFormatError.class, () -> Variant.fromCborBytes(cbor), sequence);
+                    assertThrows(VariantFormatError.class, () -> Variant.fromCborStream(new VariantJsonParserTest.SlowStream(cbor)), sequence);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void deepNestingIsLimited() {
+        int depth = VariantCborParser.MAX_DEPTH;
+        byte[] nested = new byte[depth];
+        Arrays.fill(nested, 0, depth - 1, (byte) 0x81);
+        nested[depth - 1] = (byte) 0x80;
+        assertEquals(depth, VariantJsonParserTest.depthOf(Variant.fromCborBytes(nested)));
+        byte[] tooDeep = new byte[depth + 1];
+        Arrays.fill(tooDeep, 0, depth, (byte) 0x81);
+        tooDeep[depth] = (byte) 0x80;
+        assertThrows(VariantFormatError.class, () -> Variant.fromCborBytes(tooDeep));
+        byte[] huge = new byte[1_000_000];
+        Arrays.fill(huge, (byte) 0x81);
+        assertThrows(VariantFormatError.class, () -> Variant.fromCborBytes(huge));
+        Arrays.fill(huge, (byte) 0x9F);
+        assertThrows(VariantFormatError.class, () -> Variant.fromCborStream(new ByteArrayInputStream(huge)));
+        Arrays.fill(huge, (byte) 0xA1);
+        for (int index = 1; index < huge.length; index += 2) huge[index] = 0x01;
+        assertThrows(VariantFormatError.class, () -> Variant.fromCborBytes(huge));
+        Arrays.fill(huge, (byte) 0xC6);
+        assertThrows(VariantFormatError.class, () -> Variant.fromCborBytes(huge));
+    }
+
+    @Test
+    public void numbersBeyondLongAndDoubleStayExact() {
+        for (String number : VariantSamples.NUMBERS) {
+            Variant variant = Variant.fromJsonString(number);
+            assertEquals(variant, Variant.fromCborBytes(variant.toCborBytes()), number);
+            assertEquals(0, variant.asBigDecimal().compareTo(Variant.fromCborBytes(variant.toCborBytes()).asBigDecimal()), number);
+        }
+        Variant huge = Variant.newBigInteger(BigInteger.TWO.pow(200).negate());
+        assertEquals(huge.asBigInteger(), Variant.fromCborBytes(huge.toCborBytes()).asBigInteger());
+        Variant precise = Variant.newBigDecimal(new BigDecimal("1.00000000000000000000001"));
+        assertEquals(precise.asBigDecimal(), Variant.fromCborBytes(precise.toCborBytes()).asBigDecimal());
+        assertEquals(Double.MIN_VALUE, Variant.fromCborBytes(Variant.newDouble(Double.MIN_VALUE).toCborBytes()).asDouble());
+    }
+}
@@ -0,0 +1,225 @@
+package ru.vladislav117.variant;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.vladislav117.variant.error.VariantChildIndexError;
+import ru.vladislav117.variant.error.VariantChildNameError;
+import ru.vladislav117.variant.error.VariantError;
+import ru.vladislav117.variant.error.VariantFormatError;
+import ru.vladislav117.variant.error.VariantTypeError;
+import ru.vladislav117.variant.error.VariantValueError;
+
+import java.io.ByteArrayOutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты документа вне кучи и курсоров.
+ */
+public class VariantDocumentTest {
+    static VariantDocument encode(Variant variant, int chunkShift) {
+        VariantDocument.Encoder encoder = new VariantDocument.Encoder(chunkShift);
+        return encoder.finish(encoder.encode(variant));
+    }
+
+    static void assertMatches(Variant expected, VariantCursor cursor) {
+        assertEquals(expected.getType(), cursor.getType());
+        assertTrue(cursor.is(expected.getType()));
+        switch (expected.getType()) {
+            case NULL:
+                assertTrue(cursor.isNull());
+                break;
+            case BOOLEAN:
+                assertEquals(expected.asBoolean(), cursor.asBoolean());
+                break;
+            case NUMBER:
+                assertEquals(expected.asDouble(), cursor.asDouble());
+                assertEquals(expected.isLong(), cursor.isLong());
+                if (expected.isLong()) assertEquals(expected.asLong(), cursor.asLong());
+                if (expected.isBigDecimal()) assertEquals(0, expected.asBigDecimal().compareTo(cursor.asBigDecimal()));
+                break;
+            case STRING:
+                assertEquals(expected.asString(), cursor.asString());
+                break;
+            case LIST:
+                assertEquals(expected.getSize(), cursor.getSize());
+                for (int index = 0; index < expected.getSize(); index++) assertMatches(expected.get(index), cursor.get(index));
+                List<Integer> indices = new ArrayList<>();
+                cursor.forEachInList((index, element) -> {
+                    indices.add(index);
+                    assertMatches(expected.get(index), element);
+                });
+                assertEquals(expected.getSize(), indices.size());
+                break;
+            default:
+                assertEquals(expected.getSize(), cursor.getSize());
+                for (String name : expected.getChildrenNames()) {
+                    assertTrue(cursor.contains(name));
+                    assertMatches(expected.get(name), cursor.get(name));
+                    assertMatches(expected.get(name), cursor.getOrNull(name));
+                }
+                List<String> names = new ArrayList<>();
+                cursor.forEachInMap((name, value) -> {
+                    names.add(name);
+                    assertMatches(expected.get(name), value);
+                });
+                assertEquals(new ArrayList<>(expected.getChildrenNames()), names);
+                assertFalse(cursor.contains("\u0000missing"));
+                assertNull(cursor.getOrNull("\u0000missing"));
+        }
+        assertEquals(expected, cursor.toVariant());
+    }
+
+    @Test
+    public void randomDocumentsMatchTheirVariants() {
+        Random random = new Random(15);
+        for (int iteration = 0; iteration < 500; iteration++) {
+            Variant expected = VariantSamples.random(random, 0);
+            VariantDocument document = expected.toDocument();
+            assertMatches(expected, document.root());
+            assertEquals(expected, document.toVariant());
+        }
+    }
+
+    @Test
+    public void smallChunksSplitNodesAndStrings() {
+        Random random = new Random(16);
+        for (int iteration = 0; iteration < 100; iteration++) {
+            Variant expected = Variant.newMap();
+            for (int index = 0; index < 20; index++) expected.attach("key" + index + "é😀", VariantSamples.random(random, 1));
+            expected.attach("text", Variant.newString("é😀x".repeat(700)));
+            expected.attach("longs", VariantSamples.randomPrimitiveList(random));
+            VariantDocument document = encode(expected, 10);
+            assertTrue(document.chunks.length > 1);
+            assertMatches(expected, document.root());
+        }
+    }
+
+    @Test
+    public void cursorMovesAndCopies() {
+        Variant variant = Variant.fromJsonString("{\"a\":{\"b\":[1,2.5,\"x\",true,null]},\"c\":[10,20,30],\"d\":[1.5,2.5],\"e\":[true,false],\"n\":-7}");
+        VariantDocument document = variant.toDocument();
+        VariantCursor root = document.root();
+        VariantCursor cursor = root.copy().move("a").move("b").move(2);
+        assertEquals("x", cursor.asString());
+        assertEquals(VariantType.MAP, root.getType());
+        VariantCursor list = root.get("a").get("b");
+        assertEquals(1, list.getLong(0));
+        assertEquals(2.5, list.getDouble(1));
+        assertTrue(list.get(3).asBoolean());
+        assertTrue(list.get(4).isNull());
+        assertEquals(VariantType.LIST, list.getType());
+        assertEquals(20, root.get("c").getLong(1));
+        assertEquals(2.5, root.get("d").getDouble(1));
+        assertFalse(root.get("e").get(1).asBoolean());
+        assertEquals(-7, root.getLong("n"));
+        assertEquals(-7.0, root.getDouble("n"));
+        assertEquals("x", root.get("a").get("b").move(2).asString());
+        assertEquals(VariantType.MAP, root.getType());
+        cursor.move(root);
+        assertEquals(VariantType.MAP, cursor.getType());
+        assertEquals(5, cursor.getSize());
+        assertThrows(VariantError.class, () -> root.move(Variant.newList().toDocument().root()));
+        assertThrows(VariantChildNameError.class, () -> root.get("missing"));
+        assertThrows(VariantChildIndexError.class, () -> root.get("c").get(3));
+        assertThrows(VariantChildIndexError.class, () -> root.get("c").get(-1));
+        assertThrows(VariantTypeError.class, () -> root.get(0));
+        assertThrows(VariantTypeError.class, () -> root.get("c").get("x"));
+        assertThrows(VariantTypeError.class, () -> root.get("n").getSize());
+        assertThrows(VariantValueError.class, () -> root.get("a").asString());
+        assertThrows(VariantValueError.class, () -> root.getString("n"));
+        assertThrows(VariantChildNameError.class, () -> root.getBoolean("missing"));
+        assertEquals(VariantType.MAP, root.getType());
+        assertEquals(5, root.getSize());
+    }
+
+    @Test
+    public void collidingNamesAreFound() {
+        Variant variant = Variant.newMap();
+        List<String> names = PersistentVariantTest.collidingKeys(6);
+        for (int index = 0; index < names.size(); index++) variant.attach(names.get(index), Variant.newLong(index));
+        VariantCursor root = variant.toDocument().root();
+        for (int index = 0; index < names.size(); index++) assertEquals(index, root.getLong(names.get(index)));
+        assertFalse(root.contains("AaAaAaAaAaAb"));
+        assertFalse(root.contains("AaAaAaAaAa"));
+    }
+
+    @Test
+    public void numbersKeepPrecision() {
+        for (String number : VariantSamples.NUMBERS) {
+            Variant expected = Variant.fromJsonString(number);
+            VariantCursor cursor = expected.toDocument().root();
+            assertEquals(expected.getNumberPrecision(), cursor.getNumberPrecision(), number);
+            assertEquals(expected, cursor.toVariant(), number);
+            assertEquals(expected.toJsonString(), cursor.toVariant().toJsonString(), number);
+        }
+        VariantCursor decimal = Variant.fromJsonString("1e400").toDocument().root();
+        assertEquals(new BigDecimal("1e400"), decimal.asBigDecimal());
+        assertEquals("1e400", decimal.toVariant().toJsonString());
+        assertThrows(VariantTypeError.class, () -> Variant.newString("1").toDocument().root().getNumberPrecision());
+    }
+
+    @Test
+    public void mappedFileRoundTrip(@TempDir Path directory) throws Exception {
+        Random random = new Random(19);
+        Path path = directory.resolve("document.vdoc");
+        for (int iteration = 0; iteration < 50; iteration++) {
+            Variant expected = Variant.newMap();
+            for (int index = 0; index < 10; index++) expected.attach("key" + index, VariantSamples.random(random, 1));
+            VariantDocument document = expected.toDocument();
+            document.write(path);
+            assertEquals(document.getByteSize(), Files.size(path));
+            ByteArrayOutputStream stream = new ByteArrayOutputStream();
+            document.write(Channels.newChannel(stream));
+            assertArrayEquals(stream.toByteArray(), Files.readAllBytes(path));
+            VariantDocument mapped = VariantDocument.map(path);
+            assertEquals(document.getByteSize(), mapped.getByteSize());
+            assertMatches(expected, mapped.root());
+        }
+        Variant chunked = Variant.newList();
+        for (int index = 0; index < 300; index++) chunked.attach(Variant.newString("é😀" + index));
+        encode(chunked, 10).write(path);
+        VariantDocument mapped;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            mapped = VariantDocument.map(channel);
+        }
+        assertMatches(chunked, mapped.root());
+    }
+
+    @Test
+    public void invalidFilesAreRejected(@TempDir Path directory) throws Exception {
+        Path path = directory.resolve("invalid.vdoc");
+        Files.write(path, new byte[0]);
+        assertThrows(VariantFormatError.class, () -> VariantDocument.map(path));
+        Files.write(path, new byte[32]);
+        assertThrows(VariantFormatError.class, () -> VariantDocument.map(path));
+        byte[] valid = Files.readAllBytes(writeDocument(directory, Variant.fromJsonString("[1,2,3]")));
+        byte[] version = valid.clone();
+        version[4] = 99;
+        Files.write(path, version);
+        assertThrows(VariantFormatError.class, () -> VariantDocument.map(path));
+        byte[] root = valid.clone();
+        ByteBuffer.wrap(root).order(ByteOrder.LITTLE_ENDIAN).putLong(8, valid.length);
+        Files.write(path, root);
+        assertThrows(VariantFormatError.class, () -> VariantDocument.map(path));
+        assertThrows(UncheckedIOException.class, () -> VariantDocument.map(directory.resolve("missing.vdoc")));
+    }
+
+    static Path writeDocument(Path directory, Variant variant) {
+        Path path = directory.resolve("valid.vdoc");
+        variant.toDocument().write(path);
+        return path;
+    }
+}
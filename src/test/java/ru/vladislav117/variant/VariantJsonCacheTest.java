@@ -0,0 +1,252 @@
+package ru.vladislav117.variant;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты сохранения json списков и таблиц и его сброса при изменениях.
+ */
+public class VariantJsonCacheTest {
+    static final String LONG_TEXT = "x".repeat(VariantJsonWriter.MIN_CACHED_LENGTH);
+
+    static Variant document() {
+        return Variant.fromJsonString("{\"list\":[1,2,{\"deep\":[true,\"" + LONG_TEXT + "\"]}],"
+                + "\"map\":{\"a\":\"" + LONG_TEXT + "\",\"b\":[3.5,null]},\"other\":[\"" + LONG_TEXT + "\"]}");
+    }
+
+    static void assertCurrent(Variant variant) {
+        assertEquals(variant, Variant.fromJsonString(variant.toJsonStringCached()));
+        assertEquals(variant, Variant.fromJsonString(new String(variant.toJsonBytesCached(), StandardCharsets.UTF_8)));
+        assertEquals(variant, Variant.fromJsonString(variant.toJsonString()));
+    }
+
+    @Test
+    public void unchangedSubtreesKeepTheirJson() {
+        Variant variant = document();
+        assertCurrent(variant);
+        assertNotNull(variant.cachedJson);
+        byte[] other = variant.get("other").cachedJson;
+        assertNotNull(other);
+        variant.get("map").set("a", "changed");
+        assertNull(variant.cachedJson);
+        assertNull(variant.get("map").cachedJson);
+        assertSame(other, variant.get("other").cachedJson);
+        assertCurrent(variant);
+        assertEquals("changed", Variant.fromJsonString(variant.toJsonString()).get("map").get("a").asString());
+    }
+
+    @Test
+    public void setAttachRemoveAndClearInvalidateAncestors() {
+        List<Consumer<Variant>> changes = new ArrayList<>();
+        changes.add(variant -> variant.get("list").get(2).get("deep").set(0, false));
+        changes.add(variant -> variant.get("list").get(2).get("deep").get(1).set("other text"));
+        changes.add(variant -> variant.get("list").get(2).get("deep").attach(Variant.newString(LONG_TEXT)));
+        changes.add(variant -> variant.get("list").get(2).get("deep").attach(0, Variant.newLong(7)));
+        changes.add(variant -> variant.get("list").get(2).attach("added", Variant.newList()));
+        changes.add(variant -> variant.get("list").get(2).get("deep").remove(1));
+        changes.add(variant -> variant.get("list").get(2).remove("deep"));
+        changes.add(variant -> variant.get("list").get(2).get("deep").asList().clear());
+        changes.add(variant -> variant.get("list").get(2).asMap().clear());
+        changes.add(variant -> variant.get("map").get("b").insert(1, "inserted"));
+        changes.add(variant -> variant.get("map").get("b").removeIf(element -> element.getType() == VariantType.NULL));
+        changes.add(variant -> variant.get("map").removeIf(Variant::isString));
+        changes.add(variant -> variant.get("map").asMap().keySet().remove("a"));
+        changes.add(variant -> variant.get("map").asMap().values().removeIf(Variant::isList));
+        changes.add(variant -> variant.get("map").get("b").asList().iterator().next().set(1));
+        changes.add(variant -> variant.get("map").get("b").asList().subList(0, 1).clear());
+        changes.add(variant -> variant.get("map").get("b").asList().replaceAll(element -> Variant.newString(LONG_TEXT)));
+        changes.add(variant -> variant.get("map").get("b").set(List.of(1, 2, 3)));
+        changes.add(variant -> variant.get("map").set(Map.of("k", "v")));
+        changes.add(variant -> variant.get("other").set((Object) null));
+        for (int change = 0; change < changes.size(); change++) {
+            Variant variant = document();
+            assertCurrent(variant);
+            byte[] before = variant.toJsonBytesCached();
+            changes.get(change).accept(variant);
+            assertNull(variant.cachedJson, "change " + change);
+            assertFalse(Arrays.equals(before, variant.toJsonBytesCached()), "change " + change);
+            assertCurrent(variant);
+        }
+    }
+
+    @Test
+    public void entrySetValueInvalidatesMap() {
+        Variant variant = document();
+        assertCurrent(variant);
+        for (Map.Entry<String, Variant> entry : variant.get("map").asMap().entrySet()) {
+            if (entry.getKey().equals("a")) entry.setValue(Variant.newLong(5));
+        }
+        assertNull(variant.cachedJson);
+        assertCurrent(variant);
+        assertEquals(5, Variant.fromJsonString(variant.toJsonStringCached()).get("map").get("a").asLong());
+    }
+
+    @Test
+    public void reattachedChildInvalidatesItsNewParent() {
+        Variant variant = document();
+        assertCurrent(variant);
+        Variant deep = variant.get("list").get(2).get("deep");
+        variant.get("list").get(2).remove("deep");
+        Variant target = Variant.newMap().attach("moved", deep).attach("text", Variant.newString(LONG_TEXT));
+        assertCurrent(variant);
+        assertCurrent(target);
+        assertNotNull(target.cachedJson);
+        deep.set(0, 42);
+        assertNull(target.cachedJson);
+        assertNotNull(variant.cachedJson);
+        assertCurrent(target);
+        assertEquals(42, Variant.fromJsonString(target.toJsonStringCached()).get("moved").get(0).asLong());
+    }
+
+    @Test
+    public void childSharedByTwoParentsIsNeverStale() {
+        Variant shared = Variant.newList().attach(Variant.newString(LONG_TEXT));
+        Variant first = Variant.newMap().attach("shared", shared);
+        Variant second = Variant.newList().attach(shared).attach(Variant.newString(LONG_TEXT));
+        assertCurrent(first);
+        assertCurrent(second);
+        shared.attach(Variant.newLong(1));
+        assertCurrent(first);
+        assertCurrent(second);
+        first.remove("shared");
+        assertCurrent(second);
+        shared.attach(Variant.newLong(2));
+        assertCurrent(first);
+        assertCurrent(second);
+        assertEquals(3, Variant.fromJsonString(second.toJsonStringCached()).get(0).getSize());
+    }
+
+    @Test
+    public void canonicalLeavesAreCopiedBeforeChange() {
+        Variant variant = Variant.fromJsonString("[0,1,true,null,\"\",{\"a\":0,\"b\":false,\"text\":\"" + LONG_TEXT + "\"}]");
+        assertCurrent(variant);
+        Variant other = Variant.fromJsonString("[0,1,true,null,\"\",\"" + LONG_TEXT + "\"]");
+        assertCurrent(other);
+        variant.get(0).set(100);
+        variant.get(5).get("a").set("changed");
+        variant.get(5).get("b").set(true);
+        assertCurrent(variant);
+        assertCurrent(other);
+        assertEquals(100, Variant.fromJsonString(variant.toJsonStringCached()).get(0).asLong());
+        assertEquals(0, Variant.fromJsonString(other.toJsonStringCached()).get(0).asLong());
+        assertEquals(0, Variant.fromJsonString("0").asLong());
+    }
+
+    @Test
+    public void primitiveListsAreInvalidated() {
+        Variant variant = Variant.newMap().attach("text", Variant.newString(LONG_TEXT));
+        Variant longs = Variant.newList();
+        Variant doubles = Variant.newList();
+        Variant booleans = Variant.newList();
+        for (int index = 0; index < 40; index++) {
+            longs.addLong(index * 1000L);
+            doubles.addDouble(index + 0.5);
+            booleans.addBoolean(index % 3 == 0);
+        }
+        variant.attach("longs", longs).attach("doubles", doubles).attach("booleans", booleans);
+        assertCurrent(variant);
+        assertEquals(VariantListStorage.DOUBLE, ((VariantList) doubles.object).getStorage());
+        assertNotNull(longs.cachedJson);
+        longs.addLong(-1);
+        assertNull(variant.cachedJson);
+        assertNotNull(doubles.cachedJson);
+        assertCurrent(variant);
+        doubles.setDouble(3, -2.25);
+        assertCurrent(variant);
+        booleans.remove(0);
+        assertCurrent(variant);
+        longs.get(0).set(123);
+        assertCurrent(variant);
+        doubles.asList().clear();
+        assertCurrent(variant);
+        booleans.attach(Variant.newString("mixed"));
+        assertCurrent(variant);
+        assertEquals(VariantListStorage.GENERIC, ((VariantList) booleans.object).getStorage());
+    }
+
+    @Test
+    public void clearJsonCacheRemovesSavedJson() {
+        Variant variant = document();
+        assertCurrent(variant);
+        variant.clearJsonCache();
+        assertNull(variant.cachedJson);
+        assertNull(variant.get("map").cachedJson);
+        assertNull(variant.get("list").get(2).get("deep").cachedJson);
+        assertCurrent(variant);
+    }
+
+    @Test
+    public void randomChangesNeverLeaveStaleJson() {
+        Random random = new Random(25);
+        for (int iteration = 0; iteration < 300; iteration++) {
+            Variant variant = VariantSamples.random(random, 0);
+            for (int step = 0; step < 20; step++) {
+                assertCurrent(variant);
+                Variant node = pick(random, variant);
+                change(random, node);
+            }
+            assertCurrent(variant);
+        }
+    }
+
+    static Variant pick(Random random, Variant variant) {
+        Variant node = variant;
+        while (random.nextInt(3) != 0) {
+            if (node.isList() && node.getSize() > 0) {
+                node = node.get(random.nextInt(node.getSize()));
+            } else if (node.isMap() && node.getSize() > 0) {
+                List<String> names = new ArrayList<>(node.getChildrenNames());
+                node = node.get(names.get(random.nextInt(names.size())));
+            } else {
+                break;
+            }
+        }
+        return node;
+    }
+
+    static void change(Random random, Variant node) {
+        if (node.isList()) {
+            switch (random.nextInt(5)) {
+                case 0:
+                    node.attach(VariantSamples.random(random, 3));
+                    return;
+                case 1:
+                    if (node.getSize() > 0) node.remove(random.nextInt(node.getSize()));
+                    return;
+                case 2:
+                    if (node.getSize() > 0) node.set(random.nextInt(node.getSize()), VariantSamples.randomString(random));
+                    return;
+                case 3:
+                    node.addLong(random.nextLong());
+                    return;
+                default:
+                    node.asList().clear();
+            }
+        } else if (node.isMap()) {
+            switch (random.nextInt(4)) {
+                case 0:
+                    node.attach(VariantSamples.randomString(random), VariantSamples.random(random, 3));
+                    return;
+                case 1:
+                    if (node.getSize() > 0) node.remove(node.getChildrenNames().iterator().next());
+                    return;
+                case 2:
+                    for (Map.Entry<String, Variant> entry : node.asMap().entrySet()) entry.setValue(Variant.newBoolean(random.nextBoolean()));
+                    return;
+                default:
+                    node.asMap().clear();
+            }
+        } else {
+            node.set(random.nextBoolean() ? VariantSamples.randomString(random) : (Object) random.nextDouble());
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package ru.vladislav117.variant;
+
+import org.junit.jupiter.api.Test;
+import ru.vladislav117.variant.error.VariantJsonError;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты чтения и записи json lines.
+ */
+public class VariantJsonLinesTest {
+    static final Pattern ERROR = Pattern.compile("Invalid json at position (\\d+): (.*)");
+
+    static List<Variant> readAll(VariantJsonLinesReader reader) {
+        List<Variant> values = new ArrayList<>();
+        while (reader.hasNext()) values.add(reader.next());
+        return values;
+    }
+
+    static byte[] write(List<Variant> values) {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        VariantJsonLinesWriter writer = new VariantJsonLinesWriter(stream);
+        for (Variant value : values) writer.write(value);
+        assertEquals(values.size(), writer.getLineCount());
+        writer.close();
+        return stream.toByteArray();
+    }
+
+    @Test
+    public void randomLinesRoundTrip() {
+        Random random = new Random(20);
+        List<Variant> values = new ArrayList<>();
+        for (int index = 0; index < 3000; index++) values.add(VariantSamples.random(random, 0));
+        values.add(1500, Variant.newString("x".repeat(VariantJsonLinesReader.BUFFER_SIZE * 3)));
+        byte[] lines = write(values);
+        assertEquals(values.stream().map(Variant::toJsonString).collect(Collectors.joining("\n", "", "\n")), new String(lines, StandardCharsets.UTF_8));
+        assertEquals(values, readAll(new VariantJsonLinesReader(new ByteArrayInputStream(lines))));
+        assertEquals(values, readAll(new VariantJsonLinesReader(new VariantJsonParserTest.SlowStream(lines))));
+        assertEquals(values, readAll(new VariantJsonLinesReader(Channels.newChannel(new ByteArrayInputStream(lines)))));
+        ByteArrayOutputStream channel = new ByteArrayOutputStream();
+        VariantJsonLinesWriter writer = new VariantJsonLinesWriter(Channels.newChannel(channel));
+        values.forEach(writer::write);
+        writer.close();
+        assertArrayEquals(lines, channel.toByteArray());
+    }
+
+    @Test
+    public void blankLinesAndCarriageReturnsAreSkipped() {
+        String lines = "\n\n{\"a\":1}\r\n  \r\n[1, 2]\n\t\n\"last\"";
+        VariantJsonLinesReader reader = new VariantJsonLinesReader(new ByteArrayInputStream(lines.getBytes(StandardCharsets.UTF_8)));
+        assertEquals(Variant.fromJsonString("{\"a\":1}"), reader.next());
+        assertEquals(3, reader.getLineNumber());
+        assertEquals(Variant.fromJsonString("[1,2]"), reader.next());
+        assertEquals(5, reader.getLineNumber());
+        assertEquals("last", reader.next().asString());
+        assertEquals(7, reader.getLineNumber());
+        assertFalse(reader.hasNext());
+        assertThrows(NoSuchElementException.class, reader::next);
+        assertTrue(readAll(new VariantJsonLinesReader(new ByteArrayInputStream(" \n\r\n\n".getBytes(StandardCharsets.UTF_8)))).isEmpty());
+        assertTrue(readAll(new VariantJsonLinesReader(new ByteArrayInputStream(new byte[0]))).isEmpty());
+    }
+
+    @Test
+    public void errorsReportLineAndAbsolutePosition() {
+        Random random = new Random(21);
+        StringBuilder builder = new StringBuilder();
+        List<Integer> badLines = new ArrayList<>();
+        List<Long> badStarts = new ArrayList<>();
+        List<String> badTexts = new ArrayList<>();
+        String[] broken = {"[1,]", "{\"a\" 1}", "tru", "\"unterminated", "[1] 2", "{\"a\":[1,2}"};
+        for (int line = 1; line <= 4000; line++) {
+            String text;
+            if (line % 500 == 0) {
+                text = broken[badLines.size() % broken.length];
+                badLines.add(line);
+                badStarts.add((long) builder.toString().getBytes(StandardCharsets.UTF_8).length);
+                badTexts.add(text);
+            } else {
+                text = VariantSamples.random(random, 2).toJsonString();
+            }
+            builder.append(text).append('\n');
+        }
+        byte[] lines = builder.toString().getBytes(StandardCharsets.UTF_8);
+        VariantJsonLinesReader reader = new VariantJsonLinesReader(new VariantJsonParserTest.SlowStream(lines));
+        int read = 0;
+        int failed = 0;
+        while (true) {
+            try {
+                if (!reader.hasNext()) break;
+                reader.next();
+                read++;
+            } catch (VariantJsonError error) {
+                String text = badTexts.get(failed);
+                Matcher expected = ERROR.matcher(assertThrows(VariantJsonError.class, () -> Variant.fromJsonString(text)).getMessage());
+                assertTrue(expected.matches());
+                long position = badStarts.get(failed) + Long.parseLong(expected.group(1));
+                assertEquals("Invalid json at position " + position + ": " + expected.group(2), error.getMessage());
+                assertEquals((long) badLines.get(failed), reader.getLineNumber());
+                failed++;
+            }
+        }
+        assertEquals(badLines.size(), failed);
+        assertEquals(4000 - failed, read);
+        assertEquals(4000, reader.getLineNumber());
+    }
+
+    @Test
+    public void streamClosesSource() {
+        AtomicBoolean closed = new AtomicBoolean();
+        ByteArrayInputStream source = new ByteArrayInputStream("1\n2\n3\n".getBytes(StandardCharsets.UTF_8)) {
+            @Override
+            public void close() {
+                closed.set(true);
+            }
+        };
+        VariantJsonLinesReader reader = new VariantJsonLinesReader(source);
+        try (Stream<Variant> stream = reader.stream()) {
+            assertEquals(6, stream.mapToLong(Variant::asLong).sum());
+        }
+        assertTrue(closed.get());
+    }
+
+    @Test
+    public void writerFlushesAndCloses() {
+        AtomicBoolean closed = new AtomicBoolean();
+        ByteArrayOutputStream target = new ByteArrayOutputStream() {
+            @Override
+            public void close() {
+                closed.set(true);
+            }
+        };
+        VariantJsonLinesWriter writer = new VariantJsonLinesWriter(target);
+        writer.write(Variant.fromJsonString("{\"a\":[1,\"é\"]}")).write(Variant.newString("line\nbreak"));
+        writer.flush();
+        assertEquals("{\"a\":[1,\"é\"]}\n\"line\\nbreak\"\n", target.toString(StandardCharsets.UTF_8));
+        assertFalse(closed.get());
+        writer.write(new Variant(null));
+        writer.close();
+        assertTrue(closed.get());
+        assertEquals(3, writer.getLineCount());
+        assertTrue(target.toString(StandardCharsets.UTF_8).endsWith("\nnull\n"));
+    }
+}
@@ -0,0 +1,209 @@
+package ru.vladislav117.variant;
+
+import com.google.gson.JsonParser;
+import org.junit.jupiter.api.Test;
+import ru.vladislav117.variant.error.VariantJsonError;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты потокового парсера json.
+ */
+public class VariantJsonParserTest {
+    @Test
+    public void roundTripRandomDocuments() {
+        Random random = new Random(3);
+        for (int iteration = 0; iteration < 1000; iteration++) {
+            Variant expected = VariantSamples.random(random, 0);
+            String json = expected.toJsonString();
+            byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+            assertEquals(expected, Variant.fromJsonString(json), json);
+            assertEquals(expected, Variant.fromJsonBytes(bytes), json);
+            assertEquals(expected, Variant.fromJsonStream(new ByteArrayInputStream(bytes)), json);
+            assertEquals(expected, Variant.fromJsonStream(new SlowStream(bytes)), json);
+            assertEquals(expected, Variant.fromJsonChannel(Channels.newChannel(new ByteArrayInputStream(bytes))), json);
+            assertEquals(expected, Variant.fromJsonStringLazy(json), json);
+        }
+    }
+
+    @Test
+    public void matchesGson() {
+        Random random = new Random(4);
+        for (int iteration = 0; iteration < 300; iteration++) {
+            String json = VariantSamples.random(random, 0).toJsonString();
+            assertEquals(JsonParser.parseString(json), JsonParser.parseString(Variant.fromJsonString(json).toJsonString()), json);
+        }
+    }
+
+    @Test
+    public void truncatedInputIsRejected() {
+        Random random = new Random(5);
+        for (int iteration = 0; iteration < 100; iteration++) {
+            Variant variant = VariantSamples.random(random, 0);
+            if (!variant.isList() && !variant.isMap()) continue;
+            byte[] json = variant.toJsonString().getBytes(StandardCharsets.UTF_8);
+            for (int length = 0; length < json.length; length++) {
+                int end = length;
+                assertThrows(VariantJsonError.class, () -> VariantJsonParser.parse(json, 0, end), () -> new String(json, 0, end, StandardCharsets.UTF_8));
+                assertThrows(VariantJsonError.class, () -> Variant.fromJsonStream(new SlowStream(java.util.Arrays.copyOf(json, end))));
+            }
+        }
+    }
+
+    @Test
+    public void malformedInputIsRejected() {
+        String[] documents = {
+                "", " ", "{", "}", "[", "]", "[1,]", "[,1]", "{\"a\"}", "{\"a\":}", "{\"a\":1,}", "{a:1}", "{\"a\" 1}",
+                "[1 2]", "tru", "nul", "falsey", "01", "-", "1.", ".5", "1e", "1e+", "+1", "\"unterminated", "\"\\x\"",
+                "\"\\u12\"", "\"tab\tinside\"", "[1]]", "{} {}", "NaN", "Infinity"
+        };
+        for (String json : documents) {
+            assertThrows(VariantJsonError.class, () -> Variant.fromJsonString(json), json);
+            assertThrows(VariantJsonError.class, () -> load(Variant.fromJsonStringLazy(json)), json);
+        }
+    }
+
+    @Test
+    public void lazyMalformedInputIsRejectedOnWrite() {
+        String[] documents = {
+                "[1,]", "{\"a\":1,}", "[1 2]", "{\"a\" 1}", "{a:1}", "[[1,]]", "{\"a\":[01]}", "[tru]", "[\"\\x\"]",
+                "[{\"a\":}]", "[1,[2,,3]]", "[\"tab\tinside\"]", "[-]", "[1.]", "{\"a\":{\"b\":1 \"c\":2}}"
+        };
+        for (String json : documents) {
+            VariantJsonError expected = assertThrows(VariantJsonError.class, () -> Variant.fromJsonString(json), json);
+            Variant lazy = Variant.fromJsonStringLazy(json);
+            VariantJsonError actual = assertThrows(VariantJsonError.class, lazy::toJsonString, json);
+            assertEquals(expected.getMessage(), actual.getMessage(), json);
+            assertThrows(VariantJsonError.class, () -> VariantJsonWriter.writeToBytesCached(lazy), json);
+            assertThrows(VariantJsonError.class, () -> Variant.fromJsonStringLazy("[0," + json + "]").toJsonString(), json);
+        }
+        Variant partial = Variant.fromJsonStringLazy("[[1,],2]");
+        assertEquals(2, partial.get(1).asLong());
+        assertThrows(VariantJsonError.class, partial::toJsonString);
+        assertThrows(VariantJsonError.class, () -> partial.get(0).toJsonString());
+        Variant valid = Variant.fromJsonStringLazy("{\"a\":[1,{\"b\":\"é\"}],\"c\":[]}");
+        assertEquals("{\"a\":[1,{\"b\":\"é\"}],\"c\":[]}", valid.toJsonString());
+        assertEquals(valid.toJsonString(), valid.toJsonString());
+    }
+
+    @Test
+    public void invalidUtf8IsRejected() {
+        byte[][] sequences = {
+                {(byte) 0x80}, {(byte) 0xBF}, {(byte) 0xC3}, {(byte) 0xC0, (byte) 0x80}, {(byte) 0xC1, (byte) 0xBF},
+                {(byte) 0xE0, (byte) 0x80, (byte) 0x80}, {(byte) 0xED, (byte) 0xA0, (byte) 0x80}, {(byte) 0xE2, (byte) 0x82},
+                {(byte) 0xF0, (byte) 0x80, (byte) 0x80, (byte) 0x80}, {(byte) 0xF4, (byte) 0x90, (byte) 0x80, (byte) 0x80},
+                {(byte) 0xF8, (byte) 0x88, (byte) 0x80, (byte) 0x80, (byte) 0x80}, {(byte) 0xFF}
+        };
+        for (byte[] sequence : sequences) {
+            for (String prefix : new String[]{"", "\\n", "é"}) {
+                byte[] head = ("\"" + prefix).getBytes(StandardCharsets.UTF_8);
+                byte[] json = new byte[head.length + sequence.length + 1];
+                System.arraycopy(head, 0, json, 0, head.length);
+                System.arraycopy(sequence, 0, json, head.length, sequence.length);
+                json[json.length - 1] = '"';
+                assertThrows(VariantJsonError.class, () -> Variant.fromJsonBytes(json).asString());
+                assertThrows(VariantJsonError.class, () -> Variant.fromJsonStream(new SlowStream(json)).asString());
+            }
+        }
+    }
+
+    @Test
+    public void multibyteCharactersAreDecoded() {
+        String text = "é€😀\u07FF\u0800\uFFFF\uD7FF\uE000";
+        for (String json : new String[]{"\"" + text + "\"", "\"\\n" + text + "\""}) {
+            byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+            String expected = json.contains("\\n") ? "\n" + text : text;
+            assertEquals(expected, Variant.fromJsonBytes(bytes).asString());
+            assertEquals(expected, Variant.fromJsonStream(new SlowStream(bytes)).asString());
+        }
+        assertEquals("😀", Variant.fromJsonString("\"\\ud83d\\ude00\"").asString());
+    }
+
+    @Test
+    public void deepNestingIsLimited() {
+        int depth = VariantJsonParser.MAX_DEPTH;
+        assertEquals(depth, depthOf(Variant.fromJsonString(VariantSamples.nestedLists(depth))));
+        assertEquals(depth, depthOf(Variant.fromJsonStream(new ByteArrayInputStream(VariantSamples.nestedLists(depth).getBytes(StandardCharsets.UTF_8)))));
+        assertThrows(VariantJsonError.class, () -> Variant.fromJsonString(VariantSamples.nestedLists(depth + 1)));
+        assertThrows(VariantJsonError.class, () -> Variant.fromJsonString("{\"a\":".repeat(depth + 1) + "1" + "}".repeat(depth + 1)));
+        assertThrows(VariantJsonError.class, () -> Variant.fromJsonString(VariantSamples.nestedLists(1_000_000)));
+        assertThrows(VariantJsonError.class, () -> Variant.fromJsonString("[".repeat(1_000_000)));
+    }
+
+    @Test
+    public void lazyNestingIsLimited() {
+        int depth = VariantJsonParser.MAX_DEPTH;
+        assertEquals(depth, depthOf(Variant.fromJsonStringLazy(VariantSamples.nestedLists(depth))));
+        for (String json : new String[]{VariantSamples.nestedLists(depth + 1), VariantSamples.nestedLists(100_000), "{\"a\":".repeat(depth + 1) + "1" + "}".repeat(depth + 1)}) {
+            VariantJsonError expected = assertThrows(VariantJsonError.class, () -> Variant.fromJsonString(json));
+            VariantJsonError actual = assertThrows(VariantJsonError.class, () -> Variant.fromJsonStringLazy(json));
+            assertEquals(expected.getMessage(), actual.getMessage());
+        }
+    }
+
+    @Test
+    public void numbersBeyondLongAndDoubleStayExact() {
+        for (String number : VariantSamples.NUMBERS) {
+            Variant variant = Variant.fromJsonString(number);
+            assertEquals(0, new BigDecimal(number.equals("-0") ? "0" : number).compareTo(variant.asBigDecimal()), number);
+            assertEquals(variant, Variant.fromJsonString(variant.toJsonString()), number);
+        }
+        assertEquals(Long.MAX_VALUE, Variant.fromJsonString("9223372036854775807").asLong());
+        assertEquals(new BigInteger("9223372036854775808"), Variant.fromJsonString("9223372036854775808").asBigInteger());
+        assertFalse(Variant.fromJsonString("9223372036854775808").isLong());
+        assertEquals("1e400", Variant.fromJsonString("1e400").toJsonString());
+        assertEquals("1.00000000000000000000001", Variant.fromJsonString("1.00000000000000000000001").toJsonString());
+        assertEquals(Double.MIN_VALUE, Variant.fromJsonString("4.9e-324").asDouble());
+    }
+
+    static void load(Variant variant) {
+        if (variant.isList()) {
+            for (int index = 0; index < variant.getSize(); index++) load(variant.get(index));
+        } else if (variant.isMap()) {
+            for (String name : variant.getChildrenNames()) load(variant.get(name));
+        }
+    }
+
+    static int depthOf(Variant variant) {
+        int depth = 0;
+        while (variant.isList()) {
+            depth++;
+            if (variant.getSize() == 0) break;
+            variant = variant.get(0);
+        }
+        return depth;
+    }
+
+    /**
+     * Поток, отдающий данные по одному байту.
+     */
+    static class SlowStream extends InputStream {
+        final byte[] bytes;
+        int position = 0;
+
+        SlowStream(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        @Override
+        public int read() {
+            return position < bytes.length ? bytes[position++] & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+            if (length == 0) return 0;
+            if (position == bytes.length) return -1;
+            buffer[offset] = bytes[position++];
+            return 1;
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package ru.vladislav117.variant;
+
+import org.junit.jupiter.api.Test;
+import ru.vladislav117.variant.error.VariantJsonError;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты разбора json, поступающего частями.
+ */
+public class VariantJsonPushParserTest {
+    static Variant parseInChunks(VariantJsonPushParser parser, byte[] json, int... splits) {
+        int from = 0;
+        for (int split : splits) {
+            parser.feed(json, from, split - from);
+            from = split;
+        }
+        parser.feed(json, from, json.length - from);
+        return parser.finish();
+    }
+
+    static Variant parseByteByByte(VariantJsonPushParser parser, byte[] json) {
+        for (int index = 0; index < json.length; index++) parser.feed(ByteBuffer.wrap(json, index, 1));
+        return parser.finish();
+    }
+
+    static String messageOf(Runnable action) {
+        return assertThrows(VariantJsonError.class, action::run).getMessage();
+    }
+
+    @Test
+    public void everySplitPointGivesSameDocument() {
+        Random random = new Random(16);
+        VariantJsonPushParser parser = new VariantJsonPushParser();
+        for (int iteration = 0; iteration < 150; iteration++) {
+            Variant expected = VariantSamples.random(random, 0);
+            byte[] json = expected.toJsonString().getBytes(StandardCharsets.UTF_8);
+            for (int split = 0; split <= json.length; split++) assertEquals(expected, parseInChunks(parser, json, split));
+            assertEquals(expected, parseByteByByte(parser, json));
+        }
+    }
+
+    @Test
+    public void randomChunksGiveSameDocument() {
+        Random random = new Random(17);
+        VariantJsonPushParser parser = new VariantJsonPushParser();
+        for (int iteration = 0; iteration < 1000; iteration++) {
+            Variant expected = VariantSamples.random(random, 0);
+            byte[] json = expected.toJsonString().getBytes(StandardCharsets.UTF_8);
+            ByteBuffer direct = ByteBuffer.allocateDirect(json.length).put(json).flip();
+            while (direct.hasRemaining()) {
+                ByteBuffer chunk = direct.slice();
+                chunk.limit(Math.min(chunk.remaining(), 1 + random.nextInt(7)));
+                direct.position(direct.position() + chunk.limit());
+                parser.feed(chunk);
+                assertFalse(chunk.hasRemaining());
+            }
+            assertEquals(expected, parser.finish());
+        }
+    }
+
+    @Test
+    public void completionIsReported() {
+        VariantJsonPushParser parser = new VariantJsonPushParser();
+        byte[] json = "{\"a\":[1,2]} ".getBytes(StandardCharsets.UTF_8);
+        parser.feed(json, 0, 10);
+        assertFalse(parser.isComplete());
+        parser.feed(json, 10, 2);
+        assertTrue(parser.isComplete());
+        assertEquals(Variant.fromJsonString("{\"a\":[1,2]}"), parser.finish());
+        parser.feed("12".getBytes(StandardCharsets.UTF_8), 0, 2);
+        assertFalse(parser.isComplete());
+        assertEquals(12, parser.finish().asLong());
+    }
+
+    @Test
+    public void malformedInputIsRejectedLikeEagerParser() {
+        String[] documents = {
+                "", " ", "{", "}", "[", "]", "[1,]", "[,1]", "{\"a\"}", "{\"a\":}", "{\"a\":1,}", "{a:1}", "{\"a\" 1}",
+                "[1 2]", "tru", "nul", "falsey", "01", "-", "1.", ".5", "1e", "1e+", "+1", "\"unterminated", "\"\\x\"",
+                "\"\\u12\"", "\"tab\tinside\"", "[1]]", "{} {}", "NaN", "Infinity", "[\"a\" \"b\"]", "{\"a\":1 \"b\":2}"
+        };
+        VariantJsonPushParser parser = new VariantJsonPushParser();
+        for (String document : documents) {
+            byte[] json = document.getBytes(StandardCharsets.UTF_8);
+            String expected = messageOf(() -> Variant.fromJsonString(document));
+            parser.reset();
+            assertEquals(expected, messageOf(() -> parseInChunks(parser, json)), document);
+            parser.reset();
+            assertEquals(expected, messageOf(() -> parseByteByByte(parser, json)), document);
+        }
+    }
+
+    @Test
+    public void truncatedInputIsRejected() {
+        Random random = new Random(18);
+        VariantJsonPushParser parser = new VariantJsonPushParser();
+        for (int iteration = 0; iteration < 100; iteration++) {
+            Variant variant = VariantSamples.random(random, 0);
+            if (!variant.isList() && !variant.isMap()) continue;
+            byte[] json = variant.toJsonString().getBytes(StandardCharsets.UTF_8);
+            for (int length = 0; length < json.length; length++) {
+                byte[] prefix = Arrays.copyOf(json, length);
+                parser.reset();
+                String expected = messageOf(() -> VariantJsonParser.parse(prefix, 0, prefix.length));
+                assertEquals(expected, messageOf(() -> parseByteByByte(parser, prefix)));
+            }
+        }
+    }
+
+    @Test
+    public void invalidUtf8IsRejectedAcrossChunks() {
+        String[] sequences = {"80", "bf", "c3", "c080", "c1bf", "e08080", "eda080", "e282", "f0808080", "f4908080", "f888808080", "ff"};
+        VariantJsonPushParser parser = new VariantJsonPushParser();
+        for (String sequence : sequences) {
+            byte[] bytes = HexFormat.of().parseHex("22c3a9" + sequence + "22");
+            for (int split = 0; split <= bytes.length; split++) {
+                int at = split;
+                parser.reset();
+                assertThrows(VariantJsonError.class, () -> parseInChunks(parser, bytes, at), sequence);
+            }
+        }
+        parser.reset();
+        byte[] valid = "\"é€😀\"".getBytes(StandardCharsets.UTF_8);
+        for (int split = 0; split <= valid.length; split++) assertEquals("é€😀", parseInChunks(parser, valid, split).asString());
+    }
+
+    @Test
+    public void deepNestingIsLimited() {
+        int depth = VariantJsonParser.MAX_DEPTH;
+        VariantJsonPushParser parser = new VariantJsonPushParser();
+        byte[] nested = VariantSamples.nestedLists(depth).getBytes(StandardCharsets.UTF_8);
+        assertEquals(depth, VariantJsonParserTest.depthOf(parseInChunks(parser, nested, depth / 2, depth + 1)));
+        String tooDeep = VariantSamples.nestedLists(depth + 1);
+        assertEquals(messageOf(() -> Variant.fromJsonString(tooDeep)), messageOf(() -> parseInChunks(parser, tooDeep.getBytes(StandardCharsets.UTF_8))));
+        parser.reset();
+        assertThrows(VariantJsonError.class, () -> parseInChunks(parser, "{\"a\":".repeat(1_000_000).getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void resetAllowsReuseAfterError() {
+        VariantJsonPushParser parser = new VariantJsonPushParser();
+        byte[] broken = "{\"a\":[1,\"unterminated".getBytes(StandardCharsets.UTF_8);
+        parser.feed(broken, 0, broken.length);
+        assertThrows(VariantJsonError.class, parser::finish);
+        parser.reset();
+        byte[] json = "[true,{\"b\":null}]".getBytes(StandardCharsets.UTF_8);
+        assertEquals(Variant.fromJsonString("[true,{\"b\":null}]"), parseInChunks(parser, json, 3, 9));
+        assertThrows(VariantJsonError.class, () -> parseInChunks(parser, "[1,]".getBytes(StandardCharsets.UTF_8)));
+        parser.reset();
+        assertEquals(Variant.newString("x"), parseInChunks(parser, "\"x\"".getBytes(StandardCharsets.UTF_8), 1));
+    }
+
+    @Test
+    public void numbersBeyondLongAndDoubleStayExact() {
+        VariantJsonPushParser parser = new VariantJsonPushParser();
+        for (String number : VariantSamples.NUMBERS) {
+            byte[] json = ("[" + number + "]").getBytes(StandardCharsets.UTF_8);
+            for (int split = 0; split <= json.length; split++) {
+                assertEquals(Variant.fromJsonString("[" + number + "]"), parseInChunks(parser, json, split), number);
+            }
+            byte[] root = number.getBytes(StandardCharsets.UTF_8);
+            assertEquals(Variant.fromJsonString(number).toJsonString(), parseByteByByte(parser, root).toJsonString(), number);
+        }
+    }
+}
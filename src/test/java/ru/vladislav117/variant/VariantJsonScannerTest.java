@@ -0,0 +1,129 @@
+package ru.vladislav117.variant;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты поиска структурных символов json блоками.
+ */
+public class VariantJsonScannerTest {
+    static final byte[] ALPHABET = "\"\\{}[],:a 1".getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * Поиск, строящий маски побайтовым проходом.
+     */
+    static class ByteScanner extends VariantJsonScanner {
+        ByteScanner(byte[] json, int offset, int length, boolean commas) {
+            super(json, offset, length, commas);
+        }
+
+        @Override
+        protected long classify() {
+            return classifyBytes();
+        }
+    }
+
+    static List<Integer> reference(byte[] json, int offset, int length, boolean commas, boolean[] inString) {
+        List<Integer> positions = new ArrayList<>();
+        boolean string = false;
+        for (int index = offset; index < offset + length; index++) {
+            byte value = json[index];
+            if (value == '\\') {
+                if (index + 1 < offset + length && (json[index + 1] == '"' || json[index + 1] == '\\')) index++;
+            } else if (value == '"') {
+                string = !string;
+            } else if (!string && (value == '{' || value == '}' || value == '[' || value == ']' || commas && value == ',')) {
+                positions.add(index);
+            }
+        }
+        inString[0] = string;
+        return positions;
+    }
+
+    static List<Integer> scan(VariantJsonScanner scanner, int tapeSize) {
+        List<Integer> positions = new ArrayList<>();
+        int[] tape = new int[tapeSize];
+        int found;
+        while ((found = scanner.next(tape)) > 0) {
+            for (int index = 0; index < found; index++) positions.add(tape[index]);
+        }
+        return positions;
+    }
+
+    static void assertSameAsReference(byte[] json, int offset, int length) {
+        for (boolean commas : new boolean[]{false, true}) {
+            boolean[] inString = new boolean[1];
+            List<Integer> expected = reference(json, offset, length, commas, inString);
+            String message = new String(json, offset, length, StandardCharsets.ISO_8859_1);
+            for (int tapeSize : new int[]{1, 3, 1024}) {
+                VariantJsonScanner swar = new VariantJsonScanner(json, offset, length, commas);
+                assertEquals(expected, scan(swar, tapeSize), message);
+                assertEquals(inString[0], swar.isInString(), message);
+                VariantJsonScanner bytes = new ByteScanner(json, offset, length, commas);
+                assertEquals(expected, scan(bytes, tapeSize), message);
+                assertEquals(inString[0], bytes.isInString(), message);
+            }
+        }
+    }
+
+    @Test
+    public void randomDocumentsMatchReference() {
+        Random random = new Random(24);
+        for (int iteration = 0; iteration < 500; iteration++) {
+            byte[] json = VariantSamples.random(random, 0).toJsonString().getBytes(StandardCharsets.UTF_8);
+            assertSameAsReference(json, 0, json.length);
+        }
+    }
+
+    @Test
+    public void randomBytesMatchReference() {
+        Random random = new Random(25);
+        for (int iteration = 0; iteration < 5000; iteration++) {
+            byte[] json = new byte[random.nextInt(300)];
+            for (int index = 0; index < json.length; index++) {
+                json[index] = random.nextInt(8) == 0 ? (byte) random.nextInt(256) : ALPHABET[random.nextInt(ALPHABET.length)];
+            }
+            int offset = json.length == 0 ? 0 : random.nextInt(Math.min(json.length, 17));
+            assertSameAsReference(json, offset, json.length - offset - (json.length - offset > 0 ? random.nextInt(Math.min(json.length - offset, 9)) : 0));
+        }
+    }
+
+    @Test
+    public void escapesAcrossBlockAndWordBoundaries() {
+        for (int offset = 0; offset < 9; offset++) {
+            for (int quote = 1; quote < 140; quote++) {
+                for (int backslashes = 0; backslashes <= 5; backslashes++) {
+                    StringBuilder builder = new StringBuilder(" ".repeat(offset)).append("[\"");
+                    while (builder.length() < offset + quote - backslashes) builder.append(builder.length() % 5 == 0 ? '{' : 'a');
+                    builder.append("\\".repeat(backslashes)).append("\",{\"b\":[1]},\"]\"]");
+                    byte[] json = builder.toString().getBytes(StandardCharsets.UTF_8);
+                    assertSameAsReference(json, offset, json.length - offset);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void stringsSpanningManyBlocks() {
+        for (int length : new int[]{62, 63, 64, 65, 127, 128, 129, 1000}) {
+            String text = "é{\\\"[".repeat(length / 5 + 1).substring(0, length);
+            byte[] json = ("[{\"a\":\"" + text + "\"},[\"" + text + "\\\\\"],\"" + text).getBytes(StandardCharsets.UTF_8);
+            assertSameAsReference(json, 0, json.length);
+            assertSameAsReference(json, 1, json.length - 1);
+        }
+    }
+
+    @Test
+    public void unterminatedStringIsReported() {
+        byte[] json = ("[\"" + "x".repeat(100) + "\\\"]").getBytes(StandardCharsets.UTF_8);
+        VariantJsonScanner scanner = new VariantJsonScanner(json, 0, json.length, true);
+        assertEquals(List.of(0), scan(scanner, 16));
+        assertTrue(scanner.isInString());
+    }
+}
@@ -0,0 +1,59 @@
+package ru.vladislav117.variant;
+
+import com.google.gson.JsonParser;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты потоковой записи json.
+ */
+public class VariantJsonWriterTest {
+    @Test
+    public void allTargetsWriteSameJson() {
+        Random random = new Random(11);
+        for (int iteration = 0; iteration < 500; iteration++) {
+            Variant variant = VariantSamples.random(random, 0);
+            String json = variant.toJsonString();
+            StringWriter writer = new StringWriter();
+            variant.writeJson(writer);
+            assertEquals(json, writer.toString());
+            ByteArrayOutputStream stream = new ByteArrayOutputStream();
+            variant.writeJson(stream);
+            assertEquals(json, stream.toString(StandardCharsets.UTF_8));
+            ByteArrayOutputStream channel = new ByteArrayOutputStream();
+            variant.writeJson(Channels.newChannel(channel));
+            assertEquals(json, channel.toString(StandardCharsets.UTF_8));
+            assertEquals(JsonParser.parseString(json), JsonParser.parseString(variant.toJson().toString()), json);
+        }
+    }
+
+    @Test
+    public void doublesRoundTripExactly() {
+        Random random = new Random(12);
+        for (int iteration = 0; iteration < 200_000; iteration++) {
+            double value = Double.longBitsToDouble(random.nextLong());
+            if (!Double.isFinite(value)) continue;
+            Variant variant = Variant.newDouble(value);
+            Variant parsed = Variant.fromJsonString(variant.toJsonString());
+            assertEquals(variant, parsed, variant.toJsonString());
+            assertEquals(value, parsed.asDouble());
+        }
+    }
+
+    @Test
+    public void integralDoublesAboveTwoPowFiftyThreeAreWrittenInFull() {
+        double value = 3.8235642382114253E18;
+        assertEquals("3823564238211425280", Variant.newDouble(value).toJsonString());
+        assertEquals((long) value, Variant.fromJsonString(Variant.newDouble(value).toJsonString()).asLong());
+        assertEquals("-9007199254740992", Variant.newDouble(-0x1p53).toJsonString());
+        assertEquals("1.0E20", Variant.newDouble(1e20).toJsonString());
+        assertEquals("1.5", Variant.newDouble(1.5).toJsonString());
+    }
+}
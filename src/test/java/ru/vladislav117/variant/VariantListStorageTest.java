@@ -0,0 +1,148 @@
+package ru.vladislav117.variant;
+
+import org.junit.jupiter.api.Test;
+import ru.vladislav117.variant.error.VariantValueError;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты чтения элементов списков с примитивным хранением.
+ */
+public class VariantListStorageTest {
+    static final double[] DOUBLES = {0.1, -2.5, 3.0, 1e300, -0.0, Double.NaN, 0x1p60, 7.0};
+    static final long[] LONGS = {0, -1, 1024, 1025, -129, Long.MAX_VALUE, Long.MIN_VALUE, 1L << 40};
+
+    static Variant doubles() {
+        Variant variant = Variant.newList();
+        for (double value : DOUBLES) variant.addDouble(value);
+        return variant;
+    }
+
+    static Variant longs() {
+        Variant variant = Variant.newList();
+        for (long value : LONGS) variant.addLong(value);
+        return variant;
+    }
+
+    static VariantListStorage storageOf(Variant variant) {
+        return ((VariantList) variant.object).getStorage();
+    }
+
+    @Test
+    public void doublesAreIteratedWithoutInflating() {
+        Variant variant = doubles();
+        assertEquals(VariantListStorage.DOUBLE, storageOf(variant));
+        List<Double> values = new ArrayList<>();
+        variant.forEachDouble(values::add);
+        List<Integer> indexes = new ArrayList<>();
+        variant.forEachDoubleInList((index, value) -> {
+            indexes.add(index);
+            assertEquals(Double.doubleToLongBits(DOUBLES[index]), Double.doubleToLongBits(value));
+        });
+        assertEquals(VariantListStorage.DOUBLE, storageOf(variant));
+        assertEquals(DOUBLES.length, values.size());
+        for (int index = 0; index < DOUBLES.length; index++) {
+            assertEquals(Double.doubleToLongBits(DOUBLES[index]), Double.doubleToLongBits(values.get(index)));
+            assertEquals(index, indexes.get(index));
+        }
+    }
+
+    @Test
+    public void doublesAreFilteredByType() {
+        Variant variant = doubles();
+        List<Integer> integers = new ArrayList<>();
+        variant.forEachIntegerInList((index, value) -> {
+            integers.add(index);
+            assertEquals((int) DOUBLES[index], value);
+        });
+        assertEquals(List.of(2, 4, 7), integers);
+        List<Long> longs = new ArrayList<>();
+        variant.forEachLong(longs::add);
+        assertEquals(List.of(3L, 0L, 1L << 60, 7L), longs);
+        List<Boolean> booleans = new ArrayList<>();
+        variant.forEachBoolean(booleans::add);
+        assertTrue(booleans.isEmpty());
+        assertEquals(VariantListStorage.DOUBLE, storageOf(variant));
+    }
+
+    @Test
+    public void doubleElementsAreConverted() {
+        Variant variant = doubles();
+        assertEquals(-2.5, variant.getDouble(1));
+        assertEquals(3, variant.getInteger(2));
+        assertEquals(3L, variant.getLongOrNull(2));
+        assertNull(variant.getIntegerOrNull(0));
+        assertNull(variant.getIntegerOrNull(3));
+        assertNull(variant.getBigDecimalOrNull(5));
+        assertNull(variant.getBooleanOrNull(2));
+        assertNull(variant.getStringOrNull(2));
+        assertEquals(9, variant.getIntegerOrDefault(1, 9));
+        assertEquals(new BigDecimal("0.1"), variant.getBigDecimal(0));
+        assertEquals(Variant.newDouble(DOUBLES[6]).asBigInteger(), variant.getBigInteger(6));
+        assertEquals(-2.5f, variant.getFloat(1));
+        assertNull(variant.getFloatOrNull(0));
+        assertThrows(VariantValueError.class, () -> variant.getInteger(0));
+        assertThrows(VariantValueError.class, () -> variant.getByte(3));
+        assertEquals(VariantListStorage.DOUBLE, storageOf(variant));
+    }
+
+    @Test
+    public void longsAreIteratedWithoutInflating() {
+        Variant variant = longs();
+        assertEquals(VariantListStorage.LONG, storageOf(variant));
+        List<Long> values = new ArrayList<>();
+        variant.forEachLongInList((index, value) -> {
+            assertEquals(values.size(), index);
+            values.add(value);
+        });
+        for (int index = 0; index < LONGS.length; index++) assertEquals(LONGS[index], values.get(index));
+        List<Integer> integers = new ArrayList<>();
+        variant.forEachInteger(integers::add);
+        assertEquals(List.of(0, -1, 1024, 1025, -129), integers);
+        List<Byte> bytes = new ArrayList<>();
+        variant.forEachByte(bytes::add);
+        assertEquals(List.of((byte) 0, (byte) -1), bytes);
+        assertEquals(Long.MIN_VALUE, variant.getLong(6));
+        assertEquals(BigInteger.valueOf(Long.MAX_VALUE), variant.getBigInteger(5));
+        assertNull(variant.getIntegerOrNull(5));
+        assertEquals(1024f, variant.getFloat(2));
+        assertEquals(VariantListStorage.LONG, storageOf(variant));
+    }
+
+    @Test
+    public void primitiveAndGenericListsAgree() {
+        for (Variant primitive : new Variant[]{doubles(), longs()}) {
+            Variant generic = primitive.deepCopy();
+            generic.attach(Variant.newString("x"));
+            assertEquals(VariantListStorage.GENERIC, storageOf(generic));
+            for (int index = 0; index < primitive.getSize(); index++) {
+                assertEquals(generic.getIntegerOrNull(index), primitive.getIntegerOrNull(index));
+                assertEquals(generic.getLongOrNull(index), primitive.getLongOrNull(index));
+                assertEquals(generic.getFloatOrNull(index), primitive.getFloatOrNull(index));
+                assertEquals(generic.getDoubleOrNull(index), primitive.getDoubleOrNull(index));
+                assertEquals(generic.getShortOrNull(index), primitive.getShortOrNull(index));
+                assertEquals(generic.getBigIntegerOrNull(index), primitive.getBigIntegerOrNull(index));
+                assertEquals(generic.getBigDecimalOrNull(index), primitive.getBigDecimalOrNull(index));
+                assertEquals(generic.getBooleanOrNull(index), primitive.getBooleanOrNull(index));
+            }
+        }
+    }
+
+    @Test
+    public void booleansAreIteratedWithoutInflating() {
+        Variant variant = Variant.newList();
+        variant.addBoolean(true);
+        variant.addBoolean(false);
+        List<Boolean> values = new ArrayList<>();
+        variant.forEachBoolean(values::add);
+        assertEquals(List.of(true, false), values);
+        assertNull(variant.getDoubleOrNull(0));
+        assertFalse(variant.getBoolean(1));
+        assertEquals(VariantListStorage.BOOLEAN, storageOf(variant));
+    }
+}
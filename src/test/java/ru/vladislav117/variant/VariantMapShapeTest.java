@@ -0,0 +1,174 @@
+package ru.vladislav117.variant;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты раскладок имён компактных таблиц и их кэша.
+ */
+public class VariantMapShapeTest {
+    /**
+     * Ожидание удаления неиспользуемых раскладок сборщиком мусора.
+     *
+     * @param condition Условие, выполняющееся после удаления
+     * @return Выполнилось ли условие.
+     */
+    static boolean collect(BooleanSupplier condition) throws InterruptedException {
+        for (int attempt = 0; attempt < 50; attempt++) {
+            System.gc();
+            Thread.sleep(10);
+            VariantMapShape.expunge();
+            if (condition.getAsBoolean()) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Заполнение кэша раскладок.
+     *
+     * @return Раскладки, удерживающие кэш заполненным.
+     */
+    static List<VariantMapShape> fillCache() throws InterruptedException {
+        collect(() -> false);
+        List<VariantMapShape> held = new ArrayList<>();
+        held.add(VariantMapShape.EMPTY.withKey("fill"));
+        for (int count = 0; ; count++) {
+            VariantMapShape shape = held.get(count / 32).withKey("fill" + count);
+            if (!shape.isCached()) break;
+            held.add(shape);
+        }
+        assertEquals(VariantMapShape.MAX_CACHED_SHAPES, VariantMapShape.cachedShapes.get());
+        return held;
+    }
+
+    @Test
+    public void fullCacheStopsSharingUntilShapesAreCollected() throws InterruptedException {
+        List<VariantMapShape> held = fillCache();
+        VariantMap small = new VariantMap();
+        for (int index = 0; index < VariantMap.UNSHARED_THRESHOLD; index++) small.put("full" + index, Variant.newLong(index));
+        assertTrue(small.isCompact());
+        assertFalse(small.getShape().isCached());
+        VariantMap large = new VariantMap();
+        for (int index = 0; index <= VariantMap.UNSHARED_THRESHOLD; index++) large.put("full" + index, Variant.newLong(index));
+        assertFalse(large.isCompact());
+        large.remove("full" + VariantMap.UNSHARED_THRESHOLD);
+        assertEquals(small, large);
+        assertEquals(VariantMapShape.MAX_CACHED_SHAPES, VariantMapShape.cachedShapes.get());
+        held.clear();
+        assertTrue(collect(() -> VariantMapShape.cachedShapes.get() < VariantMapShape.MAX_CACHED_SHAPES / 2));
+        VariantMap shared = new VariantMap();
+        for (int index = 0; index < VariantMap.COMPACT_THRESHOLD; index++) shared.put("full" + index, Variant.newLong(index));
+        assertTrue(shared.isCompact());
+        assertTrue(shared.getShape().isCached());
+    }
+
+    @Test
+    public void unusedShapesReleaseTheirPlace() throws InterruptedException {
+        assertTrue(collect(() -> VariantMapShape.cachedShapes.get() < VariantMapShape.MAX_CACHED_SHAPES / 2));
+        VariantMapShape parent = VariantMapShape.EMPTY.withKey("release");
+        List<VariantMapShape> children = new ArrayList<>();
+        for (int index = 0; index < 40; index++) children.add(parent.withKey("child" + index));
+        assertEquals(40, parent.transitions.size());
+        int live = VariantMapShape.cachedShapes.get();
+        assertEquals(live, VariantMapShape.registered.size());
+        children.clear();
+        assertTrue(collect(() -> parent.transitions.isEmpty()));
+        assertTrue(VariantMapShape.cachedShapes.get() <= live - 40);
+        assertEquals(VariantMapShape.cachedShapes.get(), VariantMapShape.registered.size());
+        assertTrue(parent.withKey("child0").isCached());
+    }
+
+    @Test
+    public void transitionsPerShapeAreBounded() throws InterruptedException {
+        assertTrue(collect(() -> VariantMapShape.cachedShapes.get() < VariantMapShape.MAX_CACHED_SHAPES / 2));
+        VariantMapShape parent = VariantMapShape.EMPTY.withKey("bounded");
+        List<VariantMapShape> children = new ArrayList<>();
+        for (int index = 0; index < VariantMapShape.MAX_TRANSITIONS * 2; index++) {
+            VariantMapShape child = parent.withKey("child" + index);
+            assertTrue(child.isCached());
+            assertSame(child, parent.withKey("child" + index));
+            children.add(child);
+        }
+        assertEquals(VariantMapShape.MAX_TRANSITIONS, parent.transitions.size());
+        for (int index = 0; index < children.size(); index++) {
+            VariantMapShape child = parent.withKey("child" + index);
+            assertArrayEquals(children.get(index).keys, child.keys);
+            assertTrue(child.isCached());
+            assertTrue(children.get(index).withKey("grandchild").isCached());
+        }
+        assertEquals(VariantMapShape.MAX_TRANSITIONS, parent.transitions.size());
+    }
+
+    static VariantMapShape build(String... keys) {
+        VariantMapShape shape = VariantMapShape.EMPTY;
+        for (String key : keys) shape = shape.withKey(key);
+        return shape;
+    }
+
+    @Test
+    public void transitionsAreSharedByKeyOrder() throws InterruptedException {
+        assertTrue(collect(() -> VariantMapShape.cachedShapes.get() < VariantMapShape.MAX_CACHED_SHAPES / 2));
+        VariantMapShape ab = build("order-a", "order-b");
+        assertSame(ab, build("order-a", new String("order-b")));
+        assertSame(ab, build("order-a").withKey("order-b"));
+        VariantMapShape ba = build("order-b", "order-a");
+        assertNotSame(ab, ba);
+        assertEquals("order-a", ab.getKey(0));
+        assertEquals("order-a", ba.getKey(1));
+        VariantMapShape parent = build("order-a");
+        VariantMapShape first = parent.withKey("order-x");
+        VariantMapShape second = parent.withKey("order-y");
+        assertSame(first, parent.withKey("order-x"));
+        assertSame(second, parent.withKey("order-y"));
+        assertSame(first, parent.withKey("order-x"));
+        assertEquals(0, VariantMapShape.EMPTY.size());
+        assertEquals(2, ab.size());
+    }
+
+    @Test
+    public void indexOfFindsKeys() {
+        for (int size : new int[]{0, 1, VariantMapShape.INDEXED_THRESHOLD, VariantMapShape.INDEXED_THRESHOLD + 1, VariantMap.COMPACT_THRESHOLD}) {
+            String[] keys = new String[size];
+            for (int index = 0; index < size; index++) keys[index] = "index" + index;
+            VariantMapShape shape = build(keys);
+            assertEquals(size, shape.size());
+            for (int index = 0; index < size; index++) {
+                assertEquals(index, shape.indexOf(keys[index]));
+                assertEquals(index, shape.indexOf(new String(keys[index])));
+                assertEquals(keys[index], shape.getKey(index));
+            }
+            assertEquals(-1, shape.indexOf("index" + size));
+            assertEquals(-1, shape.indexOf(null));
+            assertEquals(-1, shape.indexOf(1));
+        }
+        VariantMapShape colliding = build(PersistentVariantTest.collidingKeys(4).toArray(new String[0]));
+        for (int index = 0; index < colliding.size(); index++) assertEquals(index, colliding.indexOf(PersistentVariantTest.collidingKeys(4).get(index)));
+    }
+
+    @Test
+    public void withoutKeyMatchesShapeBuiltWithoutIt() throws InterruptedException {
+        assertTrue(collect(() -> VariantMapShape.cachedShapes.get() < VariantMapShape.MAX_CACHED_SHAPES / 2));
+        String[] keys = new String[12];
+        for (int index = 0; index < keys.length; index++) keys[index] = "without" + index;
+        VariantMapShape shape = build(keys);
+        for (int position = 0; position < keys.length; position++) {
+            String[] rest = new String[keys.length - 1];
+            for (int index = 0, target = 0; index < keys.length; index++) {
+                if (index != position) rest[target++] = keys[index];
+            }
+            VariantMapShape removed = shape.withoutKey(position);
+            assertSame(build(rest), removed);
+            assertEquals(-1, removed.indexOf(keys[position]));
+            assertTrue(removed.isCached());
+        }
+        assertSame(VariantMapShape.EMPTY, build("without0").withoutKey(0));
+        VariantMapShape unshared = new VariantMapShape(new String[]{"without0", "without1"}, false);
+        assertSame(build("without1"), unshared.withoutKey(0));
+        assertFalse(unshared.withKey("without2").isCached());
+    }
+}
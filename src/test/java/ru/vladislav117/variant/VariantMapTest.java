@@ -0,0 +1,130 @@
+package ru.vladislav117.variant;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты компактных таблиц и их перехода на HashMap.
+ */
+public class VariantMapTest {
+    static VariantMap fill(String prefix, int size) {
+        VariantMap map = new VariantMap();
+        for (int index = 0; index < size; index++) map.put(prefix + index, Variant.newLong(index));
+        return map;
+    }
+
+    static void assertSameContent(Map<String, Variant> expected, VariantMap actual) {
+        assertEquals(expected.size(), actual.size());
+        assertEquals(expected, actual);
+        assertEquals(expected.hashCode(), actual.hashCode());
+        for (Map.Entry<String, Variant> entry : expected.entrySet()) {
+            assertTrue(actual.containsKey(entry.getKey()));
+            assertEquals(entry.getValue(), actual.peek(entry.getKey()));
+        }
+        if (actual.isCompact()) assertEquals(new ArrayList<>(expected.keySet()), new ArrayList<>(actual.keySet()));
+    }
+
+    @Test
+    public void sharedShapeStaysCompactUpToThreshold() throws InterruptedException {
+        assertTrue(VariantMapShapeTest.collect(() -> VariantMapShape.cachedShapes.get() < VariantMapShape.MAX_CACHED_SHAPES / 2));
+        VariantMap map = new VariantMap();
+        for (int index = 0; index < VariantMap.COMPACT_THRESHOLD; index++) {
+            map.put("shared" + index, Variant.newLong(index));
+            assertTrue(map.isCompact());
+            assertTrue(map.getShape().isCached());
+        }
+        VariantMap other = fill("shared", VariantMap.COMPACT_THRESHOLD);
+        assertSame(map.getShape(), other.getShape());
+        map.put("shared0", Variant.newLong(-1));
+        assertTrue(map.isCompact());
+        map.put("shared" + VariantMap.COMPACT_THRESHOLD, Variant.newLong(VariantMap.COMPACT_THRESHOLD));
+        assertFalse(map.isCompact());
+        assertNull(map.getShape());
+        assertEquals(VariantMap.COMPACT_THRESHOLD + 1, map.size());
+        assertEquals(-1, map.get("shared0").asLong());
+        for (int index = 1; index <= VariantMap.COMPACT_THRESHOLD; index++) assertEquals(index, map.get("shared" + index).asLong());
+        assertTrue(new VariantMap(VariantMap.COMPACT_THRESHOLD).isCompact());
+        assertFalse(new VariantMap(VariantMap.COMPACT_THRESHOLD + 1).isCompact());
+    }
+
+    @Test
+    public void unsharedShapeIsPromotedAfterThreshold() throws InterruptedException {
+        List<VariantMapShape> held = VariantMapShapeTest.fillCache();
+        VariantMap map = fill("unshared", VariantMap.UNSHARED_THRESHOLD);
+        assertTrue(map.isCompact());
+        assertFalse(map.getShape().isCached());
+        map.remove("unshared3");
+        assertTrue(map.isCompact());
+        assertEquals(VariantMap.UNSHARED_THRESHOLD - 1, map.size());
+        map.put("unshared3", Variant.newLong(3));
+        map.put("more", Variant.newLong(-1));
+        assertFalse(map.isCompact());
+        assertEquals(VariantMap.UNSHARED_THRESHOLD + 1, map.size());
+        assertEquals(3, map.get("unshared3").asLong());
+        assertEquals(-1, map.get("more").asLong());
+        assertFalse(held.isEmpty());
+    }
+
+    @Test
+    public void compactRemovalKeepsOrderAndShape() throws InterruptedException {
+        assertTrue(VariantMapShapeTest.collect(() -> VariantMapShape.cachedShapes.get() < VariantMapShape.MAX_CACHED_SHAPES / 2));
+        VariantMap map = fill("removal", 10);
+        VariantMapShape full = map.getShape();
+        assertEquals(4, map.remove("removal4").asLong());
+        assertNull(map.remove("removal4"));
+        assertTrue(map.isCompact());
+        assertEquals(List.of("removal0", "removal1", "removal2", "removal3", "removal5", "removal6", "removal7", "removal8", "removal9"), new ArrayList<>(map.keySet()));
+        assertEquals(9, map.size());
+        assertEquals(5, map.get("removal5").asLong());
+        assertSame(full, fill("removal", 10).getShape());
+        VariantMap rebuilt = new VariantMap();
+        for (String key : map.keySet()) rebuilt.put(key, map.get(key));
+        assertSame(rebuilt.getShape(), map.getShape());
+        Iterator<String> iterator = map.keySet().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().endsWith("1")) iterator.remove();
+        }
+        assertEquals(8, map.size());
+        assertFalse(map.containsKey("removal1"));
+        assertEquals(9, map.get("removal9").asLong());
+        map.entrySet().removeIf(entry -> entry.getValue().asLong() % 2 == 0);
+        assertEquals(List.of("removal3", "removal5", "removal7", "removal9"), new ArrayList<>(map.keySet()));
+        map.clear();
+        assertSame(VariantMapShape.EMPTY, map.getShape());
+        assertTrue(map.isEmpty());
+    }
+
+    @Test
+    public void randomOperationsMatchLinkedHashMap() {
+        Random random = new Random(6);
+        for (int iteration = 0; iteration < 300; iteration++) {
+            VariantMap map = new VariantMap();
+            Map<String, Variant> model = new LinkedHashMap<>();
+            int keys = 1 + random.nextInt(60);
+            for (int step = 0; step < 200; step++) {
+                String key = "random" + random.nextInt(keys);
+                if (random.nextInt(3) == 0) {
+                    assertEquals(model.remove(key), map.remove(key));
+                } else {
+                    Variant value = Variant.newLong(step);
+                    assertEquals(model.put(key, value), map.put(key, value));
+                }
+                if (map.isCompact()) assertTrue(map.size() <= VariantMap.COMPACT_THRESHOLD);
+                assertSameContent(model, map);
+            }
+            VariantMap copy = new VariantMap(map);
+            assertEquals(map.isCompact(), copy.isCompact());
+            assertSameContent(model, copy);
+            copy.trimToSize();
+            assertSameContent(model, copy);
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package ru.vladislav117.variant;
+
+import org.junit.jupiter.api.Test;
+import ru.vladislav117.variant.error.VariantFormatError;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты записи и разбора MessagePack.
+ */
+public class VariantMessagePackTest {
+    static byte[] hex(String hex) {
+        return HexFormat.of().parseHex(hex);
+    }
+
+    static boolean hasDecimal(Variant variant) {
+        if (variant.isList()) {
+            for (int index = 0; index < variant.getSize(); index++) if (hasDecimal(variant.get(index))) return true;
+        } else if (variant.isMap()) {
+            for (String name : variant.getChildrenNames()) if (hasDecimal(variant.get(name))) return true;
+        } else if (variant.getType() == VariantType.NUMBER) {
+            return variant.getNumberPrecision() == VariantNumberPrecision.DECIMAL;
+        }
+        return false;
+    }
+
+    static VariantMessagePackReader slowReader(byte[] bytes) {
+        return new VariantMessagePackReader(Channels.newChannel(new VariantJsonParserTest.SlowStream(bytes)));
+    }
+
+    @Test
+    public void roundTripRandomDocuments() {
+        Random random = new Random(9);
+        int checked = 0;
+        for (int iteration = 0; iteration < 1000; iteration++) {
+            Variant expected = VariantSamples.random(random, 0);
+            byte[] messagePack = expected.toMessagePackBytes();
+            Variant parsed = Variant.fromMessagePackBytes(messagePack);
+            assertEquals(parsed, Variant.fromMessagePackStream(new ByteArrayInputStream(messagePack)));
+            ByteBuffer direct = ByteBuffer.allocateDirect(messagePack.length + 1).put(messagePack).put((byte) 0xC0).flip();
+            assertEquals(parsed, VariantMessagePackParser.parse(direct));
+            assertEquals(messagePack.length, direct.position());
+            assertEquals(parsed, slowReader(messagePack).read());
+            if (hasDecimal(expected)) continue;
+            assertEquals(expected, parsed);
+            assertArrayEquals(messagePack, parsed.toMessagePackBytes());
+            checked++;
+        }
+        assertTrue(checked > 300);
+    }
+
+    @Test
+    public void sequenceIsReadByteByByte() {
+        Random random = new Random(10);
+        Variant[] expected = new Variant[50];
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        for (int index = 0; index < expected.length; index++) {
+            expected[index] = Variant.fromMessagePackBytes(VariantSamples.random(random, 0).toMessagePackBytes());
+            expected[index].writeMessagePack(stream);
+        }
+        VariantMessagePackReader reader = slowReader(stream.toByteArray());
+        for (Variant variant : expected) assertEquals(variant, reader.read());
+        assertNull(reader.read());
+        assertTrue(reader.isFinished());
+    }
+
+    @Test
+    public void numbersOutsideMessagePackRangeAreRounded() {
+        String[] exact = {"9223372036854775807", "-9223372036854775808", "9223372036854775808", "18446744073709551615"};
+        for (String number : exact) {
+            Variant variant = Variant.fromJsonString(number);
+            assertEquals(new BigInteger(number), Variant.fromMessagePackBytes(variant.toMessagePackBytes()).asBigInteger(), number);
+        }
+        String[] rounded = {"18446744073709551616", "-9223372036854775809", "123456789012345678901234567890", "1.00000000000000000000001", "3.141592653589793238462643383279"};
+        for (String number : rounded) {
+            Variant variant = Variant.fromJsonString(number);
+            assertEquals(new BigDecimal(number).doubleValue(), Variant.fromMessagePackBytes(variant.toMessagePackBytes()).asDouble(), number);
+        }
+        assertEquals(Double.POSITIVE_INFINITY, Variant.fromMessagePackBytes(Variant.fromJsonString("1e400").toMessagePackBytes()).asDouble());
+        assertEquals(Double.MIN_VALUE, Variant.fromMessagePackBytes(Variant.newDouble(Double.MIN_VALUE).toMessagePackBytes()).asDouble());
+        assertEquals(new BigInteger("18446744073709551615"), Variant.fromMessagePackBytes(hex("cfffffffffffffffff")).asBigInteger());
+        assertEquals(Long.MIN_VALUE, Variant.fromMessagePackBytes(hex("d38000000000000000")).asLong());
+        assertEquals(-32, Variant.fromMessagePackBytes(hex("e0")).asLong());
+    }
+
+    @Test
+    public void extensionsAndBinaryAreDecoded() {
+        assertEquals("1970-01-01T00:00:00Z", Variant.fromMessagePackBytes(hex("d6ff00000000")).asString());
+        assertEquals("2022-01-01T00:00:00.000000001Z", Variant.fromMessagePackBytes(hex("d7ff0000000461cf9980")).asString());
+        assertEquals("AQIDBA", Variant.fromMessagePackBytes(hex("c40401020304")).asString());
+        assertEquals(Variant.fromJsonString("{\"1\":2,\"-1\":3}"), Variant.fromMessagePackBytes(hex("820102ff03")));
+    }
+
+    @Test
+    public void truncatedInputIsRejected() {
+        Random random = new Random(11);
+        for (int iteration = 0; iteration < 200; iteration++) {
+            byte[] messagePack = VariantSamples.random(random, 0).toMessagePackBytes();
+            for (int length = 0; length < messagePack.length; length++) {
+                int end = length;
+                assertThrows(VariantFormatError.class, () -> VariantMessagePackParser.parse(messagePack, 0, end));
+                assertThrows(VariantFormatError.class, () -> VariantMessagePackParser.parse(ByteBuffer.wrap(messagePack, 0, end)));
+                if (end > 0) assertThrows(VariantFormatError.class, () -> slowReader(Arrays.copyOf(messagePack, end)).read());
+            }
+        }
+    }
+
+    @Test
+    public void malformedInputIsRejected() {
+        String[] documents = {
+                "", "c1", "d4010000", "c70100", "d5ff0000", "d6ff", "c70cff3b9aca000000000000000000", "d7ffee6b280000000000",
+                "dbffffffff", "dd7ffffff0", "df7ffffff0", "c6ffffffff", "81900101", "81c00101", "81c30101", "9101c0", "a1",
+                "d9", "dc0001", "c0c0"
+        };
+        for (String document : documents) {
+            byte[] messagePack = hex(document);
+            assertThrows(VariantFormatError.class, () -> Variant.fromMessagePackBytes(messagePack), document);
+            assertThrows(VariantFormatError.class, () -> Variant.fromMessagePackStream(new ByteArrayInputStream(messagePack)), document);
+        }
+    }
+
+    @Test
+    public void invalidUtf8IsReplaced() {
+        String[] sequences = {"ff", "61c062", "c3a9ed", "eda080", "f4908080", "e282"};
+        for (String sequence : sequences) {
+            byte[] bytes = hex(sequence);
+            String expected = new String(bytes, StandardCharsets.UTF_8);
+            assertTrue(expected.contains("\uFFFD"), sequence);
+            assertEquals(expected, Variant.fromMessagePackBytes(hex("a" + bytes.length + sequence)).asString(), sequence);
+            Variant map = Variant.fromMessagePackBytes(hex("81a" + bytes.length + sequence + "01"));
+            assertEquals(Set.of(expected), map.getChildrenNames(), sequence);
+        }
+    }
+
+    @Test
+    public void deepNestingIsLimited() {
+        int depth = VariantMessagePackParser.MAX_DEPTH;
+        byte[] nested = new byte[depth];
+        Arrays.fill(nested, 0, depth - 1, (byte) 0x91);
+        nested[depth - 1] = (byte) 0x90;
+        assertEquals(depth, VariantJsonParserTest.depthOf(Variant.fromMessagePackBytes(nested)));
+        assertEquals(depth, VariantJsonParserTest.depthOf(slowReader(nested).read()));
+        byte[] tooDeep = new byte[depth + 1];
+        Arrays.fill(tooDeep, 0, depth, (byte) 0x91);
+        tooDeep[depth] = (byte) 0x90;
+        assertThrows(VariantFormatError.class, () -> Variant.fromMessagePackBytes(tooDeep));
+        byte[] huge = new byte[1_000_000];
+        Arrays.fill(huge, (byte) 0x91);
+        huge[huge.length - 1] = (byte) 0x90;
+        assertThrows(VariantFormatError.class, () -> Variant.fromMessagePackBytes(huge));
+        assertThrows(VariantFormatError.class, () -> new VariantMessagePackReader(Channels.newChannel(new ByteArrayInputStream(huge))).read());
+        for (int index = 0; index < huge.length - 1; index += 2) {
+            huge[index] = (byte) 0x81;
+            huge[index + 1] = 0x01;
+        }
+        assertThrows(VariantFormatError.class, () -> Variant.fromMessagePackBytes(huge));
+    }
+}
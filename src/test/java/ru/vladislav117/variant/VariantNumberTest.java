@@ -0,0 +1,63 @@
+package ru.vladislav117.variant;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты хранения и сравнения чисел.
+ */
+public class VariantNumberTest {
+    @Test
+    public void nanEqualsItself() {
+        Variant nan = Variant.newDouble(Double.NaN);
+        assertEquals(nan, nan);
+        assertEquals(nan, Variant.newDouble(Double.NaN));
+        assertEquals(nan.hashCode(), Variant.newDouble(Double.NaN).hashCode());
+        assertNotEquals(nan, Variant.newDouble(0));
+        assertNotEquals(nan, Variant.newLong(0));
+    }
+
+    @Test
+    public void nanFoundInHashSet() {
+        Set<Variant> set = new HashSet<>();
+        set.add(Variant.newDouble(Double.NaN));
+        assertTrue(set.contains(Variant.newDouble(Double.NaN)));
+    }
+
+    @Test
+    public void nanInsidePrimitiveList() {
+        Variant list = Variant.newList().addDouble(1.5).addDouble(Double.NaN);
+        assertEquals(list, list.deepCopy());
+        assertEquals(list.hashCode(), list.deepCopy().hashCode());
+    }
+
+    @Test
+    public void signedZerosAreEqual() {
+        Variant positive = Variant.newDouble(0.0);
+        Variant negative = Variant.newDouble(-0.0);
+        assertEquals(positive, negative);
+        assertEquals(positive.hashCode(), negative.hashCode());
+        assertEquals(Variant.newLong(0), negative);
+    }
+
+    @Test
+    public void longAndDoubleKeepExactValues() {
+        assertEquals(Long.MAX_VALUE, Variant.newLong(Long.MAX_VALUE).asLong());
+        assertEquals(Long.MIN_VALUE, Variant.fromJsonString("-9223372036854775808").asLong());
+        assertEquals(0.1, Variant.fromJsonString("0.1").asDouble());
+        assertEquals(Variant.newLong(3), Variant.newDouble(3.0));
+        assertNotEquals(Variant.newLong(3), Variant.newDouble(3.5));
+    }
+
+    @Test
+    public void persistentNanEqualsItself() {
+        PersistentVariant nan = PersistentVariant.ofDouble(Double.NaN);
+        assertEquals(nan, PersistentVariant.ofDouble(Double.NaN));
+        assertEquals(nan.hashCode(), PersistentVariant.ofDouble(Double.NaN).hashCode());
+        assertEquals(PersistentVariant.ofDouble(0.0), PersistentVariant.ofDouble(-0.0));
+    }
+}
@@ -0,0 +1,117 @@
+package ru.vladislav117.variant;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import ru.vladislav117.variant.error.VariantJsonError;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты параллельного разбора больших json-списков.
+ */
+public class VariantParallelJsonParserTest {
+    static final ForkJoinPool POOL = new ForkJoinPool(4);
+
+    @AfterAll
+    static void shutdownPool() {
+        POOL.shutdown();
+    }
+
+    static Variant parseParallel(byte[] json) {
+        return VariantParallelJsonParser.parse(json, 0, json.length, POOL);
+    }
+
+    static byte[] largeList(Random random) {
+        StringBuilder builder = new StringBuilder("[");
+        while (builder.length() < VariantParallelJsonParser.PARALLEL_THRESHOLD + (1 << 18)) {
+            if (builder.length() > 1) builder.append(random.nextInt(4) == 0 ? " , " : ",");
+            builder.append(VariantSamples.random(random, 0).toJsonString());
+        }
+        return builder.append("]").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    static void assertSameOutcome(byte[] json) {
+        Variant expected;
+        try {
+            expected = VariantJsonParser.parse(json);
+        } catch (VariantJsonError error) {
+            assertEquals(error.getMessage(), assertThrows(VariantJsonError.class, () -> parseParallel(json)).getMessage());
+            return;
+        }
+        assertEquals(expected, parseParallel(json));
+    }
+
+    @Test
+    public void largeListsMatchSequentialParsing() {
+        Random random = new Random(21);
+        for (int iteration = 0; iteration < 3; iteration++) {
+            byte[] json = largeList(random);
+            Variant expected = VariantJsonParser.parse(json);
+            Variant actual = parseParallel(json);
+            assertEquals(expected.getSize(), actual.getSize());
+            assertEquals(expected, actual);
+            assertEquals(expected, VariantParallelJsonParser.parse(json));
+        }
+    }
+
+    @Test
+    public void corruptedListsFailLikeSequentialParsing() {
+        Random random = new Random(22);
+        byte[] original = largeList(random);
+        byte[] replacements = ",]}[{\"x1 :".getBytes(StandardCharsets.UTF_8);
+        for (int iteration = 0; iteration < 60; iteration++) {
+            byte[] json = original.clone();
+            for (int change = random.nextInt(3); change >= 0; change--) {
+                json[random.nextInt(json.length)] = replacements[random.nextInt(replacements.length)];
+            }
+            assertSameOutcome(json);
+        }
+    }
+
+    @Test
+    public void errorsInSeveralChunksReportTheFirst() {
+        byte[] json = largeList(new Random(23));
+        json[json.length / 3] = '}';
+        json[json.length * 2 / 3] = '}';
+        json[json.length - 2] = '}';
+        assertSameOutcome(json);
+    }
+
+    @Test
+    public void chunkBoundariesAreChecked() {
+        String element = "{\"key\":[1,2.5,\"" + "x".repeat(100) + "\"]}";
+        StringBuilder builder = new StringBuilder("[");
+        while (builder.length() < VariantParallelJsonParser.PARALLEL_THRESHOLD + 1000) builder.append(element).append(',');
+        String body = builder.toString();
+        assertSameOutcome((body + "1]").getBytes(StandardCharsets.UTF_8));
+        assertSameOutcome((body + "]").getBytes(StandardCharsets.UTF_8));
+        assertSameOutcome((body.replace("},{", "},,{") + "1]").getBytes(StandardCharsets.UTF_8));
+        assertSameOutcome((body + "1] x").getBytes(StandardCharsets.UTF_8));
+        assertSameOutcome((body + "1").getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void nestingIsLimitedLikeSequentialParsing() {
+        int depth = VariantJsonParser.MAX_DEPTH;
+        String filler = ",\"" + "x".repeat(VariantParallelJsonParser.PARALLEL_THRESHOLD) + "\"]";
+        byte[] deepest = ("[" + VariantSamples.nestedLists(depth - 1) + filler).getBytes(StandardCharsets.UTF_8);
+        assertEquals(depth, VariantJsonParserTest.depthOf(parseParallel(deepest)));
+        assertSameOutcome(deepest);
+        byte[] tooDeep = ("[" + VariantSamples.nestedLists(depth) + filler).getBytes(StandardCharsets.UTF_8);
+        assertThrows(VariantJsonError.class, () -> parseParallel(tooDeep));
+        assertSameOutcome(tooDeep);
+    }
+
+    @Test
+    public void otherDocumentsAreParsedSequentially() {
+        String[] documents = {"[1,2,3]", "{\"a\":[1]}", "\"text\"", "[1,]", "", "[1]]"};
+        for (String document : documents) assertSameOutcome(document.getBytes(StandardCharsets.UTF_8));
+        String map = "{\"a\":\"" + "x".repeat(VariantParallelJsonParser.PARALLEL_THRESHOLD) + "\"}";
+        assertSameOutcome(map.getBytes(StandardCharsets.UTF_8));
+        assertEquals(Variant.newList(), parseParallel(("[" + " ".repeat(VariantParallelJsonParser.PARALLEL_THRESHOLD) + "]").getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,209 @@
+package ru.vladislav117.variant;
+
+import org.junit.jupiter.api.Test;
+import ru.vladislav117.variant.error.VariantJsonError;
+
+import java.io.ByteArrayInputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты последовательного чтения json по элементам.
+ */
+public class VariantReaderTest {
+    static Variant rebuild(VariantReader reader) {
+        switch (reader.getToken()) {
+            case START_MAP: {
+                Variant map = Variant.newMap();
+                while (reader.next() != VariantToken.END_MAP) map.attach(reader.getName(), rebuild(reader));
+                return map;
+            }
+            case START_LIST: {
+                Variant list = Variant.newList();
+                while (reader.next() != VariantToken.END_LIST) list.attach(rebuild(reader));
+                return list;
+            }
+            default:
+                return reader.readVariant();
+        }
+    }
+
+    static List<String> tokens(VariantReader reader) {
+        List<String> tokens = new ArrayList<>();
+        VariantToken token;
+        do {
+            token = reader.next();
+            tokens.add(token + (reader.getName() == null ? "" : " " + reader.getName()) + " " + reader.getDepth());
+        } while (token != VariantToken.END_DOCUMENT);
+        return tokens;
+    }
+
+    static void drain(VariantReader reader) {
+        VariantToken token = reader.next();
+        while (token != VariantToken.END_DOCUMENT) token = reader.next();
+    }
+
+    @Test
+    public void tokensFollowTheDocument() {
+        VariantReader reader = new VariantReader(" {\"a\" : [1, {\"b\":null}], \"c\":\"x\", \"d\":true, \"e\":{}} ");
+        assertNull(reader.getToken());
+        assertEquals(List.of(
+                "START_MAP 1", "START_LIST a 2", "NUMBER 2", "START_MAP 3", "NULL b 3", "END_MAP 2", "END_LIST 1",
+                "STRING c 1", "BOOLEAN d 1", "START_MAP e 2", "END_MAP 1", "END_MAP 0", "END_DOCUMENT 0"
+        ), tokens(reader));
+        assertEquals(VariantToken.END_DOCUMENT, reader.next());
+        assertEquals(VariantToken.END_DOCUMENT, reader.getToken());
+        assertNull(reader.getType());
+        assertEquals(List.of("NUMBER 0", "END_DOCUMENT 0"), tokens(new VariantReader("12")));
+        assertEquals(List.of("START_LIST 1", "END_LIST 0", "END_DOCUMENT 0"), tokens(new VariantReader("[ ]")));
+    }
+
+    @Test
+    public void valuesAreAvailableWithoutTree() {
+        VariantReader reader = new VariantReader("{\"name\":\"é\\n😀\",\"n\":-123,\"d\":2.5e3,\"t\":false,\"big\":123456789012345678901234567890}");
+        assertEquals(VariantToken.START_MAP, reader.next());
+        assertEquals(VariantType.MAP, reader.getType());
+        assertEquals(VariantToken.STRING, reader.next());
+        assertTrue(reader.nameEquals("name"));
+        assertFalse(reader.nameEquals("nam"));
+        assertTrue(reader.stringEquals("é\n😀"));
+        assertEquals("é\n😀", reader.getString());
+        assertThrows(IllegalStateException.class, reader::getLong);
+        assertEquals(VariantToken.NUMBER, reader.next());
+        assertEquals(-123, reader.getLong());
+        assertEquals(-123.0, reader.getDouble());
+        assertThrows(IllegalStateException.class, reader::getString);
+        assertFalse(reader.stringEquals("-123"));
+        reader.next();
+        assertEquals(2500.0, reader.getDouble());
+        assertEquals(2500, reader.getLong());
+        assertEquals(VariantToken.BOOLEAN, reader.next());
+        assertFalse(reader.getBoolean());
+        assertEquals(VariantToken.NUMBER, reader.next());
+        assertEquals(Variant.fromJsonString("123456789012345678901234567890"), reader.readVariant());
+        assertEquals(VariantToken.END_MAP, reader.next());
+        assertNull(reader.getName());
+        assertThrows(IllegalStateException.class, reader::readVariant);
+        assertThrows(IllegalStateException.class, reader::getBoolean);
+    }
+
+    @Test
+    public void randomDocumentsAreRebuilt() {
+        Random random = new Random(22);
+        for (int iteration = 0; iteration < 500; iteration++) {
+            Variant expected = VariantSamples.random(random, 0);
+            byte[] json = expected.toJsonString().getBytes(StandardCharsets.UTF_8);
+            VariantReader[] readers = {
+                    new VariantReader(json),
+                    new VariantReader(new VariantJsonParserTest.SlowStream(json)),
+                    new VariantReader(Channels.newChannel(new ByteArrayInputStream(json)))
+            };
+            for (VariantReader reader : readers) {
+                reader.next();
+                assertEquals(expected, rebuild(reader));
+                assertEquals(VariantToken.END_DOCUMENT, reader.next());
+            }
+        }
+    }
+
+    @Test
+    public void skipChildrenAndReadVariantMoveToContainerEnd() {
+        Random random = new Random(23);
+        for (int iteration = 0; iteration < 300; iteration++) {
+            Variant expected = Variant.newMap();
+            for (int index = 0; index < 8; index++) expected.attach("key" + index, VariantSamples.random(random, 1));
+            VariantReader reader = new VariantReader(expected.toJsonString());
+            assertEquals(VariantToken.START_MAP, reader.next());
+            Variant actual = Variant.newMap();
+            while (reader.next() != VariantToken.END_MAP) {
+                String name = reader.getName();
+                VariantToken token = reader.getToken();
+                switch (random.nextInt(3)) {
+                    case 0:
+                        actual.attach(name, reader.readVariant());
+                        break;
+                    case 1:
+                        actual.attach(name, rebuild(reader));
+                        break;
+                    default:
+                        reader.skipChildren();
+                        if (token == VariantToken.START_MAP) assertEquals(VariantToken.END_MAP, reader.getToken());
+                        if (token == VariantToken.START_LIST) assertEquals(VariantToken.END_LIST, reader.getToken());
+                        actual.attach(name, expected.get(name).deepCopy());
+                }
+                assertEquals(1, reader.getDepth());
+            }
+            assertEquals(expected, actual);
+            assertEquals(0, reader.getDepth());
+            assertEquals(VariantToken.END_DOCUMENT, reader.next());
+        }
+    }
+
+    @Test
+    public void skipChildrenChecksOnlyBracketsAndQuotes() {
+        VariantReader reader = new VariantReader("[{\"a\":[1,,\"]}\"]},2]");
+        reader.next();
+        assertEquals(VariantToken.START_MAP, reader.next());
+        reader.skipChildren();
+        assertEquals(VariantToken.END_MAP, reader.getToken());
+        assertEquals(VariantToken.NUMBER, reader.next());
+        assertEquals(2, reader.getLong());
+        VariantReader mismatched = new VariantReader("[{\"a\":[1}]");
+        mismatched.next();
+        mismatched.next();
+        assertThrows(VariantJsonError.class, mismatched::skipChildren);
+        VariantReader truncated = new VariantReader("{\"a\":[1,\"");
+        truncated.next();
+        assertThrows(VariantJsonError.class, truncated::skipChildren);
+    }
+
+    @Test
+    public void numbersBeyondLongAndDoubleStayExact() {
+        for (String number : VariantSamples.NUMBERS) {
+            VariantReader reader = new VariantReader("[" + number + "]");
+            reader.next();
+            assertEquals(VariantToken.NUMBER, reader.next());
+            Variant expected = Variant.fromJsonString(number);
+            assertEquals(expected, reader.readVariant(), number);
+            assertEquals(expected.asDouble(), reader.getDouble(), number);
+            if (expected.isLong()) assertEquals(expected.asLong(), reader.getLong(), number);
+        }
+    }
+
+    @Test
+    public void malformedInputIsRejectedLikeEagerParser() {
+        String[] documents = {
+                "", " ", "{", "}", "[", "]", "[1,]", "[,1]", "{\"a\"}", "{\"a\":}", "{\"a\":1,}", "{a:1}", "{\"a\" 1}",
+                "[1 2]", "tru", "nul", "falsey", "01", "-", "1.", ".5", "1e", "1e+", "+1", "\"unterminated", "\"\\x\"",
+                "\"\\u12\"", "\"tab\tinside\"", "[1]]", "{} {}", "NaN", "Infinity", "[\"a\" \"b\"]", "{\"a\":1 \"b\":2}",
+                "[1}", "{\"a\":1]", "\"\\ud800\"x"
+        };
+        for (String document : documents) {
+            String expected = assertThrows(VariantJsonError.class, () -> Variant.fromJsonString(document)).getMessage();
+            assertEquals(expected, assertThrows(VariantJsonError.class, () -> drain(new VariantReader(document))).getMessage(), document);
+        }
+    }
+
+    @Test
+    public void invalidUtf8IsRejected() {
+        byte[][] sequences = {{(byte) 0x80}, {(byte) 0xC0, (byte) 0x80}, {(byte) 0xED, (byte) 0xA0, (byte) 0x80}, {(byte) 0xF4, (byte) 0x90, (byte) 0x80, (byte) 0x80}};
+        String[][] wrappers = {{"[\"", "\"]"}, {"{\"", "\":1}"}};
+        for (byte[] sequence : sequences) {
+            for (String[] wrapper : wrappers) {
+                byte[] head = wrapper[0].getBytes(StandardCharsets.UTF_8);
+                byte[] tail = wrapper[1].getBytes(StandardCharsets.UTF_8);
+                byte[] json = new byte[head.length + sequence.length + tail.length];
+                System.arraycopy(head, 0, json, 0, head.length);
+                System.arraycopy(sequence, 0, json, head.length, sequence.length);
+                System.arraycopy(tail, 0, json, head.length + sequence.length, tail.length);
+                String expected = assertThrows(VariantJsonError.class, () -> Variant.fromJsonBytes(json)).getMessage();
+                assertEquals(expected, assertThrows(VariantJsonError.class, () -> drain(new VariantReader(json))).getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package ru.vladislav117.variant;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Random;
+
+/**
+ * Случайные и заранее заданные объекты для тестов разбора и записи.
+ */
+class VariantSamples {
+    static final String[] STRINGS = {
+            "", "a", "plain ascii", "quote \" and backslash \\", "control \u0000\u0001\u001F\t\n\r\b\f",
+            "é ü ß", "кириллица", "日本語", "emoji 😀 🎉", "line \u2028 separator \u2029", "/slash/"
+    };
+    static final String[] NUMBERS = {
+            "0", "-0", "1", "-1", "1024", "1025", "-128", "9223372036854775807", "-9223372036854775808",
+            "9223372036854775808", "-9223372036854775809", "123456789012345678901234567890", "0.1", "-0.0", "1.5", "1e10",
+            "1E-7", "1.7976931348623157e308", "4.9e-324", "1e400", "-1e400", "1e-400", "1.00000000000000000000001",
+            "3.141592653589793238462643383279"
+    };
+
+    /**
+     * Создание случайного объекта.
+     *
+     * @param random Генератор случайных чисел
+     * @param depth  Текущая вложенность
+     * @return Объект.
+     */
+    static Variant random(Random random, int depth) {
+        switch (random.nextInt(depth > 4 ? 5 : 9)) {
+            case 0:
+                return new Variant(null);
+            case 1:
+                return Variant.newBoolean(random.nextBoolean());
+            case 2:
+                return randomNumber(random);
+            case 3:
+                return Variant.newString(randomString(random));
+            case 4:
+                return Variant.fromJsonString(NUMBERS[random.nextInt(NUMBERS.length)]);
+            case 5:
+                return randomPrimitiveList(random);
+            case 6: {
+                Variant list = Variant.newList();
+                int size = random.nextInt(6);
+                for (int index = 0; index < size; index++) list.attach(random(random, depth + 1));
+                return list;
+            }
+            default: {
+                Variant map = Variant.newMap();
+                int size = random.nextInt(random.nextInt(8) == 0 ? 30 : 6);
+                for (int index = 0; index < size; index++) map.attach(randomString(random) + index, random(random, depth + 1));
+                return map;
+            }
+        }
+    }
+
+    static Variant randomNumber(Random random) {
+        switch (random.nextInt(6)) {
+            case 0:
+                return Variant.newLong(random.nextInt(2000) - 500);
+            case 1:
+                return Variant.newLong(random.nextLong());
+            case 2:
+                return Variant.newDouble(random.nextDouble() * Math.pow(10, random.nextInt(40) - 20));
+            case 3:
+                return Variant.newDouble(-random.nextDouble());
+            case 4:
+                return Variant.newBigInteger(new BigInteger(100, random).negate());
+            default:
+                return Variant.newBigDecimal(new BigDecimal(new BigInteger(90, random), random.nextInt(40)));
+        }
+    }
+
+    static Variant randomPrimitiveList(Random random) {
+        Variant list = Variant.newList();
+        int size = random.nextInt(20);
+        int kind = random.nextInt(3);
+        for (int index = 0; index < size; index++) {
+            if (kind == 0) list.addLong(random.nextLong() >> random.nextInt(64));
+            else if (kind == 1) list.addDouble(random.nextGaussian() * 1e6);
+            else list.addBoolean(random.nextBoolean());
+        }
+        return list;
+    }
+
+    static String randomString(Random random) {
+        if (random.nextBoolean()) return STRINGS[random.nextInt(STRINGS.length)];
+        StringBuilder builder = new StringBuilder();
+        int length = random.nextInt(12);
+        for (int index = 0; index < length; index++) {
+            switch (random.nextInt(5)) {
+                case 0:
+                    builder.append((char) random.nextInt(0x20));
+                    break;
+                case 1:
+                    builder.append((char) (0x80 + random.nextInt(0x780)));
+                    break;
+                case 2:
+                    builder.append((char) (0x800 + random.nextInt(0xD000)));
+                    break;
+                case 3:
+                    builder.appendCodePoint(0x10000 + random.nextInt(0x100000));
+                    break;
+                default:
+                    builder.append((char) (0x20 + random.nextInt(0x5F)));
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Создание вложенных списков.
+     *
+     * @param depth Вложенность
+     * @return Json.
+     */
+    static String nestedLists(int depth) {
+        return "[".repeat(depth) + "]".repeat(depth);
+    }
+}
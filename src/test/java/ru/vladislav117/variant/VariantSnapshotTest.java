@@ -0,0 +1,147 @@
+package ru.vladislav117.variant;
+
+import org.junit.jupiter.api.Test;
+import ru.vladislav117.variant.error.VariantFormatError;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты записи и чтения снимков.
+ */
+public class VariantSnapshotTest {
+    static final String HEADER = "56534e500100";
+
+    static byte[] hex(String hex) {
+        return HexFormat.of().parseHex(hex);
+    }
+
+    static byte[] nestedLists(int depth) {
+        byte[] header = hex(HEADER);
+        byte[] snapshot = Arrays.copyOf(header, header.length + depth * 2);
+        for (int index = 0; index < depth; index++) {
+            snapshot[header.length + index * 2] = 0x40;
+            snapshot[header.length + index * 2 + 1] = (byte) (index == depth - 1 ? 0 : 1);
+        }
+        return snapshot;
+    }
+
+    @Test
+    public void roundTripRandomDocuments() {
+        Random random = new Random(12);
+        for (int iteration = 0; iteration < 1000; iteration++) {
+            Variant expected = VariantSamples.random(random, 0);
+            byte[] snapshot = expected.toSnapshot();
+            assertEquals(expected, Variant.fromSnapshot(snapshot));
+            assertEquals(expected, Variant.fromSnapshotStream(new VariantJsonParserTest.SlowStream(snapshot)));
+            ByteArrayOutputStream stream = new ByteArrayOutputStream();
+            expected.writeSnapshot(stream);
+            assertArrayEquals(snapshot, stream.toByteArray());
+            byte[] padded = new byte[snapshot.length + 3];
+            System.arraycopy(snapshot, 0, padded, 2, snapshot.length);
+            assertEquals(expected, VariantSnapshotParser.parse(padded, 2, snapshot.length));
+        }
+    }
+
+    @Test
+    public void primitiveListsKeepStorage() {
+        Random random = new Random(13);
+        for (int iteration = 0; iteration < 100; iteration++) {
+            Variant expected = VariantSamples.randomPrimitiveList(random);
+            Variant parsed = Variant.fromSnapshot(expected.toSnapshot());
+            assertEquals(expected, parsed);
+            assertEquals(((VariantList) expected.object).getStorage(), ((VariantList) parsed.object).getStorage());
+        }
+    }
+
+    @Test
+    public void numbersBeyondLongAndDoubleStayExact() {
+        for (String number : VariantSamples.NUMBERS) {
+            Variant variant = Variant.fromJsonString(number);
+            Variant parsed = Variant.fromSnapshot(variant.toSnapshot());
+            assertEquals(variant, parsed, number);
+            assertEquals(0, variant.asBigDecimal().compareTo(parsed.asBigDecimal()), number);
+            assertEquals(variant.toJsonString(), parsed.toJsonString(), number);
+        }
+        for (String literal : new String[]{"1e400", "1E+400", "-12.50e-500", "0.1000000000000000000000000000001"}) {
+            Variant parsed = Variant.fromSnapshot(Variant.fromJsonString(literal).toSnapshot());
+            assertEquals(VariantNumberPrecision.DECIMAL, parsed.getNumberPrecision(), literal);
+            assertEquals(literal, parsed.toJsonString());
+        }
+        Variant huge = Variant.newBigInteger(BigInteger.TWO.pow(300).negate());
+        assertEquals(huge.asBigInteger(), Variant.fromSnapshot(huge.toSnapshot()).asBigInteger());
+        Variant precise = Variant.newBigDecimal(new BigDecimal("1e-400"));
+        assertEquals(0, precise.asBigDecimal().compareTo(Variant.fromSnapshot(precise.toSnapshot()).asBigDecimal()));
+        for (long value : new long[]{Long.MIN_VALUE, Long.MAX_VALUE, -1, 0, 1L << 62}) {
+            assertEquals(value, Variant.fromSnapshot(Variant.newLong(value).toSnapshot()).asLong());
+        }
+        Variant nan = Variant.fromSnapshot(Variant.newDouble(Double.NaN).toSnapshot());
+        assertTrue(Double.isNaN(nan.asDouble()));
+        assertEquals(Double.doubleToRawLongBits(-0.0), Double.doubleToRawLongBits(Variant.fromSnapshot(Variant.newDouble(-0.0).toSnapshot()).asDouble()));
+    }
+
+    @Test
+    public void truncatedInputIsRejected() {
+        Random random = new Random(14);
+        for (int iteration = 0; iteration < 200; iteration++) {
+            byte[] snapshot = VariantSamples.random(random, 0).toSnapshot();
+            for (int length = 0; length < snapshot.length; length++) {
+                int end = length;
+                assertThrows(VariantFormatError.class, () -> VariantSnapshotParser.parse(snapshot, 0, end));
+                assertThrows(VariantFormatError.class, () -> Variant.fromSnapshotStream(new ByteArrayInputStream(snapshot, 0, end)));
+            }
+        }
+    }
+
+    @Test
+    public void corruptDataIsRejected() {
+        String[] snapshots = {
+                "", "56534e50", "56534e5101" + "0000", "56534e500200" + "00", HEADER, HEADER + "ff", HEADER + "0000",
+                HEADER + "5001" + "0000", "56534e500101016100" + "500102" + "00", HEADER + "20ffffffffffffffffffff01",
+                HEADER + "40ffffffffffffffff7f", HEADER + "30ff7f", HEADER + "2200" + "00", HEADER + "2200" + "05" + "01",
+                HEADER + "4302", HEADER + "4209" + "0000000000000000", HEADER + "4102" + "80", "56534e500105" + "0161", HEADER + "23",
+                HEADER + "2203" + "317832", HEADER + "2202" + "3165", HEADER + "2201" + "2b", HEADER + "2204" + "312e2e32"
+        };
+        for (String snapshot : snapshots) {
+            byte[] bytes = hex(snapshot);
+            assertThrows(VariantFormatError.class, () -> Variant.fromSnapshot(bytes), snapshot);
+        }
+    }
+
+    @Test
+    public void randomCorruptionIsRejectedOrRead() {
+        Random random = new Random(15);
+        for (int iteration = 0; iteration < 2000; iteration++) {
+            byte[] snapshot = VariantSamples.random(random, 0).toSnapshot();
+            int flips = 1 + random.nextInt(3);
+            for (int flip = 0; flip < flips; flip++) snapshot[random.nextInt(snapshot.length)] ^= (byte) (1 << random.nextInt(8));
+            try {
+                Variant.fromSnapshot(snapshot).toJsonString();
+            } catch (VariantFormatError ignored) {
+            }
+        }
+    }
+
+    @Test
+    public void deepNestingIsLimited() {
+        int depth = VariantSnapshotParser.MAX_DEPTH;
+        assertEquals(depth, VariantJsonParserTest.depthOf(Variant.fromSnapshot(nestedLists(depth))));
+        assertThrows(VariantFormatError.class, () -> Variant.fromSnapshot(nestedLists(depth + 1)));
+        assertThrows(VariantFormatError.class, () -> Variant.fromSnapshot(nestedLists(1_000_000)));
+        byte[] header = hex("56534e50010101" + "61");
+        byte[] maps = Arrays.copyOf(header, header.length + 3 * 1_000_000);
+        for (int index = header.length; index < maps.length; index += 3) {
+            maps[index] = 0x50;
+            maps[index + 1] = 0x01;
+            maps[index + 2] = 0x00;
+        }
+        assertThrows(VariantFormatError.class, () -> Variant.fromSnapshot(maps));
+    }
+}
@@ -0,0 +1,114 @@
+package ru.vladislav117.variant;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты строк, хранящихся в UTF-8.
+ */
+public class VariantUtf8StringTest {
+    static final int[] CODE_POINTS = {'a', 'Z', '0', ' ', '"', '\\', '\n', 0x7F, 0xE9, 0x7FF, 0x800, 0x2028, 0xFFFD, 0xFFFF, 0x10000, 0x1F600, 0x10FFFF};
+
+    static String randomText(Random random) {
+        StringBuilder builder = new StringBuilder();
+        int length = random.nextInt(40);
+        for (int index = 0; index < length; index++) builder.appendCodePoint(CODE_POINTS[random.nextInt(CODE_POINTS.length)]);
+        return builder.toString();
+    }
+
+    static void assertSameAsString(String expected, VariantUtf8String actual) {
+        assertEquals(expected, actual.toString());
+        assertEquals(expected.length(), actual.length());
+        assertEquals(expected.hashCode(), actual.hashCode());
+        assertTrue(actual.contentEquals(expected));
+        assertTrue(actual.equals(expected));
+        for (int index = 0; index < expected.length(); index++) assertEquals(expected.charAt(index), actual.charAt(index));
+        assertEquals(expected.getBytes(StandardCharsets.UTF_8).length, actual.byteLength());
+        assertArrayEquals(expected.getBytes(StandardCharsets.UTF_8), actual.toByteArray());
+    }
+
+    @Test
+    public void decodingMatchesString() {
+        Random random = new Random(12);
+        for (int iteration = 0; iteration < 5000; iteration++) {
+            String text = randomText(random);
+            byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+            assertSameAsString(text, VariantUtf8String.of(bytes));
+            VariantUtf8String fresh = VariantUtf8String.of(bytes);
+            assertEquals(text.hashCode(), fresh.hashCode());
+            assertTrue(fresh.contentEquals(text));
+            byte[] padded = new byte[bytes.length + 6];
+            System.arraycopy(bytes, 0, padded, 3, bytes.length);
+            assertSameAsString(text, new VariantUtf8String(padded, 3, bytes.length, false));
+        }
+    }
+
+    @Test
+    public void equalityWithStringsAndOtherUtf8Strings() {
+        Random random = new Random(13);
+        for (int iteration = 0; iteration < 3000; iteration++) {
+            String first = randomText(random);
+            String second = random.nextBoolean() ? first : randomText(random);
+            VariantUtf8String utf8 = VariantUtf8String.of(first.getBytes(StandardCharsets.UTF_8));
+            VariantUtf8String other = VariantUtf8String.of(second.getBytes(StandardCharsets.UTF_8));
+            assertEquals(first.equals(second), utf8.contentEquals(second));
+            assertEquals(first.equals(second), utf8.equals(other));
+            assertEquals(first.equals(second), other.equals(utf8));
+            if (first.equals(second)) assertEquals(utf8.hashCode(), other.hashCode());
+            if (!first.isEmpty()) {
+                assertFalse(utf8.contentEquals(first.substring(0, first.length() - 1)));
+                assertFalse(utf8.contentEquals(first + "x"));
+            }
+        }
+        VariantUtf8String emoji = VariantUtf8String.of("😀".getBytes(StandardCharsets.UTF_8));
+        assertFalse(emoji.contentEquals("\uD83D"));
+        assertFalse(emoji.contentEquals("😁"));
+        assertFalse(emoji.equals(null));
+        assertFalse(emoji.equals(new StringBuilder("😀")));
+        assertEquals(0, VariantUtf8String.of(new byte[0]).hashCode());
+        assertTrue(VariantUtf8String.of(new byte[0]).contentEquals(""));
+    }
+
+    @Test
+    public void checkClassifiesBytes() {
+        assertEquals(VariantUtf8String.PLAIN, check("plain é 😀"));
+        assertEquals(VariantUtf8String.ESCAPED, check("quote \" é"));
+        assertEquals(VariantUtf8String.ESCAPED, check("back\\slash"));
+        assertEquals(VariantUtf8String.ESCAPED, check("tab\t"));
+        assertEquals(VariantUtf8String.ESCAPED, check("line\u2028separator"));
+        int[][] invalid = {{0x80}, {0xC0, 0x80}, {0xC1, 0xBF}, {0xC3}, {0xE0, 0x80, 0x80}, {0xED, 0xA0, 0x80}, {0xE2, 0x82},
+                {0xF0, 0x80, 0x80, 0x80}, {0xF4, 0x90, 0x80, 0x80}, {0xF5, 0x80, 0x80, 0x80}, {0xF0, 0x9F, 0x98}, {0xE2, 0x28, 0xA1}};
+        for (int[] sequence : invalid) {
+            byte[] bytes = new byte[sequence.length];
+            for (int index = 0; index < sequence.length; index++) bytes[index] = (byte) sequence[index];
+            assertEquals(VariantUtf8String.INVALID, VariantUtf8String.check(bytes, 0, bytes.length));
+            VariantUtf8String replaced = VariantUtf8String.of(bytes);
+            assertSameAsString(new String(bytes, StandardCharsets.UTF_8), replaced);
+            assertEquals(VariantUtf8String.PLAIN, VariantUtf8String.check(replaced.bytes, 0, replaced.length));
+        }
+    }
+
+    static int check(String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        return VariantUtf8String.check(bytes, 0, bytes.length);
+    }
+
+    @Test
+    public void parsedStringsEqualBuiltStrings() {
+        Random random = new Random(14);
+        for (int iteration = 0; iteration < 1000; iteration++) {
+            String text = randomText(random);
+            Variant built = Variant.newString(text);
+            Variant parsed = Variant.fromJsonBytes(built.toJsonString().getBytes(StandardCharsets.UTF_8));
+            assertEquals(built, parsed);
+            assertEquals(parsed, built);
+            assertEquals(built.hashCode(), parsed.hashCode());
+            assertEquals(text, parsed.asString());
+            assertEquals(built.toJsonString(), parsed.toJsonString());
+        }
+    }
+}